@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.network;
+
+import org.apache.flink.core.io.IOReadableWritable;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A record with a fixed-size byte payload. It is used to drive the network stack benchmarks
+ * with records of a controlled serialized size, independent of any type serializer.
+ */
+public class ByteArrayRecord implements IOReadableWritable {
+
+	private byte[] payload;
+
+	public ByteArrayRecord() {
+		this(0);
+	}
+
+	public ByteArrayRecord(int payloadSize) {
+		this.payload = new byte[payloadSize];
+		Arrays.fill(payload, (byte) 42);
+	}
+
+	public int getPayloadSize() {
+		return payload.length;
+	}
+
+	@Override
+	public void write(DataOutputView out) throws IOException {
+		out.writeInt(payload.length);
+		out.write(payload);
+	}
+
+	@Override
+	public void read(DataInputView in) throws IOException {
+		int length = in.readInt();
+		if (payload.length != length) {
+			payload = new byte[length];
+		}
+		in.readFully(payload);
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.network;
+
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.LocalBufferPool;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.IOException;
+
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+/**
+ * Benchmarks the request / recycle cycle of a {@link LocalBufferPool}, both uncontended and with
+ * several threads competing for the pool's lock (as the task thread, the output flusher and the
+ * netty threads do in a running job).
+ */
+@State(Benchmark)
+@OperationsPerInvocation(value = LocalBufferPoolBenchmark.BUFFERS_PER_INVOCATION)
+public class LocalBufferPoolBenchmark extends BenchmarkBase {
+
+	public static final int BUFFERS_PER_INVOCATION = 1_000;
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	private static final int NUM_SEGMENTS = 1024;
+
+	/** Number of buffers each request batch holds before recycling them again. */
+	@Param({"1", "8"})
+	public int buffersInFlight;
+
+	private NetworkBufferPool networkBufferPool;
+
+	private BufferPool bufferPool;
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+			.verbosity(VerboseMode.NORMAL)
+			.include(".*" + LocalBufferPoolBenchmark.class.getCanonicalName() + ".*")
+			.build();
+
+		new Runner(options).run();
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		networkBufferPool = new NetworkBufferPool(NUM_SEGMENTS, SEGMENT_SIZE, 1);
+		bufferPool = networkBufferPool.createBufferPool(NUM_SEGMENTS, NUM_SEGMENTS);
+	}
+
+	@TearDown
+	public void tearDown() {
+		bufferPool.lazyDestroy();
+		networkBufferPool.destroyAllBufferPools();
+		networkBufferPool.destroy();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void requestRecycleUncontended(Blackhole bh) throws IOException {
+		requestAndRecycle(bh);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void requestRecycleContended(Blackhole bh) throws IOException {
+		requestAndRecycle(bh);
+	}
+
+	private void requestAndRecycle(Blackhole bh) throws IOException {
+		Buffer[] buffers = new Buffer[buffersInFlight];
+		for (int i = 0; i < BUFFERS_PER_INVOCATION; i += buffersInFlight) {
+			for (int j = 0; j < buffersInFlight; j++) {
+				buffers[j] = bufferPool.requestBuffer();
+			}
+			for (int j = 0; j < buffersInFlight; j++) {
+				bh.consume(buffers[j]);
+				if (buffers[j] != null) {
+					buffers[j].recycleBuffer();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.network;
+
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
+import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpanningRecordDeserializer;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriterBuilder;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.partition.NoOpBufferAvailablityListener;
+import org.apache.flink.runtime.io.network.partition.ResultPartition;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionBuilder;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * End-to-end throughput benchmark of a local (in-JVM) channel: records are emitted through a
+ * {@link RecordWriter} into a pipelined {@link ResultPartition} and consumed by a receiver thread
+ * which polls the subpartition views and deserializes every record again.
+ */
+@State(Scope.Thread)
+@OperationsPerInvocation(value = LocalChannelThroughputBenchmark.RECORDS_PER_INVOCATION)
+public class LocalChannelThroughputBenchmark extends BenchmarkBase {
+
+	public static final int RECORDS_PER_INVOCATION = 100_000;
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	private static final int BUFFERS_PER_CHANNEL = 2;
+
+	private static final int FLOATING_BUFFERS = 8;
+
+	@Param({"1", "4"})
+	public int numberOfChannels;
+
+	@Param({"16", "1024", "65536"})
+	public int recordSize;
+
+	private NetworkBufferPool networkBufferPool;
+
+	private ResultPartition partition;
+
+	private RecordWriter<ByteArrayRecord> recordWriter;
+
+	private ReceiverThread receiver;
+
+	private ByteArrayRecord record;
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+			.verbosity(VerboseMode.NORMAL)
+			.include(".*" + LocalChannelThroughputBenchmark.class.getCanonicalName() + ".*")
+			.build();
+
+		new Runner(options).run();
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		int numBuffers = numberOfChannels * BUFFERS_PER_CHANNEL + FLOATING_BUFFERS;
+		networkBufferPool = new NetworkBufferPool(numBuffers, SEGMENT_SIZE, 1);
+
+		partition = new ResultPartitionBuilder()
+			.setResultPartitionType(ResultPartitionType.PIPELINED_BOUNDED)
+			.setNumberOfSubpartitions(numberOfChannels)
+			.setNetworkBufferPool(networkBufferPool)
+			.setNetworkBufferSize(SEGMENT_SIZE)
+			.setNetworkBuffersPerChannel(BUFFERS_PER_CHANNEL)
+			.setFloatingNetworkBuffersPerGate(FLOATING_BUFFERS)
+			.build();
+		partition.setup();
+
+		ResultSubpartitionView[] views = new ResultSubpartitionView[numberOfChannels];
+		for (int i = 0; i < numberOfChannels; i++) {
+			views[i] = partition.createSubpartitionView(i, new NoOpBufferAvailablityListener());
+		}
+
+		recordWriter = new RecordWriterBuilder<ByteArrayRecord>().build(partition);
+		record = new ByteArrayRecord(recordSize);
+
+		receiver = new ReceiverThread(views);
+		receiver.start();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		receiver.shutdown();
+		receiver.join();
+
+		recordWriter.close();
+		partition.release();
+		networkBufferPool.destroyAllBufferPools();
+		networkBufferPool.destroy();
+	}
+
+	@Benchmark
+	public void localChannelThroughput() throws Exception {
+		CompletableFuture<?> received = receiver.expectRecords(RECORDS_PER_INVOCATION);
+
+		for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+			recordWriter.emit(record);
+		}
+		recordWriter.flushAll();
+
+		received.get();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Consumes all subpartitions of the benchmarked partition in a round-robin fashion and
+	 * signals the benchmark thread once the expected number of records has arrived.
+	 */
+	private static final class ReceiverThread extends Thread {
+
+		private final ResultSubpartitionView[] views;
+
+		private final RecordDeserializer<ByteArrayRecord>[] deserializers;
+
+		private final ByteArrayRecord target = new ByteArrayRecord();
+
+		private volatile boolean running = true;
+
+		private volatile CompletableFuture<?> expectedRecordsFuture;
+
+		private volatile long expectedRecords;
+
+		private long receivedRecords;
+
+		@SuppressWarnings("unchecked")
+		ReceiverThread(ResultSubpartitionView[] views) {
+			super("Benchmark Receiver");
+			setDaemon(true);
+
+			this.views = views;
+			this.deserializers = new RecordDeserializer[views.length];
+			for (int i = 0; i < views.length; i++) {
+				deserializers[i] = new SpillingAdaptiveSpanningRecordDeserializer<>(
+					new String[] {System.getProperty("java.io.tmpdir")});
+			}
+		}
+
+		CompletableFuture<?> expectRecords(long numRecords) {
+			CompletableFuture<?> future = new CompletableFuture<>();
+			expectedRecordsFuture = future;
+			expectedRecords = numRecords;
+			return future;
+		}
+
+		void shutdown() {
+			running = false;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (running) {
+					boolean receivedAny = false;
+					for (int i = 0; i < views.length; i++) {
+						receivedAny |= pollChannel(i);
+					}
+					if (!receivedAny) {
+						Thread.yield();
+					}
+				}
+			} catch (Throwable t) {
+				CompletableFuture<?> future = expectedRecordsFuture;
+				if (future != null) {
+					future.completeExceptionally(t);
+				}
+			} finally {
+				for (RecordDeserializer<ByteArrayRecord> deserializer : deserializers) {
+					deserializer.clear();
+				}
+			}
+		}
+
+		private boolean pollChannel(int channel) throws IOException {
+			BufferAndBacklog bufferAndBacklog = views[channel].getNextBuffer();
+			if (bufferAndBacklog == null) {
+				return false;
+			}
+
+			Buffer buffer = bufferAndBacklog.buffer();
+			if (!buffer.isBuffer()) {
+				buffer.recycleBuffer();
+				return true;
+			}
+
+			RecordDeserializer<ByteArrayRecord> deserializer = deserializers[channel];
+			deserializer.setNextBuffer(buffer);
+			while (true) {
+				DeserializationResult result = deserializer.getNextRecord(target);
+				if (result.isFullRecord()) {
+					recordReceived();
+				}
+				if (result.isBufferConsumed()) {
+					deserializer.getCurrentBuffer().recycleBuffer();
+					return true;
+				}
+			}
+		}
+
+		private void recordReceived() {
+			if (++receivedRecords == expectedRecords) {
+				receivedRecords = 0;
+				expectedRecordsFuture.complete(null);
+			}
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark.network;
+
+import org.apache.flink.benchmark.BenchmarkBase;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
+import org.apache.flink.runtime.io.network.api.serialization.RecordSerializer;
+import org.apache.flink.runtime.io.network.api.serialization.SpanningRecordSerializer;
+import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpanningRecordDeserializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+import static org.openjdk.jmh.annotations.Scope.Thread;
+
+/**
+ * Benchmarks the record (de)serialization path of the network stack, i.e.
+ * {@link SpanningRecordSerializer} and {@link SpillingAdaptiveSpanningRecordDeserializer},
+ * without any buffer pool or channel in between.
+ *
+ * <p>The record sizes are chosen such that the small records never span a buffer, while the
+ * large ones always span several buffers.
+ */
+@State(Thread)
+@OperationsPerInvocation(value = RecordSerializationBenchmark.RECORDS_PER_INVOCATION)
+public class RecordSerializationBenchmark extends BenchmarkBase {
+
+	public static final int RECORDS_PER_INVOCATION = 1_000;
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	@Param({"16", "128", "1024", "16384", "131072"})
+	public int recordSize;
+
+	private final ArrayDeque<MemorySegment> availableSegments = new ArrayDeque<>();
+
+	private final BufferRecycler recycler = availableSegments::add;
+
+	private RecordSerializer<ByteArrayRecord> serializer;
+
+	private RecordDeserializer<ByteArrayRecord> deserializer;
+
+	private ByteArrayRecord sourceRecord;
+
+	private ByteArrayRecord targetRecord;
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+			.verbosity(VerboseMode.NORMAL)
+			.include(".*" + RecordSerializationBenchmark.class.getCanonicalName() + ".*")
+			.build();
+
+		new Runner(options).run();
+	}
+
+	@Setup
+	public void setUp() {
+		// two segments are enough because a buffer is recycled before the next one is requested
+		availableSegments.add(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE));
+		availableSegments.add(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE));
+
+		serializer = new SpanningRecordSerializer<>();
+		deserializer = new SpillingAdaptiveSpanningRecordDeserializer<>(
+			new String[] {System.getProperty("java.io.tmpdir")});
+		sourceRecord = new ByteArrayRecord(recordSize);
+		targetRecord = new ByteArrayRecord();
+	}
+
+	@TearDown
+	public void tearDown() {
+		deserializer.clear();
+		availableSegments.clear();
+	}
+
+	@Benchmark
+	public void serialize(Blackhole bh) throws IOException {
+		BufferBuilder bufferBuilder = nextBufferBuilder();
+		BufferConsumer bufferConsumer = bufferBuilder.createBufferConsumer();
+
+		for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+			serializer.serializeRecord(sourceRecord);
+			while (serializer.copyToBufferBuilder(bufferBuilder).isFullBuffer()) {
+				bufferBuilder.finish();
+				consumeBuffer(bufferConsumer, bh);
+
+				bufferBuilder = nextBufferBuilder();
+				bufferConsumer = bufferBuilder.createBufferConsumer();
+				if (!serializer.hasSerializedData()) {
+					break;
+				}
+			}
+			serializer.prune();
+		}
+
+		bufferBuilder.finish();
+		consumeBuffer(bufferConsumer, bh);
+	}
+
+	@Benchmark
+	public void serializeAndDeserialize(Blackhole bh) throws IOException {
+		BufferBuilder bufferBuilder = nextBufferBuilder();
+		BufferConsumer bufferConsumer = bufferBuilder.createBufferConsumer();
+
+		for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+			serializer.serializeRecord(sourceRecord);
+			while (serializer.copyToBufferBuilder(bufferBuilder).isFullBuffer()) {
+				bufferBuilder.finish();
+				deserializeBuffer(bufferConsumer, bh);
+
+				bufferBuilder = nextBufferBuilder();
+				bufferConsumer = bufferBuilder.createBufferConsumer();
+				if (!serializer.hasSerializedData()) {
+					break;
+				}
+			}
+			serializer.prune();
+		}
+
+		bufferBuilder.finish();
+		deserializeBuffer(bufferConsumer, bh);
+	}
+
+	private static void consumeBuffer(BufferConsumer bufferConsumer, Blackhole bh) {
+		Buffer buffer = bufferConsumer.build();
+		bufferConsumer.close();
+
+		bh.consume(buffer.getSize());
+		buffer.recycleBuffer();
+	}
+
+	private void deserializeBuffer(BufferConsumer bufferConsumer, Blackhole bh) throws IOException {
+		Buffer buffer = bufferConsumer.build();
+		bufferConsumer.close();
+
+		deserializer.setNextBuffer(buffer);
+		while (true) {
+			DeserializationResult result = deserializer.getNextRecord(targetRecord);
+			if (result.isFullRecord()) {
+				bh.consume(targetRecord);
+			}
+			if (result.isBufferConsumed()) {
+				deserializer.getCurrentBuffer().recycleBuffer();
+				break;
+			}
+		}
+	}
+
+	private BufferBuilder nextBufferBuilder() {
+		return new BufferBuilder(availableSegments.poll(), recycler);
+	}
+}
@@ -31,11 +31,17 @@ public class JdbcLookupOptions implements Serializable {
 	private final long cacheMaxSize;
 	private final long cacheExpireMs;
 	private final int maxRetryTimes;
+	private final boolean cacheShared;
 
 	public JdbcLookupOptions(long cacheMaxSize, long cacheExpireMs, int maxRetryTimes) {
+		this(cacheMaxSize, cacheExpireMs, maxRetryTimes, false);
+	}
+
+	public JdbcLookupOptions(long cacheMaxSize, long cacheExpireMs, int maxRetryTimes, boolean cacheShared) {
 		this.cacheMaxSize = cacheMaxSize;
 		this.cacheExpireMs = cacheExpireMs;
 		this.maxRetryTimes = maxRetryTimes;
+		this.cacheShared = cacheShared;
 	}
 
 	public long getCacheMaxSize() {
@@ -50,6 +56,10 @@ public class JdbcLookupOptions implements Serializable {
 		return maxRetryTimes;
 	}
 
+	public boolean isCacheShared() {
+		return cacheShared;
+	}
+
 	public static Builder builder() {
 		return new Builder();
 	}
@@ -60,7 +70,8 @@ public class JdbcLookupOptions implements Serializable {
 			JdbcLookupOptions options = (JdbcLookupOptions) o;
 			return Objects.equals(cacheMaxSize, options.cacheMaxSize) &&
 				Objects.equals(cacheExpireMs, options.cacheExpireMs) &&
-				Objects.equals(maxRetryTimes, options.maxRetryTimes);
+				Objects.equals(maxRetryTimes, options.maxRetryTimes) &&
+				Objects.equals(cacheShared, options.cacheShared);
 		} else {
 			return false;
 		}
@@ -73,6 +84,7 @@ public class JdbcLookupOptions implements Serializable {
 		private long cacheMaxSize = -1L;
 		private long cacheExpireMs = -1L;
 		private int maxRetryTimes = JdbcExecutionOptions.DEFAULT_MAX_RETRY_TIMES;
+		private boolean cacheShared = false;
 
 		/**
 		 * optional, lookup cache max size, over this value, the old data will be eliminated.
@@ -98,8 +110,17 @@ public class JdbcLookupOptions implements Serializable {
 			return this;
 		}
 
+		/**
+		 * optional, whether the lookup cache is shared by all subtasks in a TaskManager which look up
+		 * the same table.
+		 */
+		public Builder setCacheShared(boolean cacheShared) {
+			this.cacheShared = cacheShared;
+			return this;
+		}
+
 		public JdbcLookupOptions build() {
-			return new JdbcLookupOptions(cacheMaxSize, cacheExpireMs, maxRetryTimes);
+			return new JdbcLookupOptions(cacheMaxSize, cacheExpireMs, maxRetryTimes, cacheShared);
 		}
 	}
 }
@@ -123,6 +123,13 @@ public class JdbcDynamicTableFactory implements DynamicTableSourceFactory, Dynam
 		.durationType()
 		.defaultValue(Duration.ofSeconds(10))
 		.withDescription("the cache time to live.");
+	private static final ConfigOption<Boolean> LOOKUP_CACHE_SHARED = ConfigOptions
+		.key("lookup.cache.shared")
+		.booleanType()
+		.defaultValue(false)
+		.withDescription("whether the lookup cache is shared by all parallel lookup functions of the table " +
+			"in a TaskManager. A shared cache loads a missing key only once, even if it is looked up by " +
+			"multiple subtasks at the same time.");
 	private static final ConfigOption<Integer> LOOKUP_MAX_RETRIES = ConfigOptions
 		.key("lookup.max-retries")
 		.intType()
@@ -210,7 +217,8 @@ public class JdbcDynamicTableFactory implements DynamicTableSourceFactory, Dynam
 		return new JdbcLookupOptions(
 			readableConfig.get(LOOKUP_CACHE_MAX_ROWS),
 			readableConfig.get(LOOKUP_CACHE_TTL).toMillis(),
-			readableConfig.get(LOOKUP_MAX_RETRIES));
+			readableConfig.get(LOOKUP_MAX_RETRIES),
+			readableConfig.get(LOOKUP_CACHE_SHARED));
 	}
 
 	private JdbcExecutionOptions getJdbcExecutionOptions(ReadableConfig config) {
@@ -260,6 +268,7 @@ public class JdbcDynamicTableFactory implements DynamicTableSourceFactory, Dynam
 		optionalOptions.add(SCAN_FETCH_SIZE);
 		optionalOptions.add(LOOKUP_CACHE_MAX_ROWS);
 		optionalOptions.add(LOOKUP_CACHE_TTL);
+		optionalOptions.add(LOOKUP_CACHE_SHARED);
 		optionalOptions.add(LOOKUP_MAX_RETRIES);
 		optionalOptions.add(SINK_BUFFER_FLUSH_MAX_ROWS);
 		optionalOptions.add(SINK_BUFFER_FLUSH_INTERVAL);
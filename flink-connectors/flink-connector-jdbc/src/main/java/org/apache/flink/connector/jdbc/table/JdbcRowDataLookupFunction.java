@@ -19,6 +19,7 @@
 package org.apache.flink.connector.jdbc.table;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.connector.jdbc.dialect.JdbcDialect;
 import org.apache.flink.connector.jdbc.dialect.JdbcDialects;
@@ -26,9 +27,12 @@ import org.apache.flink.connector.jdbc.internal.converter.JdbcRowConverter;
 import org.apache.flink.connector.jdbc.internal.options.JdbcLookupOptions;
 import org.apache.flink.connector.jdbc.internal.options.JdbcOptions;
 import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.connector.source.lookup.SharedLookupCache;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
 import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.table.functions.TableFunction;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.RowType;
@@ -47,6 +51,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -71,14 +76,20 @@ public class JdbcRowDataLookupFunction extends TableFunction<RowData> {
 	private final DataType[] keyTypes;
 	private final long cacheMaxSize;
 	private final long cacheExpireMs;
+	private final boolean cacheShared;
 	private final int maxRetryTimes;
 	private final JdbcDialect jdbcDialect;
 	private final JdbcRowConverter jdbcRowConverter;
 	private final JdbcRowConverter lookupKeyRowConverter;
+	private final RowType rowType;
+	private final RowType keyRowType;
 
 	private transient Connection dbConn;
 	private transient PreparedStatement statement;
 	private transient Cache<RowData, List<RowData>> cache;
+	private transient SharedLookupCache<BinaryRowData, List<BinaryRowData>> sharedCache;
+	private transient RowDataSerializer keySerializer;
+	private transient RowDataSerializer rowSerializer;
 
 	public JdbcRowDataLookupFunction(
 			JdbcOptions options,
@@ -105,23 +116,35 @@ public class JdbcRowDataLookupFunction extends TableFunction<RowData> {
 			.toArray(DataType[]::new);
 		this.cacheMaxSize = lookupOptions.getCacheMaxSize();
 		this.cacheExpireMs = lookupOptions.getCacheExpireMs();
+		this.cacheShared = lookupOptions.isCacheShared();
 		this.maxRetryTimes = lookupOptions.getMaxRetryTimes();
 		this.query = options.getDialect().getSelectFromStatement(
 			options.getTableName(), fieldNames, keyNames);
 		this.jdbcDialect = JdbcDialects.get(dbURL)
 			.orElseThrow(() -> new UnsupportedOperationException(String.format("Unknown dbUrl:%s", dbURL)));
+		this.rowType = rowType;
+		this.keyRowType = RowType.of(Arrays.stream(keyTypes).map(DataType::getLogicalType).toArray(LogicalType[]::new));
 		this.jdbcRowConverter = jdbcDialect.getRowConverter(rowType);
-		this.lookupKeyRowConverter = jdbcDialect.getRowConverter(RowType.of(Arrays.stream(keyTypes).map(DataType::getLogicalType).toArray(LogicalType[]::new)));
+		this.lookupKeyRowConverter = jdbcDialect.getRowConverter(keyRowType);
 	}
 
 	@Override
 	public void open(FunctionContext context) throws Exception {
 		try {
 			establishConnectionAndStatement();
-			this.cache = cacheMaxSize == -1 || cacheExpireMs == -1 ? null : CacheBuilder.newBuilder()
-				.expireAfterWrite(cacheExpireMs, TimeUnit.MILLISECONDS)
-				.maximumSize(cacheMaxSize)
-				.build();
+			boolean cacheEnabled = cacheMaxSize != -1 && cacheExpireMs != -1;
+			if (cacheEnabled && cacheShared) {
+				// the username is part of the identity, as it may restrict the visible rows
+				this.sharedCache = SharedLookupCache.acquire(
+					String.join("|", dbURL, String.valueOf(username), query), cacheMaxSize, cacheExpireMs);
+				this.keySerializer = new RowDataSerializer(new ExecutionConfig(), keyRowType);
+				this.rowSerializer = new RowDataSerializer(new ExecutionConfig(), rowType);
+			} else if (cacheEnabled) {
+				this.cache = CacheBuilder.newBuilder()
+					.expireAfterWrite(cacheExpireMs, TimeUnit.MILLISECONDS)
+					.maximumSize(cacheMaxSize)
+					.build();
+			}
 		} catch (SQLException sqe) {
 			throw new IllegalArgumentException("open() failed.", sqe);
 		} catch (ClassNotFoundException cnfe) {
@@ -135,37 +158,62 @@ public class JdbcRowDataLookupFunction extends TableFunction<RowData> {
 	 */
 	public void eval(Object... keys) {
 		RowData keyRow = GenericRowData.of(keys);
+		if (sharedCache != null) {
+			// the shared cache is accessed by other tasks and jobs, so it only holds binary copies, which are not
+			// lazily materialized and do not refer to objects of this task, and hands out copies of them
+			List<BinaryRowData> rows;
+			try {
+				rows = sharedCache.get(keySerializer.toBinaryRow(keyRow).copy(), this::queryBinaryRows);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new RuntimeException("Lookup of JDBC rows failed.", e);
+			}
+			for (BinaryRowData row : rows) {
+				collect(row.copy());
+			}
+			return;
+		}
+
 		if (cache != null) {
 			List<RowData> cachedRows = cache.getIfPresent(keyRow);
-			if (cachedRows != null) {
-				for (RowData cachedRow : cachedRows) {
-					collect(cachedRow);
-				}
-				return;
+			if (cachedRows == null) {
+				cachedRows = queryRows(keyRow);
+				cache.put(keyRow, cachedRows);
+			}
+			for (RowData cachedRow : cachedRows) {
+				collect(cachedRow);
+			}
+		} else {
+			for (RowData row : queryRows(keyRow)) {
+				collect(row);
 			}
 		}
+	}
 
+	private List<BinaryRowData> queryBinaryRows(RowData keyRow) {
+		List<RowData> rows = queryRows(keyRow);
+		List<BinaryRowData> binaryRows = new ArrayList<>(rows.size());
+		for (RowData row : rows) {
+			binaryRows.add(rowSerializer.toBinaryRow(row).copy());
+		}
+		return binaryRows;
+	}
+
+	private List<RowData> queryRows(RowData keyRow) {
 		for (int retry = 1; retry <= maxRetryTimes; retry++) {
 			try {
 				statement.clearParameters();
 				statement = lookupKeyRowConverter.toExternal(keyRow, statement);
+				// every attempt collects into a new list, so that the rows of a failed attempt are dropped
+				ArrayList<RowData> rows = new ArrayList<>();
 				try (ResultSet resultSet = statement.executeQuery()) {
-					if (cache == null) {
-						while (resultSet.next()) {
-							collect(jdbcRowConverter.toInternal(resultSet));
-						}
-					} else {
-						ArrayList<RowData> rows = new ArrayList<>();
-						while (resultSet.next()) {
-							RowData row = jdbcRowConverter.toInternal(resultSet);
-							rows.add(row);
-							collect(row);
-						}
-						rows.trimToSize();
-						cache.put(keyRow, rows);
+					while (resultSet.next()) {
+						rows.add(jdbcRowConverter.toInternal(resultSet));
 					}
 				}
-				break;
+				rows.trimToSize();
+				return rows;
 			} catch (SQLException e) {
 				LOG.error(String.format("JDBC executeBatch error, retry times = %d", retry), e);
 				if (retry >= maxRetryTimes) {
@@ -190,6 +238,7 @@ public class JdbcRowDataLookupFunction extends TableFunction<RowData> {
 				}
 			}
 		}
+		return Collections.emptyList();
 	}
 
 	private void establishConnectionAndStatement() throws SQLException, ClassNotFoundException {
@@ -208,6 +257,10 @@ public class JdbcRowDataLookupFunction extends TableFunction<RowData> {
 			cache.cleanUp();
 			cache = null;
 		}
+		if (sharedCache != null) {
+			sharedCache.release();
+			sharedCache = null;
+		}
 		if (statement != null) {
 			try {
 				statement.close();
@@ -233,4 +286,14 @@ public class JdbcRowDataLookupFunction extends TableFunction<RowData> {
 	public Connection getDbConnection() {
 		return dbConn;
 	}
+
+	@VisibleForTesting
+	PreparedStatement getStatement() {
+		return statement;
+	}
+
+	@VisibleForTesting
+	void setStatement(PreparedStatement statement) {
+		this.statement = statement;
+	}
 }
@@ -149,6 +149,7 @@ public class JdbcDynamicTableFactoryTest {
 		properties.put("lookup.cache.max-rows", "1000");
 		properties.put("lookup.cache.ttl", "10s");
 		properties.put("lookup.max-retries", "10");
+		properties.put("lookup.cache.shared", "true");
 
 		DynamicTableSource actual = createTableSource(properties);
 
@@ -160,6 +161,7 @@ public class JdbcDynamicTableFactoryTest {
 			.setCacheMaxSize(1000)
 			.setCacheExpireMs(10_000)
 			.setMaxRetryTimes(10)
+			.setCacheShared(true)
 			.build();
 		JdbcDynamicTableSource expected = new JdbcDynamicTableSource(
 			options,
@@ -23,6 +23,7 @@ import org.apache.flink.connector.jdbc.internal.options.JdbcOptions;
 import org.apache.flink.table.api.DataTypes;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.binary.BinaryRowData;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.RowType;
@@ -32,14 +33,24 @@ import org.apache.flink.shaded.guava18.com.google.common.collect.Lists;
 
 import org.junit.Test;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.apache.flink.connector.jdbc.JdbcTestFixture.DERBY_EBOOKSHOP_DB;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test suite for {@link JdbcRowDataLookupFunction}.
@@ -59,7 +70,7 @@ public class JdbcRowDataLookupFunctionTest extends JdbcLookupTestBase {
 	@Test
 	public void testEval() throws Exception {
 
-		JdbcRowDataLookupFunction lookupFunction = buildRowDataLookupFunction();
+		JdbcRowDataLookupFunction lookupFunction = buildRowDataLookupFunction(JdbcLookupOptions.builder().build());
 
 		ListOutputCollector collector = new ListOutputCollector();
 		lookupFunction.setCollector(collector);
@@ -87,15 +98,85 @@ public class JdbcRowDataLookupFunctionTest extends JdbcLookupTestBase {
 		assertEquals(expected, result);
 	}
 
-	private JdbcRowDataLookupFunction buildRowDataLookupFunction() {
+	@Test
+	public void testRetryDropsRowsOfFailedAttempt() throws Exception {
+		JdbcLookupOptions lookupOptions = JdbcLookupOptions.builder()
+			.setCacheMaxSize(100)
+			.setCacheExpireMs(Long.MAX_VALUE / 2)
+			.build();
+
+		JdbcRowDataLookupFunction lookupFunction = buildRowDataLookupFunction(lookupOptions);
+		ListOutputCollector collector = new ListOutputCollector();
+		lookupFunction.setCollector(collector);
+		lookupFunction.open(null);
+
+		try {
+			// the first attempt fails after the first of the two rows has been read
+			lookupFunction.setStatement(failOnSecondRowOfFirstQuery(lookupFunction.getStatement()));
+			lookupFunction.eval(1, StringData.fromString("1"));
+			// served from the cache
+			lookupFunction.eval(1, StringData.fromString("1"));
+
+			List<String> result = Lists.newArrayList(collector.getOutputs()).stream()
+				.map(RowData::toString)
+				.sorted()
+				.collect(Collectors.toList());
+
+			List<String> expected = new ArrayList<>();
+			expected.add("+I(1,1,11-c1-v1,11-c2-v1)");
+			expected.add("+I(1,1,11-c1-v1,11-c2-v1)");
+			expected.add("+I(1,1,11-c1-v2,11-c2-v2)");
+			expected.add("+I(1,1,11-c1-v2,11-c2-v2)");
+
+			assertEquals(expected, result);
+		} finally {
+			lookupFunction.close();
+		}
+	}
+
+	@Test
+	public void testEvalWithSharedCache() throws Exception {
+		JdbcLookupOptions lookupOptions = JdbcLookupOptions.builder()
+			.setCacheMaxSize(100)
+			.setCacheExpireMs(Long.MAX_VALUE / 2)
+			.setCacheShared(true)
+			.build();
+
+		JdbcRowDataLookupFunction lookupFunction1 = buildRowDataLookupFunction(lookupOptions);
+		ListOutputCollector collector1 = new ListOutputCollector();
+		lookupFunction1.setCollector(collector1);
+		lookupFunction1.open(null);
+
+		JdbcRowDataLookupFunction lookupFunction2 = buildRowDataLookupFunction(lookupOptions);
+		ListOutputCollector collector2 = new ListOutputCollector();
+		lookupFunction2.setCollector(collector2);
+		lookupFunction2.open(null);
+
+		try {
+			lookupFunction1.eval(1, StringData.fromString("1"));
+			lookupFunction2.eval(1, StringData.fromString("1"));
+
+			// the second function gets copies of the binary rows loaded by the first one
+			assertEquals(2, collector1.getOutputs().size());
+			assertEquals(2, collector2.getOutputs().size());
+			for (int i = 0; i < 2; i++) {
+				assertTrue(collector1.getOutputs().get(i) instanceof BinaryRowData);
+				assertEquals(collector1.getOutputs().get(i), collector2.getOutputs().get(i));
+				assertNotSame(collector1.getOutputs().get(i), collector2.getOutputs().get(i));
+			}
+		} finally {
+			lookupFunction1.close();
+			lookupFunction2.close();
+		}
+	}
+
+	private JdbcRowDataLookupFunction buildRowDataLookupFunction(JdbcLookupOptions lookupOptions) {
 		JdbcOptions jdbcOptions = JdbcOptions.builder()
 			.setDriverName(DERBY_EBOOKSHOP_DB.getDriverClass())
 			.setDBUrl(DB_URL)
 			.setTableName(LOOKUP_TABLE)
 			.build();
 
-		JdbcLookupOptions lookupOptions = JdbcLookupOptions.builder().build();
-
 		RowType rowType = RowType.of(Arrays.stream(fieldDataTypes).
 			map(DataType::getLogicalType).toArray(LogicalType[]::new), fieldNames);
 
@@ -110,6 +191,39 @@ public class JdbcRowDataLookupFunctionTest extends JdbcLookupTestBase {
 		return lookupFunction;
 	}
 
+	private static PreparedStatement failOnSecondRowOfFirstQuery(PreparedStatement statement) {
+		AtomicBoolean failed = new AtomicBoolean(false);
+		return (PreparedStatement) Proxy.newProxyInstance(
+			PreparedStatement.class.getClassLoader(),
+			new Class<?>[] {PreparedStatement.class},
+			(proxy, method, args) -> {
+				Object result = invoke(statement, method, args);
+				if (!method.getName().equals("executeQuery") || failed.getAndSet(true)) {
+					return result;
+				}
+
+				ResultSet resultSet = (ResultSet) result;
+				AtomicInteger numNextCalls = new AtomicInteger();
+				return Proxy.newProxyInstance(
+					ResultSet.class.getClassLoader(),
+					new Class<?>[] {ResultSet.class},
+					(resultSetProxy, resultSetMethod, resultSetArgs) -> {
+						if (resultSetMethod.getName().equals("next") && numNextCalls.incrementAndGet() > 1) {
+							throw new SQLException("Connection reset while reading the result set.");
+						}
+						return invoke(resultSet, resultSetMethod, resultSetArgs);
+					});
+			});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
 	private static final class ListOutputCollector implements Collector<RowData> {
 
 		private final List<RowData> output = new ArrayList<>();
@@ -20,6 +20,7 @@ package org.apache.flink.api.common.state;
 
 import org.apache.flink.annotation.PublicEvolving;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -51,6 +52,29 @@ public interface MapState<UK, UV> extends State {
 	 */
 	UV get(UK key) throws Exception;
 
+	/**
+	 * Returns the current values associated with the given keys. Keys without a mapping, or mapped to
+	 * {@code null}, are not contained in the returned map.
+	 *
+	 * <p>State backends may retrieve all values at once, which is cheaper than one {@link #get(Object)}
+	 * call per key.
+	 *
+	 * @param keys The keys of the mappings
+	 * @return The values of the mappings with the given keys
+	 *
+	 * @throws Exception Thrown if the system cannot access the state.
+	 */
+	default Map<UK, UV> getAll(Iterable<UK> keys) throws Exception {
+		Map<UK, UV> result = new HashMap<>();
+		for (UK key : keys) {
+			UV value = get(key);
+			if (value != null) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Associates a new value with the given key.
 	 *
@@ -20,6 +20,8 @@ package org.apache.flink.configuration;
 
 import org.apache.flink.annotation.docs.Documentation;
 
+import java.time.Duration;
+
 /**
  * A collection of all configuration options that relate to checkpoints
  * and savepoints.
@@ -157,4 +159,51 @@ public class CheckpointingOptions {
 		.withDescription(String.format("The default size of the write buffer for the checkpoint streams that write to file systems. " +
 			"The actual write buffer size is determined to be the maximum of the value of this option and option '%s'.", FS_SMALL_FILE_THRESHOLD.key()));
 
+	/**
+	 * The maximum number of consecutive incremental checkpoints of the heap keyed state backend that only write the
+	 * changes since the previous checkpoint.
+	 */
+	public static final ConfigOption<Integer> FS_INCREMENTAL_MAX_DELTAS = ConfigOptions
+		.key("state.backend.fs.incremental.max-deltas")
+		.intType()
+		.defaultValue(10)
+		.withDescription(String.format("The maximum number of consecutive incremental checkpoints of the heap keyed " +
+			"state backend of the FsStateBackend that only write the changes since the previous checkpoint. The next " +
+			"checkpoint writes the complete state again, which bounds the number of files that need to be read on " +
+			"restore. Only applies if '%s' is enabled and snapshots are asynchronous.", INCREMENTAL_CHECKPOINTS.key()));
+
+	/**
+	 * Whether to wrap the configured state backend with the changelog state backend, which logs all keyed state
+	 * changes and only periodically materializes the wrapped backend.
+	 */
+	public static final ConfigOption<Boolean> CHANGELOG_ENABLED = ConfigOptions
+		.key("state.backend.changelog.enabled")
+		.booleanType()
+		.defaultValue(false)
+		.withDescription("Whether to log all keyed state changes to a durable changelog that is continuously " +
+			"uploaded to the checkpoint storage, so that a checkpoint only needs to persist the tail of the changelog. " +
+			"The snapshot of the configured state backend is materialized periodically in the background.");
+
+	/**
+	 * The interval in which the changelog state backend materializes the wrapped state backend.
+	 */
+	public static final ConfigOption<Duration> CHANGELOG_MATERIALIZATION_INTERVAL = ConfigOptions
+		.key("state.backend.changelog.materialization.interval")
+		.durationType()
+		.defaultValue(Duration.ofMinutes(10))
+		.withDescription(String.format("The interval in which the snapshot of the wrapped state backend is " +
+			"materialized in the background, after which the changelog up to that point can be dropped. Only applies " +
+			"if '%s' is enabled.", CHANGELOG_ENABLED.key()));
+
+	/**
+	 * The size of buffered state changes after which the changelog state backend uploads them ahead of the next
+	 * checkpoint.
+	 */
+	public static final ConfigOption<MemorySize> CHANGELOG_UPLOAD_THRESHOLD = ConfigOptions
+		.key("state.backend.changelog.upload.threshold")
+		.memoryType()
+		.defaultValue(MemorySize.parse("1mb"))
+		.withDescription(String.format("The size of buffered state changes after which they are uploaded in the " +
+			"background, ahead of the next checkpoint. Only applies if '%s' is enabled.", CHANGELOG_ENABLED.key()));
+
 }
@@ -69,6 +69,21 @@ public class ClusterOptions {
 			"By default it will use 4 * the number of CPU cores (hardware contexts) that the cluster process has access to. " +
 			"Increasing the pool size allows to run more IO operations concurrently.");
 
+	public static final ConfigOption<String> CODEGEN_CACHE_DIRECTORY = ConfigOptions
+		.key("cluster.codegen.cache-dir")
+		.stringType()
+		.noDefaultValue()
+		.withDescription("A local directory in which the bytecode of compiled generated classes, e.g. of Table API and " +
+			"SQL programs, is cached, keyed by a hash of the generated code and of the Flink and Janino " +
+			"versions. The cache is shared by all jobs and survives process restarts, so identical " +
+			"generated code is compiled only once per machine. The option is read from the Flink " +
+			"configuration of each process, i.e. the TaskManagers and the client. The cache is disabled " +
+			"if no directory is set. Classes are loaded from the directory without further verification, " +
+			"so it must be private to the user that runs Flink: the directory is created with owner-only " +
+			"permissions, and the cache is disabled if the directory is owned by another user or is " +
+			"writable by others, or if the file system does not support POSIX permissions. Files in the " +
+			"directory are not removed automatically.");
+
 	@Documentation.Section(Documentation.Sections.EXPERT_SCHEDULING)
 	public static final ConfigOption<Boolean> EVENLY_SPREAD_OUT_SLOTS_STRATEGY = ConfigOptions
 		.key("cluster.evenly-spread-out-slots")
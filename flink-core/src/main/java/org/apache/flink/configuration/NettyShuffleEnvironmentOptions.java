@@ -79,14 +79,44 @@ public class NettyShuffleEnvironmentOptions {
 				" more effective for IO bounded scenario when data compression ratio is high. Currently, shuffle data " +
 				"compression is an experimental feature and the config option can be changed in the future.");
 
+	/**
+	 * Parallelism threshold to switch between sort-merge based blocking shuffle and the default hash-based
+	 * blocking shuffle.
+	 */
+	@Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+	public static final ConfigOption<Integer> NETWORK_SORT_SHUFFLE_MIN_PARALLELISM =
+		key("taskmanager.network.sort-shuffle.min-parallelism")
+			.intType()
+			.defaultValue(Integer.MAX_VALUE)
+			.withDescription("Parallelism threshold to switch between sort-merge based blocking shuffle and the default" +
+				" hash-based blocking shuffle, which means for small parallelism, hash-based blocking shuffle will be used" +
+				" and for large parallelism, sort-merge based blocking shuffle will be used. The hash-based blocking" +
+				" shuffle writes one file per consumer, while the sort-merge based blocking shuffle writes the data of all" +
+				" consumers into a single file which is read sequentially, which reduces the number of files and the random" +
+				" I/O of large shuffles. Note that the sort-merge based blocking shuffle is only used if partitions are not" +
+				" released on consumption. Currently, this option is experimental and might be changed in the future.");
+
 	/**
 	 * The codec to be used when compressing shuffle data.
 	 */
-	@Documentation.ExcludeFromDocumentation("Currently, LZ4 is the only legal option.")
+	@Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
 	public static final ConfigOption<String> SHUFFLE_COMPRESSION_CODEC =
 		key("taskmanager.network.compression.codec")
 			.defaultValue("LZ4")
-			.withDescription("The codec to be used when compressing shuffle data.");
+			.withDescription("The codec to be used when compressing shuffle data. Supported codecs are 'LZ4', 'ZSTD'" +
+				" and 'SNAPPY'. LZ4 is the fastest one, while ZSTD achieves the best compression ratio at the cost of" +
+				" more CPU, which pays off for blocking shuffles over slow disks.");
+
+	/**
+	 * The compression level used by the ZSTD shuffle compression codec.
+	 */
+	@Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+	public static final ConfigOption<Integer> SHUFFLE_COMPRESSION_ZSTD_LEVEL =
+		key("taskmanager.network.compression.zstd.level")
+			.defaultValue(3)
+			.withDescription("The compression level used when compressing shuffle data with the 'ZSTD' codec. Higher" +
+				" levels compress better but slower, negative levels trade compression ratio for speed. The option is" +
+				" ignored by the other codecs.");
 
 	/**
 	 * Boolean flag to enable/disable more detailed metrics about inbound/outbound network queue
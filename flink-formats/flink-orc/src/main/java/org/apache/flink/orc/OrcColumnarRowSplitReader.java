@@ -23,10 +23,13 @@ import org.apache.flink.orc.shim.OrcShim;
 import org.apache.flink.table.data.ColumnarRowData;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.data.vector.filter.VectorizedPredicate;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.orc.TypeDescription;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.util.List;
 
@@ -40,6 +43,16 @@ public class OrcColumnarRowSplitReader<BATCH> extends OrcSplitReader<RowData, BA
 
 	private final ColumnarRowData row;
 
+	// the predicate to filter every batch with, before its rows are returned
+	@Nullable
+	private VectorizedPredicate batchPredicate;
+
+	// the ids of the selected rows of the current batch if there is a batch predicate
+	private int[] selection;
+
+	// the number of rows loaded from the file so far
+	private long totalCountLoadedSoFar = 0;
+
 	public OrcColumnarRowSplitReader(
 			OrcShim<BATCH> shim,
 			Configuration conf,
@@ -66,17 +79,48 @@ public class OrcColumnarRowSplitReader<BATCH> extends OrcSplitReader<RowData, BA
 		this.row = new ColumnarRowData(columnarBatch);
 	}
 
+	/**
+	 * Sets a predicate which filters every batch before its rows are returned. The predicate may accept
+	 * more rows than the filter it was derived from, so callers still have to evaluate the filter on the
+	 * returned rows.
+	 */
+	public void setBatchPredicate(@Nullable VectorizedPredicate batchPredicate) {
+		if (totalCountLoadedSoFar != 0) {
+			throw new UnsupportedOperationException("Only support setting the batch predicate at first.");
+		}
+		this.batchPredicate = batchPredicate;
+	}
+
+	@Override
+	public void seekToRow(long rowCount) throws IOException {
+		if (batchPredicate != null) {
+			throw new UnsupportedOperationException("Seek is not supported with a batch predicate.");
+		}
+		super.seekToRow(rowCount);
+	}
+
 	@Override
 	protected int fillRows() {
 		int size = rowBatchWrapper.size();
 		columnarBatch.setNumRows(size);
-		return size;
+		totalCountLoadedSoFar += size;
+		if (batchPredicate == null) {
+			return size;
+		}
+
+		if (selection == null || selection.length < size) {
+			selection = new int[size];
+		}
+		for (int i = 0; i < size; i++) {
+			selection[i] = i;
+		}
+		return batchPredicate.filter(columnarBatch, selection, size);
 	}
 
 	@Override
 	public RowData nextRecord(RowData reuse) {
 		// return the next row
-		row.setRowId(this.nextRow++);
+		row.setRowId(batchPredicate == null ? this.nextRow++ : selection[this.nextRow++]);
 		return row;
 	}
 
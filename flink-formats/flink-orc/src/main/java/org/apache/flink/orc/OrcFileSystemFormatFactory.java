@@ -29,6 +29,8 @@ import org.apache.flink.core.fs.Path;
 import org.apache.flink.orc.vector.RowDataVectorizer;
 import org.apache.flink.orc.writer.OrcBulkWriterFactory;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.vector.filter.VectorizedPredicate;
+import org.apache.flink.table.data.vector.filter.VectorizedPredicates;
 import org.apache.flink.table.factories.FileSystemFormatFactory;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.LogicalType;
@@ -39,6 +41,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.orc.TypeDescription;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -92,7 +96,18 @@ public class OrcFileSystemFormatFactory implements FileSystemFormatFactory {
 				context.getProjectFields(),
 				context.getDefaultPartName(),
 				context.getPushedDownLimit(),
-				getOrcProperties(context.getFormatOptions()));
+				getOrcProperties(context.getFormatOptions()),
+				createBatchPredicate(context).orElse(null));
+	}
+
+	private static Optional<VectorizedPredicate> createBatchPredicate(ReaderContext context) {
+		String[] fieldNames = context.getSchema().getFieldNames();
+		DataType[] fieldTypes = context.getSchema().getFieldDataTypes();
+		int[] selectedFields = context.getProjectFields();
+		return VectorizedPredicates.fromExpressions(
+				context.getPushedDownFilters(),
+				Arrays.stream(selectedFields).mapToObj(i -> fieldNames[i]).toArray(String[]::new),
+				Arrays.stream(selectedFields).mapToObj(i -> fieldTypes[i].getLogicalType()).toArray(LogicalType[]::new));
 	}
 
 	@Override
@@ -130,6 +145,8 @@ public class OrcFileSystemFormatFactory implements FileSystemFormatFactory {
 		private final String partDefaultName;
 		private final Properties properties;
 		private final long limit;
+		@Nullable
+		private final VectorizedPredicate batchPredicate;
 
 		private transient OrcColumnarRowSplitReader<VectorizedRowBatch> reader;
 		private transient long currentReadCount;
@@ -141,7 +158,8 @@ public class OrcFileSystemFormatFactory implements FileSystemFormatFactory {
 				int[] selectedFields,
 				String partDefaultName,
 				long limit,
-				Properties properties) {
+				Properties properties,
+				@Nullable VectorizedPredicate batchPredicate) {
 			super.setFilePaths(paths);
 			this.limit = limit;
 			this.partDefaultName = partDefaultName;
@@ -149,6 +167,7 @@ public class OrcFileSystemFormatFactory implements FileSystemFormatFactory {
 			this.fullFieldTypes = fullFieldTypes;
 			this.selectedFields = selectedFields;
 			this.properties = properties;
+			this.batchPredicate = batchPredicate;
 		}
 
 		@Override
@@ -177,6 +196,7 @@ public class OrcFileSystemFormatFactory implements FileSystemFormatFactory {
 					new Path(fileSplit.getPath().toString()),
 					fileSplit.getStart(),
 					fileSplit.getLength());
+			this.reader.setBatchPredicate(batchPredicate);
 			this.currentReadCount = 0L;
 		}
 
@@ -127,17 +127,17 @@ public abstract class OrcSplitReader<T, BATCH> implements Closeable {
 	 */
 	private boolean ensureBatch() throws IOException {
 
-		if (nextRow >= rowsInBatch) {
+		while (nextRow >= rowsInBatch) {
 			// No more rows available in the Rows array.
 			nextRow = 0;
 			// Try to read the next batch if rows from the ORC file.
 			boolean moreRows = shim.nextBatch(orcRowsReader, rowBatchWrapper.getBatch());
 
-			if (moreRows) {
-				// Load the data into the Rows array.
-				rowsInBatch = fillRows();
+			if (!moreRows) {
+				return false;
 			}
-			return moreRows;
+			// Load the data into the Rows array, skipping batches of which no row is returned.
+			rowsInBatch = fillRows();
 		}
 		// there is at least one Row left in the Rows array.
 		return true;
@@ -25,6 +25,7 @@ import org.apache.flink.table.api.DataTypes;
 import org.apache.flink.table.data.DecimalDataUtils;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.types.Row;
 import org.apache.flink.util.IOUtils;
@@ -388,6 +389,69 @@ public class OrcColumnarRowSplitReaderTest {
 		assertEquals(rowSize, cnt);
 	}
 
+	@Test
+	public void testReadFileWithBatchPredicate() throws IOException {
+		File folder = TEMPORARY_FOLDER.newFolder();
+		String file = new File(folder, "testOrc").getPath();
+		int rowSize = 1024;
+
+		prepareReadFileWithTypes(file, rowSize);
+
+		FileInputSplit split = createSplits(new Path(file), 1)[0];
+
+		int cnt = 0;
+		try (OrcColumnarRowSplitReader reader = createReader(
+				new int[] {4},
+				new DataType[] {
+						DataTypes.FLOAT(),
+						DataTypes.DOUBLE(),
+						DataTypes.TIMESTAMP(),
+						DataTypes.TINYINT(),
+						DataTypes.SMALLINT()
+				},
+				new HashMap<>(),
+				split)) {
+			// every row of the first batches is rejected, the following batches are partially accepted
+			reader.setBatchPredicate(OrcColumnarRowSplitReaderTest::filterMultiplesOfThreeFrom100);
+
+			while (!reader.reachedEnd()) {
+				RowData row = reader.nextRecord(null);
+				Assert.assertFalse(row.isNullAt(0));
+				assertEquals(102 + 3 * cnt, row.getShort(0));
+				cnt++;
+			}
+		}
+		// check that only the accepted rows have been read
+		assertEquals(307, cnt);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSetBatchPredicateAfterReadingFails() throws IOException {
+		FileInputSplit[] splits = createSplits(testFileFlat, 1);
+
+		try (OrcColumnarRowSplitReader reader = createReader(
+				new int[] {0},
+				testSchemaFlat,
+				new HashMap<>(),
+				splits[0])) {
+			assertFalse(reader.reachedEnd());
+			reader.nextRecord(null);
+
+			reader.setBatchPredicate(OrcColumnarRowSplitReaderTest::filterMultiplesOfThreeFrom100);
+		}
+	}
+
+	private static int filterMultiplesOfThreeFrom100(VectorizedColumnBatch batch, int[] selection, int numSelected) {
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int rowId = selection[i];
+			if (!batch.isNullAt(rowId, 0) && batch.getShort(rowId, 0) >= 100 && batch.getShort(rowId, 0) % 3 == 0) {
+				selection[numAccepted++] = rowId;
+			}
+		}
+		return numAccepted;
+	}
+
 	protected static Timestamp toTimestamp(int i) {
 		return new Timestamp(
 						i + 1000,
@@ -31,6 +31,8 @@ import org.apache.flink.formats.parquet.utils.SerializableConfiguration;
 import org.apache.flink.formats.parquet.vector.ParquetColumnarRowSplitReader;
 import org.apache.flink.formats.parquet.vector.ParquetSplitReaderUtil;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.vector.filter.VectorizedPredicate;
+import org.apache.flink.table.data.vector.filter.VectorizedPredicates;
 import org.apache.flink.table.factories.FileSystemFormatFactory;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.LogicalType;
@@ -39,6 +41,8 @@ import org.apache.flink.table.utils.PartitionPathUtils;
 
 import org.apache.hadoop.conf.Configuration;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -102,7 +106,18 @@ public class ParquetFileSystemFormatFactory implements FileSystemFormatFactory {
 				context.getDefaultPartName(),
 				context.getPushedDownLimit(),
 				getParquetConfiguration(context.getFormatOptions()),
-				context.getFormatOptions().get(UTC_TIMEZONE));
+				context.getFormatOptions().get(UTC_TIMEZONE),
+				createBatchPredicate(context).orElse(null));
+	}
+
+	private static Optional<VectorizedPredicate> createBatchPredicate(ReaderContext context) {
+		String[] fieldNames = context.getSchema().getFieldNames();
+		DataType[] fieldTypes = context.getSchema().getFieldDataTypes();
+		int[] selectedFields = context.getProjectFields();
+		return VectorizedPredicates.fromExpressions(
+				context.getPushedDownFilters(),
+				Arrays.stream(selectedFields).mapToObj(i -> fieldNames[i]).toArray(String[]::new),
+				Arrays.stream(selectedFields).mapToObj(i -> fieldTypes[i].getLogicalType()).toArray(LogicalType[]::new));
 	}
 
 	@Override
@@ -136,6 +151,8 @@ public class ParquetFileSystemFormatFactory implements FileSystemFormatFactory {
 		private final boolean utcTimestamp;
 		private final SerializableConfiguration conf;
 		private final long limit;
+		@Nullable
+		private final VectorizedPredicate batchPredicate;
 
 		private transient ParquetColumnarRowSplitReader reader;
 		private transient long currentReadCount;
@@ -148,7 +165,8 @@ public class ParquetFileSystemFormatFactory implements FileSystemFormatFactory {
 				String partDefaultName,
 				long limit,
 				Configuration conf,
-				boolean utcTimestamp) {
+				boolean utcTimestamp,
+				@Nullable VectorizedPredicate batchPredicate) {
 			super.setFilePaths(paths);
 			this.limit = limit;
 			this.partDefaultName = partDefaultName;
@@ -157,6 +175,7 @@ public class ParquetFileSystemFormatFactory implements FileSystemFormatFactory {
 			this.selectedFields = selectedFields;
 			this.conf = new SerializableConfiguration(conf);
 			this.utcTimestamp = utcTimestamp;
+			this.batchPredicate = batchPredicate;
 		}
 
 		@Override
@@ -182,6 +201,7 @@ public class ParquetFileSystemFormatFactory implements FileSystemFormatFactory {
 					new Path(fileSplit.getPath().toString()),
 					fileSplit.getStart(),
 					fileSplit.getLength());
+			this.reader.setBatchPredicate(batchPredicate);
 			this.currentReadCount = 0L;
 		}
 
@@ -23,6 +23,7 @@ import org.apache.flink.formats.parquet.vector.reader.ColumnReader;
 import org.apache.flink.table.data.ColumnarRowData;
 import org.apache.flink.table.data.vector.ColumnVector;
 import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.data.vector.filter.VectorizedPredicate;
 import org.apache.flink.table.data.vector.writable.WritableColumnVector;
 import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.LogicalTypeRoot;
@@ -41,6 +42,8 @@ import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.Type;
 import org.apache.parquet.schema.Types;
 
+import javax.annotation.Nullable;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Arrays;
@@ -104,9 +107,20 @@ public class ParquetColumnarRowSplitReader implements Closeable {
 	// the index of the next row to return
 	private int nextRow;
 
-	// the number of rows in the current batch
+	// the number of rows in the current batch, or the number of selected rows if there is a batch predicate
 	private int rowsInBatch;
 
+	/**
+	 * The predicate to filter every batch with, before its rows are returned.
+	 */
+	@Nullable
+	private VectorizedPredicate batchPredicate;
+
+	/**
+	 * The ids of the selected rows of the current batch if there is a batch predicate.
+	 */
+	private int[] selection;
+
 	public ParquetColumnarRowSplitReader(
 			boolean utcTimestamp,
 			boolean caseSensitive,
@@ -241,6 +255,19 @@ public class ParquetColumnarRowSplitReader implements Closeable {
 		}
 	}
 
+	/**
+	 * Sets a predicate which filters every batch before its rows are returned. The predicate may accept
+	 * more rows than the filter it was derived from, so callers still have to evaluate the filter on the
+	 * returned rows.
+	 */
+	public void setBatchPredicate(@Nullable VectorizedPredicate batchPredicate) {
+		if (totalCountLoadedSoFar != 0) {
+			throw new UnsupportedOperationException("Only support setting the batch predicate at first.");
+		}
+		this.batchPredicate = batchPredicate;
+		this.selection = batchPredicate == null ? null : new int[batchSize];
+	}
+
 	/**
 	 * Method used to check if the end of the input is reached.
 	 *
@@ -253,7 +280,7 @@ public class ParquetColumnarRowSplitReader implements Closeable {
 
 	public ColumnarRowData nextRecord() {
 		// return the next row
-		row.setRowId(this.nextRow++);
+		row.setRowId(selection == null ? this.nextRow++ : selection[this.nextRow++]);
 		return row;
 	}
 
@@ -265,11 +292,14 @@ public class ParquetColumnarRowSplitReader implements Closeable {
 	 * @throws IOException throw if an exception happens while reading a batch.
 	 */
 	private boolean ensureBatch() throws IOException {
-		if (nextRow >= rowsInBatch) {
+		while (nextRow >= rowsInBatch) {
 			// No more rows available in the Rows array.
 			nextRow = 0;
-			// Try to read the next batch if rows from the file.
-			return nextBatch();
+			// Try to read the next batch if rows from the file,
+			// skipping batches of which the batch predicate rejects all rows.
+			if (!nextBatch()) {
+				return false;
+			}
 		}
 		// there is at least one Row left in the Rows array.
 		return true;
@@ -297,10 +327,17 @@ public class ParquetColumnarRowSplitReader implements Closeable {
 		}
 		rowsReturned += num;
 		columnarBatch.setNumRows(num);
-		rowsInBatch = num;
+		rowsInBatch = batchPredicate == null ? num : selectRows(num);
 		return true;
 	}
 
+	private int selectRows(int num) {
+		for (int i = 0; i < num; i++) {
+			selection[i] = i;
+		}
+		return batchPredicate.filter(columnarBatch, selection, num);
+	}
+
 	private void readNextRowGroup() throws IOException {
 		PageReadStore pages = reader.readNextRowGroup();
 		if (pages == null) {
@@ -326,6 +363,9 @@ public class ParquetColumnarRowSplitReader implements Closeable {
 		if (totalCountLoadedSoFar != 0) {
 			throw new UnsupportedOperationException("Only support seek at first.");
 		}
+		if (batchPredicate != null) {
+			throw new UnsupportedOperationException("Seek is not supported with a batch predicate.");
+		}
 
 		List<BlockMetaData> blockMetaData = reader.getRowGroups();
 
@@ -22,6 +22,10 @@ import org.apache.flink.core.fs.Path;
 import org.apache.flink.table.data.ColumnarRowData;
 import org.apache.flink.table.data.DecimalData;
 import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.data.vector.filter.AndPredicate;
+import org.apache.flink.table.data.vector.filter.ComparisonPredicate;
+import org.apache.flink.table.data.vector.filter.ComparisonPredicate.Comparison;
+import org.apache.flink.table.data.vector.filter.OrPredicate;
 import org.apache.flink.table.runtime.functions.SqlDateTimeUtils;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.BigIntType;
@@ -32,6 +36,7 @@ import org.apache.flink.table.types.logical.DoubleType;
 import org.apache.flink.table.types.logical.FloatType;
 import org.apache.flink.table.types.logical.IntType;
 import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
 import org.apache.flink.table.types.logical.SmallIntType;
 import org.apache.flink.table.types.logical.TimestampType;
 import org.apache.flink.table.types.logical.TinyIntType;
@@ -423,6 +428,53 @@ public class ParquetColumnarRowSplitReaderTest {
 		reader.close();
 	}
 
+	@Test
+	public void testBatchPredicate() throws IOException {
+		// prepare parquet file
+		int number = 1000;
+		List<Row> records = new ArrayList<>(number);
+		for (int i = 0; i < number; i++) {
+			Integer v = i;
+			records.add(newRow(v));
+		}
+
+		Path testPath = createTempParquetFile(
+				TEMPORARY_FOLDER.newFolder(), PARQUET_SCHEMA, records, rowGroupSize);
+
+		// test reader
+		LogicalType[] fieldTypes = new LogicalType[]{
+				new DoubleType(),
+				new IntType()};
+		ParquetColumnarRowSplitReader reader = new ParquetColumnarRowSplitReader(
+				false,
+				true,
+				new Configuration(),
+				fieldTypes,
+				new String[] {"f7", "f4"},
+				VectorizedColumnBatch::new,
+				100,
+				new org.apache.hadoop.fs.Path(testPath.getPath()),
+				0,
+				Long.MAX_VALUE);
+		// (f4 < 10 OR f4 >= 990) AND f7 > 3, all batches in between are skipped
+		reader.setBatchPredicate(new AndPredicate(
+				new OrPredicate(
+						ComparisonPredicate.ofIntegral(1, LogicalTypeRoot.INTEGER, Comparison.LESS_THAN, 10),
+						ComparisonPredicate.ofIntegral(1, LogicalTypeRoot.INTEGER, Comparison.GREATER_THAN_OR_EQUAL, 990)),
+				ComparisonPredicate.ofFloatingPoint(0, LogicalTypeRoot.DOUBLE, Comparison.GREATER_THAN, 3)));
+		List<Integer> expected = new ArrayList<>();
+		IntStream.range(4, 10).forEach(expected::add);
+		IntStream.range(990, 1000).forEach(expected::add);
+		List<Integer> actual = new ArrayList<>();
+		while (!reader.reachedEnd()) {
+			ColumnarRowData row = reader.nextRecord();
+			assertEquals(row.getInt(1), row.getDouble(0), 0);
+			actual.add(row.getInt(1));
+		}
+		reader.close();
+		assertEquals(expected, actual);
+	}
+
 	@Test
 	public void testPartitionValues() throws IOException {
 		// prepare parquet file
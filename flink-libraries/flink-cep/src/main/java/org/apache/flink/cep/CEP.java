@@ -18,8 +18,13 @@
 
 package org.apache.flink.cep;
 
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.cep.functions.PatternProcessFunction;
 import org.apache.flink.cep.pattern.Pattern;
 import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
+
+import java.util.List;
 
 /**
  * Utility class for complex event processing.
@@ -55,4 +60,25 @@ public class CEP {
 		final PatternStream<T> stream = new PatternStream<>(input, pattern);
 		return stream.withComparator(comparator);
 	}
+
+	/**
+	 * Detects several patterns on an input data stream with a single operator. Each event is buffered
+	 * and stored only once for all patterns, and the results of conditions shared by the patterns are
+	 * computed once per event. Matches of the i-th pattern are passed to the i-th process function.
+	 *
+	 * @param input DataStream containing the input events
+	 * @param patterns Pattern specifications which shall be detected
+	 * @param processFunctions functions to be applied to the matching event sequences of the respective pattern
+	 * @param outTypeInfo output TypeInformation of the process functions
+	 * @param <T> Type of the input events
+	 * @param <OUT> Type of the output events
+	 * @return Data stream containing the results of all process functions
+	 */
+	public static <T, OUT> SingleOutputStreamOperator<OUT> processPatterns(
+			DataStream<T> input,
+			List<Pattern<T, ?>> patterns,
+			List<PatternProcessFunction<T, OUT>> processFunctions,
+			TypeInformation<OUT> outTypeInfo) {
+		return PatternStreamBuilder.buildMultiPattern(input, patterns, processFunctions, outTypeInfo);
+	}
 }
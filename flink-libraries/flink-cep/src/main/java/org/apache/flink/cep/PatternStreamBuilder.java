@@ -26,8 +26,10 @@ import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.api.java.functions.NullByteKeySelector;
 import org.apache.flink.cep.functions.PatternProcessFunction;
 import org.apache.flink.cep.functions.TimedOutPartialMatchHandler;
+import org.apache.flink.cep.nfa.aftermatch.AfterMatchSkipStrategy;
 import org.apache.flink.cep.nfa.compiler.NFACompiler;
 import org.apache.flink.cep.operator.CepOperator;
+import org.apache.flink.cep.operator.MultiPatternCepOperator;
 import org.apache.flink.cep.pattern.Pattern;
 import org.apache.flink.streaming.api.TimeCharacteristic;
 import org.apache.flink.streaming.api.datastream.DataStream;
@@ -38,8 +40,11 @@ import org.apache.flink.util.OutputTag;
 
 import javax.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
@@ -146,6 +151,68 @@ final class PatternStreamBuilder<IN> {
 		return patternStream;
 	}
 
+	/**
+	 * Creates a data stream containing results of the given {@link PatternProcessFunction}s applied to the
+	 * matches of the respective patterns, all detected by a single {@link MultiPatternCepOperator}.
+	 */
+	static <IN, OUT, K> SingleOutputStreamOperator<OUT> buildMultiPattern(
+			final DataStream<IN> inputStream,
+			final List<Pattern<IN, ?>> patterns,
+			final List<PatternProcessFunction<IN, OUT>> processFunctions,
+			final TypeInformation<OUT> outTypeInfo) {
+
+		checkNotNull(inputStream);
+		checkNotNull(outTypeInfo);
+		checkArgument(patterns.size() == processFunctions.size(),
+			"Each pattern requires exactly one process function.");
+
+		final TypeSerializer<IN> inputSerializer = inputStream.getType().createSerializer(inputStream.getExecutionConfig());
+		final boolean isProcessingTime = inputStream.getExecutionEnvironment().getStreamTimeCharacteristic() == TimeCharacteristic.ProcessingTime;
+
+		final List<NFACompiler.NFAFactory<IN>> nfaFactories = new ArrayList<>(patterns.size());
+		final List<AfterMatchSkipStrategy> afterMatchSkipStrategies = new ArrayList<>(patterns.size());
+		final List<PatternProcessFunction<IN, OUT>> cleanedFunctions = new ArrayList<>(patterns.size());
+		for (int i = 0; i < patterns.size(); i++) {
+			final Pattern<IN, ?> pattern = checkNotNull(patterns.get(i));
+			final PatternProcessFunction<IN, OUT> processFunction =
+				inputStream.getExecutionEnvironment().clean(checkNotNull(processFunctions.get(i)));
+
+			final boolean timeoutHandling = processFunction instanceof TimedOutPartialMatchHandler;
+			nfaFactories.add(NFACompiler.compileFactory(pattern, timeoutHandling));
+			afterMatchSkipStrategies.add(pattern.getAfterMatchSkipStrategy());
+			cleanedFunctions.add(processFunction);
+		}
+
+		final MultiPatternCepOperator<IN, K, OUT> operator = new MultiPatternCepOperator<>(
+			inputSerializer,
+			isProcessingTime,
+			nfaFactories,
+			null,
+			afterMatchSkipStrategies,
+			cleanedFunctions,
+			null);
+
+		final SingleOutputStreamOperator<OUT> patternStream;
+		if (inputStream instanceof KeyedStream) {
+			KeyedStream<IN, K> keyedStream = (KeyedStream<IN, K>) inputStream;
+
+			patternStream = keyedStream.transform(
+				"MultiPatternCepOperator",
+				outTypeInfo,
+				operator);
+		} else {
+			KeySelector<IN, Byte> keySelector = new NullByteKeySelector<>();
+
+			patternStream = inputStream.keyBy(keySelector).transform(
+				"GlobalMultiPatternCepOperator",
+				outTypeInfo,
+				operator
+			).forceNonParallel();
+		}
+
+		return patternStream;
+	}
+
 	// ---------------------------------------- factory-like methods ---------------------------------------- //
 
 	static <IN> PatternStreamBuilder<IN> forStreamAndPattern(final DataStream<IN> inputStream, final Pattern<IN, ?> pattern) {
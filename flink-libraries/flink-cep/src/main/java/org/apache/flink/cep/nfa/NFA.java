@@ -36,6 +36,7 @@ import org.apache.flink.cep.nfa.sharedbuffer.NodeId;
 import org.apache.flink.cep.nfa.sharedbuffer.SharedBuffer;
 import org.apache.flink.cep.nfa.sharedbuffer.SharedBufferAccessor;
 import org.apache.flink.cep.pattern.conditions.IterativeCondition;
+import org.apache.flink.cep.pattern.conditions.SimpleCondition;
 import org.apache.flink.cep.time.TimerService;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.core.memory.DataInputView;
@@ -49,6 +50,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -224,11 +226,34 @@ public class NFA<T> {
 			final long timestamp,
 			final AfterMatchSkipStrategy afterMatchSkipStrategy,
 			final TimerService timerService) throws Exception {
-		try (EventWrapper eventWrapper = new EventWrapper(event, timestamp, sharedBufferAccessor)) {
+		try (EventWrapper<T> eventWrapper = new EventWrapper<>(event, timestamp, sharedBufferAccessor)) {
 			return doProcess(sharedBufferAccessor, nfaState, eventWrapper, afterMatchSkipStrategy, timerService);
 		}
 	}
 
+	/**
+	 * Processes an event that has already been wrapped by the caller. Contrary to
+	 * {@link #process(SharedBufferAccessor, NFAState, Object, long, AfterMatchSkipStrategy, TimerService)}
+	 * the wrapper is not closed, which allows to share a single registration of the event (and the
+	 * results of its {@link SimpleCondition}s) between several NFAs that work on the same {@link SharedBuffer}.
+	 *
+	 * @param sharedBufferAccessor the accessor to SharedBuffer object that we need to work upon while processing
+	 * @param nfaState The NFAState object that we need to affect while processing
+	 * @param event The wrapped event to be processed, it has to be closed by the caller
+	 * @param afterMatchSkipStrategy The skip strategy to use after per match
+	 * @param timerService gives access to processing time and time characteristic, needed for condition evaluation
+	 * @return the collection of matched patterns
+	 * @throws Exception Thrown if the system cannot access the state.
+	 */
+	public Collection<Map<String, List<T>>> process(
+			final SharedBufferAccessor<T> sharedBufferAccessor,
+			final NFAState nfaState,
+			final EventWrapper<T> event,
+			final AfterMatchSkipStrategy afterMatchSkipStrategy,
+			final TimerService timerService) throws Exception {
+		return doProcess(sharedBufferAccessor, nfaState, event, afterMatchSkipStrategy, timerService);
+	}
+
 	/**
 	 * Prunes states assuming there will be no events with timestamp <b>lower</b> than the given one.
 	 * It clears the sharedBuffer and also emits all timed out partial matches.
@@ -280,7 +305,7 @@ public class NFA<T> {
 	private Collection<Map<String, List<T>>> doProcess(
 			final SharedBufferAccessor<T> sharedBufferAccessor,
 			final NFAState nfaState,
-			final EventWrapper event,
+			final EventWrapper<T> event,
 			final AfterMatchSkipStrategy afterMatchSkipStrategy,
 			final TimerService timerService) throws Exception {
 
@@ -461,8 +486,12 @@ public class NFA<T> {
 	/**
 	 * Helper class that ensures event is registered only once throughout the life of this object and released on close
 	 * of this object. This allows to wrap whole processing of the event with try-with-resources block.
+	 *
+	 * <p>If created with {@code cacheConditions} the results of {@link SimpleCondition}s, which depend on the event
+	 * only, are remembered for the life of this object, so that a condition instance shared by several transitions
+	 * (or by several NFAs processing the same event) is evaluated once.
 	 */
-	private class EventWrapper implements AutoCloseable {
+	public static class EventWrapper<T> implements AutoCloseable {
 
 		private final T event;
 
@@ -470,12 +499,23 @@ public class NFA<T> {
 
 		private final SharedBufferAccessor<T> sharedBufferAccessor;
 
+		private final Map<IterativeCondition<T>, Boolean> conditionResults;
+
 		private EventId eventId;
 
-		EventWrapper(T event, long timestamp, SharedBufferAccessor<T> sharedBufferAccessor) {
+		public EventWrapper(T event, long timestamp, SharedBufferAccessor<T> sharedBufferAccessor) {
+			this(event, timestamp, sharedBufferAccessor, false);
+		}
+
+		public EventWrapper(
+				T event,
+				long timestamp,
+				SharedBufferAccessor<T> sharedBufferAccessor,
+				boolean cacheConditions) {
 			this.event = event;
 			this.timestamp = timestamp;
 			this.sharedBufferAccessor = sharedBufferAccessor;
+			this.conditionResults = cacheConditions ? new IdentityHashMap<>() : null;
 		}
 
 		EventId getEventId() throws Exception {
@@ -486,7 +526,7 @@ public class NFA<T> {
 			return eventId;
 		}
 
-		T getEvent() {
+		public T getEvent() {
 			return event;
 		}
 
@@ -494,6 +534,19 @@ public class NFA<T> {
 			return timestamp;
 		}
 
+		boolean filter(IterativeCondition<T> condition, IterativeCondition.Context<T> context) throws Exception {
+			if (conditionResults == null || !(condition instanceof SimpleCondition)) {
+				return condition.filter(event, context);
+			}
+
+			Boolean result = conditionResults.get(condition);
+			if (result == null) {
+				result = condition.filter(event, context);
+				conditionResults.put(condition, result);
+			}
+			return result;
+		}
+
 		@Override
 		public void close() throws Exception {
 			if (eventId != null) {
@@ -539,7 +592,7 @@ public class NFA<T> {
 	private Collection<ComputationState> computeNextStates(
 			final SharedBufferAccessor<T> sharedBufferAccessor,
 			final ComputationState computationState,
-			final EventWrapper event,
+			final EventWrapper<T> event,
 			final TimerService timerService) throws Exception {
 
 		final ConditionContext context = new ConditionContext(
@@ -548,7 +601,7 @@ public class NFA<T> {
 			timerService,
 			event.getTimestamp());
 
-		final OutgoingEdges<T> outgoingEdges = createDecisionGraph(context, computationState, event.getEvent());
+		final OutgoingEdges<T> outgoingEdges = createDecisionGraph(context, computationState, event);
 
 		// Create the computing version based on the previously computed edges
 		// We need to defer the creation of computation states until we know how many edges start
@@ -626,7 +679,7 @@ public class NFA<T> {
 							startEventId);
 
 					//check if newly created state is optional (have a PROCEED path to Final state)
-					final State<T> finalState = findFinalStateAfterProceed(context, nextState, event.getEvent());
+					final State<T> finalState = findFinalStateAfterProceed(context, nextState, event);
 					if (finalState != null) {
 						addComputationState(
 								sharedBufferAccessor,
@@ -677,7 +730,7 @@ public class NFA<T> {
 	private State<T> findFinalStateAfterProceed(
 			ConditionContext context,
 			State<T> state,
-			T event) {
+			EventWrapper<T> event) {
 		final Stack<State<T>> statesToCheck = new Stack<>();
 		statesToCheck.push(state);
 		try {
@@ -708,7 +761,7 @@ public class NFA<T> {
 	private OutgoingEdges<T> createDecisionGraph(
 			ConditionContext context,
 			ComputationState computationState,
-			T event) {
+			EventWrapper<T> event) {
 		State<T> state = getState(computationState);
 		final OutgoingEdges<T> outgoingEdges = new OutgoingEdges<>(state);
 
@@ -748,8 +801,8 @@ public class NFA<T> {
 	private boolean checkFilterCondition(
 			ConditionContext context,
 			IterativeCondition<T> condition,
-			T event) throws Exception {
-		return condition == null || condition.filter(event, context);
+			EventWrapper<T> event) throws Exception {
+		return condition == null || event.filter(condition, context);
 	}
 
 	/**
@@ -32,6 +32,7 @@ import org.apache.flink.shaded.guava18.com.google.common.collect.Iterables;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -68,6 +69,15 @@ public class SharedBuffer<V> {
 	/** The cache of sharedBufferNode. */
 	private Map<NodeId, Lockable<SharedBufferNode>> entryCache = new HashMap<>();
 
+	/** Whether the caches are kept across accessors until {@link #finishDeferredFlush()} is called. */
+	private boolean flushDeferred = false;
+
+	/**
+	 * All event counters of the current key, loaded by the first {@link #advanceTime(long)} while the
+	 * flush is deferred. Null if they have not been loaded.
+	 */
+	private TreeMap<Long, Integer> eventsCountCache;
+
 	public SharedBuffer(KeyedStateStore stateStore, TypeSerializer<V> valueSerializer) {
 		this.eventsBuffer = stateStore.getMapState(
 			new MapStateDescriptor<>(
@@ -118,31 +128,92 @@ public class SharedBuffer<V> {
 	 * @return an accessor to deal with this sharedBuffer.
 	 */
 	public SharedBufferAccessor<V> getAccessor() {
-		return new SharedBufferAccessor<>(this);
+		return new SharedBufferAccessor<>(this, null);
+	}
+
+	/**
+	 * Returns an accessor whose nodes are kept apart from the nodes created through accessors of other namespaces,
+	 * while the events themselves are stored only once. This allows several NFAs to work on the same buffer.
+	 *
+	 * @param namespace namespace of the nodes created through the returned accessor
+	 * @return the namespaced accessor
+	 */
+	public SharedBufferAccessor<V> getAccessor(String namespace) {
+		return new SharedBufferAccessor<>(this, namespace);
 	}
 
 	void advanceTime(long timestamp) throws Exception {
-		Iterator<Long> iterator = eventsCount.keys().iterator();
+		if (eventsCountCache != null) {
+			// all counters are known, prune the outdated timestamps without scanning the state
+			Iterator<Long> iterator = eventsCountCache.headMap(timestamp).keySet().iterator();
+			while (iterator.hasNext()) {
+				eventsCount.remove(iterator.next());
+				iterator.remove();
+			}
+			return;
+		}
+
+		TreeMap<Long, Integer> remainingCounts = flushDeferred ? new TreeMap<>() : null;
+		Iterator<Map.Entry<Long, Integer>> iterator = eventsCount.iterator();
 		while (iterator.hasNext()) {
-			Long next = iterator.next();
-			if (next < timestamp) {
+			Map.Entry<Long, Integer> next = iterator.next();
+			if (next.getKey() < timestamp) {
 				iterator.remove();
+			} else if (remainingCounts != null) {
+				remainingCounts.put(next.getKey(), next.getValue());
 			}
 		}
+		eventsCountCache = remainingCounts;
 	}
 
 	EventId registerEvent(V value, long timestamp) throws Exception {
-		Integer id = eventsCount.get(timestamp);
+		Integer id = eventsCountCache != null ? eventsCountCache.get(timestamp) : eventsCount.get(timestamp);
 		if (id == null) {
 			id = 0;
 		}
 		EventId eventId = new EventId(id, timestamp);
 		Lockable<V> lockableValue = new Lockable<>(value, 1);
 		eventsCount.put(timestamp, id + 1);
+		if (eventsCountCache != null) {
+			eventsCountCache.put(timestamp, id + 1);
+		}
 		eventsBufferCache.put(eventId, lockableValue);
 		return eventId;
 	}
 
+	/**
+	 * Keeps the cached events and nodes in memory across accessors until {@link #finishDeferredFlush()}
+	 * is called, so that consecutive NFA steps do not write and read back the same entries. The event
+	 * counters are then also pruned from memory after a single scan of the state.
+	 *
+	 * <p>The flush must be finished before the current key changes.
+	 */
+	public void startDeferredFlush() {
+		this.flushDeferred = true;
+	}
+
+	/**
+	 * Flushes the cached events and nodes to the state and stops deferring the flush.
+	 *
+	 * @throws Exception Thrown if the system cannot access the state.
+	 */
+	public void finishDeferredFlush() throws Exception {
+		this.flushDeferred = false;
+		this.eventsCountCache = null;
+		flushCache();
+	}
+
+	/**
+	 * Called when an accessor is closed. Flushes the caches unless the flush is deferred.
+	 *
+	 * @throws Exception Thrown if the system cannot access the state.
+	 */
+	void releaseAccessor() throws Exception {
+		if (!flushDeferred) {
+			flushCache();
+		}
+	}
+
 	/**
 	 * Checks if there is no elements in the buffer.
 	 *
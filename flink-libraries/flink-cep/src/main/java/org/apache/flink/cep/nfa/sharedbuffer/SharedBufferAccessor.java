@@ -20,6 +20,7 @@ package org.apache.flink.cep.nfa.sharedbuffer;
 
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.cep.nfa.DeweyNumber;
+import org.apache.flink.cep.nfa.compiler.NFAStateNameHandler;
 import org.apache.flink.util.WrappingRuntimeException;
 
 import org.apache.commons.lang3.StringUtils;
@@ -44,8 +45,12 @@ public class SharedBufferAccessor<V> implements AutoCloseable {
 	/** The sharedBuffer to store the partial matched events.*/
 	private SharedBuffer<V> sharedBuffer;
 
-	SharedBufferAccessor(SharedBuffer<V> sharedBuffer) {
+	/** Suffix appended to the page names of created nodes, {@code null} if the buffer is not shared. */
+	private final String nodeNamespace;
+
+	SharedBufferAccessor(SharedBuffer<V> sharedBuffer, String nodeNamespace) {
 		this.sharedBuffer = sharedBuffer;
+		this.nodeNamespace = nodeNamespace == null ? null : NFAStateNameHandler.STATE_NAME_DELIM + nodeNamespace;
 	}
 
 	/**
@@ -94,7 +99,11 @@ public class SharedBufferAccessor<V> implements AutoCloseable {
 			lockNode(previousNodeId);
 		}
 
-		NodeId currentNodeId = new NodeId(eventId, getOriginalNameFromInternal(stateName));
+		String pageName = getOriginalNameFromInternal(stateName);
+		if (nodeNamespace != null) {
+			pageName += nodeNamespace;
+		}
+		NodeId currentNodeId = new NodeId(eventId, pageName);
 		Lockable<SharedBufferNode> currentNode = sharedBuffer.getEntry(currentNodeId);
 		if (currentNode == null) {
 			currentNode = new Lockable<>(new SharedBufferNode(), 0);
@@ -146,7 +155,7 @@ public class SharedBufferAccessor<V> implements AutoCloseable {
 					while (!currentPath.isEmpty()) {
 						final NodeId currentPathEntry = currentPath.pop().f0;
 
-						String page = currentPathEntry.getPageName();
+						String page = getOriginalNameFromInternal(currentPathEntry.getPageName());
 						List<EventId> values = completePath
 							.computeIfAbsent(page, k -> new ArrayList<>());
 						values.add(currentPathEntry.getEventId());
@@ -299,12 +308,13 @@ public class SharedBufferAccessor<V> implements AutoCloseable {
 	}
 
 	/**
-	 * Persists the entry in the cache to the underlay state.
+	 * Persists the entry in the cache to the underlay state, unless the flush is deferred by
+	 * {@link SharedBuffer#startDeferredFlush()}.
 	 *
 	 * @throws Exception Thrown if the system cannot access the state.
 	 */
 	public void close() throws Exception {
-		sharedBuffer.flushCache();
+		sharedBuffer.releaseAccessor();
 	}
 
 	/**
@@ -250,8 +250,10 @@ public class CepOperator<IN, KEY, OUT>
 				// there can be no out of order elements in processing time
 				NFAState nfaState = getNFAState();
 				long timestamp = getProcessingTimeService().getCurrentProcessingTime();
+				partialMatches.startDeferredFlush();
 				advanceTime(nfaState, timestamp);
 				processEvent(nfaState, element.getValue(), timestamp);
+				partialMatches.finishDeferredFlush();
 				updateNFA(nfaState);
 			} else {
 				long currentTime = timerService.currentProcessingTime();
@@ -325,6 +327,9 @@ public class CepOperator<IN, KEY, OUT>
 		PriorityQueue<Long> sortedTimestamps = getSortedTimestamps();
 		NFAState nfaState = getNFAState();
 
+		// keep the shared buffer entries of this key in memory until all elements are processed
+		partialMatches.startDeferredFlush();
+
 		// STEP 2
 		while (!sortedTimestamps.isEmpty() && sortedTimestamps.peek() <= timerService.currentWatermark()) {
 			long timestamp = sortedTimestamps.poll();
@@ -345,6 +350,7 @@ public class CepOperator<IN, KEY, OUT>
 
 		// STEP 3
 		advanceTime(nfaState, timerService.currentWatermark());
+		partialMatches.finishDeferredFlush();
 
 		// STEP 4
 		updateNFA(nfaState);
@@ -369,6 +375,9 @@ public class CepOperator<IN, KEY, OUT>
 		PriorityQueue<Long> sortedTimestamps = getSortedTimestamps();
 		NFAState nfa = getNFAState();
 
+		// keep the shared buffer entries of this key in memory until all elements are processed
+		partialMatches.startDeferredFlush();
+
 		// STEP 2
 		while (!sortedTimestamps.isEmpty()) {
 			long timestamp = sortedTimestamps.poll();
@@ -386,6 +395,7 @@ public class CepOperator<IN, KEY, OUT>
 			}
 			elementQueueState.remove(timestamp);
 		}
+		partialMatches.finishDeferredFlush();
 
 		// STEP 3
 		updateNFA(nfa);
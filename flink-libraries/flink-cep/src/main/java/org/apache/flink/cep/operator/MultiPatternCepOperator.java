@@ -0,0 +1,519 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.cep.operator;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.functions.util.FunctionUtils;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.ListSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.cep.EventComparator;
+import org.apache.flink.cep.functions.PatternProcessFunction;
+import org.apache.flink.cep.functions.TimedOutPartialMatchHandler;
+import org.apache.flink.cep.nfa.NFA;
+import org.apache.flink.cep.nfa.NFAState;
+import org.apache.flink.cep.nfa.NFAStateSerializer;
+import org.apache.flink.cep.nfa.aftermatch.AfterMatchSkipStrategy;
+import org.apache.flink.cep.nfa.compiler.NFACompiler;
+import org.apache.flink.cep.nfa.sharedbuffer.SharedBuffer;
+import org.apache.flink.cep.nfa.sharedbuffer.SharedBufferAccessor;
+import org.apache.flink.cep.time.TimerService;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.runtime.state.StateInitializationContext;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.streaming.api.graph.StreamConfig;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.InternalTimer;
+import org.apache.flink.streaming.api.operators.InternalTimerService;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.Output;
+import org.apache.flink.streaming.api.operators.TimestampedCollector;
+import org.apache.flink.streaming.api.operators.Triggerable;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.StreamTask;
+import org.apache.flink.util.OutputTag;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * CEP operator that detects several patterns on a keyed input stream in a single evaluation pass.
+ *
+ * <p>Contrary to chaining one {@link CepOperator} per pattern, every event is buffered, sorted and
+ * stored in the {@link SharedBuffer} only once per key. The NFAs of all patterns work on that
+ * buffer through namespaced accessors, so that their partial matches are kept apart while the
+ * events are shared, and the results of {@link org.apache.flink.cep.pattern.conditions.SimpleCondition}
+ * instances used by several patterns are computed once per event.
+ *
+ * <p>Matches and timed out partial matches of the i-th pattern are passed to the i-th
+ * {@link PatternProcessFunction}.
+ *
+ * @param <IN> Type of the input elements
+ * @param <KEY> Type of the key on which the input stream is keyed
+ * @param <OUT> Type of the output elements
+ */
+@Internal
+public class MultiPatternCepOperator<IN, KEY, OUT>
+		extends AbstractStreamOperator<OUT>
+		implements OneInputStreamOperator<IN, OUT>, Triggerable<KEY, VoidNamespace> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String LATE_ELEMENTS_DROPPED_METRIC_NAME = "numLateRecordsDropped";
+
+	private final boolean isProcessingTime;
+
+	private final TypeSerializer<IN> inputSerializer;
+
+	///////////////			State			//////////////
+
+	private static final String NFA_STATE_NAME = "nfaStateName";
+	private static final String EVENT_QUEUE_STATE_NAME = "eventQueuesStateName";
+
+	private final List<NFACompiler.NFAFactory<IN>> nfaFactories;
+
+	private final List<PatternProcessFunction<IN, OUT>> functions;
+
+	/** Strategies which element to skip after a match was found, one per pattern. */
+	private final List<AfterMatchSkipStrategy> afterMatchSkipStrategies;
+
+	private transient List<ValueState<NFAState>> computationStates;
+	private transient MapState<Long, List<IN>> elementQueueState;
+	private transient SharedBuffer<IN> partialMatches;
+
+	private transient InternalTimerService<VoidNamespace> timerService;
+
+	private transient List<NFA<IN>> nfas;
+
+	/**
+	 * The last seen watermark. This will be used to
+	 * decide if an incoming element is late or not.
+	 */
+	private long lastWatermark;
+
+	/** Comparator for secondary sorting. Primary sorting is always done on time. */
+	private final EventComparator<IN> comparator;
+
+	/**
+	 * {@link OutputTag} to use for late arriving events. Elements with timestamp smaller than
+	 * the current watermark will be emitted to this.
+	 */
+	private final OutputTag<IN> lateDataOutputTag;
+
+	/** Context passed to user functions. */
+	private transient ContextFunctionImpl context;
+
+	/** Main output collector, that sets a proper timestamp to the StreamRecord. */
+	private transient TimestampedCollector<OUT> collector;
+
+	/** Wrapped RuntimeContext that limits the underlying context features. */
+	private transient CepRuntimeContext cepRuntimeContext;
+
+	/** Thin context passed to NFAs that gives access to time related characteristics. */
+	private transient TimerService cepTimerService;
+
+	// ------------------------------------------------------------------------
+	// Metrics
+	// ------------------------------------------------------------------------
+
+	private transient Counter numLateRecordsDropped;
+
+	public MultiPatternCepOperator(
+			final TypeSerializer<IN> inputSerializer,
+			final boolean isProcessingTime,
+			final List<NFACompiler.NFAFactory<IN>> nfaFactories,
+			@Nullable final EventComparator<IN> comparator,
+			final List<AfterMatchSkipStrategy> afterMatchSkipStrategies,
+			final List<PatternProcessFunction<IN, OUT>> functions,
+			@Nullable final OutputTag<IN> lateDataOutputTag) {
+
+		this.inputSerializer = Preconditions.checkNotNull(inputSerializer);
+		this.nfaFactories = new ArrayList<>(Preconditions.checkNotNull(nfaFactories));
+		this.functions = new ArrayList<>(Preconditions.checkNotNull(functions));
+		Preconditions.checkArgument(!nfaFactories.isEmpty(), "At least one pattern is required.");
+		Preconditions.checkArgument(
+			nfaFactories.size() == functions.size() && nfaFactories.size() == afterMatchSkipStrategies.size(),
+			"Each pattern requires exactly one process function and one after match skip strategy.");
+
+		this.afterMatchSkipStrategies = new ArrayList<>(afterMatchSkipStrategies.size());
+		for (AfterMatchSkipStrategy afterMatchSkipStrategy : afterMatchSkipStrategies) {
+			this.afterMatchSkipStrategies.add(
+				afterMatchSkipStrategy == null ? AfterMatchSkipStrategy.noSkip() : afterMatchSkipStrategy);
+		}
+
+		this.isProcessingTime = isProcessingTime;
+		this.comparator = comparator;
+		this.lateDataOutputTag = lateDataOutputTag;
+	}
+
+	@Override
+	public void setup(StreamTask<?, ?> containingTask, StreamConfig config, Output<StreamRecord<OUT>> output) {
+		super.setup(containingTask, config, output);
+		this.cepRuntimeContext = new CepRuntimeContext(getRuntimeContext());
+		for (PatternProcessFunction<IN, OUT> function : functions) {
+			FunctionUtils.setFunctionRuntimeContext(function, this.cepRuntimeContext);
+		}
+	}
+
+	@Override
+	public void initializeState(StateInitializationContext context) throws Exception {
+		super.initializeState(context);
+
+		computationStates = new ArrayList<>(nfaFactories.size());
+		for (int i = 0; i < nfaFactories.size(); i++) {
+			computationStates.add(context.getKeyedStateStore().getState(
+				new ValueStateDescriptor<>(
+					NFA_STATE_NAME + "-" + i,
+					new NFAStateSerializer())));
+		}
+
+		partialMatches = new SharedBuffer<>(context.getKeyedStateStore(), inputSerializer);
+
+		elementQueueState = context.getKeyedStateStore().getMapState(
+				new MapStateDescriptor<>(
+						EVENT_QUEUE_STATE_NAME,
+						LongSerializer.INSTANCE,
+						new ListSerializer<>(inputSerializer)));
+	}
+
+	@Override
+	public void open() throws Exception {
+		super.open();
+		timerService = getInternalTimerService(
+				"watermark-callbacks",
+				VoidNamespaceSerializer.INSTANCE,
+				this);
+
+		nfas = new ArrayList<>(nfaFactories.size());
+		for (NFACompiler.NFAFactory<IN> nfaFactory : nfaFactories) {
+			NFA<IN> nfa = nfaFactory.createNFA();
+			nfa.open(cepRuntimeContext, new Configuration());
+			nfas.add(nfa);
+		}
+
+		for (PatternProcessFunction<IN, OUT> function : functions) {
+			FunctionUtils.openFunction(function, new Configuration());
+		}
+
+		context = new ContextFunctionImpl();
+		collector = new TimestampedCollector<>(output);
+		cepTimerService = new TimerServiceImpl();
+
+		// metrics
+		this.numLateRecordsDropped = metrics.counter(LATE_ELEMENTS_DROPPED_METRIC_NAME);
+	}
+
+	@Override
+	public void close() throws Exception {
+		super.close();
+		for (PatternProcessFunction<IN, OUT> function : functions) {
+			FunctionUtils.closeFunction(function);
+		}
+		if (nfas != null) {
+			for (NFA<IN> nfa : nfas) {
+				nfa.close();
+			}
+		}
+	}
+
+	@Override
+	public void processElement(StreamRecord<IN> element) throws Exception {
+		if (isProcessingTime) {
+			if (comparator == null) {
+				// there can be no out of order elements in processing time
+				NFAState[] nfaStates = getNFAStates();
+				long timestamp = getProcessingTimeService().getCurrentProcessingTime();
+				partialMatches.startDeferredFlush();
+				advanceTime(nfaStates, timestamp);
+				processEvent(nfaStates, element.getValue(), timestamp);
+				partialMatches.finishDeferredFlush();
+				updateNFAs(nfaStates);
+			} else {
+				long currentTime = timerService.currentProcessingTime();
+				bufferEvent(element.getValue(), currentTime);
+
+				// register a timer for the next millisecond to sort and emit buffered data
+				timerService.registerProcessingTimeTimer(VoidNamespace.INSTANCE, currentTime + 1);
+			}
+
+		} else {
+
+			long timestamp = element.getTimestamp();
+			IN value = element.getValue();
+
+			// Events with timestamp smaller than or equal with the last seen watermark are considered late.
+			if (timestamp > lastWatermark) {
+				saveRegisterWatermarkTimer();
+				bufferEvent(value, timestamp);
+			} else if (lateDataOutputTag != null) {
+				output.collect(lateDataOutputTag, element);
+			} else {
+				numLateRecordsDropped.inc();
+			}
+		}
+	}
+
+	/**
+	 * Registers a timer for {@code current watermark + 1}, this means that we get triggered
+	 * whenever the watermark advances, which is what we want for working off the queue of
+	 * buffered elements.
+	 */
+	private void saveRegisterWatermarkTimer() {
+		long currentWatermark = timerService.currentWatermark();
+		// protect against overflow
+		if (currentWatermark + 1 > currentWatermark) {
+			timerService.registerEventTimeTimer(VoidNamespace.INSTANCE, currentWatermark + 1);
+		}
+	}
+
+	private void bufferEvent(IN event, long currentTime) throws Exception {
+		List<IN> elementsForTimestamp =  elementQueueState.get(currentTime);
+		if (elementsForTimestamp == null) {
+			elementsForTimestamp = new ArrayList<>();
+		}
+
+		elementsForTimestamp.add(event);
+		elementQueueState.put(currentTime, elementsForTimestamp);
+	}
+
+	@Override
+	public void onEventTime(InternalTimer<KEY, VoidNamespace> timer) throws Exception {
+		PriorityQueue<Long> sortedTimestamps = getSortedTimestamps();
+		NFAState[] nfaStates = getNFAStates();
+
+		partialMatches.startDeferredFlush();
+		while (!sortedTimestamps.isEmpty() && sortedTimestamps.peek() <= timerService.currentWatermark()) {
+			long timestamp = sortedTimestamps.poll();
+			processBufferedEvents(nfaStates, timestamp);
+		}
+		advanceTime(nfaStates, timerService.currentWatermark());
+		partialMatches.finishDeferredFlush();
+
+		updateNFAs(nfaStates);
+
+		if (!sortedTimestamps.isEmpty() || !partialMatches.isEmpty()) {
+			saveRegisterWatermarkTimer();
+		}
+
+		this.lastWatermark = timerService.currentWatermark();
+	}
+
+	@Override
+	public void onProcessingTime(InternalTimer<KEY, VoidNamespace> timer) throws Exception {
+		PriorityQueue<Long> sortedTimestamps = getSortedTimestamps();
+		NFAState[] nfaStates = getNFAStates();
+
+		partialMatches.startDeferredFlush();
+		while (!sortedTimestamps.isEmpty()) {
+			long timestamp = sortedTimestamps.poll();
+			processBufferedEvents(nfaStates, timestamp);
+		}
+		partialMatches.finishDeferredFlush();
+
+		updateNFAs(nfaStates);
+	}
+
+	private void processBufferedEvents(NFAState[] nfaStates, long timestamp) throws Exception {
+		advanceTime(nfaStates, timestamp);
+		List<IN> elements = elementQueueState.get(timestamp);
+		if (comparator != null) {
+			elements.sort(comparator);
+		}
+		for (IN event : elements) {
+			processEvent(nfaStates, event, timestamp);
+		}
+		elementQueueState.remove(timestamp);
+	}
+
+	private NFAState[] getNFAStates() throws IOException {
+		NFAState[] nfaStates = new NFAState[nfas.size()];
+		for (int i = 0; i < nfaStates.length; i++) {
+			NFAState nfaState = computationStates.get(i).value();
+			nfaStates[i] = nfaState != null ? nfaState : nfas.get(i).createInitialNFAState();
+		}
+		return nfaStates;
+	}
+
+	private void updateNFAs(NFAState[] nfaStates) throws IOException {
+		for (int i = 0; i < nfaStates.length; i++) {
+			if (nfaStates[i].isStateChanged()) {
+				nfaStates[i].resetStateChanged();
+				computationStates.get(i).update(nfaStates[i]);
+			}
+		}
+	}
+
+	private PriorityQueue<Long> getSortedTimestamps() throws Exception {
+		PriorityQueue<Long> sortedTimestamps = new PriorityQueue<>();
+		for (Long timestamp : elementQueueState.keys()) {
+			sortedTimestamps.offer(timestamp);
+		}
+		return sortedTimestamps;
+	}
+
+	/**
+	 * Process the given event by giving it to the NFAs of all patterns. The event is registered in
+	 * the shared buffer at most once and released after all NFAs have seen it.
+	 */
+	private void processEvent(NFAState[] nfaStates, IN event, long timestamp) throws Exception {
+		try (SharedBufferAccessor<IN> eventAccessor = partialMatches.getAccessor();
+				NFA.EventWrapper<IN> eventWrapper = new NFA.EventWrapper<>(event, timestamp, eventAccessor, true)) {
+			for (int i = 0; i < nfas.size(); i++) {
+				try (SharedBufferAccessor<IN> sharedBufferAccessor = partialMatches.getAccessor(String.valueOf(i))) {
+					Collection<Map<String, List<IN>>> patterns = nfas.get(i).process(
+						sharedBufferAccessor,
+						nfaStates[i],
+						eventWrapper,
+						afterMatchSkipStrategies.get(i),
+						cepTimerService);
+					processMatchedSequences(functions.get(i), patterns, timestamp);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Advances the time for all NFAs to the given timestamp. This means that no more events with timestamp
+	 * <b>lower</b> than the given timestamp should be passed to the NFAs, This can lead to pruning and timeouts.
+	 */
+	private void advanceTime(NFAState[] nfaStates, long timestamp) throws Exception {
+		for (int i = 0; i < nfas.size(); i++) {
+			try (SharedBufferAccessor<IN> sharedBufferAccessor = partialMatches.getAccessor(String.valueOf(i))) {
+				Collection<Tuple2<Map<String, List<IN>>, Long>> timedOut =
+					nfas.get(i).advanceTime(sharedBufferAccessor, nfaStates[i], timestamp);
+				if (!timedOut.isEmpty()) {
+					processTimedOutSequences(functions.get(i), timedOut);
+				}
+			}
+		}
+	}
+
+	private void processMatchedSequences(
+			PatternProcessFunction<IN, OUT> function,
+			Iterable<Map<String, List<IN>>> matchingSequences,
+			long timestamp) throws Exception {
+		setTimestamp(timestamp);
+		for (Map<String, List<IN>> matchingSequence : matchingSequences) {
+			function.processMatch(matchingSequence, context, collector);
+		}
+	}
+
+	private void processTimedOutSequences(
+			PatternProcessFunction<IN, OUT> function,
+			Collection<Tuple2<Map<String, List<IN>>, Long>> timedOutSequences) throws Exception {
+		if (function instanceof TimedOutPartialMatchHandler) {
+
+			@SuppressWarnings("unchecked")
+			TimedOutPartialMatchHandler<IN> timeoutHandler = (TimedOutPartialMatchHandler<IN>) function;
+
+			for (Tuple2<Map<String, List<IN>>, Long> matchingSequence : timedOutSequences) {
+				setTimestamp(matchingSequence.f1);
+				timeoutHandler.processTimedOutMatch(matchingSequence.f0, context);
+			}
+		}
+	}
+
+	private void setTimestamp(long timestamp) {
+		if (!isProcessingTime) {
+			collector.setAbsoluteTimestamp(timestamp);
+		}
+
+		context.setTimestamp(timestamp);
+	}
+
+	/**
+	 * Gives {@link NFA} access to {@link InternalTimerService}. Should be instantiated once per operator.
+	 */
+	private class TimerServiceImpl implements TimerService {
+
+		@Override
+		public long currentProcessingTime() {
+			return timerService.currentProcessingTime();
+		}
+
+	}
+
+	/**
+	 * Implementation of {@link PatternProcessFunction.Context} shared by the functions of all patterns.
+	 */
+	private class ContextFunctionImpl implements PatternProcessFunction.Context {
+
+		private Long timestamp;
+
+		@Override
+		public <X> void output(final OutputTag<X> outputTag, final X value) {
+			final StreamRecord<X> record;
+			if (isProcessingTime) {
+				record = new StreamRecord<>(value);
+			} else {
+				record = new StreamRecord<>(value, timestamp());
+			}
+			output.collect(outputTag, record);
+		}
+
+		void setTimestamp(long timestamp) {
+			this.timestamp = timestamp;
+		}
+
+		@Override
+		public long timestamp() {
+			return timestamp;
+		}
+
+		@Override
+		public long currentProcessingTime() {
+			return timerService.currentProcessingTime();
+		}
+	}
+
+	//////////////////////			Testing Methods			//////////////////////
+
+	@VisibleForTesting
+	boolean hasNonEmptySharedBuffer(KEY key) throws Exception {
+		setCurrentKey(key);
+		return !partialMatches.isEmpty();
+	}
+
+	@VisibleForTesting
+	boolean hasNonEmptyPQ(KEY key) throws Exception {
+		setCurrentKey(key);
+		return !elementQueueState.isEmpty();
+	}
+
+	@VisibleForTesting
+	long getLateRecordsNumber() {
+		return numLateRecordsDropped.getCount();
+	}
+}
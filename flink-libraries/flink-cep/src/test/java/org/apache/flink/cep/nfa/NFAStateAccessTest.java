@@ -25,14 +25,18 @@ import org.apache.flink.cep.pattern.conditions.IterativeCondition;
 import org.apache.flink.cep.pattern.conditions.SimpleCondition;
 import org.apache.flink.cep.utils.NFATestHarness;
 import org.apache.flink.cep.utils.TestSharedBuffer;
+import org.apache.flink.streaming.api.windowing.time.Time;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests that check if we do not degrade NFA computation in case of State accesses.
@@ -180,4 +184,51 @@ public class NFAStateAccessTest {
 		assertEquals(31, sharedBuffer.getStateWrites());
 		assertEquals(121, sharedBuffer.getStateAccesses());
 	}
+
+	@Test
+	public void testDeferredFlushReducesStateAccesses() throws Exception {
+		List<StreamRecord<Event>> inputEvents = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			inputEvents.add(new StreamRecord<>(new Event(i, i % 10 == 9 ? "end" : "a", i), i / 5));
+		}
+
+		Pattern<Event, ?> pattern = Pattern.<Event>begin("start").where(new SimpleCondition<Event>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean filter(Event value) throws Exception {
+				return value.getName().equals("a");
+			}
+		}).followedBy("end").where(new SimpleCondition<Event>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean filter(Event value) throws Exception {
+				return value.getName().equals("end");
+			}
+		}).within(Time.milliseconds(4));
+
+		TestSharedBuffer<Event> perRecordBuffer = TestSharedBuffer.createTestBuffer(Event.createTypeSerializer());
+		Collection<Map<String, List<Event>>> perRecordMatches = NFATestHarness.forPattern(pattern)
+			.withSharedBuffer(perRecordBuffer)
+			.build()
+			.consumeRecords(inputEvents);
+
+		TestSharedBuffer<Event> deferredBuffer = TestSharedBuffer.createTestBuffer(Event.createTypeSerializer());
+		Collection<Map<String, List<Event>>> deferredMatches = NFATestHarness.forPattern(pattern)
+			.withSharedBuffer(deferredBuffer)
+			.build()
+			.consumeRecordsWithDeferredFlush(inputEvents);
+
+		assertEquals(perRecordMatches, deferredMatches);
+		assertEquals(perRecordBuffer.getEventsBufferSize(), deferredBuffer.getEventsBufferSize());
+		assertEquals(perRecordBuffer.getSharedBufferNodeSize(), deferredBuffer.getSharedBufferNodeSize());
+
+		double perRecordAccessesPerEvent = (double) perRecordBuffer.getStateAccesses() / inputEvents.size();
+		double deferredAccessesPerEvent = (double) deferredBuffer.getStateAccesses() / inputEvents.size();
+		assertTrue(
+			"Expected fewer state accesses per event with a deferred flush, but got " + deferredAccessesPerEvent +
+				" instead of " + perRecordAccessesPerEvent,
+			deferredAccessesPerEvent < perRecordAccessesPerEvent);
+	}
 }
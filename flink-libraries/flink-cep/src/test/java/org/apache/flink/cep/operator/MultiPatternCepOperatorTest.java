@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.cep.operator;
+
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.cep.Event;
+import org.apache.flink.cep.functions.PatternProcessFunction;
+import org.apache.flink.cep.nfa.aftermatch.AfterMatchSkipStrategy;
+import org.apache.flink.cep.nfa.compiler.NFACompiler;
+import org.apache.flink.cep.pattern.Pattern;
+import org.apache.flink.cep.pattern.conditions.SimpleCondition;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link MultiPatternCepOperator}.
+ */
+public class MultiPatternCepOperatorTest extends TestLogger {
+
+	private static final AtomicInteger START_CONDITION_CALLS = new AtomicInteger();
+
+	@Test
+	public void testMatchesOfAllPatterns() throws Exception {
+		Event startEvent = new Event(42, "start", 1.0);
+		Event middleEvent = new Event(42, "middle", 2.0);
+		Event endEvent = new Event(42, "end", 3.0);
+		Event otherKeyStart = new Event(43, "start", 1.0);
+
+		MultiPatternCepOperator<Event, Integer, String> operator = createOperator(
+			startEndPattern(new StartCondition()),
+			startMiddlePattern(new StartCondition()));
+
+		try (OneInputStreamOperatorTestHarness<Event, String> harness = createHarness(operator)) {
+			harness.open();
+
+			harness.processElement(new StreamRecord<>(middleEvent, 2L));
+			harness.processElement(new StreamRecord<>(startEvent, 1L));
+			harness.processElement(new StreamRecord<>(endEvent, 3L));
+			harness.processElement(new StreamRecord<>(otherKeyStart, 1L));
+
+			assertEquals(2L, harness.numEventTimeTimers());
+			assertTrue(operator.hasNonEmptyPQ(42));
+			assertFalse(operator.hasNonEmptySharedBuffer(42));
+
+			harness.processWatermark(new Watermark(5L));
+
+			assertEquals(
+				Arrays.asList("0:start,end", "1:start,middle"),
+				extractResults(harness));
+
+			// the event of key 43 is still referenced by the partial matches of both patterns
+			assertFalse(operator.hasNonEmptySharedBuffer(42));
+			assertTrue(operator.hasNonEmptySharedBuffer(43));
+			assertFalse(operator.hasNonEmptyPQ(42));
+
+			// late elements are dropped
+			harness.processElement(new StreamRecord<>(new Event(42, "end", 4.0), 4L));
+			assertEquals(1L, operator.getLateRecordsNumber());
+		}
+	}
+
+	@Test
+	public void testSharedSimpleConditionIsEvaluatedOncePerEvent() throws Exception {
+		StartCondition startCondition = new StartCondition();
+
+		START_CONDITION_CALLS.set(0);
+		processEvents(createOperator(startEndPattern(startCondition)));
+		int singlePatternCalls = START_CONDITION_CALLS.get();
+		assertTrue(singlePatternCalls > 0);
+
+		START_CONDITION_CALLS.set(0);
+		processEvents(createOperator(startEndPattern(startCondition), startMiddlePattern(startCondition)));
+		assertEquals(singlePatternCalls, START_CONDITION_CALLS.get());
+	}
+
+	private void processEvents(MultiPatternCepOperator<Event, Integer, String> operator) throws Exception {
+		try (OneInputStreamOperatorTestHarness<Event, String> harness = createHarness(operator)) {
+			harness.open();
+
+			harness.processElement(new StreamRecord<>(new Event(42, "start", 1.0), 1L));
+			harness.processElement(new StreamRecord<>(new Event(42, "middle", 2.0), 2L));
+			harness.processElement(new StreamRecord<>(new Event(42, "start", 3.0), 3L));
+			harness.processElement(new StreamRecord<>(new Event(42, "end", 4.0), 4L));
+			harness.processWatermark(new Watermark(5L));
+		}
+	}
+
+	private static List<String> extractResults(OneInputStreamOperatorTestHarness<Event, String> harness) {
+		List<String> results = new ArrayList<>();
+		for (Object o : harness.getOutput()) {
+			if (o instanceof StreamRecord) {
+				results.add(((StreamRecord<?>) o).getValue().toString());
+			}
+		}
+		Collections.sort(results);
+		return results;
+	}
+
+	private static OneInputStreamOperatorTestHarness<Event, String> createHarness(
+			MultiPatternCepOperator<Event, Integer, String> operator) throws Exception {
+		return new KeyedOneInputStreamOperatorTestHarness<>(
+			operator,
+			new IdKeySelector(),
+			BasicTypeInfo.INT_TYPE_INFO);
+	}
+
+	@SafeVarargs
+	private static MultiPatternCepOperator<Event, Integer, String> createOperator(Pattern<Event, ?>... patterns) {
+		List<NFACompiler.NFAFactory<Event>> nfaFactories = new ArrayList<>();
+		List<AfterMatchSkipStrategy> skipStrategies = new ArrayList<>();
+		List<PatternProcessFunction<Event, String>> functions = new ArrayList<>();
+		for (int i = 0; i < patterns.length; i++) {
+			nfaFactories.add(NFACompiler.compileFactory(patterns[i], false));
+			skipStrategies.add(patterns[i].getAfterMatchSkipStrategy());
+			functions.add(new NamesProcessFunction(i));
+		}
+
+		return new MultiPatternCepOperator<>(
+			Event.createTypeSerializer(),
+			false,
+			nfaFactories,
+			null,
+			skipStrategies,
+			functions,
+			null);
+	}
+
+	private static Pattern<Event, ?> startEndPattern(SimpleCondition<Event> startCondition) {
+		return Pattern.<Event>begin("start").where(startCondition)
+			.followedBy("end").where(new NameCondition("end"));
+	}
+
+	private static Pattern<Event, ?> startMiddlePattern(SimpleCondition<Event> startCondition) {
+		return Pattern.<Event>begin("start").where(startCondition)
+			.followedBy("middle").where(new NameCondition("middle"));
+	}
+
+	private static class IdKeySelector implements KeySelector<Event, Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Integer getKey(Event value) {
+			return value.getId();
+		}
+	}
+
+	private static class StartCondition extends SimpleCondition<Event> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean filter(Event value) {
+			START_CONDITION_CALLS.incrementAndGet();
+			return value.getName().equals("start");
+		}
+	}
+
+	private static class NameCondition extends SimpleCondition<Event> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+
+		NameCondition(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public boolean filter(Event value) {
+			return value.getName().equals(name);
+		}
+	}
+
+	private static class NamesProcessFunction extends PatternProcessFunction<Event, String> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int patternIndex;
+
+		NamesProcessFunction(int patternIndex) {
+			this.patternIndex = patternIndex;
+		}
+
+		@Override
+		public void processMatch(Map<String, List<Event>> match, Context ctx, Collector<String> out) {
+			List<String> names = new ArrayList<>();
+			for (List<Event> events : match.values()) {
+				for (Event event : events) {
+					names.add(event.getName());
+				}
+			}
+			Collections.sort(names, Collections.reverseOrder());
+			out.collect(patternIndex + ":" + String.join(",", names));
+		}
+	}
+}
@@ -101,6 +101,18 @@ public final class NFATestHarness {
 		return resultingPatterns;
 	}
 
+	/**
+	 * Consumes the given records like the {@link org.apache.flink.cep.operator.CepOperator} does when
+	 * it works off the buffered records of a key, flushing the shared buffer only once at the end.
+	 */
+	public Collection<Map<String, List<Event>>> consumeRecordsWithDeferredFlush(
+			Collection<StreamRecord<Event>> inputEvents) throws Exception {
+		sharedBuffer.startDeferredFlush();
+		final Collection<Map<String, List<Event>>> resultingPatterns = consumeRecords(inputEvents);
+		sharedBuffer.finishDeferredFlush();
+		return resultingPatterns;
+	}
+
 	public Collection<Map<String, List<Event>>> consumeRecord(StreamRecord<Event> inputEvent) throws Exception {
 		try (SharedBufferAccessor<Event> sharedBufferAccessor = sharedBuffer.getAccessor()) {
 			nfa.advanceTime(sharedBufferAccessor, nfaState, inputEvent.getTimestamp());
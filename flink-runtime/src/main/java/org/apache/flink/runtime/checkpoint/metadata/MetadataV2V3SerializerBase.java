@@ -36,6 +36,7 @@ import org.apache.flink.runtime.state.ResultSubpartitionStateHandle;
 import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StateObject;
 import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.changelog.ChangelogStateBackendHandle;
 import org.apache.flink.runtime.state.filesystem.AbstractFsCheckpointStorage;
 import org.apache.flink.runtime.state.filesystem.FileStateHandle;
 import org.apache.flink.runtime.state.filesystem.RelativeFileStateHandle;
@@ -55,6 +56,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -90,6 +92,7 @@ public abstract class MetadataV2V3SerializerBase {
 	private static final byte PARTITIONABLE_OPERATOR_STATE_HANDLE = 4;
 	private static final byte INCREMENTAL_KEY_GROUPS_HANDLE = 5;
 	private static final byte RELATIVE_STREAM_STATE_HANDLE = 6;
+	private static final byte CHANGELOG_KEYED_STATE_HANDLE = 7;
 
 	// ------------------------------------------------------------------------
 	//  (De)serialization entry points
@@ -290,6 +293,24 @@ public abstract class MetadataV2V3SerializerBase {
 
 			serializeStreamStateHandleMap(incrementalKeyedStateHandle.getSharedState(), dos);
 			serializeStreamStateHandleMap(incrementalKeyedStateHandle.getPrivateState(), dos);
+		} else if (stateHandle instanceof ChangelogStateBackendHandle) {
+			ChangelogStateBackendHandle changelogStateHandle = (ChangelogStateBackendHandle) stateHandle;
+
+			dos.writeByte(CHANGELOG_KEYED_STATE_HANDLE);
+
+			dos.writeUTF(String.valueOf(changelogStateHandle.getBackendIdentifier()));
+			dos.writeInt(changelogStateHandle.getKeyGroupRange().getStartKeyGroup());
+			dos.writeInt(changelogStateHandle.getKeyGroupRange().getNumberOfKeyGroups());
+
+			dos.writeInt(changelogStateHandle.getMaterializedState().size());
+			for (Map.Entry<StateHandleID, KeyGroupsStateHandle> entry :
+					changelogStateHandle.getMaterializedState().entrySet()) {
+				dos.writeUTF(entry.getKey().toString());
+				serializeKeyedStateHandle(entry.getValue(), dos);
+			}
+
+			// the changelog segments must keep their order
+			serializeStreamStateHandleMap(changelogStateHandle.getChangelog(), dos);
 		} else {
 			throw new IllegalStateException("Unknown KeyedStateHandle type: " + stateHandle.getClass());
 		}
@@ -346,6 +367,33 @@ public abstract class MetadataV2V3SerializerBase {
 				sharedStates,
 				privateStates,
 				metaDataStateHandle);
+		} else if (CHANGELOG_KEYED_STATE_HANDLE == type) {
+
+			UUID backendId = UUID.fromString(dis.readUTF());
+			int startKeyGroup = dis.readInt();
+			int numKeyGroups = dis.readInt();
+			KeyGroupRange keyGroupRange =
+				KeyGroupRange.of(startKeyGroup, startKeyGroup + numKeyGroups - 1);
+
+			int numMaterializedStates = dis.readInt();
+			Map<StateHandleID, KeyGroupsStateHandle> materializedState = new HashMap<>(numMaterializedStates);
+			for (int i = 0; i < numMaterializedStates; ++i) {
+				StateHandleID stateHandleID = new StateHandleID(dis.readUTF());
+				KeyedStateHandle materializedStateHandle = deserializeKeyedStateHandle(dis, context);
+				if (!(materializedStateHandle instanceof KeyGroupsStateHandle)) {
+					throw new IOException("Expected a KeyGroupsStateHandle but found " + materializedStateHandle);
+				}
+				materializedState.put(stateHandleID, (KeyGroupsStateHandle) materializedStateHandle);
+			}
+
+			LinkedHashMap<StateHandleID, StreamStateHandle> changelog = new LinkedHashMap<>();
+			int numChangelogSegments = dis.readInt();
+			for (int i = 0; i < numChangelogSegments; ++i) {
+				StateHandleID stateHandleID = new StateHandleID(dis.readUTF());
+				changelog.put(stateHandleID, deserializeStreamStateHandle(dis, context));
+			}
+
+			return new ChangelogStateBackendHandle(backendId, keyGroupRange, materializedState, changelog);
 		} else {
 			throw new IllegalStateException("Reading invalid KeyedStateHandle, type: " + type);
 		}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.compression;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base class for {@link BlockCompressor}s of codecs whose native bindings only operate on byte arrays.
+ * Compressed blocks use the same layout as the {@link Lz4BlockCompressor}: the compressed length and the
+ * original length as little endian integers, followed by the compressed data.
+ *
+ * <p>{@link ByteBuffer}s without an accessible backing array are copied through reusable heap arrays.
+ */
+abstract class AbstractBlockCompressor implements BlockCompressor {
+
+	/** Reused to hold the data of off-heap source buffers, lazily allocated. */
+	private byte[] srcArray;
+
+	/** Reused to hold the compressed data for off-heap target buffers, lazily allocated. */
+	private byte[] dstArray;
+
+	/**
+	 * Returns the max length of the compressed data of the given original length, without the header.
+	 */
+	abstract int maxCompressedLength(int srcLen);
+
+	/**
+	 * Compresses the given data and returns the length of the compressed data, without writing the header.
+	 *
+	 * @throws InsufficientBufferException if the compressed data does not fit into {@code maxDstLen} bytes
+	 */
+	abstract int compressBlock(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int maxDstLen)
+			throws InsufficientBufferException;
+
+	@Override
+	public int getMaxCompressedSize(int srcSize) {
+		return Lz4BlockCompressionFactory.HEADER_LENGTH + maxCompressedLength(srcSize);
+	}
+
+	@Override
+	public int compress(ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff)
+			throws InsufficientBufferException {
+		final int prevSrcOff = src.position() + srcOff;
+		final int prevDstOff = dst.position() + dstOff;
+
+		final byte[] srcBytes;
+		final int srcBytesOff;
+		if (src.hasArray()) {
+			srcBytes = src.array();
+			srcBytesOff = src.arrayOffset() + prevSrcOff;
+		} else {
+			if (srcArray == null || srcArray.length < srcLen) {
+				srcArray = new byte[srcLen];
+			}
+			ByteBuffer duplicate = src.duplicate();
+			duplicate.position(prevSrcOff);
+			duplicate.get(srcArray, 0, srcLen);
+			srcBytes = srcArray;
+			srcBytesOff = 0;
+		}
+
+		final int dstLen = dst.limit() - prevDstOff;
+		final int compressedLen;
+		if (dst.hasArray()) {
+			compressedLen = compress(srcBytes, srcBytesOff, srcLen, dst.array(), dst.arrayOffset() + prevDstOff, dstLen);
+		} else {
+			int maxLen = Math.min(dstLen, getMaxCompressedSize(srcLen));
+			if (dstArray == null || dstArray.length < maxLen) {
+				dstArray = new byte[maxLen];
+			}
+			compressedLen = compress(srcBytes, srcBytesOff, srcLen, dstArray, 0, maxLen);
+			ByteBuffer duplicate = dst.duplicate();
+			duplicate.position(prevDstOff);
+			duplicate.put(dstArray, 0, compressedLen);
+		}
+
+		src.position(prevSrcOff + srcLen);
+		dst.position(prevDstOff + compressedLen);
+		return compressedLen;
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff)
+			throws InsufficientBufferException {
+		return compress(src, srcOff, srcLen, dst, dstOff, dst.length - dstOff);
+	}
+
+	private int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen)
+			throws InsufficientBufferException {
+		if (dstLen < Lz4BlockCompressionFactory.HEADER_LENGTH) {
+			throw new InsufficientBufferException("Buffer length too small");
+		}
+
+		// an empty block is encoded as a header only, which is what the decompressor expects
+		final int compressedLen = srcLen == 0 ? 0 : compressBlock(
+				src,
+				srcOff,
+				srcLen,
+				dst,
+				dstOff + Lz4BlockCompressionFactory.HEADER_LENGTH,
+				dstLen - Lz4BlockCompressionFactory.HEADER_LENGTH);
+		writeIntLE(compressedLen, dst, dstOff);
+		writeIntLE(srcLen, dst, dstOff + 4);
+		return Lz4BlockCompressionFactory.HEADER_LENGTH + compressedLen;
+	}
+
+	private static void writeIntLE(int i, byte[] buf, int offset) {
+		buf[offset++] = (byte) i;
+		buf[offset++] = (byte) (i >>> 8);
+		buf[offset++] = (byte) (i >>> 16);
+		buf[offset] = (byte) (i >>> 24);
+	}
+}
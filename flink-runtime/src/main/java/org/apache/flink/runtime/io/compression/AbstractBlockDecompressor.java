@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.compression;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base class for {@link BlockDecompressor}s of codecs whose native bindings only operate on byte arrays.
+ * Decodes blocks written by an {@link AbstractBlockCompressor}.
+ *
+ * <p>{@link ByteBuffer}s without an accessible backing array are copied through reusable heap arrays.
+ */
+abstract class AbstractBlockDecompressor implements BlockDecompressor {
+
+	/** Reused to hold the data of off-heap source buffers, lazily allocated. */
+	private byte[] srcArray;
+
+	/** Reused to hold the decompressed data for off-heap target buffers, lazily allocated. */
+	private byte[] dstArray;
+
+	/** Reused to read the header of a block from a {@link ByteBuffer}. */
+	private final byte[] header = new byte[Lz4BlockCompressionFactory.HEADER_LENGTH];
+
+	/**
+	 * Decompresses the given data, without the header, and returns the length of the decompressed data.
+	 *
+	 * @throws DataCorruptionException if the data can not be decompressed into {@code originalLen} bytes
+	 */
+	abstract int decompressBlock(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLen)
+			throws DataCorruptionException;
+
+	@Override
+	public int decompress(ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff)
+			throws DataCorruptionException {
+		final int prevSrcOff = src.position() + srcOff;
+		final int prevDstOff = dst.position() + dstOff;
+
+		if (src.limit() - prevSrcOff < Lz4BlockCompressionFactory.HEADER_LENGTH) {
+			throw new DataCorruptionException("Source data is not integral for decompression.");
+		}
+
+		final ByteBuffer srcDuplicate = src.duplicate();
+		srcDuplicate.position(prevSrcOff);
+		srcDuplicate.get(header);
+		final int compressedLen = readIntLE(header, 0);
+		final int originalLen = readIntLE(header, 4);
+		validateLength(compressedLen, originalLen);
+
+		if (dst.capacity() - prevDstOff < originalLen) {
+			throw new InsufficientBufferException("Buffer length too small");
+		}
+
+		if (src.limit() - prevSrcOff - Lz4BlockCompressionFactory.HEADER_LENGTH < compressedLen) {
+			throw new DataCorruptionException("Source data is not integral for decompression.");
+		}
+
+		final byte[] srcBytes;
+		final int srcBytesOff;
+		if (src.hasArray()) {
+			srcBytes = src.array();
+			srcBytesOff = src.arrayOffset() + prevSrcOff + Lz4BlockCompressionFactory.HEADER_LENGTH;
+		} else {
+			if (srcArray == null || srcArray.length < compressedLen) {
+				srcArray = new byte[compressedLen];
+			}
+			srcDuplicate.get(srcArray, 0, compressedLen);
+			srcBytes = srcArray;
+			srcBytesOff = 0;
+		}
+
+		if (dst.hasArray()) {
+			decompressAndCheck(srcBytes, srcBytesOff, compressedLen, dst.array(), dst.arrayOffset() + prevDstOff, originalLen);
+		} else {
+			if (dstArray == null || dstArray.length < originalLen) {
+				dstArray = new byte[originalLen];
+			}
+			decompressAndCheck(srcBytes, srcBytesOff, compressedLen, dstArray, 0, originalLen);
+			ByteBuffer dstDuplicate = dst.duplicate();
+			dstDuplicate.position(prevDstOff);
+			dstDuplicate.put(dstArray, 0, originalLen);
+		}
+
+		src.position(prevSrcOff + compressedLen + Lz4BlockCompressionFactory.HEADER_LENGTH);
+		dst.position(prevDstOff + originalLen);
+		return originalLen;
+	}
+
+	@Override
+	public int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff)
+			throws InsufficientBufferException, DataCorruptionException {
+		if (src.length - srcOff < Lz4BlockCompressionFactory.HEADER_LENGTH) {
+			throw new DataCorruptionException("Source data is not integral for decompression.");
+		}
+
+		final int compressedLen = readIntLE(src, srcOff);
+		final int originalLen = readIntLE(src, srcOff + 4);
+		validateLength(compressedLen, originalLen);
+
+		if (dst.length - dstOff < originalLen) {
+			throw new InsufficientBufferException("Buffer length too small");
+		}
+
+		if (src.length - srcOff - Lz4BlockCompressionFactory.HEADER_LENGTH < compressedLen) {
+			throw new DataCorruptionException("Source data is not integral for decompression.");
+		}
+
+		decompressAndCheck(src, srcOff + Lz4BlockCompressionFactory.HEADER_LENGTH, compressedLen, dst, dstOff, originalLen);
+		return originalLen;
+	}
+
+	private void decompressAndCheck(
+			byte[] src,
+			int srcOff,
+			int compressedLen,
+			byte[] dst,
+			int dstOff,
+			int originalLen) throws DataCorruptionException {
+		if (originalLen == 0) {
+			return;
+		}
+
+		final int decompressedLen = decompressBlock(src, srcOff, compressedLen, dst, dstOff, originalLen);
+		if (decompressedLen != originalLen) {
+			throw new DataCorruptionException("Input is corrupted, unexpected decompressed length.");
+		}
+	}
+
+	private static void validateLength(int compressedLen, int originalLen) throws DataCorruptionException {
+		if (originalLen < 0
+			|| compressedLen < 0
+			|| (originalLen == 0 && compressedLen != 0)
+			|| (originalLen != 0 && compressedLen == 0)) {
+			throw new DataCorruptionException("Input is corrupted, invalid length.");
+		}
+	}
+
+	private static int readIntLE(byte[] buf, int offset) {
+		return (buf[offset] & 0xFF)
+			| ((buf[offset + 1] & 0xFF) << 8)
+			| ((buf[offset + 2] & 0xFF) << 16)
+			| ((buf[offset + 3] & 0xFF) << 24);
+	}
+}
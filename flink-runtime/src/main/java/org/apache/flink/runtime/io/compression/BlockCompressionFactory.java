@@ -36,7 +36,9 @@ public interface BlockCompressionFactory {
 	 * Name of {@link BlockCompressionFactory}.
 	 */
 	enum CompressionFactoryName {
-		LZ4
+		LZ4,
+		ZSTD,
+		SNAPPY
 	}
 
 	/**
@@ -45,6 +47,16 @@ public interface BlockCompressionFactory {
 	 *                               {@link BlockCompressionFactory}.
 	 */
 	static BlockCompressionFactory createBlockCompressionFactory(String compressionFactoryName) {
+		return createBlockCompressionFactory(compressionFactoryName, ZstdBlockCompressionFactory.DEFAULT_COMPRESSION_LEVEL);
+	}
+
+	/**
+	 * Creates {@link BlockCompressionFactory} according to the configuration.
+	 * @param compressionFactoryName supported compression codecs or user-defined class name inherited from
+	 *                               {@link BlockCompressionFactory}.
+	 * @param compressionLevel the compression level, only used by codecs which support levels (ZSTD).
+	 */
+	static BlockCompressionFactory createBlockCompressionFactory(String compressionFactoryName, int compressionLevel) {
 
 		checkNotNull(compressionFactoryName);
 
@@ -61,6 +73,12 @@ public interface BlockCompressionFactory {
 				case LZ4:
 					blockCompressionFactory = new Lz4BlockCompressionFactory();
 					break;
+				case ZSTD:
+					blockCompressionFactory = new ZstdBlockCompressionFactory(compressionLevel);
+					break;
+				case SNAPPY:
+					blockCompressionFactory = new SnappyBlockCompressionFactory();
+					break;
 				default:
 					throw new IllegalStateException("Unknown CompressionMethod " + compressionName);
 			}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.compression;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+
+/**
+ * Decode data written with {@link SnappyBlockCompressor}.
+ * It reads from and writes to byte arrays provided from the outside, thus reducing copy time.
+ */
+public class SnappyBlockDecompressor extends AbstractBlockDecompressor {
+
+	@Override
+	int decompressBlock(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLen)
+			throws DataCorruptionException {
+		try {
+			// the native code does not check the bounds of the target array
+			if (Snappy.uncompressedLength(src, srcOff, srcLen) != originalLen) {
+				throw new DataCorruptionException("Input is corrupted, unexpected decompressed length.");
+			}
+			return Snappy.uncompress(src, srcOff, srcLen, dst, dstOff);
+		} catch (IOException e) {
+			throw new DataCorruptionException("Input is corrupted", e);
+		}
+	}
+}
@@ -22,6 +22,7 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.compression.BlockCompressor;
+import org.apache.flink.runtime.io.compression.ZstdBlockCompressionFactory;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -38,15 +39,57 @@ public class BufferCompressor {
 	/** The intermediate buffer for the compressed data. */
 	private final NetworkBuffer internalBuffer;
 
+	// The following counters are only written by the thread which compresses the buffers, but they are read
+	// by the metric gauges from other threads, so they are volatile. The non-atomic increments are fine
+	// because there is a single writer.
+
+	/** Total number of bytes of the buffers passed in for compression. */
+	private volatile long numBytesBeforeCompression;
+
+	/** Total number of bytes of the buffers handed out after compression. */
+	private volatile long numBytesAfterCompression;
+
+	/** Total time spent in the compression codec in nanoseconds. */
+	private volatile long compressionTimeNanos;
+
 	public BufferCompressor(int bufferSize, String factoryName) {
+		this(bufferSize, factoryName, ZstdBlockCompressionFactory.DEFAULT_COMPRESSION_LEVEL);
+	}
+
+	public BufferCompressor(int bufferSize, String factoryName, int compressionLevel) {
 		checkArgument(bufferSize > 0);
 		checkNotNull(factoryName);
+		this.blockCompressor = BlockCompressionFactory
+			.createBlockCompressionFactory(factoryName, compressionLevel)
+			.getCompressor();
 		// the size of this intermediate heap buffer will be gotten from the
 		// plugin configuration in the future, and currently, double size of
-		// the input buffer is enough for lz4-java compression library.
-		final byte[] heapBuffer = new byte[2 * bufferSize];
+		// the input buffer is enough for lz4-java compression library, other
+		// codecs get at least the max compressed size of a full buffer.
+		final byte[] heapBuffer = new byte[Math.max(2 * bufferSize, blockCompressor.getMaxCompressedSize(bufferSize))];
 		this.internalBuffer = new NetworkBuffer(MemorySegmentFactory.wrap(heapBuffer), FreeingBufferRecycler.INSTANCE);
-		this.blockCompressor = BlockCompressionFactory.createBlockCompressionFactory(factoryName).getCompressor();
+	}
+
+	/**
+	 * Returns the total number of bytes of all buffers passed to this compressor, in a best-effort way.
+	 */
+	public long getNumBytesBeforeCompression() {
+		return numBytesBeforeCompression;
+	}
+
+	/**
+	 * Returns the total number of bytes of all buffers returned by this compressor, including the ones which were
+	 * returned uncompressed because compression did not reduce their size, in a best-effort way.
+	 */
+	public long getNumBytesAfterCompression() {
+		return numBytesAfterCompression;
+	}
+
+	/**
+	 * Returns the total time spent compressing buffers in nanoseconds, in a best-effort way.
+	 */
+	public long getCompressionTimeNanos() {
+		return compressionTimeNanos;
 	}
 
 	/**
@@ -98,19 +141,28 @@ public class BufferCompressor {
 		checkArgument(buffer.readableBytes() > 0, "No data to be compressed.");
 		checkState(internalBuffer.refCnt() == 1, "Illegal reference count, buffer need to be released.");
 
+		int length = buffer.getSize();
+		int compressedLen;
+		long startTime = System.nanoTime();
 		try {
-			int length = buffer.getSize();
 			// compress the given buffer into the internal heap buffer
-			int compressedLen = blockCompressor.compress(
+			compressedLen = blockCompressor.compress(
 				buffer.getNioBuffer(0, length),
 				0,
 				length,
 				internalBuffer.getNioBuffer(0, internalBuffer.capacity()),
 				0);
-			return compressedLen < length ? compressedLen : 0;
+			if (compressedLen >= length) {
+				compressedLen = 0;
+			}
 		} catch (Throwable throwable) {
 			// return the original buffer if failed to compress
-			return 0;
+			compressedLen = 0;
 		}
+
+		compressionTimeNanos += System.nanoTime() - startTime;
+		numBytesBeforeCompression += length;
+		numBytesAfterCompression += compressedLen == 0 ? length : compressedLen;
+		return compressedLen;
 	}
 }
@@ -20,9 +20,12 @@ package org.apache.flink.runtime.io.network.metrics;
 
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.partition.ResultPartition;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartition;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
@@ -160,6 +163,41 @@ public class ResultPartitionMetrics {
 	//  Static access
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Registers the compression ratio and the time spent compressing for all partitions which compress their data.
+	 */
+	public static void registerCompressionMetrics(MetricGroup parent, ResultPartition[] partitions) {
+		for (int i = 0; i < partitions.length; i++) {
+			BufferCompressor compressor = partitions[i].getBufferCompressor();
+			if (compressor == null) {
+				continue;
+			}
+
+			MetricGroup group = parent.addGroup(i);
+			group.gauge("compressionRatio", getCompressionRatioGauge(compressor));
+			group.gauge("compressionTimeMs", getCompressionTimeGauge(compressor));
+		}
+	}
+
+	private static Gauge<Double> getCompressionRatioGauge(BufferCompressor compressor) {
+		return new Gauge<Double>() {
+			@Override
+			public Double getValue() {
+				long compressedBytes = compressor.getNumBytesAfterCompression();
+				return compressedBytes == 0 ? 1.0 : compressor.getNumBytesBeforeCompression() / (double) compressedBytes;
+			}
+		};
+	}
+
+	private static Gauge<Long> getCompressionTimeGauge(BufferCompressor compressor) {
+		return new Gauge<Long>() {
+			@Override
+			public Long getValue() {
+				return TimeUnit.NANOSECONDS.toMillis(compressor.getCompressionTimeNanos());
+			}
+		};
+	}
+
 	public static void registerQueueLengthMetrics(MetricGroup parent, ResultPartition[] partitions) {
 		for (int i = 0; i < partitions.length; i++) {
 			ResultPartitionMetrics metrics = new ResultPartitionMetrics(partitions[i]);
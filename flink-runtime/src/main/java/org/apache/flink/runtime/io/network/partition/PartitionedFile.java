@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The data of a {@link SortMergeResultPartition}, stored in a single data file and an index file.
+ *
+ * <p>The data file consists of regions. Within each region, the buffers are sorted by subpartition
+ * index, so the data of one subpartition is a contiguous range per region and can be read sequentially.
+ * For each region and subpartition, the index file contains one entry which consists of the offset of
+ * the first buffer in the data file (long) and the number of buffers (int).
+ */
+final class PartitionedFile {
+
+	static final String DATA_FILE_SUFFIX = ".shuffle.data";
+
+	static final String INDEX_FILE_SUFFIX = ".shuffle.index";
+
+	/** Size of an index entry: the offset of the data (long) and the number of buffers (int). */
+	static final int INDEX_ENTRY_SIZE = 8 + 4;
+
+	private final int numRegions;
+
+	private final int numSubpartitions;
+
+	private final Path dataFilePath;
+
+	private final Path indexFilePath;
+
+	PartitionedFile(int numRegions, int numSubpartitions, Path dataFilePath, Path indexFilePath) {
+		checkArgument(numRegions >= 0, "Illegal number of regions.");
+		checkArgument(numSubpartitions > 0, "Illegal number of subpartitions.");
+
+		this.numRegions = numRegions;
+		this.numSubpartitions = numSubpartitions;
+		this.dataFilePath = checkNotNull(dataFilePath);
+		this.indexFilePath = checkNotNull(indexFilePath);
+	}
+
+	int getNumRegions() {
+		return numRegions;
+	}
+
+	int getNumSubpartitions() {
+		return numSubpartitions;
+	}
+
+	Path getDataFilePath() {
+		return dataFilePath;
+	}
+
+	Path getIndexFilePath() {
+		return indexFilePath;
+	}
+
+	/**
+	 * Reads the index entry of the given region and subpartition into the given buffer, which is flipped
+	 * for reading afterwards.
+	 */
+	void readIndexEntry(FileChannel indexFile, ByteBuffer target, int region, int subpartition) throws IOException {
+		checkArgument(region >= 0 && region < numRegions, "Illegal region index.");
+		checkArgument(subpartition >= 0 && subpartition < numSubpartitions, "Illegal subpartition index.");
+
+		long position = ((long) region * numSubpartitions + subpartition) * INDEX_ENTRY_SIZE;
+		target.clear();
+		target.limit(INDEX_ENTRY_SIZE);
+		while (target.hasRemaining()) {
+			int read = indexFile.read(target, position);
+			if (read < 0) {
+				throw new IOException("Premature end of index file " + indexFilePath);
+			}
+			position += read;
+		}
+		target.flip();
+	}
+
+	void deleteQuietly() {
+		deleteQuietly(dataFilePath);
+		deleteQuietly(indexFilePath);
+	}
+
+	static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException ignored) {
+			// the files are in the temp directories of the task manager, which are cleaned up on shutdown
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PartitionedFile{" +
+			"numRegions=" + numRegions +
+			", numSubpartitions=" + numSubpartitions +
+			", dataFilePath=" + dataFilePath +
+			", indexFilePath=" + indexFilePath +
+			'}';
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Reads the data of one subpartition from a {@link PartitionedFile}, region by region. The data of the
+ * subpartition is contiguous within a region, so every region is read sequentially.
+ *
+ * <p>Like the {@link FileChannelBoundedData.FileBufferReader}, it uses a small dedicated set of buffers
+ * and notifies the subpartition view when a buffer is recycled.
+ */
+final class PartitionedFileReader implements BoundedData.Reader, BufferRecycler {
+
+	private static final int NUM_BUFFERS = 2;
+
+	private final PartitionedFile partitionedFile;
+
+	private final int subpartitionIndex;
+
+	private final FileChannel dataFile;
+
+	private final FileChannel indexFile;
+
+	private final ByteBuffer headerBuffer;
+
+	private final ByteBuffer indexEntryBuffer;
+
+	private final ArrayDeque<MemorySegment> buffers;
+
+	private final ResultSubpartitionView subpartitionView;
+
+	/** Index of the region the next buffer is read from. */
+	private int nextRegion;
+
+	/** Number of buffers of the subpartition which are left in the current region. */
+	private int remainingBuffersInRegion;
+
+	/** The tag indicates whether we have read all data of the subpartition. */
+	private boolean isFinished;
+
+	PartitionedFileReader(
+			PartitionedFile partitionedFile,
+			int subpartitionIndex,
+			int bufferSize,
+			ResultSubpartitionView subpartitionView) throws IOException {
+
+		checkArgument(subpartitionIndex >= 0 && subpartitionIndex < partitionedFile.getNumSubpartitions(),
+			"Illegal subpartition index.");
+
+		this.partitionedFile = checkNotNull(partitionedFile);
+		this.subpartitionIndex = subpartitionIndex;
+		this.subpartitionView = checkNotNull(subpartitionView);
+		this.headerBuffer = BufferReaderWriterUtil.allocatedHeaderBuffer();
+		this.indexEntryBuffer = ByteBuffer.allocate(PartitionedFile.INDEX_ENTRY_SIZE);
+		this.buffers = new ArrayDeque<>(NUM_BUFFERS);
+
+		this.dataFile = FileChannel.open(partitionedFile.getDataFilePath(), StandardOpenOption.READ);
+		try {
+			this.indexFile = FileChannel.open(partitionedFile.getIndexFilePath(), StandardOpenOption.READ);
+		} catch (Throwable throwable) {
+			IOUtils.closeQuietly(dataFile);
+			throw throwable;
+		}
+
+		for (int i = 0; i < NUM_BUFFERS; i++) {
+			buffers.addLast(MemorySegmentFactory.allocateUnpooledOffHeapMemory(bufferSize, null));
+		}
+	}
+
+	@Nullable
+	@Override
+	public Buffer nextBuffer() throws IOException {
+		if (isFinished || !moveToNextBuffer()) {
+			isFinished = true;
+			return null;
+		}
+
+		final MemorySegment memory = buffers.pollFirst();
+		if (memory == null) {
+			return null;
+		}
+
+		final Buffer next = BufferReaderWriterUtil.readFromByteChannel(dataFile, headerBuffer, memory, this);
+		if (next == null) {
+			recycle(memory);
+			throw new IOException("Premature end of data file " + partitionedFile.getDataFilePath());
+		}
+
+		remainingBuffersInRegion--;
+		return next;
+	}
+
+	/**
+	 * Positions the data file at the next buffer of the subpartition, skipping regions without data.
+	 *
+	 * @return false if all data of the subpartition has been read
+	 */
+	private boolean moveToNextBuffer() throws IOException {
+		while (remainingBuffersInRegion == 0) {
+			if (nextRegion >= partitionedFile.getNumRegions()) {
+				return false;
+			}
+
+			partitionedFile.readIndexEntry(indexFile, indexEntryBuffer, nextRegion++, subpartitionIndex);
+			long offset = indexEntryBuffer.getLong();
+			remainingBuffersInRegion = indexEntryBuffer.getInt();
+			if (remainingBuffersInRegion > 0) {
+				dataFile.position(offset);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			dataFile.close();
+		} finally {
+			indexFile.close();
+		}
+	}
+
+	@Override
+	public void recycle(MemorySegment memorySegment) {
+		buffers.addLast(memorySegment);
+
+		if (!isFinished) {
+			subpartitionView.notifyDataAvailable();
+		}
+	}
+}
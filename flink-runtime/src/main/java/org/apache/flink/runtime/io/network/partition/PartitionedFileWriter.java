@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.util.IOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Writes the data of a {@link SortMergeResultPartition} into a {@link PartitionedFile}.
+ *
+ * <p>Data is written region by region. Within a region, the buffers must be written in the order
+ * of their subpartition index.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class PartitionedFileWriter {
+
+	private final int numSubpartitions;
+
+	private final Path dataFilePath;
+
+	private final Path indexFilePath;
+
+	private final FileChannel dataFile;
+
+	private final FileChannel indexFile;
+
+	private final ByteBuffer[] headerAndBufferArray;
+
+	/** Holds the index entries of one region. */
+	private final ByteBuffer indexBuffer;
+
+	/** Offset of the first buffer of each subpartition in the current region. */
+	private final long[] subpartitionOffsets;
+
+	/** Number of buffers of each subpartition in the current region. */
+	private final int[] subpartitionBuffers;
+
+	/** Current write position in the data file. */
+	private long totalBytesWritten;
+
+	private int numRegions;
+
+	/** Subpartition index of the last written buffer in the current region, -1 if no region is open. */
+	private int currentSubpartition = -1;
+
+	private boolean isRegionOpen;
+
+	private boolean isFinished;
+
+	PartitionedFileWriter(String basePath, int numSubpartitions) throws IOException {
+		checkArgument(numSubpartitions > 0, "Illegal number of subpartitions.");
+
+		this.numSubpartitions = numSubpartitions;
+		this.dataFilePath = Paths.get(basePath + PartitionedFile.DATA_FILE_SUFFIX);
+		this.indexFilePath = Paths.get(basePath + PartitionedFile.INDEX_FILE_SUFFIX);
+		this.headerAndBufferArray = BufferReaderWriterUtil.allocatedWriteBufferArray();
+		this.indexBuffer = ByteBuffer.allocate(numSubpartitions * PartitionedFile.INDEX_ENTRY_SIZE);
+		this.subpartitionOffsets = new long[numSubpartitions];
+		this.subpartitionBuffers = new int[numSubpartitions];
+
+		this.dataFile = FileChannel.open(dataFilePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		try {
+			this.indexFile = FileChannel.open(indexFilePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		} catch (Throwable throwable) {
+			IOUtils.closeQuietly(dataFile);
+			PartitionedFile.deleteQuietly(dataFilePath);
+			throw throwable;
+		}
+	}
+
+	/**
+	 * Starts a new region, finishing the current one if there is any.
+	 */
+	void startNewRegion() throws IOException {
+		checkState(!isFinished, "File writer is already finished.");
+
+		finishCurrentRegion();
+		isRegionOpen = true;
+		currentSubpartition = 0;
+		for (int i = 0; i < numSubpartitions; i++) {
+			subpartitionOffsets[i] = -1;
+			subpartitionBuffers[i] = 0;
+		}
+	}
+
+	/**
+	 * Writes a buffer of the given subpartition into the current region. The buffer is not recycled.
+	 */
+	void writeBuffer(Buffer buffer, int subpartitionIndex) throws IOException {
+		checkState(isRegionOpen, "Must start a new region before writing data.");
+		checkArgument(subpartitionIndex >= currentSubpartition && subpartitionIndex < numSubpartitions,
+			"Buffers of a region must be written in the order of the subpartition index.");
+
+		currentSubpartition = subpartitionIndex;
+		if (subpartitionOffsets[subpartitionIndex] < 0) {
+			subpartitionOffsets[subpartitionIndex] = totalBytesWritten;
+		}
+		subpartitionBuffers[subpartitionIndex]++;
+		totalBytesWritten += BufferReaderWriterUtil.writeToByteChannel(dataFile, buffer, headerAndBufferArray);
+	}
+
+	/**
+	 * Finishes writing and returns the written file. No more data can be written afterwards.
+	 */
+	PartitionedFile finish() throws IOException {
+		checkState(!isFinished, "File writer is already finished.");
+
+		finishCurrentRegion();
+		isFinished = true;
+		dataFile.close();
+		indexFile.close();
+
+		return new PartitionedFile(numRegions, numSubpartitions, dataFilePath, indexFilePath);
+	}
+
+	/**
+	 * Closes the files and deletes them, used if writing fails or is aborted.
+	 */
+	void releaseQuietly() {
+		isFinished = true;
+		IOUtils.closeQuietly(dataFile);
+		IOUtils.closeQuietly(indexFile);
+		PartitionedFile.deleteQuietly(dataFilePath);
+		PartitionedFile.deleteQuietly(indexFilePath);
+	}
+
+	long getTotalBytesWritten() {
+		return totalBytesWritten;
+	}
+
+	private void finishCurrentRegion() throws IOException {
+		if (!isRegionOpen) {
+			return;
+		}
+
+		indexBuffer.clear();
+		for (int i = 0; i < numSubpartitions; i++) {
+			// subpartitions without data point to the end of the region, which keeps the offsets ascending
+			long offset = subpartitionOffsets[i] < 0 ? totalBytesWritten : subpartitionOffsets[i];
+			indexBuffer.putLong(offset);
+			indexBuffer.putInt(subpartitionBuffers[i]);
+		}
+		indexBuffer.flip();
+		while (indexBuffer.hasRemaining()) {
+			indexFile.write(indexBuffer);
+		}
+
+		numRegions++;
+		isRegionOpen = false;
+	}
+}
@@ -185,6 +185,14 @@ public class ResultPartition implements ResultPartitionWriter, BufferPoolOwner {
 		return bufferPool;
 	}
 
+	/**
+	 * Returns the compressor of this partition, or null if the data of this partition is not compressed.
+	 */
+	@Nullable
+	public BufferCompressor getBufferCompressor() {
+		return bufferCompressor;
+	}
+
 	public int getNumberOfQueuedBuffers() {
 		int totalBuffers = 0;
 
@@ -395,7 +403,7 @@ public class ResultPartition implements ResultPartitionWriter, BufferPoolOwner {
 
 	// ------------------------------------------------------------------------
 
-	private void checkInProduceState() throws IllegalStateException {
+	protected void checkInProduceState() throws IllegalStateException {
 		checkState(!isFinished, "Partition already finished.");
 	}
 }
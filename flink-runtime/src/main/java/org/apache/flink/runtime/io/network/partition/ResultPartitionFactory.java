@@ -64,8 +64,12 @@ public class ResultPartitionFactory {
 
 	private final String compressionCodec;
 
+	private final int compressionLevel;
+
 	private final int maxBuffersPerChannel;
 
+	private final int sortShuffleMinParallelism;
+
 	public ResultPartitionFactory(
 		ResultPartitionManager partitionManager,
 		FileChannelManager channelManager,
@@ -77,7 +81,9 @@ public class ResultPartitionFactory {
 		boolean forcePartitionReleaseOnConsumption,
 		boolean blockingShuffleCompressionEnabled,
 		String compressionCodec,
-		int maxBuffersPerChannel) {
+		int compressionLevel,
+		int maxBuffersPerChannel,
+		int sortShuffleMinParallelism) {
 
 		this.partitionManager = partitionManager;
 		this.channelManager = channelManager;
@@ -89,7 +95,9 @@ public class ResultPartitionFactory {
 		this.forcePartitionReleaseOnConsumption = forcePartitionReleaseOnConsumption;
 		this.blockingShuffleCompressionEnabled = blockingShuffleCompressionEnabled;
 		this.compressionCodec = compressionCodec;
+		this.compressionLevel = compressionLevel;
 		this.maxBuffersPerChannel = maxBuffersPerChannel;
+		this.sortShuffleMinParallelism = sortShuffleMinParallelism;
 	}
 
 	public ResultPartition create(
@@ -117,12 +125,13 @@ public class ResultPartitionFactory {
 			FunctionWithException<BufferPoolOwner, BufferPool, IOException> bufferPoolFactory) {
 		BufferCompressor bufferCompressor = null;
 		if (type.isBlocking() && blockingShuffleCompressionEnabled) {
-			bufferCompressor = new BufferCompressor(networkBufferSize, compressionCodec);
+			bufferCompressor = new BufferCompressor(networkBufferSize, compressionCodec, compressionLevel);
 		}
 
 		ResultSubpartition[] subpartitions = new ResultSubpartition[numberOfSubpartitions];
-		ResultPartition partition = forcePartitionReleaseOnConsumption || !type.isBlocking()
-			? new ReleaseOnConsumptionResultPartition(
+		ResultPartition partition;
+		if (forcePartitionReleaseOnConsumption || !type.isBlocking()) {
+			partition = new ReleaseOnConsumptionResultPartition(
 				taskNameWithSubtaskAndId,
 				partitionIndex,
 				id,
@@ -131,8 +140,9 @@ public class ResultPartitionFactory {
 				maxParallelism,
 				partitionManager,
 				bufferCompressor,
-				bufferPoolFactory)
-			: new ResultPartition(
+				bufferPoolFactory);
+		} else if (numberOfSubpartitions >= sortShuffleMinParallelism) {
+			SortMergeResultPartition sortMergePartition = new SortMergeResultPartition(
 				taskNameWithSubtaskAndId,
 				partitionIndex,
 				id,
@@ -140,8 +150,29 @@ public class ResultPartitionFactory {
 				subpartitions,
 				maxParallelism,
 				partitionManager,
+				channelManager.createChannel().getPath(),
+				networkBufferSize,
 				bufferCompressor,
 				bufferPoolFactory);
+			for (int i = 0; i < subpartitions.length; i++) {
+				subpartitions[i] = new SortMergeSubpartition(i, sortMergePartition);
+			}
+
+			LOG.debug("{}: Initialized {}", taskNameWithSubtaskAndId, this);
+
+			return sortMergePartition;
+		} else {
+			partition = new ResultPartition(
+				taskNameWithSubtaskAndId,
+				partitionIndex,
+				id,
+				type,
+				subpartitions,
+				maxParallelism,
+				partitionManager,
+				bufferCompressor,
+				bufferPoolFactory);
+		}
 
 		createSubpartitions(partition, type, blockingSubpartitionType, subpartitions);
 
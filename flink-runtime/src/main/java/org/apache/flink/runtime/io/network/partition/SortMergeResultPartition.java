@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.BufferPoolOwner;
+import org.apache.flink.util.function.FunctionWithException;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A blocking {@link ResultPartition} which writes the data of all its subpartitions into a single
+ * {@link PartitionedFile}, instead of one file per subpartition like the {@link BoundedBlockingSubpartition}.
+ * This keeps the number of files and the random I/O of a large shuffle low.
+ *
+ * <p>Finished buffers of all subpartitions are kept in memory, grouped by subpartition index. Once the
+ * buffered data takes up half of the buffer pool, the buffer pool runs out of buffers, or the buffer pool
+ * asks this partition to release memory, the buffered data is written as a new region into the data file,
+ * in the order of the subpartition index, and the buffers are recycled. Readers read the data of their
+ * subpartition region by region, sequentially.
+ *
+ * <p>Buffers are requested without a target channel, because the buffered data of a single subpartition
+ * may exceed the per channel limit of the buffer pool.
+ *
+ * <h2>Important Notes on Thread Safety</h2>
+ *
+ * <p>Data is written by a single task thread, which also writes the buffered data to the file. The memory
+ * release callback of the buffer pool may be called from other threads while they hold the locks of the
+ * buffer pools, so it only requests the task thread to write the buffered data, instead of doing the I/O
+ * and the compression itself. The buffered data and the file writer are guarded by a lock, because the
+ * partition may be released concurrently. Buffers are always recycled outside of that lock, because the
+ * buffer pool calls back into this partition while holding its own lock.
+ */
+public class SortMergeResultPartition extends ResultPartition {
+
+	/** Fraction of the buffers of the buffer pool which may hold buffered data before it is written. */
+	private static final double SPILL_THRESHOLD_FRACTION = 0.5;
+
+	private final Object lock = new Object();
+
+	/** Base path of the data and index file of this partition. */
+	private final String resultFileBasePath;
+
+	/** Size of the buffers used to read the result file. */
+	private final int networkBufferSize;
+
+	/** The buffered data of each subpartition, which is not yet written to the file. */
+	@GuardedBy("lock")
+	private final ArrayDeque<Buffer>[] sortBuffers;
+
+	@GuardedBy("lock")
+	private int numBuffersInSortBuffers;
+
+	/** Writer of the result file, null before setup and after writing finished. */
+	@GuardedBy("lock")
+	@Nullable
+	private PartitionedFileWriter fileWriter;
+
+	/** The written result file, null until writing finished. */
+	@GuardedBy("lock")
+	@Nullable
+	private PartitionedFile resultFile;
+
+	/** All created and not yet released readers. */
+	@GuardedBy("lock")
+	private final Set<SortMergeSubpartitionReader> readers = new HashSet<>();
+
+	@GuardedBy("lock")
+	private boolean isResourceReleased;
+
+	/** Whether the buffer pool asked to release memory since the buffered data was written last. */
+	private volatile boolean isSpillRequested;
+
+	@SuppressWarnings("unchecked")
+	public SortMergeResultPartition(
+			String owningTaskName,
+			int partitionIndex,
+			ResultPartitionID partitionId,
+			ResultPartitionType partitionType,
+			ResultSubpartition[] subpartitions,
+			int numTargetKeyGroups,
+			ResultPartitionManager partitionManager,
+			String resultFileBasePath,
+			int networkBufferSize,
+			@Nullable BufferCompressor bufferCompressor,
+			FunctionWithException<BufferPoolOwner, BufferPool, IOException> bufferPoolFactory) {
+
+		super(
+			owningTaskName,
+			partitionIndex,
+			partitionId,
+			partitionType,
+			subpartitions,
+			numTargetKeyGroups,
+			partitionManager,
+			bufferCompressor,
+			bufferPoolFactory);
+
+		checkState(partitionType.isBlocking(), "Sort-merge shuffle only supports blocking partitions.");
+
+		this.resultFileBasePath = checkNotNull(resultFileBasePath);
+		this.networkBufferSize = networkBufferSize;
+		this.sortBuffers = new ArrayDeque[subpartitions.length];
+		for (int i = 0; i < subpartitions.length; i++) {
+			sortBuffers[i] = new ArrayDeque<>();
+		}
+	}
+
+	@Override
+	public void setup() throws IOException {
+		super.setup();
+
+		synchronized (lock) {
+			fileWriter = new PartitionedFileWriter(resultFileBasePath, getNumberOfSubpartitions());
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public BufferBuilder getBufferBuilder(int targetChannel) throws IOException, InterruptedException {
+		checkInProduceState();
+
+		BufferBuilder bufferBuilder = tryGetBufferBuilder(targetChannel);
+		if (bufferBuilder != null) {
+			return bufferBuilder;
+		}
+		return getBufferPool().requestBufferBuilderBlocking();
+	}
+
+	@Override
+	public BufferBuilder tryGetBufferBuilder(int targetChannel) throws IOException {
+		BufferBuilder bufferBuilder = getBufferPool().requestBufferBuilder();
+		if (bufferBuilder == null) {
+			// the buffered data holds the buffers of the pool, waiting would never return
+			spillSortBuffers();
+			bufferBuilder = getBufferPool().requestBufferBuilder();
+		}
+		return bufferBuilder;
+	}
+
+	/**
+	 * Takes over a finished buffer of the given subpartition. Writes the buffered data to the file if it
+	 * exceeds the spill threshold or the buffer pool asked to release memory.
+	 */
+	void addFinishedBuffer(Buffer buffer, int subpartitionIndex) throws IOException {
+		boolean isAdded = false;
+		boolean spill = false;
+		synchronized (lock) {
+			if (!isResourceReleased) {
+				sortBuffers[subpartitionIndex].add(buffer);
+				numBuffersInSortBuffers++;
+				isAdded = true;
+				spill = isSpillRequested ||
+					numBuffersInSortBuffers >= getBufferPool().getNumBuffers() * SPILL_THRESHOLD_FRACTION;
+			}
+		}
+
+		if (!isAdded) {
+			buffer.recycleBuffer();
+		} else if (spill) {
+			spillSortBuffers();
+		}
+	}
+
+	/**
+	 * Requests the task thread to write the buffered data into the result file, to return the buffers to
+	 * the buffer pool. This is called by the buffer pool while it holds its lock, and possibly the lock of
+	 * the global buffer pool, so it must not write or compress any data itself.
+	 */
+	@Override
+	public void releaseMemory(int toRelease) {
+		isSpillRequested = true;
+	}
+
+	/**
+	 * Writes all buffered data into the result file and recycles the buffers. Only called by the task thread.
+	 */
+	private void spillSortBuffers() throws IOException {
+		isSpillRequested = false;
+
+		List<Buffer> toRecycle = new ArrayList<>();
+		try {
+			synchronized (lock) {
+				if (fileWriter != null) {
+					writeSortBuffers(toRecycle);
+				}
+			}
+		} finally {
+			recycleBuffers(toRecycle);
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		// the subpartitions add their last buffers and the end of partition events
+		super.finish();
+
+		List<Buffer> toRecycle = new ArrayList<>();
+		try {
+			synchronized (lock) {
+				checkState(!isResourceReleased, "Partition already released.");
+				checkState(fileWriter != null, "Partition is not set up.");
+
+				writeSortBuffers(toRecycle);
+				resultFile = fileWriter.finish();
+				fileWriter = null;
+
+				LOG.debug("{}: Finished writing {}.", getOwningTaskName(), resultFile);
+			}
+		} finally {
+			recycleBuffers(toRecycle);
+		}
+	}
+
+	@Override
+	public void release(Throwable cause) {
+		super.release(cause);
+
+		List<Buffer> toRecycle = new ArrayList<>();
+		synchronized (lock) {
+			if (isResourceReleased) {
+				return;
+			}
+			isResourceReleased = true;
+
+			for (ArrayDeque<Buffer> sortBuffer : sortBuffers) {
+				toRecycle.addAll(sortBuffer);
+				sortBuffer.clear();
+			}
+			numBuffersInSortBuffers = 0;
+
+			if (fileWriter != null) {
+				fileWriter.releaseQuietly();
+				fileWriter = null;
+			}
+
+			deleteResultFileIfUnused();
+		}
+		recycleBuffers(toRecycle);
+	}
+
+	// ------------------------------------------------------------------------
+
+	SortMergeSubpartitionReader createSubpartitionReader(
+			SortMergeSubpartition subpartition,
+			BufferAvailabilityListener availability) throws IOException {
+
+		synchronized (lock) {
+			checkState(!isResourceReleased, "data partition already released");
+			checkState(resultFile != null, "writing of blocking partition not yet finished");
+
+			availability.notifyDataAvailable();
+
+			final SortMergeSubpartitionReader reader = new SortMergeSubpartitionReader(
+				subpartition, resultFile, networkBufferSize, subpartition.getBuffersInBacklog(), availability);
+			readers.add(reader);
+			return reader;
+		}
+	}
+
+	void releaseReaderReference(SortMergeSubpartitionReader reader) {
+		synchronized (lock) {
+			if (readers.remove(reader)) {
+				deleteResultFileIfUnused();
+			}
+		}
+	}
+
+	@GuardedBy("lock")
+	private void deleteResultFileIfUnused() {
+		assert Thread.holdsLock(lock);
+
+		if (isResourceReleased && readers.isEmpty() && resultFile != null) {
+			resultFile.deleteQuietly();
+			resultFile = null;
+		}
+	}
+
+	/**
+	 * Writes the buffered data as a new region into the result file. The written buffers are added to the
+	 * given list and must be recycled by the caller after releasing the lock.
+	 */
+	@GuardedBy("lock")
+	private void writeSortBuffers(List<Buffer> toRecycle) throws IOException {
+		assert Thread.holdsLock(lock);
+
+		if (numBuffersInSortBuffers == 0) {
+			return;
+		}
+
+		fileWriter.startNewRegion();
+		for (int subpartitionIndex = 0; subpartitionIndex < sortBuffers.length; subpartitionIndex++) {
+			ArrayDeque<Buffer> sortBuffer = sortBuffers[subpartitionIndex];
+			Buffer buffer;
+			while ((buffer = sortBuffer.poll()) != null) {
+				numBuffersInSortBuffers--;
+				toRecycle.add(buffer);
+				writeBuffer(buffer, subpartitionIndex);
+			}
+		}
+	}
+
+	@GuardedBy("lock")
+	private void writeBuffer(Buffer buffer, int subpartitionIndex) throws IOException {
+		if (bufferCompressor != null && buffer.isBuffer() && buffer.readableBytes() > 0) {
+			Buffer compressedBuffer = bufferCompressor.compressToIntermediateBuffer(buffer);
+			try {
+				fileWriter.writeBuffer(compressedBuffer, subpartitionIndex);
+			} finally {
+				if (compressedBuffer != buffer) {
+					compressedBuffer.recycleBuffer();
+				}
+			}
+		} else {
+			fileWriter.writeBuffer(buffer, subpartitionIndex);
+		}
+	}
+
+	private static void recycleBuffers(List<Buffer> buffers) {
+		for (Buffer buffer : buffers) {
+			buffer.recycleBuffer();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SortMergeResultPartition " + partitionId.toString() + " [" + partitionType + ", "
+			+ getNumberOfSubpartitions() + " subpartitions]";
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A subpartition of a {@link SortMergeResultPartition}. It does not store any data itself, but hands
+ * every finished buffer over to the partition, which sorts the data of all subpartitions and writes it
+ * into a single file.
+ *
+ * <p>Like the {@link BoundedBlockingSubpartition}, this class assumes a single writer thread that adds
+ * buffers, flushes, and finishes the write phase.
+ */
+final class SortMergeSubpartition extends ResultSubpartition {
+
+	private final SortMergeResultPartition partition;
+
+	/** The current buffer, may be filled further over time. */
+	@Nullable
+	private BufferConsumer currentBuffer;
+
+	/** Counter for the number of data buffers (not events!) written. */
+	private int numDataBuffersWritten;
+
+	/** The counter for the number of data buffers and events. */
+	private int numBuffersAndEventsWritten;
+
+	/** The number of bytes written, before compression. */
+	private long numBytesWritten;
+
+	/** Flag indicating whether the writing has finished. */
+	private boolean isFinished;
+
+	SortMergeSubpartition(int index, SortMergeResultPartition partition) {
+		super(index, partition);
+
+		this.partition = checkNotNull(partition);
+	}
+
+	@Override
+	public boolean add(BufferConsumer bufferConsumer, boolean isPriorityEvent) throws IOException {
+		if (isFinished) {
+			bufferConsumer.close();
+			return false;
+		}
+
+		flushCurrentBuffer();
+		currentBuffer = bufferConsumer;
+		return true;
+	}
+
+	@Override
+	public void flush() {
+		// unfortunately, the signature of flush does not allow for any exceptions, so we
+		// need to do this discouraged pattern of runtime exception wrapping
+		try {
+			flushCurrentBuffer();
+		}
+		catch (IOException e) {
+			throw new FlinkRuntimeException(e.getMessage(), e);
+		}
+	}
+
+	private void flushCurrentBuffer() throws IOException {
+		if (currentBuffer != null) {
+			try {
+				addFinishedBuffer(currentBuffer.build());
+			}
+			finally {
+				currentBuffer.close();
+				currentBuffer = null;
+			}
+		}
+	}
+
+	private void addFinishedBuffer(Buffer buffer) throws IOException {
+		if (buffer.isBuffer() && buffer.readableBytes() == 0) {
+			buffer.recycleBuffer();
+			return;
+		}
+
+		numBuffersAndEventsWritten++;
+		numBytesWritten += buffer.getSize();
+		if (buffer.isBuffer()) {
+			numDataBuffersWritten++;
+		}
+
+		// the partition takes over the ownership of the buffer
+		partition.addFinishedBuffer(buffer, getSubPartitionIndex());
+	}
+
+	@Override
+	public List<Buffer> requestInflightBufferSnapshot() {
+		throw new UnsupportedOperationException("The batch job does not support unaligned checkpoint.");
+	}
+
+	@Override
+	public void finish() throws IOException {
+		checkState(!isFinished, "data partition already finished");
+
+		isFinished = true;
+		flushCurrentBuffer();
+		addFinishedBuffer(EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE));
+	}
+
+	@Override
+	public void release() {
+		// for fail fast writes
+		isFinished = true;
+
+		if (currentBuffer != null) {
+			currentBuffer.close();
+			currentBuffer = null;
+		}
+	}
+
+	@Override
+	public boolean isReleased() {
+		return partition.isReleased();
+	}
+
+	@Override
+	public ResultSubpartitionView createReadView(BufferAvailabilityListener availability) throws IOException {
+		return partition.createSubpartitionReader(this, availability);
+	}
+
+	void releaseReaderReference(SortMergeSubpartitionReader reader) {
+		onConsumedSubpartition();
+
+		partition.releaseReaderReference(reader);
+	}
+
+	// ------------------------------ legacy ----------------------------------
+
+	@Override
+	public int releaseMemory() {
+		// the data is buffered and spilled by the partition
+		return 0;
+	}
+
+	// ---------------------------- statistics --------------------------------
+
+	@Override
+	public int unsynchronizedGetNumberOfQueuedBuffers() {
+		return 0;
+	}
+
+	@Override
+	protected long getTotalNumberOfBuffers() {
+		return numBuffersAndEventsWritten;
+	}
+
+	@Override
+	protected long getTotalNumberOfBytes() {
+		return numBytesWritten;
+	}
+
+	@Override
+	int getBuffersInBacklog() {
+		return numDataBuffersWritten;
+	}
+}
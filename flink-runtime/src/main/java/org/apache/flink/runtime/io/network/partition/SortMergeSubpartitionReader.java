@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The reader (read view) of a {@link SortMergeSubpartition}, reading the data of the subpartition from
+ * the {@link PartitionedFile} of the {@link SortMergeResultPartition}.
+ */
+final class SortMergeSubpartitionReader implements ResultSubpartitionView {
+
+	/** The result subpartition that we read. */
+	private final SortMergeSubpartition parent;
+
+	/** The listener that is notified when there are available buffers for this subpartition view. */
+	private final BufferAvailabilityListener availabilityListener;
+
+	/** The next buffer (look ahead). Null once the data is depleted or reader is disposed. */
+	@Nullable
+	private Buffer nextBuffer;
+
+	/** The reader of the partitioned file. Null once the reader is disposed. */
+	@Nullable
+	private PartitionedFileReader fileReader;
+
+	/** The remaining number of data buffers (not events) in the result. */
+	private int dataBufferBacklog;
+
+	/** Flag whether this reader is released. */
+	private boolean isReleased;
+
+	SortMergeSubpartitionReader(
+			SortMergeSubpartition parent,
+			PartitionedFile partitionedFile,
+			int bufferSize,
+			int numDataBuffers,
+			BufferAvailabilityListener availabilityListener) throws IOException {
+
+		this.parent = checkNotNull(parent);
+		this.availabilityListener = checkNotNull(availabilityListener);
+
+		checkArgument(numDataBuffers >= 0);
+		this.dataBufferBacklog = numDataBuffers;
+
+		this.fileReader = new PartitionedFileReader(partitionedFile, parent.getSubPartitionIndex(), bufferSize, this);
+		try {
+			this.nextBuffer = fileReader.nextBuffer();
+		} catch (Throwable throwable) {
+			IOUtils.closeQuietly(fileReader);
+			throw throwable;
+		}
+	}
+
+	@Nullable
+	@Override
+	public BufferAndBacklog getNextBuffer() throws IOException {
+		final Buffer current = nextBuffer; // copy reference to stack
+
+		if (current == null) {
+			// as per contract, we must return null when the reader is empty,
+			// but also in case the reader is disposed (rather than throwing an exception)
+			return null;
+		}
+		if (current.isBuffer()) {
+			dataBufferBacklog--;
+		}
+
+		assert fileReader != null;
+		nextBuffer = fileReader.nextBuffer();
+
+		return BufferAndBacklog.fromBufferAndLookahead(current, nextBuffer, dataBufferBacklog);
+	}
+
+	@Override
+	public void notifyDataAvailable() {
+		if (nextBuffer == null && fileReader != null) {
+			try {
+				nextBuffer = fileReader.nextBuffer();
+			} catch (IOException ex) {
+				// this exception wrapper is only for avoiding throwing IOException explicitly
+				// in relevant interface methods
+				throw new IllegalStateException("No data available while reading", ex);
+			}
+
+			// next buffer is null indicates the end of partition
+			if (nextBuffer != null) {
+				availabilityListener.notifyDataAvailable();
+			}
+		}
+	}
+
+	@Override
+	public void releaseAllResources() throws IOException {
+		// it is not a problem if this method executes multiple times
+		isReleased = true;
+
+		IOUtils.closeQuietly(fileReader);
+
+		// nulling these fields means the read method and will fail fast
+		nextBuffer = null;
+		fileReader = null;
+
+		// Notify the parent that this one is released. This allows the parent to
+		// eventually delete the file (when all readers are done and the partition is released).
+		parent.releaseReaderReference(this);
+	}
+
+	@Override
+	public boolean isReleased() {
+		return isReleased;
+	}
+
+	@Override
+	public void resumeConsumption() {
+		throw new UnsupportedOperationException("Method should never be called.");
+	}
+
+	@Override
+	public boolean isAvailable(int numCreditsAvailable) {
+		if (numCreditsAvailable > 0) {
+			return nextBuffer != null;
+		}
+
+		return nextBuffer != null && !nextBuffer.isBuffer();
+	}
+
+	@Override
+	public Throwable getFailureCause() {
+		// we can never throw an error after this was created
+		return null;
+	}
+
+	@Override
+	public int unsynchronizedGetNumberOfQueuedBuffers() {
+		return parent.unsynchronizedGetNumberOfQueuedBuffers();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Sort-Merge Subpartition Reader: ID=%s, index=%d",
+				parent.parent.getPartitionId(),
+				parent.getSubPartitionIndex());
+	}
+}
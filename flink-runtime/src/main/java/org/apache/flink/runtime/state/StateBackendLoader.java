@@ -23,6 +23,7 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.configuration.ReadableConfig;
 import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.changelog.ChangelogStateBackend;
 import org.apache.flink.runtime.state.filesystem.FsStateBackend;
 import org.apache.flink.runtime.state.filesystem.FsStateBackendFactory;
 import org.apache.flink.runtime.state.memory.MemoryStateBackend;
@@ -55,6 +56,9 @@ public class StateBackendLoader {
 	/** The shortcut configuration name for the RocksDB State Backend */
 	public static final String ROCKSDB_STATE_BACKEND_NAME = "rocksdb";
 
+	/** The shortcut configuration name for the Spillable Heap State Backend */
+	public static final String SPILLABLE_STATE_BACKEND_NAME = "spillable";
+
 	// ------------------------------------------------------------------------
 	//  Loading the state backend from a configuration 
 	// ------------------------------------------------------------------------
@@ -69,8 +73,9 @@ public class StateBackendLoader {
 	 * {@link StateBackendFactory#createFromConfig(ReadableConfig, ClassLoader)} method is called.
 	 *
 	 * <p>Recognized shortcut names are '{@value StateBackendLoader#MEMORY_STATE_BACKEND_NAME}',
-	 * '{@value StateBackendLoader#FS_STATE_BACKEND_NAME}', and
-	 * '{@value StateBackendLoader#ROCKSDB_STATE_BACKEND_NAME}'.
+	 * '{@value StateBackendLoader#FS_STATE_BACKEND_NAME}',
+	 * '{@value StateBackendLoader#ROCKSDB_STATE_BACKEND_NAME}', and
+	 * '{@value StateBackendLoader#SPILLABLE_STATE_BACKEND_NAME}'.
 	 *
 	 * @param config The configuration to load the state backend from
 	 * @param classLoader The class loader that should be used to load the state backend
@@ -128,6 +133,12 @@ public class StateBackendLoader {
 				// fall through to the 'default' case that uses reflection to load the backend
 				// that way we can keep RocksDB in a separate module
 
+			case SPILLABLE_STATE_BACKEND_NAME:
+				if (SPILLABLE_STATE_BACKEND_NAME.equalsIgnoreCase(backendName)) {
+					factoryClassName = "org.apache.flink.runtime.state.heap.SpillableStateBackendFactory";
+				}
+				// fall through to the 'default' case, the spillable backend lives in a separate module, too
+
 			default:
 				if (logger != null) {
 					logger.info("Loading state backend via factory {}", factoryClassName);
@@ -166,6 +177,9 @@ public class StateBackendLoader {
 	 * {@link ConfigurableStateBackend}, this methods calls {@link ConfigurableStateBackend#configure(ReadableConfig, ClassLoader)}
 	 * on the state backend.
 	 *
+	 * <p>If {@link CheckpointingOptions#CHANGELOG_ENABLED} is set, the state backend is wrapped with a
+	 * {@link ChangelogStateBackend}.
+	 *
 	 * <p>Refer to {@link #loadStateBackendFromConfig(ReadableConfig, ClassLoader, Logger)} for details on
 	 * how the state backend is loaded from the configuration.
 	 *
@@ -230,6 +244,15 @@ public class StateBackendLoader {
 			}
 		}
 
+		// (4) wrap the state backend if the changelog is enabled
+		if (config.get(CheckpointingOptions.CHANGELOG_ENABLED) && !(backend instanceof ChangelogStateBackend)) {
+			final StateBackend changelogBackend = new ChangelogStateBackend(backend).configure(config, classLoader);
+			if (logger != null) {
+				logger.info("State changelog is enabled, using {}", changelogBackend);
+			}
+			return changelogBackend;
+		}
+
 		return backend;
 	}
 
@@ -47,6 +47,11 @@ class UserFacingMapState<K, V> implements MapState<K, V> {
 		return originalState.get(key);
 	}
 
+	@Override
+	public Map<K, V> getAll(Iterable<K> keys) throws Exception {
+		return originalState.getAll(keys);
+	}
+
 	@Override
 	public void put(K key, V value) throws Exception {
 		originalState.put(key, value);
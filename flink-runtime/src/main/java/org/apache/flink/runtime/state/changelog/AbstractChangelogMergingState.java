@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.runtime.state.heap.InternalKeyContext;
+import org.apache.flink.runtime.state.internal.InternalMergingState;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Base class for the changelog wrappers of merging states. Merging logs the merged value of the target namespace
+ * and clears the source namespaces.
+ *
+ * @param <K> The type of key the state is associated to
+ * @param <N> The type of the namespace
+ * @param <IN> The type of the values that are added into the state
+ * @param <SV> The type of the intermediate value kept internally in state
+ * @param <OUT> The type of the value returned from the state
+ * @param <S> Type of the wrapped state object
+ */
+abstract class AbstractChangelogMergingState<K, N, IN, SV, OUT, S extends InternalMergingState<K, N, IN, SV, OUT>>
+	extends AbstractChangelogState<K, N, SV, S>
+	implements InternalMergingState<K, N, IN, SV, OUT> {
+
+	AbstractChangelogMergingState(
+		S delegatedState,
+		String stateName,
+		InternalKeyContext<K> keyContext,
+		StateChangelogWriter changelogWriter) {
+		super(delegatedState, stateName, keyContext, changelogWriter);
+	}
+
+	@Override
+	public OUT get() throws Exception {
+		return delegatedState.get();
+	}
+
+	@Override
+	public SV getInternal() throws Exception {
+		return delegatedState.getInternal();
+	}
+
+	@Override
+	public void updateInternal(SV valueToStore) throws Exception {
+		delegatedState.updateInternal(valueToStore);
+		logInternalValue(currentNamespace, valueToStore);
+	}
+
+	@Override
+	public void mergeNamespaces(N target, Collection<N> sources) throws Exception {
+		delegatedState.mergeNamespaces(target, sources);
+		if (sources == null || sources.isEmpty()) {
+			return;
+		}
+
+		for (N source : sources) {
+			beginChange(source, CLEAR);
+			commitChange();
+		}
+
+		delegatedState.setCurrentNamespace(target);
+		try {
+			logInternalValue(target, delegatedState.getInternal());
+		} finally {
+			if (currentNamespace != null) {
+				delegatedState.setCurrentNamespace(currentNamespace);
+			}
+		}
+	}
+
+	/**
+	 * Logs the complete internal value of the given namespace of the current key.
+	 */
+	void logInternalValue(N namespace, SV value) throws IOException {
+		if (value == null) {
+			beginChange(namespace, CLEAR);
+		} else {
+			getValueSerializer().serialize(value, beginChange(namespace, SET));
+		}
+		commitChange();
+	}
+
+	@Override
+	void applyChange(byte operation, DataInputView in, TypeSerializer<SV> valueSerializer) throws Exception {
+		switch (operation) {
+			case SET:
+				delegatedState.updateInternal(valueSerializer.deserialize(in));
+				break;
+			case CLEAR:
+				delegatedState.clear();
+				break;
+			default:
+				throw new IllegalStateException("Unexpected operation " + operation + " for merging state.");
+		}
+	}
+}
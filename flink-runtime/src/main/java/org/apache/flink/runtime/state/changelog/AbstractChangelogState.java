@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.KeyedStateBackend;
+import org.apache.flink.runtime.state.heap.InternalKeyContext;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.StateMigrationException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Base class for the wrappers of state objects that log every change of the wrapped state to the changelog.
+ *
+ * <p>A change is serialized as the current key, the namespace, the operation and its arguments, and is only logged
+ * after it was successfully applied to the wrapped state. Changes through the
+ * {@link #getStateIncrementalVisitor(int) incremental visitor} are not logged. The changelog holds the snapshots of
+ * the key, namespace and value serializers of the state, in this order, which the restore checks the serializers
+ * that the state is registered with again against.
+ *
+ * @param <K> The type of key the state is associated to
+ * @param <N> The type of the namespace
+ * @param <V> The type of values kept internally in state
+ * @param <S> Type of the wrapped state object
+ */
+abstract class AbstractChangelogState<K, N, V, S extends InternalKvState<K, N, V>> implements InternalKvState<K, N, V> {
+
+	/** Sets the value of the state, serialized with the value serializer of the state. */
+	static final byte SET = 0;
+
+	/** Clears the state. */
+	static final byte CLEAR = 1;
+
+	/** Adds a single element to a list state. */
+	static final byte ADD_ELEMENT = 2;
+
+	/** Adds a list of elements to a list state. */
+	static final byte ADD_ALL = 3;
+
+	/** Puts a single mapping into a map state. */
+	static final byte PUT = 4;
+
+	/** Puts all mappings of a map into a map state. */
+	static final byte PUT_ALL = 5;
+
+	/** Removes a single mapping from a map state. */
+	static final byte REMOVE = 6;
+
+	protected final S delegatedState;
+
+	private final String stateName;
+
+	private final InternalKeyContext<K> keyContext;
+
+	private final StateChangelogWriter changelogWriter;
+
+	private final DataOutputSerializer changeBuffer;
+
+	/** The serializers whose snapshots are written to the changelog. */
+	private final Supplier<TypeSerializer<?>[]> serializers;
+
+	protected N currentNamespace;
+
+	AbstractChangelogState(
+		S delegatedState,
+		String stateName,
+		InternalKeyContext<K> keyContext,
+		StateChangelogWriter changelogWriter) {
+		this.delegatedState = delegatedState;
+		this.stateName = stateName;
+		this.keyContext = keyContext;
+		this.changelogWriter = changelogWriter;
+		this.changeBuffer = new DataOutputSerializer(128);
+		this.serializers = () -> new TypeSerializer<?>[] {getKeySerializer(), getNamespaceSerializer(), getValueSerializer()};
+	}
+
+	@Override
+	public TypeSerializer<K> getKeySerializer() {
+		return delegatedState.getKeySerializer();
+	}
+
+	@Override
+	public TypeSerializer<N> getNamespaceSerializer() {
+		return delegatedState.getNamespaceSerializer();
+	}
+
+	@Override
+	public TypeSerializer<V> getValueSerializer() {
+		return delegatedState.getValueSerializer();
+	}
+
+	@Override
+	public void setCurrentNamespace(N namespace) {
+		delegatedState.setCurrentNamespace(namespace);
+		this.currentNamespace = namespace;
+	}
+
+	@Override
+	public byte[] getSerializedValue(
+		byte[] serializedKeyAndNamespace,
+		TypeSerializer<K> safeKeySerializer,
+		TypeSerializer<N> safeNamespaceSerializer,
+		TypeSerializer<V> safeValueSerializer) throws Exception {
+		return delegatedState.getSerializedValue(
+			serializedKeyAndNamespace, safeKeySerializer, safeNamespaceSerializer, safeValueSerializer);
+	}
+
+	@Override
+	public StateIncrementalVisitor<K, N, V> getStateIncrementalVisitor(int recommendedMaxNumberOfReturnedRecords) {
+		return delegatedState.getStateIncrementalVisitor(recommendedMaxNumberOfReturnedRecords);
+	}
+
+	@Override
+	public void clear() {
+		delegatedState.clear();
+		try {
+			logChange(CLEAR);
+		} catch (IOException e) {
+			throw new FlinkRuntimeException("Could not log the change of state " + stateName + '.', e);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Changelog
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Starts logging a change of the current key and namespace. The arguments of the operation are written to
+	 * the returned view, after which the change has to be committed with {@link #commitChange()}.
+	 */
+	DataOutputView beginChange(byte operation) throws IOException {
+		return beginChange(currentNamespace, operation);
+	}
+
+	/**
+	 * Starts logging a change of the current key and the given namespace.
+	 */
+	DataOutputView beginChange(N namespace, byte operation) throws IOException {
+		changeBuffer.clear();
+		getKeySerializer().serialize(keyContext.getCurrentKey(), changeBuffer);
+		getNamespaceSerializer().serialize(namespace, changeBuffer);
+		changeBuffer.writeByte(operation);
+		return changeBuffer;
+	}
+
+	void commitChange() throws IOException {
+		changelogWriter.append(
+			StateChangelogWriter.KIND_KEY_VALUE,
+			stateName,
+			serializers,
+			keyContext.getCurrentKeyGroupIndex(),
+			changeBuffer);
+	}
+
+	/**
+	 * Logs a change of the current key and namespace without arguments.
+	 */
+	void logChange(byte operation) throws IOException {
+		beginChange(operation);
+		commitChange();
+	}
+
+	/**
+	 * Applies the given restored changes to the wrapped state, without logging them again. The changes are read with
+	 * the serializers that they were written with. No change is applied if any of the current serializers of the
+	 * state is not compatible with them.
+	 *
+	 * @param restoredChanges the serialized changes in the order they were logged
+	 * @param keyedStateBackend the backend of the wrapped state, to set the key of each change
+	 * @throws StateMigrationException if a serializer of the state is not compatible with the changelog
+	 */
+	void replayChanges(
+		List<StateChangelogReader.StateChanges> restoredChanges,
+		KeyedStateBackend<K> keyedStateBackend) throws Exception {
+
+		List<RestoredSerializers> restoredSerializers = new ArrayList<>(restoredChanges.size());
+		for (StateChangelogReader.StateChanges stateChanges : restoredChanges) {
+			restoredSerializers.add(new RestoredSerializers(stateChanges));
+		}
+
+		DataInputDeserializer in = new DataInputDeserializer();
+		for (int i = 0; i < restoredChanges.size(); i++) {
+			RestoredSerializers serializers = restoredSerializers.get(i);
+			for (byte[] change : restoredChanges.get(i).getChanges()) {
+				in.setBuffer(change);
+				keyedStateBackend.setCurrentKey(serializers.keySerializer.deserialize(in));
+				delegatedState.setCurrentNamespace(serializers.namespaceSerializer.deserialize(in));
+				applyChange(in.readByte(), in, serializers.valueSerializer);
+			}
+		}
+
+		if (currentNamespace != null) {
+			delegatedState.setCurrentNamespace(currentNamespace);
+		}
+	}
+
+	/**
+	 * Applies a single logged operation to the wrapped state, with the key and namespace already set.
+	 *
+	 * @param valueSerializer the value serializer that the operation was logged with
+	 */
+	abstract void applyChange(byte operation, DataInputView in, TypeSerializer<V> valueSerializer) throws Exception;
+
+	String getStateName() {
+		return stateName;
+	}
+
+	/**
+	 * The serializers that the changes of a segment are read with.
+	 */
+	private final class RestoredSerializers {
+
+		final TypeSerializer<K> keySerializer;
+
+		final TypeSerializer<N> namespaceSerializer;
+
+		final TypeSerializer<V> valueSerializer;
+
+		RestoredSerializers(StateChangelogReader.StateChanges stateChanges) throws StateMigrationException {
+			// like the wrapped backends, only the values of a state can be migrated
+			this.keySerializer = stateChanges.getRestoredSerializer(0, getKeySerializer(), false, "key serializer");
+			this.namespaceSerializer =
+				stateChanges.getRestoredSerializer(1, getNamespaceSerializer(), false, "namespace serializer");
+			this.valueSerializer = stateChanges.getRestoredSerializer(2, getValueSerializer(), true, "value serializer");
+		}
+	}
+}
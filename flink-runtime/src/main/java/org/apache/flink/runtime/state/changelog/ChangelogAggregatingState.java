@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.runtime.state.heap.InternalKeyContext;
+import org.apache.flink.runtime.state.internal.InternalAggregatingState;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+
+/**
+ * This class wraps aggregating state and logs its changes to the changelog. Adding a value logs the accumulator.
+ *
+ * @param <K> The type of key the state is associated to
+ * @param <N> The type of the namespace
+ * @param <IN> Type of the value added to the state
+ * @param <ACC> The type of the accumulator kept internally in state
+ * @param <OUT> Type of the value extracted from the state
+ */
+class ChangelogAggregatingState<K, N, IN, ACC, OUT>
+	extends AbstractChangelogMergingState<K, N, IN, ACC, OUT, InternalAggregatingState<K, N, IN, ACC, OUT>>
+	implements InternalAggregatingState<K, N, IN, ACC, OUT> {
+
+	ChangelogAggregatingState(
+		InternalAggregatingState<K, N, IN, ACC, OUT> delegatedState,
+		String stateName,
+		InternalKeyContext<K> keyContext,
+		StateChangelogWriter changelogWriter) {
+		super(delegatedState, stateName, keyContext, changelogWriter);
+	}
+
+	@Override
+	public void add(IN value) throws Exception {
+		delegatedState.add(value);
+		logInternalValue(currentNamespace, delegatedState.getInternal());
+	}
+
+	@SuppressWarnings("unchecked")
+	static <IN, OUT, K, N, SV, S extends State, IS extends S> IS create(
+		InternalKvState<K, N, SV> delegatedState,
+		String stateName,
+		InternalKeyContext<K> keyContext,
+		StateChangelogWriter changelogWriter) {
+		return (IS) new ChangelogAggregatingState<>((InternalAggregatingState<K, N, IN, SV, OUT>) delegatedState, stateName, keyContext, changelogWriter);
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.Keyed;
+import org.apache.flink.runtime.state.PriorityComparable;
+import org.apache.flink.runtime.state.heap.HeapPriorityQueueElement;
+import org.apache.flink.util.CloseableIterator;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.StateMigrationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * This class wraps a priority queue state, e.g. of timers, and logs the added and removed elements to the changelog.
+ *
+ * @param <T> type of the queue elements.
+ */
+class ChangelogKeyGroupedPriorityQueue<T extends HeapPriorityQueueElement & PriorityComparable & Keyed>
+	implements KeyGroupedInternalPriorityQueue<T> {
+
+	/** Adds an element to the queue. */
+	private static final byte ADD = 0;
+
+	/** Removes an element from the queue. */
+	private static final byte REMOVE = 1;
+
+	private final KeyGroupedInternalPriorityQueue<T> delegatedQueue;
+
+	private final String stateName;
+
+	private final TypeSerializer<T> elementSerializer;
+
+	private final int numberOfKeyGroups;
+
+	private final StateChangelogWriter changelogWriter;
+
+	private final DataOutputSerializer changeBuffer;
+
+	/** The serializers whose snapshots are written to the changelog. */
+	private final Supplier<TypeSerializer<?>[]> serializers;
+
+	ChangelogKeyGroupedPriorityQueue(
+		KeyGroupedInternalPriorityQueue<T> delegatedQueue,
+		String stateName,
+		TypeSerializer<T> elementSerializer,
+		int numberOfKeyGroups,
+		StateChangelogWriter changelogWriter) {
+		this.delegatedQueue = delegatedQueue;
+		this.stateName = stateName;
+		this.elementSerializer = elementSerializer;
+		this.numberOfKeyGroups = numberOfKeyGroups;
+		this.changelogWriter = changelogWriter;
+		this.changeBuffer = new DataOutputSerializer(64);
+		this.serializers = () -> new TypeSerializer<?>[] {elementSerializer};
+	}
+
+	@Nullable
+	@Override
+	public T poll() {
+		T polled = delegatedQueue.poll();
+		if (polled != null) {
+			logChange(REMOVE, polled);
+		}
+		return polled;
+	}
+
+	@Nullable
+	@Override
+	public T peek() {
+		return delegatedQueue.peek();
+	}
+
+	@Override
+	public boolean add(@Nonnull T toAdd) {
+		boolean headChanged = delegatedQueue.add(toAdd);
+		logChange(ADD, toAdd);
+		return headChanged;
+	}
+
+	@Override
+	public boolean remove(@Nonnull T toRemove) {
+		boolean headChanged = delegatedQueue.remove(toRemove);
+		logChange(REMOVE, toRemove);
+		return headChanged;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return delegatedQueue.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return delegatedQueue.size();
+	}
+
+	@Override
+	public void addAll(@Nullable Collection<? extends T> toAdd) {
+		delegatedQueue.addAll(toAdd);
+		if (toAdd != null) {
+			for (T element : toAdd) {
+				logChange(ADD, element);
+			}
+		}
+	}
+
+	@Nonnull
+	@Override
+	public CloseableIterator<T> iterator() {
+		return delegatedQueue.iterator();
+	}
+
+	@Nonnull
+	@Override
+	public Set<T> getSubsetForKeyGroup(int keyGroupId) {
+		return delegatedQueue.getSubsetForKeyGroup(keyGroupId);
+	}
+
+	private void logChange(byte operation, T element) {
+		try {
+			changeBuffer.clear();
+			changeBuffer.writeByte(operation);
+			elementSerializer.serialize(element, changeBuffer);
+			changelogWriter.append(
+				StateChangelogWriter.KIND_PRIORITY_QUEUE,
+				stateName,
+				serializers,
+				KeyGroupRangeAssignment.assignToKeyGroup(element.getKey(), numberOfKeyGroups),
+				changeBuffer);
+		} catch (IOException e) {
+			throw new FlinkRuntimeException("Could not log the change of priority queue " + stateName + '.', e);
+		}
+	}
+
+	/**
+	 * Applies the given restored changes to the wrapped queue, without logging them again. The changes are read with
+	 * the element serializer that they were written with. No change is applied if the current element serializer is
+	 * not compatible with it.
+	 *
+	 * @throws StateMigrationException if the element serializer is not compatible with the changelog
+	 */
+	void replayChanges(List<StateChangelogReader.StateChanges> restoredChanges) throws IOException, StateMigrationException {
+		List<TypeSerializer<T>> restoredSerializers = new ArrayList<>(restoredChanges.size());
+		for (StateChangelogReader.StateChanges stateChanges : restoredChanges) {
+			restoredSerializers.add(stateChanges.getRestoredSerializer(0, elementSerializer, true, "element serializer"));
+		}
+
+		DataInputDeserializer in = new DataInputDeserializer();
+		for (int i = 0; i < restoredChanges.size(); i++) {
+			TypeSerializer<T> restoredSerializer = restoredSerializers.get(i);
+			for (byte[] change : restoredChanges.get(i).getChanges()) {
+				in.setBuffer(change);
+				byte operation = in.readByte();
+				T element = restoredSerializer.deserialize(in);
+				if (operation == ADD) {
+					delegatedQueue.add(element);
+				} else if (operation == REMOVE) {
+					delegatedQueue.remove(element);
+				} else {
+					throw new IllegalStateException("Unexpected operation " + operation + " for priority queue.");
+				}
+			}
+		}
+	}
+}
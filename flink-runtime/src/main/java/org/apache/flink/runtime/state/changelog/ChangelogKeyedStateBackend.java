@@ -0,0 +1,586 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.AggregatingStateDescriptor;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.CheckpointType;
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AsyncSnapshotCallable;
+import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.runtime.state.Keyed;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.PriorityComparable;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTransformFactory;
+import org.apache.flink.runtime.state.StateUtil;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.heap.HeapPriorityQueueElement;
+import org.apache.flink.runtime.state.heap.InternalKeyContext;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.Preconditions;
+import org.apache.flink.util.StateMigrationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A keyed state backend that wraps another keyed state backend and logs all changes of its keyed state to a
+ * changelog. The changelog is uploaded continuously to the checkpoint storage by a {@link StateChangelogWriter},
+ * so that a checkpoint only has to upload the tail of the changelog.
+ *
+ * <p>The wrapped backend is materialized periodically in the background: when a checkpoint is taken and the
+ * materialization interval has passed, the synchronous part of a full snapshot of the wrapped backend is taken
+ * on the task thread and its asynchronous part runs in the background. Once it completes, later checkpoints
+ * reference the materialized snapshot plus the changelog since the start of the materialization, and the older
+ * changelog segments are dropped. Dropped segments and replaced materializations that a pending checkpoint
+ * references are only discarded once that checkpoint is aborted, and the ones that a completed checkpoint
+ * references are owned by the checkpoint.
+ *
+ * <p>On restore, the wrapped backend is restored from the materialized snapshots and the changes from the
+ * changelog are kept in serialized form until the state they belong to is registered again, when they are
+ * replayed onto the wrapped state. The backend does not materialize as long as there are restored changes that
+ * were not replayed yet.
+ *
+ * @param <K> The key by which state is keyed.
+ */
+public class ChangelogKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ChangelogKeyedStateBackend.class);
+
+	/**
+	 * Materializations take full snapshots of the wrapped backend, like savepoints, so that every materialization
+	 * is self-contained and does not depend on the checkpoints of the wrapped backend.
+	 */
+	private static final CheckpointOptions MATERIALIZATION_OPTIONS =
+		new CheckpointOptions(CheckpointType.SAVEPOINT, CheckpointStorageLocationReference.getDefault());
+
+	private static final Map<Class<? extends StateDescriptor>, StateFactory> STATE_FACTORIES =
+		Stream.of(
+			Tuple2.of(ValueStateDescriptor.class, (StateFactory) ChangelogValueState::create),
+			Tuple2.of(ListStateDescriptor.class, (StateFactory) ChangelogListState::create),
+			Tuple2.of(MapStateDescriptor.class, (StateFactory) ChangelogMapState::create),
+			Tuple2.of(AggregatingStateDescriptor.class, (StateFactory) ChangelogAggregatingState::create),
+			Tuple2.of(ReducingStateDescriptor.class, (StateFactory) ChangelogReducingState::create)
+		).collect(Collectors.toMap(t -> t.f0, t -> t.f1));
+
+	/** The wrapped backend that holds the actual state. */
+	private final AbstractKeyedStateBackend<K> delegatedBackend;
+
+	/** UUID to identify this backend in the ids of the changelog segments and materializations. */
+	private final UUID backendIdentifier;
+
+	private final StateChangelogWriter changelogWriter;
+
+	/** Writes all streams of the materializations to the shared scope, because many checkpoints reference them. */
+	private final CheckpointStreamFactory materializationStreamFactory;
+
+	/** The thread that uploads the changelog segments. */
+	private final ExecutorService uploadExecutor;
+
+	/** The thread that runs the asynchronous part of the materializations. */
+	private final ExecutorService materializationExecutor;
+
+	private final long materializationInterval;
+
+	/** Restored changes of key/value states that were not registered again yet, by state name. */
+	private final Map<String, List<StateChangelogReader.StateChanges>> restoredKeyValueStateChanges;
+
+	/** Restored changes of priority queue states that were not registered again yet, by state name. */
+	private final Map<String, List<StateChangelogReader.StateChanges>> restoredPriorityQueueStateChanges;
+
+	/** The materialization that completed in the background, to be picked up by the next checkpoint. */
+	private final AtomicReference<Materialization> completedMaterialization;
+
+	/** The materialized state that checkpoints reference. */
+	private MaterializedState materializedState;
+
+	/** Replaced materialized states that are only referenced by pending checkpoints, discarded if these abort. */
+	private final List<MaterializedState> replacedMaterializedStates;
+
+	private boolean materializationInProgress;
+
+	private long lastMaterializationTime;
+
+	private long materializationCounter;
+
+	public ChangelogKeyedStateBackend(
+		TaskKvStateRegistry kvStateRegistry,
+		TypeSerializer<K> keySerializer,
+		ClassLoader userCodeClassLoader,
+		ExecutionConfig executionConfig,
+		TtlTimeProvider ttlTimeProvider,
+		CloseableRegistry cancelStreamRegistry,
+		InternalKeyContext<K> keyContext,
+		AbstractKeyedStateBackend<K> delegatedBackend,
+		CheckpointStreamFactory changelogStreamFactory,
+		long materializationInterval,
+		long uploadThreshold,
+		Map<StateHandleID, KeyGroupsStateHandle> restoredMaterializedState,
+		LinkedHashMap<StateHandleID, StreamStateHandle> restoredChangelog,
+		StateChangelogReader restoredChanges) {
+		super(
+			kvStateRegistry,
+			keySerializer,
+			userCodeClassLoader,
+			executionConfig,
+			ttlTimeProvider,
+			cancelStreamRegistry,
+			keyContext);
+
+		Preconditions.checkArgument(materializationInterval >= 0, "The materialization interval must not be negative.");
+		this.delegatedBackend = Preconditions.checkNotNull(delegatedBackend);
+		this.backendIdentifier = UUID.randomUUID();
+		this.materializationStreamFactory = scope -> changelogStreamFactory.createCheckpointStateOutputStream(
+			CheckpointedStateScope.SHARED);
+		this.uploadExecutor = Executors.newSingleThreadExecutor(
+			new ExecutorThreadFactory("changelog-upload-" + backendIdentifier));
+		this.materializationExecutor = Executors.newSingleThreadExecutor(
+			new ExecutorThreadFactory("changelog-materialization-" + backendIdentifier));
+		this.changelogWriter = new StateChangelogWriter(
+			backendIdentifier, changelogStreamFactory, uploadExecutor, uploadThreshold);
+		this.materializationInterval = materializationInterval;
+		this.completedMaterialization = new AtomicReference<>();
+
+		for (Map.Entry<StateHandleID, StreamStateHandle> segment : restoredChangelog.entrySet()) {
+			changelogWriter.addRestoredSegment(segment.getKey(), segment.getValue());
+		}
+		this.restoredKeyValueStateChanges = new HashMap<>(restoredChanges.getKeyValueStateChanges());
+		this.restoredKeyValueStateChanges.values().removeIf(List::isEmpty);
+		this.restoredPriorityQueueStateChanges = new HashMap<>(restoredChanges.getPriorityQueueStateChanges());
+		this.restoredPriorityQueueStateChanges.values().removeIf(List::isEmpty);
+
+		// the restored state is owned by the checkpoint it was restored from
+		this.materializedState = new MaterializedState(
+			new HashMap<>(restoredMaterializedState), new CheckpointReferences(true));
+		this.replacedMaterializedStates = new ArrayList<>();
+		this.materializationInProgress = false;
+		this.lastMaterializationTime = System.currentTimeMillis();
+		this.materializationCounter = 0L;
+	}
+
+	@Override
+	public void setCurrentKey(K newKey) {
+		super.setCurrentKey(newKey);
+		delegatedBackend.setCurrentKey(newKey);
+	}
+
+	@Override
+	public <N> Stream<K> getKeys(String state, N namespace) {
+		return delegatedBackend.getKeys(state, namespace);
+	}
+
+	@Override
+	@Nonnull
+	@SuppressWarnings("unchecked")
+	public <N, SV, SEV, S extends State, IS extends S> IS createInternalState(
+		@Nonnull TypeSerializer<N> namespaceSerializer,
+		@Nonnull StateDescriptor<S, SV> stateDesc,
+		@Nonnull StateSnapshotTransformFactory<SEV> snapshotTransformFactory) throws Exception {
+		StateFactory stateFactory = STATE_FACTORIES.get(stateDesc.getClass());
+		if (stateFactory == null) {
+			String message = String.format("State %s is not supported by %s",
+				stateDesc.getClass(), this.getClass());
+			throw new FlinkRuntimeException(message);
+		}
+
+		S delegatedState = delegatedBackend.createInternalState(
+			namespaceSerializer, stateDesc, snapshotTransformFactory);
+		IS state = stateFactory.createState(
+			(InternalKvState<K, N, SV>) delegatedState, stateDesc.getName(), keyContext, changelogWriter);
+
+		// the restored changes are only dropped once they are replayed, they are not replayed if the serializers
+		// of the state are incompatible
+		List<StateChangelogReader.StateChanges> restoredChanges = restoredKeyValueStateChanges.get(stateDesc.getName());
+		if (restoredChanges != null) {
+			try {
+				((AbstractChangelogState<K, N, SV, ?>) state).replayChanges(restoredChanges, delegatedBackend);
+			} finally {
+				restoreCurrentKeyOfDelegatedBackend();
+			}
+			restoredKeyValueStateChanges.remove(stateDesc.getName());
+		}
+		return state;
+	}
+
+	@Nonnull
+	@Override
+	public <T extends HeapPriorityQueueElement & PriorityComparable & Keyed> KeyGroupedInternalPriorityQueue<T> create(
+		@Nonnull String stateName,
+		@Nonnull TypeSerializer<T> byteOrderedElementSerializer) {
+		KeyGroupedInternalPriorityQueue<T> delegatedQueue =
+			delegatedBackend.create(stateName, byteOrderedElementSerializer);
+		if (delegatedBackend.requiresLegacySynchronousTimerSnapshots()) {
+			// such queues are completely written to the raw keyed state with every checkpoint
+			return delegatedQueue;
+		}
+
+		ChangelogKeyGroupedPriorityQueue<T> queue = new ChangelogKeyGroupedPriorityQueue<>(
+			delegatedQueue, stateName, byteOrderedElementSerializer, numberOfKeyGroups, changelogWriter);
+
+		List<StateChangelogReader.StateChanges> restoredChanges = restoredPriorityQueueStateChanges.get(stateName);
+		if (restoredChanges != null) {
+			try {
+				queue.replayChanges(restoredChanges);
+			} catch (IOException | StateMigrationException e) {
+				throw new FlinkRuntimeException("Could not replay the changelog of priority queue " + stateName + '.', e);
+			}
+			restoredPriorityQueueStateChanges.remove(stateName);
+		}
+		return queue;
+	}
+
+	private void restoreCurrentKeyOfDelegatedBackend() {
+		K currentKey = getCurrentKey();
+		if (currentKey != null) {
+			delegatedBackend.setCurrentKey(currentKey);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Snapshot and materialization
+	// ------------------------------------------------------------------------
+
+	@Nonnull
+	@Override
+	public RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshot(
+		final long checkpointId,
+		final long timestamp,
+		@Nonnull final CheckpointStreamFactory streamFactory,
+		@Nonnull CheckpointOptions checkpointOptions) throws Exception {
+
+		if (checkpointOptions.getCheckpointType().isSavepoint()) {
+			// savepoints are self-contained snapshots in the format of the wrapped backend
+			return delegatedBackend.snapshot(checkpointId, timestamp, streamFactory, checkpointOptions);
+		}
+
+		applyCompletedMaterialization();
+		maybeTriggerMaterialization(checkpointId, timestamp);
+
+		final List<StateChangelogWriter.Segment> segments = changelogWriter.snapshot(checkpointId);
+		final Map<StateHandleID, KeyGroupsStateHandle> materializedSnapshot =
+			new HashMap<>(materializedState.stateHandles);
+		materializedState.references.addPendingCheckpoint(checkpointId);
+
+		AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>> asyncSnapshotCallable =
+			new AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>>() {
+				@Override
+				protected SnapshotResult<KeyedStateHandle> callInternal() throws Exception {
+					// only waits for the uploads of the changelog segments that are still in progress
+					LinkedHashMap<StateHandleID, StreamStateHandle> changelog = new LinkedHashMap<>();
+					for (StateChangelogWriter.Segment segment : segments) {
+						changelog.put(segment.id, segment.stateHandle.get());
+					}
+
+					if (materializedSnapshot.isEmpty() && changelog.isEmpty()) {
+						return SnapshotResult.empty();
+					}
+
+					return SnapshotResult.of(new ChangelogStateBackendHandle(
+						backendIdentifier,
+						keyGroupRange,
+						materializedSnapshot,
+						changelog));
+				}
+
+				@Override
+				protected void cleanupProvidedResources() {
+				}
+
+				@Override
+				protected void logAsyncSnapshotComplete(long startTime) {
+					LOG.debug("Asynchronous changelog snapshot of checkpoint {} took {} ms.",
+						checkpointId, System.currentTimeMillis() - startTime);
+				}
+			};
+
+		return asyncSnapshotCallable.toAsyncSnapshotFutureTask(cancelStreamRegistry);
+	}
+
+	/**
+	 * Replaces the materialized state with the materialization that completed in the background, if any, and drops
+	 * the changelog segments that it contains.
+	 */
+	private void applyCompletedMaterialization() {
+		Materialization materialization = completedMaterialization.getAndSet(null);
+		if (materialization == null) {
+			return;
+		}
+
+		materializationInProgress = false;
+		if (materialization.failure != null) {
+			LOG.warn("Materialization of the state backend failed, retrying after the materialization interval.",
+				materialization.failure);
+			return;
+		}
+
+		if (!materializedState.references.isReferenced()) {
+			discardMaterializedState(materializedState.stateHandles);
+		} else if (!materializedState.references.isConfirmed()) {
+			replacedMaterializedStates.add(materializedState);
+		}
+		materializedState = new MaterializedState(materialization.materializedState, new CheckpointReferences(false));
+		changelogWriter.truncate(materialization.sequenceNumber);
+	}
+
+	private void maybeTriggerMaterialization(long checkpointId, long timestamp) throws Exception {
+		final long now = System.currentTimeMillis();
+		if (materializationInProgress || now - lastMaterializationTime < materializationInterval) {
+			return;
+		}
+
+		if (!restoredKeyValueStateChanges.isEmpty() || !restoredPriorityQueueStateChanges.isEmpty()) {
+			LOG.debug("Skipping materialization, because the restored changes of the states {} and {} were not " +
+				"replayed yet.", restoredKeyValueStateChanges.keySet(), restoredPriorityQueueStateChanges.keySet());
+			return;
+		}
+
+		// all changes before this sequence number are contained in the materialization
+		final long sequenceNumber = changelogWriter.seal();
+		final StateHandleID materializationId =
+			new StateHandleID(backendIdentifier + "-materialization-" + materializationCounter++);
+		final RunnableFuture<SnapshotResult<KeyedStateHandle>> materializationFuture = delegatedBackend.snapshot(
+			checkpointId, timestamp, materializationStreamFactory, MATERIALIZATION_OPTIONS);
+
+		materializationInProgress = true;
+		lastMaterializationTime = now;
+		materializationExecutor.execute(() -> completedMaterialization.set(
+			materialize(materializationId, sequenceNumber, materializationFuture)));
+	}
+
+	private static Materialization materialize(
+		StateHandleID materializationId,
+		long sequenceNumber,
+		RunnableFuture<SnapshotResult<KeyedStateHandle>> materializationFuture) {
+		try {
+			SnapshotResult<KeyedStateHandle> snapshotResult = FutureUtils.runIfNotDoneAndGet(materializationFuture);
+			KeyedStateHandle stateHandle = snapshotResult == null ? null : snapshotResult.getJobManagerOwnedSnapshot();
+			if (stateHandle == null) {
+				return new Materialization(sequenceNumber, Collections.emptyMap(), null);
+			}
+
+			if (!(stateHandle instanceof KeyGroupsStateHandle)) {
+				stateHandle.discardState();
+				throw new IllegalStateException("Unsupported materialized state " + stateHandle.getClass() +
+					", the wrapped backend must create full snapshots for savepoints.");
+			}
+
+			return new Materialization(
+				sequenceNumber,
+				Collections.singletonMap(materializationId, (KeyGroupsStateHandle) stateHandle),
+				null);
+		} catch (Throwable t) {
+			return new Materialization(sequenceNumber, null, t);
+		}
+	}
+
+	private static void discardMaterializedState(Map<StateHandleID, KeyGroupsStateHandle> materializedState) {
+		try {
+			StateUtil.bestEffortDiscardAllStateObjects(materializedState.values());
+		} catch (Exception e) {
+			LOG.warn("Could not discard the materialized state {}.", materializedState, e);
+		}
+	}
+
+	@Override
+	public void notifyCheckpointComplete(long checkpointId) throws Exception {
+		materializedState.references.notifyCheckpointComplete(checkpointId);
+		for (MaterializedState replacedMaterializedState : replacedMaterializedStates) {
+			replacedMaterializedState.references.notifyCheckpointComplete(checkpointId);
+		}
+		discardUnreferencedReplacedMaterializedStates();
+		changelogWriter.notifyCheckpointComplete(checkpointId);
+		delegatedBackend.notifyCheckpointComplete(checkpointId);
+	}
+
+	@Override
+	public void notifyCheckpointAborted(long checkpointId) throws Exception {
+		materializedState.references.notifyCheckpointAborted(checkpointId);
+		for (MaterializedState replacedMaterializedState : replacedMaterializedStates) {
+			replacedMaterializedState.references.notifyCheckpointAborted(checkpointId);
+		}
+		discardUnreferencedReplacedMaterializedStates();
+		changelogWriter.notifyCheckpointAborted(checkpointId);
+		delegatedBackend.notifyCheckpointAborted(checkpointId);
+	}
+
+	/**
+	 * Discards the replaced materialized states whose pending checkpoints were all aborted or subsumed, and forgets
+	 * the ones that are owned by a completed checkpoint.
+	 */
+	private void discardUnreferencedReplacedMaterializedStates() {
+		Iterator<MaterializedState> iterator = replacedMaterializedStates.iterator();
+		while (iterator.hasNext()) {
+			MaterializedState replacedMaterializedState = iterator.next();
+			if (!replacedMaterializedState.references.isReferenced()) {
+				discardMaterializedState(replacedMaterializedState.stateHandles);
+				iterator.remove();
+			} else if (replacedMaterializedState.references.isConfirmed()) {
+				iterator.remove();
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Lifecycle
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void dispose() {
+		super.dispose();
+
+		uploadExecutor.shutdownNow();
+		materializationExecutor.shutdownNow();
+		changelogWriter.close();
+
+		Materialization materialization = completedMaterialization.getAndSet(null);
+		if (materialization != null && materialization.failure == null) {
+			discardMaterializedState(materialization.materializedState);
+		}
+		// the state of pending checkpoints is left to these checkpoints
+		if (!materializedState.references.isReferenced()) {
+			discardMaterializedState(materializedState.stateHandles);
+		}
+
+		delegatedBackend.dispose();
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		delegatedBackend.close();
+	}
+
+	@Override
+	public int numKeyValueStateEntries() {
+		return delegatedBackend.numKeyValueStateEntries();
+	}
+
+	@Override
+	public boolean supportsAsynchronousSnapshots() {
+		return true;
+	}
+
+	@Override
+	public boolean requiresLegacySynchronousTimerSnapshots() {
+		return delegatedBackend.requiresLegacySynchronousTimerSnapshots();
+	}
+
+	@VisibleForTesting
+	AbstractKeyedStateBackend<K> getDelegatedBackend() {
+		return delegatedBackend;
+	}
+
+	@VisibleForTesting
+	Map<StateHandleID, KeyGroupsStateHandle> getMaterializedState() {
+		return materializedState.stateHandles;
+	}
+
+	@Override
+	public String toString() {
+		return "ChangelogKeyedStateBackend{delegatedBackend=" + delegatedBackend + '}';
+	}
+
+	/**
+	 * The result of a materialization.
+	 */
+	private static final class Materialization {
+
+		/** All changes before this sequence number are contained in the materialized state. */
+		final long sequenceNumber;
+
+		@Nullable
+		final Map<StateHandleID, KeyGroupsStateHandle> materializedState;
+
+		@Nullable
+		final Throwable failure;
+
+		Materialization(
+			long sequenceNumber,
+			@Nullable Map<StateHandleID, KeyGroupsStateHandle> materializedState,
+			@Nullable Throwable failure) {
+			this.sequenceNumber = sequenceNumber;
+			this.materializedState = materializedState;
+			this.failure = failure;
+		}
+	}
+
+	/**
+	 * A materialized state together with the checkpoints that reference it.
+	 */
+	private static final class MaterializedState {
+
+		final Map<StateHandleID, KeyGroupsStateHandle> stateHandles;
+
+		final CheckpointReferences references;
+
+		MaterializedState(Map<StateHandleID, KeyGroupsStateHandle> stateHandles, CheckpointReferences references) {
+			this.stateHandles = stateHandles;
+			this.references = references;
+		}
+	}
+
+	private interface StateFactory {
+		<K, N, SV, S extends State, IS extends S> IS createState(
+			InternalKvState<K, N, SV> delegatedState,
+			String stateName,
+			InternalKeyContext<K> keyContext,
+			StateChangelogWriter changelogWriter) throws Exception;
+	}
+}
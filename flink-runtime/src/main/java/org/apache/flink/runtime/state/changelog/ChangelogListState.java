@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.ListSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.runtime.state.heap.InternalKeyContext;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.runtime.state.internal.InternalListState;
+
+import java.util.List;
+
+/**
+ * This class wraps list state and logs its changes to the changelog. Adding elements only logs the added elements.
+ *
+ * @param <K> The type of key the state is associated to
+ * @param <N> The type of the namespace
+ * @param <T> Type of the user entry value of state
+ */
+class ChangelogListState<K, N, T>
+	extends AbstractChangelogMergingState<K, N, T, List<T>, Iterable<T>, InternalListState<K, N, T>>
+	implements InternalListState<K, N, T> {
+
+	ChangelogListState(
+		InternalListState<K, N, T> delegatedState,
+		String stateName,
+		InternalKeyContext<K> keyContext,
+		StateChangelogWriter changelogWriter) {
+		super(delegatedState, stateName, keyContext, changelogWriter);
+	}
+
+	@Override
+	public void add(T value) throws Exception {
+		delegatedState.add(value);
+		getElementSerializer().serialize(value, beginChange(ADD_ELEMENT));
+		commitChange();
+	}
+
+	@Override
+	public void update(List<T> values) throws Exception {
+		delegatedState.update(values);
+		if (values == null || values.isEmpty()) {
+			logChange(CLEAR);
+		} else {
+			getValueSerializer().serialize(values, beginChange(SET));
+			commitChange();
+		}
+	}
+
+	@Override
+	public void addAll(List<T> values) throws Exception {
+		delegatedState.addAll(values);
+		if (values != null && !values.isEmpty()) {
+			getValueSerializer().serialize(values, beginChange(ADD_ALL));
+			commitChange();
+		}
+	}
+
+	@Override
+	void applyChange(byte operation, DataInputView in, TypeSerializer<List<T>> valueSerializer) throws Exception {
+		switch (operation) {
+			case ADD_ELEMENT:
+				delegatedState.add(getElementSerializer(valueSerializer).deserialize(in));
+				break;
+			case ADD_ALL:
+				delegatedState.addAll(valueSerializer.deserialize(in));
+				break;
+			default:
+				super.applyChange(operation, in, valueSerializer);
+		}
+	}
+
+	private TypeSerializer<T> getElementSerializer() {
+		return getElementSerializer(getValueSerializer());
+	}
+
+	private static <T> TypeSerializer<T> getElementSerializer(TypeSerializer<List<T>> valueSerializer) {
+		return ((ListSerializer<T>) valueSerializer).getElementSerializer();
+	}
+
+	@SuppressWarnings("unchecked")
+	static <E, K, N, SV, S extends State, IS extends S> IS create(
+		InternalKvState<K, N, SV> delegatedState,
+		String stateName,
+		InternalKeyContext<K> keyContext,
+		StateChangelogWriter changelogWriter) {
+		return (IS) new ChangelogListState<>((InternalListState<K, N, E>) delegatedState, stateName, keyContext, changelogWriter);
+	}
+}
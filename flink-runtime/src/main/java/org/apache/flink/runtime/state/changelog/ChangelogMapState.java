@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.MapSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.heap.InternalKeyContext;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.runtime.state.internal.InternalMapState;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * This class wraps map state and logs its changes to the changelog, including the changes through the iterators
+ * and entries of the state.
+ *
+ * @param <K> The type of key the state is associated to
+ * @param <N> The type of the namespace
+ * @param <UK> Type of the user entry key of state
+ * @param <UV> Type of the user entry value of state
+ */
+class ChangelogMapState<K, N, UK, UV>
+	extends AbstractChangelogState<K, N, Map<UK, UV>, InternalMapState<K, N, UK, UV>>
+	implements InternalMapState<K, N, UK, UV> {
+
+	ChangelogMapState(
+		InternalMapState<K, N, UK, UV> delegatedState,
+		String stateName,
+		InternalKeyContext<K> keyContext,
+		StateChangelogWriter changelogWriter) {
+		super(delegatedState, stateName, keyContext, changelogWriter);
+	}
+
+	@Override
+	public UV get(UK key) throws Exception {
+		return delegatedState.get(key);
+	}
+
+	@Override
+	public Map<UK, UV> getAll(Iterable<UK> keys) throws Exception {
+		// forwarded, so that the wrapped state can look up all keys at once
+		return delegatedState.getAll(keys);
+	}
+
+	@Override
+	public void put(UK key, UV value) throws Exception {
+		delegatedState.put(key, value);
+		logPut(key, value);
+	}
+
+	@Override
+	public void putAll(Map<UK, UV> map) throws Exception {
+		delegatedState.putAll(map);
+		if (map != null && !map.isEmpty()) {
+			getValueSerializer().serialize(map, beginChange(PUT_ALL));
+			commitChange();
+		}
+	}
+
+	@Override
+	public void remove(UK key) throws Exception {
+		delegatedState.remove(key);
+		logRemove(key);
+	}
+
+	@Override
+	public boolean contains(UK key) throws Exception {
+		return delegatedState.contains(key);
+	}
+
+	@Override
+	public Iterable<Map.Entry<UK, UV>> entries() throws Exception {
+		Iterable<Map.Entry<UK, UV>> entries = delegatedState.entries();
+		return () -> new ChangelogMapIterator<>(entries.iterator(), ChangelogMapEntry::new);
+	}
+
+	@Override
+	public Iterable<UK> keys() throws Exception {
+		Iterable<Map.Entry<UK, UV>> entries = delegatedState.entries();
+		return () -> new ChangelogMapIterator<>(entries.iterator(), Map.Entry::getKey);
+	}
+
+	@Override
+	public Iterable<UV> values() throws Exception {
+		Iterable<Map.Entry<UK, UV>> entries = delegatedState.entries();
+		return () -> new ChangelogMapIterator<>(entries.iterator(), Map.Entry::getValue);
+	}
+
+	@Override
+	public Iterator<Map.Entry<UK, UV>> iterator() throws Exception {
+		return new ChangelogMapIterator<>(delegatedState.iterator(), ChangelogMapEntry::new);
+	}
+
+	@Override
+	public boolean isEmpty() throws Exception {
+		return delegatedState.isEmpty();
+	}
+
+	private void logPut(UK key, UV value) throws IOException {
+		DataOutputView out = beginChange(PUT);
+		getMapSerializer().getKeySerializer().serialize(key, out);
+		if (value == null) {
+			out.writeBoolean(true);
+		} else {
+			out.writeBoolean(false);
+			getMapSerializer().getValueSerializer().serialize(value, out);
+		}
+		commitChange();
+	}
+
+	private void logRemove(UK key) throws IOException {
+		getMapSerializer().getKeySerializer().serialize(key, beginChange(REMOVE));
+		commitChange();
+	}
+
+	@Override
+	void applyChange(byte operation, DataInputView in, TypeSerializer<Map<UK, UV>> valueSerializer) throws Exception {
+		MapSerializer<UK, UV> mapSerializer = (MapSerializer<UK, UV>) valueSerializer;
+		switch (operation) {
+			case PUT:
+				UK key = mapSerializer.getKeySerializer().deserialize(in);
+				UV value = in.readBoolean() ? null : mapSerializer.getValueSerializer().deserialize(in);
+				delegatedState.put(key, value);
+				break;
+			case PUT_ALL:
+				delegatedState.putAll(mapSerializer.deserialize(in));
+				break;
+			case REMOVE:
+				delegatedState.remove(mapSerializer.getKeySerializer().deserialize(in));
+				break;
+			case CLEAR:
+				delegatedState.clear();
+				break;
+			default:
+				throw new IllegalStateException("Unexpected operation " + operation + " for map state.");
+		}
+	}
+
+	private MapSerializer<UK, UV> getMapSerializer() {
+		return (MapSerializer<UK, UV>) getValueSerializer();
+	}
+
+	/**
+	 * Iterator over the entries of the wrapped state that logs the removal of entries.
+	 */
+	private final class ChangelogMapIterator<T> implements Iterator<T> {
+
+		private final Iterator<Map.Entry<UK, UV>> iterator;
+
+		private final Function<Map.Entry<UK, UV>, T> resultMapper;
+
+		private Map.Entry<UK, UV> lastEntry;
+
+		ChangelogMapIterator(Iterator<Map.Entry<UK, UV>> iterator, Function<Map.Entry<UK, UV>, T> resultMapper) {
+			this.iterator = iterator;
+			this.resultMapper = resultMapper;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		@Override
+		public T next() {
+			lastEntry = iterator.next();
+			return resultMapper.apply(lastEntry);
+		}
+
+		@Override
+		public void remove() {
+			iterator.remove();
+			try {
+				logRemove(lastEntry.getKey());
+			} catch (IOException e) {
+				throw new FlinkRuntimeException("Could not log the removal of a map entry.", e);
+			}
+		}
+	}
+
+	/**
+	 * Entry of the wrapped state that logs updates of its value.
+	 */
+	private final class ChangelogMapEntry implements Map.Entry<UK, UV> {
+
+		private final Map.Entry<UK, UV> entry;
+
+		ChangelogMapEntry(Map.Entry<UK, UV> entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public UK getKey() {
+			return entry.getKey();
+		}
+
+		@Override
+		public UV getValue() {
+			return entry.getValue();
+		}
+
+		@Override
+		public UV setValue(UV value) {
+			UV oldValue = entry.setValue(value);
+			try {
+				logPut(entry.getKey(), value);
+			} catch (IOException e) {
+				throw new FlinkRuntimeException("Could not log the update of a map entry.", e);
+			}
+			return oldValue;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	static <UK, UV, K, N, SV, S extends State, IS extends S> IS create(
+		InternalKvState<K, N, SV> delegatedState,
+		String stateName,
+		InternalKeyContext<K> keyContext,
+		StateChangelogWriter changelogWriter) {
+		return (IS) new ChangelogMapState<>((InternalMapState<K, N, UK, UV>) delegatedState, stateName, keyContext, changelogWriter);
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.CheckpointingOptions;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.BackendBuildingException;
+import org.apache.flink.runtime.state.CheckpointStorage;
+import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CompletedCheckpointStorageLocation;
+import org.apache.flink.runtime.state.ConfigurableStateBackend;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.OperatorStateBackend;
+import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.heap.InternalKeyContextImpl;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A state backend that wraps another state backend and logs all changes of the keyed state to a durable changelog
+ * in the checkpoint storage. The changelog is uploaded continuously, and the keyed state of the wrapped backend is
+ * only materialized periodically in the background, so that checkpoints only have to persist the tail of the
+ * changelog and complete quickly regardless of the size of the state.
+ *
+ * <p>Savepoints, the operator state and the checkpoint storage are handled by the wrapped backend.
+ *
+ * <h1>Configuration</h1>
+ *
+ * <p>The interval of the materialization is configured via
+ * {@link CheckpointingOptions#CHANGELOG_MATERIALIZATION_INTERVAL}, and the size of buffered changes after which
+ * they are uploaded ahead of the next checkpoint via {@link CheckpointingOptions#CHANGELOG_UPLOAD_THRESHOLD}.
+ * Values that are set on the state backend itself take precedence over the configuration.
+ */
+@PublicEvolving
+public class ChangelogStateBackend implements StateBackend, ConfigurableStateBackend {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long UNDEFINED = -1L;
+
+	/** The state backend that holds the actual state. */
+	private final StateBackend delegatedStateBackend;
+
+	/** The materialization interval in milliseconds, or {@link #UNDEFINED} to use the configured value. */
+	private final long materializationInterval;
+
+	/** The upload threshold in bytes, or {@link #UNDEFINED} to use the configured value. */
+	private final long uploadThreshold;
+
+	/**
+	 * Creates a new changelog state backend that wraps the given state backend.
+	 *
+	 * @param delegatedStateBackend The state backend that holds the actual state.
+	 */
+	public ChangelogStateBackend(StateBackend delegatedStateBackend) {
+		this(delegatedStateBackend, UNDEFINED, UNDEFINED);
+	}
+
+	/**
+	 * Creates a new changelog state backend that wraps the given state backend.
+	 *
+	 * @param delegatedStateBackend The state backend that holds the actual state.
+	 * @param materializationInterval The interval in which the wrapped state backend is materialized.
+	 * @param uploadThreshold The size of buffered changes in bytes after which they are uploaded.
+	 */
+	public ChangelogStateBackend(
+		StateBackend delegatedStateBackend,
+		Duration materializationInterval,
+		long uploadThreshold) {
+		this(delegatedStateBackend, materializationInterval.toMillis(), uploadThreshold);
+		Preconditions.checkArgument(!materializationInterval.isNegative(),
+			"The materialization interval must not be negative.");
+		Preconditions.checkArgument(uploadThreshold > 0, "The upload threshold must be positive.");
+	}
+
+	private ChangelogStateBackend(
+		StateBackend delegatedStateBackend,
+		long materializationInterval,
+		long uploadThreshold) {
+		Preconditions.checkNotNull(delegatedStateBackend);
+		Preconditions.checkArgument(!(delegatedStateBackend instanceof ChangelogStateBackend),
+			"The changelog state backend cannot wrap another changelog state backend.");
+		this.delegatedStateBackend = delegatedStateBackend;
+		this.materializationInterval = materializationInterval;
+		this.uploadThreshold = uploadThreshold;
+	}
+
+	/**
+	 * Private constructor that creates a re-configured copy of the state backend.
+	 *
+	 * @param original The state backend to re-configure.
+	 * @param config The configuration.
+	 * @param classLoader The class loader.
+	 */
+	private ChangelogStateBackend(ChangelogStateBackend original, ReadableConfig config, ClassLoader classLoader) {
+		final StateBackend originalDelegatedStateBackend = original.delegatedStateBackend;
+		this.delegatedStateBackend = originalDelegatedStateBackend instanceof ConfigurableStateBackend ?
+			((ConfigurableStateBackend) originalDelegatedStateBackend).configure(config, classLoader) :
+			originalDelegatedStateBackend;
+
+		this.materializationInterval = original.materializationInterval == UNDEFINED ?
+			config.get(CheckpointingOptions.CHANGELOG_MATERIALIZATION_INTERVAL).toMillis() :
+			original.materializationInterval;
+
+		this.uploadThreshold = original.uploadThreshold == UNDEFINED ?
+			config.get(CheckpointingOptions.CHANGELOG_UPLOAD_THRESHOLD).getBytes() :
+			original.uploadThreshold;
+	}
+
+	@Override
+	public ChangelogStateBackend configure(ReadableConfig config, ClassLoader classLoader)
+		throws IllegalConfigurationException {
+		return new ChangelogStateBackend(this, config, classLoader);
+	}
+
+	// ------------------------------------------------------------------------
+	//  Properties
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Gets the state backend that holds the actual state.
+	 */
+	public StateBackend getDelegatedStateBackend() {
+		return delegatedStateBackend;
+	}
+
+	/**
+	 * Gets the interval in which the wrapped state backend is materialized.
+	 */
+	public Duration getMaterializationInterval() {
+		return materializationInterval == UNDEFINED ?
+			CheckpointingOptions.CHANGELOG_MATERIALIZATION_INTERVAL.defaultValue() :
+			Duration.ofMillis(materializationInterval);
+	}
+
+	/**
+	 * Gets the size of buffered changes in bytes after which they are uploaded ahead of the next checkpoint.
+	 */
+	public long getUploadThreshold() {
+		return uploadThreshold == UNDEFINED ?
+			CheckpointingOptions.CHANGELOG_UPLOAD_THRESHOLD.defaultValue().getBytes() :
+			uploadThreshold;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Checkpoint storage
+	// ------------------------------------------------------------------------
+
+	@Override
+	public CompletedCheckpointStorageLocation resolveCheckpoint(String externalPointer) throws IOException {
+		return delegatedStateBackend.resolveCheckpoint(externalPointer);
+	}
+
+	@Override
+	public CheckpointStorage createCheckpointStorage(JobID jobId) throws IOException {
+		return delegatedStateBackend.createCheckpointStorage(jobId);
+	}
+
+	// ------------------------------------------------------------------------
+	//  State holding data structures
+	// ------------------------------------------------------------------------
+
+	@Override
+	public <K> AbstractKeyedStateBackend<K> createKeyedStateBackend(
+		Environment env,
+		JobID jobID,
+		String operatorIdentifier,
+		TypeSerializer<K> keySerializer,
+		int numberOfKeyGroups,
+		KeyGroupRange keyGroupRange,
+		TaskKvStateRegistry kvStateRegistry,
+		TtlTimeProvider ttlTimeProvider,
+		MetricGroup metricGroup,
+		@Nonnull Collection<KeyedStateHandle> stateHandles,
+		CloseableRegistry cancelStreamRegistry) throws Exception {
+
+		// the wrapped backend restores the materialized state, the changelog is replayed on top of it
+		final List<KeyedStateHandle> delegatedStateHandles = new ArrayList<>(stateHandles.size());
+		final Map<StateHandleID, KeyGroupsStateHandle> materializedState = new HashMap<>();
+		final LinkedHashMap<StateHandleID, StreamStateHandle> changelog = new LinkedHashMap<>();
+		for (KeyedStateHandle stateHandle : stateHandles) {
+			if (stateHandle instanceof ChangelogStateBackendHandle) {
+				ChangelogStateBackendHandle changelogStateHandle = (ChangelogStateBackendHandle) stateHandle;
+				materializedState.putAll(changelogStateHandle.getMaterializedState());
+				for (Map.Entry<StateHandleID, StreamStateHandle> segment : changelogStateHandle.getChangelog().entrySet()) {
+					changelog.putIfAbsent(segment.getKey(), segment.getValue());
+				}
+			} else if (stateHandle != null) {
+				delegatedStateHandles.add(stateHandle);
+			}
+		}
+		delegatedStateHandles.addAll(materializedState.values());
+
+		final StateChangelogReader restoredChanges = new StateChangelogReader(keyGroupRange, env.getUserClassLoader());
+		try {
+			for (StreamStateHandle segment : changelog.values()) {
+				restoredChanges.readSegment(segment);
+			}
+		} catch (IOException e) {
+			throw new BackendBuildingException("Failed when trying to read the state changelog.", e);
+		}
+
+		final CheckpointStreamFactory changelogStreamFactory = delegatedStateBackend
+			.createCheckpointStorage(jobID)
+			.resolveCheckpointStorageLocation(0L, CheckpointStorageLocationReference.getDefault());
+
+		final AbstractKeyedStateBackend<K> delegatedKeyedStateBackend = delegatedStateBackend.createKeyedStateBackend(
+			env,
+			jobID,
+			operatorIdentifier,
+			keySerializer,
+			numberOfKeyGroups,
+			keyGroupRange,
+			kvStateRegistry,
+			ttlTimeProvider,
+			metricGroup,
+			delegatedStateHandles,
+			cancelStreamRegistry);
+
+		return new ChangelogKeyedStateBackend<>(
+			kvStateRegistry,
+			keySerializer,
+			env.getUserClassLoader(),
+			env.getExecutionConfig(),
+			ttlTimeProvider,
+			cancelStreamRegistry,
+			new InternalKeyContextImpl<>(keyGroupRange, numberOfKeyGroups),
+			delegatedKeyedStateBackend,
+			changelogStreamFactory,
+			getMaterializationInterval().toMillis(),
+			getUploadThreshold(),
+			materializedState,
+			changelog,
+			restoredChanges);
+	}
+
+	@Override
+	public OperatorStateBackend createOperatorStateBackend(
+		Environment env,
+		String operatorIdentifier,
+		@Nonnull Collection<OperatorStateHandle> stateHandles,
+		CloseableRegistry cancelStreamRegistry) throws Exception {
+		return delegatedStateBackend.createOperatorStateBackend(
+			env, operatorIdentifier, stateHandles, cancelStreamRegistry);
+	}
+
+	// ------------------------------------------------------------------------
+	//  utilities
+	// ------------------------------------------------------------------------
+
+	@Override
+	public String toString() {
+		return "Changelog State Backend (" +
+			"delegated: " + delegatedStateBackend +
+			", materializationInterval: " + getMaterializationInterval() +
+			", uploadThreshold: " + getUploadThreshold() + ")";
+	}
+}
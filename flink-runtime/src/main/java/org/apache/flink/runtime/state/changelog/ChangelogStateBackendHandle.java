@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
+import org.apache.flink.runtime.state.SharedStateRegistryKey;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The handle to the keyed state of a {@link ChangelogKeyedStateBackend}. The state consists of
+ * <ul>
+ * <li> the materialized state, i.e. full snapshots of the wrapped backend that were taken in the background, and </li>
+ * <li> the changelog segments with all state changes since the materialization, in the order they have to be
+ * replayed in. </li>
+ * </ul>
+ *
+ * <p>Both kinds of state are usually referenced by many consecutive checkpoints, so all of them are shared state.
+ * Once the handle is registered with a {@link SharedStateRegistry}, the registry owns them and deletes them when no
+ * completed checkpoint references them anymore. A handle that was never registered does not discard anything,
+ * because its files may still be referenced by later checkpoints of the same backend.
+ */
+public class ChangelogStateBackendHandle implements KeyedStateHandle {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ChangelogStateBackendHandle.class);
+
+	private static final long serialVersionUID = 1L;
+
+	/** UUID to identify the backend which created this state handle. */
+	private final UUID backendIdentifier;
+
+	/** The key-group range covered by this state handle. */
+	private final KeyGroupRange keyGroupRange;
+
+	/** The materialized snapshots of the wrapped backend, by their unique id. */
+	private final Map<StateHandleID, KeyGroupsStateHandle> materializedState;
+
+	/** The changelog segments since the materialization, by their unique id and in replay order. */
+	private final LinkedHashMap<StateHandleID, StreamStateHandle> changelog;
+
+	/**
+	 * Once the handle is registered, it is the {@link SharedStateRegistry}'s responsibility to cleanup its
+	 * state. This variable is not null iff the handle was registered.
+	 */
+	private transient SharedStateRegistry sharedStateRegistry;
+
+	public ChangelogStateBackendHandle(
+		UUID backendIdentifier,
+		KeyGroupRange keyGroupRange,
+		Map<StateHandleID, KeyGroupsStateHandle> materializedState,
+		LinkedHashMap<StateHandleID, StreamStateHandle> changelog) {
+
+		this.backendIdentifier = Preconditions.checkNotNull(backendIdentifier);
+		this.keyGroupRange = Preconditions.checkNotNull(keyGroupRange);
+		this.materializedState = Preconditions.checkNotNull(materializedState);
+		this.changelog = Preconditions.checkNotNull(changelog);
+		this.sharedStateRegistry = null;
+	}
+
+	@Nonnull
+	public UUID getBackendIdentifier() {
+		return backendIdentifier;
+	}
+
+	@Override
+	public KeyGroupRange getKeyGroupRange() {
+		return keyGroupRange;
+	}
+
+	public Map<StateHandleID, KeyGroupsStateHandle> getMaterializedState() {
+		return materializedState;
+	}
+
+	public LinkedHashMap<StateHandleID, StreamStateHandle> getChangelog() {
+		return changelog;
+	}
+
+	@Override
+	public KeyedStateHandle getIntersection(KeyGroupRange keyGroupRange) {
+		KeyGroupRange intersection = this.keyGroupRange.getIntersection(keyGroupRange);
+		if (KeyGroupRange.EMPTY_KEY_GROUP_RANGE.equals(intersection)) {
+			return null;
+		}
+
+		Map<StateHandleID, KeyGroupsStateHandle> intersectedMaterializedState = new LinkedHashMap<>();
+		for (Map.Entry<StateHandleID, KeyGroupsStateHandle> entry : materializedState.entrySet()) {
+			KeyGroupsStateHandle intersected = entry.getValue().getIntersection(keyGroupRange);
+			if (intersected != null) {
+				intersectedMaterializedState.put(entry.getKey(), intersected);
+			}
+		}
+
+		// the changelog segments contain the changes of all key-groups of the backend, the restore
+		// filters them by key-group
+		return new ChangelogStateBackendHandle(
+			backendIdentifier,
+			intersection,
+			intersectedMaterializedState,
+			new LinkedHashMap<>(changelog));
+	}
+
+	@Override
+	public void discardState() throws Exception {
+
+		SharedStateRegistry registry = this.sharedStateRegistry;
+
+		LOG.trace("Discarding ChangelogStateBackendHandle (registered = {}) from backend with id {}.",
+			registry != null,
+			backendIdentifier);
+
+		if (registry != null) {
+			for (StateHandleID stateHandleID : materializedState.keySet()) {
+				registry.unregisterReference(createSharedStateRegistryKey(stateHandleID));
+			}
+			for (StateHandleID stateHandleID : changelog.keySet()) {
+				registry.unregisterReference(createSharedStateRegistryKey(stateHandleID));
+			}
+		}
+	}
+
+	@Override
+	public long getStateSize() {
+		long size = 0L;
+
+		for (KeyGroupsStateHandle materializedStateHandle : materializedState.values()) {
+			size += materializedStateHandle.getStateSize();
+		}
+
+		for (StreamStateHandle changelogStateHandle : changelog.values()) {
+			size += changelogStateHandle.getStateSize();
+		}
+
+		return size;
+	}
+
+	@Override
+	public void registerSharedStates(SharedStateRegistry stateRegistry) {
+
+		Preconditions.checkState(
+			sharedStateRegistry != stateRegistry,
+			"The state handle has already registered its shared states to the given registry.");
+
+		sharedStateRegistry = Preconditions.checkNotNull(stateRegistry);
+
+		LOG.trace("Registering ChangelogStateBackendHandle from backend with id {}.", backendIdentifier);
+
+		// the materialized state is registered by its underlying stream, which stays the same when the
+		// handle is intersected with a smaller key-group range
+		for (Map.Entry<StateHandleID, KeyGroupsStateHandle> entry : materializedState.entrySet()) {
+			SharedStateRegistry.Result result = stateRegistry.registerReference(
+				createSharedStateRegistryKey(entry.getKey()),
+				entry.getValue().getDelegateStateHandle());
+
+			entry.setValue(new KeyGroupsStateHandle(entry.getValue().getGroupRangeOffsets(), result.getReference()));
+		}
+
+		for (Map.Entry<StateHandleID, StreamStateHandle> entry : changelog.entrySet()) {
+			SharedStateRegistry.Result result = stateRegistry.registerReference(
+				createSharedStateRegistryKey(entry.getKey()),
+				entry.getValue());
+
+			entry.setValue(result.getReference());
+		}
+	}
+
+	private static SharedStateRegistryKey createSharedStateRegistryKey(StateHandleID stateHandleID) {
+		return new SharedStateRegistryKey(stateHandleID.getKeyString());
+	}
+
+	@Override
+	public String toString() {
+		return "ChangelogStateBackendHandle{" +
+			"backendIdentifier=" + backendIdentifier +
+			", keyGroupRange=" + keyGroupRange +
+			", materializedState=" + materializedState +
+			", changelog=" + changelog +
+			", registered=" + (sharedStateRegistry != null) +
+			'}';
+	}
+}
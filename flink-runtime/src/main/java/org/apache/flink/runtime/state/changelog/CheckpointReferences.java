@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.changelog;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tracks the checkpoints that reference a changelog segment or a materialization of a
+ * {@link ChangelogKeyedStateBackend}. Once a checkpoint that references it completes, the checkpoint owns it,
+ * otherwise the backend discards it when it is not needed anymore and no pending checkpoint references it.
+ *
+ * <p>This class is not thread-safe, it is only accessed from the task thread.
+ */
+final class CheckpointReferences {
+
+	/** The checkpoints that reference the object and that were neither completed nor aborted yet. */
+	private final Set<Long> pendingCheckpoints;
+
+	/** Whether a completed checkpoint references the object. */
+	private boolean confirmed;
+
+	CheckpointReferences(boolean confirmed) {
+		this.pendingCheckpoints = new HashSet<>();
+		this.confirmed = confirmed;
+	}
+
+	void addPendingCheckpoint(long checkpointId) {
+		pendingCheckpoints.add(checkpointId);
+	}
+
+	void notifyCheckpointComplete(long checkpointId) {
+		if (pendingCheckpoints.contains(checkpointId)) {
+			confirmed = true;
+		}
+		// the pending checkpoints before a completed checkpoint are subsumed and never complete
+		pendingCheckpoints.removeIf(pendingCheckpointId -> pendingCheckpointId <= checkpointId);
+	}
+
+	void notifyCheckpointAborted(long checkpointId) {
+		pendingCheckpoints.remove(checkpointId);
+	}
+
+	/** Whether a completed checkpoint references the object, which then owns it. */
+	boolean isConfirmed() {
+		return confirmed;
+	}
+
+	/** Whether a completed or pending checkpoint references the object, so that it must not be discarded. */
+	boolean isReferenced() {
+		return confirmed || !pendingCheckpoints.isEmpty();
+	}
+}
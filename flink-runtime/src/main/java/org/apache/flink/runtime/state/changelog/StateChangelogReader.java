@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshotSerializationUtil;
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.StateSerializerProvider;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.util.Preconditions;
+import org.apache.flink.util.StateMigrationException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.flink.runtime.state.changelog.StateChangelogWriter.ENTRY_CHANGE;
+import static org.apache.flink.runtime.state.changelog.StateChangelogWriter.ENTRY_END;
+import static org.apache.flink.runtime.state.changelog.StateChangelogWriter.ENTRY_STATE;
+import static org.apache.flink.runtime.state.changelog.StateChangelogWriter.KIND_KEY_VALUE;
+import static org.apache.flink.runtime.state.changelog.StateChangelogWriter.VERSION;
+
+/**
+ * Reads the changelog segments that were written by a {@link StateChangelogWriter}. The changes are kept in their
+ * serialized form per state, together with the snapshots of the serializers that they were written with, because
+ * the new serializers of a state are only known once the state is registered again after the restore.
+ */
+class StateChangelogReader {
+
+	/** The serialized changes of the key/value states, by state name, in the order of their segments. */
+	private final Map<String, List<StateChanges>> keyValueStateChanges;
+
+	/** The serialized changes of the priority queue states, by state name, in the order of their segments. */
+	private final Map<String, List<StateChanges>> priorityQueueStateChanges;
+
+	private final KeyGroupRange keyGroupRange;
+
+	private final ClassLoader userCodeClassLoader;
+
+	StateChangelogReader(KeyGroupRange keyGroupRange, ClassLoader userCodeClassLoader) {
+		this.keyGroupRange = keyGroupRange;
+		this.userCodeClassLoader = userCodeClassLoader;
+		this.keyValueStateChanges = new HashMap<>();
+		this.priorityQueueStateChanges = new HashMap<>();
+	}
+
+	/**
+	 * Reads all changes of the given segment that belong to the key-group range of the backend. Segments of the
+	 * same backend must be read in the order they were written.
+	 */
+	void readSegment(StreamStateHandle segment) throws IOException {
+		try (FSDataInputStream inputStream = segment.openInputStream()) {
+			DataInputViewStreamWrapper in = new DataInputViewStreamWrapper(inputStream);
+
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported changelog segment version " + version + " in " + segment + '.');
+			}
+
+			Map<Integer, StateChanges> changesByStateId = new HashMap<>();
+			for (byte entry = in.readByte(); entry != ENTRY_END; entry = in.readByte()) {
+				if (entry == ENTRY_STATE) {
+					byte kind = in.readByte();
+					int stateId = in.readInt();
+					String stateName = in.readUTF();
+					TypeSerializerSnapshot<?>[] serializerSnapshots = new TypeSerializerSnapshot<?>[in.readInt()];
+					for (int i = 0; i < serializerSnapshots.length; i++) {
+						serializerSnapshots[i] =
+							TypeSerializerSnapshotSerializationUtil.readSerializerSnapshot(in, userCodeClassLoader, null);
+					}
+					changesByStateId.put(stateId, new StateChanges(kind, stateName, serializerSnapshots));
+				} else if (entry == ENTRY_CHANGE) {
+					int stateId = in.readInt();
+					int keyGroup = in.readInt();
+					byte[] change = new byte[in.readInt()];
+					in.readFully(change);
+					if (keyGroupRange.contains(keyGroup)) {
+						changesByStateId.get(stateId).changes.add(change);
+					}
+				} else {
+					throw new IOException("Unexpected entry " + entry + " in changelog segment " + segment + '.');
+				}
+			}
+
+			for (StateChanges stateChanges : changesByStateId.values()) {
+				if (!stateChanges.changes.isEmpty()) {
+					Map<String, List<StateChanges>> changesByStateName =
+						stateChanges.kind == KIND_KEY_VALUE ? keyValueStateChanges : priorityQueueStateChanges;
+					changesByStateName.computeIfAbsent(stateChanges.stateName, name -> new ArrayList<>()).add(stateChanges);
+				}
+			}
+		}
+	}
+
+	Map<String, List<StateChanges>> getKeyValueStateChanges() {
+		return keyValueStateChanges;
+	}
+
+	Map<String, List<StateChanges>> getPriorityQueueStateChanges() {
+		return priorityQueueStateChanges;
+	}
+
+	/**
+	 * The changes of a state within a single segment, with the snapshots of the serializers that they were
+	 * written with.
+	 */
+	static final class StateChanges {
+
+		private final byte kind;
+
+		private final String stateName;
+
+		private final TypeSerializerSnapshot<?>[] serializerSnapshots;
+
+		private final List<byte[]> changes;
+
+		private StateChanges(byte kind, String stateName, TypeSerializerSnapshot<?>[] serializerSnapshots) {
+			this.kind = kind;
+			this.stateName = stateName;
+			this.serializerSnapshots = serializerSnapshots;
+			this.changes = new ArrayList<>();
+		}
+
+		List<byte[]> getChanges() {
+			return changes;
+		}
+
+		/**
+		 * Checks the new serializer of the state against the snapshot of the serializer that the changes were
+		 * written with, and returns the serializer to read the changes with.
+		 *
+		 * @param index the index of the serializer in the serializers of the state
+		 * @param newSerializer the serializer that the state is registered with again
+		 * @param migrationAllowed whether the new serializer may require a migration of the values
+		 * @param description a description of the serializer for the error message
+		 * @throws StateMigrationException if the new serializer is not compatible
+		 */
+		@SuppressWarnings("unchecked")
+		<T> TypeSerializer<T> getRestoredSerializer(
+			int index,
+			TypeSerializer<T> newSerializer,
+			boolean migrationAllowed,
+			String description) throws StateMigrationException {
+
+			Preconditions.checkState(index < serializerSnapshots.length,
+				"The changelog of state %s has no %s.", stateName, description);
+
+			StateSerializerProvider<T> serializerProvider = StateSerializerProvider.fromPreviousSerializerSnapshot(
+				(TypeSerializerSnapshot<T>) serializerSnapshots[index]);
+			TypeSerializerSchemaCompatibility<T> compatibility =
+				serializerProvider.registerNewSerializerForRestoredState(newSerializer);
+			if (compatibility.isIncompatible() || (compatibility.isCompatibleAfterMigration() && !migrationAllowed)) {
+				throw new StateMigrationException("The new " + description + " of state " + stateName +
+					" is not compatible with the serializer that its changelog was written with.");
+			}
+
+			// the changes are read with the serializer they were written with, the wrapped state then writes the
+			// values with the new serializer
+			return serializerProvider.previousSchemaSerializer();
+		}
+	}
+}
@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshotSerializationUtil;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Appends the state changes of a {@link ChangelogKeyedStateBackend} to an in-memory buffer and uploads the
+ * buffer as a changelog segment to the checkpoint storage, either in the background once it exceeds the upload
+ * threshold or when a checkpoint is taken. All methods except for the uploads are called from the task thread.
+ *
+ * <p>A segment is a sequence of entries that is terminated by {@link #ENTRY_END}. The first change of a state
+ * in a segment is preceded by an entry that assigns an id to the state, which the changes of that state then
+ * refer to, so that every segment can be read on its own. The entry also holds the snapshots of the serializers
+ * of the state, so that the restore can read the changes with the serializers that they were written with.
+ */
+class StateChangelogWriter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StateChangelogWriter.class);
+
+	static final int VERSION = 2;
+
+	/** Kind of state for changes of key/value states. */
+	static final byte KIND_KEY_VALUE = 0;
+
+	/** Kind of state for changes of priority queue states. */
+	static final byte KIND_PRIORITY_QUEUE = 1;
+
+	/** Entry that assigns an id to a state within a segment and holds the snapshots of its serializers. */
+	static final byte ENTRY_STATE = 0;
+
+	/** Entry that holds a single state change. */
+	static final byte ENTRY_CHANGE = 1;
+
+	/** Entry that terminates a segment. */
+	static final byte ENTRY_END = 2;
+
+	private final UUID backendIdentifier;
+
+	private final CheckpointStreamFactory streamFactory;
+
+	private final Executor uploadExecutor;
+
+	private final long uploadThreshold;
+
+	/** The state changes that were not yet sealed into a segment. */
+	private final DataOutputSerializer buffer;
+
+	/** The ids of the key/value states in the current segment. */
+	private final Map<String, Integer> keyValueStateIds;
+
+	/** The ids of the priority queue states in the current segment. */
+	private final Map<String, Integer> priorityQueueStateIds;
+
+	/** All segments that were not truncated yet, in the order of their sequence numbers. */
+	private final ArrayDeque<Segment> segments;
+
+	/** Truncated segments that are only referenced by pending checkpoints, and are discarded if these abort. */
+	private final List<Segment> truncatedSegments;
+
+	private long nextSequenceNumber;
+
+	StateChangelogWriter(
+		UUID backendIdentifier,
+		CheckpointStreamFactory streamFactory,
+		Executor uploadExecutor,
+		long uploadThreshold) {
+
+		Preconditions.checkArgument(uploadThreshold > 0, "The upload threshold must be positive.");
+		this.backendIdentifier = Preconditions.checkNotNull(backendIdentifier);
+		this.streamFactory = Preconditions.checkNotNull(streamFactory);
+		this.uploadExecutor = Preconditions.checkNotNull(uploadExecutor);
+		this.uploadThreshold = uploadThreshold;
+		this.buffer = new DataOutputSerializer(1024);
+		this.keyValueStateIds = new HashMap<>();
+		this.priorityQueueStateIds = new HashMap<>();
+		this.segments = new ArrayDeque<>();
+		this.truncatedSegments = new ArrayList<>();
+		this.nextSequenceNumber = 0L;
+	}
+
+	/**
+	 * Adds a segment that was restored from a previous checkpoint. Restored segments are already owned by the
+	 * checkpoint that they were restored from.
+	 */
+	void addRestoredSegment(StateHandleID id, StreamStateHandle stateHandle) {
+		Preconditions.checkState(buffer.length() == 0, "Segments must be restored before any change is appended.");
+		segments.add(new Segment(
+			nextSequenceNumber++,
+			id,
+			CompletableFuture.completedFuture(stateHandle),
+			new CheckpointReferences(true)));
+	}
+
+	/**
+	 * Appends a single state change to the current segment.
+	 *
+	 * @param kind the kind of the changed state
+	 * @param stateName the name of the changed state
+	 * @param serializers the serializers of the changed state, only called for the first change of the state
+	 * in a segment
+	 * @param keyGroup the key-group of the change, which the restore filters by
+	 * @param change the serialized change
+	 */
+	void append(
+		byte kind,
+		String stateName,
+		Supplier<TypeSerializer<?>[]> serializers,
+		int keyGroup,
+		DataOutputSerializer change) throws IOException {
+		if (buffer.length() == 0) {
+			buffer.writeInt(VERSION);
+		}
+
+		Map<String, Integer> stateIds = kind == KIND_KEY_VALUE ? keyValueStateIds : priorityQueueStateIds;
+		Integer stateId = stateIds.get(stateName);
+		if (stateId == null) {
+			stateId = keyValueStateIds.size() + priorityQueueStateIds.size();
+			stateIds.put(stateName, stateId);
+			buffer.writeByte(ENTRY_STATE);
+			buffer.writeByte(kind);
+			buffer.writeInt(stateId);
+			buffer.writeUTF(stateName);
+			TypeSerializer<?>[] stateSerializers = serializers.get();
+			buffer.writeInt(stateSerializers.length);
+			for (TypeSerializer<?> serializer : stateSerializers) {
+				writeSerializerSnapshot(buffer, serializer);
+			}
+		}
+
+		buffer.writeByte(ENTRY_CHANGE);
+		buffer.writeInt(stateId);
+		buffer.writeInt(keyGroup);
+		buffer.writeInt(change.length());
+		buffer.write(change.getSharedBuffer(), 0, change.length());
+
+		if (buffer.length() >= uploadThreshold) {
+			seal();
+		}
+	}
+
+	/**
+	 * Seals the buffered changes into a new segment and starts its upload.
+	 *
+	 * @return the sequence number of the next segment, all changes that were appended so far are contained in the
+	 * segments before it.
+	 */
+	long seal() throws IOException {
+		if (buffer.length() > 0) {
+			buffer.writeByte(ENTRY_END);
+			final byte[] data = buffer.getCopyOfBuffer();
+			buffer.clear();
+			keyValueStateIds.clear();
+			priorityQueueStateIds.clear();
+
+			final long sequenceNumber = nextSequenceNumber++;
+			final CompletableFuture<StreamStateHandle> upload = new CompletableFuture<>();
+			uploadExecutor.execute(() -> {
+				try {
+					upload.complete(upload(data));
+				} catch (Throwable t) {
+					upload.completeExceptionally(t);
+				}
+			});
+
+			segments.add(new Segment(
+				sequenceNumber,
+				new StateHandleID(backendIdentifier + "-changelog-" + sequenceNumber),
+				upload,
+				new CheckpointReferences(false)));
+		}
+		return nextSequenceNumber;
+	}
+
+	private static <T> void writeSerializerSnapshot(DataOutputView out, TypeSerializer<T> serializer) throws IOException {
+		TypeSerializerSnapshotSerializationUtil.writeSerializerSnapshot(out, serializer.snapshotConfiguration(), serializer);
+	}
+
+	private StreamStateHandle upload(byte[] data) throws IOException {
+		CheckpointStreamFactory.CheckpointStateOutputStream out =
+			streamFactory.createCheckpointStateOutputStream(CheckpointedStateScope.SHARED);
+		try {
+			out.write(data);
+			return out.closeAndGetHandle();
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Seals the buffered changes and returns all segments that the given checkpoint has to reference. The returned
+	 * segments are not discarded by {@link #truncate(long)} anymore, unless the checkpoint is aborted.
+	 */
+	List<Segment> snapshot(long checkpointId) throws IOException {
+		seal();
+		List<Segment> snapshot = new ArrayList<>(segments.size());
+		for (Segment segment : segments) {
+			segment.references.addPendingCheckpoint(checkpointId);
+			snapshot.add(segment);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Drops all segments before the given sequence number, because their changes are contained in a
+	 * materialization. Segments that no completed or pending checkpoint references are discarded.
+	 */
+	void truncate(long sequenceNumber) {
+		while (!segments.isEmpty() && segments.peek().sequenceNumber < sequenceNumber) {
+			Segment segment = segments.poll();
+			if (!segment.references.isReferenced()) {
+				discard(segment);
+			} else if (!segment.references.isConfirmed()) {
+				truncatedSegments.add(segment);
+			}
+		}
+	}
+
+	void notifyCheckpointComplete(long checkpointId) {
+		for (Segment segment : segments) {
+			segment.references.notifyCheckpointComplete(checkpointId);
+		}
+		for (Segment segment : truncatedSegments) {
+			segment.references.notifyCheckpointComplete(checkpointId);
+		}
+		discardUnreferencedTruncatedSegments();
+	}
+
+	void notifyCheckpointAborted(long checkpointId) {
+		for (Segment segment : segments) {
+			segment.references.notifyCheckpointAborted(checkpointId);
+		}
+		for (Segment segment : truncatedSegments) {
+			segment.references.notifyCheckpointAborted(checkpointId);
+		}
+		discardUnreferencedTruncatedSegments();
+	}
+
+	/**
+	 * Discards the truncated segments whose pending checkpoints were all aborted or subsumed, and forgets the ones
+	 * that are owned by a completed checkpoint.
+	 */
+	private void discardUnreferencedTruncatedSegments() {
+		Iterator<Segment> iterator = truncatedSegments.iterator();
+		while (iterator.hasNext()) {
+			Segment segment = iterator.next();
+			if (!segment.references.isReferenced()) {
+				discard(segment);
+				iterator.remove();
+			} else if (segment.references.isConfirmed()) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private static void discard(Segment segment) {
+		segment.stateHandle.thenAccept(stateHandle -> {
+			try {
+				stateHandle.discardState();
+			} catch (Exception e) {
+				LOG.warn("Could not discard changelog segment {}.", segment.id, e);
+			}
+		});
+	}
+
+	/**
+	 * Fails the uploads that did not complete yet, after the upload executor was shut down, and discards the
+	 * segments that no checkpoint references. Segments of pending checkpoints are left to these checkpoints.
+	 */
+	void close() {
+		for (Segment segment : segments) {
+			segment.stateHandle.completeExceptionally(
+				new CancellationException("The changelog writer was closed."));
+			if (!segment.references.isReferenced()) {
+				discard(segment);
+			}
+		}
+	}
+
+	/**
+	 * A sealed segment of the changelog.
+	 */
+	static final class Segment {
+
+		final long sequenceNumber;
+
+		final StateHandleID id;
+
+		final CompletableFuture<StreamStateHandle> stateHandle;
+
+		/** The checkpoints that reference the segment. */
+		final CheckpointReferences references;
+
+		Segment(
+			long sequenceNumber,
+			StateHandleID id,
+			CompletableFuture<StreamStateHandle> stateHandle,
+			CheckpointReferences references) {
+			this.sequenceNumber = sequenceNumber;
+			this.id = id;
+			this.stateHandle = stateHandle;
+			this.references = references;
+		}
+	}
+}
@@ -122,6 +122,14 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 	 * */
 	private final int writeBufferSize;
 
+	/** Switch to enable incremental checkpoints of the keyed state.
+	 * A value of 'undefined' means not yet configured, in which case the default will be used. */
+	private final TernaryBoolean incrementalCheckpoints;
+
+	/** The maximum number of consecutive incremental checkpoints that only write changes.
+	 * A value of '-1' means not yet configured, in which case the default will be used. */
+	private final int maxIncrementalDeltas;
+
 	// -----------------------------------------------------------------------
 
 	/**
@@ -349,6 +357,8 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 		this.fileStateThreshold = fileStateSizeThreshold;
 		this.writeBufferSize = writeBufferSize;
 		this.asynchronousSnapshots = asynchronousSnapshots;
+		this.incrementalCheckpoints = TernaryBoolean.UNDEFINED;
+		this.maxIncrementalDeltas = -1;
 	}
 
 	/**
@@ -365,6 +375,15 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 		this.asynchronousSnapshots = original.asynchronousSnapshots.resolveUndefined(
 				configuration.get(CheckpointingOptions.ASYNC_SNAPSHOTS));
 
+		this.incrementalCheckpoints = original.incrementalCheckpoints.resolveUndefined(
+				configuration.get(CheckpointingOptions.INCREMENTAL_CHECKPOINTS));
+
+		this.maxIncrementalDeltas = original.maxIncrementalDeltas >= 0 ?
+			original.maxIncrementalDeltas :
+			configuration.get(CheckpointingOptions.FS_INCREMENTAL_MAX_DELTAS);
+		checkArgument(this.maxIncrementalDeltas >= 0,
+			"The maximum number of incremental deltas must not be negative.");
+
 		if (getValidFileStateThreshold(original.fileStateThreshold) >= 0) {
 			this.fileStateThreshold = original.fileStateThreshold;
 		} else {
@@ -470,6 +489,30 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 		return asynchronousSnapshots.getOrDefault(CheckpointingOptions.ASYNC_SNAPSHOTS.defaultValue());
 	}
 
+	/**
+	 * Gets whether the keyed state is checkpointed incrementally. Incremental checkpoints require
+	 * asynchronous snapshots and are not used for savepoints.
+	 *
+	 * <p>If not explicitly configured, this is the default value of
+	 * {@link CheckpointingOptions#INCREMENTAL_CHECKPOINTS}.
+	 */
+	public boolean isIncrementalCheckpointsEnabled() {
+		return incrementalCheckpoints.getOrDefault(CheckpointingOptions.INCREMENTAL_CHECKPOINTS.defaultValue());
+	}
+
+	/**
+	 * Gets the maximum number of consecutive incremental checkpoints that only write the changes
+	 * since the previous checkpoint, before the complete keyed state is written again.
+	 *
+	 * <p>If not explicitly configured, this is the default value of
+	 * {@link CheckpointingOptions#FS_INCREMENTAL_MAX_DELTAS}.
+	 */
+	public int getMaxIncrementalDeltas() {
+		return maxIncrementalDeltas >= 0 ?
+			maxIncrementalDeltas :
+			CheckpointingOptions.FS_INCREMENTAL_MAX_DELTAS.defaultValue();
+	}
+
 	// ------------------------------------------------------------------------
 	//  Reconfiguration
 	// ------------------------------------------------------------------------
@@ -537,7 +580,10 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 			localRecoveryConfig,
 			priorityQueueSetFactory,
 			isUsingAsynchronousSnapshots(),
-			cancelStreamRegistry).build();
+			cancelStreamRegistry)
+			.setEnableIncrementalCheckpointing(isIncrementalCheckpointsEnabled())
+			.setMaxIncrementalDeltas(getMaxIncrementalDeltas())
+			.build();
 	}
 
 	@Override
@@ -565,6 +611,7 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
 				"checkpoints: '" + getCheckpointPath() +
 				"', savepoints: '" + getSavepointPath() +
 				"', asynchronous: " + asynchronousSnapshots +
+				", incremental: " + incrementalCheckpoints +
 				", fileStateThreshold: " + fileStateThreshold + ")";
 	}
 }
@@ -38,6 +38,10 @@ class AsyncSnapshotStrategySynchronicityBehavior<K> implements SnapshotStrategyS
 		InternalKeyContext<K> keyContext,
 		RegisteredKeyValueStateBackendMetaInfo<N, V> newMetaInfo,
 		TypeSerializer<K> keySerializer) {
+		// states keyed by long or int without namespace can avoid boxed keys and per-entry objects
+		if (PrimitiveKeyCopyOnWriteStateTable.isSupported(keySerializer, newMetaInfo.getNamespaceSerializer())) {
+			return new PrimitiveKeyCopyOnWriteStateTable<>(keyContext, newMetaInfo, keySerializer);
+		}
 		return new CopyOnWriteStateTable<>(keyContext, newMetaInfo, keySerializer);
 	}
 }
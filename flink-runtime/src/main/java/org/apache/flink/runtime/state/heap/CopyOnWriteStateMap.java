@@ -34,8 +34,10 @@ import javax.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
@@ -209,6 +211,19 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
 	 */
 	private int modCount;
 
+	/**
+	 * Whether modifications are tracked for incremental snapshots. If enabled, the state version of entries is also
+	 * updated when their state is handed out for in-place modification and removed mappings are remembered, so that
+	 * the changes since any earlier snapshot version can be derived from a snapshot.
+	 */
+	private boolean modificationTracking;
+
+	/**
+	 * Mappings that were removed while modifications are tracked, in the order of removal.
+	 */
+	@Nullable
+	private List<RemovedEntry<K, N>> removedEntries;
+
 	/**
 	 * Constructs a new {@code StateMap} with default capacity of {@code DEFAULT_CAPACITY}.
 	 *
@@ -295,6 +310,12 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
 					}
 					e.stateVersion = stateMapVersion;
 					e.state = getStateSerializer().copy(e.state);
+				} else if (modificationTracking && e.stateVersion < stateMapVersion) {
+					// the caller may modify the state in place, so we count it as modified since the last snapshot
+					if (e.entryVersion < requiredVersion) {
+						e = handleChainedEntryCopyOnWrite(tab, hash & (tab.length - 1), e);
+					}
+					e.stateVersion = stateMapVersion;
 				}
 
 				return e.state;
@@ -444,6 +465,9 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
 				} else {
 					--incrementalRehashTableSize;
 				}
+				if (modificationTracking) {
+					removedEntries.add(new RemovedEntry<>(e.key, e.namespace, stateMapVersion));
+				}
 				return e;
 			}
 		}
@@ -531,6 +555,35 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
 		return stateMapVersion;
 	}
 
+	/**
+	 * Starts tracking modifications for incremental snapshots. Changes are only visible relative to snapshots that
+	 * are taken after this call.
+	 */
+	void enableModificationTracking() {
+		if (!modificationTracking) {
+			modificationTracking = true;
+			removedEntries = new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Forgets all removed mappings that happened before the given map version.
+	 */
+	void pruneRemovedEntries(int version) {
+		if (removedEntries != null) {
+			removedEntries.removeIf(removedEntry -> removedEntry.version < version);
+		}
+	}
+
+	/**
+	 * Returns a copy of the removed mappings that are still remembered.
+	 */
+	List<RemovedEntry<K, N>> getRemovedEntries() {
+		return removedEntries == null || removedEntries.isEmpty() ?
+			Collections.emptyList() :
+			new ArrayList<>(removedEntries);
+	}
+
 	/**
 	 * Allocate a table of the given capacity and set the threshold accordingly.
 	 *
@@ -920,6 +973,38 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
 		}
 	}
 
+	/**
+	 * A mapping that was removed from the {@link CopyOnWriteStateMap} while modifications are tracked.
+	 *
+	 * @param <K> type of key.
+	 * @param <N> type of namespace.
+	 */
+	static final class RemovedEntry<K, N> {
+
+		/**
+		 * The key of the removed mapping.
+		 */
+		@Nonnull
+		final K key;
+
+		/**
+		 * The namespace of the removed mapping.
+		 */
+		@Nonnull
+		final N namespace;
+
+		/**
+		 * The version of the map when the mapping was removed.
+		 */
+		final int version;
+
+		RemovedEntry(@Nonnull K key, @Nonnull N namespace, int version) {
+			this.key = key;
+			this.namespace = namespace;
+			this.version = version;
+		}
+	}
+
 	// For testing  ----------------------------------------------------------------------------------------------------
 
 	@Override
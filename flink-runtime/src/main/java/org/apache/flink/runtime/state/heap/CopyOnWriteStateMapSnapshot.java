@@ -29,9 +29,11 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
@@ -70,6 +72,13 @@ public class CopyOnWriteStateMapSnapshot<K, N, S>
 	@Nonnegative
 	private final int numberOfEntriesInSnapshotData;
 
+	/**
+	 * The mappings that were removed from the {@link CopyOnWriteStateMap} before this snapshot was created and that
+	 * were still remembered for incremental snapshots.
+	 */
+	@Nonnull
+	private final List<CopyOnWriteStateMap.RemovedEntry<K, N>> removedEntries;
+
 	/**
 	 * Whether this snapshot has been released.
 	 */
@@ -86,6 +95,7 @@ public class CopyOnWriteStateMapSnapshot<K, N, S>
 		this.snapshotData = owningStateMap.snapshotMapArrays();
 		this.snapshotVersion = owningStateMap.getStateMapVersion();
 		this.numberOfEntriesInSnapshotData = owningStateMap.size();
+		this.removedEntries = owningStateMap.getRemovedEntries();
 		this.released = false;
 	}
 
@@ -130,6 +140,60 @@ public class CopyOnWriteStateMapSnapshot<K, N, S>
 		}
 	}
 
+	/**
+	 * Writes the changes in this snapshot relative to the snapshot of the given base version. This requires that the
+	 * owning {@link CopyOnWriteStateMap} tracked modifications since the base snapshot was created.
+	 *
+	 * <p>The changes are written as the removed mappings (namespace, key), followed by the added or modified mappings
+	 * in the format of {@link #writeState}. Mappings that are filtered out by the transformer are written as removed.
+	 */
+	void writeStateDelta(
+		TypeSerializer<K> keySerializer,
+		TypeSerializer<N> namespaceSerializer,
+		TypeSerializer<S> stateSerializer,
+		@Nonnull DataOutputView dov,
+		@Nullable StateSnapshotTransformer<S> stateSnapshotTransformer,
+		int baseVersion) throws IOException {
+
+		List<CopyOnWriteStateMap.RemovedEntry<K, N>> removed = new ArrayList<>();
+		for (CopyOnWriteStateMap.RemovedEntry<K, N> removedEntry : removedEntries) {
+			if (removedEntry.version >= baseVersion) {
+				removed.add(removedEntry);
+			}
+		}
+
+		List<StateEntry<K, N, S>> modified = new ArrayList<>();
+		for (CopyOnWriteStateMap.StateMapEntry<K, N, S> chain : snapshotData) {
+			for (CopyOnWriteStateMap.StateMapEntry<K, N, S> entry = chain; entry != null; entry = entry.next) {
+				if (entry.stateVersion < baseVersion) {
+					continue;
+				}
+				S state = stateSnapshotTransformer == null ?
+					entry.state : stateSnapshotTransformer.filterOrTransform(entry.state);
+				if (state == null) {
+					removed.add(new CopyOnWriteStateMap.RemovedEntry<>(entry.key, entry.namespace, snapshotVersion));
+				} else if (state != entry.state) {
+					modified.add(new StateEntry.SimpleStateEntry<>(entry.key, entry.namespace, state));
+				} else {
+					modified.add(entry);
+				}
+			}
+		}
+
+		dov.writeInt(removed.size());
+		for (CopyOnWriteStateMap.RemovedEntry<K, N> removedEntry : removed) {
+			namespaceSerializer.serialize(removedEntry.namespace, dov);
+			keySerializer.serialize(removedEntry.key, dov);
+		}
+
+		dov.writeInt(modified.size());
+		for (StateEntry<K, N, S> stateEntry : modified) {
+			namespaceSerializer.serialize(stateEntry.getNamespace(), dov);
+			keySerializer.serialize(stateEntry.getKey(), dov);
+			stateSerializer.serialize(stateEntry.getState(), dov);
+		}
+	}
+
 	/**
 	 * Iterator over state entries in a {@link CopyOnWriteStateMapSnapshot}.
 	 */
@@ -56,6 +56,25 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> {
 
 	// Snapshotting ----------------------------------------------------------------------------------------------------
 
+	/**
+	 * Starts tracking modifications in all state maps of this table for incremental snapshots.
+	 */
+	void enableModificationTracking() {
+		for (StateMap<K, N, S> stateMap : keyGroupedStateMaps) {
+			((CopyOnWriteStateMap<K, N, S>) stateMap).enableModificationTracking();
+		}
+	}
+
+	/**
+	 * Forgets all removed mappings that happened before the given versions of the state maps, indexed like the
+	 * key-groups of this table.
+	 */
+	void pruneRemovedEntries(int[] versions) {
+		for (int i = 0; i < keyGroupedStateMaps.length; i++) {
+			((CopyOnWriteStateMap<K, N, S>) keyGroupedStateMaps[i]).pruneRemovedEntries(versions[i]);
+		}
+	}
+
 	/**
 	 * Creates a snapshot of this {@link CopyOnWriteStateTable}, to be written in checkpointing.
 	 *
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.state.heap;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.StateSnapshot;
 import org.apache.flink.runtime.state.StateSnapshotTransformer;
 
 import javax.annotation.Nonnull;
@@ -80,6 +81,37 @@ public class CopyOnWriteStateTableSnapshot<K, N, S> extends AbstractStateTableSn
 		return stateMapSnapshot;
 	}
 
+	/**
+	 * Returns the versions of the state maps when this snapshot was created, indexed like the key-groups of the
+	 * owning table.
+	 */
+	int[] getSnapshotVersions() {
+		int[] versions = new int[stateMapSnapshots.size()];
+		for (int i = 0; i < versions.length; i++) {
+			versions[i] = stateMapSnapshots.get(i).getSnapshotVersion();
+		}
+		return versions;
+	}
+
+	/**
+	 * Returns a writer for the changes of each key-group since the snapshot with the given versions, as returned by
+	 * {@link #getSnapshotVersions()}. See {@link CopyOnWriteStateMapSnapshot#writeStateDelta}.
+	 */
+	StateSnapshot.StateKeyGroupWriter getDeltaKeyGroupWriter(int[] baseVersions) {
+		return (dov, keyGroupId) -> {
+			int indexOffset = keyGroupId - keyGroupOffset;
+			CopyOnWriteStateMapSnapshot<K, N, S> stateMapSnapshot = stateMapSnapshots.get(indexOffset);
+			stateMapSnapshot.writeStateDelta(
+				localKeySerializer,
+				localNamespaceSerializer,
+				localStateSerializer,
+				dov,
+				stateSnapshotTransformer,
+				baseVersions[indexOffset]);
+			stateMapSnapshot.release();
+		};
+	}
+
 	@Override
 	public void release() {
 		for (CopyOnWriteStateMapSnapshot snapshot : stateMapSnapshots) {
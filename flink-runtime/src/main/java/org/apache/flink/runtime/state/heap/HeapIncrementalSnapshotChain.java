@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The files that make up an incremental snapshot of the {@link HeapKeyedStateBackend}: a full snapshot of all
+ * key/value states, followed by the changes of later checkpoints in the order in which they have to be applied.
+ *
+ * <p>Each file starts with a {@link KeyedBackendSerializationProxy} and holds its data by key-group at the offsets
+ * recorded in this chain. Priority queue states are only read from the last file of the chain, which always holds
+ * them completely.
+ */
+final class HeapIncrementalSnapshotChain {
+
+	/** The version of the serialized format of the chain. */
+	private static final int VERSION = 1;
+
+	/** The files of the chain, starting with the full snapshot. */
+	@Nonnull
+	private final List<Element> elements;
+
+	private HeapIncrementalSnapshotChain(@Nonnull List<Element> elements) {
+		Preconditions.checkArgument(!elements.isEmpty() && !elements.get(0).isDelta(),
+			"The chain must start with a full snapshot.");
+		this.elements = elements;
+	}
+
+	/**
+	 * Creates a new chain that consists of the given full snapshot.
+	 */
+	static HeapIncrementalSnapshotChain of(@Nonnull Element fullSnapshot) {
+		return new HeapIncrementalSnapshotChain(Collections.singletonList(fullSnapshot));
+	}
+
+	/**
+	 * Returns a new chain that applies the given changes after the files of this chain.
+	 */
+	HeapIncrementalSnapshotChain append(@Nonnull Element delta) {
+		Preconditions.checkArgument(delta.isDelta(), "Only changes can be appended to a chain.");
+		List<Element> newElements = new ArrayList<>(elements.size() + 1);
+		newElements.addAll(elements);
+		newElements.add(delta);
+		return new HeapIncrementalSnapshotChain(newElements);
+	}
+
+	@Nonnull
+	List<Element> getElements() {
+		return elements;
+	}
+
+	/**
+	 * Returns the number of files with changes that follow the full snapshot.
+	 */
+	int getNumberOfDeltas() {
+		return elements.size() - 1;
+	}
+
+	void write(DataOutputView out) throws IOException {
+		out.writeInt(VERSION);
+		out.writeInt(elements.size());
+		for (Element element : elements) {
+			out.writeUTF(element.getHandleId().getKeyString());
+			out.writeBoolean(element.isDelta());
+			long[] keyGroupOffsets = element.getKeyGroupOffsets();
+			out.writeInt(keyGroupOffsets.length);
+			for (long offset : keyGroupOffsets) {
+				out.writeLong(offset);
+			}
+		}
+	}
+
+	static HeapIncrementalSnapshotChain read(DataInputView in) throws IOException {
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported version of incremental heap snapshot: " + version + ".");
+		}
+		int numElements = in.readInt();
+		List<Element> elements = new ArrayList<>(numElements);
+		for (int i = 0; i < numElements; i++) {
+			StateHandleID handleId = new StateHandleID(in.readUTF());
+			boolean delta = in.readBoolean();
+			long[] keyGroupOffsets = new long[in.readInt()];
+			for (int j = 0; j < keyGroupOffsets.length; j++) {
+				keyGroupOffsets[j] = in.readLong();
+			}
+			elements.add(new Element(handleId, delta, keyGroupOffsets));
+		}
+		return new HeapIncrementalSnapshotChain(elements);
+	}
+
+	/**
+	 * One file of a {@link HeapIncrementalSnapshotChain}.
+	 */
+	static final class Element {
+
+		/** The id of the file in the shared state of the snapshot. */
+		@Nonnull
+		private final StateHandleID handleId;
+
+		/** Whether the file holds changes or a full snapshot of the key/value states. */
+		private final boolean delta;
+
+		/** The offsets of the key-groups in the file. */
+		@Nonnull
+		private final long[] keyGroupOffsets;
+
+		Element(@Nonnull StateHandleID handleId, boolean delta, @Nonnull long[] keyGroupOffsets) {
+			this.handleId = handleId;
+			this.delta = delta;
+			this.keyGroupOffsets = keyGroupOffsets;
+		}
+
+		@Nonnull
+		StateHandleID getHandleId() {
+			return handleId;
+		}
+
+		boolean isDelta() {
+			return delta;
+		}
+
+		@Nonnull
+		long[] getKeyGroupOffsets() {
+			return keyGroupOffsets;
+		}
+	}
+}
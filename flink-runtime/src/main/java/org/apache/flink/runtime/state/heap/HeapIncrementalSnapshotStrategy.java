@@ -0,0 +1,444 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.AsyncSnapshotCallable;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.PlaceholderStreamStateHandle;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StateSerializerProvider;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.StateUtil;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.UncompressedStreamCompressionDecorator;
+import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+
+/**
+ * Snapshot strategy of the heap backend for incremental checkpoints.
+ *
+ * <p>The first checkpoint writes a full snapshot of all key/value states. Afterwards, the {@link CopyOnWriteStateMap}s
+ * track which mappings were modified or removed, and each checkpoint only writes the changes since the snapshot of the
+ * last completed checkpoint. The files are registered as shared state of an {@link IncrementalRemoteKeyedStateHandle},
+ * so that a checkpoint references the files of the last completed checkpoint and adds one new file. After the
+ * configured number of checkpoints with changes, the next checkpoint writes a full snapshot again, so that the chain of
+ * files to restore stays bounded and files of old checkpoints can be discarded.
+ *
+ * <p>Priority queue states are always written completely. Savepoints are always full snapshots in the format of
+ * {@link HeapSnapshotStrategy}.
+ */
+class HeapIncrementalSnapshotStrategy<K> extends HeapSnapshotStrategy<K> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HeapIncrementalSnapshotStrategy.class);
+
+	/** Unique identifier of the backend, which scopes the shared files of its checkpoints. */
+	@Nonnull
+	private final UUID backendUID;
+
+	/** The maximum number of consecutive checkpoints that only write changes. */
+	private final int maxDeltas;
+
+	/** The snapshots of checkpoints that are not yet confirmed, by checkpoint id. */
+	@Nonnull
+	private final SortedMap<Long, IncrementalSnapshot> pendingSnapshots;
+
+	/** The snapshot of the last completed checkpoint, which is the base for the changes of the next checkpoint. */
+	@Nullable
+	private IncrementalSnapshot lastCompletedSnapshot;
+
+	/** The id of the last completed checkpoint. */
+	private long lastCompletedCheckpointId;
+
+	HeapIncrementalSnapshotStrategy(
+		SnapshotStrategySynchronicityBehavior<K> snapshotStrategySynchronicityTrait,
+		Map<String, StateTable<K, ?, ?>> registeredKVStates,
+		Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates,
+		StreamCompressionDecorator keyGroupCompressionDecorator,
+		LocalRecoveryConfig localRecoveryConfig,
+		KeyGroupRange keyGroupRange,
+		CloseableRegistry cancelStreamRegistry,
+		StateSerializerProvider<K> keySerializerProvider,
+		int maxDeltas) {
+		super(
+			snapshotStrategySynchronicityTrait,
+			registeredKVStates,
+			registeredPQStates,
+			keyGroupCompressionDecorator,
+			localRecoveryConfig,
+			keyGroupRange,
+			cancelStreamRegistry,
+			keySerializerProvider);
+		Preconditions.checkArgument(maxDeltas >= 0, "The maximum number of deltas must not be negative.");
+		this.backendUID = UUID.randomUUID();
+		this.maxDeltas = maxDeltas;
+		this.pendingSnapshots = new TreeMap<>();
+		this.lastCompletedSnapshot = null;
+		this.lastCompletedCheckpointId = -1L;
+	}
+
+	@Nonnull
+	@Override
+	public RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshot(
+		long checkpointId,
+		long timestamp,
+		@Nonnull CheckpointStreamFactory primaryStreamFactory,
+		@Nonnull CheckpointOptions checkpointOptions) throws IOException {
+
+		if (checkpointOptions.getCheckpointType().isSavepoint() || !hasRegisteredState() || !isTrackingSupported()) {
+			return super.snapshot(checkpointId, timestamp, primaryStreamFactory, checkpointOptions);
+		}
+
+		final IncrementalSnapshot baseSnapshot;
+		synchronized (pendingSnapshots) {
+			baseSnapshot = lastCompletedSnapshot;
+		}
+
+		final boolean delta = baseSnapshot != null &&
+			baseSnapshot.chain.getNumberOfDeltas() < maxDeltas &&
+			baseSnapshot.hasSameStateTables(registeredKVStates);
+
+		final int[] pruneAll = new int[keyGroupRange.getNumberOfKeyGroups()];
+		Arrays.fill(pruneAll, Integer.MAX_VALUE);
+		for (Map.Entry<String, StateTable<K, ?, ?>> stateTable : registeredKVStates.entrySet()) {
+			CopyOnWriteStateTable<K, ?, ?> copyOnWriteStateTable = (CopyOnWriteStateTable<K, ?, ?>) stateTable.getValue();
+			copyOnWriteStateTable.enableModificationTracking();
+			// removals before the base snapshot are already contained in its files
+			copyOnWriteStateTable.pruneRemovedEntries(
+				delta ? baseSnapshot.snapshotVersions.get(stateTable.getKey()) : pruneAll);
+		}
+
+		int numStates = registeredKVStates.size() + registeredPQStates.size();
+
+		Preconditions.checkState(numStates <= Short.MAX_VALUE,
+			"Too many states: " + numStates +
+				". Currently at most " + Short.MAX_VALUE + " states are supported");
+
+		final List<StateMetaInfoSnapshot> metaInfoSnapshots = new ArrayList<>(numStates);
+		final Map<StateUID, Integer> stateNamesToId = new HashMap<>(numStates);
+		// key/value states come first in each key-group, so that the priority queues can be skipped on restore
+		final Map<StateUID, StateSnapshot> stateSnapshots = new LinkedHashMap<>(numStates);
+
+		processSnapshotMetaInfoForAllStates(
+			metaInfoSnapshots,
+			stateSnapshots,
+			stateNamesToId,
+			registeredKVStates,
+			StateMetaInfoSnapshot.BackendStateType.KEY_VALUE);
+
+		processSnapshotMetaInfoForAllStates(
+			metaInfoSnapshots,
+			stateSnapshots,
+			stateNamesToId,
+			registeredPQStates,
+			StateMetaInfoSnapshot.BackendStateType.PRIORITY_QUEUE);
+
+		final Map<String, int[]> snapshotVersions = new HashMap<>(registeredKVStates.size());
+		for (Map.Entry<StateUID, StateSnapshot> stateSnapshot : stateSnapshots.entrySet()) {
+			if (stateSnapshot.getKey().getStateType() == StateMetaInfoSnapshot.BackendStateType.KEY_VALUE) {
+				snapshotVersions.put(
+					stateSnapshot.getKey().getStateName(),
+					((CopyOnWriteStateTableSnapshot<?, ?, ?>) stateSnapshot.getValue()).getSnapshotVersions());
+			}
+		}
+
+		final KeyedBackendSerializationProxy<K> serializationProxy =
+			new KeyedBackendSerializationProxy<>(
+				getKeySerializer(),
+				metaInfoSnapshots,
+				!Objects.equals(UncompressedStreamCompressionDecorator.INSTANCE, keyGroupCompressionDecorator));
+
+		final IncrementalSnapshot incrementalSnapshot =
+			new IncrementalSnapshot(new HashMap<>(registeredKVStates), snapshotVersions);
+		synchronized (pendingSnapshots) {
+			pendingSnapshots.put(checkpointId, incrementalSnapshot);
+		}
+
+		//--------------------------------------------------- this becomes the end of sync part
+
+		final AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>> asyncSnapshotCallable =
+			new AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>>() {
+				@Override
+				protected SnapshotResult<KeyedStateHandle> callInternal() throws Exception {
+
+					boolean completed = false;
+					StreamStateHandle stateFileHandle = null;
+					StreamStateHandle metaStateHandle = null;
+
+					try {
+						final CheckpointStreamFactory.CheckpointStateOutputStream stateFileStream =
+							primaryStreamFactory.createCheckpointStateOutputStream(CheckpointedStateScope.SHARED);
+						snapshotCloseableRegistry.registerCloseable(stateFileStream);
+
+						final long[] keyGroupOffsets = writeStateFile(
+							stateFileStream,
+							serializationProxy,
+							stateSnapshots,
+							stateNamesToId,
+							delta ? baseSnapshot.snapshotVersions : null);
+
+						if (snapshotCloseableRegistry.unregisterCloseable(stateFileStream)) {
+							stateFileHandle = stateFileStream.closeAndGetHandle();
+						} else {
+							throw new IOException("Stream already unregistered.");
+						}
+
+						final HeapIncrementalSnapshotChain.Element element =
+							new HeapIncrementalSnapshotChain.Element(
+								new StateHandleID(
+									checkpointId + "-" + UUID.randomUUID() + (delta ? ".delta" : ".full")),
+								delta,
+								keyGroupOffsets);
+						final HeapIncrementalSnapshotChain chain = delta ?
+							baseSnapshot.chain.append(element) :
+							HeapIncrementalSnapshotChain.of(element);
+
+						final CheckpointStreamFactory.CheckpointStateOutputStream metaStream =
+							primaryStreamFactory.createCheckpointStateOutputStream(CheckpointedStateScope.EXCLUSIVE);
+						snapshotCloseableRegistry.registerCloseable(metaStream);
+
+						chain.write(new DataOutputViewStreamWrapper(metaStream));
+
+						if (snapshotCloseableRegistry.unregisterCloseable(metaStream)) {
+							metaStateHandle = metaStream.closeAndGetHandle();
+						} else {
+							throw new IOException("Stream already unregistered.");
+						}
+
+						// files of earlier checkpoints are already registered and are resolved by the coordinator
+						final Map<StateHandleID, StreamStateHandle> sharedState = new HashMap<>();
+						for (HeapIncrementalSnapshotChain.Element chainElement : chain.getElements()) {
+							sharedState.put(
+								chainElement.getHandleId(),
+								chainElement == element ? stateFileHandle : new PlaceholderStreamStateHandle());
+						}
+
+						synchronized (pendingSnapshots) {
+							incrementalSnapshot.chain = chain;
+						}
+
+						final IncrementalRemoteKeyedStateHandle stateHandle =
+							new IncrementalRemoteKeyedStateHandle(
+								backendUID,
+								keyGroupRange,
+								checkpointId,
+								sharedState,
+								Collections.emptyMap(),
+								metaStateHandle);
+
+						completed = true;
+
+						return SnapshotResult.of(stateHandle);
+					} finally {
+						if (!completed) {
+							try {
+								StateUtil.bestEffortDiscardAllStateObjects(
+									Arrays.asList(stateFileHandle, metaStateHandle));
+							} catch (Exception e) {
+								LOG.warn("Could not properly discard states.", e);
+							}
+						}
+					}
+				}
+
+				@Override
+				protected void cleanupProvidedResources() {
+					for (StateSnapshot stateSnapshot : stateSnapshots.values()) {
+						stateSnapshot.release();
+					}
+				}
+
+				@Override
+				protected void logAsyncSnapshotComplete(long startTime) {
+					logAsyncCompleted(primaryStreamFactory, startTime);
+				}
+			};
+
+		final FutureTask<SnapshotResult<KeyedStateHandle>> task =
+			asyncSnapshotCallable.toAsyncSnapshotFutureTask(cancelStreamRegistry);
+		finalizeSnapshotBeforeReturnHook(task);
+
+		return task;
+	}
+
+	/**
+	 * Writes the state of all key-groups to the given stream and returns the offsets of the key-groups. If base
+	 * versions are given, only the changes of the key/value states since the snapshot with these versions are written.
+	 */
+	private long[] writeStateFile(
+		CheckpointStreamFactory.CheckpointStateOutputStream outputStream,
+		KeyedBackendSerializationProxy<K> serializationProxy,
+		Map<StateUID, StateSnapshot> stateSnapshots,
+		Map<StateUID, Integer> stateNamesToId,
+		@Nullable Map<String, int[]> baseVersions) throws IOException {
+
+		final DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(outputStream);
+		serializationProxy.write(outView);
+
+		final Map<StateUID, StateSnapshot.StateKeyGroupWriter> keyGroupWriters = new LinkedHashMap<>();
+		for (Map.Entry<StateUID, StateSnapshot> stateSnapshot : stateSnapshots.entrySet()) {
+			StateUID stateUid = stateSnapshot.getKey();
+			if (baseVersions != null && stateUid.getStateType() == StateMetaInfoSnapshot.BackendStateType.KEY_VALUE) {
+				keyGroupWriters.put(
+					stateUid,
+					((CopyOnWriteStateTableSnapshot<?, ?, ?>) stateSnapshot.getValue())
+						.getDeltaKeyGroupWriter(baseVersions.get(stateUid.getStateName())));
+			} else {
+				keyGroupWriters.put(stateUid, stateSnapshot.getValue().getKeyGroupWriter());
+			}
+		}
+
+		final long[] keyGroupRangeOffsets = new long[keyGroupRange.getNumberOfKeyGroups()];
+
+		for (int keyGroupPos = 0; keyGroupPos < keyGroupRange.getNumberOfKeyGroups(); ++keyGroupPos) {
+			int keyGroupId = keyGroupRange.getKeyGroupId(keyGroupPos);
+			keyGroupRangeOffsets[keyGroupPos] = outputStream.getPos();
+			outView.writeInt(keyGroupId);
+
+			for (Map.Entry<StateUID, StateSnapshot.StateKeyGroupWriter> keyGroupWriter : keyGroupWriters.entrySet()) {
+				try (
+					OutputStream kgCompressionOut =
+						keyGroupCompressionDecorator.decorateWithCompression(outputStream)) {
+					DataOutputViewStreamWrapper kgCompressionView =
+						new DataOutputViewStreamWrapper(kgCompressionOut);
+					kgCompressionView.writeShort(stateNamesToId.get(keyGroupWriter.getKey()));
+					keyGroupWriter.getValue().writeStateInKeyGroup(kgCompressionView, keyGroupId);
+				} // this will just close the outer compression stream
+			}
+		}
+
+		return keyGroupRangeOffsets;
+	}
+
+	@Override
+	public void notifyCheckpointComplete(long completedCheckpointId) {
+		synchronized (pendingSnapshots) {
+			if (completedCheckpointId > lastCompletedCheckpointId) {
+				// a completed savepoint has no incremental snapshot, so the next checkpoint is a full snapshot again
+				IncrementalSnapshot completedSnapshot = pendingSnapshots.get(completedCheckpointId);
+				lastCompletedSnapshot = completedSnapshot != null && completedSnapshot.chain != null ?
+					completedSnapshot : null;
+				lastCompletedCheckpointId = completedCheckpointId;
+				pendingSnapshots.headMap(completedCheckpointId + 1).clear();
+			}
+		}
+	}
+
+	@Override
+	public void notifyCheckpointAborted(long abortedCheckpointId) {
+		synchronized (pendingSnapshots) {
+			pendingSnapshots.remove(abortedCheckpointId);
+		}
+	}
+
+	@Override
+	public <N, V> StateTable<K, N, V> newStateTable(
+		InternalKeyContext<K> keyContext,
+		RegisteredKeyValueStateBackendMetaInfo<N, V> newMetaInfo,
+		TypeSerializer<K> keySerializer) {
+		// only the CopyOnWriteStateTable tracks modifications
+		return isAsynchronous() ?
+			new CopyOnWriteStateTable<>(keyContext, newMetaInfo, keySerializer) :
+			super.newStateTable(keyContext, newMetaInfo, keySerializer);
+	}
+
+	private boolean isTrackingSupported() {
+		for (StateTable<K, ?, ?> stateTable : registeredKVStates.values()) {
+			if (!(stateTable instanceof CopyOnWriteStateTable)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The snapshot of one checkpoint, which is needed to write the changes of later checkpoints.
+	 */
+	private final class IncrementalSnapshot {
+
+		/** The key/value states at the time of the snapshot. */
+		@Nonnull
+		final Map<String, StateTable<K, ?, ?>> stateTables;
+
+		/** The versions of the state maps of each key/value state at the time of the snapshot. */
+		@Nonnull
+		final Map<String, int[]> snapshotVersions;
+
+		/** The files of the snapshot, available once they are written. */
+		@Nullable
+		HeapIncrementalSnapshotChain chain;
+
+		IncrementalSnapshot(
+			@Nonnull Map<String, StateTable<K, ?, ?>> stateTables,
+			@Nonnull Map<String, int[]> snapshotVersions) {
+			this.stateTables = stateTables;
+			this.snapshotVersions = snapshotVersions;
+		}
+
+		/**
+		 * Returns whether the snapshot was taken from exactly the given state tables. Otherwise, the versions of
+		 * the snapshot do not apply to the tables.
+		 */
+		boolean hasSameStateTables(Map<String, StateTable<K, ?, ?>> currentStateTables) {
+			if (stateTables.size() != currentStateTables.size()) {
+				return false;
+			}
+			for (Map.Entry<String, StateTable<K, ?, ?>> stateTable : currentStateTables.entrySet()) {
+				if (stateTables.get(stateTable.getKey()) != stateTable.getValue()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -308,12 +308,12 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 	@Override
 	public void notifyCheckpointComplete(long checkpointId) {
-		//Nothing to do
+		snapshotStrategy.notifyCheckpointComplete(checkpointId);
 	}
 
 	@Override
 	public void notifyCheckpointAborted(long checkpointId) {
-		// nothing to do
+		snapshotStrategy.notifyCheckpointAborted(checkpointId);
 	}
 
 	@Override
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.state.heap;
 
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.CheckpointingOptions;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackendBuilder;
@@ -35,6 +36,8 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
+
 /**
  * Builder class for {@link HeapKeyedStateBackend} which handles all necessary initializations and clean ups.
  *
@@ -53,7 +56,14 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 	 * Whether asynchronous snapshot is enabled.
 	 */
 	private final boolean asynchronousSnapshots;
-
+	/**
+	 * Whether incremental checkpoints are enabled, which requires asynchronous snapshots.
+	 */
+	private boolean enableIncrementalCheckpointing = false;
+	/**
+	 * The maximum number of consecutive incremental checkpoints that only write changes.
+	 */
+	private int maxIncrementalDeltas = CheckpointingOptions.FS_INCREMENTAL_MAX_DELTAS.defaultValue();
 
 	public HeapKeyedStateBackendBuilder(
 		TaskKvStateRegistry kvStateRegistry,
@@ -85,6 +95,17 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 		this.asynchronousSnapshots = asynchronousSnapshots;
 	}
 
+	public HeapKeyedStateBackendBuilder<K> setEnableIncrementalCheckpointing(boolean enableIncrementalCheckpointing) {
+		this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
+		return this;
+	}
+
+	public HeapKeyedStateBackendBuilder<K> setMaxIncrementalDeltas(int maxIncrementalDeltas) {
+		checkArgument(maxIncrementalDeltas >= 0, "The maximum number of deltas should be non negative.");
+		this.maxIncrementalDeltas = maxIncrementalDeltas;
+		return this;
+	}
+
 	@Override
 	public HeapKeyedStateBackend<K> build() throws BackendBuildingException {
 		// Map of registered Key/Value states
@@ -136,9 +157,20 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 		Map<String, StateTable<K, ?, ?>> registeredKVStates,
 		Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates,
 		CloseableRegistry cancelStreamRegistry) {
-		SnapshotStrategySynchronicityBehavior<K> synchronicityTrait = asynchronousSnapshots ?
-			new AsyncSnapshotStrategySynchronicityBehavior<>() :
-			new SyncSnapshotStrategySynchronicityBehavior<>();
+		SnapshotStrategySynchronicityBehavior<K> synchronicityTrait =
+			createSnapshotStrategySynchronicityBehavior(asynchronousSnapshots, cancelStreamRegistry);
+		if (enableIncrementalCheckpointing && asynchronousSnapshots) {
+			return new HeapIncrementalSnapshotStrategy<>(
+				synchronicityTrait,
+				registeredKVStates,
+				registeredPQStates,
+				keyGroupCompressionDecorator,
+				localRecoveryConfig,
+				keyGroupRange,
+				cancelStreamRegistry,
+				keySerializerProvider,
+				maxIncrementalDeltas);
+		}
 		return new HeapSnapshotStrategy<>(
 			synchronicityTrait,
 			registeredKVStates,
@@ -149,4 +181,19 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
 			cancelStreamRegistry,
 			keySerializerProvider);
 	}
+
+	/**
+	 * Creates the synchronicity behavior of the snapshot strategy, which also creates the {@link StateTable}s of the
+	 * backend. Subclasses can override this to use different state tables.
+	 *
+	 * @param asynchronousSnapshots whether asynchronous snapshots are enabled.
+	 * @param backendCloseableRegistry registry of the backend, closed when the backend is disposed.
+	 */
+	protected SnapshotStrategySynchronicityBehavior<K> createSnapshotStrategySynchronicityBehavior(
+		boolean asynchronousSnapshots,
+		CloseableRegistry backendCloseableRegistry) {
+		return asynchronousSnapshots ?
+			new AsyncSnapshotStrategySynchronicityBehavior<>() :
+			new SyncSnapshotStrategySynchronicityBehavior<>();
+	}
 }
@@ -24,6 +24,7 @@ import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FSDataInputStream;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyExtractorFunction;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
@@ -40,6 +41,7 @@ import org.apache.flink.runtime.state.StateSerializerProvider;
 import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
 import org.apache.flink.runtime.state.StateSnapshotRestore;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.UncompressedStreamCompressionDecorator;
 import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
 import org.apache.flink.util.Preconditions;
@@ -74,6 +76,7 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 	private final int numberOfKeyGroups;
 	private final HeapSnapshotStrategy<K> snapshotStrategy;
 	private final InternalKeyContext<K> keyContext;
+	private boolean keySerializerRestored;
 
 	HeapRestoreOperation(
 		@Nonnull Collection<KeyedStateHandle> restoreStateHandles,
@@ -106,7 +109,7 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 		registeredKVStates.clear();
 		registeredPQStates.clear();
 
-		boolean keySerializerRestored = false;
+		keySerializerRestored = false;
 
 		for (KeyedStateHandle keyedStateHandle : restoreStateHandles) {
 
@@ -114,6 +117,11 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 				continue;
 			}
 
+			if (keyedStateHandle instanceof IncrementalRemoteKeyedStateHandle) {
+				restoreIncrementalStateHandle((IncrementalRemoteKeyedStateHandle) keyedStateHandle);
+				continue;
+			}
+
 			if (!(keyedStateHandle instanceof KeyGroupsStateHandle)) {
 				throw new IllegalStateException("Unexpected state handle type, " +
 					"expected: " + KeyGroupsStateHandle.class +
@@ -121,50 +129,100 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 			}
 
 			KeyGroupsStateHandle keyGroupsStateHandle = (KeyGroupsStateHandle) keyedStateHandle;
-			FSDataInputStream fsDataInputStream = keyGroupsStateHandle.openInputStream();
-			cancelStreamRegistry.registerCloseable(fsDataInputStream);
+			restoreStateFile(keyGroupsStateHandle, keyGroupsStateHandle.getGroupRangeOffsets(), false, true);
+		}
+		return null;
+	}
 
-			try {
-				DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(fsDataInputStream);
+	/**
+	 * Restores the files of an incremental snapshot of the {@link HeapIncrementalSnapshotStrategy} in the order of
+	 * its {@link HeapIncrementalSnapshotChain}: the full snapshot first, then the changes of each later checkpoint.
+	 */
+	private void restoreIncrementalStateHandle(IncrementalRemoteKeyedStateHandle stateHandle) throws Exception {
+
+		final HeapIncrementalSnapshotChain chain;
+		FSDataInputStream metaInputStream = stateHandle.getMetaStateHandle().openInputStream();
+		cancelStreamRegistry.registerCloseable(metaInputStream);
+		try {
+			chain = HeapIncrementalSnapshotChain.read(new DataInputViewStreamWrapper(metaInputStream));
+		} finally {
+			if (cancelStreamRegistry.unregisterCloseable(metaInputStream)) {
+				IOUtils.closeQuietly(metaInputStream);
+			}
+		}
 
-				KeyedBackendSerializationProxy<K> serializationProxy =
-					new KeyedBackendSerializationProxy<>(userCodeClassLoader);
+		final List<HeapIncrementalSnapshotChain.Element> elements = chain.getElements();
+		for (int i = 0; i < elements.size(); i++) {
+			HeapIncrementalSnapshotChain.Element element = elements.get(i);
+			StreamStateHandle stateFile = stateHandle.getSharedState().get(element.getHandleId());
+			Preconditions.checkState(stateFile != null,
+				"Missing file " + element.getHandleId() + " of incremental heap snapshot.");
 
-				serializationProxy.read(inView);
+			// the handle covers its whole key-group range after rescaling, only our key-groups are restored
+			KeyGroupRangeOffsets keyGroupOffsets =
+				new KeyGroupRangeOffsets(stateHandle.getKeyGroupRange(), element.getKeyGroupOffsets())
+					.getIntersection(keyGroupRange);
 
-				if (!keySerializerRestored) {
-					// check for key serializer compatibility; this also reconfigures the
-					// key serializer to be compatible, if it is required and is possible
-					TypeSerializerSchemaCompatibility<K> keySerializerSchemaCompat =
-						keySerializerProvider.setPreviousSerializerSnapshotForRestoredState(serializationProxy.getKeySerializerSnapshot());
-					if (keySerializerSchemaCompat.isCompatibleAfterMigration() || keySerializerSchemaCompat.isIncompatible()) {
-						throw new StateMigrationException("The new key serializer must be compatible.");
-					}
+			restoreStateFile(stateFile, keyGroupOffsets, element.isDelta(), i == elements.size() - 1);
+		}
+	}
 
-					keySerializerRestored = true;
-				}
+	/**
+	 * Restores the key-groups at the given offsets from a state file that starts with a serialization proxy.
+	 *
+	 * @param delta whether the file holds the changes of the key/value states instead of their full state.
+	 * @param restorePriorityQueues whether the priority queue states in the file are restored.
+	 */
+	private void restoreStateFile(
+		StreamStateHandle stateFile,
+		KeyGroupRangeOffsets keyGroupOffsets,
+		boolean delta,
+		boolean restorePriorityQueues) throws Exception {
+
+		FSDataInputStream fsDataInputStream = stateFile.openInputStream();
+		cancelStreamRegistry.registerCloseable(fsDataInputStream);
 
-				List<StateMetaInfoSnapshot> restoredMetaInfos =
-					serializationProxy.getStateMetaInfoSnapshots();
+		try {
+			DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(fsDataInputStream);
 
-				final Map<Integer, StateMetaInfoSnapshot> kvStatesById = new HashMap<>();
+			KeyedBackendSerializationProxy<K> serializationProxy =
+				new KeyedBackendSerializationProxy<>(userCodeClassLoader);
 
-				createOrCheckStateForMetaInfo(restoredMetaInfos, kvStatesById);
+			serializationProxy.read(inView);
 
-				readStateHandleStateData(
-					fsDataInputStream,
-					inView,
-					keyGroupsStateHandle.getGroupRangeOffsets(),
-					kvStatesById, restoredMetaInfos.size(),
-					serializationProxy.getReadVersion(),
-					serializationProxy.isUsingKeyGroupCompression());
-			} finally {
-				if (cancelStreamRegistry.unregisterCloseable(fsDataInputStream)) {
-					IOUtils.closeQuietly(fsDataInputStream);
+			if (!keySerializerRestored) {
+				// check for key serializer compatibility; this also reconfigures the
+				// key serializer to be compatible, if it is required and is possible
+				TypeSerializerSchemaCompatibility<K> keySerializerSchemaCompat =
+					keySerializerProvider.setPreviousSerializerSnapshotForRestoredState(serializationProxy.getKeySerializerSnapshot());
+				if (keySerializerSchemaCompat.isCompatibleAfterMigration() || keySerializerSchemaCompat.isIncompatible()) {
+					throw new StateMigrationException("The new key serializer must be compatible.");
 				}
+
+				keySerializerRestored = true;
+			}
+
+			List<StateMetaInfoSnapshot> restoredMetaInfos =
+				serializationProxy.getStateMetaInfoSnapshots();
+
+			final Map<Integer, StateMetaInfoSnapshot> kvStatesById = new HashMap<>();
+
+			createOrCheckStateForMetaInfo(restoredMetaInfos, kvStatesById);
+
+			readStateHandleStateData(
+				fsDataInputStream,
+				inView,
+				keyGroupOffsets,
+				kvStatesById, restoredMetaInfos.size(),
+				serializationProxy.getReadVersion(),
+				serializationProxy.isUsingKeyGroupCompression(),
+				delta,
+				restorePriorityQueues);
+		} finally {
+			if (cancelStreamRegistry.unregisterCloseable(fsDataInputStream)) {
+				IOUtils.closeQuietly(fsDataInputStream);
 			}
 		}
-		return null;
 	}
 
 	private void createOrCheckStateForMetaInfo(
@@ -230,7 +288,9 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 		Map<Integer, StateMetaInfoSnapshot> kvStatesById,
 		int numStates,
 		int readVersion,
-		boolean isCompressed) throws IOException {
+		boolean isCompressed,
+		boolean delta,
+		boolean restorePriorityQueues) throws IOException {
 
 		final StreamCompressionDecorator streamCompressionDecorator = isCompressed ?
 			SnappyStreamCompressionDecorator.INSTANCE : UncompressedStreamCompressionDecorator.INSTANCE;
@@ -256,7 +316,9 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 					kvStatesById,
 					keyGroupIndex,
 					numStates,
-					readVersion);
+					readVersion,
+					delta,
+					restorePriorityQueues);
 			}
 		}
 	}
@@ -266,7 +328,9 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 		Map<Integer, StateMetaInfoSnapshot> kvStatesById,
 		int keyGroupIndex,
 		int numStates,
-		int readVersion) throws IOException {
+		int readVersion,
+		boolean delta,
+		boolean restorePriorityQueues) throws IOException {
 
 		DataInputViewStreamWrapper inView =
 			new DataInputViewStreamWrapper(inputStream);
@@ -275,21 +339,27 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
 
 			final int kvStateId = inView.readShort();
 			final StateMetaInfoSnapshot stateMetaInfoSnapshot = kvStatesById.get(kvStateId);
-			final StateSnapshotRestore registeredState;
+			final StateSnapshotKeyGroupReader keyGroupReader;
 
 			switch (stateMetaInfoSnapshot.getBackendStateType()) {
 				case KEY_VALUE:
-					registeredState = registeredKVStates.get(stateMetaInfoSnapshot.getName());
+					StateTable<K, ?, ?> stateTable = registeredKVStates.get(stateMetaInfoSnapshot.getName());
+					keyGroupReader = delta ?
+						StateTableByKeyGroupReaders.deltaReaderForVersion(stateTable, readVersion) :
+						stateTable.keyGroupReader(readVersion);
 					break;
 				case PRIORITY_QUEUE:
-					registeredState = registeredPQStates.get(stateMetaInfoSnapshot.getName());
+					if (!restorePriorityQueues) {
+						// priority queues are written after all key/value states of the key-group
+						return;
+					}
+					keyGroupReader = registeredPQStates.get(stateMetaInfoSnapshot.getName()).keyGroupReader(readVersion);
 					break;
 				default:
 					throw new IllegalStateException("Unexpected state type: " +
 						stateMetaInfoSnapshot.getBackendStateType() + ".");
 			}
 
-			StateSnapshotKeyGroupReader keyGroupReader = registeredState.keyGroupReader(readVersion);
 			keyGroupReader.readMappingsInKeyGroup(inView, keyGroupIndex);
 		}
 	}
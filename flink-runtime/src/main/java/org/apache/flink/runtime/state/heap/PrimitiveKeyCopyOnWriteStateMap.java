@@ -0,0 +1,634 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link StateMap} for states that are keyed by {@link Long} or {@link Integer} keys and scoped to the
+ * {@link VoidNamespace}. Keys are kept unboxed in an open-addressed {@code long[]} with linear probing, the states
+ * in a parallel {@code Object[]}, so that no entry objects, boxed keys or namespace references are retained per
+ * mapping.
+ *
+ * <p>The map offers the same snapshot isolation as {@link CopyOnWriteStateMap}. A snapshot holds on to the current
+ * key and state arrays and marks them as shared; the first structural or value modification after the snapshot copies
+ * both arrays before writing, so the snapshot never observes later changes of the map layout. State objects themselves
+ * are copied on access through the state serializer if they are older than the latest unreleased snapshot, tracked by a
+ * per-slot state version.
+ *
+ * <p>The namespace arguments of all operations are ignored, because the map is only used for states in the
+ * {@link VoidNamespace}. See {@link PrimitiveKeyCopyOnWriteStateTable#isSupported(TypeSerializer, TypeSerializer)}.
+ *
+ * @param <K> type of key, either {@link Long} or {@link Integer}.
+ * @param <N> type of namespace, always {@link VoidNamespace}.
+ * @param <S> type of value.
+ */
+public class PrimitiveKeyCopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
+
+	/**
+	 * Default capacity for a {@link PrimitiveKeyCopyOnWriteStateMap}. Must be a power of two.
+	 */
+	public static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * Max capacity for a {@link PrimitiveKeyCopyOnWriteStateMap}. Must be a power of two.
+	 */
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	/**
+	 * Placeholder stored in the state array for a mapping with a {@code null} state, because {@code null} marks a free
+	 * slot.
+	 */
+	private static final Object NULL_STATE = new Object();
+
+	/**
+	 * The serializer of the state.
+	 */
+	protected final TypeSerializer<S> stateSerializer;
+
+	/**
+	 * Whether the keys are {@link Integer}s, otherwise they are {@link Long}s.
+	 */
+	private final boolean intKeys;
+
+	/**
+	 * The only namespace of the entries in this map.
+	 */
+	private final N namespace;
+
+	/**
+	 * Maintains an ordered set of version ids that are still in use by unreleased snapshots.
+	 */
+	private final TreeSet<Integer> snapshotVersions;
+
+	/**
+	 * The keys of the mappings. A slot is free if the slot in {@link #states} is {@code null}.
+	 */
+	private long[] keys;
+
+	/**
+	 * The states of the mappings, {@link #NULL_STATE} for a {@code null} state and {@code null} for a free slot.
+	 */
+	private Object[] states;
+
+	/**
+	 * The version of the state object in each slot. This is meta data for copy-on-write of the state objects. This
+	 * array is never shared with a snapshot.
+	 */
+	private int[] stateVersions;
+
+	/**
+	 * Whether {@link #keys} and {@link #states} are referenced by an unreleased snapshot and must be copied before
+	 * the next modification.
+	 */
+	private boolean arraysSharedWithSnapshot;
+
+	/**
+	 * The current number of mappings.
+	 */
+	private int size;
+
+	/**
+	 * The map is resized when its size exceeds this threshold.
+	 */
+	private int threshold;
+
+	/**
+	 * The current version of this map. Used for copy-on-write mechanics.
+	 */
+	private int stateMapVersion;
+
+	/**
+	 * The highest version of this map that is still required by any unreleased snapshot.
+	 */
+	private int highestRequiredSnapshotVersion;
+
+	/**
+	 * Incremented by structural modifications to allow (best effort) detection of concurrent modification.
+	 */
+	private int modCount;
+
+	/**
+	 * Constructs a new {@code PrimitiveKeyCopyOnWriteStateMap} with default capacity of {@code DEFAULT_CAPACITY}.
+	 *
+	 * @param keySerializer   the serializer of the key, either {@link LongSerializer} or {@link IntSerializer}.
+	 * @param stateSerializer the serializer of the state.
+	 */
+	PrimitiveKeyCopyOnWriteStateMap(TypeSerializer<K> keySerializer, TypeSerializer<S> stateSerializer) {
+		this(DEFAULT_CAPACITY, keySerializer, stateSerializer);
+	}
+
+	@SuppressWarnings("unchecked")
+	private PrimitiveKeyCopyOnWriteStateMap(
+		int capacity,
+		TypeSerializer<K> keySerializer,
+		TypeSerializer<S> stateSerializer) {
+		Preconditions.checkArgument(
+			keySerializer instanceof LongSerializer || keySerializer instanceof IntSerializer,
+			"Unsupported key serializer: %s", keySerializer);
+		Preconditions.checkArgument(capacity > 0, "Capacity: %s", capacity);
+
+		this.stateSerializer = Preconditions.checkNotNull(stateSerializer);
+		this.intKeys = keySerializer instanceof IntSerializer;
+		this.namespace = (N) VoidNamespace.INSTANCE;
+		this.snapshotVersions = new TreeSet<>();
+		this.stateMapVersion = 0;
+		this.highestRequiredSnapshotVersion = 0;
+		this.arraysSharedWithSnapshot = false;
+		allocateArrays(MathUtils.roundUpToPowerOfTwo(Math.min(capacity, MAXIMUM_CAPACITY)));
+	}
+
+	// Public API from StateMap ------------------------------------------------------------------------------
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public S get(K key, N namespace) {
+		final int index = findSlot(toPrimitive(key));
+		if (index < 0) {
+			return null;
+		}
+
+		// copy-on-write check for state
+		if (stateVersions[index] < highestRequiredSnapshotVersion) {
+			setStateAt(index, copyState(stateAt(index)));
+		}
+		return stateAt(index);
+	}
+
+	@Override
+	public boolean containsKey(K key, N namespace) {
+		return findSlot(toPrimitive(key)) >= 0;
+	}
+
+	@Override
+	public void put(K key, N namespace, S value) {
+		setStateAt(putSlot(toPrimitive(key)), value);
+	}
+
+	@Override
+	public S putAndGetOld(K key, N namespace, S state) {
+		final int index = putSlot(toPrimitive(key));
+
+		// copy-on-write check for state
+		final S oldState = stateVersions[index] < highestRequiredSnapshotVersion ?
+			copyState(stateAt(index)) :
+			stateAt(index);
+
+		setStateAt(index, state);
+		return oldState;
+	}
+
+	@Override
+	public void remove(K key, N namespace) {
+		final int index = findSlot(toPrimitive(key));
+		if (index >= 0) {
+			removeAt(index);
+		}
+	}
+
+	@Override
+	public S removeAndGetOld(K key, N namespace) {
+		final int index = findSlot(toPrimitive(key));
+		if (index < 0) {
+			return null;
+		}
+
+		// copy-on-write check for state
+		final S oldState = stateVersions[index] < highestRequiredSnapshotVersion ?
+			copyState(stateAt(index)) :
+			stateAt(index);
+
+		removeAt(index);
+		return oldState;
+	}
+
+	@Override
+	public Stream<K> getKeys(N namespace) {
+		return StreamSupport.stream(spliterator(), false)
+			.filter(entry -> entry.getNamespace().equals(namespace))
+			.map(StateEntry::getKey);
+	}
+
+	@Override
+	public <T> void transform(
+		K key,
+		N namespace,
+		T value,
+		StateTransformationFunction<S, T> transformation) throws Exception {
+
+		final int index = putSlot(toPrimitive(key));
+
+		// copy-on-write check for state
+		final S state = stateVersions[index] < highestRequiredSnapshotVersion ?
+			copyState(stateAt(index)) :
+			stateAt(index);
+
+		setStateAt(index, transformation.apply(state, value));
+	}
+
+	@Override
+	public int sizeOfNamespace(Object namespace) {
+		return this.namespace.equals(namespace) ? size : 0;
+	}
+
+	// Private implementation details of the API methods ---------------------------------------------------------------
+
+	/**
+	 * Returns the slot of the given key, or {@code -(insertionSlot + 1)} if the key is not contained.
+	 */
+	private int findSlot(long key) {
+		final long[] tabKeys = keys;
+		final Object[] tabStates = states;
+		final int mask = tabKeys.length - 1;
+
+		int index = hash(key) & mask;
+		while (tabStates[index] != null) {
+			if (tabKeys[index] == key) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return -(index + 1);
+	}
+
+	/**
+	 * Returns the slot of the given key, inserting a new mapping with a {@code null} state if the key is not
+	 * contained. The returned slot can be written without further copy-on-write checks of the arrays.
+	 */
+	private int putSlot(long key) {
+		int index = findSlot(key);
+		if (index >= 0) {
+			ensureExclusiveArrays();
+			return index;
+		}
+
+		if (size >= threshold) {
+			// the new arrays are exclusive to this map
+			resize(keys.length << 1);
+			index = findSlot(key);
+		} else {
+			ensureExclusiveArrays();
+		}
+
+		index = -(index + 1);
+		keys[index] = key;
+		states[index] = NULL_STATE;
+		stateVersions[index] = stateMapVersion;
+		++size;
+		++modCount;
+		return index;
+	}
+
+	/**
+	 * Removes the mapping in the given slot. The following entries of the probe sequence are shifted back so that no
+	 * tombstones are required.
+	 */
+	private void removeAt(int index) {
+		ensureExclusiveArrays();
+
+		final long[] tabKeys = keys;
+		final Object[] tabStates = states;
+		final int[] tabVersions = stateVersions;
+		final int mask = tabKeys.length - 1;
+
+		int gap = index;
+		int next = (gap + 1) & mask;
+		while (tabStates[next] != null) {
+			final int home = hash(tabKeys[next]) & mask;
+			// the entry can fill the gap if its home slot is not cyclically between gap (exclusive) and next
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				tabKeys[gap] = tabKeys[next];
+				tabStates[gap] = tabStates[next];
+				tabVersions[gap] = tabVersions[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+
+		tabKeys[gap] = 0L;
+		tabStates[gap] = null;
+		--size;
+		++modCount;
+	}
+
+	/**
+	 * Copies the key and state arrays if they are still referenced by a snapshot.
+	 */
+	private void ensureExclusiveArrays() {
+		if (arraysSharedWithSnapshot) {
+			keys = keys.clone();
+			states = states.clone();
+			arraysSharedWithSnapshot = false;
+		}
+	}
+
+	private void resize(int newCapacity) {
+		if (keys.length == MAXIMUM_CAPACITY) {
+			throw new IllegalStateException("Maximum capacity of PrimitiveKeyCopyOnWriteStateMap is reached and the " +
+				"job cannot continue. Please consider scaling-out your job or using a different keyed state backend " +
+				"implementation!");
+		}
+
+		final long[] oldKeys = keys;
+		final Object[] oldStates = states;
+		final int[] oldVersions = stateVersions;
+
+		allocateArrays(newCapacity);
+
+		final long[] newKeys = keys;
+		final Object[] newStates = states;
+		final int[] newVersions = stateVersions;
+		final int mask = newCapacity - 1;
+
+		for (int i = 0; i < oldStates.length; ++i) {
+			if (oldStates[i] != null) {
+				int index = hash(oldKeys[i]) & mask;
+				while (newStates[index] != null) {
+					index = (index + 1) & mask;
+				}
+				newKeys[index] = oldKeys[i];
+				newStates[index] = oldStates[i];
+				newVersions[index] = oldVersions[i];
+			}
+		}
+		++modCount;
+	}
+
+	/**
+	 * Allocates arrays of the given capacity and sets the threshold accordingly. The new arrays are not shared.
+	 */
+	private void allocateArrays(int capacity) {
+		keys = new long[capacity];
+		states = new Object[capacity];
+		stateVersions = new int[capacity];
+		arraysSharedWithSnapshot = false;
+		// linear probing degrades quickly with the load factor, so we resize at 5/8 capacity
+		threshold = (capacity >> 1) + (capacity >> 3);
+	}
+
+	@SuppressWarnings("unchecked")
+	private S stateAt(int index) {
+		final Object state = states[index];
+		return state == NULL_STATE ? null : (S) state;
+	}
+
+	/**
+	 * Sets the state in the given slot. The arrays must be exclusive to this map.
+	 */
+	private void setStateAt(int index, S state) {
+		ensureExclusiveArrays();
+		states[index] = state == null ? NULL_STATE : state;
+		stateVersions[index] = stateMapVersion;
+	}
+
+	private S copyState(S state) {
+		return state == null ? null : getStateSerializer().copy(state);
+	}
+
+	private static int hash(long key) {
+		return MathUtils.bitMix((int) (key ^ (key >>> 32)));
+	}
+
+	private static long toPrimitive(Object key) {
+		return ((Number) key).longValue();
+	}
+
+	@SuppressWarnings("unchecked")
+	K toKey(long key) {
+		if (intKeys) {
+			return (K) Integer.valueOf((int) key);
+		}
+		return (K) Long.valueOf(key);
+	}
+
+	N getNamespace() {
+		return namespace;
+	}
+
+	// Snapshotting ----------------------------------------------------------------------------------------------------
+
+	/**
+	 * Registers a new snapshot and marks the current arrays as shared. This method must be called by the same Thread
+	 * that does modifications to the map.
+	 *
+	 * @return the version of the registered snapshot.
+	 */
+	int registerSnapshot() {
+		// we guard against concurrent modifications of highestRequiredSnapshotVersion between snapshot and release.
+		synchronized (snapshotVersions) {
+			if (++stateMapVersion < 0) {
+				// this is just a safety net against overflows, but should never happen in practice
+				throw new IllegalStateException("Version count overflow in PrimitiveKeyCopyOnWriteStateMap. Enforcing restart.");
+			}
+
+			highestRequiredSnapshotVersion = stateMapVersion;
+			snapshotVersions.add(highestRequiredSnapshotVersion);
+			arraysSharedWithSnapshot = true;
+			return stateMapVersion;
+		}
+	}
+
+	@VisibleForTesting
+	void releaseSnapshot(int snapshotVersion) {
+		synchronized (snapshotVersions) {
+			Preconditions.checkState(snapshotVersions.remove(snapshotVersion), "Attempt to release unknown snapshot version");
+			if (snapshotVersions.isEmpty()) {
+				highestRequiredSnapshotVersion = 0;
+				// no snapshot references the current arrays anymore, stale reads only cause an unnecessary copy
+				arraysSharedWithSnapshot = false;
+			} else {
+				highestRequiredSnapshotVersion = snapshotVersions.last();
+			}
+		}
+	}
+
+	long[] getKeysArray() {
+		return keys;
+	}
+
+	Object[] getStatesArray() {
+		return states;
+	}
+
+	static boolean isNullState(Object state) {
+		return state == NULL_STATE;
+	}
+
+	/**
+	 * Creates a snapshot of this {@link PrimitiveKeyCopyOnWriteStateMap}, to be written in checkpointing. Users should
+	 * call {@link #releaseSnapshot(StateMapSnapshot)} after using the returned object.
+	 *
+	 * @return a snapshot from this {@link PrimitiveKeyCopyOnWriteStateMap}, for checkpointing.
+	 */
+	@Nonnull
+	@Override
+	public PrimitiveKeyCopyOnWriteStateMapSnapshot<K, N, S> stateSnapshot() {
+		return new PrimitiveKeyCopyOnWriteStateMapSnapshot<>(this);
+	}
+
+	@Override
+	public void releaseSnapshot(StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> snapshotToRelease) {
+
+		PrimitiveKeyCopyOnWriteStateMapSnapshot<K, N, S> snapshot =
+			(PrimitiveKeyCopyOnWriteStateMapSnapshot<K, N, S>) snapshotToRelease;
+
+		Preconditions.checkArgument(snapshot.isOwner(this),
+			"Cannot release snapshot which is owned by a different state map.");
+
+		releaseSnapshot(snapshot.getSnapshotVersion());
+	}
+
+	@VisibleForTesting
+	Set<Integer> getSnapshotVersions() {
+		return snapshotVersions;
+	}
+
+	public TypeSerializer<S> getStateSerializer() {
+		return stateSerializer;
+	}
+
+	// Iteration  ------------------------------------------------------------------------------------------------------
+
+	@Nonnull
+	@Override
+	public Iterator<StateEntry<K, N, S>> iterator() {
+		return new StateEntryIterator();
+	}
+
+	@Override
+	public InternalKvState.StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(int recommendedMaxNumberOfReturnedRecords) {
+		return new StateIncrementalVisitorImpl(recommendedMaxNumberOfReturnedRecords);
+	}
+
+	/**
+	 * Iterator over state entries in a {@link PrimitiveKeyCopyOnWriteStateMap} which does not tolerate concurrent
+	 * modifications.
+	 */
+	class StateEntryIterator implements Iterator<StateEntry<K, N, S>> {
+
+		private final int expectedModCount;
+		private int nextIndex;
+
+		StateEntryIterator() {
+			this.expectedModCount = modCount;
+			this.nextIndex = advance(0);
+		}
+
+		private int advance(int index) {
+			final Object[] tabStates = states;
+			while (index < tabStates.length && tabStates[index] == null) {
+				++index;
+			}
+			return index;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextIndex < states.length;
+		}
+
+		@Override
+		public StateEntry<K, N, S> next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final int index = nextIndex;
+			nextIndex = advance(index + 1);
+			return new StateEntry.SimpleStateEntry<>(toKey(keys[index]), namespace, stateAt(index));
+		}
+	}
+
+	/**
+	 * Incremental visitor over state entries in a {@link PrimitiveKeyCopyOnWriteStateMap}. Entries that are moved by
+	 * removals or resizes between two calls may be skipped or visited twice, which is acceptable for incremental
+	 * cleanup.
+	 */
+	class StateIncrementalVisitorImpl implements InternalKvState.StateIncrementalVisitor<K, N, S> {
+
+		private final int maxReturnedEntries;
+		private final Collection<StateEntry<K, N, S>> entriesToReturn;
+		private int nextIndex;
+
+		StateIncrementalVisitorImpl(int recommendedMaxNumberOfReturnedRecords) {
+			this.maxReturnedEntries = Math.max(1, recommendedMaxNumberOfReturnedRecords);
+			this.entriesToReturn = new ArrayList<>(Math.min(maxReturnedEntries, 16));
+			this.nextIndex = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return size > 0 && nextIndex < states.length;
+		}
+
+		@Override
+		public Collection<StateEntry<K, N, S>> nextEntries() {
+			if (!hasNext()) {
+				return null;
+			}
+
+			entriesToReturn.clear();
+			final Object[] tabStates = states;
+			while (nextIndex < tabStates.length && entriesToReturn.size() < maxReturnedEntries) {
+				final int index = nextIndex++;
+				if (tabStates[index] != null) {
+					entriesToReturn.add(new StateEntry.SimpleStateEntry<>(toKey(keys[index]), namespace, stateAt(index)));
+				}
+			}
+			return entriesToReturn;
+		}
+
+		@Override
+		public void remove(StateEntry<K, N, S> stateEntry) {
+			PrimitiveKeyCopyOnWriteStateMap.this.remove(stateEntry.getKey(), stateEntry.getNamespace());
+		}
+
+		@Override
+		public void update(StateEntry<K, N, S> stateEntry, S newValue) {
+			PrimitiveKeyCopyOnWriteStateMap.this.put(stateEntry.getKey(), stateEntry.getNamespace(), newValue);
+		}
+	}
+}
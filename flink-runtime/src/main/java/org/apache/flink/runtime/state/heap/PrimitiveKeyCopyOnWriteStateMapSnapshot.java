@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * This class represents the snapshot of a {@link PrimitiveKeyCopyOnWriteStateMap}.
+ *
+ * <p>The snapshot references the key and state arrays of the map as by the time this snapshot was created. The map
+ * copies those arrays before its next modification, and copies state objects before handing them out for
+ * modification, so that the snapshot stays isolated. All objects in this snapshot must be considered as READ-ONLY,
+ * see {@link CopyOnWriteStateMapSnapshot}.
+ *
+ * @param <K> type of key
+ * @param <N> type of namespace
+ * @param <S> type of state
+ */
+public class PrimitiveKeyCopyOnWriteStateMapSnapshot<K, N, S>
+	extends StateMapSnapshot<K, N, S, PrimitiveKeyCopyOnWriteStateMap<K, N, S>> {
+
+	/**
+	 * Version of the {@link PrimitiveKeyCopyOnWriteStateMap} when this snapshot was created. This can be used to
+	 * release the snapshot.
+	 */
+	private final int snapshotVersion;
+
+	/**
+	 * The keys of the map, as by the time this snapshot was created.
+	 */
+	@Nonnull
+	private final long[] snapshotKeys;
+
+	/**
+	 * The states of the map, as by the time this snapshot was created. Free slots are {@code null}.
+	 */
+	@Nonnull
+	private final Object[] snapshotStates;
+
+	/** The number of mappings in the snapshot. */
+	@Nonnegative
+	private final int numberOfEntriesInSnapshotData;
+
+	/**
+	 * Whether this snapshot has been released.
+	 */
+	private boolean released;
+
+	/**
+	 * Creates a new {@link PrimitiveKeyCopyOnWriteStateMapSnapshot}.
+	 *
+	 * @param owningStateMap the {@link PrimitiveKeyCopyOnWriteStateMap} for which this object represents a snapshot.
+	 */
+	PrimitiveKeyCopyOnWriteStateMapSnapshot(PrimitiveKeyCopyOnWriteStateMap<K, N, S> owningStateMap) {
+		super(owningStateMap);
+
+		this.snapshotVersion = owningStateMap.registerSnapshot();
+		this.snapshotKeys = owningStateMap.getKeysArray();
+		this.snapshotStates = owningStateMap.getStatesArray();
+		this.numberOfEntriesInSnapshotData = owningStateMap.size();
+		this.released = false;
+	}
+
+	@Override
+	public void release() {
+		if (!released) {
+			owningStateMap.releaseSnapshot(this);
+			released = true;
+		}
+	}
+
+	public boolean isReleased() {
+		return released;
+	}
+
+	/**
+	 * Returns the internal version of the {@link PrimitiveKeyCopyOnWriteStateMap} when this snapshot was created.
+	 */
+	int getSnapshotVersion() {
+		return snapshotVersion;
+	}
+
+	@Override
+	public void writeState(
+		TypeSerializer<K> keySerializer,
+		TypeSerializer<N> namespaceSerializer,
+		TypeSerializer<S> stateSerializer,
+		@Nonnull DataOutputView dov,
+		@Nullable StateSnapshotTransformer<S> stateSnapshotTransformer) throws IOException {
+
+		final Object[] states;
+		final int size;
+		if (stateSnapshotTransformer == null) {
+			states = snapshotStates;
+			size = numberOfEntriesInSnapshotData;
+		} else {
+			// transform into a separate array, the snapshot arrays may still be shared with the map
+			states = new Object[snapshotStates.length];
+			int count = 0;
+			for (int i = 0; i < snapshotStates.length; ++i) {
+				if (snapshotStates[i] != null) {
+					S transformedValue = stateSnapshotTransformer.filterOrTransform(stateOf(snapshotStates[i]));
+					if (transformedValue != null) {
+						states[i] = transformedValue;
+						++count;
+					}
+				}
+			}
+			size = count;
+		}
+
+		final N namespace = owningStateMap.getNamespace();
+		dov.writeInt(size);
+		for (int i = 0; i < states.length; ++i) {
+			if (states[i] != null) {
+				namespaceSerializer.serialize(namespace, dov);
+				keySerializer.serialize(owningStateMap.toKey(snapshotKeys[i]), dov);
+				stateSerializer.serialize(stateOf(states[i]), dov);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <S> S stateOf(Object state) {
+		return PrimitiveKeyCopyOnWriteStateMap.isNullState(state) ? null : (S) state;
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This implementation of {@link StateTable} uses {@link PrimitiveKeyCopyOnWriteStateMap}. It is used instead of
+ * {@link CopyOnWriteStateTable} for states with {@link Long} or {@link Integer} keys in the
+ * {@link org.apache.flink.runtime.state.VoidNamespace}. This implementation supports asynchronous snapshots and
+ * writes the same format as {@link CopyOnWriteStateTable}.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of state.
+ */
+public class PrimitiveKeyCopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> {
+
+	/**
+	 * Constructs a new {@code PrimitiveKeyCopyOnWriteStateTable}.
+	 *
+	 * @param keyContext    the key context.
+	 * @param metaInfo      the meta information, including the type serializer for state copy-on-write.
+	 * @param keySerializer the serializer of the key, either {@link LongSerializer} or {@link IntSerializer}.
+	 */
+	PrimitiveKeyCopyOnWriteStateTable(
+		InternalKeyContext<K> keyContext,
+		RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo,
+		TypeSerializer<K> keySerializer) {
+		super(keyContext, metaInfo, keySerializer);
+	}
+
+	/**
+	 * Returns true if states with the given key and namespace serializers can be stored in a
+	 * {@link PrimitiveKeyCopyOnWriteStateTable}.
+	 */
+	static boolean isSupported(TypeSerializer<?> keySerializer, TypeSerializer<?> namespaceSerializer) {
+		return (keySerializer instanceof LongSerializer || keySerializer instanceof IntSerializer)
+			&& namespaceSerializer instanceof VoidNamespaceSerializer;
+	}
+
+	@Override
+	protected PrimitiveKeyCopyOnWriteStateMap<K, N, S> createStateMap() {
+		return new PrimitiveKeyCopyOnWriteStateMap<>(getKeySerializer(), getStateSerializer());
+	}
+
+	// Snapshotting ----------------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a snapshot of this {@link PrimitiveKeyCopyOnWriteStateTable}, to be written in checkpointing.
+	 *
+	 * @return a snapshot from this {@link PrimitiveKeyCopyOnWriteStateTable}, for checkpointing.
+	 */
+	@Nonnull
+	@Override
+	public PrimitiveKeyCopyOnWriteStateTableSnapshot<K, N, S> stateSnapshot() {
+		return new PrimitiveKeyCopyOnWriteStateTableSnapshot<>(
+			this,
+			getKeySerializer().duplicate(),
+			getNamespaceSerializer().duplicate(),
+			getStateSerializer().duplicate(),
+			getMetaInfo().getStateSnapshotTransformFactory().createForDeserializedState().orElse(null));
+	}
+
+	@SuppressWarnings("unchecked")
+	List<PrimitiveKeyCopyOnWriteStateMapSnapshot<K, N, S>> getStateMapSnapshotList() {
+		List<PrimitiveKeyCopyOnWriteStateMapSnapshot<K, N, S>> snapshotList = new ArrayList<>(keyGroupedStateMaps.length);
+		for (int i = 0; i < keyGroupedStateMaps.length; i++) {
+			PrimitiveKeyCopyOnWriteStateMap<K, N, S> stateMap = (PrimitiveKeyCopyOnWriteStateMap<K, N, S>) keyGroupedStateMaps[i];
+			snapshotList.add(stateMap.stateSnapshot());
+		}
+		return snapshotList;
+	}
+
+	/**
+	 * This class represents the snapshot of a {@link PrimitiveKeyCopyOnWriteStateTable}. The snapshots of all state
+	 * maps are taken synchronously on creation and written asynchronously by key-group.
+	 *
+	 * @param <K> type of key.
+	 * @param <N> type of namespace.
+	 * @param <S> type of state.
+	 */
+	static class PrimitiveKeyCopyOnWriteStateTableSnapshot<K, N, S> extends AbstractStateTableSnapshot<K, N, S> {
+
+		/**
+		 * The offset to the contiguous key groups.
+		 */
+		private final int keyGroupOffset;
+
+		/**
+		 * Snapshots of state partitioned by key-group.
+		 */
+		@Nonnull
+		private final List<PrimitiveKeyCopyOnWriteStateMapSnapshot<K, N, S>> stateMapSnapshots;
+
+		PrimitiveKeyCopyOnWriteStateTableSnapshot(
+			PrimitiveKeyCopyOnWriteStateTable<K, N, S> owningStateTable,
+			TypeSerializer<K> localKeySerializer,
+			TypeSerializer<N> localNamespaceSerializer,
+			TypeSerializer<S> localStateSerializer,
+			StateSnapshotTransformer<S> stateSnapshotTransformer) {
+			super(owningStateTable,
+				localKeySerializer,
+				localNamespaceSerializer,
+				localStateSerializer,
+				stateSnapshotTransformer);
+
+			this.keyGroupOffset = owningStateTable.getKeyGroupOffset();
+			this.stateMapSnapshots = owningStateTable.getStateMapSnapshotList();
+		}
+
+		@Override
+		protected StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> getStateMapSnapshotForKeyGroup(int keyGroup) {
+			int indexOffset = keyGroup - keyGroupOffset;
+			PrimitiveKeyCopyOnWriteStateMapSnapshot<K, N, S> stateMapSnapshot = null;
+			if (indexOffset >= 0 && indexOffset < stateMapSnapshots.size()) {
+				stateMapSnapshot = stateMapSnapshots.get(indexOffset);
+			}
+
+			return stateMapSnapshot;
+		}
+
+		@Override
+		public void release() {
+			for (PrimitiveKeyCopyOnWriteStateMapSnapshot<K, N, S> snapshot : stateMapSnapshots) {
+				if (!snapshot.isReleased()) {
+					snapshot.release();
+				}
+			}
+		}
+	}
+}
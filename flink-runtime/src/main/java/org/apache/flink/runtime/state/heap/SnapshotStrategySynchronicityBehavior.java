@@ -18,15 +18,18 @@
 
 package org.apache.flink.runtime.state.heap;
 
+import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
 
 /**
- * Interface for synchronicity behavior of heap snapshot strategy.
+ * Interface for synchronicity behavior of heap snapshot strategy. The behavior also decides on the {@link StateTable}
+ * implementation, because the tables must support the chosen synchronicity.
  *
  * @param <K> The data type that the serializer serializes.
  */
-interface SnapshotStrategySynchronicityBehavior<K> {
+@Internal
+public interface SnapshotStrategySynchronicityBehavior<K> {
 
 	default void finalizeSnapshotBeforeReturnHook(Runnable runnable) {
 
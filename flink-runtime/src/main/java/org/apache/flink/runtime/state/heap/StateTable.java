@@ -288,7 +288,6 @@ public abstract class StateTable<K, N, S>
 		return keyGroupOffset;
 	}
 
-	@VisibleForTesting
 	StateMap<K, N, S> getMapForKeyGroup(int keyGroupIndex) {
 		final int pos = indexToOffset(keyGroupIndex);
 		if (pos >= 0 && pos < keyGroupedStateMaps.length) {
@@ -65,6 +65,37 @@ class StateTableByKeyGroupReaders {
 		}
 	}
 
+	/**
+	 * Creates a new StateSnapshotKeyGroupReader that applies the changes written by
+	 * {@link CopyOnWriteStateMapSnapshot#writeStateDelta} to the given table: it first removes the mappings that were
+	 * removed and then inserts the mappings that were added or modified, using the de-serialization algorithm that
+	 * matches the given version.
+	 *
+	 * @param <K> type of key.
+	 * @param <N> type of namespace.
+	 * @param <S> type of state.
+	 * @param stateTable the {@link StateTable} to which the de-serialized changes are applied.
+	 * @param version version for the de-serialization algorithm.
+	 * @return the appropriate reader.
+	 */
+	static <K, N, S> StateSnapshotKeyGroupReader deltaReaderForVersion(
+		StateTable<K, N, S> stateTable,
+		int version) {
+		final StateSnapshotKeyGroupReader mappingsReader = readerForVersion(stateTable, version);
+		return (inView, keyGroupId) -> {
+			final TypeSerializer<N> namespaceSerializer = stateTable.getNamespaceSerializer();
+			final TypeSerializer<K> keySerializer = stateTable.keySerializer;
+			final StateMap<K, N, S> stateMap = stateTable.getMapForKeyGroup(keyGroupId);
+			int numRemoved = inView.readInt();
+			for (int i = 0; i < numRemoved; i++) {
+				N namespace = namespaceSerializer.deserialize(inView);
+				K key = keySerializer.deserialize(inView);
+				stateMap.remove(key, namespace);
+			}
+			mappingsReader.readMappingsInKeyGroup(inView, keyGroupId);
+		};
+	}
+
 	private static <K, N, S> StateSnapshotKeyGroupReader createV2PlusReader(
 		StateTable<K, N, S> stateTable) {
 		final TypeSerializer<N> namespaceSerializer = stateTable.getNamespaceSerializer();
@@ -55,6 +55,22 @@ class TtlMapState<K, N, UK, UV>
 		return ttlValue == null ? null : ttlValue.getUserValue();
 	}
 
+	@Override
+	public Map<UK, UV> getAll(Iterable<UK> keys) throws Exception {
+		accessCallback.run();
+		Map<UK, TtlValue<UV>> withTs = original.getAll(keys);
+		Map<UK, UV> result = new HashMap<>(withTs.size());
+		for (Map.Entry<UK, TtlValue<UV>> entry : withTs.entrySet()) {
+			UK key = entry.getKey();
+			TtlValue<UV> ttlValue = getWrappedWithTtlCheckAndUpdate(
+				entry::getValue, v -> original.put(key, v), () -> original.remove(key));
+			if (ttlValue != null && ttlValue.getUserValue() != null) {
+				result.put(key, ttlValue.getUserValue());
+			}
+		}
+		return result;
+	}
+
 	private TtlValue<UV> getWrapped(UK key) throws Exception {
 		accessCallback.run();
 		return getWrappedWithTtlCheckAndUpdate(
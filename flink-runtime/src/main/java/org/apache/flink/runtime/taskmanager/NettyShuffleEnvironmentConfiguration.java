@@ -74,8 +74,12 @@ public class NettyShuffleEnvironmentConfiguration {
 
 	private final String compressionCodec;
 
+	private final int compressionLevel;
+
 	private final int maxBuffersPerChannel;
 
+	private final int sortShuffleMinParallelism;
+
 	public NettyShuffleEnvironmentConfiguration(
 			int numNetworkBuffers,
 			int networkBufferSize,
@@ -91,7 +95,9 @@ public class NettyShuffleEnvironmentConfiguration {
 			boolean forcePartitionReleaseOnConsumption,
 			boolean blockingShuffleCompressionEnabled,
 			String compressionCodec,
-			int maxBuffersPerChannel) {
+			int compressionLevel,
+			int maxBuffersPerChannel,
+			int sortShuffleMinParallelism) {
 
 		this.numNetworkBuffers = numNetworkBuffers;
 		this.networkBufferSize = networkBufferSize;
@@ -107,7 +113,9 @@ public class NettyShuffleEnvironmentConfiguration {
 		this.forcePartitionReleaseOnConsumption = forcePartitionReleaseOnConsumption;
 		this.blockingShuffleCompressionEnabled = blockingShuffleCompressionEnabled;
 		this.compressionCodec = Preconditions.checkNotNull(compressionCodec);
+		this.compressionLevel = compressionLevel;
 		this.maxBuffersPerChannel = maxBuffersPerChannel;
+		this.sortShuffleMinParallelism = sortShuffleMinParallelism;
 	}
 
 	// ------------------------------------------------------------------------
@@ -168,10 +176,18 @@ public class NettyShuffleEnvironmentConfiguration {
 		return compressionCodec;
 	}
 
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
 	public int getMaxBuffersPerChannel() {
 		return maxBuffersPerChannel;
 	}
 
+	public int getSortShuffleMinParallelism() {
+		return sortShuffleMinParallelism;
+	}
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -224,6 +240,9 @@ public class NettyShuffleEnvironmentConfiguration {
 		boolean blockingShuffleCompressionEnabled =
 			configuration.get(NettyShuffleEnvironmentOptions.BLOCKING_SHUFFLE_COMPRESSION_ENABLED);
 		String compressionCodec = configuration.getString(NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_CODEC);
+		int compressionLevel = configuration.get(NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_ZSTD_LEVEL);
+
+		int sortShuffleMinParallelism = configuration.get(NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_MIN_PARALLELISM);
 
 		return new NettyShuffleEnvironmentConfiguration(
 			numberOfNetworkBuffers,
@@ -240,7 +259,9 @@ public class NettyShuffleEnvironmentConfiguration {
 			forcePartitionReleaseOnConsumption,
 			blockingShuffleCompressionEnabled,
 			compressionCodec,
-			maxBuffersPerChannel);
+			compressionLevel,
+			maxBuffersPerChannel,
+			sortShuffleMinParallelism);
 	}
 
 	/**
@@ -362,7 +383,9 @@ public class NettyShuffleEnvironmentConfiguration {
 		result = 31 * result + (forcePartitionReleaseOnConsumption ? 1 : 0);
 		result = 31 * result + (blockingShuffleCompressionEnabled ? 1 : 0);
 		result = 31 * result + Objects.hashCode(compressionCodec);
+		result = 31 * result + compressionLevel;
 		result = 31 * result + maxBuffersPerChannel;
+		result = 31 * result + sortShuffleMinParallelism;
 		return result;
 	}
 
@@ -389,6 +412,8 @@ public class NettyShuffleEnvironmentConfiguration {
 					this.forcePartitionReleaseOnConsumption == that.forcePartitionReleaseOnConsumption &&
 					this.blockingShuffleCompressionEnabled == that.blockingShuffleCompressionEnabled &&
 					this.maxBuffersPerChannel == that.maxBuffersPerChannel &&
+					this.compressionLevel == that.compressionLevel &&
+					this.sortShuffleMinParallelism == that.sortShuffleMinParallelism &&
 					Objects.equals(this.compressionCodec, that.compressionCodec);
 		}
 	}
@@ -408,7 +433,9 @@ public class NettyShuffleEnvironmentConfiguration {
 				", forcePartitionReleaseOnConsumption=" + forcePartitionReleaseOnConsumption +
 				", blockingShuffleCompressionEnabled=" + blockingShuffleCompressionEnabled +
 				", compressionCodec=" + compressionCodec +
+				", compressionLevel=" + compressionLevel +
 				", maxBuffersPerChannel=" + maxBuffersPerChannel +
+				", sortShuffleMinParallelism=" + sortShuffleMinParallelism +
 				'}';
 	}
 }
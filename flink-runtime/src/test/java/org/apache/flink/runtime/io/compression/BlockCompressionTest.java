@@ -25,6 +25,7 @@ import java.nio.ByteBuffer;
 
 import static org.apache.flink.runtime.io.compression.Lz4BlockCompressionFactory.HEADER_LENGTH;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for block compression.
@@ -33,7 +34,30 @@ public class BlockCompressionTest {
 
 	@Test
 	public void testLz4() {
-		BlockCompressionFactory factory = new Lz4BlockCompressionFactory();
+		runTests(new Lz4BlockCompressionFactory());
+	}
+
+	@Test
+	public void testZstd() {
+		runTests(new ZstdBlockCompressionFactory());
+		runTests(new ZstdBlockCompressionFactory(19));
+	}
+
+	@Test
+	public void testSnappy() {
+		runTests(new SnappyBlockCompressionFactory());
+	}
+
+	@Test
+	public void testCreateFactoryByName() {
+		assertTrue(BlockCompressionFactory.createBlockCompressionFactory("lz4") instanceof Lz4BlockCompressionFactory);
+		assertTrue(BlockCompressionFactory.createBlockCompressionFactory("ZSTD") instanceof ZstdBlockCompressionFactory);
+		assertTrue(BlockCompressionFactory.createBlockCompressionFactory("Snappy") instanceof SnappyBlockCompressionFactory);
+		assertTrue(BlockCompressionFactory.createBlockCompressionFactory(
+			SnappyBlockCompressionFactory.class.getName()) instanceof SnappyBlockCompressionFactory);
+	}
+
+	private void runTests(BlockCompressionFactory factory) {
 		runArrayTest(factory, 32768);
 		runArrayTest(factory, 16);
 
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.io.network;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.concurrent.Executors;
+import org.apache.flink.runtime.io.compression.ZstdBlockCompressionFactory;
 import org.apache.flink.runtime.io.network.netty.NettyConfig;
 import org.apache.flink.runtime.io.network.partition.BoundedBlockingSubpartitionType;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
@@ -157,7 +158,9 @@ public class NettyShuffleEnvironmentBuilder {
 				false,
 				blockingShuffleCompressionEnabled,
 				compressionCodec,
-				maxBuffersPerChannel),
+				ZstdBlockCompressionFactory.DEFAULT_COMPRESSION_LEVEL,
+				maxBuffersPerChannel,
+				Integer.MAX_VALUE),
 			taskManagerLocation,
 			new TaskEventDispatcher(),
 			resultPartitionManager,
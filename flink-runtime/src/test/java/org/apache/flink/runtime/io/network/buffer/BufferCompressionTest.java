@@ -67,6 +67,18 @@ public class BufferCompressionTest {
 			{false, "LZ4", true, false},
 			{false, "LZ4", false, true},
 			{false, "LZ4", false, false},
+			{true, "ZSTD", true, false},
+			{true, "ZSTD", false, true},
+			{true, "ZSTD", false, false},
+			{false, "ZSTD", true, false},
+			{false, "ZSTD", false, true},
+			{false, "ZSTD", false, false},
+			{true, "SNAPPY", true, false},
+			{true, "SNAPPY", false, true},
+			{true, "SNAPPY", false, false},
+			{false, "SNAPPY", true, false},
+			{false, "SNAPPY", false, true},
+			{false, "SNAPPY", false, false},
 		});
 	}
 
@@ -108,6 +120,16 @@ public class BufferCompressionTest {
 		verifyDecompressionResult(decompressedBuffer, NUM_LONGS / 4, NUM_LONGS / 2);
 	}
 
+	@Test
+	public void testCompressionStatistics() {
+		Buffer compressedBuffer = compress(compressor, bufferToCompress, compressToOriginalBuffer);
+
+		assertEquals(BUFFER_SIZE, compressor.getNumBytesBeforeCompression());
+		assertEquals(compressedBuffer.getSize(), compressor.getNumBytesAfterCompression());
+		assertTrue(compressor.getNumBytesAfterCompression() < compressor.getNumBytesBeforeCompression());
+		assertTrue(compressor.getCompressionTimeNanos() > 0);
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testCompressEmptyBuffer() {
 		compress(compressor, bufferToCompress.readOnlySlice(0, 0), compressToOriginalBuffer);
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils.buildBufferWithAscendingInts;
+import static org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils.validateBufferWithAscendingInts;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for writing and reading a {@link PartitionedFile}.
+ */
+public class PartitionedFileWriteReadTest {
+
+	private static final int BUFFER_SIZE = 1024;
+
+	private static final int NUM_INTS_PER_BUFFER = 10;
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testWriteAndReadPartitionedFile() throws Exception {
+		final int numSubpartitions = 5;
+		final int numRegions = 4;
+		final int[] numBuffersWritten = new int[numSubpartitions];
+
+		final PartitionedFileWriter fileWriter = createFileWriter(numSubpartitions);
+		for (int region = 0; region < numRegions; region++) {
+			fileWriter.startNewRegion();
+			for (int subpartition = 0; subpartition < numSubpartitions; subpartition++) {
+				// leaves some subpartitions without data in some regions
+				int numBuffers = (region + subpartition) % 3;
+				for (int i = 0; i < numBuffers; i++) {
+					Buffer buffer = buildBufferWithAscendingInts(
+						BUFFER_SIZE, NUM_INTS_PER_BUFFER, numBuffersWritten[subpartition]++ * NUM_INTS_PER_BUFFER);
+					fileWriter.writeBuffer(buffer, subpartition);
+					buffer.recycleBuffer();
+				}
+			}
+		}
+		final PartitionedFile partitionedFile = fileWriter.finish();
+
+		assertEquals(numRegions, partitionedFile.getNumRegions());
+		assertEquals(numSubpartitions, partitionedFile.getNumSubpartitions());
+		assertEquals(Files.size(partitionedFile.getDataFilePath()), fileWriter.getTotalBytesWritten());
+
+		for (int subpartition = 0; subpartition < numSubpartitions; subpartition++) {
+			assertEquals(numBuffersWritten[subpartition], readAndValidate(partitionedFile, subpartition));
+		}
+	}
+
+	@Test
+	public void testWriteAndReadEmptyPartitionedFile() throws Exception {
+		final PartitionedFileWriter fileWriter = createFileWriter(2);
+		final PartitionedFile partitionedFile = fileWriter.finish();
+
+		assertEquals(0, partitionedFile.getNumRegions());
+		assertEquals(0, readAndValidate(partitionedFile, 0));
+		assertEquals(0, readAndValidate(partitionedFile, 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWriteBuffersOutOfSubpartitionOrder() throws Exception {
+		final PartitionedFileWriter fileWriter = createFileWriter(2);
+		fileWriter.startNewRegion();
+
+		Buffer buffer = buildBufferWithAscendingInts(BUFFER_SIZE, NUM_INTS_PER_BUFFER, 0);
+		try {
+			fileWriter.writeBuffer(buffer, 1);
+			fileWriter.writeBuffer(buffer, 0);
+		} finally {
+			buffer.recycleBuffer();
+			fileWriter.releaseQuietly();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWriteBufferWithoutRegion() throws Exception {
+		final PartitionedFileWriter fileWriter = createFileWriter(2);
+
+		Buffer buffer = buildBufferWithAscendingInts(BUFFER_SIZE, NUM_INTS_PER_BUFFER, 0);
+		try {
+			fileWriter.writeBuffer(buffer, 0);
+		} finally {
+			buffer.recycleBuffer();
+			fileWriter.releaseQuietly();
+		}
+	}
+
+	@Test
+	public void testDeletePartitionedFile() throws Exception {
+		final PartitionedFileWriter fileWriter = createFileWriter(1);
+		final PartitionedFile partitionedFile = fileWriter.finish();
+
+		assertTrue(Files.exists(partitionedFile.getDataFilePath()));
+		assertTrue(Files.exists(partitionedFile.getIndexFilePath()));
+
+		partitionedFile.deleteQuietly();
+
+		assertFalse(Files.exists(partitionedFile.getDataFilePath()));
+		assertFalse(Files.exists(partitionedFile.getIndexFilePath()));
+	}
+
+	// ------------------------------------------------------------------------
+
+	private PartitionedFileWriter createFileWriter(int numSubpartitions) throws IOException {
+		String basePath = temporaryFolder.newFolder().getPath() + "/partitioned-file";
+		return new PartitionedFileWriter(basePath, numSubpartitions);
+	}
+
+	private static int readAndValidate(PartitionedFile partitionedFile, int subpartition) throws IOException {
+		int numBuffersRead = 0;
+		try (PartitionedFileReader fileReader = new PartitionedFileReader(
+				partitionedFile, subpartition, BUFFER_SIZE, new NoOpResultSubpartitionView())) {
+			Buffer buffer;
+			while ((buffer = fileReader.nextBuffer()) != null) {
+				validateBufferWithAscendingInts(buffer, NUM_INTS_PER_BUFFER, numBuffersRead++ * NUM_INTS_PER_BUFFER);
+				buffer.recycleBuffer();
+			}
+			assertNull(fileReader.nextBuffer());
+		}
+		return numBuffersRead;
+	}
+}
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.network.partition;
 
+import org.apache.flink.runtime.io.compression.ZstdBlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.FileChannelManager;
 import org.apache.flink.runtime.io.disk.NoOpFileChannelManager;
 import org.apache.flink.runtime.io.network.NettyShuffleEnvironment;
@@ -69,6 +70,8 @@ public class ResultPartitionBuilder {
 
 	private String compressionCodec = "LZ4";
 
+	private int sortShuffleMinParallelism = Integer.MAX_VALUE;
+
 	public ResultPartitionBuilder setResultPartitionIndex(int partitionIndex) {
 		this.partitionIndex = partitionIndex;
 		return this;
@@ -147,6 +150,11 @@ public class ResultPartitionBuilder {
 		return this;
 	}
 
+	public ResultPartitionBuilder setSortShuffleMinParallelism(int sortShuffleMinParallelism) {
+		this.sortShuffleMinParallelism = sortShuffleMinParallelism;
+		return this;
+	}
+
 	public ResultPartitionBuilder setCompressionCodec(String compressionCodec) {
 		this.compressionCodec = compressionCodec;
 		return this;
@@ -170,7 +178,9 @@ public class ResultPartitionBuilder {
 			releasedOnConsumption,
 			blockingShuffleCompressionEnabled,
 			compressionCodec,
-			maxBuffersPerChannel);
+			ZstdBlockCompressionFactory.DEFAULT_COMPRESSION_LEVEL,
+			maxBuffersPerChannel,
+			sortShuffleMinParallelism);
 
 		FunctionWithException<BufferPoolOwner, BufferPool, IOException> factory = bufferPoolFactory.orElseGet(() ->
 			resultPartitionFactory.createBufferPoolFactory(numberOfSubpartitions, partitionType));
@@ -18,6 +18,7 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.runtime.deployment.ResultPartitionDeploymentDescriptor;
+import org.apache.flink.runtime.io.compression.ZstdBlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.FileChannelManager;
 import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
@@ -101,6 +102,8 @@ public class ResultPartitionFactoryTest extends TestLogger {
 			releasePartitionOnConsumption,
 			false,
 			"LZ4",
+			ZstdBlockCompressionFactory.DEFAULT_COMPRESSION_LEVEL,
+			Integer.MAX_VALUE,
 			Integer.MAX_VALUE);
 
 		final ResultPartitionDeploymentDescriptor descriptor = new ResultPartitionDeploymentDescriptor(
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.disk.FileChannelManager;
+import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SortMergeResultPartition}.
+ */
+@RunWith(Parameterized.class)
+public class SortMergeResultPartitionTest {
+
+	private static final int BUFFER_SIZE = 1024;
+
+	private static final int NUM_BUFFERS = 20;
+
+	private static final int NUM_SUBPARTITIONS = 4;
+
+	private static final String COMPRESSION_CODEC = "LZ4";
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final boolean compressionEnabled;
+
+	private FileChannelManager fileChannelManager;
+
+	private NetworkBufferPool globalPool;
+
+	@Parameters(name = "compressionEnabled = {0}")
+	public static Collection<Boolean> parameters() {
+		return Arrays.asList(false, true);
+	}
+
+	public SortMergeResultPartitionTest(boolean compressionEnabled) {
+		this.compressionEnabled = compressionEnabled;
+	}
+
+	@Before
+	public void setup() {
+		fileChannelManager = new FileChannelManagerImpl(
+			new String[] {temporaryFolder.getRoot().getPath()}, "testing");
+		globalPool = new NetworkBufferPool(NUM_BUFFERS, BUFFER_SIZE, 1);
+	}
+
+	@After
+	public void shutdown() throws Exception {
+		assertEquals(NUM_BUFFERS, globalPool.getNumberOfAvailableMemorySegments());
+
+		fileChannelManager.close();
+		globalPool.destroy();
+	}
+
+	@Test
+	public void testCreateSortMergePartitionByParallelism() throws Exception {
+		ResultPartition partition = createResultPartition(NUM_SUBPARTITIONS + 1);
+		assertFalse(partition instanceof SortMergeResultPartition);
+		partition.release();
+		partition.close();
+
+		partition = createResultPartition(NUM_SUBPARTITIONS);
+		assertTrue(partition instanceof SortMergeResultPartition);
+		partition.release();
+		partition.close();
+	}
+
+	@Test
+	public void testWriteAndRead() throws Exception {
+		final int numBuffersPerSubpartition = 3 * NUM_BUFFERS;
+
+		final ResultPartition partition = createResultPartition(NUM_SUBPARTITIONS);
+		partition.setup();
+
+		// writes more buffers than the pool has, which forces the partition to spill multiple regions
+		for (int i = 0; i < numBuffersPerSubpartition; i++) {
+			for (int subpartition = 0; subpartition < NUM_SUBPARTITIONS; subpartition++) {
+				partition.addBufferConsumer(createBufferConsumer(partition, subpartition, i), subpartition);
+			}
+		}
+		partition.finish();
+
+		assertEquals(1, countFiles(PartitionedFile.DATA_FILE_SUFFIX));
+		assertEquals(1, countFiles(PartitionedFile.INDEX_FILE_SUFFIX));
+
+		final BufferDecompressor decompressor = new BufferDecompressor(BUFFER_SIZE, COMPRESSION_CODEC);
+		for (int subpartition = 0; subpartition < NUM_SUBPARTITIONS; subpartition++) {
+			ResultSubpartitionView view = partition.createSubpartitionView(
+				subpartition, new NoOpBufferAvailablityListener());
+
+			for (int i = 0; i < numBuffersPerSubpartition; i++) {
+				Buffer buffer = getNextBuffer(view);
+				assertTrue(buffer.isBuffer());
+				assertEquals(compressionEnabled, buffer.isCompressed());
+
+				Buffer data = buffer.isCompressed() ? decompressor.decompressToIntermediateBuffer(buffer) : buffer;
+				ByteBuffer bytes = data.getNioBufferReadable();
+				assertEquals(BUFFER_SIZE, bytes.remaining());
+				assertEquals(subpartition, bytes.getInt());
+				assertEquals(i, bytes.getInt());
+				buffer.recycleBuffer();
+			}
+
+			Buffer event = getNextBuffer(view);
+			assertFalse(event.isBuffer());
+			assertEquals(
+				EndOfPartitionEvent.INSTANCE,
+				EventSerializer.fromBuffer(event, getClass().getClassLoader()));
+			event.recycleBuffer();
+
+			assertNull(view.getNextBuffer());
+			view.releaseAllResources();
+		}
+
+		partition.release();
+		partition.close();
+		assertEquals(0, countFiles(PartitionedFile.DATA_FILE_SUFFIX));
+		assertEquals(0, countFiles(PartitionedFile.INDEX_FILE_SUFFIX));
+	}
+
+	@Test
+	public void testReleaseMemoryOnlyRequestsSpilling() throws Exception {
+		final SortMergeResultPartition partition =
+			(SortMergeResultPartition) createResultPartition(NUM_SUBPARTITIONS);
+		partition.setup();
+		final BufferPool bufferPool = partition.getBufferPool();
+
+		for (int i = 0; i < 3; i++) {
+			partition.addBufferConsumer(createBufferConsumer(partition, 0, i), 0);
+		}
+		// two finished buffers are kept in memory, the third one is still written
+		assertEquals(3, bufferPool.bestEffortGetNumOfUsedBuffers());
+
+		// the buffer pool calls back while holding its lock, so no data may be written there
+		partition.releaseMemory(1);
+		assertEquals(3, bufferPool.bestEffortGetNumOfUsedBuffers());
+
+		// the next finished buffer makes the task thread write all buffered data
+		partition.addBufferConsumer(createBufferConsumer(partition, 0, 3), 0);
+		assertEquals(1, bufferPool.bestEffortGetNumOfUsedBuffers());
+
+		partition.release();
+		partition.close();
+	}
+
+	@Test
+	public void testReleaseWhileReading() throws Exception {
+		final ResultPartition partition = createResultPartition(NUM_SUBPARTITIONS);
+		partition.setup();
+
+		for (int subpartition = 0; subpartition < NUM_SUBPARTITIONS; subpartition++) {
+			partition.addBufferConsumer(createBufferConsumer(partition, subpartition, 0), subpartition);
+		}
+		partition.finish();
+
+		ResultSubpartitionView view = partition.createSubpartitionView(0, new NoOpBufferAvailablityListener());
+		getNextBuffer(view).recycleBuffer();
+
+		// the file is kept as long as there are readers
+		partition.release();
+		partition.close();
+		assertEquals(1, countFiles(PartitionedFile.DATA_FILE_SUFFIX));
+
+		view.releaseAllResources();
+		assertEquals(0, countFiles(PartitionedFile.DATA_FILE_SUFFIX));
+	}
+
+	@Test
+	public void testReleaseBeforeFinish() throws Exception {
+		final ResultPartition partition = createResultPartition(NUM_SUBPARTITIONS);
+		partition.setup();
+
+		for (int i = 0; i < NUM_BUFFERS; i++) {
+			partition.addBufferConsumer(createBufferConsumer(partition, i % NUM_SUBPARTITIONS, i), i % NUM_SUBPARTITIONS);
+		}
+
+		partition.release();
+		partition.close();
+		assertEquals(0, countFiles(PartitionedFile.DATA_FILE_SUFFIX));
+		assertEquals(0, countFiles(PartitionedFile.INDEX_FILE_SUFFIX));
+	}
+
+	// ------------------------------------------------------------------------
+
+	private ResultPartition createResultPartition(int sortShuffleMinParallelism) throws IOException {
+		return new ResultPartitionBuilder()
+			.setResultPartitionType(ResultPartitionType.BLOCKING)
+			.setNumberOfSubpartitions(NUM_SUBPARTITIONS)
+			.setFileChannelManager(fileChannelManager)
+			.setNetworkBufferPool(globalPool)
+			.setNetworkBufferSize(BUFFER_SIZE)
+			.setBlockingShuffleCompressionEnabled(compressionEnabled)
+			.setCompressionCodec(COMPRESSION_CODEC)
+			.setSortShuffleMinParallelism(sortShuffleMinParallelism)
+			.build();
+	}
+
+	/**
+	 * Creates a buffer consumer containing the subpartition index and the sequence number. The rest of
+	 * the buffer is filled with zeros, which keeps the data compressible.
+	 */
+	private static BufferConsumer createBufferConsumer(
+			ResultPartition partition,
+			int subpartition,
+			int sequenceNumber) throws IOException, InterruptedException {
+
+		BufferBuilder bufferBuilder = partition.getBufferBuilder(subpartition);
+		BufferConsumer bufferConsumer = bufferBuilder.createBufferConsumer();
+
+		ByteBuffer data = ByteBuffer.allocate(BUFFER_SIZE);
+		data.putInt(subpartition);
+		data.putInt(sequenceNumber);
+		data.rewind();
+		bufferBuilder.appendAndCommit(data);
+		bufferBuilder.finish();
+		return bufferConsumer;
+	}
+
+	private static Buffer getNextBuffer(ResultSubpartitionView view) throws IOException {
+		BufferAndBacklog bufferAndBacklog = view.getNextBuffer();
+		assertNotNull(bufferAndBacklog);
+		return bufferAndBacklog.buffer();
+	}
+
+	private long countFiles(String suffix) throws IOException {
+		try (Stream<Path> files = Files.walk(temporaryFolder.getRoot().toPath())) {
+			return files.filter(path -> path.toString().endsWith(suffix)).count();
+		}
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.configuration.CheckpointingOptions;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.CheckpointType;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for the {@link FsStateBackend} with incremental checkpoints of the heap keyed state backend.
+ */
+public class IncrementalFileStateBackendTest extends FileStateBackendTest {
+
+	private static final int MAX_DELTAS = 2;
+
+	@Override
+	protected FsStateBackend getStateBackend() throws Exception {
+		Configuration configuration = new Configuration();
+		configuration.set(CheckpointingOptions.INCREMENTAL_CHECKPOINTS, true);
+		configuration.set(CheckpointingOptions.FS_INCREMENTAL_MAX_DELTAS, MAX_DELTAS);
+		return super.getStateBackend().configure(configuration, getClass().getClassLoader());
+	}
+
+	@Test
+	public void testIncrementalSnapshotAndRestore() throws Exception {
+		assumeTrue(useAsyncMode);
+
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		SharedStateRegistry sharedStateRegistry = new SharedStateRegistry();
+		ValueStateDescriptor<String> valueId = new ValueStateDescriptor<>("value", String.class);
+		ListStateDescriptor<Long> listId = new ListStateDescriptor<>("list", Long.class);
+
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+		try {
+			ValueState<String> valueState =
+				backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+			ListState<Long> listState =
+				backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, listId);
+
+			for (int key = 0; key < 10; key++) {
+				backend.setCurrentKey(key);
+				valueState.update("v" + key);
+				listState.add((long) key);
+			}
+
+			IncrementalRemoteKeyedStateHandle fullSnapshot = runIncrementalSnapshot(
+				backend, 1L, streamFactory, sharedStateRegistry);
+			assertEquals(1, fullSnapshot.getSharedState().size());
+
+			// update, remove, modify in place and add mappings
+			backend.setCurrentKey(1);
+			valueState.update("u1");
+			backend.setCurrentKey(2);
+			valueState.clear();
+			listState.clear();
+			backend.setCurrentKey(3);
+			listState.add(33L);
+			backend.setCurrentKey(10);
+			valueState.update("v10");
+
+			IncrementalRemoteKeyedStateHandle firstDelta = runIncrementalSnapshot(
+				backend, 2L, streamFactory, sharedStateRegistry);
+			assertEquals(2, firstDelta.getSharedState().size());
+			assertTrue(firstDelta.getSharedStateHandleIDs().containsAll(fullSnapshot.getSharedStateHandleIDs()));
+
+			backend.setCurrentKey(4);
+			valueState.update("u4");
+			backend.setCurrentKey(10);
+			listState.add(10L);
+
+			IncrementalRemoteKeyedStateHandle secondDelta = runIncrementalSnapshot(
+				backend, 3L, streamFactory, sharedStateRegistry);
+			assertEquals(MAX_DELTAS + 1, secondDelta.getSharedState().size());
+			assertTrue(secondDelta.getSharedStateHandleIDs().containsAll(firstDelta.getSharedStateHandleIDs()));
+
+			backend.dispose();
+			backend = restoreKeyedBackend(IntSerializer.INSTANCE, secondDelta);
+			valueState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+			listState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, listId);
+
+			verifyState(backend, valueState, listState, 0, "v0", 0L);
+			verifyState(backend, valueState, listState, 1, "u1", 1L);
+			verifyState(backend, valueState, listState, 2, null);
+			verifyState(backend, valueState, listState, 3, "v3", 3L, 33L);
+			verifyState(backend, valueState, listState, 4, "u4", 4L);
+			verifyState(backend, valueState, listState, 9, "v9", 9L);
+			verifyState(backend, valueState, listState, 10, "v10", 10L);
+
+			// the restored backend starts a new chain
+			backend.setCurrentKey(5);
+			valueState.clear();
+			IncrementalRemoteKeyedStateHandle restoredSnapshot = runIncrementalSnapshot(
+				backend, 4L, streamFactory, sharedStateRegistry);
+			assertEquals(1, restoredSnapshot.getSharedState().size());
+
+			backend.dispose();
+			backend = restoreKeyedBackend(IntSerializer.INSTANCE, restoredSnapshot);
+			valueState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+			listState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, listId);
+
+			verifyState(backend, valueState, listState, 3, "v3", 3L, 33L);
+			verifyState(backend, valueState, listState, 5, null, 5L);
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	@Test
+	public void testFullSnapshotAfterMaxDeltas() throws Exception {
+		assumeTrue(useAsyncMode);
+
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		SharedStateRegistry sharedStateRegistry = new SharedStateRegistry();
+		ValueStateDescriptor<String> valueId = new ValueStateDescriptor<>("value", String.class);
+
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+		try {
+			ValueState<String> valueState =
+				backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+
+			IncrementalRemoteKeyedStateHandle snapshot = null;
+			for (long checkpointId = 1L; checkpointId <= MAX_DELTAS + 2; checkpointId++) {
+				backend.setCurrentKey((int) checkpointId);
+				valueState.update("v" + checkpointId);
+				snapshot = runIncrementalSnapshot(backend, checkpointId, streamFactory, sharedStateRegistry);
+			}
+
+			// the checkpoint after the maximum number of deltas starts a new chain
+			assertEquals(1, snapshot.getSharedState().size());
+
+			backend.dispose();
+			backend = restoreKeyedBackend(IntSerializer.INSTANCE, snapshot);
+			valueState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+			for (int key = 1; key <= MAX_DELTAS + 2; key++) {
+				backend.setCurrentKey(key);
+				assertEquals("v" + key, valueState.value());
+			}
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	@Test
+	public void testSavepointIsFullSnapshot() throws Exception {
+		assumeTrue(useAsyncMode);
+
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		SharedStateRegistry sharedStateRegistry = new SharedStateRegistry();
+		ValueStateDescriptor<String> valueId = new ValueStateDescriptor<>("value", String.class);
+
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+		try {
+			ValueState<String> valueState =
+				backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+			backend.setCurrentKey(1);
+			valueState.update("v1");
+
+			runIncrementalSnapshot(backend, 1L, streamFactory, sharedStateRegistry);
+
+			KeyedStateHandle savepoint = runSnapshot(
+				backend.snapshot(
+					2L,
+					2L,
+					streamFactory,
+					new CheckpointOptions(
+						CheckpointType.SAVEPOINT,
+						CheckpointStorageLocationReference.getDefault())),
+				sharedStateRegistry);
+			assertTrue(savepoint instanceof KeyGroupsStateHandle);
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	private IncrementalRemoteKeyedStateHandle runIncrementalSnapshot(
+		AbstractKeyedStateBackend<Integer> backend,
+		long checkpointId,
+		CheckpointStreamFactory streamFactory,
+		SharedStateRegistry sharedStateRegistry) throws Exception {
+
+		KeyedStateHandle snapshot = runSnapshot(
+			backend.snapshot(
+				checkpointId,
+				checkpointId,
+				streamFactory,
+				CheckpointOptions.forCheckpointWithDefaultLocation()),
+			sharedStateRegistry);
+		backend.notifyCheckpointComplete(checkpointId);
+
+		assertTrue(snapshot instanceof IncrementalRemoteKeyedStateHandle);
+		return (IncrementalRemoteKeyedStateHandle) snapshot;
+	}
+
+	private static void verifyState(
+		AbstractKeyedStateBackend<Integer> backend,
+		ValueState<String> valueState,
+		ListState<Long> listState,
+		int key,
+		String expectedValue,
+		Long... expectedList) throws Exception {
+
+		backend.setCurrentKey(key);
+		assertEquals(expectedValue, valueState.value());
+
+		List<Long> list = new ArrayList<>();
+		Iterable<Long> listContent = listState.get();
+		if (listContent != null) {
+			listContent.forEach(list::add);
+		}
+		assertEquals(expectedList.length == 0 ? Collections.emptyList() : Arrays.asList(expectedList), list);
+	}
+}
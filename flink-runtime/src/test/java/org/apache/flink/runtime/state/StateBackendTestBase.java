@@ -138,7 +138,7 @@ import static org.mockito.Mockito.verify;
  * by various {@link StateBackend}s.
  */
 @SuppressWarnings("serial")
-public abstract class StateBackendTestBase<B extends AbstractStateBackend> extends TestLogger {
+public abstract class StateBackendTestBase<B extends StateBackend> extends TestLogger {
 
 	@Rule
 	public final ExpectedException expectedException = ExpectedException.none();
@@ -2690,6 +2690,41 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
 		}
 	}
 
+	@Test
+	public void testMapStateGetAll() throws Exception {
+		MapStateDescriptor<Integer, Long> kvId = new MapStateDescriptor<>("id", Integer.class, Long.class);
+
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+
+		try {
+			MapState<Integer, Long> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+			backend.setCurrentKey(1);
+			assertTrue(state.getAll(Arrays.asList(1, 2, 3)).isEmpty());
+
+			for (int i = 0; i < 10; i++) {
+				state.put(i, i * 2L);
+			}
+			state.put(10, null);
+			state.remove(3);
+
+			backend.setCurrentKey(2);
+			state.put(1, 42L);
+
+			backend.setCurrentKey(1);
+			Map<Integer, Long> expected = new HashMap<>();
+			expected.put(2, 4L);
+			expected.put(5, 10L);
+			expected.put(9, 18L);
+			assertEquals(expected, state.getAll(Arrays.asList(2, 3, 5, 9, 10, 11)));
+			assertTrue(state.getAll(Collections.emptyList()).isEmpty());
+
+			backend.setCurrentKey(2);
+			assertEquals(Collections.singletonMap(1, 42L), state.getAll(Arrays.asList(1, 2)));
+		} finally {
+			backend.dispose();
+		}
+	}
+
 	/**
 	 * Verify iterator of {@link MapState} supporting arbitrary access, see [FLINK-10267] to know more details.
 	 */
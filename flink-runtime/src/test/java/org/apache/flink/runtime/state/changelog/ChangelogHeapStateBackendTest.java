@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.StateBackendTestBase;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.apache.flink.runtime.state.memory.MemoryStateBackend;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for the keyed state backend and operator state backend, as created by the
+ * {@link ChangelogStateBackend} wrapping the {@link MemoryStateBackend} and the {@link FsStateBackend}.
+ */
+@RunWith(Parameterized.class)
+public class ChangelogHeapStateBackendTest extends StateBackendTestBase<ChangelogStateBackend> {
+
+	@Parameterized.Parameters(name = "useFsStateBackend: {0}")
+	public static List<Boolean> modes() {
+		return Arrays.asList(true, false);
+	}
+
+	@Parameterized.Parameter
+	public boolean useFsStateBackend;
+
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Override
+	protected ChangelogStateBackend getStateBackend() throws Exception {
+		StateBackend delegatedStateBackend = useFsStateBackend ?
+			new FsStateBackend(tempFolder.newFolder().toURI(), true) :
+			new MemoryStateBackend(true);
+		return new ChangelogStateBackend(delegatedStateBackend);
+	}
+
+	@Override
+	protected boolean isSerializerPresenceRequiredOnRestore() {
+		return true;
+	}
+
+	// disable these because the verification does not work for the wrapped heap state backends
+	@Override
+	@Test
+	public void testValueStateRestoreWithWrongSerializers() {}
+
+	@Override
+	@Test
+	public void testListStateRestoreWithWrongSerializers() {}
+
+	@Override
+	@Test
+	public void testReducingStateRestoreWithWrongSerializers() {}
+
+	@Override
+	@Test
+	public void testMapStateRestoreWithWrongSerializers() {}
+}
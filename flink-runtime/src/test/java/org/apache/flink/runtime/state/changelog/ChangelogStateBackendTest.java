@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ReducingState;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.operators.testutils.MockEnvironment;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
+import org.apache.flink.runtime.state.memory.MemoryStateBackend;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link ChangelogStateBackend}.
+ */
+public class ChangelogStateBackendTest extends TestLogger {
+
+	private static final int NUMBER_OF_KEY_GROUPS = 10;
+
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private MockEnvironment env;
+
+	private SharedStateRegistry sharedStateRegistry;
+
+	private long checkpointId;
+
+	@Before
+	public void before() {
+		env = MockEnvironment.builder().build();
+		sharedStateRegistry = new SharedStateRegistry();
+		checkpointId = 0L;
+	}
+
+	@After
+	public void after() {
+		sharedStateRegistry.close();
+		IOUtils.closeQuietly(env);
+	}
+
+	@Test
+	public void testSnapshotAndRestoreFromChangelog() throws Exception {
+		ChangelogStateBackend stateBackend = createStateBackend(Duration.ofDays(1L));
+
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(
+			stateBackend, KeyGroupRange.of(0, NUMBER_OF_KEY_GROUPS - 1), Collections.emptyList());
+		KeyedStateHandle firstSnapshot;
+		KeyedStateHandle secondSnapshot;
+		try {
+			writeState(backend, 0, 50);
+			firstSnapshot = runSnapshot(backend);
+
+			assertTrue(firstSnapshot instanceof ChangelogStateBackendHandle);
+			ChangelogStateBackendHandle firstHandle = (ChangelogStateBackendHandle) firstSnapshot;
+			assertTrue(firstHandle.getMaterializedState().isEmpty());
+			assertFalse(firstHandle.getChangelog().isEmpty());
+
+			writeState(backend, 50, 100);
+			removeState(backend, 0, 10);
+			secondSnapshot = runSnapshot(backend);
+
+			// the second checkpoint only adds the changes since the first one
+			ChangelogStateBackendHandle secondHandle = (ChangelogStateBackendHandle) secondSnapshot;
+			assertTrue(secondHandle.getChangelog().keySet().containsAll(firstHandle.getChangelog().keySet()));
+			assertTrue(secondHandle.getChangelog().size() > firstHandle.getChangelog().size());
+		} finally {
+			backend.dispose();
+		}
+
+		backend = createKeyedBackend(
+			stateBackend, KeyGroupRange.of(0, NUMBER_OF_KEY_GROUPS - 1), Collections.singletonList(secondSnapshot));
+		try {
+			verifyRemovedState(backend, 0, 10);
+			verifyState(backend, 10, 100);
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	@Test
+	public void testSnapshotAndRestoreWithMaterialization() throws Exception {
+		ChangelogStateBackend stateBackend = createStateBackend(Duration.ZERO);
+
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(
+			stateBackend, KeyGroupRange.of(0, NUMBER_OF_KEY_GROUPS - 1), Collections.emptyList());
+		KeyedStateHandle snapshot;
+		try {
+			writeState(backend, 0, 50);
+			runSnapshot(backend);
+
+			// the materialization completes in the background and is picked up by a later checkpoint
+			ChangelogKeyedStateBackend<Integer> changelogBackend = (ChangelogKeyedStateBackend<Integer>) backend;
+			long deadline = System.currentTimeMillis() + 60_000L;
+			while (changelogBackend.getMaterializedState().isEmpty() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10L);
+				runSnapshot(backend);
+			}
+			assertFalse(changelogBackend.getMaterializedState().isEmpty());
+
+			writeState(backend, 50, 100);
+			removeState(backend, 0, 10);
+			snapshot = runSnapshot(backend);
+
+			ChangelogStateBackendHandle handle = (ChangelogStateBackendHandle) snapshot;
+			assertFalse(handle.getMaterializedState().isEmpty());
+		} finally {
+			backend.dispose();
+		}
+
+		backend = createKeyedBackend(
+			stateBackend, KeyGroupRange.of(0, NUMBER_OF_KEY_GROUPS - 1), Collections.singletonList(snapshot));
+		try {
+			verifyRemovedState(backend, 0, 10);
+			verifyState(backend, 10, 100);
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	@Test
+	public void testRestoreWithRescaling() throws Exception {
+		ChangelogStateBackend stateBackend = createStateBackend(Duration.ofDays(1L));
+
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(
+			stateBackend, KeyGroupRange.of(0, NUMBER_OF_KEY_GROUPS - 1), Collections.emptyList());
+		KeyedStateHandle snapshot;
+		try {
+			writeState(backend, 0, 100);
+			snapshot = runSnapshot(backend);
+		} finally {
+			backend.dispose();
+		}
+
+		for (KeyGroupRange keyGroupRange : Arrays.asList(
+			KeyGroupRange.of(0, NUMBER_OF_KEY_GROUPS / 2 - 1),
+			KeyGroupRange.of(NUMBER_OF_KEY_GROUPS / 2, NUMBER_OF_KEY_GROUPS - 1))) {
+
+			backend = createKeyedBackend(
+				stateBackend, keyGroupRange, Collections.singletonList(snapshot.getIntersection(keyGroupRange)));
+			try {
+				ValueState<String> valueState = getValueState(backend);
+				for (int key = 0; key < 100; ++key) {
+					int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(key, NUMBER_OF_KEY_GROUPS);
+					if (keyGroupRange.contains(keyGroup)) {
+						backend.setCurrentKey(key);
+						assertEquals("value-" + key, valueState.value());
+					}
+				}
+			} finally {
+				backend.dispose();
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  utilities
+	// ------------------------------------------------------------------------
+
+	private ChangelogStateBackend createStateBackend(Duration materializationInterval) throws Exception {
+		// a small upload threshold makes sure that the changes are spread over several segments
+		return new ChangelogStateBackend(
+			new FsStateBackend(tempFolder.newFolder().toURI(), 0),
+			materializationInterval,
+			256L);
+	}
+
+	private AbstractKeyedStateBackend<Integer> createKeyedBackend(
+		ChangelogStateBackend stateBackend,
+		KeyGroupRange keyGroupRange,
+		Collection<KeyedStateHandle> stateHandles) throws Exception {
+
+		return stateBackend.createKeyedStateBackend(
+			env,
+			new JobID(),
+			"test_op",
+			IntSerializer.INSTANCE,
+			NUMBER_OF_KEY_GROUPS,
+			keyGroupRange,
+			env.getTaskKvStateRegistry(),
+			TtlTimeProvider.DEFAULT,
+			new UnregisteredMetricsGroup(),
+			stateHandles,
+			new CloseableRegistry());
+	}
+
+	private KeyedStateHandle runSnapshot(AbstractKeyedStateBackend<Integer> backend) throws Exception {
+		++checkpointId;
+		SnapshotResult<KeyedStateHandle> snapshotResult = FutureUtils.runIfNotDoneAndGet(backend.snapshot(
+			checkpointId,
+			checkpointId,
+			new MemCheckpointStreamFactory(MemoryStateBackend.DEFAULT_MAX_STATE_SIZE),
+			CheckpointOptions.forCheckpointWithDefaultLocation()));
+
+		KeyedStateHandle stateHandle = snapshotResult.getJobManagerOwnedSnapshot();
+		stateHandle.registerSharedStates(sharedStateRegistry);
+		return stateHandle;
+	}
+
+	private static void writeState(AbstractKeyedStateBackend<Integer> backend, int from, int to) throws Exception {
+		ValueState<String> valueState = getValueState(backend);
+		ListState<String> listState = getListState(backend);
+		MapState<Integer, String> mapState = getMapState(backend);
+		ReducingState<Integer> reducingState = getReducingState(backend);
+
+		for (int key = from; key < to; ++key) {
+			backend.setCurrentKey(key);
+			valueState.update("value-" + key);
+			listState.add("first-" + key);
+			listState.add("second-" + key);
+			mapState.put(key, "entry-" + key);
+			mapState.put(key + 1, "removed");
+			mapState.remove(key + 1);
+			reducingState.add(key);
+			reducingState.add(1);
+		}
+	}
+
+	private static void removeState(AbstractKeyedStateBackend<Integer> backend, int from, int to) throws Exception {
+		ValueState<String> valueState = getValueState(backend);
+		ListState<String> listState = getListState(backend);
+		MapState<Integer, String> mapState = getMapState(backend);
+		ReducingState<Integer> reducingState = getReducingState(backend);
+
+		for (int key = from; key < to; ++key) {
+			backend.setCurrentKey(key);
+			valueState.clear();
+			listState.clear();
+			mapState.clear();
+			reducingState.clear();
+		}
+	}
+
+	private static void verifyState(AbstractKeyedStateBackend<Integer> backend, int from, int to) throws Exception {
+		ValueState<String> valueState = getValueState(backend);
+		ListState<String> listState = getListState(backend);
+		MapState<Integer, String> mapState = getMapState(backend);
+		ReducingState<Integer> reducingState = getReducingState(backend);
+
+		for (int key = from; key < to; ++key) {
+			backend.setCurrentKey(key);
+			assertEquals("value-" + key, valueState.value());
+			assertEquals(Arrays.asList("first-" + key, "second-" + key), listState.get());
+			assertEquals("entry-" + key, mapState.get(key));
+			assertFalse(mapState.contains(key + 1));
+			assertEquals(Integer.valueOf(key + 1), reducingState.get());
+		}
+	}
+
+	private static void verifyRemovedState(AbstractKeyedStateBackend<Integer> backend, int from, int to) throws Exception {
+		ValueState<String> valueState = getValueState(backend);
+		ListState<String> listState = getListState(backend);
+		MapState<Integer, String> mapState = getMapState(backend);
+		ReducingState<Integer> reducingState = getReducingState(backend);
+
+		for (int key = from; key < to; ++key) {
+			backend.setCurrentKey(key);
+			assertNull(valueState.value());
+			assertNull(listState.get());
+			assertTrue(mapState.isEmpty());
+			assertNull(reducingState.get());
+		}
+	}
+
+	private static ValueState<String> getValueState(AbstractKeyedStateBackend<Integer> backend) throws Exception {
+		return backend.getPartitionedState(
+			VoidNamespace.INSTANCE,
+			VoidNamespaceSerializer.INSTANCE,
+			new ValueStateDescriptor<>("value", StringSerializer.INSTANCE));
+	}
+
+	private static ListState<String> getListState(AbstractKeyedStateBackend<Integer> backend) throws Exception {
+		return backend.getPartitionedState(
+			VoidNamespace.INSTANCE,
+			VoidNamespaceSerializer.INSTANCE,
+			new ListStateDescriptor<>("list", StringSerializer.INSTANCE));
+	}
+
+	private static MapState<Integer, String> getMapState(AbstractKeyedStateBackend<Integer> backend) throws Exception {
+		return backend.getPartitionedState(
+			VoidNamespace.INSTANCE,
+			VoidNamespaceSerializer.INSTANCE,
+			new MapStateDescriptor<>("map", IntSerializer.INSTANCE, StringSerializer.INSTANCE));
+	}
+
+	private static ReducingState<Integer> getReducingState(AbstractKeyedStateBackend<Integer> backend) throws Exception {
+		return backend.getPartitionedState(
+			VoidNamespace.INSTANCE,
+			VoidNamespaceSerializer.INSTANCE,
+			new ReducingStateDescriptor<>("reducing", Integer::sum, IntSerializer.INSTANCE));
+	}
+}
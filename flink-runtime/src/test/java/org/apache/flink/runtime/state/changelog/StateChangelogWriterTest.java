@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.filesystem.FileStateHandle;
+import org.apache.flink.runtime.state.filesystem.FsCheckpointStreamFactory;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link StateChangelogWriter}.
+ */
+public class StateChangelogWriterTest extends TestLogger {
+
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private StateChangelogWriter writer;
+
+	@Before
+	public void setUp() throws IOException {
+		Path checkpointDirectory = Path.fromLocalFile(tempFolder.newFolder());
+		FsCheckpointStreamFactory streamFactory = new FsCheckpointStreamFactory(
+			FileSystem.getLocalFileSystem(), checkpointDirectory, checkpointDirectory, 0, 4096);
+		writer = new StateChangelogWriter(UUID.randomUUID(), streamFactory, Runnable::run, Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testTruncateDiscardsUnreferencedSegments() throws Exception {
+		appendChange();
+		File segment = getSegmentFile(writer.snapshot(1L).get(0));
+		writer.notifyCheckpointAborted(1L);
+
+		appendChange();
+		writer.truncate(writer.seal());
+
+		assertFalse(segment.exists());
+	}
+
+	@Test
+	public void testTruncatedSegmentIsDiscardedWhenPendingCheckpointAborts() throws Exception {
+		appendChange();
+		File segment = getSegmentFile(writer.snapshot(1L).get(0));
+
+		writer.truncate(writer.seal());
+		assertTrue(segment.exists());
+
+		writer.notifyCheckpointAborted(1L);
+		assertFalse(segment.exists());
+	}
+
+	@Test
+	public void testTruncatedSegmentIsDiscardedWhenPendingCheckpointIsSubsumed() throws Exception {
+		appendChange();
+		File segment = getSegmentFile(writer.snapshot(1L).get(0));
+		writer.truncate(writer.seal());
+
+		appendChange();
+		List<StateChangelogWriter.Segment> snapshot = writer.snapshot(2L);
+		assertEquals(1, snapshot.size());
+		assertTrue(segment.exists());
+
+		writer.notifyCheckpointComplete(2L);
+		assertFalse(segment.exists());
+		assertTrue(getSegmentFile(snapshot.get(0)).exists());
+	}
+
+	@Test
+	public void testSegmentOfCompletedCheckpointIsNotDiscarded() throws Exception {
+		appendChange();
+		File segment = getSegmentFile(writer.snapshot(1L).get(0));
+		writer.notifyCheckpointComplete(1L);
+
+		appendChange();
+		writer.snapshot(2L);
+		writer.notifyCheckpointAborted(2L);
+		writer.truncate(writer.seal());
+		writer.close();
+
+		assertTrue(segment.exists());
+	}
+
+	@Test
+	public void testCloseDiscardsUnreferencedSegments() throws Exception {
+		appendChange();
+		File pendingSegment = getSegmentFile(writer.snapshot(1L).get(0));
+
+		appendChange();
+		List<StateChangelogWriter.Segment> snapshot = writer.snapshot(2L);
+		assertEquals(2, snapshot.size());
+		File unreferencedSegment = getSegmentFile(snapshot.get(1));
+		writer.notifyCheckpointAborted(2L);
+		writer.close();
+
+		assertTrue(pendingSegment.exists());
+		assertFalse(unreferencedSegment.exists());
+	}
+
+	private void appendChange() throws IOException {
+		DataOutputSerializer change = new DataOutputSerializer(16);
+		change.writeInt(42);
+		writer.append(
+			StateChangelogWriter.KIND_KEY_VALUE,
+			"state",
+			() -> new TypeSerializer<?>[] {IntSerializer.INSTANCE},
+			0,
+			change);
+	}
+
+	private static File getSegmentFile(StateChangelogWriter.Segment segment) throws Exception {
+		StreamStateHandle stateHandle = segment.stateHandle.get();
+		return new File(((FileStateHandle) stateHandle).getFilePath().getPath());
+	}
+}
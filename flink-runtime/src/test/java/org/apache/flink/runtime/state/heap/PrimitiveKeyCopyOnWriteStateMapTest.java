@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.ArrayListSerializer;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.util.TestLogger;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test for {@link PrimitiveKeyCopyOnWriteStateMap}.
+ */
+public class PrimitiveKeyCopyOnWriteStateMapTest extends TestLogger {
+
+	private static final VoidNamespace NS = VoidNamespace.INSTANCE;
+
+	/**
+	 * Testing the basic map operations.
+	 */
+	@Test
+	public void testPutGetRemoveContainsTransform() throws Exception {
+		final PrimitiveKeyCopyOnWriteStateMap<Long, VoidNamespace, ArrayList<Integer>> stateMap =
+			new PrimitiveKeyCopyOnWriteStateMap<>(LongSerializer.INSTANCE, new ArrayListSerializer<>(IntSerializer.INSTANCE));
+
+		ArrayList<Integer> state1 = new ArrayList<>();
+		state1.add(41);
+		ArrayList<Integer> state2 = new ArrayList<>();
+		state2.add(42);
+
+		Assert.assertNull(stateMap.putAndGetOld(1L, NS, state1));
+		Assert.assertEquals(state1, stateMap.get(1L, NS));
+		Assert.assertEquals(1, stateMap.size());
+
+		Assert.assertNull(stateMap.putAndGetOld(Long.MIN_VALUE, NS, state2));
+		Assert.assertEquals(state2, stateMap.get(Long.MIN_VALUE, NS));
+		Assert.assertEquals(2, stateMap.size());
+
+		Assert.assertTrue(stateMap.containsKey(1L, NS));
+		Assert.assertFalse(stateMap.containsKey(0L, NS));
+		stateMap.put(1L, NS, null);
+		Assert.assertTrue(stateMap.containsKey(1L, NS));
+		Assert.assertEquals(2, stateMap.size());
+		Assert.assertNull(stateMap.get(1L, NS));
+		stateMap.put(1L, NS, state1);
+		Assert.assertEquals(2, stateMap.size());
+
+		Assert.assertEquals(state2, stateMap.removeAndGetOld(Long.MIN_VALUE, NS));
+		Assert.assertFalse(stateMap.containsKey(Long.MIN_VALUE, NS));
+		Assert.assertEquals(1, stateMap.size());
+
+		stateMap.remove(1L, NS);
+		Assert.assertFalse(stateMap.containsKey(1L, NS));
+		Assert.assertEquals(0, stateMap.size());
+
+		stateMap.transform(7L, NS, 43, (previousState, value) -> {
+			Assert.assertNull(previousState);
+			ArrayList<Integer> newState = new ArrayList<>();
+			newState.add(value);
+			return newState;
+		});
+		stateMap.transform(7L, NS, 44, (previousState, value) -> {
+			previousState.add(value);
+			return previousState;
+		});
+		Assert.assertEquals(2, stateMap.get(7L, NS).size());
+		Assert.assertEquals(1, stateMap.sizeOfNamespace(NS));
+	}
+
+	/**
+	 * This test does random modifications to a state map and a reference map, including removals that shift entries
+	 * of long probe sequences. Snapshots are taken in between and their written content is compared against the
+	 * reference at the time of the snapshot.
+	 */
+	@Test
+	public void testRandomModificationsAndCopyOnWriteIsolation() throws Exception {
+		final ArrayListSerializer<Integer> stateSerializer = new ArrayListSerializer<>(IntSerializer.INSTANCE);
+		final PrimitiveKeyCopyOnWriteStateMap<Integer, VoidNamespace, ArrayList<Integer>> stateMap =
+			new PrimitiveKeyCopyOnWriteStateMap<>(IntSerializer.INSTANCE, stateSerializer);
+		final HashMap<Integer, ArrayList<Integer>> referenceMap = new HashMap<>();
+
+		final Random random = new Random(42);
+
+		PrimitiveKeyCopyOnWriteStateMapSnapshot<Integer, VoidNamespace, ArrayList<Integer>> snapshot = null;
+		HashMap<Integer, ArrayList<Integer>> referenceSnapshot = null;
+
+		for (int i = 0; i < 100_000; ++i) {
+			final int key = random.nextInt(1000) - 500;
+			final int op = random.nextInt(5);
+
+			switch (op) {
+				case 0: {
+					ArrayList<Integer> state = new ArrayList<>();
+					state.add(i);
+					stateMap.put(key, NS, state);
+					referenceMap.put(key, new ArrayList<>(state));
+					break;
+				}
+				case 1: {
+					Assert.assertEquals(referenceMap.remove(key), stateMap.removeAndGetOld(key, NS));
+					break;
+				}
+				case 2: {
+					ArrayList<Integer> state = stateMap.get(key, NS);
+					Assert.assertEquals(referenceMap.get(key), state);
+					if (state != null) {
+						state.add(i);
+						referenceMap.get(key).add(i);
+					}
+					break;
+				}
+				case 3: {
+					final int value = i;
+					stateMap.transform(key, NS, value, (previousState, v) -> {
+						ArrayList<Integer> newState = previousState == null ? new ArrayList<>() : previousState;
+						newState.add(v);
+						return newState;
+					});
+					referenceMap.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+					break;
+				}
+				default: {
+					Assert.assertEquals(referenceMap.containsKey(key), stateMap.containsKey(key, NS));
+				}
+			}
+
+			Assert.assertEquals(referenceMap.size(), stateMap.size());
+
+			if (i % 1000 == 0) {
+				if (snapshot != null) {
+					Assert.assertEquals(referenceSnapshot, readSnapshot(snapshot, stateSerializer));
+					snapshot.release();
+				}
+				snapshot = stateMap.stateSnapshot();
+				referenceSnapshot = deepCopy(referenceMap);
+			}
+		}
+
+		Assert.assertEquals(referenceSnapshot, readSnapshot(snapshot, stateSerializer));
+		snapshot.release();
+
+		final HashMap<Integer, ArrayList<Integer>> iterated = new HashMap<>();
+		for (StateEntry<Integer, VoidNamespace, ArrayList<Integer>> entry : stateMap) {
+			Assert.assertNull(iterated.put(entry.getKey(), entry.getState()));
+		}
+		Assert.assertEquals(referenceMap, iterated);
+	}
+
+	@Test
+	public void testCopyOnWriteContracts() {
+		final PrimitiveKeyCopyOnWriteStateMap<Long, VoidNamespace, ArrayList<Integer>> stateMap =
+			new PrimitiveKeyCopyOnWriteStateMap<>(LongSerializer.INSTANCE, new ArrayListSerializer<>(IntSerializer.INSTANCE));
+
+		ArrayList<Integer> originalState1 = new ArrayList<>(1);
+		ArrayList<Integer> originalState2 = new ArrayList<>(1);
+		ArrayList<Integer> originalState3 = new ArrayList<>(1);
+
+		originalState1.add(1);
+		originalState2.add(2);
+		originalState3.add(3);
+
+		stateMap.put(1L, NS, originalState1);
+		stateMap.put(2L, NS, originalState2);
+
+		// no snapshot taken, we get the original back
+		Assert.assertSame(originalState1, stateMap.get(1L, NS));
+		PrimitiveKeyCopyOnWriteStateMapSnapshot<Long, VoidNamespace, ArrayList<Integer>> snapshot1 = stateMap.stateSnapshot();
+		// after snapshot1 is taken, we get a copy...
+		final ArrayList<Integer> copyState = stateMap.get(1L, NS);
+		Assert.assertNotSame(originalState1, copyState);
+		// ...and the copy is equal
+		Assert.assertEquals(originalState1, copyState);
+
+		// we make an insert AFTER snapshot1
+		stateMap.put(3L, NS, originalState3);
+
+		// on repeated lookups, we get the same copy because no further snapshot was taken
+		Assert.assertSame(copyState, stateMap.get(1L, NS));
+
+		// we take snapshot2
+		PrimitiveKeyCopyOnWriteStateMapSnapshot<Long, VoidNamespace, ArrayList<Integer>> snapshot2 = stateMap.stateSnapshot();
+		// after the second snapshot, copy-on-write is active again for old entries
+		Assert.assertNotSame(copyState, stateMap.get(1L, NS));
+
+		stateMap.releaseSnapshot(snapshot2);
+		// we still get the original of the untouched late insert (after snapshot1)
+		Assert.assertSame(originalState3, stateMap.get(3L, NS));
+
+		stateMap.releaseSnapshot(snapshot1);
+		// no copy-on-write is active
+		Assert.assertSame(originalState2, stateMap.get(2L, NS));
+	}
+
+	@Test
+	public void testSnapshotRelease() {
+		final PrimitiveKeyCopyOnWriteStateMap<Integer, VoidNamespace, Integer> stateMap =
+			new PrimitiveKeyCopyOnWriteStateMap<>(IntSerializer.INSTANCE, IntSerializer.INSTANCE);
+
+		for (int i = 0; i < 10; i++) {
+			stateMap.put(i, NS, i);
+		}
+
+		PrimitiveKeyCopyOnWriteStateMapSnapshot<Integer, VoidNamespace, Integer> snapshot = stateMap.stateSnapshot();
+		Assert.assertFalse(snapshot.isReleased());
+		Assert.assertThat(stateMap.getSnapshotVersions(), Matchers.contains(snapshot.getSnapshotVersion()));
+
+		snapshot.release();
+		Assert.assertTrue(snapshot.isReleased());
+		Assert.assertThat(stateMap.getSnapshotVersions(), Matchers.empty());
+
+		// verify that snapshot will release itself only once
+		snapshot.release();
+		Assert.assertThat(stateMap.getSnapshotVersions(), Matchers.empty());
+	}
+
+	private static HashMap<Integer, ArrayList<Integer>> readSnapshot(
+		PrimitiveKeyCopyOnWriteStateMapSnapshot<Integer, VoidNamespace, ArrayList<Integer>> snapshot,
+		ArrayListSerializer<Integer> stateSerializer) throws IOException {
+
+		DataOutputSerializer out = new DataOutputSerializer(1024);
+		snapshot.writeState(IntSerializer.INSTANCE, VoidNamespaceSerializer.INSTANCE, stateSerializer, out, null);
+
+		DataInputDeserializer in = new DataInputDeserializer(out.getSharedBuffer(), 0, out.length());
+		HashMap<Integer, ArrayList<Integer>> result = new HashMap<>();
+		int size = in.readInt();
+		for (int i = 0; i < size; ++i) {
+			Assert.assertEquals(NS, VoidNamespaceSerializer.INSTANCE.deserialize(in));
+			Integer key = IntSerializer.INSTANCE.deserialize(in);
+			Assert.assertNull(result.put(key, stateSerializer.deserialize(in)));
+		}
+		return result;
+	}
+
+	private static HashMap<Integer, ArrayList<Integer>> deepCopy(Map<Integer, ArrayList<Integer>> map) {
+		HashMap<Integer, ArrayList<Integer>> copy = new HashMap<>();
+		for (Map.Entry<Integer, ArrayList<Integer>> entry : map.entrySet()) {
+			copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+		}
+		return copy;
+	}
+}
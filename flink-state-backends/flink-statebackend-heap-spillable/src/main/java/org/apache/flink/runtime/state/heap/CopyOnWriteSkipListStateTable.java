@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+import org.apache.flink.runtime.state.heap.space.Allocator;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.runtime.state.heap.CopyOnWriteSkipListStateMap.DEFAULT_LOGICAL_REMOVED_KEYS_RATIO;
+import static org.apache.flink.runtime.state.heap.CopyOnWriteSkipListStateMap.DEFAULT_MAX_KEYS_TO_DELETE_ONE_TIME;
+
+/**
+ * This implementation of {@link StateTable} uses {@link CopyOnWriteSkipListStateMap}, which keeps the serialized keys
+ * and values in space of an {@link Allocator}. This implementation supports asynchronous snapshots.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of state.
+ */
+public class CopyOnWriteSkipListStateTable<K, N, S> extends StateTable<K, N, S> implements Closeable {
+
+	/**
+	 * The allocator for the space of all state maps of this table.
+	 */
+	private final Allocator spaceAllocator;
+
+	/**
+	 * Constructs a new {@code CopyOnWriteSkipListStateTable}.
+	 *
+	 * @param keyContext     the key context.
+	 * @param metaInfo       the meta information, including the type serializer for state copy-on-write.
+	 * @param keySerializer  the serializer of the key.
+	 * @param spaceAllocator the allocator for the space of the state maps.
+	 */
+	CopyOnWriteSkipListStateTable(
+		InternalKeyContext<K> keyContext,
+		RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo,
+		TypeSerializer<K> keySerializer,
+		Allocator spaceAllocator) {
+		super(keyContext, metaInfo, keySerializer);
+		this.spaceAllocator = Preconditions.checkNotNull(spaceAllocator);
+
+		// the super constructor runs before the allocator is set, so the maps are created here
+		for (int i = 0; i < keyGroupedStateMaps.length; i++) {
+			keyGroupedStateMaps[i] = newStateMap();
+		}
+	}
+
+	@Override
+	protected CopyOnWriteSkipListStateMap<K, N, S> createStateMap() {
+		return null;
+	}
+
+	private CopyOnWriteSkipListStateMap<K, N, S> newStateMap() {
+		return new CopyOnWriteSkipListStateMap<>(
+			getKeySerializer().duplicate(),
+			getNamespaceSerializer().duplicate(),
+			getStateSerializer().duplicate(),
+			spaceAllocator,
+			DEFAULT_MAX_KEYS_TO_DELETE_ONE_TIME,
+			DEFAULT_LOGICAL_REMOVED_KEYS_RATIO);
+	}
+
+	/**
+	 * Closes all state maps of this table and frees their space.
+	 */
+	@Override
+	public void close() {
+		for (StateMap<K, N, S> stateMap : keyGroupedStateMaps) {
+			if (stateMap != null) {
+				((CopyOnWriteSkipListStateMap<K, N, S>) stateMap).close();
+			}
+		}
+	}
+
+	// Snapshotting ----------------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a snapshot of this {@link CopyOnWriteSkipListStateTable}, to be written in checkpointing.
+	 *
+	 * @return a snapshot from this {@link CopyOnWriteSkipListStateTable}, for checkpointing.
+	 */
+	@Nonnull
+	@Override
+	public CopyOnWriteSkipListStateTableSnapshot<K, N, S> stateSnapshot() {
+		return new CopyOnWriteSkipListStateTableSnapshot<>(
+			this,
+			getKeySerializer().duplicate(),
+			getNamespaceSerializer().duplicate(),
+			getStateSerializer().duplicate(),
+			getMetaInfo().getStateSnapshotTransformFactory().createForDeserializedState().orElse(null));
+	}
+
+	@SuppressWarnings("unchecked")
+	List<CopyOnWriteSkipListStateMapSnapshot<K, N, S>> getStateMapSnapshotList() {
+		List<CopyOnWriteSkipListStateMapSnapshot<K, N, S>> snapshotList = new ArrayList<>(keyGroupedStateMaps.length);
+		for (int i = 0; i < keyGroupedStateMaps.length; i++) {
+			CopyOnWriteSkipListStateMap<K, N, S> stateMap = (CopyOnWriteSkipListStateMap<K, N, S>) keyGroupedStateMaps[i];
+			snapshotList.add(stateMap.stateSnapshot());
+		}
+		return snapshotList;
+	}
+
+	/**
+	 * This class represents the snapshot of a {@link CopyOnWriteSkipListStateTable}.
+	 *
+	 * @param <K> type of key.
+	 * @param <N> type of namespace.
+	 * @param <S> type of state.
+	 */
+	static class CopyOnWriteSkipListStateTableSnapshot<K, N, S> extends AbstractStateTableSnapshot<K, N, S> {
+
+		/**
+		 * The offset to the contiguous key groups.
+		 */
+		private final int keyGroupOffset;
+
+		/**
+		 * Snapshots of state partitioned by key-group.
+		 */
+		@Nonnull
+		private final List<CopyOnWriteSkipListStateMapSnapshot<K, N, S>> stateMapSnapshots;
+
+		CopyOnWriteSkipListStateTableSnapshot(
+			CopyOnWriteSkipListStateTable<K, N, S> owningStateTable,
+			TypeSerializer<K> localKeySerializer,
+			TypeSerializer<N> localNamespaceSerializer,
+			TypeSerializer<S> localStateSerializer,
+			StateSnapshotTransformer<S> stateSnapshotTransformer) {
+			super(owningStateTable,
+				localKeySerializer,
+				localNamespaceSerializer,
+				localStateSerializer,
+				stateSnapshotTransformer);
+
+			this.keyGroupOffset = owningStateTable.getKeyGroupOffset();
+			this.stateMapSnapshots = owningStateTable.getStateMapSnapshotList();
+		}
+
+		@Override
+		protected StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> getStateMapSnapshotForKeyGroup(int keyGroup) {
+			int indexOffset = keyGroup - keyGroupOffset;
+			CopyOnWriteSkipListStateMapSnapshot<K, N, S> stateMapSnapshot = null;
+			if (indexOffset >= 0 && indexOffset < stateMapSnapshots.size()) {
+				stateMapSnapshot = stateMapSnapshots.get(indexOffset);
+			}
+
+			return stateMapSnapshot;
+		}
+
+		@Override
+		public void release() {
+			for (CopyOnWriteSkipListStateMapSnapshot<K, N, S> snapshot : stateMapSnapshots) {
+				if (!snapshot.isReleased()) {
+					snapshot.release();
+				}
+			}
+		}
+	}
+}
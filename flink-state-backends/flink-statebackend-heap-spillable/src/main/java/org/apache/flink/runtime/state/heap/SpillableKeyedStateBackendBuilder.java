@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.BackendBuildingException;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.heap.space.MmapChunkAllocator;
+import org.apache.flink.runtime.state.heap.space.OffHeapChunkAllocator;
+import org.apache.flink.runtime.state.heap.space.SpaceAllocator;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Builder class for a {@link HeapKeyedStateBackend} whose states are kept in {@link CopyOnWriteSkipListStateTable}s.
+ * The space of the tables is allocated by a {@link SpaceAllocator} of the backend, which reserves its off-heap memory
+ * from the managed memory of the slot and spills to memory-mapped files once that memory is exhausted.
+ *
+ * @param <K> The data type that the key serializer serializes.
+ */
+public class SpillableKeyedStateBackendBuilder<K> extends HeapKeyedStateBackendBuilder<K> {
+
+	/** Size of the chunks of the space allocator. */
+	private final int chunkSize;
+
+	/** Number of bytes the space allocator may allocate off-heap before spilling. */
+	private final long offHeapCapacity;
+
+	/** The memory manager of the slot to reserve the off-heap memory from. */
+	private final MemoryManager memoryManager;
+
+	/** The directories for memory-mapped chunks, or null if spilling is disabled. */
+	@Nullable
+	private final File[] spillDirectories;
+
+	/** The allocator of the backend that is currently built. */
+	private SpaceAllocator spaceAllocator;
+
+	public SpillableKeyedStateBackendBuilder(
+		TaskKvStateRegistry kvStateRegistry,
+		TypeSerializer<K> keySerializer,
+		ClassLoader userCodeClassLoader,
+		int numberOfKeyGroups,
+		KeyGroupRange keyGroupRange,
+		ExecutionConfig executionConfig,
+		TtlTimeProvider ttlTimeProvider,
+		@Nonnull Collection<KeyedStateHandle> stateHandles,
+		StreamCompressionDecorator keyGroupCompressionDecorator,
+		LocalRecoveryConfig localRecoveryConfig,
+		HeapPriorityQueueSetFactory priorityQueueSetFactory,
+		CloseableRegistry cancelStreamRegistry,
+		int chunkSize,
+		long offHeapCapacity,
+		MemoryManager memoryManager,
+		@Nullable File[] spillDirectories) {
+		super(
+			kvStateRegistry,
+			keySerializer,
+			userCodeClassLoader,
+			numberOfKeyGroups,
+			keyGroupRange,
+			executionConfig,
+			ttlTimeProvider,
+			stateHandles,
+			keyGroupCompressionDecorator,
+			localRecoveryConfig,
+			priorityQueueSetFactory,
+			true,
+			cancelStreamRegistry);
+		this.chunkSize = chunkSize;
+		this.offHeapCapacity = offHeapCapacity;
+		this.memoryManager = memoryManager;
+		this.spillDirectories = spillDirectories;
+	}
+
+	@Override
+	public HeapKeyedStateBackend<K> build() throws BackendBuildingException {
+		spaceAllocator = new SpaceAllocator(
+			chunkSize,
+			offHeapCapacity,
+			new OffHeapChunkAllocator(memoryManager),
+			spillDirectories == null ? null : new MmapChunkAllocator(spillDirectories));
+		try {
+			return super.build();
+		} catch (BackendBuildingException | RuntimeException e) {
+			// releases the space of all state tables created so far
+			IOUtils.closeQuietly(spaceAllocator);
+			throw e;
+		}
+	}
+
+	@Override
+	protected SnapshotStrategySynchronicityBehavior<K> createSnapshotStrategySynchronicityBehavior(
+		boolean asynchronousSnapshots,
+		CloseableRegistry backendCloseableRegistry) {
+		try {
+			// registered first, so that it is closed after all state tables
+			backendCloseableRegistry.registerCloseable(spaceAllocator);
+		} catch (IOException e) {
+			throw new FlinkRuntimeException("The backend has been closed while it was built.", e);
+		}
+		return new SpillableSnapshotStrategySynchronicityBehavior<>(spaceAllocator, backendCloseableRegistry);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.MemorySize;
+
+/**
+ * Configuration options for the {@link SpillableStateBackend}.
+ */
+@PublicEvolving
+public class SpillableOptions {
+
+	/** The off-heap memory of each keyed state backend before it spills to memory-mapped files. */
+	public static final ConfigOption<MemorySize> OFF_HEAP_SIZE = ConfigOptions
+		.key("state.backend.spillable.off-heap.size")
+		.memoryType()
+		.defaultValue(MemorySize.parse("128mb"))
+		.withDescription("The maximum amount of off-heap memory that each keyed state backend (one per stateful " +
+			"operator subtask) allocates for keys and values, before it allocates further space in memory-mapped " +
+			"files. The memory is reserved from the managed memory of the slot, which is shared by all keyed state " +
+			"backends of the slot. A keyed state backend spills earlier if the managed memory is exhausted.");
+
+	/** The size of the chunks that the off-heap and memory-mapped space is allocated in. */
+	public static final ConfigOption<MemorySize> CHUNK_SIZE = ConfigOptions
+		.key("state.backend.spillable.chunk.size")
+		.memoryType()
+		.defaultValue(MemorySize.parse("8mb"))
+		.withDescription("The size of the chunks that the space of the spillable state backend is allocated in. " +
+			"Must be a multiple of 1 mb and at most 1 gb.");
+
+	/** Whether the backend spills to memory-mapped files when the off-heap memory is exhausted. */
+	public static final ConfigOption<Boolean> SPILL_ENABLED = ConfigOptions
+		.key("state.backend.spillable.spill.enabled")
+		.booleanType()
+		.defaultValue(true)
+		.withDescription("Whether the spillable state backend allocates space in memory-mapped files once its " +
+			"off-heap memory is exhausted. If disabled, the job fails when the off-heap memory is exhausted.");
+
+	/** The local directories for the memory-mapped files. */
+	public static final ConfigOption<String> SPILL_DIRECTORIES = ConfigOptions
+		.key("state.backend.spillable.spill.dirs")
+		.stringType()
+		.noDefaultValue()
+		.withDescription("The local directories (on the TaskManager) for the memory-mapped files of the spillable " +
+			"state backend, separated by ',' or the system path separator. Defaults to the TaskManager's temporary " +
+			"directories.");
+}
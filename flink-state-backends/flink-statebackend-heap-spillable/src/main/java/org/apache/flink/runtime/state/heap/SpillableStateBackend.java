@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.BackendBuildingException;
+import org.apache.flink.runtime.state.CheckpointStorage;
+import org.apache.flink.runtime.state.CompletedCheckpointStorageLocation;
+import org.apache.flink.runtime.state.ConfigurableStateBackend;
+import org.apache.flink.runtime.state.DefaultOperatorStateBackendBuilder;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.OperatorStateBackend;
+import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.apache.flink.runtime.state.heap.space.Constants;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.TernaryBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.UUID;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A state backend that holds keyed state in {@link CopyOnWriteSkipListStateMap}s, which store keys and values in
+ * serialized form outside of the JVM heap.
+ *
+ * <p>The space for the state maps is allocated from off-heap memory up to a configurable size per keyed backend. The
+ * off-heap memory is reserved from the managed memory of the slot, which all keyed backends of the slot share. Beyond
+ * the configured size, or once the managed memory of the slot is exhausted, further space is allocated in memory-mapped files in local directories, so that the operating
+ * system can page out cold state instead of the job running out of memory. Snapshots are always asynchronous.
+ *
+ * <p>Like the RocksDB state backend, this state backend only implements the state holding parts and relies on another
+ * state backend (by default a {@link FsStateBackend}) to persist the checkpoint and savepoint streams.
+ */
+@PublicEvolving
+public class SpillableStateBackend extends AbstractStateBackend implements ConfigurableStateBackend {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Flag for the undefined sizes, meaning the value is taken from the configuration. */
+	private static final long UNDEFINED_SIZE = -1L;
+
+	// ------------------------------------------------------------------------
+
+	/** The state backend that we use for creating checkpoint streams. */
+	private final StateBackend checkpointStreamBackend;
+
+	/** Off-heap bytes of each keyed state backend before spilling, or {@link #UNDEFINED_SIZE}. */
+	private long offHeapSize;
+
+	/** Size of the chunks in which the space is allocated, or {@link #UNDEFINED_SIZE}. */
+	private long chunkSize;
+
+	/** Whether to spill to memory-mapped files. */
+	private TernaryBoolean spillEnabled;
+
+	/** The local directories for memory-mapped files, null means the TaskManager's temp directories. */
+	@Nullable
+	private File[] spillDirectories;
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a new {@code SpillableStateBackend} that stores its checkpoint data in the file system and location
+	 * defined by the given URI, via a {@link FsStateBackend}.
+	 *
+	 * @param checkpointDataUri The URI describing the filesystem (scheme and optionally authority),
+	 *                          and the path to the checkpoint data directory.
+	 */
+	public SpillableStateBackend(String checkpointDataUri) {
+		this(new FsStateBackend(checkpointDataUri));
+	}
+
+	/**
+	 * Creates a new {@code SpillableStateBackend} that uses the given state backend to store its checkpoint data
+	 * streams.
+	 *
+	 * @param checkpointStreamBackend The backend write the checkpoint streams to.
+	 */
+	public SpillableStateBackend(StateBackend checkpointStreamBackend) {
+		this.checkpointStreamBackend = checkNotNull(checkpointStreamBackend);
+		this.offHeapSize = UNDEFINED_SIZE;
+		this.chunkSize = UNDEFINED_SIZE;
+		this.spillEnabled = TernaryBoolean.UNDEFINED;
+	}
+
+	/**
+	 * Private constructor that creates a re-configured copy of the state backend.
+	 *
+	 * @param original The state backend to re-configure.
+	 * @param config The configuration.
+	 * @param classLoader The class loader.
+	 */
+	private SpillableStateBackend(SpillableStateBackend original, ReadableConfig config, ClassLoader classLoader) {
+		// reconfigure the state backend backing the streams
+		final StateBackend originalStreamBackend = original.checkpointStreamBackend;
+		this.checkpointStreamBackend = originalStreamBackend instanceof ConfigurableStateBackend ?
+				((ConfigurableStateBackend) originalStreamBackend).configure(config, classLoader) :
+				originalStreamBackend;
+
+		this.offHeapSize = original.offHeapSize == UNDEFINED_SIZE ?
+			config.get(SpillableOptions.OFF_HEAP_SIZE).getBytes() : original.offHeapSize;
+
+		final long configuredChunkSize = original.chunkSize == UNDEFINED_SIZE ?
+			config.get(SpillableOptions.CHUNK_SIZE).getBytes() : original.chunkSize;
+		try {
+			checkChunkSize(configuredChunkSize);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalConfigurationException("Invalid configuration for the spillable state backend's " +
+				"chunk size: " + e.getMessage(), e);
+		}
+		this.chunkSize = configuredChunkSize;
+
+		this.spillEnabled = original.spillEnabled.resolveUndefined(config.get(SpillableOptions.SPILL_ENABLED));
+
+		if (original.spillDirectories != null) {
+			this.spillDirectories = original.spillDirectories;
+		} else {
+			final String spillPaths = config.get(SpillableOptions.SPILL_DIRECTORIES);
+			if (spillPaths != null) {
+				try {
+					setSpillPaths(spillPaths.split(",|" + File.pathSeparator));
+				} catch (IllegalArgumentException e) {
+					throw new IllegalConfigurationException("Invalid configuration for the spillable state " +
+						"backend's spill directories: " + e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Reconfiguration
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a copy of this state backend that uses the values defined in the configuration
+	 * for fields where that were not yet specified in this state backend.
+	 *
+	 * @param config The configuration.
+	 * @param classLoader The class loader.
+	 * @return The re-configured variant of the state backend
+	 */
+	@Override
+	public SpillableStateBackend configure(ReadableConfig config, ClassLoader classLoader) {
+		return new SpillableStateBackend(this, config, classLoader);
+	}
+
+	// ------------------------------------------------------------------------
+	//  Checkpoint initialization and persistent storage
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Gets the state backend that this state backend uses to persist its bytes to.
+	 */
+	public StateBackend getCheckpointBackend() {
+		return checkpointStreamBackend;
+	}
+
+	@Override
+	public CompletedCheckpointStorageLocation resolveCheckpoint(String pointer) throws IOException {
+		return checkpointStreamBackend.resolveCheckpoint(pointer);
+	}
+
+	@Override
+	public CheckpointStorage createCheckpointStorage(JobID jobId) throws IOException {
+		return checkpointStreamBackend.createCheckpointStorage(jobId);
+	}
+
+	// ------------------------------------------------------------------------
+	//  State holding data structures
+	// ------------------------------------------------------------------------
+
+	@Override
+	public <K> AbstractKeyedStateBackend<K> createKeyedStateBackend(
+		Environment env,
+		JobID jobID,
+		String operatorIdentifier,
+		TypeSerializer<K> keySerializer,
+		int numberOfKeyGroups,
+		KeyGroupRange keyGroupRange,
+		TaskKvStateRegistry kvStateRegistry,
+		TtlTimeProvider ttlTimeProvider,
+		MetricGroup metricGroup,
+		@Nonnull Collection<KeyedStateHandle> stateHandles,
+		CloseableRegistry cancelStreamRegistry) throws BackendBuildingException {
+
+		LocalRecoveryConfig localRecoveryConfig = env.getTaskStateManager().createLocalRecoveryConfig();
+		HeapPriorityQueueSetFactory priorityQueueSetFactory =
+			new HeapPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128);
+
+		return new SpillableKeyedStateBackendBuilder<>(
+			kvStateRegistry,
+			keySerializer,
+			env.getUserClassLoader(),
+			numberOfKeyGroups,
+			keyGroupRange,
+			env.getExecutionConfig(),
+			ttlTimeProvider,
+			stateHandles,
+			AbstractStateBackend.getCompressionDecorator(env.getExecutionConfig()),
+			localRecoveryConfig,
+			priorityQueueSetFactory,
+			cancelStreamRegistry,
+			(int) getChunkSize(),
+			getOffHeapSize(),
+			env.getMemoryManager(),
+			isSpillEnabled() ? createSpillDirectories(env, jobID, operatorIdentifier) : null).build();
+	}
+
+	@Override
+	public OperatorStateBackend createOperatorStateBackend(
+		Environment env,
+		String operatorIdentifier,
+		@Nonnull Collection<OperatorStateHandle> stateHandles,
+		CloseableRegistry cancelStreamRegistry) throws BackendBuildingException {
+
+		return new DefaultOperatorStateBackendBuilder(
+			env.getUserClassLoader(),
+			env.getExecutionConfig(),
+			true,
+			stateHandles,
+			cancelStreamRegistry).build();
+	}
+
+	/**
+	 * Creates one directory path per spill directory for a new keyed state backend. The directories are created
+	 * lazily on the first spill and deleted when the keyed state backend is disposed.
+	 */
+	private File[] createSpillDirectories(Environment env, JobID jobID, String operatorIdentifier) {
+		final File[] baseDirectories;
+		if (spillDirectories != null) {
+			baseDirectories = spillDirectories;
+		} else {
+			final String[] tmpDirectories = env.getTaskManagerInfo().getTmpDirectories();
+			baseDirectories = new File[tmpDirectories.length];
+			for (int i = 0; i < tmpDirectories.length; i++) {
+				baseDirectories[i] = new File(tmpDirectories[i]);
+			}
+		}
+
+		// replace all characters that are not legal for filenames with underscore
+		final String fileCompatibleIdentifier = operatorIdentifier.replaceAll("[^a-zA-Z0-9\\-]", "_");
+		final String instanceDirectoryName =
+			"job_" + jobID + "_op_" + fileCompatibleIdentifier + "_uuid_" + UUID.randomUUID();
+
+		final File[] instanceDirectories = new File[baseDirectories.length];
+		for (int i = 0; i < baseDirectories.length; i++) {
+			instanceDirectories[i] = new File(baseDirectories[i], instanceDirectoryName);
+		}
+		return instanceDirectories;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Parameters
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Sets the off-heap memory that each keyed state backend allocates before it spills to memory-mapped files. The
+	 * memory is reserved from the managed memory of the slot, so a keyed state backend spills earlier if the managed
+	 * memory of its slot is exhausted.
+	 */
+	public void setOffHeapSize(MemorySize offHeapSize) {
+		checkArgument(offHeapSize.getBytes() >= 0, "The off-heap size must not be negative.");
+		this.offHeapSize = offHeapSize.getBytes();
+	}
+
+	/**
+	 * Gets the off-heap memory that each keyed state backend allocates before it spills to memory-mapped files.
+	 */
+	public long getOffHeapSize() {
+		return offHeapSize == UNDEFINED_SIZE ? SpillableOptions.OFF_HEAP_SIZE.defaultValue().getBytes() : offHeapSize;
+	}
+
+	/**
+	 * Sets the size of the chunks that the space is allocated in. Must be a multiple of 1 mb and at most 1 gb.
+	 */
+	public void setChunkSize(MemorySize chunkSize) {
+		checkChunkSize(chunkSize.getBytes());
+		this.chunkSize = chunkSize.getBytes();
+	}
+
+	/**
+	 * Gets the size of the chunks that the space is allocated in.
+	 */
+	public long getChunkSize() {
+		return chunkSize == UNDEFINED_SIZE ? SpillableOptions.CHUNK_SIZE.defaultValue().getBytes() : chunkSize;
+	}
+
+	/**
+	 * Sets whether the backend spills to memory-mapped files once the off-heap memory is exhausted.
+	 */
+	public void setSpillEnabled(boolean spillEnabled) {
+		this.spillEnabled = TernaryBoolean.fromBoolean(spillEnabled);
+	}
+
+	/**
+	 * Gets whether the backend spills to memory-mapped files once the off-heap memory is exhausted.
+	 */
+	public boolean isSpillEnabled() {
+		return spillEnabled.getOrDefault(SpillableOptions.SPILL_ENABLED.defaultValue());
+	}
+
+	/**
+	 * Sets the local directories for the memory-mapped files. Passing {@code null} resets to the TaskManager's
+	 * temporary directories.
+	 */
+	public void setSpillPaths(String... paths) {
+		if (paths == null) {
+			spillDirectories = null;
+			return;
+		}
+		checkArgument(paths.length > 0, "empty paths");
+
+		final File[] directories = new File[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			final File directory = new File(paths[i]);
+			checkArgument(directory.isAbsolute(), "Spill path '%s' is not absolute.", paths[i]);
+			directories[i] = directory;
+		}
+		this.spillDirectories = directories;
+	}
+
+	/**
+	 * Gets the configured local directories for the memory-mapped files, or null if the TaskManager's temporary
+	 * directories are used.
+	 */
+	@Nullable
+	public String[] getSpillPaths() {
+		if (spillDirectories == null) {
+			return null;
+		}
+		final String[] paths = new String[spillDirectories.length];
+		for (int i = 0; i < paths.length; i++) {
+			paths[i] = spillDirectories[i].toString();
+		}
+		return paths;
+	}
+
+	private static void checkChunkSize(long chunkSize) {
+		checkArgument(chunkSize > 0 && chunkSize % Constants.BUCKET_SIZE == 0,
+			"The chunk size must be a positive multiple of %s bytes, but is %s.", Constants.BUCKET_SIZE, chunkSize);
+		checkArgument(chunkSize <= MemorySize.parse("1gb").getBytes(),
+			"The chunk size must not exceed 1 gb, but is %s.", chunkSize);
+	}
+
+	// ------------------------------------------------------------------------
+	//  utilities
+	// ------------------------------------------------------------------------
+
+	@Override
+	public String toString() {
+		return "SpillableStateBackend{" +
+			"checkpointStreamBackend=" + checkpointStreamBackend +
+			", offHeapSize=" + offHeapSize +
+			", chunkSize=" + chunkSize +
+			", spillEnabled=" + spillEnabled +
+			'}';
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+
+/**
+ * Base class for {@link Chunk}s which are backed by a single {@link MemorySegment}.
+ */
+public abstract class AbstractChunk implements Chunk {
+
+	private final int chunkId;
+
+	private final MemorySegment segment;
+
+	/** The allocator which provided the segment of this chunk. */
+	private final ChunkAllocator chunkAllocator;
+
+	AbstractChunk(int chunkId, MemorySegment segment, ChunkAllocator chunkAllocator) {
+		this.chunkId = chunkId;
+		this.segment = segment;
+		this.chunkAllocator = chunkAllocator;
+	}
+
+	@Override
+	public int getChunkId() {
+		return chunkId;
+	}
+
+	@Override
+	public int getChunkCapacity() {
+		return segment.size();
+	}
+
+	@Override
+	public MemorySegment getMemorySegment(int chunkOffset) {
+		return segment;
+	}
+
+	@Override
+	public int getOffsetInSegment(int offsetInChunk) {
+		return offsetInChunk;
+	}
+
+	ChunkAllocator getChunkAllocator() {
+		return chunkAllocator;
+	}
+
+	/**
+	 * Returns the memory of this chunk to the allocator which provided it.
+	 */
+	void release() {
+		chunkAllocator.release(segment);
+	}
+}
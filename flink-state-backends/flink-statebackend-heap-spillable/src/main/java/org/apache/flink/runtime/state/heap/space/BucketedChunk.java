@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.Preconditions;
+
+import java.util.ArrayDeque;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.BUCKET_SIZE;
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * A {@link Chunk} which is divided into buckets of {@link Constants#BUCKET_SIZE} bytes. Each bucket in use serves
+ * allocations of one power-of-two size class, and tracks its slots in a bitmap. A bucket is returned to the chunk once
+ * all of its slots are free, so that it can serve a different size class.
+ *
+ * <p>This class is not thread-safe, the owning {@link SpaceAllocator} synchronizes all allocations and frees.
+ */
+public class BucketedChunk extends AbstractChunk {
+
+	/** Smallest size class, allocations are at least 16 bytes. */
+	static final int MIN_SIZE_CLASS = 4;
+
+	/** Largest size class, a bucket with one slot. */
+	static final int MAX_SIZE_CLASS = MathUtils.log2strict(BUCKET_SIZE);
+
+	private static final byte FREE_BUCKET = -1;
+
+	/** The size class of each bucket, or {@link #FREE_BUCKET}. */
+	private final byte[] bucketSizeClasses;
+
+	/** Allocation bitmap of each bucket in use, set bits are allocated slots. */
+	private final long[][] bucketBitmaps;
+
+	/** Number of free slots of each bucket in use. */
+	private final int[] bucketFreeSlots;
+
+	/**
+	 * Buckets which may have free slots, per size class. Entries are validated lazily when they reach the head of the
+	 * queue, because buckets may be freed or reassigned while they are queued.
+	 */
+	private final ArrayDeque<Integer>[] partialBuckets;
+
+	/** Buckets which serve no size class. */
+	private final ArrayDeque<Integer> freeBuckets;
+
+	@SuppressWarnings("unchecked")
+	BucketedChunk(int chunkId, MemorySegment segment, ChunkAllocator chunkAllocator) {
+		super(chunkId, segment, chunkAllocator);
+		Preconditions.checkArgument(segment.size() % BUCKET_SIZE == 0,
+			"Chunk size %s is not a multiple of the bucket size %s.", segment.size(), BUCKET_SIZE);
+
+		final int numBuckets = segment.size() / BUCKET_SIZE;
+		this.bucketSizeClasses = new byte[numBuckets];
+		this.bucketBitmaps = new long[numBuckets][];
+		this.bucketFreeSlots = new int[numBuckets];
+		this.freeBuckets = new ArrayDeque<>(numBuckets);
+		for (int i = 0; i < numBuckets; i++) {
+			bucketSizeClasses[i] = FREE_BUCKET;
+			freeBuckets.add(i);
+		}
+		this.partialBuckets = new ArrayDeque[MAX_SIZE_CLASS + 1];
+		for (int i = MIN_SIZE_CLASS; i <= MAX_SIZE_CLASS; i++) {
+			partialBuckets[i] = new ArrayDeque<>();
+		}
+	}
+
+	/**
+	 * Returns the size class for allocations of the given length.
+	 */
+	static int sizeClassOf(int len) {
+		return Math.max(MIN_SIZE_CLASS, MathUtils.log2floor(MathUtils.roundUpToPowerOfTwo(Math.max(len, 1))));
+	}
+
+	@Override
+	public int allocate(int len) {
+		if (len > BUCKET_SIZE) {
+			return NO_SPACE;
+		}
+
+		final int sizeClass = sizeClassOf(len);
+		final ArrayDeque<Integer> partial = partialBuckets[sizeClass];
+		while (!partial.isEmpty()) {
+			final int bucket = partial.peekFirst();
+			if (bucketSizeClasses[bucket] == sizeClass && bucketFreeSlots[bucket] > 0) {
+				return allocateInBucket(bucket, sizeClass);
+			}
+			// stale entry of a bucket that is full, freed or reassigned
+			partial.pollFirst();
+		}
+
+		final Integer bucket = freeBuckets.pollFirst();
+		if (bucket == null) {
+			return NO_SPACE;
+		}
+
+		final int slots = BUCKET_SIZE >>> sizeClass;
+		final long[] bitmap = new long[Math.max(1, slots >>> 6)];
+		if (slots < Long.SIZE) {
+			// mark the non-existing slots as allocated
+			bitmap[0] = -1L << slots;
+		}
+		bucketSizeClasses[bucket] = (byte) sizeClass;
+		bucketBitmaps[bucket] = bitmap;
+		bucketFreeSlots[bucket] = slots;
+		partial.addFirst(bucket);
+		return allocateInBucket(bucket, sizeClass);
+	}
+
+	private int allocateInBucket(int bucket, int sizeClass) {
+		final long[] bitmap = bucketBitmaps[bucket];
+		for (int i = 0; i < bitmap.length; i++) {
+			final long word = bitmap[i];
+			if (word != -1L) {
+				final int bit = Long.numberOfTrailingZeros(~word);
+				bitmap[i] = word | (1L << bit);
+				if (--bucketFreeSlots[bucket] == 0) {
+					// the bucket is at the head of the queue
+					partialBuckets[sizeClass].pollFirst();
+				}
+				final int slot = (i << 6) + bit;
+				return bucket * BUCKET_SIZE + (slot << sizeClass);
+			}
+		}
+		throw new IllegalStateException("Bucket " + bucket + " has no free slot.");
+	}
+
+	@Override
+	public void free(int interChunkOffset) {
+		final int bucket = interChunkOffset / BUCKET_SIZE;
+		final int sizeClass = bucketSizeClasses[bucket];
+		Preconditions.checkState(sizeClass != FREE_BUCKET, "Offset %s is not allocated.", interChunkOffset);
+
+		final int slot = (interChunkOffset % BUCKET_SIZE) >>> sizeClass;
+		final long[] bitmap = bucketBitmaps[bucket];
+		final long mask = 1L << (slot & 63);
+		Preconditions.checkState((bitmap[slot >>> 6] & mask) != 0, "Offset %s is not allocated.", interChunkOffset);
+		bitmap[slot >>> 6] &= ~mask;
+
+		if (bucketFreeSlots[bucket]++ == 0) {
+			partialBuckets[sizeClass].addLast(bucket);
+		}
+
+		if (bucketFreeSlots[bucket] == BUCKET_SIZE >>> sizeClass) {
+			bucketSizeClasses[bucket] = FREE_BUCKET;
+			bucketBitmaps[bucket] = null;
+			bucketFreeSlots[bucket] = 0;
+			freeBuckets.addLast(bucket);
+		}
+	}
+
+	/**
+	 * Returns true if no space of this chunk is allocated.
+	 */
+	boolean isEmpty() {
+		return freeBuckets.size() == bucketSizeClasses.length;
+	}
+}
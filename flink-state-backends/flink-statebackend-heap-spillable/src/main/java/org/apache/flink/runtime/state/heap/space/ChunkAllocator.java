@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+
+import javax.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Provides the memory backing {@link Chunk}s. Implementations decide where the memory lives, e.g. in off-heap memory
+ * or in memory-mapped files.
+ */
+public interface ChunkAllocator extends Closeable {
+
+	/**
+	 * Allocates a memory segment of the given size for a chunk.
+	 *
+	 * @param size size of the segment in bytes.
+	 * @return the allocated segment, or null if the memory of the allocator is exhausted.
+	 * @throws IOException if the memory could not be allocated.
+	 */
+	@Nullable
+	MemorySegment allocate(int size) throws IOException;
+
+	/**
+	 * Releases a memory segment which was previously allocated by this allocator.
+	 *
+	 * @param segment the segment to release.
+	 */
+	void release(MemorySegment segment);
+}
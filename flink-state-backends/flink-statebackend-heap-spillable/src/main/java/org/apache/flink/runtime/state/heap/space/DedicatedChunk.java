@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * A {@link Chunk} which serves exactly one allocation. It is used for spaces larger than a bucket.
+ */
+public class DedicatedChunk extends AbstractChunk {
+
+	private boolean used;
+
+	DedicatedChunk(int chunkId, MemorySegment segment, ChunkAllocator chunkAllocator) {
+		super(chunkId, segment, chunkAllocator);
+		this.used = false;
+	}
+
+	@Override
+	public int allocate(int len) {
+		if (used || len > getChunkCapacity()) {
+			return NO_SPACE;
+		}
+		used = true;
+		return 0;
+	}
+
+	@Override
+	public void free(int interChunkOffset) {
+		used = false;
+	}
+}
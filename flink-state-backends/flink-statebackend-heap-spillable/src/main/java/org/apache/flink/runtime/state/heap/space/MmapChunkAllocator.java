@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.Preconditions;
+
+import org.apache.flink.shaded.netty4.io.netty.util.internal.PlatformDependent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * {@link ChunkAllocator} which backs chunks by memory-mapped files in local directories. The operating system pages
+ * cold parts of the files out to disk under memory pressure, which makes this the spill tier of a
+ * {@link SpaceAllocator}.
+ *
+ * <p>Every chunk gets its own file. The file is unlinked right after it was mapped, so that its disk space is reclaimed
+ * by the operating system as soon as the chunk is unmapped, even if the process dies. Chunks are unmapped explicitly
+ * when they are released or the allocator is closed, instead of waiting for the garbage collector.
+ *
+ * <p>This class is not thread-safe, the {@link SpaceAllocator} serializes all calls.
+ */
+public class MmapChunkAllocator implements ChunkAllocator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MmapChunkAllocator.class);
+
+	/** The directories to create the chunk files in, used round-robin. */
+	private final File[] spillDirectories;
+
+	/** Index of the next directory to use. */
+	private int nextDirectory;
+
+	/** The mappings of all chunks which were not released yet. */
+	private final Map<MemorySegment, MappedByteBuffer> mappings;
+
+	public MmapChunkAllocator(File[] spillDirectories) {
+		Preconditions.checkArgument(spillDirectories.length > 0, "No spill directories configured.");
+		this.spillDirectories = spillDirectories;
+		this.nextDirectory = 0;
+		this.mappings = new IdentityHashMap<>();
+	}
+
+	@Override
+	public MemorySegment allocate(int size) throws IOException {
+		final File directory = spillDirectories[nextDirectory];
+		nextDirectory = (nextDirectory + 1) % spillDirectories.length;
+
+		if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+			throw new IOException("Could not create spill directory " + directory);
+		}
+
+		final File file = new File(directory, "chunk-" + UUID.randomUUID());
+		final MappedByteBuffer buffer;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(size);
+			buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} finally {
+			if (!file.delete()) {
+				LOG.debug("Could not unlink chunk file {}, it is deleted when the allocator is closed.", file);
+			}
+		}
+
+		final MemorySegment segment = MemorySegmentFactory.wrapOffHeapMemory(buffer);
+		mappings.put(segment, buffer);
+		return segment;
+	}
+
+	@Override
+	public void release(MemorySegment segment) {
+		final MappedByteBuffer buffer = mappings.remove(segment);
+		Preconditions.checkArgument(buffer != null, "The segment was not allocated by this allocator.");
+		segment.free();
+		PlatformDependent.freeDirectBuffer(buffer);
+	}
+
+	@Override
+	public void close() {
+		for (Map.Entry<MemorySegment, MappedByteBuffer> mapping : mappings.entrySet()) {
+			mapping.getKey().free();
+			PlatformDependent.freeDirectBuffer(mapping.getValue());
+		}
+		mappings.clear();
+
+		for (File directory : spillDirectories) {
+			try {
+				FileUtils.deleteDirectory(directory);
+			} catch (IOException e) {
+				LOG.warn("Could not delete spill directory {}.", directory, e);
+			}
+		}
+	}
+}
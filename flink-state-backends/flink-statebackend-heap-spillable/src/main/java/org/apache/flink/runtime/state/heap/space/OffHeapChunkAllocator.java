@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.memory.MemoryReservationException;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+/**
+ * {@link ChunkAllocator} which allocates chunks from unsafe off-heap memory. Like the pages of the {@link MemoryManager},
+ * the memory of every chunk is reserved from the managed memory of the slot and returned to it once the chunk's memory
+ * has been reclaimed by the garbage collector. This way the chunks of all backends in a slot share the slot's managed
+ * memory budget, and allocations fail softly once that budget is exhausted.
+ *
+ * <p>This class is not thread-safe, the {@link SpaceAllocator} serializes all calls.
+ */
+public class OffHeapChunkAllocator implements ChunkAllocator {
+
+	/** The memory manager of the slot to reserve the memory of the chunks from. */
+	private final MemoryManager memoryManager;
+
+	/**
+	 * Whether the last reservation failed and no chunk was released since. A failing reservation is expensive because
+	 * it waits for the garbage collector, so it is not retried for every chunk.
+	 */
+	private boolean exhausted;
+
+	public OffHeapChunkAllocator(MemoryManager memoryManager) {
+		this.memoryManager = Preconditions.checkNotNull(memoryManager);
+		this.exhausted = false;
+	}
+
+	/**
+	 * Allocates a chunk of the given size, or returns null if the managed memory of the slot is exhausted.
+	 */
+	@Nullable
+	@Override
+	public MemorySegment allocate(int size) {
+		if (exhausted && memoryManager.availableMemory() < size) {
+			return null;
+		}
+
+		try {
+			memoryManager.reserveMemory(this, size);
+		} catch (MemoryReservationException e) {
+			exhausted = true;
+			return null;
+		}
+		exhausted = false;
+		return MemorySegmentFactory.allocateOffHeapUnsafeMemory(size, this, () -> releaseReservation(size));
+	}
+
+	@Override
+	public void release(MemorySegment segment) {
+		// the reservation is returned once the memory has been reclaimed
+		segment.free();
+		exhausted = false;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	private void releaseReservation(long size) {
+		if (!memoryManager.isShutdown()) {
+			memoryManager.releaseMemory(this, size);
+		}
+	}
+}
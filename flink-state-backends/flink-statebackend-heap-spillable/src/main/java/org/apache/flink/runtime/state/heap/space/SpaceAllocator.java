@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.BUCKET_SIZE;
+import static org.apache.flink.runtime.state.heap.space.Constants.FOUR_BYTES_BITS;
+import static org.apache.flink.runtime.state.heap.space.Constants.FOUR_BYTES_MARK;
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * {@link Allocator} with two tiers of memory. Chunks are allocated from off-heap memory as long as neither the
+ * configured off-heap capacity nor the off-heap chunk allocator is exhausted, and from memory-mapped files afterwards. The memory-mapped chunks are paged out by
+ * the operating system under memory pressure, so the capacity of the allocator is bounded by the local disks instead of
+ * the memory of the process.
+ *
+ * <p>Spaces of up to {@link Constants#BUCKET_SIZE} bytes are allocated from {@link BucketedChunk}s of the configured
+ * chunk size, larger spaces get a {@link DedicatedChunk} each. Empty chunks are kept for reuse, except for dedicated
+ * chunks which are released as soon as their space is freed.
+ *
+ * <p>Allocations and frees are synchronized, looking up chunks by id is not.
+ */
+public class SpaceAllocator implements Allocator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SpaceAllocator.class);
+
+	/** Size of the bucketed chunks. */
+	private final int chunkSize;
+
+	/** Maximum number of bytes to allocate from {@link #offHeapChunkAllocator}. */
+	private final long offHeapCapacity;
+
+	private final ChunkAllocator offHeapChunkAllocator;
+
+	/** Allocator for chunks beyond the off-heap capacity, or null if spilling is disabled. */
+	@Nullable
+	private final ChunkAllocator spillChunkAllocator;
+
+	/** All chunks indexed by their id. Replaced on growth, so that readers need no lock. */
+	private volatile AbstractChunk[] chunks;
+
+	/** Ids of released dedicated chunks, for reuse. */
+	private final ArrayDeque<Integer> freeChunkIds;
+
+	/** The next never used chunk id. */
+	private int nextChunkId;
+
+	/** The bucketed chunks in allocation order. */
+	private final List<BucketedChunk> bucketedChunks;
+
+	/** Index of the bucketed chunk which served the last allocation. */
+	private int lastBucketedChunk;
+
+	private long offHeapBytes;
+
+	private long spilledBytes;
+
+	private boolean closed;
+
+	public SpaceAllocator(
+		int chunkSize,
+		long offHeapCapacity,
+		ChunkAllocator offHeapChunkAllocator,
+		@Nullable ChunkAllocator spillChunkAllocator) {
+		Preconditions.checkArgument(chunkSize > 0 && chunkSize % BUCKET_SIZE == 0,
+			"Chunk size %s must be a positive multiple of the bucket size %s.", chunkSize, BUCKET_SIZE);
+		Preconditions.checkArgument(offHeapCapacity >= 0, "Off-heap capacity must not be negative.");
+
+		this.chunkSize = chunkSize;
+		this.offHeapCapacity = offHeapCapacity;
+		this.offHeapChunkAllocator = Preconditions.checkNotNull(offHeapChunkAllocator);
+		this.spillChunkAllocator = spillChunkAllocator;
+		this.chunks = new AbstractChunk[16];
+		this.freeChunkIds = new ArrayDeque<>();
+		this.nextChunkId = 0;
+		this.bucketedChunks = new ArrayList<>();
+		this.lastBucketedChunk = 0;
+		this.offHeapBytes = 0L;
+		this.spilledBytes = 0L;
+		this.closed = false;
+	}
+
+	@Override
+	public synchronized long allocate(int size) throws Exception {
+		Preconditions.checkState(!closed, "The allocator has been closed.");
+		Preconditions.checkArgument(size > 0, "Can't allocate %s bytes.", size);
+
+		if (size > BUCKET_SIZE) {
+			final DedicatedChunk chunk = newDedicatedChunk(size);
+			return toAddress(chunk.getChunkId(), chunk.allocate(size));
+		}
+
+		// try the chunk of the last allocation first, then all others
+		final int numChunks = bucketedChunks.size();
+		for (int i = 0; i < numChunks; i++) {
+			final int index = (lastBucketedChunk + i) % numChunks;
+			final BucketedChunk chunk = bucketedChunks.get(index);
+			final int offset = chunk.allocate(size);
+			if (offset != NO_SPACE) {
+				lastBucketedChunk = index;
+				return toAddress(chunk.getChunkId(), offset);
+			}
+		}
+
+		final BucketedChunk chunk = newBucketedChunk();
+		lastBucketedChunk = bucketedChunks.size() - 1;
+		return toAddress(chunk.getChunkId(), chunk.allocate(size));
+	}
+
+	@Override
+	public synchronized void free(long address) {
+		if (closed) {
+			return;
+		}
+
+		final int chunkId = SpaceUtils.getChunkIdByAddress(address);
+		final AbstractChunk chunk = chunks[chunkId];
+		Preconditions.checkState(chunk != null, "Chunk %s does not exist.", chunkId);
+
+		chunk.free(SpaceUtils.getChunkOffsetByAddress(address));
+		if (chunk instanceof DedicatedChunk) {
+			releaseChunk(chunk);
+			chunks[chunkId] = null;
+			freeChunkIds.add(chunkId);
+		}
+	}
+
+	@Override
+	public Chunk getChunkById(int chunkId) {
+		final AbstractChunk chunk = chunks[chunkId];
+		Preconditions.checkState(chunk != null, "Chunk %s does not exist.", chunkId);
+		return chunk;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		for (AbstractChunk chunk : chunks) {
+			if (chunk != null) {
+				releaseChunk(chunk);
+			}
+		}
+		chunks = new AbstractChunk[0];
+		bucketedChunks.clear();
+
+		IOUtils.closeAllQuietly(offHeapChunkAllocator, spillChunkAllocator);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private BucketedChunk newBucketedChunk() throws IOException {
+		final int chunkId = nextChunkId();
+		final BucketedChunk chunk =
+			allocateChunk(chunkSize, (segment, chunkAllocator) -> new BucketedChunk(chunkId, segment, chunkAllocator));
+		registerChunk(chunk);
+		bucketedChunks.add(chunk);
+		return chunk;
+	}
+
+	private DedicatedChunk newDedicatedChunk(int size) throws IOException {
+		final int chunkId = nextChunkId();
+		final DedicatedChunk chunk =
+			allocateChunk(size, (segment, chunkAllocator) -> new DedicatedChunk(chunkId, segment, chunkAllocator));
+		registerChunk(chunk);
+		return chunk;
+	}
+
+	/**
+	 * Allocates the memory of a new chunk of the given size from the first tier that has space left, and accounts the
+	 * size against that tier.
+	 */
+	private <T extends AbstractChunk> T allocateChunk(
+		int size,
+		BiFunction<MemorySegment, ChunkAllocator, T> chunkFactory) throws IOException {
+
+		if (offHeapBytes + size <= offHeapCapacity) {
+			final MemorySegment segment = offHeapChunkAllocator.allocate(size);
+			if (segment != null) {
+				offHeapBytes += size;
+				return chunkFactory.apply(segment, offHeapChunkAllocator);
+			}
+		}
+
+		if (spillChunkAllocator == null) {
+			throw new IOException("Off-heap memory is exhausted after " + offHeapBytes + " of " + offHeapCapacity +
+				" bytes and no spill directories are configured.");
+		}
+
+		final MemorySegment segment = spillChunkAllocator.allocate(size);
+		if (segment == null) {
+			throw new IOException("Could not allocate a chunk of " + size + " bytes in a memory-mapped file.");
+		}
+		if (spilledBytes == 0L) {
+			LOG.info("Off-heap memory is exhausted after {} of {} bytes, allocating further chunks in memory-mapped " +
+				"files.", offHeapBytes, offHeapCapacity);
+		}
+		spilledBytes += size;
+		return chunkFactory.apply(segment, spillChunkAllocator);
+	}
+
+	private void releaseChunk(AbstractChunk chunk) {
+		if (chunk.getChunkAllocator() == offHeapChunkAllocator) {
+			offHeapBytes -= chunk.getChunkCapacity();
+		} else {
+			spilledBytes -= chunk.getChunkCapacity();
+		}
+		chunk.release();
+	}
+
+	private int nextChunkId() {
+		final Integer reusableId = freeChunkIds.pollFirst();
+		return reusableId != null ? reusableId : nextChunkId++;
+	}
+
+	private void registerChunk(AbstractChunk chunk) {
+		AbstractChunk[] current = chunks;
+		final int chunkId = chunk.getChunkId();
+		if (chunkId >= current.length) {
+			current = Arrays.copyOf(current, Math.max(chunkId + 1, current.length << 1));
+		}
+		current[chunkId] = chunk;
+		// publish the (possibly new) array
+		chunks = current;
+	}
+
+	private static long toAddress(int chunkId, int offset) {
+		return ((chunkId & FOUR_BYTES_MARK) << FOUR_BYTES_BITS) | (offset & FOUR_BYTES_MARK);
+	}
+
+	/**
+	 * Returns the number of bytes allocated from off-heap memory.
+	 */
+	public synchronized long getOffHeapBytes() {
+		return offHeapBytes;
+	}
+
+	/**
+	 * Returns the number of bytes allocated from memory-mapped files.
+	 */
+	public synchronized long getSpilledBytes() {
+		return spilledBytes;
+	}
+
+	@VisibleForTesting
+	synchronized int getNumberOfChunks() {
+		int count = 0;
+		for (AbstractChunk chunk : chunks) {
+			if (chunk != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
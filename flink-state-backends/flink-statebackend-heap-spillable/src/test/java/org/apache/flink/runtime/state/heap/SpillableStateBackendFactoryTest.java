@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.configuration.CheckpointingOptions;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.StateBackendLoader;
+import org.apache.flink.runtime.state.filesystem.AbstractFileStateBackend;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link SpillableStateBackendFactory}.
+ */
+public class SpillableStateBackendFactoryTest {
+
+	@Rule
+	public final TemporaryFolder tmp = new TemporaryFolder();
+
+	private final ClassLoader cl = getClass().getClassLoader();
+
+	private final String backendKey = CheckpointingOptions.STATE_BACKEND.key();
+
+	// ------------------------------------------------------------------------
+
+	@Test
+	public void testFactoryName() {
+		// construct the name such that it will not be automatically adjusted on refactorings
+		String factoryName = "org.apache.flink.runtime.state.heap.Spil";
+		factoryName += "lableStateBackendFactory";
+
+		// !!! if this fails, the code in StateBackendLoader must be adjusted
+		assertEquals(factoryName, SpillableStateBackendFactory.class.getName());
+	}
+
+	/**
+	 * Validates loading a spillable state backend with additional parameters from the cluster configuration.
+	 */
+	@Test
+	public void testLoadSpillableStateBackend() throws Exception {
+		final String checkpointDir = new Path(tmp.newFolder().toURI()).toString();
+		final String savepointDir = new Path(tmp.newFolder().toURI()).toString();
+		final String spillDir1 = tmp.newFolder().getAbsolutePath();
+		final String spillDir2 = tmp.newFolder().getAbsolutePath();
+		final String spillDirs = spillDir1 + File.pathSeparator + spillDir2;
+
+		final Path expectedCheckpointsPath = new Path(checkpointDir);
+		final Path expectedSavepointsPath = new Path(savepointDir);
+
+		// we configure with the explicit string (rather than StateBackendLoader#SPILLABLE_STATE_BACKEND_NAME)
+		// to guard against config-breaking changes of the name
+		final Configuration config1 = new Configuration();
+		config1.setString(backendKey, "spillable");
+		config1.setString(CheckpointingOptions.CHECKPOINTS_DIRECTORY, checkpointDir);
+		config1.setString(CheckpointingOptions.SAVEPOINT_DIRECTORY, savepointDir);
+		config1.set(SpillableOptions.OFF_HEAP_SIZE, MemorySize.parse("64mb"));
+		config1.set(SpillableOptions.CHUNK_SIZE, MemorySize.parse("4mb"));
+		config1.set(SpillableOptions.SPILL_ENABLED, false);
+		config1.set(SpillableOptions.SPILL_DIRECTORIES, spillDirs);
+
+		final Configuration config2 = new Configuration(config1);
+		config2.setString(backendKey, SpillableStateBackendFactory.class.getName());
+
+		StateBackend backend1 = StateBackendLoader.loadStateBackendFromConfig(config1, cl, null);
+		StateBackend backend2 = StateBackendLoader.loadStateBackendFromConfig(config2, cl, null);
+
+		assertTrue(backend1 instanceof SpillableStateBackend);
+		assertTrue(backend2 instanceof SpillableStateBackend);
+
+		for (StateBackend backend : new StateBackend[] {backend1, backend2}) {
+			SpillableStateBackend spillableBackend = (SpillableStateBackend) backend;
+			AbstractFileStateBackend fsBackend = (AbstractFileStateBackend) spillableBackend.getCheckpointBackend();
+
+			assertEquals(expectedCheckpointsPath, fsBackend.getCheckpointPath());
+			assertEquals(expectedSavepointsPath, fsBackend.getSavepointPath());
+			assertEquals(MemorySize.parse("64mb").getBytes(), spillableBackend.getOffHeapSize());
+			assertEquals(MemorySize.parse("4mb").getBytes(), spillableBackend.getChunkSize());
+			assertFalse(spillableBackend.isSpillEnabled());
+			assertArrayEquals(new String[] {spillDir1, spillDir2}, spillableBackend.getSpillPaths());
+		}
+	}
+
+	/**
+	 * Validates that application-defined parameters take precedence over the cluster configuration.
+	 */
+	@Test
+	public void testLoadSpillableStateBackendMixed() throws Exception {
+		final String appCheckpointDir = new Path(tmp.newFolder().toURI()).toString();
+		final String checkpointDir = new Path(tmp.newFolder().toURI()).toString();
+
+		final SpillableStateBackend backend = new SpillableStateBackend(appCheckpointDir);
+		backend.setOffHeapSize(MemorySize.parse("16mb"));
+
+		final Configuration config = new Configuration();
+		config.setString(backendKey, "jobmanager");
+		config.setString(CheckpointingOptions.CHECKPOINTS_DIRECTORY, checkpointDir);
+		config.set(SpillableOptions.OFF_HEAP_SIZE, MemorySize.parse("64mb"));
+		config.set(SpillableOptions.CHUNK_SIZE, MemorySize.parse("2mb"));
+
+		final StateBackend loadedBackend =
+			StateBackendLoader.fromApplicationOrConfigOrDefault(backend, config, cl, null);
+		assertTrue(loadedBackend instanceof SpillableStateBackend);
+
+		final SpillableStateBackend loadedSpillableBackend = (SpillableStateBackend) loadedBackend;
+		final AbstractFileStateBackend fsBackend =
+			(AbstractFileStateBackend) loadedSpillableBackend.getCheckpointBackend();
+
+		assertEquals(new Path(appCheckpointDir), fsBackend.getCheckpointPath());
+		assertEquals(MemorySize.parse("16mb").getBytes(), loadedSpillableBackend.getOffHeapSize());
+		assertEquals(MemorySize.parse("2mb").getBytes(), loadedSpillableBackend.getChunkSize());
+	}
+}
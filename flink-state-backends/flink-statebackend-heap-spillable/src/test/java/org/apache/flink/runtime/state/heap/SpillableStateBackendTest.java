@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.runtime.state.StateBackendTestBase;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the keyed state backend and operator state backend, as created by the {@link SpillableStateBackend}.
+ * The off-heap memory is limited to a single chunk, so that the tests also cover memory-mapped chunks.
+ */
+public class SpillableStateBackendTest extends StateBackendTestBase<SpillableStateBackend> {
+
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Override
+	protected SpillableStateBackend getStateBackend() throws Exception {
+		SpillableStateBackend backend = new SpillableStateBackend(new FsStateBackend(tempFolder.newFolder().toURI()));
+		backend.setChunkSize(MemorySize.parse("1mb"));
+		backend.setOffHeapSize(MemorySize.parse("1mb"));
+		backend.setSpillPaths(tempFolder.newFolder().getAbsolutePath());
+		return backend;
+	}
+
+	@Override
+	protected boolean isSerializerPresenceRequiredOnRestore() {
+		return true;
+	}
+
+	// disable these because the verification does not work for this state backend
+	@Override
+	@Test
+	public void testValueStateRestoreWithWrongSerializers() {}
+
+	@Override
+	@Test
+	public void testListStateRestoreWithWrongSerializers() {}
+
+	@Override
+	@Test
+	public void testReducingStateRestoreWithWrongSerializers() {}
+
+	@Override
+	@Test
+	public void testMapStateRestoreWithWrongSerializers() {}
+}
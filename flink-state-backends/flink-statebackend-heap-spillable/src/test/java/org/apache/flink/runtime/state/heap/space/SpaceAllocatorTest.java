@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.BUCKET_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link SpaceAllocator}.
+ */
+public class SpaceAllocatorTest extends TestLogger {
+
+	private static final int CHUNK_SIZE = 2 * BUCKET_SIZE;
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private MemoryManager memoryManager;
+
+	@Before
+	public void setUp() {
+		memoryManager = MemoryManager.forDefaultPageSize(16 * CHUNK_SIZE);
+	}
+
+	@After
+	public void tearDown() {
+		assertTrue("Not all managed memory was released.", memoryManager.verifyEmpty());
+		memoryManager.shutdown();
+	}
+
+	@Test
+	public void testAllocateAndFree() throws Exception {
+		try (SpaceAllocator allocator = new SpaceAllocator(CHUNK_SIZE, CHUNK_SIZE, new OffHeapChunkAllocator(memoryManager), null)) {
+			Set<Long> addresses = new HashSet<>();
+			for (int i = 0; i < 100; i++) {
+				long address = allocator.allocate(100);
+				assertTrue("Address " + address + " was handed out twice.", addresses.add(address));
+				writeAndVerify(allocator, address, 100, (byte) i);
+			}
+			assertEquals(1, allocator.getNumberOfChunks());
+
+			for (long address : addresses) {
+				allocator.free(address);
+			}
+
+			// freed space is reused
+			for (int i = 0; i < 100; i++) {
+				assertTrue(addresses.contains(allocator.allocate(100)));
+			}
+			assertEquals(CHUNK_SIZE, allocator.getOffHeapBytes());
+			assertEquals(0L, allocator.getSpilledBytes());
+		}
+	}
+
+	@Test
+	public void testSpillWhenOffHeapCapacityIsExhausted() throws Exception {
+		File spillDirectory = new File(temporaryFolder.getRoot(), "spill");
+		try (SpaceAllocator allocator = new SpaceAllocator(
+			CHUNK_SIZE,
+			CHUNK_SIZE,
+			new OffHeapChunkAllocator(memoryManager),
+			new MmapChunkAllocator(new File[] {spillDirectory}))) {
+
+			// fills the buckets of the first chunk
+			allocator.allocate(BUCKET_SIZE);
+			allocator.allocate(BUCKET_SIZE);
+			assertEquals(0L, allocator.getSpilledBytes());
+
+			long spilledAddress = allocator.allocate(BUCKET_SIZE);
+			assertEquals(CHUNK_SIZE, allocator.getOffHeapBytes());
+			assertEquals(CHUNK_SIZE, allocator.getSpilledBytes());
+			assertEquals(2, allocator.getNumberOfChunks());
+			writeAndVerify(allocator, spilledAddress, BUCKET_SIZE, (byte) 42);
+		}
+		assertFalse(spillDirectory.exists());
+	}
+
+	@Test
+	public void testSpillWhenManagedMemoryIsExhausted() throws Exception {
+		File spillDirectory = new File(temporaryFolder.getRoot(), "spill");
+		try (SpaceAllocator allocator = new SpaceAllocator(
+			CHUNK_SIZE,
+			16 * CHUNK_SIZE,
+			new OffHeapChunkAllocator(memoryManager),
+			new MmapChunkAllocator(new File[] {spillDirectory}))) {
+
+			// another consumer of the slot holds all but one chunk of the managed memory
+			Object otherOwner = new Object();
+			memoryManager.reserveMemory(otherOwner, 15 * CHUNK_SIZE);
+
+			allocator.allocate(BUCKET_SIZE);
+			allocator.allocate(BUCKET_SIZE);
+			assertEquals(CHUNK_SIZE, allocator.getOffHeapBytes());
+			assertEquals(0L, memoryManager.availableMemory());
+
+			long spilledAddress = allocator.allocate(BUCKET_SIZE);
+			assertEquals(CHUNK_SIZE, allocator.getOffHeapBytes());
+			assertEquals(CHUNK_SIZE, allocator.getSpilledBytes());
+			writeAndVerify(allocator, spilledAddress, BUCKET_SIZE, (byte) 42);
+
+			memoryManager.releaseAllMemory(otherOwner);
+		}
+	}
+
+	@Test
+	public void testManagedMemoryIsReturnedAfterClose() throws Exception {
+		SpaceAllocator allocator =
+			new SpaceAllocator(CHUNK_SIZE, 4 * CHUNK_SIZE, new OffHeapChunkAllocator(memoryManager), null);
+		allocator.allocate(BUCKET_SIZE + 1);
+		allocator.allocate(16);
+		assertEquals(15 * CHUNK_SIZE - BUCKET_SIZE - 1, memoryManager.availableMemory());
+
+		allocator.close();
+		// waits for the garbage collector to reclaim the chunks
+		assertTrue(memoryManager.verifyEmpty());
+	}
+
+	@Test
+	public void testFailWhenOffHeapCapacityIsExhaustedWithoutSpilling() throws Exception {
+		try (SpaceAllocator allocator = new SpaceAllocator(CHUNK_SIZE, CHUNK_SIZE, new OffHeapChunkAllocator(memoryManager), null)) {
+			allocator.allocate(BUCKET_SIZE);
+			allocator.allocate(BUCKET_SIZE);
+			try {
+				allocator.allocate(16);
+				fail("Expected an IOException.");
+			} catch (IOException expected) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testDedicatedChunkIsReleasedOnFree() throws Exception {
+		try (SpaceAllocator allocator =
+				new SpaceAllocator(CHUNK_SIZE, 4 * CHUNK_SIZE, new OffHeapChunkAllocator(memoryManager), null)) {
+			int size = BUCKET_SIZE + 1;
+			long address = allocator.allocate(size);
+			assertEquals(1, allocator.getNumberOfChunks());
+			assertEquals(size, allocator.getOffHeapBytes());
+			writeAndVerify(allocator, address, size, (byte) 7);
+
+			allocator.free(address);
+			assertEquals(0, allocator.getNumberOfChunks());
+			assertEquals(0L, allocator.getOffHeapBytes());
+
+			// the id of the released chunk is reused
+			assertEquals(address, allocator.allocate(size));
+		}
+	}
+
+	@Test
+	public void testAllocationsOfDifferentSizesDoNotOverlap() throws Exception {
+		try (SpaceAllocator allocator =
+				new SpaceAllocator(CHUNK_SIZE, 8 * CHUNK_SIZE, new OffHeapChunkAllocator(memoryManager), null)) {
+			int[] sizes = {1, 15, 16, 17, 100, 4096, 65536, BUCKET_SIZE / 2 + 1};
+			long[] addresses = new long[sizes.length];
+			for (int i = 0; i < sizes.length; i++) {
+				addresses[i] = allocator.allocate(sizes[i]);
+				fill(allocator, addresses[i], sizes[i], (byte) i);
+			}
+			for (int i = 0; i < sizes.length; i++) {
+				verify(allocator, addresses[i], sizes[i], (byte) i);
+			}
+		}
+	}
+
+	private static void writeAndVerify(SpaceAllocator allocator, long address, int size, byte value) {
+		fill(allocator, address, size, value);
+		verify(allocator, address, size, value);
+	}
+
+	private static void fill(SpaceAllocator allocator, long address, int size, byte value) {
+		Chunk chunk = allocator.getChunkById(SpaceUtils.getChunkIdByAddress(address));
+		int offsetInChunk = SpaceUtils.getChunkOffsetByAddress(address);
+		MemorySegment segment = chunk.getMemorySegment(offsetInChunk);
+		int offset = chunk.getOffsetInSegment(offsetInChunk);
+		for (int i = 0; i < size; i++) {
+			segment.put(offset + i, value);
+		}
+	}
+
+	private static void verify(SpaceAllocator allocator, long address, int size, byte value) {
+		Chunk chunk = allocator.getChunkById(SpaceUtils.getChunkIdByAddress(address));
+		int offsetInChunk = SpaceUtils.getChunkOffsetByAddress(address);
+		MemorySegment segment = chunk.getMemorySegment(offsetInChunk);
+		int offset = chunk.getOffsetInSegment(offsetInChunk);
+		for (int i = 0; i < size; i++) {
+			assertEquals(value, segment.get(offset + i));
+		}
+	}
+}
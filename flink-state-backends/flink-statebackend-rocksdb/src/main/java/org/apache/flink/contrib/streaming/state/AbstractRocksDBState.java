@@ -33,6 +33,8 @@ import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.WriteOptions;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.util.List;
 
@@ -119,6 +121,10 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
 		this.currentNamespace = namespace;
 	}
 
+	N getCurrentNamespace() {
+		return currentNamespace;
+	}
+
 	@Override
 	public byte[] getSerializedValue(
 			final byte[] serializedKeyAndNamespace,
@@ -143,6 +149,48 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
 		return backend.db.get(columnFamily, key);
 	}
 
+	// ------------------------------------------------------------------------
+	//  Point access that honors buffered writes
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Reads the value bytes of the given key, including writes of this state that are still buffered in the
+	 * backend's state write batch. May only be used by states that never merge values.
+	 */
+	@Nullable
+	byte[] readValueBytes(byte[] key) throws RocksDBException {
+		final RocksDBIndexedWriteBatchWrapper stateWriteBatch = backend.getStateWriteBatchWrapper();
+		return stateWriteBatch != null ?
+			stateWriteBatch.get(columnFamily, key) :
+			backend.db.get(columnFamily, key);
+	}
+
+	/**
+	 * Writes the value bytes of the given key, buffered in the backend's state write batch if it has one. May only
+	 * be used by states that never merge values.
+	 */
+	void writeValueBytes(byte[] key, byte[] value) throws RocksDBException {
+		final RocksDBIndexedWriteBatchWrapper stateWriteBatch = backend.getStateWriteBatchWrapper();
+		if (stateWriteBatch != null) {
+			stateWriteBatch.put(columnFamily, key, value);
+		} else {
+			backend.db.put(columnFamily, writeOptions, key, value);
+		}
+	}
+
+	/**
+	 * Removes the given key, buffered in the backend's state write batch if it has one. May only be used by states
+	 * that never merge values.
+	 */
+	void deleteValueBytes(byte[] key) throws RocksDBException {
+		final RocksDBIndexedWriteBatchWrapper stateWriteBatch = backend.getStateWriteBatchWrapper();
+		if (stateWriteBatch != null) {
+			stateWriteBatch.remove(columnFamily, key);
+		} else {
+			backend.db.delete(columnFamily, writeOptions, key);
+		}
+	}
+
 	<UK> byte[] serializeCurrentKeyWithGroupAndNamespacePlusUserKey(
 		UK userKey,
 		TypeSerializer<UK> userKeySerializer) throws IOException {
@@ -21,7 +21,6 @@ import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 
 import org.rocksdb.ColumnFamilyHandle;
-import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 
@@ -65,7 +64,7 @@ public class RocksDBIncrementalCheckpointUtils {
 
 	/**
 	 * The method to clip the db instance according to the target key group range using
-	 * the {@link RocksDB#delete(ColumnFamilyHandle, byte[])}.
+	 * the {@link RocksDB#deleteRange(ColumnFamilyHandle, byte[], byte[])}.
 	 *
 	 * @param db the RocksDB instance to be clipped.
 	 * @param columnFamilyHandles the column families in the db instance.
@@ -78,8 +77,7 @@ public class RocksDBIncrementalCheckpointUtils {
 		@Nonnull List<ColumnFamilyHandle> columnFamilyHandles,
 		@Nonnull KeyGroupRange targetKeyGroupRange,
 		@Nonnull KeyGroupRange currentKeyGroupRange,
-		@Nonnegative int keyGroupPrefixBytes,
-		@Nonnegative long writeBatchSize) throws RocksDBException {
+		@Nonnegative int keyGroupPrefixBytes) throws RocksDBException {
 
 		final byte[] beginKeyGroupBytes = new byte[keyGroupPrefixBytes];
 		final byte[] endKeyGroupBytes = new byte[keyGroupPrefixBytes];
@@ -89,7 +87,7 @@ public class RocksDBIncrementalCheckpointUtils {
 				currentKeyGroupRange.getStartKeyGroup(), beginKeyGroupBytes);
 			RocksDBKeySerializationUtils.serializeKeyGroup(
 				targetKeyGroupRange.getStartKeyGroup(), endKeyGroupBytes);
-			deleteRange(db, columnFamilyHandles, beginKeyGroupBytes, endKeyGroupBytes, writeBatchSize);
+			deleteRange(db, columnFamilyHandles, beginKeyGroupBytes, endKeyGroupBytes);
 		}
 
 		if (currentKeyGroupRange.getEndKeyGroup() > targetKeyGroupRange.getEndKeyGroup()) {
@@ -97,7 +95,7 @@ public class RocksDBIncrementalCheckpointUtils {
 				targetKeyGroupRange.getEndKeyGroup() + 1, beginKeyGroupBytes);
 			RocksDBKeySerializationUtils.serializeKeyGroup(
 				currentKeyGroupRange.getEndKeyGroup() + 1, endKeyGroupBytes);
-			deleteRange(db, columnFamilyHandles, beginKeyGroupBytes, endKeyGroupBytes, writeBatchSize);
+			deleteRange(db, columnFamilyHandles, beginKeyGroupBytes, endKeyGroupBytes);
 		}
 	}
 
@@ -113,26 +111,12 @@ public class RocksDBIncrementalCheckpointUtils {
 		RocksDB db,
 		List<ColumnFamilyHandle> columnFamilyHandles,
 		byte[] beginKeyBytes,
-		byte[] endKeyBytes,
-		@Nonnegative long writeBatchSize) throws RocksDBException {
+		byte[] endKeyBytes) throws RocksDBException {
 
 		for (ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
-			try (ReadOptions readOptions = RocksDBOperationUtils.createTotalOrderSeekReadOptions();
-				RocksIteratorWrapper iteratorWrapper = RocksDBOperationUtils.getRocksIterator(db, columnFamilyHandle, readOptions);
-				RocksDBWriteBatchWrapper writeBatchWrapper = new RocksDBWriteBatchWrapper(db, writeBatchSize)) {
-
-				iteratorWrapper.seek(beginKeyBytes);
-
-				while (iteratorWrapper.isValid()) {
-					final byte[] currentKey = iteratorWrapper.key();
-					if (beforeThePrefixBytes(currentKey, endKeyBytes)) {
-						writeBatchWrapper.remove(columnFamilyHandle, currentKey);
-					} else {
-						break;
-					}
-					iteratorWrapper.next();
-				}
-			}
+			// a single range tombstone instead of a tombstone per key, so clipping does not depend on the
+			// number of entries; the deleted entries are dropped by the next compaction of their files
+			db.deleteRange(columnFamilyHandle, beginKeyBytes, endKeyBytes);
 		}
 	}
 
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.Preconditions;
+
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatchWithIndex;
+import org.rocksdb.WriteOptions;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * It's a wrapper class around RocksDB's {@link WriteBatchWithIndex} that buffers the point writes of states
+ * and still lets them read their own writes before the batch is written to the db.
+ *
+ * <p>Reads via {@link #get(ColumnFamilyHandle, byte[])} see the buffered writes, iterators over the db do not. Users
+ * that iterate the db must {@link #flush()} first. Merge operations are not supported, so only states which write
+ * via put and remove may buffer their writes.
+ *
+ * <p>IMPORTANT: This class is not thread safe.
+ */
+public class RocksDBIndexedWriteBatchWrapper implements AutoCloseable {
+
+	private static final int DEFAULT_CAPACITY = 500;
+
+	private final RocksDB db;
+
+	private final WriteBatchWithIndex batch;
+
+	private final WriteOptions writeOptions;
+
+	private final ReadOptions readOptions;
+
+	private final int capacity;
+
+	@Nonnegative
+	private final long batchSize;
+
+	/** Number of writes in the batch, tracked here to avoid a JNI call per write. */
+	private int count;
+
+	/** Approximate number of bytes in the batch, tracked here to avoid a JNI call per write. */
+	private long dataSize;
+
+	public RocksDBIndexedWriteBatchWrapper(
+		@Nonnull RocksDB rocksDB,
+		@Nonnull WriteOptions writeOptions,
+		@Nonnull ReadOptions readOptions,
+		long batchSize) {
+		this(rocksDB, writeOptions, readOptions, DEFAULT_CAPACITY, batchSize);
+	}
+
+	public RocksDBIndexedWriteBatchWrapper(
+		@Nonnull RocksDB rocksDB,
+		@Nonnull WriteOptions writeOptions,
+		@Nonnull ReadOptions readOptions,
+		int capacity,
+		long batchSize) {
+		Preconditions.checkArgument(capacity > 0, "capacity should be positive");
+		Preconditions.checkArgument(batchSize >= 0, "Max batch size have to be no negative.");
+
+		this.db = rocksDB;
+		this.writeOptions = writeOptions;
+		this.readOptions = readOptions;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		// overwrite duplicate keys in the index, a state usually updates the same key many times
+		this.batch = new WriteBatchWithIndex(true);
+		this.count = 0;
+		this.dataSize = 0L;
+	}
+
+	public void put(
+		@Nonnull ColumnFamilyHandle handle,
+		@Nonnull byte[] key,
+		@Nonnull byte[] value) throws RocksDBException {
+
+		batch.put(handle, key, value);
+		count++;
+		dataSize += key.length + value.length;
+
+		flushIfNeeded();
+	}
+
+	public void remove(
+		@Nonnull ColumnFamilyHandle handle,
+		@Nonnull byte[] key) throws RocksDBException {
+
+		batch.remove(handle, key);
+		count++;
+		dataSize += key.length;
+
+		flushIfNeeded();
+	}
+
+	/**
+	 * Returns the value of the given key from the batch, or from the db if the batch has no write for the key.
+	 */
+	@Nullable
+	public byte[] get(@Nonnull ColumnFamilyHandle handle, @Nonnull byte[] key) throws RocksDBException {
+		if (count == 0) {
+			return db.get(handle, key);
+		}
+		return batch.getFromBatchAndDB(db, handle, readOptions, key);
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public void flush() throws RocksDBException {
+		if (count == 0) {
+			return;
+		}
+		db.write(writeOptions, batch);
+		batch.clear();
+		count = 0;
+		dataSize = 0L;
+	}
+
+	@Override
+	public void close() throws RocksDBException {
+		try {
+			flush();
+		} finally {
+			IOUtils.closeQuietly(batch);
+		}
+	}
+
+	private void flushIfNeeded() throws RocksDBException {
+		boolean needFlush = count >= capacity || (batchSize > 0 && dataSize >= batchSize);
+		if (needFlush) {
+			flush();
+		}
+	}
+
+	@VisibleForTesting
+	int getCount() {
+		return count;
+	}
+
+	@VisibleForTesting
+	long getDataSize() {
+		return dataSize;
+	}
+}
@@ -39,6 +39,7 @@ import org.apache.flink.contrib.streaming.state.ttl.RocksDbTtlCompactFiltersMana
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.memory.DataInputDeserializer;
 import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
@@ -76,13 +77,16 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.concurrent.RunnableFuture;
@@ -180,6 +184,13 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	/** Shared wrapper for batch writes to the RocksDB instance. */
 	private final RocksDBWriteBatchWrapper writeBatchWrapper;
 
+	/**
+	 * Shared wrapper that buffers the writes of value and map states, or null if their writes go to the RocksDB
+	 * instance directly.
+	 */
+	@Nullable
+	private final RocksDBIndexedWriteBatchWrapper stateWriteBatchWrapper;
+
 	/** The checkpoint snapshot strategy, e.g., if we use full or incremental checkpoints, local state, and so on. */
 	private final RocksDBSnapshotStrategyBase<K> checkpointSnapshotStrategy;
 
@@ -209,6 +220,15 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 	private final RocksDbTtlCompactFiltersManager ttlCompactFiltersManager;
 
+	/** The number of values that each value state caches, 0 if value states have no cache. */
+	private final int valueStateCacheSize;
+
+	/** The caches of the value states by state name. */
+	private final Map<String, RocksDBValueStateCache<K, ?, ?>> valueStateCaches;
+
+	/** The group of the cache metrics. */
+	private final MetricGroup metricGroup;
+
 	public RocksDBKeyedStateBackend(
 		ClassLoader userCodeClassLoader,
 		File instanceBasePath,
@@ -227,13 +247,16 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		RocksDBSnapshotStrategyBase<K> checkpointSnapshotStrategy,
 		RocksDBSnapshotStrategyBase<K> savepointSnapshotStrategy,
 		RocksDBWriteBatchWrapper writeBatchWrapper,
+		@Nullable RocksDBIndexedWriteBatchWrapper stateWriteBatchWrapper,
 		ColumnFamilyHandle defaultColumnFamilyHandle,
 		RocksDBNativeMetricMonitor nativeMetricMonitor,
 		RocksDBSerializedCompositeKeyBuilder<K> sharedRocksKeyBuilder,
 		PriorityQueueSetFactory priorityQueueFactory,
 		RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
 		InternalKeyContext<K> keyContext,
-		@Nonnegative long writeBatchSize) {
+		@Nonnegative long writeBatchSize,
+		@Nonnegative int valueStateCacheSize,
+		MetricGroup metricGroup) {
 
 		super(
 			kvStateRegistry,
@@ -266,10 +289,15 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		this.checkpointSnapshotStrategy = checkpointSnapshotStrategy;
 		this.savepointSnapshotStrategy = savepointSnapshotStrategy;
 		this.writeBatchWrapper = writeBatchWrapper;
+		this.stateWriteBatchWrapper = stateWriteBatchWrapper;
 		this.defaultColumnFamily = defaultColumnFamilyHandle;
 		this.nativeMetricMonitor = nativeMetricMonitor;
 		this.sharedRocksKeyBuilder = sharedRocksKeyBuilder;
 		this.priorityQueueFactory = priorityQueueFactory;
+		checkArgument(valueStateCacheSize >= 0, "Value state cache size have to be no negative value.");
+		this.valueStateCacheSize = valueStateCacheSize;
+		this.valueStateCaches = new HashMap<>();
+		this.metricGroup = metricGroup;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -298,6 +326,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			throw new FlinkRuntimeException("Failed to get keys from RocksDB state backend.", ex);
 		}
 
+		flushStateWriteBatch();
 		RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(db, columnInfo.columnFamilyHandle, readOptions);
 		iterator.seekToFirst();
 
@@ -316,6 +345,11 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 	@Override
 	public void setCurrentKey(K newKey) {
+		if (stateWriteBatchWrapper != null
+			&& !stateWriteBatchWrapper.isEmpty()
+			&& !Objects.equals(newKey, getCurrentKey())) {
+			flushStateWriteBatch();
+		}
 		super.setCurrentKey(newKey);
 		sharedRocksKeyBuilder.setKeyAndKeyGroup(getCurrentKey(), getCurrentKeyGroupIndex());
 	}
@@ -339,6 +373,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		if (db != null) {
 
 			IOUtils.closeQuietly(writeBatchWrapper);
+			IOUtils.closeQuietly(stateWriteBatchWrapper);
 
 			// Metric collection occurs on a background thread. When this method returns
 			// it is guaranteed that thr RocksDB reference has been invalidated
@@ -372,6 +407,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			ttlCompactFiltersManager.disposeAndClearRegisteredCompactionFactories();
 
 			kvStateInformation.clear();
+			valueStateCaches.clear();
 
 			cleanInstanceBasePath();
 		}
@@ -422,6 +458,46 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		return sharedRocksKeyBuilder;
 	}
 
+	@Nullable
+	RocksDBIndexedWriteBatchWrapper getStateWriteBatchWrapper() {
+		return stateWriteBatchWrapper;
+	}
+
+	/**
+	 * Returns the cleared cache of the given value state, or null if value states have no cache. The cache is
+	 * cleared because the state may be re-created with a new serializer.
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	<N, V> RocksDBValueStateCache<K, N, V> getValueStateCache(String stateName) {
+		if (valueStateCacheSize == 0) {
+			return null;
+		}
+
+		RocksDBValueStateCache<K, N, V> cache = (RocksDBValueStateCache<K, N, V>) valueStateCaches.get(stateName);
+		if (cache == null) {
+			cache = new RocksDBValueStateCache<>(valueStateCacheSize);
+			cache.registerMetrics(metricGroup.addGroup("valueStateCache").addGroup(stateName));
+			valueStateCaches.put(stateName, cache);
+		} else {
+			cache.clear();
+		}
+		return cache;
+	}
+
+	/**
+	 * Writes the buffered writes of value and map states to RocksDB, so that they become visible to iterators.
+	 */
+	void flushStateWriteBatch() {
+		if (stateWriteBatchWrapper != null) {
+			try {
+				stateWriteBatchWrapper.flush();
+			} catch (RocksDBException e) {
+				throw new FlinkRuntimeException("Error while writing buffered state writes to RocksDB.", e);
+			}
+		}
+	}
+
 	@VisibleForTesting
 	boolean isDisposed() {
 		return this.disposed;
@@ -451,6 +527,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 		// flush everything into db before taking a snapshot
 		writeBatchWrapper.flush();
+		if (stateWriteBatchWrapper != null) {
+			stateWriteBatchWrapper.flush();
+		}
 
 		RocksDBSnapshotStrategyBase<K> chosenSnapshotStrategy =
 				checkpointOptions.getCheckpointType().isSavepoint() ? savepointSnapshotStrategy : checkpointSnapshotStrategy;
@@ -594,6 +673,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			"Performing state migration for state {} because the state serializer's schema, i.e. serialization format, has changed.",
 			stateDesc);
 
+		// the migration iterates the column family, which must not miss buffered writes
+		flushStateWriteBatch();
+
 		// we need to get an actual state instance because migration is different
 		// for different state types. For example, ListState needs to deal with
 		// individual elements
@@ -688,6 +770,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	@SuppressWarnings("unchecked")
 	@Override
 	public int numKeyValueStateEntries() {
+		flushStateWriteBatch();
 		int count = 0;
 
 		for (RocksDbKvStateInfo metaInfo : kvStateInformation.values()) {
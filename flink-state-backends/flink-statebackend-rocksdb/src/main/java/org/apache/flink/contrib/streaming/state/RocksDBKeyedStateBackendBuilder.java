@@ -110,7 +110,11 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 
 	private RocksDBNativeMetricOptions nativeMetricOptions;
 	private int numberOfTransferingThreads;
+	private long transferPartSize = RocksDBOptions.CHECKPOINT_TRANSFER_PART_SIZE.defaultValue().getBytes();
+	private int restorePrefetchNum = RocksDBOptions.RESTORE_PREFETCH_NUM.defaultValue();
 	private long writeBatchSize = RocksDBConfigurableOptions.WRITE_BATCH_SIZE.defaultValue().getBytes();
+	private boolean batchedStateWrites = RocksDBOptions.BATCHED_STATE_WRITES.defaultValue();
+	private int valueStateCacheSize = RocksDBOptions.VALUE_STATE_CACHE_SIZE.defaultValue();
 
 	private RocksDB injectedTestDB; // for testing
 	private ColumnFamilyHandle injectedDefaultColumnFamilyHandle; // for testing
@@ -219,12 +223,35 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 		return this;
 	}
 
+	RocksDBKeyedStateBackendBuilder<K> setTransferPartSize(long transferPartSize) {
+		checkArgument(transferPartSize > 0, "Transfer part size should be positive.");
+		this.transferPartSize = transferPartSize;
+		return this;
+	}
+
+	RocksDBKeyedStateBackendBuilder<K> setRestorePrefetchNum(int restorePrefetchNum) {
+		checkArgument(restorePrefetchNum >= 0, "Restore prefetch num should be non negative.");
+		this.restorePrefetchNum = restorePrefetchNum;
+		return this;
+	}
+
 	RocksDBKeyedStateBackendBuilder<K> setWriteBatchSize(long writeBatchSize) {
 		checkArgument(writeBatchSize >= 0, "Write batch size should be non negative.");
 		this.writeBatchSize = writeBatchSize;
 		return this;
 	}
 
+	RocksDBKeyedStateBackendBuilder<K> setBatchedStateWrites(boolean batchedStateWrites) {
+		this.batchedStateWrites = batchedStateWrites;
+		return this;
+	}
+
+	RocksDBKeyedStateBackendBuilder<K> setValueStateCacheSize(int valueStateCacheSize) {
+		checkArgument(valueStateCacheSize >= 0, "Value state cache size should be non negative.");
+		this.valueStateCacheSize = valueStateCacheSize;
+		return this;
+	}
+
 	private static void checkAndCreateDirectory(File directory) throws IOException {
 		if (directory.exists()) {
 			if (!directory.isDirectory()) {
@@ -238,6 +265,7 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 	@Override
 	public RocksDBKeyedStateBackend<K> build() throws BackendBuildingException {
 		RocksDBWriteBatchWrapper writeBatchWrapper = null;
+		RocksDBIndexedWriteBatchWrapper stateWriteBatchWrapper = null;
 		ColumnFamilyHandle defaultColumnFamilyHandle = null;
 		RocksDBNativeMetricMonitor nativeMetricMonitor = null;
 		CloseableRegistry cancelStreamRegistryForBackend = new CloseableRegistry();
@@ -279,6 +307,10 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 			}
 
 			writeBatchWrapper = new RocksDBWriteBatchWrapper(db, optionsContainer.getWriteOptions(), writeBatchSize);
+			if (batchedStateWrites) {
+				stateWriteBatchWrapper = new RocksDBIndexedWriteBatchWrapper(
+					db, optionsContainer.getWriteOptions(), optionsContainer.getReadOptions(), writeBatchSize);
+			}
 			// it is important that we only create the key builder after the restore, and not before;
 			// restore operations may reconfigure the key serializer, so accessing the key serializer
 			// only now we can be certain that the key serializer used in the builder is final.
@@ -301,6 +333,7 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 			List<ColumnFamilyOptions> columnFamilyOptions = new ArrayList<>(kvStateInformation.values().size());
 			IOUtils.closeQuietly(cancelStreamRegistryForBackend);
 			IOUtils.closeQuietly(writeBatchWrapper);
+			IOUtils.closeQuietly(stateWriteBatchWrapper);
 			RocksDBOperationUtils.addColumnFamilyOptionsToCloseLater(columnFamilyOptions, defaultColumnFamilyHandle);
 			IOUtils.closeQuietly(defaultColumnFamilyHandle);
 			IOUtils.closeQuietly(nativeMetricMonitor);
@@ -351,13 +384,16 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 			snapshotStrategy.checkpointSnapshotStrategy,
 			snapshotStrategy.savepointSnapshotStrategy,
 			writeBatchWrapper,
+			stateWriteBatchWrapper,
 			defaultColumnFamilyHandle,
 			nativeMetricMonitor,
 			sharedRocksKeyBuilder,
 			priorityQueueFactory,
 			ttlCompactFiltersManager,
 			keyContext,
-			writeBatchSize);
+			writeBatchSize,
+			valueStateCacheSize,
+			metricGroup);
 	}
 
 	private AbstractRocksDBRestoreOperation<K> getRocksDBRestoreOperation(
@@ -403,7 +439,8 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 				metricGroup,
 				restoreStateHandles,
 				ttlCompactFiltersManager,
-				writeBatchSize);
+				transferPartSize,
+				restorePrefetchNum);
 		} else {
 			return new RocksDBFullRestoreOperation<>(
 				keyGroupRange,
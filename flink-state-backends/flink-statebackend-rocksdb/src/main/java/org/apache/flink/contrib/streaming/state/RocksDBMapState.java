@@ -48,7 +48,10 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
@@ -118,18 +121,51 @@ class RocksDBMapState<K, N, UK, UV>
 	@Override
 	public UV get(UK userKey) throws IOException, RocksDBException {
 		byte[] rawKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer);
-		byte[] rawValueBytes = backend.db.get(columnFamily, rawKeyBytes);
+		byte[] rawValueBytes = readValueBytes(rawKeyBytes);
 
 		return (rawValueBytes == null ? null : deserializeUserValue(dataInputView, rawValueBytes, userValueSerializer));
 	}
 
+	@Override
+	public Map<UK, UV> getAll(Iterable<UK> userKeys) throws IOException, RocksDBException {
+		final List<UK> keys = new ArrayList<>();
+		final List<byte[]> rawKeys = new ArrayList<>();
+		for (UK userKey : userKeys) {
+			keys.add(userKey);
+			rawKeys.add(serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer));
+		}
+
+		final Map<UK, UV> result = new HashMap<>();
+		if (rawKeys.isEmpty()) {
+			return result;
+		}
+
+		// the multi-get reads from the db only
+		backend.flushStateWriteBatch();
+
+		// the returned map is keyed by the identity of the passed key arrays
+		final Map<byte[], byte[]> rawValues =
+			backend.db.multiGet(Collections.nCopies(rawKeys.size(), columnFamily), rawKeys);
+
+		for (int i = 0; i < rawKeys.size(); i++) {
+			byte[] rawValueBytes = rawValues.get(rawKeys.get(i));
+			if (rawValueBytes != null) {
+				UV userValue = deserializeUserValue(dataInputView, rawValueBytes, userValueSerializer);
+				if (userValue != null) {
+					result.put(keys.get(i), userValue);
+				}
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public void put(UK userKey, UV userValue) throws IOException, RocksDBException {
 
 		byte[] rawKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer);
 		byte[] rawValueBytes = serializeValueNullSensitive(userValue, userValueSerializer);
 
-		backend.db.put(columnFamily, writeOptions, rawKeyBytes, rawValueBytes);
+		writeValueBytes(rawKeyBytes, rawValueBytes);
 	}
 
 	@Override
@@ -138,6 +174,15 @@ class RocksDBMapState<K, N, UK, UV>
 			return;
 		}
 
+		if (backend.getStateWriteBatchWrapper() != null) {
+			for (Map.Entry<UK, UV> entry : map.entrySet()) {
+				byte[] rawKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(entry.getKey(), userKeySerializer);
+				byte[] rawValueBytes = serializeValueNullSensitive(entry.getValue(), userValueSerializer);
+				writeValueBytes(rawKeyBytes, rawValueBytes);
+			}
+			return;
+		}
+
 		try (RocksDBWriteBatchWrapper writeBatchWrapper = new RocksDBWriteBatchWrapper(backend.db, writeOptions, backend.getWriteBatchSize())) {
 			for (Map.Entry<UK, UV> entry : map.entrySet()) {
 				byte[] rawKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(entry.getKey(), userKeySerializer);
@@ -151,13 +196,13 @@ class RocksDBMapState<K, N, UK, UV>
 	public void remove(UK userKey) throws IOException, RocksDBException {
 		byte[] rawKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer);
 
-		backend.db.delete(columnFamily, writeOptions, rawKeyBytes);
+		deleteValueBytes(rawKeyBytes);
 	}
 
 	@Override
 	public boolean contains(UK userKey) throws IOException, RocksDBException {
 		byte[] rawKeyBytes = serializeCurrentKeyWithGroupAndNamespacePlusUserKey(userKey, userKeySerializer);
-		byte[] rawValueBytes = backend.db.get(columnFamily, rawKeyBytes);
+		byte[] rawValueBytes = readValueBytes(rawKeyBytes);
 
 		return (rawValueBytes != null);
 	}
@@ -171,7 +216,7 @@ class RocksDBMapState<K, N, UK, UV>
 	public Iterable<UK> keys() {
 		final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
 
-		return () -> new RocksDBMapIterator<UK>(backend.db, prefixBytes, userKeySerializer, userValueSerializer, dataInputView) {
+		return () -> new RocksDBMapIterator<UK>(backend.db, prefixBytes, userKeySerializer, userValueSerializer, dataInputView, true) {
 			@Nullable
 			@Override
 			public UK next() {
@@ -185,7 +230,7 @@ class RocksDBMapState<K, N, UK, UV>
 	public Iterable<UV> values() {
 		final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
 
-		return () -> new RocksDBMapIterator<UV>(backend.db, prefixBytes, userKeySerializer, userValueSerializer, dataInputView) {
+		return () -> new RocksDBMapIterator<UV>(backend.db, prefixBytes, userKeySerializer, userValueSerializer, dataInputView, true) {
 			@Override
 			public UV next() {
 				RocksDBMapEntry entry = nextEntry();
@@ -224,7 +269,7 @@ class RocksDBMapState<K, N, UK, UV>
 	public Iterator<Map.Entry<UK, UV>> iterator() {
 		final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
 
-		return new RocksDBMapIterator<Map.Entry<UK, UV>>(backend.db, prefixBytes, userKeySerializer, userValueSerializer, dataInputView) {
+		return new RocksDBMapIterator<Map.Entry<UK, UV>>(backend.db, prefixBytes, userKeySerializer, userValueSerializer, dataInputView, true) {
 			@Override
 			public Map.Entry<UK, UV> next() {
 				return nextEntry();
@@ -236,6 +281,7 @@ class RocksDBMapState<K, N, UK, UV>
 	public boolean isEmpty() {
 		final byte[] prefixBytes = serializeCurrentKeyWithGroupAndNamespace();
 
+		backend.flushStateWriteBatch();
 		try (RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(backend.db, columnFamily, backend.getReadOptions())) {
 
 			iterator.seek(prefixBytes);
@@ -247,6 +293,7 @@ class RocksDBMapState<K, N, UK, UV>
 	@Override
 	public void clear() {
 		try {
+			backend.flushStateWriteBatch();
 			try (RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(backend.db, columnFamily, backend.getReadOptions());
 				RocksDBWriteBatchWrapper rocksDBWriteBatchWrapper = new RocksDBWriteBatchWrapper(backend.db, backend.getWriteOptions(), backend.getWriteBatchSize())) {
 
@@ -307,7 +354,8 @@ class RocksDBMapState<K, N, UK, UV>
 				keyPrefixBytes,
 				dupUserKeySerializer,
 				dupUserValueSerializer,
-				inputView
+				inputView,
+				false
 			) {
 
 			@Override
@@ -369,7 +417,6 @@ class RocksDBMapState<K, N, UK, UV>
 
 	/** A map entry in RocksDBMapState. */
 	private class RocksDBMapEntry implements Map.Entry<UK, UV> {
-		private final RocksDB db;
 
 		/** The raw bytes of the key stored in RocksDB. Each user key is stored in RocksDB
 		 * with the format #KeyGroup#Key#Namespace#UserKey. */
@@ -397,15 +444,12 @@ class RocksDBMapState<K, N, UK, UV>
 		private final DataInputDeserializer dataInputView;
 
 		RocksDBMapEntry(
-				@Nonnull final RocksDB db,
 				@Nonnegative final int userKeyOffset,
 				@Nonnull final byte[] rawKeyBytes,
 				@Nonnull final byte[] rawValueBytes,
 				@Nonnull final TypeSerializer<UK> keySerializer,
 				@Nonnull final TypeSerializer<UV> valueSerializer,
 				@Nonnull DataInputDeserializer dataInputView) {
-			this.db = db;
-
 			this.userKeyOffset = userKeyOffset;
 			this.keySerializer = keySerializer;
 			this.valueSerializer = valueSerializer;
@@ -421,7 +465,7 @@ class RocksDBMapState<K, N, UK, UV>
 			rawValueBytes = null;
 
 			try {
-				db.delete(columnFamily, writeOptions, rawKeyBytes);
+				deleteValueBytes(rawKeyBytes);
 			} catch (RocksDBException e) {
 				throw new FlinkRuntimeException("Error while removing data from RocksDB.", e);
 			}
@@ -469,7 +513,7 @@ class RocksDBMapState<K, N, UK, UV>
 				userValue = value;
 				rawValueBytes = serializeValueNullSensitive(value, valueSerializer);
 
-				db.put(columnFamily, writeOptions, rawKeyBytes, rawValueBytes);
+				writeValueBytes(rawKeyBytes, rawValueBytes);
 			} catch (IOException | RocksDBException e) {
 				throw new FlinkRuntimeException("Error while putting data into RocksDB.", e);
 			}
@@ -511,18 +555,26 @@ class RocksDBMapState<K, N, UK, UV>
 		private final TypeSerializer<UV> valueSerializer;
 		private final DataInputDeserializer dataInputView;
 
+		/**
+		 * True if buffered writes of the backend are flushed before reading from the db. Must be false for iterators
+		 * that are not used by the task thread.
+		 */
+		private final boolean flushStateWrites;
+
 		RocksDBMapIterator(
 			final RocksDB db,
 			final byte[] keyPrefixBytes,
 			final TypeSerializer<UK> keySerializer,
 			final TypeSerializer<UV> valueSerializer,
-			DataInputDeserializer dataInputView) {
+			DataInputDeserializer dataInputView,
+			boolean flushStateWrites) {
 
 			this.db = db;
 			this.keyPrefixBytes = keyPrefixBytes;
 			this.keySerializer = keySerializer;
 			this.valueSerializer = valueSerializer;
 			this.dataInputView = dataInputView;
+			this.flushStateWrites = flushStateWrites;
 		}
 
 		@Override
@@ -568,6 +620,10 @@ class RocksDBMapState<K, N, UK, UV>
 				return;
 			}
 
+			if (flushStateWrites) {
+				backend.flushStateWriteBatch();
+			}
+
 			// use try-with-resources to ensure RocksIterator can be release even some runtime exception
 			// occurred in the below code block.
 			try (RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(db, columnFamily, backend.getReadOptions())) {
@@ -603,7 +659,6 @@ class RocksDBMapState<K, N, UK, UV>
 					}
 
 					RocksDBMapEntry entry = new RocksDBMapEntry(
-						db,
 						keyPrefixBytes.length,
 						iterator.key(),
 						iterator.value(),
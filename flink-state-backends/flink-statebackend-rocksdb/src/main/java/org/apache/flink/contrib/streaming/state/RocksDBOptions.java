@@ -65,6 +65,57 @@ public class RocksDBOptions {
 		.defaultValue(1)
 		.withDescription("The number of threads (per stateful operator) used to transfer (download and upload) files in RocksDBStateBackend.");
 
+	/**
+	 * The size of the parts in which large files are downloaded concurrently in RocksDBStateBackend.
+	 */
+	@Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+	public static final ConfigOption<MemorySize> CHECKPOINT_TRANSFER_PART_SIZE = ConfigOptions
+		.key("state.backend.rocksdb.checkpoint.transfer.part-size")
+		.memoryType()
+		.defaultValue(MemorySize.parse("64mb"))
+		.withDescription("Files that are larger than this size are downloaded in several parts of this size when " +
+			"restoring from an incremental checkpoint, so that a single large file is transferred by several of the " +
+			"'state.backend.rocksdb.checkpoint.transfer.thread.num' threads concurrently.");
+
+	/**
+	 * The number of state handles that are downloaded ahead while restoring with rescaling in RocksDBStateBackend.
+	 */
+	@Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+	public static final ConfigOption<Integer> RESTORE_PREFETCH_NUM = ConfigOptions
+		.key("state.backend.rocksdb.restore.prefetch.num")
+		.intType()
+		.defaultValue(1)
+		.withDescription("The number of state handles (per stateful operator) whose files are downloaded in the " +
+			"background while the key groups of earlier state handles are restored, when restoring with rescaling " +
+			"from an incremental checkpoint. This overlaps the downloads with the restore at the cost of local disk " +
+			"space for the downloaded files. 0 downloads each state handle only when it is restored.");
+
+	/**
+	 * Whether value and map states buffer their writes in a write batch.
+	 */
+	@Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+	public static final ConfigOption<Boolean> BATCHED_STATE_WRITES = ConfigOptions
+		.key("state.backend.rocksdb.batched-state-writes")
+		.booleanType()
+		.defaultValue(false)
+		.withDescription("If enabled, value and map states buffer their writes in an indexed write batch which " +
+			"is written to RocksDB when the current key changes, before checkpoints, or when it exceeds " +
+			"'state.backend.rocksdb.write-batch-size'. This saves one native call per write for operators that " +
+			"update many entries per record. Buffered writes are not visible to queryable state until written.");
+
+	/**
+	 * The number of deserialized values that each value state caches in front of RocksDB.
+	 */
+	@Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+	public static final ConfigOption<Integer> VALUE_STATE_CACHE_SIZE = ConfigOptions
+		.key("state.backend.rocksdb.value-state-cache.size")
+		.intType()
+		.defaultValue(0)
+		.withDescription("The maximum number of deserialized values (per value state and stateful operator) that " +
+			"are cached in front of RocksDB, evicting the least recently used ones. Reads of cached values skip " +
+			"the native call into RocksDB and the deserialization. The cache assumes that keys are not mutated " +
+			"after they have been set as current key. 0 disables the cache.");
+
 	/**
 	 * The predefined settings for RocksDB DBOptions and ColumnFamilyOptions by Flink community.
 	 */
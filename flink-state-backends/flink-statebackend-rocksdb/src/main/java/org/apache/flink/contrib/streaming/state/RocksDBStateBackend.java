@@ -72,8 +72,12 @@ import java.util.Random;
 import java.util.UUID;
 
 import static org.apache.flink.contrib.streaming.state.RocksDBConfigurableOptions.WRITE_BATCH_SIZE;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.BATCHED_STATE_WRITES;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.CHECKPOINT_TRANSFER_PART_SIZE;
 import static org.apache.flink.contrib.streaming.state.RocksDBOptions.CHECKPOINT_TRANSFER_THREAD_NUM;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.RESTORE_PREFETCH_NUM;
 import static org.apache.flink.contrib.streaming.state.RocksDBOptions.TIMER_SERVICE_FACTORY;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.VALUE_STATE_CACHE_SIZE;
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -111,7 +115,10 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 	private static boolean rocksDbInitialized = false;
 
 	private static final int UNDEFINED_NUMBER_OF_TRANSFER_THREADS = -1;
+	private static final long UNDEFINED_TRANSFER_PART_SIZE = -1;
+	private static final int UNDEFINED_RESTORE_PREFETCH_NUM = -1;
 	private static final long UNDEFINED_WRITE_BATCH_SIZE = -1;
+	private static final int UNDEFINED_VALUE_STATE_CACHE_SIZE = -1;
 
 	// ------------------------------------------------------------------------
 
@@ -140,6 +147,12 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 	/** Thread number used to transfer (download and upload) state, default value: 1. */
 	private int numberOfTransferThreads;
 
+	/** The size of the parts in which large files are downloaded concurrently, default value: 64mb. */
+	private long transferPartSize;
+
+	/** The number of state handles that are downloaded ahead while restoring with rescaling, default value: 1. */
+	private int restorePrefetchNum;
+
 	/** The configuration for memory settings (pool sizes, etc.). */
 	private final RocksDBMemoryConfiguration memoryConfiguration;
 
@@ -169,6 +182,12 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 	 */
 	private long writeBatchSize;
 
+	/** This determines if value and map states buffer their writes in a write batch. */
+	private TernaryBoolean batchedStateWrites;
+
+	/** The number of values that each value state caches, or {@link #UNDEFINED_VALUE_STATE_CACHE_SIZE}. */
+	private int valueStateCacheSize;
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -266,9 +285,13 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 		this.checkpointStreamBackend = checkNotNull(checkpointStreamBackend);
 		this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
 		this.numberOfTransferThreads = UNDEFINED_NUMBER_OF_TRANSFER_THREADS;
+		this.transferPartSize = UNDEFINED_TRANSFER_PART_SIZE;
+		this.restorePrefetchNum = UNDEFINED_RESTORE_PREFETCH_NUM;
 		this.defaultMetricOptions = new RocksDBNativeMetricOptions();
 		this.memoryConfiguration = new RocksDBMemoryConfiguration();
 		this.writeBatchSize = UNDEFINED_WRITE_BATCH_SIZE;
+		this.batchedStateWrites = TernaryBoolean.UNDEFINED;
+		this.valueStateCacheSize = UNDEFINED_VALUE_STATE_CACHE_SIZE;
 	}
 
 	/**
@@ -311,12 +334,32 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 			this.numberOfTransferThreads = original.numberOfTransferThreads;
 		}
 
+		if (original.transferPartSize == UNDEFINED_TRANSFER_PART_SIZE) {
+			this.transferPartSize = config.get(CHECKPOINT_TRANSFER_PART_SIZE).getBytes();
+		} else {
+			this.transferPartSize = original.transferPartSize;
+		}
+
+		if (original.restorePrefetchNum == UNDEFINED_RESTORE_PREFETCH_NUM) {
+			this.restorePrefetchNum = config.get(RESTORE_PREFETCH_NUM);
+		} else {
+			this.restorePrefetchNum = original.restorePrefetchNum;
+		}
+
 		if (original.writeBatchSize == UNDEFINED_WRITE_BATCH_SIZE) {
 			this.writeBatchSize = config.get(WRITE_BATCH_SIZE).getBytes();
 		} else {
 			this.writeBatchSize = original.writeBatchSize;
 		}
 
+		this.batchedStateWrites = original.batchedStateWrites.resolveUndefined(config.get(BATCHED_STATE_WRITES));
+
+		if (original.valueStateCacheSize == UNDEFINED_VALUE_STATE_CACHE_SIZE) {
+			this.valueStateCacheSize = config.get(VALUE_STATE_CACHE_SIZE);
+		} else {
+			this.valueStateCacheSize = original.valueStateCacheSize;
+		}
+
 		this.memoryConfiguration = RocksDBMemoryConfiguration.fromOtherAndConfiguration(original.memoryConfiguration, config);
 		this.memoryConfiguration.validate();
 
@@ -530,8 +573,12 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 		)
 			.setEnableIncrementalCheckpointing(isIncrementalCheckpointsEnabled())
 			.setNumberOfTransferingThreads(getNumberOfTransferThreads())
+			.setTransferPartSize(getTransferPartSize())
+			.setRestorePrefetchNum(getRestorePrefetchNum())
 			.setNativeMetricOptions(resourceContainer.getMemoryWatcherOptions(defaultMetricOptions))
-			.setWriteBatchSize(getWriteBatchSize());
+			.setWriteBatchSize(getWriteBatchSize())
+			.setBatchedStateWrites(isBatchedStateWritesEnabled())
+			.setValueStateCacheSize(getValueStateCacheSize());
 		return builder.build();
 	}
 
@@ -838,6 +885,43 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 		setNumberOfTransferThreads(numberOfTransferingThreads);
 	}
 
+	/**
+	 * Gets the size of the parts in which large files are downloaded concurrently while restoring.
+	 */
+	public long getTransferPartSize() {
+		return transferPartSize == UNDEFINED_TRANSFER_PART_SIZE ?
+			CHECKPOINT_TRANSFER_PART_SIZE.defaultValue().getBytes() : transferPartSize;
+	}
+
+	/**
+	 * Sets the size of the parts in which large files are downloaded concurrently while restoring.
+	 *
+	 * @param transferPartSize The size of the parts in bytes.
+	 */
+	public void setTransferPartSize(long transferPartSize) {
+		checkArgument(transferPartSize > 0, "The transfer part size must be greater than zero.");
+		this.transferPartSize = transferPartSize;
+	}
+
+	/**
+	 * Gets the number of state handles that are downloaded ahead while restoring with rescaling.
+	 */
+	public int getRestorePrefetchNum() {
+		return restorePrefetchNum == UNDEFINED_RESTORE_PREFETCH_NUM ?
+			RESTORE_PREFETCH_NUM.defaultValue() : restorePrefetchNum;
+	}
+
+	/**
+	 * Sets the number of state handles that are downloaded ahead while restoring with rescaling, 0 disables the
+	 * prefetching.
+	 *
+	 * @param restorePrefetchNum The number of state handles that are downloaded ahead.
+	 */
+	public void setRestorePrefetchNum(int restorePrefetchNum) {
+		checkArgument(restorePrefetchNum >= 0, "The number of prefetched state handles must not be negative.");
+		this.restorePrefetchNum = restorePrefetchNum;
+	}
+
 	/**
 	 * Gets the max batch size will be used in {@link RocksDBWriteBatchWrapper}.
 	 */
@@ -856,6 +940,39 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 		this.writeBatchSize = writeBatchSize;
 	}
 
+	/**
+	 * Gets whether value and map states buffer their writes in a write batch, which is written to RocksDB when the
+	 * current key changes, before checkpoints, or when it exceeds the write batch size.
+	 */
+	public boolean isBatchedStateWritesEnabled() {
+		return batchedStateWrites.getOrDefault(BATCHED_STATE_WRITES.defaultValue());
+	}
+
+	/**
+	 * Sets whether value and map states buffer their writes in a write batch, which is written to RocksDB when the
+	 * current key changes, before checkpoints, or when it exceeds the write batch size.
+	 */
+	public void setBatchedStateWrites(boolean batchedStateWrites) {
+		this.batchedStateWrites = TernaryBoolean.fromBoolean(batchedStateWrites);
+	}
+
+	/**
+	 * Gets the number of deserialized values that each value state caches in front of RocksDB.
+	 */
+	public int getValueStateCacheSize() {
+		return valueStateCacheSize == UNDEFINED_VALUE_STATE_CACHE_SIZE ?
+			VALUE_STATE_CACHE_SIZE.defaultValue() : valueStateCacheSize;
+	}
+
+	/**
+	 * Sets the number of deserialized values that each value state caches in front of RocksDB, 0 disables the cache.
+	 * The cache assumes that keys are not mutated after they have been set as current key.
+	 */
+	public void setValueStateCacheSize(int valueStateCacheSize) {
+		checkArgument(valueStateCacheSize >= 0, "The value state cache size must not be negative.");
+		this.valueStateCacheSize = valueStateCacheSize;
+	}
+
 	// ------------------------------------------------------------------------
 	//  utilities
 	// ------------------------------------------------------------------------
@@ -882,7 +999,11 @@ public class RocksDBStateBackend extends AbstractStateBackend implements Configu
 				", localRocksDbDirectories=" + Arrays.toString(localRocksDbDirectories) +
 				", enableIncrementalCheckpointing=" + enableIncrementalCheckpointing +
 				", numberOfTransferThreads=" + numberOfTransferThreads +
+				", transferPartSize=" + transferPartSize +
+				", restorePrefetchNum=" + restorePrefetchNum +
 				", writeBatchSize=" + writeBatchSize +
+				", batchedStateWrites=" + batchedStateWrites +
+				", valueStateCacheSize=" + valueStateCacheSize +
 				'}';
 	}
 
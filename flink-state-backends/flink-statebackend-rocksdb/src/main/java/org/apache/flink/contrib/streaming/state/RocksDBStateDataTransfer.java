@@ -30,7 +30,11 @@ class RocksDBStateDataTransfer implements Closeable {
 
 	protected final ExecutorService executorService;
 
+	/** Limits the number of the concurrent transfers of the threads to the one with the best throughput. */
+	protected final RocksDBTransferConcurrency transferConcurrency;
+
 	RocksDBStateDataTransfer(int threadNum) {
+		transferConcurrency = new RocksDBTransferConcurrency(Math.max(1, threadNum));
 		if (threadNum > 1) {
 			executorService = Executors.newFixedThreadPool(threadNum);
 		} else {
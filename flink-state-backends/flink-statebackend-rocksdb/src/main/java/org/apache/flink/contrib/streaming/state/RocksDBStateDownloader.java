@@ -19,30 +19,88 @@ package org.apache.flink.contrib.streaming.state;
 
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.metrics.Histogram;
 import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
 import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.filesystem.FileStateHandle;
 import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.function.ThrowingRunnable;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
  * Help class for downloading RocksDB state files.
+ *
+ * <p>Files are downloaded largest first. If more than one thread is used, files that are larger than the part size
+ * are split into ranges of that size, which are downloaded concurrently into the same local file. The number of
+ * concurrent downloads adapts to the measured throughput, see {@link RocksDBTransferConcurrency}.
  */
 public class RocksDBStateDownloader extends RocksDBStateDataTransfer {
+	private static final Logger LOG = LoggerFactory.getLogger(RocksDBStateDownloader.class);
+
+	private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+	/** The number of the most recent file downloads that the download histograms are computed of. */
+	public static final int DOWNLOAD_HISTOGRAM_WINDOW_SIZE = 1000;
+
+	private final int restoringThreadNum;
+
+	private final long partSize;
+
+	/** The sizes of the downloaded files in bytes. */
+	private final Histogram fileSizeHistogram;
+
+	/** The durations of the file downloads in milliseconds, from the start of the first to the end of the last part. */
+	private final Histogram fileDurationHistogram;
+
 	public RocksDBStateDownloader(int restoringThreadNum) {
+		this(restoringThreadNum, RocksDBOptions.CHECKPOINT_TRANSFER_PART_SIZE.defaultValue().getBytes());
+	}
+
+	public RocksDBStateDownloader(int restoringThreadNum, long partSize) {
+		this(
+			restoringThreadNum,
+			partSize,
+			new DescriptiveStatisticsHistogram(DOWNLOAD_HISTOGRAM_WINDOW_SIZE),
+			new DescriptiveStatisticsHistogram(DOWNLOAD_HISTOGRAM_WINDOW_SIZE));
+	}
+
+	public RocksDBStateDownloader(
+		int restoringThreadNum,
+		long partSize,
+		Histogram fileSizeHistogram,
+		Histogram fileDurationHistogram) {
 		super(restoringThreadNum);
+		checkArgument(partSize > 0, "The part size has to be positive.");
+		this.restoringThreadNum = restoringThreadNum;
+		this.partSize = partSize;
+		this.fileSizeHistogram = checkNotNull(fileSizeHistogram);
+		this.fileDurationHistogram = checkNotNull(fileDurationHistogram);
 	}
 
 	/**
@@ -97,16 +155,60 @@ public class RocksDBStateDownloader extends RocksDBStateDataTransfer {
 	private List<Runnable> createDownloadRunnables(
 		Map<StateHandleID, StreamStateHandle> stateHandleMap,
 		Path restoreInstancePath,
-		CloseableRegistry closeableRegistry) {
+		CloseableRegistry closeableRegistry) throws IOException {
+
+		// start with the largest files, so that a large file is not left to a single thread at the end
+		List<Map.Entry<StateHandleID, StreamStateHandle>> entries = new ArrayList<>(stateHandleMap.entrySet());
+		entries.sort((left, right) -> Long.compare(right.getValue().getStateSize(), left.getValue().getStateSize()));
+
 		List<Runnable> runnables = new ArrayList<>(stateHandleMap.size());
-		for (Map.Entry<StateHandleID, StreamStateHandle> entry : stateHandleMap.entrySet()) {
+		for (Map.Entry<StateHandleID, StreamStateHandle> entry : entries) {
 			StateHandleID stateHandleID = entry.getKey();
 			StreamStateHandle remoteFileHandle = entry.getValue();
 
 			Path path = restoreInstancePath.resolve(stateHandleID.toString());
+			long fileSize = remoteFileHandle.getStateSize();
 
-			runnables.add(ThrowingRunnable.unchecked(
-				() -> downloadDataForStateHandle(path, remoteFileHandle, closeableRegistry)));
+			if (restoringThreadNum > 1 && fileSize > partSize && remoteFileHandle instanceof FileStateHandle) {
+				// the parts are written into the pre-allocated local file at their offsets
+				Files.createDirectories(path.getParent());
+				try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+					file.setLength(fileSize);
+				}
+
+				int numberOfParts = (int) ((fileSize + partSize - 1) / partSize);
+				FileDownload fileDownload = new FileDownload(path, fileSize, numberOfParts);
+				for (long offset = 0L; offset < fileSize; offset += partSize) {
+					long partOffset = offset;
+					long partLength = Math.min(partSize, fileSize - offset);
+					runnables.add(ThrowingRunnable.unchecked(() -> {
+						transferConcurrency.acquire();
+						long transferredBytes = 0L;
+						try {
+							fileDownload.partStarted();
+							downloadPartOfStateHandle(path, remoteFileHandle, partOffset, partLength, closeableRegistry);
+							fileDownload.partCompleted();
+							transferredBytes = partLength;
+						} finally {
+							transferConcurrency.release(transferredBytes);
+						}
+					}));
+				}
+			} else {
+				runnables.add(ThrowingRunnable.unchecked(() -> {
+					transferConcurrency.acquire();
+					long transferredBytes = 0L;
+					try {
+						FileDownload fileDownload = new FileDownload(path, fileSize, 1);
+						fileDownload.partStarted();
+						downloadDataForStateHandle(path, remoteFileHandle, closeableRegistry);
+						fileDownload.partCompleted();
+						transferredBytes = fileSize;
+					} finally {
+						transferConcurrency.release(transferredBytes);
+					}
+				}));
+			}
 		}
 		return runnables;
 	}
@@ -130,7 +232,7 @@ public class RocksDBStateDownloader extends RocksDBStateDataTransfer {
 			outputStream = Files.newOutputStream(restoreFilePath);
 			closeableRegistry.registerCloseable(outputStream);
 
-			byte[] buffer = new byte[8 * 1024];
+			byte[] buffer = new byte[READ_BUFFER_SIZE];
 			while (true) {
 				int numBytes = inputStream.read(buffer);
 				if (numBytes == -1) {
@@ -149,4 +251,95 @@ public class RocksDBStateDownloader extends RocksDBStateDataTransfer {
 			}
 		}
 	}
+
+	/**
+	 * Copies the given range of the file from a single state handle to the same range of the given, pre-allocated
+	 * path.
+	 */
+	private void downloadPartOfStateHandle(
+		Path restoreFilePath,
+		StreamStateHandle remoteFileHandle,
+		long offset,
+		long length,
+		CloseableRegistry closeableRegistry) throws IOException {
+
+		FSDataInputStream inputStream = null;
+		FileChannel outputChannel = null;
+
+		try {
+			inputStream = remoteFileHandle.openInputStream();
+			closeableRegistry.registerCloseable(inputStream);
+			inputStream.seek(offset);
+
+			outputChannel = FileChannel.open(restoreFilePath, StandardOpenOption.WRITE);
+			closeableRegistry.registerCloseable(outputChannel);
+
+			byte[] buffer = new byte[READ_BUFFER_SIZE];
+			long position = offset;
+			long remaining = length;
+			while (remaining > 0) {
+				int numBytes = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (numBytes == -1) {
+					throw new EOFException("Unexpected end of " + remoteFileHandle + " at offset " + position + '.');
+				}
+
+				ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, numBytes);
+				while (byteBuffer.hasRemaining()) {
+					position += outputChannel.write(byteBuffer, position);
+				}
+				remaining -= numBytes;
+			}
+
+			// the last part makes sure that the size of the state handle covered the whole file
+			if (position == remoteFileHandle.getStateSize() && inputStream.read() != -1) {
+				throw new IOException(remoteFileHandle + " is larger than its state size of " + position + " bytes.");
+			}
+		} finally {
+			if (closeableRegistry.unregisterCloseable(inputStream)) {
+				inputStream.close();
+			}
+
+			if (closeableRegistry.unregisterCloseable(outputChannel)) {
+				outputChannel.close();
+			}
+		}
+	}
+
+	/**
+	 * Tracks the parts of a file download to report the transfer time and throughput of the file.
+	 */
+	private final class FileDownload {
+
+		private final Path path;
+
+		private final long size;
+
+		private final int numberOfParts;
+
+		private final AtomicInteger remainingParts;
+
+		private final AtomicLong startNanos;
+
+		FileDownload(Path path, long size, int numberOfParts) {
+			this.path = path;
+			this.size = size;
+			this.numberOfParts = numberOfParts;
+			this.remainingParts = new AtomicInteger(numberOfParts);
+			this.startNanos = new AtomicLong(-1L);
+		}
+
+		void partStarted() {
+			startNanos.compareAndSet(-1L, System.nanoTime());
+		}
+
+		void partCompleted() {
+			if (remainingParts.decrementAndGet() == 0) {
+				long durationMillis = Math.max(1L, (System.nanoTime() - startNanos.get()) / 1_000_000L);
+				fileSizeHistogram.update(size);
+				fileDurationHistogram.update(durationMillis);
+				LOG.debug("Downloaded {} ({} bytes in {} parts) in {} ms ({} KB/s).",
+					path, size, numberOfParts, durationMillis, size / durationMillis);
+			}
+		}
+	}
 }
@@ -29,13 +29,18 @@ import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.function.CheckedSupplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.annotation.Nonnull;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -43,8 +48,13 @@ import java.util.function.Supplier;
 
 /**
  * Help class for uploading RocksDB state files.
+ *
+ * <p>Files are uploaded largest first, so that a large file is not left to a single thread at the end. The number of
+ * concurrent uploads adapts to the measured throughput, see {@link RocksDBTransferConcurrency}.
  */
 public class RocksDBStateUploader extends RocksDBStateDataTransfer {
+	private static final Logger LOG = LoggerFactory.getLogger(RocksDBStateUploader.class);
+
 	private static final int READ_BUFFER_SIZE = 16 * 1024;
 
 	public RocksDBStateUploader(int numberOfSnapshottingThreads) {
@@ -94,9 +104,22 @@ public class RocksDBStateUploader extends RocksDBStateDataTransfer {
 		CloseableRegistry closeableRegistry) {
 		Map<StateHandleID, CompletableFuture<StreamStateHandle>> futures = new HashMap<>(files.size());
 
-		for (Map.Entry<StateHandleID, Path> entry : files.entrySet()) {
-			final Supplier<StreamStateHandle> supplier =
-				CheckedSupplier.unchecked(() -> uploadLocalFileToCheckpointFs(entry.getValue(), checkpointStreamFactory, closeableRegistry));
+		List<Map.Entry<StateHandleID, Path>> entries = new ArrayList<>(files.entrySet());
+		entries.sort((left, right) -> Long.compare(right.getValue().toFile().length(), left.getValue().toFile().length()));
+
+		for (Map.Entry<StateHandleID, Path> entry : entries) {
+			final Supplier<StreamStateHandle> supplier = CheckedSupplier.unchecked(() -> {
+				transferConcurrency.acquire();
+				long transferredBytes = 0L;
+				try {
+					StreamStateHandle handle =
+						uploadLocalFileToCheckpointFs(entry.getValue(), checkpointStreamFactory, closeableRegistry);
+					transferredBytes = handle != null ? handle.getStateSize() : 0L;
+					return handle;
+				} finally {
+					transferConcurrency.release(transferredBytes);
+				}
+			});
 			futures.put(entry.getKey(), CompletableFuture.supplyAsync(supplier, executorService));
 		}
 
@@ -112,7 +135,9 @@ public class RocksDBStateUploader extends RocksDBStateDataTransfer {
 		CheckpointStreamFactory.CheckpointStateOutputStream outputStream = null;
 
 		try {
+			final long startNanos = System.nanoTime();
 			final byte[] buffer = new byte[READ_BUFFER_SIZE];
+			long numBytesUploaded = 0L;
 
 			inputStream = Files.newInputStream(filePath);
 			closeableRegistry.registerCloseable(inputStream);
@@ -129,6 +154,7 @@ public class RocksDBStateUploader extends RocksDBStateDataTransfer {
 				}
 
 				outputStream.write(buffer, 0, numBytes);
+				numBytesUploaded += numBytes;
 			}
 
 			StreamStateHandle result = null;
@@ -136,6 +162,12 @@ public class RocksDBStateUploader extends RocksDBStateDataTransfer {
 				result = outputStream.closeAndGetHandle();
 				outputStream = null;
 			}
+
+			if (LOG.isDebugEnabled()) {
+				long durationMillis = Math.max(1L, (System.nanoTime() - startNanos) / 1_000_000L);
+				LOG.debug("Uploaded {} ({} bytes) in {} ms ({} KB/s).",
+					filePath, numBytesUploaded, durationMillis, numBytesUploaded / durationMillis);
+			}
 			return result;
 
 		} finally {
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.annotation.VisibleForTesting;
+
+import java.util.function.LongSupplier;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Limits the number of concurrent file transfers of a {@link RocksDBStateDataTransfer} and adapts the limit to the
+ * measured throughput.
+ *
+ * <p>The limit starts at the number of transfer threads. After each window of completed transfers, the throughput
+ * of the window is compared with the one of the previous window. A change of the limit that improved the throughput
+ * is continued, a change that made it worse or that added transfers without improving it is reverted. If the limit
+ * was not changed, it is probed again once the throughput changes. This way, fewer concurrent transfers are used if
+ * more of them do not increase the throughput, e.g. because the file system throttles the requests.
+ *
+ * <p>The throughput is measured over the time in which at least one transfer is in progress, so that the pauses
+ * between checkpoints or restores do not count.
+ */
+final class RocksDBTransferConcurrency {
+
+	/** The relative change of the throughput that counts as an improvement or a degradation. */
+	private static final double THROUGHPUT_CHANGE_THRESHOLD = 0.1;
+
+	private final int maxConcurrency;
+
+	private final LongSupplier nanoClock;
+
+	private int limit;
+
+	private int activeTransfers;
+
+	/** The change of the limit after the previous window. */
+	private int lastLimitChange;
+
+	/** The throughput of the previous window in bytes per nanosecond, or -1 if there was none. */
+	private double lastThroughput;
+
+	private long windowBytes;
+
+	private int windowTransfers;
+
+	/** The time in which transfers were in progress in the current window, without the current busy period. */
+	private long windowBusyNanos;
+
+	private long busySinceNanos;
+
+	RocksDBTransferConcurrency(int maxConcurrency) {
+		this(maxConcurrency, System::nanoTime);
+	}
+
+	@VisibleForTesting
+	RocksDBTransferConcurrency(int maxConcurrency, LongSupplier nanoClock) {
+		checkArgument(maxConcurrency > 0, "The maximum concurrency has to be positive.");
+		this.maxConcurrency = maxConcurrency;
+		this.nanoClock = checkNotNull(nanoClock);
+		this.limit = maxConcurrency;
+		this.lastThroughput = -1.0;
+	}
+
+	/**
+	 * Waits until one more transfer may start.
+	 */
+	synchronized void acquire() throws InterruptedException {
+		while (activeTransfers >= limit) {
+			wait();
+		}
+		if (activeTransfers++ == 0) {
+			busySinceNanos = nanoClock.getAsLong();
+		}
+	}
+
+	/**
+	 * Marks a transfer that was started with {@link #acquire()} as finished.
+	 *
+	 * @param transferredBytes The number of bytes that the transfer copied.
+	 */
+	synchronized void release(long transferredBytes) {
+		long now = nanoClock.getAsLong();
+		if (--activeTransfers == 0) {
+			windowBusyNanos += now - busySinceNanos;
+		}
+		windowBytes += transferredBytes;
+		windowTransfers++;
+
+		// every transfer of the window ran at least once next to the others at the current limit
+		if (windowTransfers >= 2 * limit) {
+			long busyNanos = windowBusyNanos + (activeTransfers > 0 ? now - busySinceNanos : 0L);
+			adaptLimit((double) windowBytes / Math.max(1L, busyNanos));
+
+			windowBytes = 0L;
+			windowTransfers = 0;
+			windowBusyNanos = 0L;
+			busySinceNanos = now;
+		}
+		notifyAll();
+	}
+
+	@VisibleForTesting
+	synchronized int getLimit() {
+		return limit;
+	}
+
+	private void adaptLimit(double throughput) {
+		int change;
+		if (lastThroughput < 0) {
+			change = probeChange();
+		} else if (lastLimitChange != 0) {
+			if (throughput > lastThroughput * (1 + THROUGHPUT_CHANGE_THRESHOLD)) {
+				change = lastLimitChange;
+			} else if (throughput < lastThroughput * (1 - THROUGHPUT_CHANGE_THRESHOLD) || lastLimitChange > 0) {
+				change = -lastLimitChange;
+			} else {
+				// fewer transfers reach the same throughput
+				change = 0;
+			}
+		} else if (Math.abs(throughput - lastThroughput) > lastThroughput * THROUGHPUT_CHANGE_THRESHOLD) {
+			change = probeChange();
+		} else {
+			change = 0;
+		}
+
+		int newLimit = Math.max(1, Math.min(maxConcurrency, limit + change));
+		lastLimitChange = newLimit - limit;
+		limit = newLimit;
+		lastThroughput = throughput;
+	}
+
+	private int probeChange() {
+		return limit < maxConcurrency ? 1 : -1;
+	}
+}
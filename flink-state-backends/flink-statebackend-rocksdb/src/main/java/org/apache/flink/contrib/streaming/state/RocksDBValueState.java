@@ -30,6 +30,8 @@ import org.apache.flink.util.FlinkRuntimeException;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 
 /**
@@ -43,6 +45,10 @@ class RocksDBValueState<K, N, V>
 	extends AbstractRocksDBState<K, N, V>
 	implements InternalValueState<K, N, V> {
 
+	/** The cache of deserialized values in front of RocksDB, or null if the state has no cache. */
+	@Nullable
+	private final RocksDBValueStateCache<K, N, V> cache;
+
 	/**
 	 * Creates a new {@code RocksDBValueState}.
 	 *
@@ -51,15 +57,18 @@ class RocksDBValueState<K, N, V>
 	 * @param valueSerializer The serializer for the state.
 	 * @param defaultValue The default value for the state.
 	 * @param backend The backend for which this state is bind to.
+	 * @param cache The cache of deserialized values, or null if the state has no cache.
 	 */
 	private RocksDBValueState(
 			ColumnFamilyHandle columnFamily,
 			TypeSerializer<N> namespaceSerializer,
 			TypeSerializer<V> valueSerializer,
 			V defaultValue,
-			RocksDBKeyedStateBackend<K> backend) {
+			RocksDBKeyedStateBackend<K> backend,
+			@Nullable RocksDBValueStateCache<K, N, V> cache) {
 
 		super(columnFamily, namespaceSerializer, valueSerializer, defaultValue, backend);
+		this.cache = cache;
 	}
 
 	@Override
@@ -78,16 +87,32 @@ class RocksDBValueState<K, N, V>
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public V value() {
+		if (cache != null) {
+			Object cached = cache.get(backend.getCurrentKey(), getCurrentNamespace());
+			if (cached != null) {
+				return RocksDBValueStateCache.isAbsent(cached) ? getDefaultValue() : valueSerializer.copy((V) cached);
+			}
+		}
+
 		try {
-			byte[] valueBytes = backend.db.get(columnFamily,
-				serializeCurrentKeyWithGroupAndNamespace());
+			byte[] valueBytes = readValueBytes(serializeCurrentKeyWithGroupAndNamespace());
 
 			if (valueBytes == null) {
+				if (cache != null) {
+					cache.put(backend.getCurrentKey(), getCurrentNamespace(), null);
+				}
 				return getDefaultValue();
 			}
 			dataInputView.setBuffer(valueBytes);
-			return valueSerializer.deserialize(dataInputView);
+			V value = valueSerializer.deserialize(dataInputView);
+			if (cache != null) {
+				// the cache owns the deserialized instance, the caller gets a copy
+				cache.put(backend.getCurrentKey(), getCurrentNamespace(), value);
+				return valueSerializer.copy(value);
+			}
+			return value;
 		} catch (IOException | RocksDBException e) {
 			throw new FlinkRuntimeException("Error while retrieving data from RocksDB.", e);
 		}
@@ -101,14 +126,28 @@ class RocksDBValueState<K, N, V>
 		}
 
 		try {
-			backend.db.put(columnFamily, writeOptions,
-				serializeCurrentKeyWithGroupAndNamespace(),
-				serializeValue(value));
+			writeValueBytes(serializeCurrentKeyWithGroupAndNamespace(), serializeValue(value));
+			if (cache != null) {
+				// the caller may still modify the passed instance
+				cache.put(backend.getCurrentKey(), getCurrentNamespace(), valueSerializer.copy(value));
+			}
 		} catch (Exception e) {
 			throw new FlinkRuntimeException("Error while adding data to RocksDB", e);
 		}
 	}
 
+	@Override
+	public void clear() {
+		try {
+			deleteValueBytes(serializeCurrentKeyWithGroupAndNamespace());
+			if (cache != null) {
+				cache.put(backend.getCurrentKey(), getCurrentNamespace(), null);
+			}
+		} catch (RocksDBException e) {
+			throw new FlinkRuntimeException("Error while removing entry from RocksDB", e);
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	static <K, N, SV, S extends State, IS extends S> IS create(
 		StateDescriptor<S, SV> stateDesc,
@@ -119,6 +158,7 @@ class RocksDBValueState<K, N, V>
 			registerResult.f1.getNamespaceSerializer(),
 			registerResult.f1.getStateSerializer(),
 			stateDesc.getDefaultValue(),
-			backend);
+			backend,
+			backend.getValueStateCache(registerResult.f1.getName()));
 	}
 }
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded LRU cache of deserialized values of one value state, keyed by the state key and namespace. It lets reads
+ * of hot keys skip the composite key serialization, the JNI call into RocksDB and the value deserialization.
+ *
+ * <p>The cache must see every write of the state, so that it never serves stale values. It also caches the absence of
+ * values. Cached values are owned by the cache; callers must copy them before handing them out.
+ *
+ * <p>IMPORTANT: This class is not thread safe, only the metrics may be read from other threads.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ * @param <V> The type of the values.
+ */
+class RocksDBValueStateCache<K, N, V> {
+
+	/** Marker for keys that are known to have no value. */
+	private static final Object ABSENT = new Object();
+
+	private final int capacity;
+
+	private final LinkedHashMap<CacheKey<K, N>, Object> entries;
+
+	// only written by the task thread, but read by the metric gauges from other threads
+	private volatile long hitCount;
+
+	private volatile long missCount;
+
+	RocksDBValueStateCache(int capacity) {
+		Preconditions.checkArgument(capacity > 0, "The cache capacity must be positive.");
+		this.capacity = capacity;
+		// access order makes the iteration order least recently used first
+		this.entries = new LinkedHashMap<CacheKey<K, N>, Object>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey<K, N>, Object> eldest) {
+				return size() > RocksDBValueStateCache.this.capacity;
+			}
+		};
+		this.hitCount = 0L;
+		this.missCount = 0L;
+	}
+
+	/**
+	 * Looks up the value of the given key and namespace.
+	 *
+	 * @return the cached value, a marker for which {@link #isAbsent(Object)} holds if the key is known to have no
+	 *         value, or null on a cache miss.
+	 */
+	@Nullable
+	Object get(K key, N namespace) {
+		final Object cached = entries.get(new CacheKey<>(key, namespace));
+		if (cached == null) {
+			missCount++;
+		} else {
+			hitCount++;
+		}
+		return cached;
+	}
+
+	/**
+	 * Caches the given value, which is owned by the cache from now on. A null value caches the absence of a value.
+	 */
+	void put(K key, N namespace, @Nullable V value) {
+		entries.put(new CacheKey<>(key, namespace), value == null ? ABSENT : value);
+	}
+
+	void clear() {
+		entries.clear();
+	}
+
+	static boolean isAbsent(Object cached) {
+		return cached == ABSENT;
+	}
+
+	/**
+	 * Registers the hit and miss metrics of this cache in the given group.
+	 */
+	void registerMetrics(MetricGroup metricGroup) {
+		metricGroup.gauge("hitCount", (Gauge<Long>) () -> hitCount);
+		metricGroup.gauge("missCount", (Gauge<Long>) () -> missCount);
+		metricGroup.gauge("hitRate", (Gauge<Double>) this::getHitRate);
+		metricGroup.gauge("size", (Gauge<Integer>) entries::size);
+	}
+
+	@VisibleForTesting
+	long getHitCount() {
+		return hitCount;
+	}
+
+	@VisibleForTesting
+	long getMissCount() {
+		return missCount;
+	}
+
+	@VisibleForTesting
+	double getHitRate() {
+		final long hits = hitCount;
+		final long requests = hits + missCount;
+		return requests == 0L ? 0.0 : (double) hits / requests;
+	}
+
+	@VisibleForTesting
+	int size() {
+		return entries.size();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Key of the cache, pairs the state key and the namespace.
+	 */
+	private static final class CacheKey<K, N> {
+
+		private final K key;
+
+		private final N namespace;
+
+		private final int hash;
+
+		CacheKey(K key, N namespace) {
+			this.key = key;
+			this.namespace = namespace;
+			this.hash = 31 * Objects.hashCode(key) + Objects.hashCode(namespace);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			CacheKey<?, ?> that = (CacheKey<?, ?>) o;
+			return hash == that.hash && Objects.equals(key, that.key) && Objects.equals(namespace, that.namespace);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
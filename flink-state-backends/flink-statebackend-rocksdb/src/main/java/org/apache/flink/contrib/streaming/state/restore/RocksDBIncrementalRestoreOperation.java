@@ -24,13 +24,14 @@ import org.apache.flink.contrib.streaming.state.RocksDBKeyedStateBackend.RocksDb
 import org.apache.flink.contrib.streaming.state.RocksDBNativeMetricOptions;
 import org.apache.flink.contrib.streaming.state.RocksDBOperationUtils;
 import org.apache.flink.contrib.streaming.state.RocksDBStateDownloader;
-import org.apache.flink.contrib.streaming.state.RocksDBWriteBatchWrapper;
 import org.apache.flink.contrib.streaming.state.RocksIteratorWrapper;
 import org.apache.flink.contrib.streaming.state.ttl.RocksDbTtlCompactFiltersManager;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.metrics.Histogram;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
 import org.apache.flink.runtime.state.BackendBuildingException;
 import org.apache.flink.runtime.state.DirectoryStateHandle;
 import org.apache.flink.runtime.state.IncrementalKeyedStateHandle;
@@ -44,20 +45,26 @@ import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StateSerializerProvider;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.function.ThrowingRunnable;
 
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 import java.io.File;
@@ -67,8 +74,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -76,10 +86,17 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import static org.apache.flink.contrib.streaming.state.snapshot.RocksSnapshotUtil.SST_FILE_SUFFIX;
+import static org.apache.flink.runtime.concurrent.Executors.newDirectExecutorService;
 import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * Encapsulates the process of restoring a RocksDB instance from an incremental snapshot.
@@ -91,7 +108,10 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 	private final SortedMap<Long, Set<StateHandleID>> restoredSstFiles;
 	private long lastCompletedCheckpointId;
 	private UUID backendUID;
-	private final long writeBatchSize;
+	private final long transferPartSize;
+	private final int restorePrefetchNum;
+	private final Histogram downloadedFileSizeHistogram;
+	private final Histogram fileDownloadDurationHistogram;
 
 	public RocksDBIncrementalRestoreOperation(
 		String operatorIdentifier,
@@ -110,7 +130,8 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 		MetricGroup metricGroup,
 		@Nonnull Collection<KeyedStateHandle> restoreStateHandles,
 		@Nonnull RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
-		@Nonnegative long writeBatchSize) {
+		long transferPartSize,
+		int restorePrefetchNum) {
 		super(keyGroupRange,
 			keyGroupPrefixBytes,
 			numberOfTransferringThreads,
@@ -130,8 +151,17 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 		this.restoredSstFiles = new TreeMap<>();
 		this.lastCompletedCheckpointId = -1L;
 		this.backendUID = UUID.randomUUID();
-		checkArgument(writeBatchSize >= 0, "Write batch size have to be no negative.");
-		this.writeBatchSize = writeBatchSize;
+		checkArgument(transferPartSize > 0, "Transfer part size has to be positive.");
+		this.transferPartSize = transferPartSize;
+		checkArgument(restorePrefetchNum >= 0, "Restore prefetch num must not be negative.");
+		this.restorePrefetchNum = restorePrefetchNum;
+
+		// registered once per restore, the downloaders of all restored state handles report to the same histograms
+		MetricGroup restoreMetricGroup = metricGroup.addGroup("restore");
+		this.downloadedFileSizeHistogram = restoreMetricGroup.histogram(
+			"downloadedFileSize", new DescriptiveStatisticsHistogram(RocksDBStateDownloader.DOWNLOAD_HISTOGRAM_WINDOW_SIZE));
+		this.fileDownloadDurationHistogram = restoreMetricGroup.histogram(
+			"fileDownloadDuration", new DescriptiveStatisticsHistogram(RocksDBStateDownloader.DOWNLOAD_HISTOGRAM_WINDOW_SIZE));
 	}
 
 	/**
@@ -191,13 +221,28 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 		// used as restore source for IncrementalRemoteKeyedStateHandle
 		final Path tmpRestoreInstancePath = instanceBasePath.getAbsoluteFile().toPath().resolve(UUID.randomUUID().toString());
 		try {
-			restoreFromLocalState(
-				transferRemoteStateToLocalDirectory(tmpRestoreInstancePath, stateHandle));
+			transferRemoteStateToLocalDirectory(tmpRestoreInstancePath, stateHandle);
+			restoreFromDownloadedState(tmpRestoreInstancePath, stateHandle);
 		} finally {
 			cleanUpPathQuietly(tmpRestoreInstancePath);
 		}
 	}
 
+	private void restoreFromDownloadedState(
+		Path downloadedInstancePath,
+		IncrementalRemoteKeyedStateHandle stateHandle) throws Exception {
+
+		// since we transferred all remote state to a local directory, we can use the same code as for
+		// local recovery.
+		restoreFromLocalState(new IncrementalLocalKeyedStateHandle(
+			stateHandle.getBackendIdentifier(),
+			stateHandle.getCheckpointId(),
+			new DirectoryStateHandle(downloadedInstancePath),
+			stateHandle.getKeyGroupRange(),
+			stateHandle.getMetaStateHandle(),
+			stateHandle.getSharedState().keySet()));
+	}
+
 	private void restoreFromLocalState(IncrementalLocalKeyedStateHandle localKeyedStateHandle) throws Exception {
 		KeyedBackendSerializationProxy<K> serializationProxy = readMetaData(localKeyedStateHandle.getMetaDataState());
 		List<StateMetaInfoSnapshot> stateMetaInfoSnapshots = serializationProxy.getStateMetaInfoSnapshots();
@@ -222,26 +267,21 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 		registerColumnFamilyHandles(stateMetaInfoSnapshots);
 	}
 
-	private IncrementalLocalKeyedStateHandle transferRemoteStateToLocalDirectory(
+	private void transferRemoteStateToLocalDirectory(
 		Path temporaryRestoreInstancePath,
 		IncrementalRemoteKeyedStateHandle restoreStateHandle) throws Exception {
 
-		try (RocksDBStateDownloader rocksDBStateDownloader = new RocksDBStateDownloader(numberOfTransferringThreads)) {
+		try (RocksDBStateDownloader rocksDBStateDownloader =
+				new RocksDBStateDownloader(
+					numberOfTransferringThreads,
+					transferPartSize,
+					downloadedFileSizeHistogram,
+					fileDownloadDurationHistogram)) {
 			rocksDBStateDownloader.transferAllStateDataToDirectory(
 				restoreStateHandle,
 				temporaryRestoreInstancePath,
 				cancelStreamRegistry);
 		}
-
-		// since we transferred all remote state to a local directory, we can use the same code as for
-		// local recovery.
-		return new IncrementalLocalKeyedStateHandle(
-			restoreStateHandle.getBackendIdentifier(),
-			restoreStateHandle.getCheckpointId(),
-			new DirectoryStateHandle(temporaryRestoreInstancePath),
-			restoreStateHandle.getKeyGroupRange(),
-			restoreStateHandle.getMetaStateHandle(),
-			restoreStateHandle.getSharedState().keySet());
 	}
 
 	private void cleanUpPathQuietly(@Nonnull Path path) {
@@ -262,7 +302,8 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 	/**
 	 * Recovery from multi incremental states with rescaling. For rescaling, this method creates a temporary
 	 * RocksDB instance for a key-groups shard. All contents from the temporary instance are copied into the
-	 * real restore instance and then the temporary instance is discarded.
+	 * real restore instance and then the temporary instance is discarded. The files of the following state handles
+	 * are downloaded in the background in the meantime, see {@link RemoteStatePrefetcher}.
 	 */
 	private void restoreWithRescaling(Collection<KeyedStateHandle> restoreStateHandles) throws Exception {
 
@@ -270,21 +311,14 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 		KeyedStateHandle initialHandle = RocksDBIncrementalCheckpointUtils.chooseTheBestStateHandleForInitial(
 			restoreStateHandles, keyGroupRange);
 
-		// Init base DB instance
+		// the remote state handles in the order in which they are restored
+		List<IncrementalRemoteKeyedStateHandle> remoteStateHandles = new ArrayList<>(restoreStateHandles.size());
 		if (initialHandle != null) {
+			assert (initialHandle instanceof IncrementalRemoteKeyedStateHandle);
 			restoreStateHandles.remove(initialHandle);
-			initDBWithRescaling(initialHandle);
-		} else {
-			openDB();
+			remoteStateHandles.add((IncrementalRemoteKeyedStateHandle) initialHandle);
 		}
 
-		// Transfer remaining key-groups from temporary instance into base DB
-		byte[] startKeyGroupPrefixBytes = new byte[keyGroupPrefixBytes];
-		RocksDBKeySerializationUtils.serializeKeyGroup(keyGroupRange.getStartKeyGroup(), startKeyGroupPrefixBytes);
-
-		byte[] stopKeyGroupPrefixBytes = new byte[keyGroupPrefixBytes];
-		RocksDBKeySerializationUtils.serializeKeyGroup(keyGroupRange.getEndKeyGroup() + 1, stopKeyGroupPrefixBytes);
-
 		for (KeyedStateHandle rawStateHandle : restoreStateHandles) {
 
 			if (!(rawStateHandle instanceof IncrementalRemoteKeyedStateHandle)) {
@@ -293,53 +327,124 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 					", but found " + rawStateHandle.getClass());
 			}
 
-			Path temporaryRestoreInstancePath = instanceBasePath.getAbsoluteFile().toPath().resolve(UUID.randomUUID().toString());
-			try (RestoredDBInstance tmpRestoreDBInfo = restoreDBInstanceFromStateHandle(
-				(IncrementalRemoteKeyedStateHandle) rawStateHandle,
-				temporaryRestoreInstancePath);
-				RocksDBWriteBatchWrapper writeBatchWrapper = new RocksDBWriteBatchWrapper(this.db, writeBatchSize)) {
-
-				List<ColumnFamilyDescriptor> tmpColumnFamilyDescriptors = tmpRestoreDBInfo.columnFamilyDescriptors;
-				List<ColumnFamilyHandle> tmpColumnFamilyHandles = tmpRestoreDBInfo.columnFamilyHandles;
-
-				// iterating only the requested descriptors automatically skips the default column family handle
-				for (int i = 0; i < tmpColumnFamilyDescriptors.size(); ++i) {
-					ColumnFamilyHandle tmpColumnFamilyHandle = tmpColumnFamilyHandles.get(i);
+			remoteStateHandles.add((IncrementalRemoteKeyedStateHandle) rawStateHandle);
+		}
 
-					ColumnFamilyHandle targetColumnFamilyHandle = getOrRegisterStateColumnFamilyHandle(
-						null, tmpRestoreDBInfo.stateMetaInfoSnapshots.get(i))
-						.columnFamilyHandle;
+		try (RemoteStatePrefetcher remoteStatePrefetcher = new RemoteStatePrefetcher(remoteStateHandles)) {
 
-					try (RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(tmpRestoreDBInfo.db, tmpColumnFamilyHandle, tmpRestoreDBInfo.readOptions)) {
+			// Init base DB instance
+			if (initialHandle != null) {
+				initDBWithRescaling(
+					(IncrementalRemoteKeyedStateHandle) initialHandle,
+					remoteStatePrefetcher.awaitDownload((IncrementalRemoteKeyedStateHandle) initialHandle));
+			} else {
+				openDB();
+			}
 
-						iterator.seek(startKeyGroupPrefixBytes);
+			// Transfer remaining key-groups from temporary instance into base DB
+			byte[] startKeyGroupPrefixBytes = new byte[keyGroupPrefixBytes];
+			RocksDBKeySerializationUtils.serializeKeyGroup(keyGroupRange.getStartKeyGroup(), startKeyGroupPrefixBytes);
+
+			byte[] stopKeyGroupPrefixBytes = new byte[keyGroupPrefixBytes];
+			RocksDBKeySerializationUtils.serializeKeyGroup(keyGroupRange.getEndKeyGroup() + 1, stopKeyGroupPrefixBytes);
+
+			for (KeyedStateHandle rawStateHandle : restoreStateHandles) {
+
+				IncrementalRemoteKeyedStateHandle stateHandle = (IncrementalRemoteKeyedStateHandle) rawStateHandle;
+				Path temporaryRestoreInstancePath = remoteStatePrefetcher.awaitDownload(stateHandle);
+				try (RestoredDBInstance tmpRestoreDBInfo = restoreDBInstanceFromStateHandle(
+					stateHandle,
+					temporaryRestoreInstancePath)) {
+
+					List<ColumnFamilyDescriptor> tmpColumnFamilyDescriptors = tmpRestoreDBInfo.columnFamilyDescriptors;
+
+					// iterating only the requested descriptors automatically skips the default column family handle
+					for (int i = 0; i < tmpColumnFamilyDescriptors.size(); ++i) {
+						ColumnFamilyHandle targetColumnFamilyHandle = getOrRegisterStateColumnFamilyHandle(
+							null, tmpRestoreDBInfo.stateMetaInfoSnapshots.get(i))
+							.columnFamilyHandle;
+
+						ingestKeyGroupsFromTemporaryInstance(
+							tmpRestoreDBInfo,
+							i,
+							targetColumnFamilyHandle,
+							startKeyGroupPrefixBytes,
+							stopKeyGroupPrefixBytes,
+							temporaryRestoreInstancePath.resolve("ingest-" + i + SST_FILE_SUFFIX));
+					}
+				} finally {
+					cleanUpPathQuietly(temporaryRestoreInstancePath);
+				}
+			}
+		}
+	}
 
-						while (iterator.isValid()) {
+	/**
+	 * Writes the entries of the target key-group range from a column family of the temporary instance into an SST
+	 * file, which is then ingested into the column family of the base DB. Unlike writing the entries into the base
+	 * DB one by one, this bypasses its memtables and does not cause flushes and compactions during the restore.
+	 */
+	private void ingestKeyGroupsFromTemporaryInstance(
+		RestoredDBInstance tmpRestoreDBInfo,
+		int columnFamilyIndex,
+		ColumnFamilyHandle targetColumnFamilyHandle,
+		byte[] startKeyGroupPrefixBytes,
+		byte[] stopKeyGroupPrefixBytes,
+		Path sstFilePath) throws RocksDBException {
+
+		boolean hasEntries = false;
+		try (Options options = new Options(
+				dbOptions, tmpRestoreDBInfo.columnFamilyDescriptors.get(columnFamilyIndex).getOptions());
+			EnvOptions envOptions = new EnvOptions();
+			SstFileWriter sstFileWriter = new SstFileWriter(envOptions, options);
+			RocksIteratorWrapper iterator = RocksDBOperationUtils.getRocksIterator(
+				tmpRestoreDBInfo.db,
+				tmpRestoreDBInfo.columnFamilyHandles.get(columnFamilyIndex),
+				tmpRestoreDBInfo.readOptions)) {
+
+			iterator.seek(startKeyGroupPrefixBytes);
+
+			// Since the iterator will visit the record according to the sorted order, which is also the order in
+			// which the SST file has to be written, we can stop at the first record after the key-group range.
+			while (iterator.isValid() &&
+				RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(iterator.key(), stopKeyGroupPrefixBytes)) {
+
+				if (!hasEntries) {
+					sstFileWriter.open(sstFilePath.toString());
+					hasEntries = true;
+				}
+				sstFileWriter.put(iterator.key(), iterator.value());
+				iterator.next();
+			}
 
-							if (RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(iterator.key(), stopKeyGroupPrefixBytes)) {
-								writeBatchWrapper.put(targetColumnFamilyHandle, iterator.key(), iterator.value());
-							} else {
-								// Since the iterator will visit the record according to the sorted order,
-								// we can just break here.
-								break;
-							}
+			// RocksDB cannot write SST files without entries
+			if (hasEntries) {
+				sstFileWriter.finish();
+			}
+		}
 
-							iterator.next();
-						}
-					} // releases native iterator resources
-				}
-			} finally {
-				cleanUpPathQuietly(temporaryRestoreInstancePath);
+		if (hasEntries) {
+			try (IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions()) {
+				// the file is linked into the base DB instead of copied, it is on the same file system
+				ingestOptions.setMoveFiles(true);
+				db.ingestExternalFile(
+					targetColumnFamilyHandle,
+					Collections.singletonList(sstFilePath.toString()),
+					ingestOptions);
 			}
 		}
 	}
 
-	private void initDBWithRescaling(KeyedStateHandle initialHandle) throws Exception {
-
-		assert (initialHandle instanceof IncrementalRemoteKeyedStateHandle);
+	private void initDBWithRescaling(
+		IncrementalRemoteKeyedStateHandle initialHandle,
+		Path downloadedInstancePath) throws Exception {
 
 		// 1. Restore base DB from selected initial handle
-		restoreFromRemoteState((IncrementalRemoteKeyedStateHandle) initialHandle);
+		try {
+			restoreFromDownloadedState(downloadedInstancePath, initialHandle);
+		} finally {
+			cleanUpPathQuietly(downloadedInstancePath);
+		}
 
 		// 2. Clip the base DB instance
 		try {
@@ -348,8 +453,7 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 				columnFamilyHandles,
 				keyGroupRange,
 				initialHandle.getKeyGroupRange(),
-				keyGroupPrefixBytes,
-				writeBatchSize);
+				keyGroupPrefixBytes);
 		} catch (RocksDBException e) {
 			String errMsg = "Failed to clip DB after initialization.";
 			LOG.error(errMsg, e);
@@ -357,6 +461,101 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 		}
 	}
 
+	/**
+	 * Downloads the files of the state handles of a restore with rescaling in their restore order, up to
+	 * {@link #restorePrefetchNum} state handles ahead of the one that is currently restored. The downloads of the
+	 * state handles run one after another on a single background thread, each of them with
+	 * {@link #numberOfTransferringThreads} threads.
+	 */
+	private class RemoteStatePrefetcher implements AutoCloseable {
+
+		private final ExecutorService executorService;
+
+		private final Iterator<IncrementalRemoteKeyedStateHandle> pendingStateHandles;
+
+		private final ArrayDeque<PrefetchedState> prefetchedStates;
+
+		RemoteStatePrefetcher(List<IncrementalRemoteKeyedStateHandle> stateHandles) {
+			this.executorService = restorePrefetchNum > 0 ?
+				Executors.newSingleThreadExecutor(new ExecutorThreadFactory("rocksdb-restore-prefetch-" + operatorIdentifier)) :
+				newDirectExecutorService();
+			this.pendingStateHandles = stateHandles.iterator();
+			this.prefetchedStates = new ArrayDeque<>(restorePrefetchNum + 1);
+		}
+
+		/**
+		 * Waits until the files of the given state handle, which has to be the next one in the restore order, are
+		 * downloaded and returns their directory. The caller is responsible for cleaning up the directory.
+		 */
+		Path awaitDownload(IncrementalRemoteKeyedStateHandle stateHandle) throws Exception {
+			while (prefetchedStates.size() <= restorePrefetchNum && pendingStateHandles.hasNext()) {
+				IncrementalRemoteKeyedStateHandle pendingStateHandle = pendingStateHandles.next();
+				Path path = instanceBasePath.getAbsoluteFile().toPath().resolve(UUID.randomUUID().toString());
+				CompletableFuture<Void> download = CompletableFuture.runAsync(
+					ThrowingRunnable.unchecked(() -> transferRemoteStateToLocalDirectory(path, pendingStateHandle)),
+					executorService);
+				prefetchedStates.add(new PrefetchedState(pendingStateHandle, path, download));
+			}
+
+			PrefetchedState prefetchedState = prefetchedStates.poll();
+			checkState(prefetchedState != null && prefetchedState.stateHandle == stateHandle,
+				"State handles have to be restored in the order in which they are prefetched.");
+
+			try {
+				prefetchedState.download.get();
+			} catch (ExecutionException e) {
+				cleanUpPathQuietly(prefetchedState.path);
+				Throwable throwable = ExceptionUtils.stripExecutionException(e);
+				throwable = ExceptionUtils.stripException(throwable, RuntimeException.class);
+				ExceptionUtils.rethrowException(throwable, "Failed to download the state of " + stateHandle + '.');
+			}
+			return prefetchedState.path;
+		}
+
+		@Override
+		public void close() {
+			executorService.shutdownNow();
+			if (prefetchedStates.isEmpty()) {
+				return;
+			}
+
+			// the restore failed, wait for the downloads in progress before their directories are removed
+			try {
+				if (!executorService.awaitTermination(1L, TimeUnit.MINUTES)) {
+					LOG.warn("Prefetching the state of operator {} did not stop in time.", operatorIdentifier);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			for (PrefetchedState prefetchedState : prefetchedStates) {
+				cleanUpPathQuietly(prefetchedState.path);
+			}
+			prefetchedStates.clear();
+		}
+	}
+
+	/**
+	 * The download of a state handle into a temporary directory.
+	 */
+	private static final class PrefetchedState {
+
+		private final IncrementalRemoteKeyedStateHandle stateHandle;
+
+		private final Path path;
+
+		private final CompletableFuture<Void> download;
+
+		private PrefetchedState(
+			IncrementalRemoteKeyedStateHandle stateHandle,
+			Path path,
+			CompletableFuture<Void> download) {
+			this.stateHandle = stateHandle;
+			this.path = path;
+			this.download = download;
+		}
+	}
+
 	/**
 	 * Entity to hold the temporary RocksDB instance created for restore.
 	 */
@@ -409,14 +608,6 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
 		IncrementalRemoteKeyedStateHandle restoreStateHandle,
 		Path temporaryRestoreInstancePath) throws Exception {
 
-		try (RocksDBStateDownloader rocksDBStateDownloader =
-				new RocksDBStateDownloader(numberOfTransferringThreads)) {
-			rocksDBStateDownloader.transferAllStateDataToDirectory(
-				restoreStateHandle,
-				temporaryRestoreInstancePath,
-				cancelStreamRegistry);
-		}
-
 		KeyedBackendSerializationProxy<K> serializationProxy = readMetaData(restoreStateHandle.getMetaStateHandle());
 		// read meta data
 		List<StateMetaInfoSnapshot> stateMetaInfoSnapshots = serializationProxy.getStateMetaInfoSnapshots();
@@ -145,8 +145,7 @@ public class RocksDBIncrementalCheckpointUtilsTest extends TestLogger {
 				Collections.singletonList(columnFamilyHandle),
 				targetGroupRange,
 				currentGroupRange,
-				keyGroupPrefixBytes,
-				RocksDBConfigurableOptions.WRITE_BATCH_SIZE.defaultValue().getBytes());
+				keyGroupPrefixBytes);
 
 			for (int i = currentGroupRangeStart; i <= currentGroupRangeEnd; ++i) {
 				for (int j = 0; j < 100; ++j) {
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.WriteOptions;
+
+import static org.apache.flink.contrib.streaming.state.RocksDBConfigurableOptions.WRITE_BATCH_SIZE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests to guard {@link RocksDBIndexedWriteBatchWrapper}.
+ */
+public class RocksDBIndexedWriteBatchWrapperTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReadYourBufferedWrites() throws Exception {
+		try (RocksDB db = RocksDB.open(folder.newFolder().getAbsolutePath());
+			WriteOptions writeOptions = new WriteOptions().setDisableWAL(true);
+			ReadOptions readOptions = new ReadOptions();
+			ColumnFamilyHandle handle = db.createColumnFamily(new ColumnFamilyDescriptor("test".getBytes()));
+			RocksDBIndexedWriteBatchWrapper writeBatchWrapper = new RocksDBIndexedWriteBatchWrapper(
+				db, writeOptions, readOptions, WRITE_BATCH_SIZE.defaultValue().getBytes())) {
+
+			byte[] persistedKey = "persisted".getBytes();
+			byte[] bufferedKey = "buffered".getBytes();
+			db.put(handle, writeOptions, persistedKey, "old".getBytes());
+
+			writeBatchWrapper.put(handle, bufferedKey, "v1".getBytes());
+			writeBatchWrapper.put(handle, bufferedKey, "v2".getBytes());
+			writeBatchWrapper.remove(handle, persistedKey);
+			assertFalse(writeBatchWrapper.isEmpty());
+
+			// the buffered writes are visible through the wrapper, but not yet in the db
+			assertArrayEquals("v2".getBytes(), writeBatchWrapper.get(handle, bufferedKey));
+			assertNull(writeBatchWrapper.get(handle, persistedKey));
+			assertNull(db.get(handle, bufferedKey));
+			assertArrayEquals("old".getBytes(), db.get(handle, persistedKey));
+
+			writeBatchWrapper.flush();
+			assertTrue(writeBatchWrapper.isEmpty());
+			assertArrayEquals("v2".getBytes(), db.get(handle, bufferedKey));
+			assertNull(db.get(handle, persistedKey));
+		}
+	}
+
+	@Test
+	public void testFlushAfterCountExceed() throws Exception {
+		try (RocksDB db = RocksDB.open(folder.newFolder().getAbsolutePath());
+			WriteOptions writeOptions = new WriteOptions().setDisableWAL(true);
+			ReadOptions readOptions = new ReadOptions();
+			ColumnFamilyHandle handle = db.createColumnFamily(new ColumnFamilyDescriptor("test".getBytes()));
+			RocksDBIndexedWriteBatchWrapper writeBatchWrapper = new RocksDBIndexedWriteBatchWrapper(
+				db, writeOptions, readOptions, 10, 0)) {
+
+			for (int i = 1; i < 10; ++i) {
+				writeBatchWrapper.put(handle, ("key:" + i).getBytes(), ("value:" + i).getBytes());
+				assertEquals(i, writeBatchWrapper.getCount());
+			}
+			assertNull(db.get(handle, "key:1".getBytes()));
+
+			writeBatchWrapper.put(handle, "key:10".getBytes(), "value:10".getBytes());
+			assertTrue(writeBatchWrapper.isEmpty());
+			for (int i = 1; i <= 10; ++i) {
+				assertArrayEquals(("value:" + i).getBytes(), db.get(handle, ("key:" + i).getBytes()));
+			}
+		}
+	}
+
+	@Test
+	public void testFlushAfterMemorySizeExceed() throws Exception {
+		try (RocksDB db = RocksDB.open(folder.newFolder().getAbsolutePath());
+			WriteOptions writeOptions = new WriteOptions().setDisableWAL(true);
+			ReadOptions readOptions = new ReadOptions();
+			ColumnFamilyHandle handle = db.createColumnFamily(new ColumnFamilyDescriptor("test".getBytes()));
+			RocksDBIndexedWriteBatchWrapper writeBatchWrapper = new RocksDBIndexedWriteBatchWrapper(
+				db, writeOptions, readOptions, 1000, 30)) {
+
+			byte[] dummy = new byte[6];
+			writeBatchWrapper.put(handle, dummy, dummy);
+			assertEquals(12, writeBatchWrapper.getDataSize());
+			writeBatchWrapper.put(handle, dummy, dummy);
+			assertEquals(24, writeBatchWrapper.getDataSize());
+			writeBatchWrapper.put(handle, dummy, dummy);
+			assertEquals(0, writeBatchWrapper.getDataSize());
+			assertArrayEquals(dummy, db.get(handle, dummy));
+		}
+	}
+
+	@Test
+	public void testCloseFlushes() throws Exception {
+		try (RocksDB db = RocksDB.open(folder.newFolder().getAbsolutePath());
+			WriteOptions writeOptions = new WriteOptions().setDisableWAL(true);
+			ReadOptions readOptions = new ReadOptions();
+			ColumnFamilyHandle handle = db.createColumnFamily(new ColumnFamilyDescriptor("test".getBytes()))) {
+
+			RocksDBIndexedWriteBatchWrapper writeBatchWrapper = new RocksDBIndexedWriteBatchWrapper(
+				db, writeOptions, readOptions, WRITE_BATCH_SIZE.defaultValue().getBytes());
+			writeBatchWrapper.put(handle, "key".getBytes(), "value".getBytes());
+			writeBatchWrapper.close();
+
+			assertArrayEquals("value".getBytes(), db.get(handle, "key".getBytes()));
+		}
+	}
+}
@@ -100,14 +100,24 @@ public class RocksDBStateBackendTest extends StateBackendTestBase<RocksDBStateBa
 	private ValueState<Integer> testState1;
 	private ValueState<String> testState2;
 
-	@Parameterized.Parameters(name = "Incremental checkpointing: {0}")
-	public static Collection<Boolean> parameters() {
-		return Arrays.asList(false, true);
+	@Parameterized.Parameters(name = "Incremental checkpointing: {0}, batched state writes: {1}, value state cache: {2}")
+	public static Collection<Object[]> parameters() {
+		return Arrays.asList(new Object[][] {
+			{false, false, 0},
+			{true, false, 0},
+			{true, true, 100}
+		});
 	}
 
 	@Parameterized.Parameter
 	public boolean enableIncrementalCheckpointing;
 
+	@Parameterized.Parameter(1)
+	public boolean enableBatchedStateWrites;
+
+	@Parameterized.Parameter(2)
+	public int valueStateCacheSize;
+
 	@Rule
 	public final TemporaryFolder tempFolder = new TemporaryFolder();
 
@@ -136,6 +146,8 @@ public class RocksDBStateBackendTest extends StateBackendTestBase<RocksDBStateBa
 		configuration.set(RocksDBOptions.TIMER_SERVICE_FACTORY, RocksDBStateBackend.PriorityQueueStateType.ROCKSDB);
 		backend = backend.configure(configuration, Thread.currentThread().getContextClassLoader());
 		backend.setDbStoragePath(dbPath);
+		backend.setBatchedStateWrites(enableBatchedStateWrites);
+		backend.setValueStateCacheSize(valueStateCacheSize);
 		return backend;
 	}
 
@@ -20,10 +20,13 @@ package org.apache.flink.contrib.streaming.state;
 
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
 import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.filesystem.FileStateHandle;
 import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
 import org.apache.flink.util.TestLogger;
 
@@ -31,6 +34,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -45,6 +49,7 @@ import java.util.UUID;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -149,6 +154,119 @@ public class RocksDBStateDownloaderTest extends TestLogger {
 		}
 	}
 
+	/**
+	 * Tests that files larger than the part size are downloaded in several parts correctly.
+	 */
+	@Test
+	public void testMultiPartRestoreCorrectly() throws Exception {
+		Random random = new Random();
+		int contentNum = 6;
+		byte[][] contents = new byte[contentNum][];
+		Map<StateHandleID, StreamStateHandle> sharedStates = new HashMap<>(contentNum);
+		for (int i = 0; i < contentNum; ++i) {
+			contents[i] = new byte[random.nextInt(100000) + 1];
+			random.nextBytes(contents[i]);
+			sharedStates.put(new StateHandleID(String.format("sharedState%d", i)), createFileStateHandle(contents[i]));
+		}
+
+		IncrementalRemoteKeyedStateHandle incrementalKeyedStateHandle =
+			new IncrementalRemoteKeyedStateHandle(
+				UUID.randomUUID(),
+				KeyGroupRange.of(0, 1),
+				1,
+				sharedStates,
+				new HashMap<>(),
+				sharedStates.values().iterator().next());
+
+		Path dstPath = temporaryFolder.newFolder().toPath();
+		try (RocksDBStateDownloader rocksDBStateDownloader = new RocksDBStateDownloader(5, 1000)) {
+			rocksDBStateDownloader.transferAllStateDataToDirectory(incrementalKeyedStateHandle, dstPath, new CloseableRegistry());
+		}
+
+		for (int i = 0; i < contentNum; ++i) {
+			assertStateContentEqual(contents[i], dstPath.resolve(String.format("sharedState%d", i)));
+		}
+	}
+
+	/**
+	 * Tests that every downloaded file is reported once to the download histograms, regardless of its number of parts.
+	 */
+	@Test
+	public void testDownloadMetrics() throws Exception {
+		int[] sizes = {500, 2500, 10000};
+		Map<StateHandleID, StreamStateHandle> sharedStates = new HashMap<>(sizes.length);
+		for (int i = 0; i < sizes.length; ++i) {
+			byte[] content = new byte[sizes[i]];
+			new Random().nextBytes(content);
+			sharedStates.put(new StateHandleID(String.format("sharedState%d", i)), createFileStateHandle(content));
+		}
+
+		IncrementalRemoteKeyedStateHandle incrementalKeyedStateHandle =
+			new IncrementalRemoteKeyedStateHandle(
+				UUID.randomUUID(),
+				KeyGroupRange.of(0, 1),
+				1,
+				sharedStates,
+				new HashMap<>(),
+				sharedStates.values().iterator().next());
+
+		Histogram fileSizeHistogram = new DescriptiveStatisticsHistogram(10);
+		Histogram fileDurationHistogram = new DescriptiveStatisticsHistogram(10);
+		try (RocksDBStateDownloader rocksDBStateDownloader =
+				new RocksDBStateDownloader(5, 1000, fileSizeHistogram, fileDurationHistogram)) {
+			rocksDBStateDownloader.transferAllStateDataToDirectory(
+				incrementalKeyedStateHandle,
+				temporaryFolder.newFolder().toPath(),
+				new CloseableRegistry());
+		}
+
+		// the private state is empty, so only the shared files are downloaded
+		assertEquals(sizes.length, fileSizeHistogram.getCount());
+		assertEquals(500L, fileSizeHistogram.getStatistics().getMin());
+		assertEquals(10000L, fileSizeHistogram.getStatistics().getMax());
+		assertEquals(sizes.length, fileDurationHistogram.getCount());
+		assertTrue(fileDurationHistogram.getStatistics().getMin() >= 1L);
+	}
+
+	/**
+	 * Tests that a multi-part download fails if the file is larger than the size of its state handle.
+	 */
+	@Test
+	public void testMultiPartRestoreFailsOnSizeMismatch() throws Exception {
+		byte[] content = new byte[10000];
+		new Random().nextBytes(content);
+		FileStateHandle fileStateHandle = createFileStateHandle(content);
+		StreamStateHandle stateHandle = new FileStateHandle(fileStateHandle.getFilePath(), content.length - 1);
+
+		Map<StateHandleID, StreamStateHandle> sharedStates = new HashMap<>(1);
+		sharedStates.put(new StateHandleID("sharedState"), stateHandle);
+
+		IncrementalRemoteKeyedStateHandle incrementalKeyedStateHandle =
+			new IncrementalRemoteKeyedStateHandle(
+				UUID.randomUUID(),
+				KeyGroupRange.of(0, 1),
+				1,
+				sharedStates,
+				new HashMap<>(),
+				stateHandle);
+
+		try (RocksDBStateDownloader rocksDBStateDownloader = new RocksDBStateDownloader(5, 1000)) {
+			rocksDBStateDownloader.transferAllStateDataToDirectory(
+				incrementalKeyedStateHandle,
+				temporaryFolder.newFolder().toPath(),
+				new CloseableRegistry());
+			fail();
+		} catch (IOException expected) {
+			// expected
+		}
+	}
+
+	private FileStateHandle createFileStateHandle(byte[] content) throws IOException {
+		File file = temporaryFolder.newFile();
+		Files.write(file.toPath(), content);
+		return new FileStateHandle(new org.apache.flink.core.fs.Path(file.toURI()), content.length);
+	}
+
 	private void assertStateContentEqual(byte[] expected, Path path) throws IOException {
 		byte[] actual = Files.readAllBytes(Paths.get(path.toUri()));
 		assertArrayEquals(expected, actual);
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link RocksDBTransferConcurrency}.
+ */
+public class RocksDBTransferConcurrencyTest extends TestLogger {
+
+	private static final int MAX_CONCURRENCY = 4;
+
+	private static final int NUM_WINDOWS = 20;
+
+	@Test
+	public void testKeepsLimitIfThroughputScales() throws Exception {
+		assertEquals(MAX_CONCURRENCY, runWindows(limit -> 100.0 * limit));
+	}
+
+	@Test
+	public void testReducesLimitIfThroughputDoesNotScale() throws Exception {
+		assertEquals(MAX_CONCURRENCY - 1, runWindows(limit -> 100.0));
+	}
+
+	@Test
+	public void testReducesLimitIfTransfersAreThrottled() throws Exception {
+		assertEquals(1, runWindows(limit -> 100.0 / limit));
+	}
+
+	@Test
+	public void testIncreasesLimitAgainIfThroughputScales() throws Exception {
+		AtomicLong clock = new AtomicLong();
+		RocksDBTransferConcurrency concurrency = new RocksDBTransferConcurrency(MAX_CONCURRENCY, clock::get);
+		runWindows(concurrency, clock, limit -> 100.0 / limit);
+		assertEquals(1, concurrency.getLimit());
+
+		// e.g. the throttling of the file system ended
+		runWindows(concurrency, clock, limit -> 1000.0 * limit);
+		assertEquals(MAX_CONCURRENCY, concurrency.getLimit());
+	}
+
+	private static int runWindows(IntToDoubleFunction throughputOfLimit) throws Exception {
+		AtomicLong clock = new AtomicLong();
+		RocksDBTransferConcurrency concurrency = new RocksDBTransferConcurrency(MAX_CONCURRENCY, clock::get);
+		runWindows(concurrency, clock, throughputOfLimit);
+		return concurrency.getLimit();
+	}
+
+	/**
+	 * Runs transfers one after another at the throughput that the current limit would reach.
+	 */
+	private static void runWindows(
+		RocksDBTransferConcurrency concurrency,
+		AtomicLong clock,
+		IntToDoubleFunction throughputOfLimit) throws Exception {
+
+		for (int i = 0; i < NUM_WINDOWS; i++) {
+			int limit = concurrency.getLimit();
+			for (int j = 0; j < 2 * limit; j++) {
+				transfer(concurrency, clock, throughputOfLimit.applyAsDouble(limit));
+			}
+		}
+	}
+
+	private static void transfer(
+		RocksDBTransferConcurrency concurrency,
+		AtomicLong clock,
+		double bytesPerNano) throws Exception {
+
+		concurrency.acquire();
+		clock.addAndGet(1000L);
+		concurrency.release((long) (bytesPerNano * 1000L));
+	}
+}
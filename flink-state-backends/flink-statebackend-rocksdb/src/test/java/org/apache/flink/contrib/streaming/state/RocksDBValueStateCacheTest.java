@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link RocksDBValueStateCache}.
+ */
+public class RocksDBValueStateCacheTest extends TestLogger {
+
+	@Test
+	public void testHitsAndMisses() {
+		RocksDBValueStateCache<Integer, VoidNamespace, String> cache = new RocksDBValueStateCache<>(10);
+
+		assertNull(cache.get(1, VoidNamespace.INSTANCE));
+		cache.put(1, VoidNamespace.INSTANCE, "one");
+		assertEquals("one", cache.get(1, VoidNamespace.INSTANCE));
+		assertEquals("one", cache.get(1, VoidNamespace.INSTANCE));
+
+		assertEquals(2L, cache.getHitCount());
+		assertEquals(1L, cache.getMissCount());
+		assertEquals(2.0 / 3.0, cache.getHitRate(), 0.0);
+	}
+
+	@Test
+	public void testAbsentValues() {
+		RocksDBValueStateCache<Integer, VoidNamespace, String> cache = new RocksDBValueStateCache<>(10);
+
+		cache.put(1, VoidNamespace.INSTANCE, null);
+		assertTrue(RocksDBValueStateCache.isAbsent(cache.get(1, VoidNamespace.INSTANCE)));
+
+		cache.put(1, VoidNamespace.INSTANCE, "one");
+		assertEquals("one", cache.get(1, VoidNamespace.INSTANCE));
+	}
+
+	@Test
+	public void testNamespacesAreDistinct() {
+		RocksDBValueStateCache<Integer, String, String> cache = new RocksDBValueStateCache<>(10);
+
+		cache.put(1, "a", "1a");
+		cache.put(1, "b", "1b");
+		assertEquals("1a", cache.get(1, "a"));
+		assertEquals("1b", cache.get(1, "b"));
+		assertNull(cache.get(2, "a"));
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		RocksDBValueStateCache<Integer, VoidNamespace, String> cache = new RocksDBValueStateCache<>(2);
+
+		cache.put(1, VoidNamespace.INSTANCE, "one");
+		cache.put(2, VoidNamespace.INSTANCE, "two");
+		// access 1, so that 2 becomes least recently used
+		cache.get(1, VoidNamespace.INSTANCE);
+		cache.put(3, VoidNamespace.INSTANCE, "three");
+
+		assertEquals(2, cache.size());
+		assertEquals("one", cache.get(1, VoidNamespace.INSTANCE));
+		assertNull(cache.get(2, VoidNamespace.INSTANCE));
+		assertEquals("three", cache.get(3, VoidNamespace.INSTANCE));
+
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+}
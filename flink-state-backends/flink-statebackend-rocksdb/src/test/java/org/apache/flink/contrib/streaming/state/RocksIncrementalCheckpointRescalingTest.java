@@ -21,19 +21,34 @@ package org.apache.flink.contrib.streaming.state;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.contrib.streaming.state.RocksDBKeyedStateBackend.RocksDbKvStateInfo;
+import org.apache.flink.contrib.streaming.state.restore.RocksDBIncrementalRestoreOperation;
+import org.apache.flink.contrib.streaming.state.ttl.RocksDbTtlCompactFiltersManager;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
 import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
 import org.apache.flink.runtime.checkpoint.StateAssignmentOperation;
+import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StateSerializerProvider;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
 import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
 import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.util.AbstractStreamOperatorTestHarness;
 import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
 import org.apache.flink.util.Collector;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.TestLogger;
 
 import org.junit.Assert;
@@ -41,14 +56,37 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
-
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Tests to guard rescaling from checkpoint.
  */
+@RunWith(Parameterized.class)
 public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 
+	@Parameterized.Parameters(name = "Restore prefetch num: {0}")
+	public static Collection<Integer> parameters() {
+		// no prefetching, prefetching one state handle, and prefetching more than the number of state handles
+		return Arrays.asList(0, 1, 5);
+	}
+
+	@Parameterized.Parameter
+	public int restorePrefetchNum;
+
 	@Rule
 	public TemporaryFolder rootFolder = new TemporaryFolder();
 
@@ -351,6 +389,135 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 		}
 	}
 
+	/**
+	 * Tests that a failing download of a state handle during a restore with rescaling removes the directories of
+	 * all prefetched state handles and stops the prefetching.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testFailingDownloadCleansUpPrefetchedStates() throws Exception {
+		KeyedOneInputStreamOperatorTestHarness<String, String, Integer>[] harness3 = new KeyedOneInputStreamOperatorTestHarness[3];
+		OperatorSubtaskState snapshot3;
+
+		try {
+			for (int i = 0; i < harness3.length; i++) {
+				harness3[i] = getHarnessTest(keySelector, maxParallelism, 3, i);
+				harness3[i].setStateBackend(getStateBackend());
+				harness3[i].open();
+			}
+
+			validHarnessResult(harness3[0], 1, records[0], records[1], records[2], records[3]);
+			validHarnessResult(harness3[1], 1, records[4], records[5], records[6]);
+			validHarnessResult(harness3[2], 1, records[7], records[8], records[9]);
+
+			snapshot3 = AbstractStreamOperatorTestHarness.repackageState(
+				harness3[0].snapshot(0, 0),
+				harness3[1].snapshot(0, 0),
+				harness3[2].snapshot(0, 0)
+			);
+		} finally {
+			closeHarness(harness3);
+		}
+
+		// the state handle of key-groups [4, 6] is not the initial one and fails to download, the state handle of
+		// key-groups [7, 9] is prefetched behind it if the prefetch num allows it
+		IOException expectedException = new IOException("Test download failure.");
+		List<KeyedStateHandle> restoreStateHandles = new ArrayList<>();
+		for (KeyedStateHandle stateHandle : snapshot3.getManagedKeyedState()) {
+			if (stateHandle.getKeyGroupRange().equals(new KeyGroupRange(4, 6))) {
+				stateHandle = withFailingSharedState((IncrementalRemoteKeyedStateHandle) stateHandle, expectedException);
+			}
+			restoreStateHandles.add(stateHandle);
+		}
+		Assert.assertEquals(3, restoreStateHandles.size());
+
+		String operatorIdentifier = "failing-download-" + restorePrefetchNum;
+		File instanceBasePath = rootFolder.newFolder();
+		File instanceRocksDBPath = new File(instanceBasePath, "db");
+		Map<String, RocksDbKvStateInfo> kvStateInformation = new LinkedHashMap<>();
+
+		try (DBOptions dbOptions = new DBOptions().setCreateIfMissing(true);
+			RocksDBIncrementalRestoreOperation<String> restoreOperation = new RocksDBIncrementalRestoreOperation<>(
+				operatorIdentifier,
+				new KeyGroupRange(0, maxParallelism - 1),
+				RocksDBKeySerializationUtils.computeRequiredBytesInKeyGroupPrefix(maxParallelism),
+				1,
+				new CloseableRegistry(),
+				getClass().getClassLoader(),
+				kvStateInformation,
+				StateSerializerProvider.fromNewRegisteredSerializer(StringSerializer.INSTANCE),
+				instanceBasePath,
+				instanceRocksDBPath,
+				dbOptions,
+				name -> new ColumnFamilyOptions(),
+				new RocksDBNativeMetricOptions(),
+				new UnregisteredMetricsGroup(),
+				restoreStateHandles,
+				new RocksDbTtlCompactFiltersManager(TtlTimeProvider.DEFAULT),
+				RocksDBOptions.CHECKPOINT_TRANSFER_PART_SIZE.defaultValue().getBytes(),
+				restorePrefetchNum)) {
+
+			try {
+				restoreOperation.restore();
+				Assert.fail("Expected the restore to fail.");
+			} catch (Exception e) {
+				Assert.assertTrue(ExceptionUtils.findThrowable(e, expectedException::equals).isPresent());
+			}
+		} finally {
+			kvStateInformation.values().forEach(stateInfo -> IOUtils.closeQuietly(stateInfo.columnFamilyHandle));
+		}
+
+		// only the directory of the base DB is left
+		File[] files = instanceBasePath.listFiles();
+		Assert.assertNotNull(files);
+		for (File file : files) {
+			Assert.assertEquals(instanceRocksDBPath, file);
+		}
+
+		// the prefetching thread has stopped
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("rocksdb-restore-prefetch-" + operatorIdentifier)) {
+				thread.join(10_000L);
+				Assert.assertFalse(thread.isAlive());
+			}
+		}
+	}
+
+	private static IncrementalRemoteKeyedStateHandle withFailingSharedState(
+		IncrementalRemoteKeyedStateHandle stateHandle,
+		IOException exception) {
+
+		Map<StateHandleID, StreamStateHandle> sharedState = new HashMap<>(stateHandle.getSharedState());
+		sharedState.put(new StateHandleID("failing.sst"), new StreamStateHandle() {
+			@Override
+			public FSDataInputStream openInputStream() throws IOException {
+				throw exception;
+			}
+
+			@Override
+			public Optional<byte[]> asBytesIfInMemory() {
+				return Optional.empty();
+			}
+
+			@Override
+			public void discardState() {
+			}
+
+			@Override
+			public long getStateSize() {
+				return 0;
+			}
+		});
+
+		return new IncrementalRemoteKeyedStateHandle(
+			stateHandle.getBackendIdentifier(),
+			stateHandle.getKeyGroupRange(),
+			stateHandle.getCheckpointId(),
+			sharedState,
+			stateHandle.getPrivateState(),
+			stateHandle.getMetaStateHandle());
+	}
+
 	private void closeHarness(KeyedOneInputStreamOperatorTestHarness<?, ?, ?>[] harnessArr) throws Exception {
 		for (KeyedOneInputStreamOperatorTestHarness<?, ?, ?> harness : harnessArr) {
 			if (harness != null) {
@@ -387,7 +554,9 @@ public class RocksIncrementalCheckpointRescalingTest extends TestLogger {
 	}
 
 	private StateBackend getStateBackend() throws Exception {
-		return new RocksDBStateBackend("file://" + rootFolder.newFolder().getAbsolutePath(), true);
+		RocksDBStateBackend stateBackend = new RocksDBStateBackend("file://" + rootFolder.newFolder().getAbsolutePath(), true);
+		stateBackend.setRestorePrefetchNum(restorePrefetchNum);
+		return stateBackend;
 	}
 
 	/**
@@ -28,9 +28,11 @@ import org.apache.flink.api.common.functions.Function;
 import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.api.common.functions.RichFunction;
 import org.apache.flink.api.common.state.AggregatingStateDescriptor;
+import org.apache.flink.api.common.state.AppendingState;
 import org.apache.flink.api.common.state.FoldingStateDescriptor;
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.Utils;
@@ -51,12 +53,16 @@ import org.apache.flink.streaming.api.functions.windowing.WindowFunction;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.windowing.assigners.BaseAlignedWindowAssigner;
 import org.apache.flink.streaming.api.windowing.assigners.MergingWindowAssigner;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
 import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
 import org.apache.flink.streaming.api.windowing.evictors.Evictor;
 import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
 import org.apache.flink.streaming.api.windowing.triggers.Trigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
 import org.apache.flink.streaming.api.windowing.windows.Window;
 import org.apache.flink.streaming.runtime.operators.windowing.EvictingWindowOperator;
+import org.apache.flink.streaming.runtime.operators.windowing.SlicingWindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.WindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalAggregateProcessWindowFunction;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalIterableProcessWindowFunction;
@@ -122,6 +128,9 @@ public class WindowedStream<T, K, W extends Window> {
  	 */
 	private OutputTag<T> lateDataOutputTag;
 
+	/** Whether incrementally aggregated windows store their elements in non-overlapping slices. */
+	private boolean slicingEnabled = false;
+
 	@PublicEvolving
 	public WindowedStream(KeyedStream<T, K> input,
 			WindowAssigner<? super T, W> windowAssigner) {
@@ -191,10 +200,38 @@ public class WindowedStream<T, K, W extends Window> {
 		if (windowAssigner instanceof BaseAlignedWindowAssigner) {
 			throw new UnsupportedOperationException("Cannot use a " + windowAssigner.getClass().getSimpleName() + " with an Evictor.");
 		}
+		if (slicingEnabled) {
+			throw new UnsupportedOperationException("Cannot use an Evictor with window slicing.");
+		}
 		this.evictor = evictor;
 		return this;
 	}
 
+	/**
+	 * Enables window slicing for {@link SlidingEventTimeWindows}. With slicing, every element is
+	 * stored only once in a non-overlapping slice of the time axis instead of once in each of the
+	 * overlapping windows it belongs to. When a window fires, the slices it covers are combined.
+	 *
+	 * <p>Slicing applies to the incrementally aggregating functions, i.e. {@code reduce()} and
+	 * {@code aggregate()}, and requires the default {@link EventTimeTrigger}. It reduces the state
+	 * updates per element by the ratio of window size to slide. The other window functions, i.e.
+	 * {@code apply()}, {@code process()} and {@code fold()}, throw an
+	 * {@link UnsupportedOperationException} on a windowed stream with slicing enabled.
+	 */
+	@PublicEvolving
+	public WindowedStream<T, K, W> enableSlicing() {
+		if (!(windowAssigner instanceof SlidingEventTimeWindows)) {
+			throw new UnsupportedOperationException("Window slicing is only supported for " +
+				SlidingEventTimeWindows.class.getSimpleName() + " but the window assigner is a " +
+				windowAssigner.getClass().getSimpleName() + ".");
+		}
+		if (evictor != null) {
+			throw new UnsupportedOperationException("Cannot use an Evictor with window slicing.");
+		}
+		this.slicingEnabled = true;
+		return this;
+	}
+
 
 	// ------------------------------------------------------------------------
 	//  Operations on the keyed windows
@@ -302,16 +339,20 @@ public class WindowedStream<T, K, W extends Window> {
 				reduceFunction,
 				input.getType().createSerializer(getExecutionEnvironment().getConfig()));
 
-			operator =
-				new WindowOperator<>(windowAssigner,
-					windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
-					keySel,
-					input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
-					stateDesc,
-					new InternalSingleValueWindowFunction<>(function),
-					trigger,
-					allowedLateness,
-					lateDataOutputTag);
+			if (slicingEnabled) {
+				operator = createSlicingWindowOperator(stateDesc, new InternalSingleValueWindowFunction<>(function));
+			} else {
+				operator =
+					new WindowOperator<>(windowAssigner,
+						windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
+						keySel,
+						input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
+						stateDesc,
+						new InternalSingleValueWindowFunction<>(function),
+						trigger,
+						allowedLateness,
+						lateDataOutputTag);
+			}
 		}
 
 		return input.transform(opName, resultType, operator);
@@ -388,16 +429,20 @@ public class WindowedStream<T, K, W extends Window> {
 					reduceFunction,
 					input.getType().createSerializer(getExecutionEnvironment().getConfig()));
 
-			operator =
-					new WindowOperator<>(windowAssigner,
-							windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
-							keySel,
-							input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
-							stateDesc,
-							new InternalSingleValueProcessWindowFunction<>(function),
-							trigger,
-							allowedLateness,
-							lateDataOutputTag);
+			if (slicingEnabled) {
+				operator = createSlicingWindowOperator(stateDesc, new InternalSingleValueProcessWindowFunction<>(function));
+			} else {
+				operator =
+						new WindowOperator<>(windowAssigner,
+								windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
+								keySel,
+								input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
+								stateDesc,
+								new InternalSingleValueProcessWindowFunction<>(function),
+								trigger,
+								allowedLateness,
+								lateDataOutputTag);
+			}
 		}
 
 		return input.transform(opName, resultType, operator);
@@ -502,6 +547,7 @@ public class WindowedStream<T, K, W extends Window> {
 		if (foldFunction instanceof RichFunction) {
 			throw new UnsupportedOperationException("FoldFunction of fold can not be a RichFunction.");
 		}
+		checkSlicingNotEnabled("fold()");
 		if (windowAssigner instanceof MergingWindowAssigner) {
 			throw new UnsupportedOperationException("Fold cannot be used with a merging WindowAssigner.");
 		}
@@ -614,6 +660,7 @@ public class WindowedStream<T, K, W extends Window> {
 		if (foldFunction instanceof RichFunction) {
 			throw new UnsupportedOperationException("FoldFunction can not be a RichFunction.");
 		}
+		checkSlicingNotEnabled("fold()");
 		if (windowAssigner instanceof MergingWindowAssigner) {
 			throw new UnsupportedOperationException("Fold cannot be used with a merging WindowAssigner.");
 		}
@@ -836,15 +883,19 @@ public class WindowedStream<T, K, W extends Window> {
 			AggregatingStateDescriptor<T, ACC, V> stateDesc = new AggregatingStateDescriptor<>("window-contents",
 					aggregateFunction, accumulatorType.createSerializer(getExecutionEnvironment().getConfig()));
 
-			operator = new WindowOperator<>(windowAssigner,
-					windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
-					keySel,
-					input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
-					stateDesc,
-					new InternalSingleValueWindowFunction<>(windowFunction),
-					trigger,
-					allowedLateness,
-					lateDataOutputTag);
+			if (slicingEnabled) {
+				operator = createSlicingWindowOperator(stateDesc, new InternalSingleValueWindowFunction<>(windowFunction));
+			} else {
+				operator = new WindowOperator<>(windowAssigner,
+						windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
+						keySel,
+						input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
+						stateDesc,
+						new InternalSingleValueWindowFunction<>(windowFunction),
+						trigger,
+						allowedLateness,
+						lateDataOutputTag);
+			}
 		}
 
 		return input.transform(opName, resultType, operator);
@@ -986,15 +1037,19 @@ public class WindowedStream<T, K, W extends Window> {
 			AggregatingStateDescriptor<T, ACC, V> stateDesc = new AggregatingStateDescriptor<>("window-contents",
 					aggregateFunction, accumulatorType.createSerializer(getExecutionEnvironment().getConfig()));
 
-			operator = new WindowOperator<>(windowAssigner,
-					windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
-					keySel,
-					input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
-					stateDesc,
-					new InternalSingleValueProcessWindowFunction<>(windowFunction),
-					trigger,
-					allowedLateness,
-					lateDataOutputTag);
+			if (slicingEnabled) {
+				operator = createSlicingWindowOperator(stateDesc, new InternalSingleValueProcessWindowFunction<>(windowFunction));
+			} else {
+				operator = new WindowOperator<>(windowAssigner,
+						windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
+						keySel,
+						input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
+						stateDesc,
+						new InternalSingleValueProcessWindowFunction<>(windowFunction),
+						trigger,
+						allowedLateness,
+						lateDataOutputTag);
+			}
 		}
 
 		return input.transform(opName, resultType, operator);
@@ -1075,6 +1130,7 @@ public class WindowedStream<T, K, W extends Window> {
 	}
 
 	private <R> SingleOutputStreamOperator<R> apply(InternalWindowFunction<Iterable<T>, R, K, W> function, TypeInformation<R> resultType, Function originalFunction) {
+		checkSlicingNotEnabled("apply() and process()");
 
 		final String opName = generateOperatorName(windowAssigner, trigger, evictor, originalFunction, null);
 		KeySelector<T, K> keySel = input.getKeySelector();
@@ -1160,6 +1216,7 @@ public class WindowedStream<T, K, W extends Window> {
 		if (reduceFunction instanceof RichFunction) {
 			throw new UnsupportedOperationException("ReduceFunction of apply can not be a RichFunction.");
 		}
+		checkSlicingNotEnabled("apply()");
 
 		//clean the closures
 		function = input.getExecutionEnvironment().clean(function);
@@ -1253,6 +1310,7 @@ public class WindowedStream<T, K, W extends Window> {
 		if (foldFunction instanceof RichFunction) {
 			throw new UnsupportedOperationException("FoldFunction of apply can not be a RichFunction.");
 		}
+		checkSlicingNotEnabled("apply()");
 		if (windowAssigner instanceof MergingWindowAssigner) {
 			throw new UnsupportedOperationException("Fold cannot be used with a merging WindowAssigner.");
 		}
@@ -1303,6 +1361,36 @@ public class WindowedStream<T, K, W extends Window> {
 		return input.transform(opName, resultType, operator);
 	}
 
+	private void checkSlicingNotEnabled(String operation) {
+		if (slicingEnabled) {
+			throw new UnsupportedOperationException("Window slicing is only supported for reduce() and " +
+				"aggregate() but not for " + operation + ".");
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private <ACC, V, R> OneInputStreamOperator<T, R> createSlicingWindowOperator(
+			StateDescriptor<? extends AppendingState<T, V>, ACC> stateDesc,
+			InternalWindowFunction<V, R, K, W> windowFunction) {
+
+		if (!(trigger instanceof EventTimeTrigger)) {
+			throw new UnsupportedOperationException("Window slicing is only supported with the default " +
+				EventTimeTrigger.class.getSimpleName() + ".");
+		}
+
+		SlidingEventTimeWindows slidingWindows = (SlidingEventTimeWindows) windowAssigner;
+		return new SlicingWindowOperator<>(
+			slidingWindows.getSize(),
+			slidingWindows.getSlide(),
+			slidingWindows.getOffset(),
+			input.getKeySelector(),
+			input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
+			stateDesc,
+			(InternalWindowFunction<V, R, K, TimeWindow>) (InternalWindowFunction) windowFunction,
+			allowedLateness,
+			lateDataOutputTag);
+	}
+
 	private static String generateFunctionName(Function function) {
 		Class<? extends Function> functionClass = function.getClass();
 		if (functionClass.isAnonymousClass()) {
@@ -0,0 +1,530 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators.windowing;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.AggregatingStateDescriptor;
+import org.apache.flink.api.common.state.AppendingState;
+import org.apache.flink.api.common.state.KeyedStateStore;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.runtime.state.DefaultKeyedStateStore;
+import org.apache.flink.runtime.state.KeyedStateBackend;
+import org.apache.flink.runtime.state.internal.InternalAppendingState;
+import org.apache.flink.streaming.api.operators.AbstractUdfStreamOperator;
+import org.apache.flink.streaming.api.operators.ChainingStrategy;
+import org.apache.flink.streaming.api.operators.InternalTimer;
+import org.apache.flink.streaming.api.operators.InternalTimerService;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.TimestampedCollector;
+import org.apache.flink.streaming.api.operators.Triggerable;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalWindowFunction;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.util.OutputTag;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A window operator for {@link SlidingEventTimeWindows} with the default {@link EventTimeTrigger}
+ * that stores every element only once, in a non-overlapping slice, instead of once per window it
+ * belongs to.
+ *
+ * <p>The slice size is the greatest common divisor of the window size and the slide, so every
+ * window is made up of exactly {@code size / sliceSize} consecutive slices. Each slice holds the
+ * pre-aggregated value of a {@link ReduceFunction} or the accumulator of an
+ * {@link AggregateFunction}; when a window fires, the slices that it covers are combined into
+ * the window result. For a window of one hour that slides every minute this turns 60 state
+ * updates per element into one.
+ *
+ * <p>Only the first window that contains a slice registers a timer. When a window fires, the
+ * timer of the next window is registered if any of the slices that the two windows share is
+ * non-empty, so the number of timers per element is constant as well. Slices are dropped once
+ * the last window containing them is past its allowed lateness.
+ *
+ * @param <K> The type of key returned by the {@code KeySelector}.
+ * @param <IN> The type of the incoming elements.
+ * @param <SACC> The type of the per-slice value kept in state.
+ * @param <ACC> The type of the combined window value handed to the {@code InternalWindowFunction}.
+ * @param <OUT> The type of elements emitted by the {@code InternalWindowFunction}.
+ */
+@Internal
+public class SlicingWindowOperator<K, IN, SACC, ACC, OUT>
+	extends AbstractUdfStreamOperator<OUT, InternalWindowFunction<ACC, OUT, K, TimeWindow>>
+	implements OneInputStreamOperator<IN, OUT>, Triggerable<K, TimeWindow> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String LATE_ELEMENTS_DROPPED_METRIC_NAME = "numLateRecordsDropped";
+
+	// ------------------------------------------------------------------------
+	// Configuration values and user functions
+	// ------------------------------------------------------------------------
+
+	private final long size;
+
+	private final long slide;
+
+	private final long offset;
+
+	/** The size of a slice, the greatest common divisor of {@link #size} and {@link #slide}. */
+	private final long sliceSize;
+
+	private final KeySelector<IN, K> keySelector;
+
+	/** For serializing the key in checkpoints. */
+	private final TypeSerializer<K> keySerializer;
+
+	/** For serializing the windows and slices, which are both {@link TimeWindow TimeWindows}. */
+	private final TypeSerializer<TimeWindow> windowSerializer = new TimeWindow.Serializer();
+
+	private final StateDescriptor<? extends AppendingState<IN, ACC>, SACC> sliceStateDescriptor;
+
+	/** The allowed lateness for elements, with the same semantics as in the {@link WindowOperator}. */
+	private final long allowedLateness;
+
+	/** {@link OutputTag} to use for late arriving events, may be null. */
+	private final OutputTag<IN> lateDataOutputTag;
+
+	// ------------------------------------------------------------------------
+	// State that is not checkpointed
+	// ------------------------------------------------------------------------
+
+	/** The state in which the slice contents are stored. Each slice is a namespace. */
+	private transient InternalAppendingState<K, TimeWindow, IN, SACC, ACC> sliceState;
+
+	/** Used to copy slice values before combining them, so the state is never modified in place. */
+	private transient TypeSerializer<SACC> sliceSerializer;
+
+	/** The aggregate function of the slices, null if the slices are reduced. */
+	private transient AggregateFunction<IN, SACC, ACC> aggregateFunction;
+
+	/** The reduce function of the slices, null if the slices are aggregated. */
+	private transient ReduceFunction<IN> reduceFunction;
+
+	private transient TimestampedCollector<OUT> timestampedCollector;
+
+	private transient SliceWindowContext processContext;
+
+	private transient Counter numLateRecordsDropped;
+
+	// ------------------------------------------------------------------------
+	// State that needs to be checkpointed
+	// ------------------------------------------------------------------------
+
+	private transient InternalTimerService<TimeWindow> internalTimerService;
+
+	/**
+	 * Creates a new {@code SlicingWindowOperator} for sliding event-time windows of the given
+	 * size, slide and offset.
+	 */
+	public SlicingWindowOperator(
+			long size,
+			long slide,
+			long offset,
+			KeySelector<IN, K> keySelector,
+			TypeSerializer<K> keySerializer,
+			StateDescriptor<? extends AppendingState<IN, ACC>, SACC> sliceStateDescriptor,
+			InternalWindowFunction<ACC, OUT, K, TimeWindow> windowFunction,
+			long allowedLateness,
+			OutputTag<IN> lateDataOutputTag) {
+
+		super(windowFunction);
+
+		checkArgument(size > 0 && slide > 0, "The window size and slide must be positive.");
+		checkArgument(allowedLateness >= 0);
+		checkArgument(sliceStateDescriptor instanceof ReducingStateDescriptor ||
+				sliceStateDescriptor instanceof AggregatingStateDescriptor,
+			"Window slicing requires a reducing or aggregating window state.");
+		checkArgument(sliceStateDescriptor.isSerializerInitialized(),
+			"window state serializer is not properly initialized");
+
+		this.size = size;
+		this.slide = slide;
+		this.offset = offset;
+		this.sliceSize = gcd(size, slide);
+		this.keySelector = checkNotNull(keySelector);
+		this.keySerializer = checkNotNull(keySerializer);
+		this.sliceStateDescriptor = sliceStateDescriptor;
+		this.allowedLateness = allowedLateness;
+		this.lateDataOutputTag = lateDataOutputTag;
+
+		setChainingStrategy(ChainingStrategy.ALWAYS);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void open() throws Exception {
+		super.open();
+
+		this.numLateRecordsDropped = metrics.counter(LATE_ELEMENTS_DROPPED_METRIC_NAME);
+		timestampedCollector = new TimestampedCollector<>(output);
+
+		internalTimerService =
+				getInternalTimerService("window-timers", windowSerializer, this);
+
+		processContext = new SliceWindowContext();
+
+		sliceState = (InternalAppendingState<K, TimeWindow, IN, SACC, ACC>)
+				getOrCreateKeyedState(windowSerializer, sliceStateDescriptor);
+		sliceSerializer = sliceStateDescriptor.getSerializer();
+
+		if (sliceStateDescriptor instanceof AggregatingStateDescriptor) {
+			aggregateFunction = (AggregateFunction<IN, SACC, ACC>)
+					((AggregatingStateDescriptor<IN, SACC, ACC>) sliceStateDescriptor).getAggregateFunction();
+		} else {
+			reduceFunction = ((ReducingStateDescriptor<IN>) sliceStateDescriptor).getReduceFunction();
+		}
+	}
+
+	@Override
+	public void close() throws Exception {
+		super.close();
+		timestampedCollector = null;
+		processContext = null;
+	}
+
+	@Override
+	public void dispose() throws Exception {
+		super.dispose();
+		timestampedCollector = null;
+		processContext = null;
+	}
+
+	@Override
+	public void processElement(StreamRecord<IN> element) throws Exception {
+		final long timestamp = element.getTimestamp();
+		if (timestamp == Long.MIN_VALUE) {
+			throw new RuntimeException("Record has Long.MIN_VALUE timestamp (= no timestamp marker). " +
+					"Is the time characteristic set to 'ProcessingTime', or did you forget to call " +
+					"'DataStream.assignTimestampsAndWatermarks(...)'?");
+		}
+
+		final TimeWindow slice = sliceFor(timestamp);
+		final long currentWatermark = internalTimerService.currentWatermark();
+
+		if (firstWindowEnd(slice) > lastWindowEnd(slice)) {
+			// the slide is larger than the size and the element falls into a gap between windows
+			return;
+		}
+
+		// the last window that contains the slice is also the last one that contains the element
+		if (cleanupTime(lastWindowEnd(slice) - 1) <= currentWatermark) {
+			if (isElementLate(element)) {
+				if (lateDataOutputTag != null) {
+					output.collect(lateDataOutputTag, element);
+				} else {
+					this.numLateRecordsDropped.inc();
+				}
+			}
+			return;
+		}
+
+		sliceState.setCurrentNamespace(slice);
+		sliceState.add(element.getValue());
+
+		long sliceCleanupTime = sliceCleanupTime(slice);
+		if (sliceCleanupTime != Long.MAX_VALUE) {
+			internalTimerService.registerEventTimeTimer(slice, sliceCleanupTime);
+		}
+
+		// windows that are past the watermark, but still within the allowed lateness, fire
+		// immediately (just as with the EventTimeTrigger); the first window in the future gets a
+		// timer and all later ones are chained from there
+		for (long windowEnd = firstWindowEnd(slice); windowEnd <= lastWindowEnd(slice); windowEnd += slide) {
+			TimeWindow window = new TimeWindow(windowEnd - size, windowEnd);
+			if (cleanupTime(window.maxTimestamp()) <= currentWatermark) {
+				continue;
+			}
+
+			if (window.maxTimestamp() <= currentWatermark) {
+				fireWindow(window);
+				registerWindowCleanupTimer(window);
+			} else {
+				internalTimerService.registerEventTimeTimer(window, window.maxTimestamp());
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void onEventTime(InternalTimer<K, TimeWindow> timer) throws Exception {
+		final TimeWindow namespace = timer.getNamespace();
+		final long time = timer.getTimestamp();
+		final long length = namespace.getEnd() - namespace.getStart();
+
+		if (length == size) {
+			if (time == namespace.maxTimestamp()) {
+				boolean hasSharedContents = fireWindow(namespace);
+				if (hasSharedContents) {
+					TimeWindow nextWindow = new TimeWindow(namespace.getStart() + slide, namespace.getEnd() + slide);
+					internalTimerService.registerEventTimeTimer(nextWindow, nextWindow.maxTimestamp());
+				}
+				registerWindowCleanupTimer(namespace);
+			}
+
+			if (time == cleanupTime(namespace.maxTimestamp())) {
+				processContext.window = namespace;
+				processContext.clear();
+			}
+		}
+
+		if (length == sliceSize && time == sliceCleanupTime(namespace)) {
+			sliceState.setCurrentNamespace(namespace);
+			sliceState.clear();
+		}
+	}
+
+	@Override
+	public void onProcessingTime(InternalTimer<K, TimeWindow> timer) throws Exception {
+		// window slicing is only supported for event-time windows
+	}
+
+	/**
+	 * Combines the slices of the given window and emits the result, if any of them is non-empty.
+	 *
+	 * @return {@code true} if any of the slices the window shares with the next window is non-empty
+	 */
+	private boolean fireWindow(TimeWindow window) throws Exception {
+		SACC combined = null;
+		boolean hasSharedContents = false;
+
+		for (long sliceStart = window.getStart(); sliceStart < window.getEnd(); sliceStart += sliceSize) {
+			sliceState.setCurrentNamespace(new TimeWindow(sliceStart, sliceStart + sliceSize));
+			SACC sliceValue = sliceState.getInternal();
+			if (sliceValue == null) {
+				continue;
+			}
+
+			combined = combined == null ?
+				sliceSerializer.copy(sliceValue) :
+				combine(combined, sliceSerializer.copy(sliceValue));
+			hasSharedContents |= sliceStart >= window.getStart() + slide;
+		}
+
+		if (combined != null) {
+			emitWindowContents(window, getResult(combined));
+		}
+		return hasSharedContents;
+	}
+
+	@SuppressWarnings("unchecked")
+	private SACC combine(SACC a, SACC b) throws Exception {
+		if (aggregateFunction != null) {
+			return aggregateFunction.merge(a, b);
+		} else {
+			return (SACC) reduceFunction.reduce((IN) a, (IN) b);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private ACC getResult(SACC combined) {
+		if (aggregateFunction != null) {
+			return aggregateFunction.getResult(combined);
+		} else {
+			return (ACC) combined;
+		}
+	}
+
+	private void emitWindowContents(TimeWindow window, ACC contents) throws Exception {
+		timestampedCollector.setAbsoluteTimestamp(window.maxTimestamp());
+		processContext.window = window;
+		userFunction.process(getCurrentKey(), window, processContext, contents, timestampedCollector);
+	}
+
+	/**
+	 * Registers the timer that clears the per-window state of the window function. Without allowed
+	 * lateness this happens right after the window fired, so no extra timer is needed.
+	 */
+	private void registerWindowCleanupTimer(TimeWindow window) {
+		long cleanupTime = cleanupTime(window.maxTimestamp());
+		if (allowedLateness > 0 && cleanupTime != Long.MAX_VALUE) {
+			internalTimerService.registerEventTimeTimer(window, cleanupTime);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private K getCurrentKey() {
+		return (K) getKeyedStateBackend().getCurrentKey();
+	}
+
+	// ------------------------------------------------------------------------
+	//  Slice arithmetic
+	// ------------------------------------------------------------------------
+
+	private TimeWindow sliceFor(long timestamp) {
+		long start = floorToGrid(timestamp, sliceSize);
+		return new TimeWindow(start, start + sliceSize);
+	}
+
+	/**
+	 * Returns the largest point on the grid of the given step size (shifted by the window offset)
+	 * that is not after the given timestamp. Unlike {@link TimeWindow#getWindowStartWithOffset},
+	 * this also rounds down for negative timestamps.
+	 */
+	private long floorToGrid(long timestamp, long step) {
+		return timestamp - Math.floorMod(timestamp - offset, step);
+	}
+
+	/** Returns the end of the first window that contains the given slice. */
+	private long firstWindowEnd(TimeWindow slice) {
+		return floorToGrid(slice.maxTimestamp() - size, slide) + slide + size;
+	}
+
+	/** Returns the end of the last window that contains the given slice. */
+	private long lastWindowEnd(TimeWindow slice) {
+		return floorToGrid(slice.getStart(), slide) + size;
+	}
+
+	/**
+	 * Returns the time at which a slice can be dropped. This is one millisecond after the cleanup
+	 * time of the last window containing it, so that this window fires before the slice is gone.
+	 */
+	private long sliceCleanupTime(TimeWindow slice) {
+		long cleanupTime = cleanupTime(lastWindowEnd(slice) - 1);
+		return cleanupTime == Long.MAX_VALUE ? cleanupTime : cleanupTime + 1;
+	}
+
+	/**
+	 * Returns the cleanup time for a window with the given max timestamp, which is
+	 * {@code maxTimestamp + allowedLateness}, or {@link Long#MAX_VALUE} on overflow.
+	 */
+	private long cleanupTime(long windowMaxTimestamp) {
+		long cleanupTime = windowMaxTimestamp + allowedLateness;
+		return cleanupTime >= windowMaxTimestamp ? cleanupTime : Long.MAX_VALUE;
+	}
+
+	private boolean isElementLate(StreamRecord<IN> element) {
+		return element.getTimestamp() + allowedLateness <= internalTimerService.currentWatermark();
+	}
+
+	private static long gcd(long a, long b) {
+		while (b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Window function context
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The {@link InternalWindowFunction.InternalWindowContext} for the window function. It can be
+	 * reused by setting the {@code window} field.
+	 */
+	private class SliceWindowContext implements InternalWindowFunction.InternalWindowContext {
+
+		private TimeWindow window;
+
+		private final PerWindowStateStore windowState =
+			new PerWindowStateStore(getKeyedStateBackend(), getExecutionConfig());
+
+		void clear() throws Exception {
+			userFunction.clear(window, this);
+		}
+
+		@Override
+		public long currentProcessingTime() {
+			return internalTimerService.currentProcessingTime();
+		}
+
+		@Override
+		public long currentWatermark() {
+			return internalTimerService.currentWatermark();
+		}
+
+		@Override
+		public KeyedStateStore windowState() {
+			this.windowState.window = this.window;
+			return this.windowState;
+		}
+
+		@Override
+		public KeyedStateStore globalState() {
+			return SlicingWindowOperator.this.getKeyedStateStore();
+		}
+
+		@Override
+		public <X> void output(OutputTag<X> outputTag, X value) {
+			if (outputTag == null) {
+				throw new IllegalArgumentException("OutputTag must not be null.");
+			}
+			output.collect(outputTag, new StreamRecord<>(value, window.maxTimestamp()));
+		}
+
+		@Override
+		public String toString() {
+			return "SliceWindowContext{Window = " + window + "}";
+		}
+	}
+
+	/**
+	 * Per-window state store for use with
+	 * {@link org.apache.flink.streaming.api.functions.windowing.ProcessWindowFunction}.
+	 */
+	private class PerWindowStateStore extends DefaultKeyedStateStore {
+
+		private TimeWindow window;
+
+		PerWindowStateStore(KeyedStateBackend<?> keyedStateBackend, ExecutionConfig executionConfig) {
+			super(keyedStateBackend, executionConfig);
+		}
+
+		@Override
+		protected <S extends State> S getPartitionedState(StateDescriptor<S, ?> stateDescriptor) throws Exception {
+			return keyedStateBackend.getPartitionedState(
+				window,
+				windowSerializer,
+				stateDescriptor);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Getters for testing
+	// ------------------------------------------------------------------------
+
+	@VisibleForTesting
+	public long getSliceSize() {
+		return sliceSize;
+	}
+
+	@VisibleForTesting
+	public KeySelector<IN, K> getKeySelector() {
+		return keySelector;
+	}
+
+	@VisibleForTesting
+	public StateDescriptor<? extends AppendingState<IN, ACC>, SACC> getStateDescriptor() {
+		return sliceStateDescriptor;
+	}
+}
@@ -283,6 +283,88 @@ public class WindowTranslationTest {
 		processElementAndEnsureOutput(winOperator, winOperator.getKeySelector(), BasicTypeInfo.STRING_TYPE_INFO,  1);
 	}
 
+	// ------------------------------------------------------------------------
+	//  Window Slicing Support
+	// ------------------------------------------------------------------------
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void testReduceWithSlicing() throws Exception {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+		env.setStreamTimeCharacteristic(TimeCharacteristic.EventTime);
+
+		DataStream<Tuple2<String, Integer>> source = env.fromElements(Tuple2.of("hello", 1), Tuple2.of("hello", 2));
+
+		DataStream<Tuple2<String, Integer>> window1 = source
+				.keyBy(new TupleKeySelector())
+				.window(SlidingEventTimeWindows.of(Time.of(1, TimeUnit.SECONDS), Time.of(100, TimeUnit.MILLISECONDS)))
+				.enableSlicing()
+				.reduce(new DummyReducer());
+
+		OneInputTransformation<Tuple2<String, Integer>, Tuple2<String, Integer>> transform = (OneInputTransformation<Tuple2<String, Integer>, Tuple2<String, Integer>>) window1.getTransformation();
+		Assert.assertTrue(transform.getOperator() instanceof SlicingWindowOperator);
+	}
+
+	/**
+	 * .apply() and .process() keep all elements of a window and cannot be computed from slices.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testApplyWithSlicingFails() throws Exception {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+
+		DataStream<Tuple2<String, Integer>> source = env.fromElements(Tuple2.of("hello", 1), Tuple2.of("hello", 2));
+
+		source
+				.keyBy(new TupleKeySelector())
+				.window(SlidingEventTimeWindows.of(Time.of(1, TimeUnit.SECONDS), Time.of(100, TimeUnit.MILLISECONDS)))
+				.enableSlicing()
+				.apply(new WindowFunction<Tuple2<String, Integer>, Tuple2<String, Integer>, String, TimeWindow>() {
+
+					@Override
+					public void apply(String key, TimeWindow window, Iterable<Tuple2<String, Integer>> input,
+							Collector<Tuple2<String, Integer>> out) throws Exception {
+					}
+				});
+
+		fail("exception was not thrown");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testProcessWithSlicingFails() throws Exception {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+
+		DataStream<Tuple2<String, Integer>> source = env.fromElements(Tuple2.of("hello", 1), Tuple2.of("hello", 2));
+
+		source
+				.keyBy(new TupleKeySelector())
+				.window(SlidingEventTimeWindows.of(Time.of(1, TimeUnit.SECONDS), Time.of(100, TimeUnit.MILLISECONDS)))
+				.enableSlicing()
+				.process(new ProcessWindowFunction<Tuple2<String, Integer>, Tuple2<String, Integer>, String, TimeWindow>() {
+
+					@Override
+					public void process(String key, Context ctx, Iterable<Tuple2<String, Integer>> elements,
+							Collector<Tuple2<String, Integer>> out) throws Exception {
+					}
+				});
+
+		fail("exception was not thrown");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testFoldWithSlicingFails() throws Exception {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+
+		DataStream<Tuple2<String, Integer>> source = env.fromElements(Tuple2.of("hello", 1), Tuple2.of("hello", 2));
+
+		source
+				.keyBy(new TupleKeySelector())
+				.window(SlidingEventTimeWindows.of(Time.of(1, TimeUnit.SECONDS), Time.of(100, TimeUnit.MILLISECONDS)))
+				.enableSlicing()
+				.fold(new Tuple3<>("", "", 0), new DummyFolder());
+
+		fail("exception was not thrown");
+	}
+
 	// ------------------------------------------------------------------------
 	//  Reduce Translation Tests
 	// ------------------------------------------------------------------------
@@ -108,6 +108,19 @@ class WindowedStream[T, K, W <: Window](javaStream: JavaWStream[T, K, W]) {
     this
   }
 
+  /**
+   * Enables window slicing for sliding event-time windows. Every element is stored only once in
+   * a non-overlapping slice instead of once in each window it belongs to, and the slices are
+   * combined when a window fires.
+   *
+   * Slicing applies to `reduce()` and `aggregate()` and requires the default event-time trigger.
+   */
+  @PublicEvolving
+  def enableSlicing(): WindowedStream[T, K, W] = {
+    javaStream.enableSlicing()
+    this
+  }
+
   // ------------------------------------------------------------------------
   //  Operations on the keyed windows
   // ------------------------------------------------------------------------
@@ -21,8 +21,11 @@ package org.apache.flink.table.api.config;
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.annotation.docs.Documentation;
 import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.MemorySize;
 import org.apache.flink.configuration.description.Description;
 
+import java.time.Duration;
+
 import static org.apache.flink.configuration.ConfigOptions.key;
 import static org.apache.flink.configuration.description.TextElement.code;
 import static org.apache.flink.configuration.description.TextElement.text;
@@ -189,6 +192,34 @@ public class ExecutionConfigOptions {
 			.defaultValue("3 min")
 			.withDescription("The async timeout for the asynchronous operation to complete.");
 
+	// ------------------------------------------------------------------------
+	//  Join Options
+	// ------------------------------------------------------------------------
+	@Documentation.TableOption(execMode = Documentation.ExecMode.STREAMING)
+	public static final ConfigOption<Duration> TABLE_EXEC_INTERVAL_JOIN_STATE_SLICE_SIZE =
+		key("table.exec.interval-join.state-slice-size")
+			.durationType()
+			.noDefaultValue()
+			.withDescription("The size of the time slices by which a streaming interval join groups its " +
+				"buffered rows. If set, each input keeps the rows of a join key per slice, joins a row only " +
+				"with the slices overlapping its join window instead of iterating over all buffered rows, " +
+				"and cleans up a slice with a single timer once all of its rows expired. Results padded with " +
+				"nulls of outer interval joins may then be emitted up to one slice later. A fraction of the " +
+				"join window, e.g. a tenth of it, is a reasonable size. If not set, rows are grouped by " +
+				"their exact time.");
+
+	@Documentation.TableOption(execMode = Documentation.ExecMode.STREAMING)
+	public static final ConfigOption<Integer> TABLE_EXEC_JOIN_RECORDS_CACHE_SIZE =
+		key("table.exec.join.records-cache-size")
+			.intType()
+			.defaultValue(0)
+			.withDescription("The maximum number of input records of a non-outer side of a regular streaming " +
+				"join that are kept on the heap, grouped by join key, in addition to the state. Records of " +
+				"recently probed join keys are then served from this cache instead of being read and " +
+				"deserialized from the state, and input records are stored in the compact binary row format. " +
+				"The cache is only used if no idle state retention is configured, as it would otherwise " +
+				"return records that already expired in the state. The default value 0 disables the cache.");
+
 	// ------------------------------------------------------------------------
 	//  MiniBatch Options
 	// ------------------------------------------------------------------------
@@ -221,6 +252,49 @@ public class ExecutionConfigOptions {
 				"NOTE: MiniBatch only works for non-windowed aggregations currently. If " + TABLE_EXEC_MINIBATCH_ENABLED.key() +
 				" is set true, its value must be positive.");
 
+	@Documentation.TableOption(execMode = Documentation.ExecMode.STREAMING)
+	public static final ConfigOption<MemorySize> TABLE_EXEC_MINIBATCH_MEMORY_SIZE =
+		key("table.exec.mini-batch.memory-size")
+			.memoryType()
+			.noDefaultValue()
+			.withDescription("The maximum estimated size of the input records buffered for MiniBatch. " +
+				"If set, MiniBatch is additionally triggered when the buffered records exceed this size, " +
+				"which bounds the memory footprint of bundles of wide rows. Bundles are then also triggered " +
+				"once their first record is older than '" + TABLE_EXEC_MINIBATCH_ALLOW_LATENCY.key() + "'.");
+
+	@Documentation.TableOption(execMode = Documentation.ExecMode.STREAMING)
+	public static final ConfigOption<Duration> TABLE_EXEC_MINIBATCH_ADAPTIVE_TARGET_FINISH_TIME =
+		key("table.exec.mini-batch.adaptive.target-finish-time")
+			.durationType()
+			.noDefaultValue()
+			.withDescription("The time that evaluating a MiniBatch bundle against the state should take. " +
+				"If set, the maximum number of buffered records is tuned at runtime from the observed " +
+				"evaluation time of previous bundles, between a fraction of '" + TABLE_EXEC_MINIBATCH_SIZE.key() +
+				"' and '" + TABLE_EXEC_MINIBATCH_SIZE.key() + "' itself. Bundles are then also triggered " +
+				"once their first record is older than '" + TABLE_EXEC_MINIBATCH_ALLOW_LATENCY.key() + "'.");
+
+	@Documentation.TableOption(execMode = Documentation.ExecMode.STREAMING)
+	public static final ConfigOption<MemorySize> TABLE_EXEC_MINIBATCH_LOCAL_AGG_MANAGED_MEMORY =
+		key("table.exec.mini-batch.local-agg.managed-memory")
+			.memoryType()
+			.noDefaultValue()
+			.withDescription("The managed memory used by a MiniBatch local aggregation to buffer its bundle. " +
+				"If set, local aggregations whose accumulators are of fixed length keep the bundle in a " +
+				"binary hash map in managed memory instead of on the heap, and finish the bundle early " +
+				"when the memory is exhausted. Its value must be larger than 1 mb.");
+
+	// ------------------------------------------------------------------------
+	//  Code Generation Options
+	// ------------------------------------------------------------------------
+	@Documentation.TableOption(execMode = Documentation.ExecMode.BATCH_STREAMING)
+	public static final ConfigOption<Boolean> TABLE_EXEC_CODEGEN_PRECOMPILE_ENABLED =
+		key("table.exec.codegen.precompile-enabled")
+			.booleanType()
+			.defaultValue(false)
+			.withDescription("Whether to compile the generated operators when the job is submitted and " +
+				"to ship their bytecode with the job. Tasks then load the shipped bytecode instead of " +
+				"compiling the generated code themselves, also after a failover.");
+
 	// ------------------------------------------------------------------------
 	//  Other Exec Options
 	// ------------------------------------------------------------------------
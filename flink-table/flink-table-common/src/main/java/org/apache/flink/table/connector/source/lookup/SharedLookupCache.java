@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.connector.source.lookup;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.clock.Clock;
+import org.apache.flink.util.clock.SystemClock;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A lookup cache which is shared by all lookup functions of the same table in a TaskManager, so that the
+ * parallel subtasks of a lookup join do not cache the same rows multiple times.
+ *
+ * <p>Caches are acquired by {@link #acquire(String, long, long)} with an identifier of the looked up
+ * table and the cache configuration. Functions acquiring a cache with the same identifier and
+ * configuration share the same cache. Every acquired cache must be released by {@link #release()}
+ * once it is not used anymore, the cache is dropped when it has been released by all its users.
+ *
+ * <p>The cache keeps at most the configured number of entries, evicting the least recently used entries,
+ * and drops entries after the configured time after they have been loaded. Concurrent misses of the same
+ * key are coalesced by {@link #get(Object, Loader)}: only one caller loads the value while the others wait
+ * for the result, so the external system sees one request per missing key.
+ *
+ * <p>The caches are registered statically, so they are shared within the scope of the class loader of this
+ * class. Since the table modules are part of the Flink distribution, this is the whole TaskManager.
+ * Cached keys and values are therefore used by several threads and may outlive the job which loaded them:
+ * they must be immutable, safe to read concurrently and must not refer to classes of a user class loader,
+ * e.g. binary rows instead of generic rows.
+ *
+ * @param <K> The type of the lookup keys.
+ * @param <V> The type of the cached values.
+ */
+@Internal
+public final class SharedLookupCache<K, V> {
+
+	/** All caches in use, by identifier. */
+	@GuardedBy("CACHES")
+	private static final Map<CacheId, SharedLookupCache<?, ?>> CACHES = new HashMap<>();
+
+	private final CacheId cacheId;
+
+	private final long maxSize;
+
+	private final long expireAfterWriteMillis;
+
+	private final Clock clock;
+
+	/** The cached entries, in access order. */
+	@GuardedBy("entries")
+	private final LinkedHashMap<K, Entry<V>> entries;
+
+	/** The loads in progress, to coalesce concurrent loads of the same key. */
+	private final ConcurrentHashMap<K, CompletableFuture<V>> pendingLoads = new ConcurrentHashMap<>();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	/** Number of users which acquired and not yet released this cache. */
+	@GuardedBy("CACHES")
+	private int referenceCount;
+
+	@VisibleForTesting
+	SharedLookupCache(CacheId cacheId, Clock clock) {
+		checkArgument(cacheId.maxSize > 0, "The max size of the lookup cache must be positive.");
+		checkArgument(cacheId.expireAfterWriteMillis > 0, "The expiry time of the lookup cache must be positive.");
+
+		this.cacheId = cacheId;
+		this.maxSize = cacheId.maxSize;
+		this.expireAfterWriteMillis = cacheId.expireAfterWriteMillis;
+		this.clock = checkNotNull(clock);
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Acquires the shared cache with the given identifier and configuration, creating it if there is none.
+	 *
+	 * @param identifier The identifier of the looked up table, including everything which affects the
+	 *                   looked up values, e.g. the connection url and the query.
+	 * @param maxSize The max number of cached entries.
+	 * @param expireAfterWriteMillis The time after which an entry is dropped after it has been loaded.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> SharedLookupCache<K, V> acquire(String identifier, long maxSize, long expireAfterWriteMillis) {
+		CacheId cacheId = new CacheId(checkNotNull(identifier), maxSize, expireAfterWriteMillis);
+		synchronized (CACHES) {
+			SharedLookupCache<K, V> cache = (SharedLookupCache<K, V>) CACHES.computeIfAbsent(
+				cacheId, id -> new SharedLookupCache<>(id, SystemClock.getInstance()));
+			cache.referenceCount++;
+			return cache;
+		}
+	}
+
+	/**
+	 * Releases this cache. The cache is dropped once it has been released by all its users.
+	 */
+	public void release() {
+		synchronized (CACHES) {
+			checkState(referenceCount > 0, "The lookup cache has already been released.");
+			if (--referenceCount == 0) {
+				CACHES.remove(cacheId, this);
+				synchronized (entries) {
+					entries.clear();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached value of the given key, or null if the key is not cached.
+	 */
+	@Nullable
+	public V getIfPresent(K key) {
+		V value = getCachedValue(key);
+		if (value != null) {
+			hitCount.incrementAndGet();
+		} else {
+			missCount.incrementAndGet();
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the cached value of the given key, loading it by the given loader if it is not cached. If
+	 * the key is already loaded by another caller, this waits for that load instead of loading it again.
+	 *
+	 * @throws Exception The exception thrown by the loader, also to the callers waiting for the load.
+	 */
+	public V get(K key, Loader<K, V> loader) throws Exception {
+		V value = getCachedValue(key);
+		if (value != null) {
+			hitCount.incrementAndGet();
+			return value;
+		}
+		missCount.incrementAndGet();
+
+		CompletableFuture<V> load = new CompletableFuture<>();
+		CompletableFuture<V> pendingLoad = pendingLoads.putIfAbsent(key, load);
+		if (pendingLoad != null) {
+			return waitForLoad(pendingLoad);
+		}
+
+		try {
+			// the key may have been loaded between the cache lookup and the registration of the load
+			value = getCachedValue(key);
+			if (value == null) {
+				value = checkNotNull(loader.load(key), "The lookup cache loader must not return null.");
+				put(key, value);
+			}
+			load.complete(value);
+			return value;
+		} catch (Throwable t) {
+			load.completeExceptionally(t);
+			throw t;
+		} finally {
+			pendingLoads.remove(key, load);
+		}
+	}
+
+	/**
+	 * Puts the given value into the cache, evicting the least recently used entries if the cache is full.
+	 */
+	public void put(K key, V value) {
+		checkNotNull(value);
+		synchronized (entries) {
+			entries.put(key, new Entry<>(value, clock.relativeTimeMillis() + expireAfterWriteMillis));
+			Iterator<Entry<V>> iterator = entries.values().iterator();
+			while (entries.size() > maxSize && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+	}
+
+	public long size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	@Nullable
+	private V getCachedValue(K key) {
+		synchronized (entries) {
+			Entry<V> entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expirationTime <= clock.relativeTimeMillis()) {
+				entries.remove(key);
+				return null;
+			}
+			return entry.value;
+		}
+	}
+
+	private static <V> V waitForLoad(CompletableFuture<V> load) throws Exception {
+		try {
+			return load.get();
+		} catch (ExecutionException e) {
+			Throwable cause = ExceptionUtils.stripExecutionException(e);
+			ExceptionUtils.rethrowIfFatalError(cause);
+			ExceptionUtils.rethrowException(cause);
+			// unreachable, rethrowException always throws
+			throw e;
+		}
+	}
+
+	@VisibleForTesting
+	static int getNumberOfCaches() {
+		synchronized (CACHES) {
+			return CACHES.size();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Loads the value of a key missing in the cache.
+	 */
+	@FunctionalInterface
+	public interface Loader<K, V> {
+
+		V load(K key) throws Exception;
+	}
+
+	private static final class Entry<V> {
+
+		private final V value;
+
+		private final long expirationTime;
+
+		private Entry(V value, long expirationTime) {
+			this.value = value;
+			this.expirationTime = expirationTime;
+		}
+	}
+
+	/**
+	 * Identifies a shared cache by the looked up table and the cache configuration.
+	 */
+	@VisibleForTesting
+	static final class CacheId {
+
+		private final String identifier;
+
+		private final long maxSize;
+
+		private final long expireAfterWriteMillis;
+
+		CacheId(String identifier, long maxSize, long expireAfterWriteMillis) {
+			this.identifier = identifier;
+			this.maxSize = maxSize;
+			this.expireAfterWriteMillis = expireAfterWriteMillis;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			CacheId that = (CacheId) o;
+			return maxSize == that.maxSize &&
+				expireAfterWriteMillis == that.expireAfterWriteMillis &&
+				identifier.equals(that.identifier);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(identifier, maxSize, expireAfterWriteMillis);
+		}
+	}
+}
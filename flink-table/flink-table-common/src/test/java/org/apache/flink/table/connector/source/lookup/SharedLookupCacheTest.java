@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.connector.source.lookup;
+
+import org.apache.flink.core.testutils.CheckedThread;
+import org.apache.flink.core.testutils.OneShotLatch;
+import org.apache.flink.util.clock.ManualClock;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link SharedLookupCache}.
+ */
+public class SharedLookupCacheTest {
+
+	@Test
+	public void testAcquireAndRelease() {
+		int numCaches = SharedLookupCache.getNumberOfCaches();
+
+		SharedLookupCache<String, String> cache1 = SharedLookupCache.acquire("table", 10, 1000);
+		SharedLookupCache<String, String> cache2 = SharedLookupCache.acquire("table", 10, 1000);
+		SharedLookupCache<String, String> otherTable = SharedLookupCache.acquire("other", 10, 1000);
+		SharedLookupCache<String, String> otherConfig = SharedLookupCache.acquire("table", 20, 1000);
+
+		assertSame(cache1, cache2);
+		assertNotSame(cache1, otherTable);
+		assertNotSame(cache1, otherConfig);
+		assertEquals(numCaches + 3, SharedLookupCache.getNumberOfCaches());
+
+		cache1.put("key", "value");
+		assertEquals("value", cache2.getIfPresent("key"));
+
+		cache1.release();
+		assertEquals("value", cache2.getIfPresent("key"));
+
+		cache2.release();
+		otherTable.release();
+		otherConfig.release();
+		assertEquals(numCaches, SharedLookupCache.getNumberOfCaches());
+
+		// the cache is created anew after it was released by all users
+		SharedLookupCache<String, String> cache3 = SharedLookupCache.acquire("table", 10, 1000);
+		assertNotSame(cache1, cache3);
+		assertNull(cache3.getIfPresent("key"));
+		cache3.release();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReleaseTwice() {
+		SharedLookupCache<String, String> cache = SharedLookupCache.acquire("table", 10, 1000);
+		cache.release();
+		cache.release();
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() {
+		SharedLookupCache<String, String> cache = createCache(2, 1000, new ManualClock());
+
+		cache.put("a", "1");
+		cache.put("b", "2");
+		assertEquals("1", cache.getIfPresent("a"));
+
+		cache.put("c", "3");
+		assertEquals(2, cache.size());
+		assertEquals("1", cache.getIfPresent("a"));
+		assertNull(cache.getIfPresent("b"));
+		assertEquals("3", cache.getIfPresent("c"));
+		assertEquals(3, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testExpireAfterWrite() throws Exception {
+		ManualClock clock = new ManualClock();
+		SharedLookupCache<String, String> cache = createCache(10, 1000, clock);
+
+		cache.put("a", "1");
+		clock.advanceTime(999, TimeUnit.MILLISECONDS);
+		assertEquals("1", cache.getIfPresent("a"));
+
+		clock.advanceTime(1, TimeUnit.MILLISECONDS);
+		assertNull(cache.getIfPresent("a"));
+		assertEquals(0, cache.size());
+
+		assertEquals("2", cache.get("a", key -> "2"));
+		assertEquals("2", cache.getIfPresent("a"));
+	}
+
+	@Test
+	public void testCoalesceConcurrentLoads() throws Exception {
+		SharedLookupCache<String, String> cache = createCache(10, 1000, new ManualClock());
+		AtomicInteger numLoads = new AtomicInteger();
+		OneShotLatch loadStarted = new OneShotLatch();
+		OneShotLatch finishLoad = new OneShotLatch();
+
+		CheckedThread loader = new CheckedThread() {
+			@Override
+			public void go() throws Exception {
+				assertEquals("value", cache.get("key", key -> {
+					numLoads.incrementAndGet();
+					loadStarted.trigger();
+					finishLoad.await();
+					return "value";
+				}));
+			}
+		};
+		loader.start();
+		loadStarted.await();
+
+		CheckedThread waiter = new CheckedThread() {
+			@Override
+			public void go() throws Exception {
+				assertEquals("value", cache.get("key", key -> {
+					numLoads.incrementAndGet();
+					return "other";
+				}));
+			}
+		};
+		waiter.start();
+
+		finishLoad.trigger();
+		loader.sync();
+		waiter.sync();
+
+		assertEquals(1, numLoads.get());
+		assertEquals("value", cache.getIfPresent("key"));
+	}
+
+	@Test
+	public void testFailedLoad() throws Exception {
+		SharedLookupCache<String, String> cache = createCache(10, 1000, new ManualClock());
+
+		try {
+			cache.get("key", key -> {
+				throw new IOException("expected");
+			});
+			fail("The load should have failed.");
+		} catch (IOException e) {
+			assertEquals("expected", e.getMessage());
+		}
+
+		// failed loads are not cached
+		assertNull(cache.getIfPresent("key"));
+		assertEquals("value", cache.get("key", key -> "value"));
+	}
+
+	private static SharedLookupCache<String, String> createCache(long maxSize, long expireAfterWriteMillis, ManualClock clock) {
+		return new SharedLookupCache<>(
+			new SharedLookupCache.CacheId("table", maxSize, expireAfterWriteMillis), clock);
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.planner.functions.aggfunctions;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.functions.AggregateFunction;
+import org.apache.flink.table.runtime.util.MurmurHashUtil;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Aggregate function for APPROX_COUNT_DISTINCT.
+ *
+ * <p>The distinct count is estimated with a HyperLogLog sketch of {@link #NUM_REGISTERS} registers,
+ * which gives a relative standard error of about 1.6%. In contrast to COUNT(DISTINCT), the accumulator
+ * has a fixed size regardless of the number of distinct values, but it can not be retracted.
+ */
+public class ApproxCountDistinctAggFunction
+	extends AggregateFunction<Long, ApproxCountDistinctAggFunction.ApproxCountDistinctAccumulator> {
+
+	private static final long serialVersionUID = 4093813749561720368L;
+
+	/** Number of bits of the hash used to address a register. */
+	private static final int PRECISION = 12;
+
+	/** Number of registers of the sketch. */
+	static final int NUM_REGISTERS = 1 << PRECISION;
+
+	/** The bias correction constant of HyperLogLog for {@link #NUM_REGISTERS}. */
+	private static final double ALPHA = 0.7213 / (1 + 1.079 / NUM_REGISTERS);
+
+	/** Mixed into every value before hashing, so that common values like 0 don't hash to 0. */
+	private static final long HASH_SEED = 0x9E3779B97F4A7C15L;
+
+	/** The accumulator for APPROX_COUNT_DISTINCT, holding the registers of a HyperLogLog sketch. */
+	public static class ApproxCountDistinctAccumulator {
+		public byte[] registers = new byte[NUM_REGISTERS];
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			ApproxCountDistinctAccumulator that = (ApproxCountDistinctAccumulator) o;
+			return Arrays.equals(registers, that.registers);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(registers);
+		}
+	}
+
+	@Override
+	public ApproxCountDistinctAccumulator createAccumulator() {
+		return new ApproxCountDistinctAccumulator();
+	}
+
+	public void resetAccumulator(ApproxCountDistinctAccumulator accumulator) {
+		Arrays.fill(accumulator.registers, (byte) 0);
+	}
+
+	public void accumulate(ApproxCountDistinctAccumulator accumulator, Object value) {
+		if (value != null) {
+			long hash = hash(value);
+			int index = (int) (hash >>> (Long.SIZE - PRECISION));
+			// the remaining bits with a stop bit, so that the rank never exceeds 64 - PRECISION + 1
+			long remaining = (hash << PRECISION) | (1L << (PRECISION - 1));
+			byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+			if (accumulator.registers[index] < rank) {
+				accumulator.registers[index] = rank;
+			}
+		}
+	}
+
+	public void merge(ApproxCountDistinctAccumulator accumulator, Iterable<ApproxCountDistinctAccumulator> others) {
+		byte[] registers = accumulator.registers;
+		for (ApproxCountDistinctAccumulator other : others) {
+			for (int i = 0; i < NUM_REGISTERS; i++) {
+				if (registers[i] < other.registers[i]) {
+					registers[i] = other.registers[i];
+				}
+			}
+		}
+	}
+
+	@Override
+	public Long getValue(ApproxCountDistinctAccumulator accumulator) {
+		double sum = 0.0;
+		int zeros = 0;
+		for (byte register : accumulator.registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		double estimate = ALPHA * NUM_REGISTERS * NUM_REGISTERS / sum;
+		if (estimate <= 2.5 * NUM_REGISTERS && zeros > 0) {
+			// small range correction, use linear counting
+			estimate = NUM_REGISTERS * Math.log((double) NUM_REGISTERS / zeros);
+		}
+		// no large range correction is needed for a 64 bit hash
+		return Math.round(estimate);
+	}
+
+	@Override
+	public TypeInformation<Long> getResultType() {
+		return Types.LONG;
+	}
+
+	private static long hash(Object value) {
+		// values with more than 64 bits are hashed by their full binary representation, their 32 bit hashCode
+		// would limit the entropy that reaches the registers, and collides systematically for strings
+		if (value instanceof StringData) {
+			return hash(((StringData) value).toBytes());
+		} else if (value instanceof String) {
+			return hash(((String) value).getBytes(StandardCharsets.UTF_8));
+		} else if (value instanceof byte[]) {
+			return hash((byte[]) value);
+		} else if (value instanceof DecimalData) {
+			return hash(((DecimalData) value).toUnscaledBytes());
+		} else if (value instanceof BigDecimal) {
+			return hash(((BigDecimal) value).unscaledValue().toByteArray());
+		}
+
+		long bits;
+		if (value instanceof Long || value instanceof Integer
+				|| value instanceof Short || value instanceof Byte) {
+			bits = ((Number) value).longValue();
+		} else if (value instanceof Double) {
+			bits = Double.doubleToLongBits((Double) value);
+		} else if (value instanceof Float) {
+			bits = Float.floatToIntBits((Float) value);
+		} else if (value instanceof TimestampData) {
+			TimestampData timestamp = (TimestampData) value;
+			bits = MurmurHashUtil.fmix(timestamp.getMillisecond()) ^ timestamp.getNanoOfMillisecond();
+		} else {
+			bits = value.hashCode();
+		}
+		return MurmurHashUtil.fmix(bits ^ HASH_SEED);
+	}
+
+	private static long hash(byte[] bytes) {
+		return MurmurHashUtil.hashBytes64(bytes, 0, bytes.length, HASH_SEED);
+	}
+}
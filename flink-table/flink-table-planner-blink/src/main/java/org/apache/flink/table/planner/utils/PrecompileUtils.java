@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.utils;
+
+import org.apache.flink.api.dag.Transformation;
+import org.apache.flink.streaming.api.operators.StreamOperatorFactory;
+import org.apache.flink.streaming.api.transformations.AbstractMultipleInputTransformation;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
+import org.apache.flink.streaming.api.transformations.TwoInputTransformation;
+import org.apache.flink.table.api.config.ExecutionConfigOptions;
+import org.apache.flink.table.runtime.generated.GeneratedClass;
+import org.apache.flink.table.runtime.operators.CodeGenOperatorFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Utility class to compile generated operators before a job is submitted, see
+ * {@link ExecutionConfigOptions#TABLE_EXEC_CODEGEN_PRECOMPILE_ENABLED}.
+ */
+public class PrecompileUtils {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PrecompileUtils.class);
+
+	/**
+	 * Compiles the generated operators of the given {@link Transformation}s and their predecessors, so
+	 * their bytecode is shipped with the job. Operators which cannot be compiled here are left to the
+	 * tasks.
+	 */
+	public static void precompileGeneratedOperators(
+			List<Transformation<?>> transformations,
+			ClassLoader classLoader) {
+		Set<Transformation<?>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		int numPrecompiled = 0;
+		for (Transformation<?> transformation : transformations) {
+			for (Transformation<?> predecessor : transformation.getTransitivePredecessors()) {
+				if (!visited.add(predecessor)) {
+					continue;
+				}
+				StreamOperatorFactory<?> factory = getOperatorFactory(predecessor);
+				if (factory instanceof CodeGenOperatorFactory) {
+					GeneratedClass<?> generatedClass = ((CodeGenOperatorFactory<?>) factory).getGeneratedClass();
+					try {
+						generatedClass.precompile(classLoader);
+						numPrecompiled++;
+					} catch (Exception e) {
+						LOG.warn("Could not precompile {}, it will be compiled by the tasks.",
+							generatedClass.getClassName(), e);
+					}
+				}
+			}
+		}
+		LOG.debug("Precompiled {} generated operators.", numPrecompiled);
+	}
+
+	private static StreamOperatorFactory<?> getOperatorFactory(Transformation<?> transformation) {
+		if (transformation instanceof OneInputTransformation) {
+			return ((OneInputTransformation<?, ?>) transformation).getOperatorFactory();
+		} else if (transformation instanceof TwoInputTransformation) {
+			return ((TwoInputTransformation<?, ?, ?>) transformation).getOperatorFactory();
+		} else if (transformation instanceof AbstractMultipleInputTransformation) {
+			return ((AbstractMultipleInputTransformation<?>) transformation).getOperatorFactory();
+		} else {
+			return null;
+		}
+	}
+
+	private PrecompileUtils() {
+	}
+}
@@ -30,7 +30,9 @@ import org.apache.flink.table.planner.codegen.{CodeGeneratorContext, ExprCodeGen
 import org.apache.flink.table.planner.expressions.converter.ExpressionConverter
 import org.apache.flink.table.planner.plan.utils.DistinctInfo
 import org.apache.flink.table.runtime.types.LogicalTypeDataTypeConverter.fromDataTypeToLogicalType
+import org.apache.flink.table.runtime.util.collections.{ByteHashSet, DoubleHashSet, FloatHashSet, IntHashSet, LongHashSet, ShortHashSet}
 import org.apache.flink.table.types.DataType
+import org.apache.flink.table.types.logical.LogicalTypeRoot.{BIGINT, DOUBLE, FLOAT, INTEGER, SMALLINT, TINYINT}
 import org.apache.flink.table.types.logical.utils.LogicalTypeChecks
 import org.apache.flink.table.types.logical.{LogicalType, RowType}
 import org.apache.flink.util.Preconditions
@@ -45,6 +47,12 @@ import java.lang.{Long => JLong}
   * is used to store the unique keys and the frequency of appearance. When a key is been seen the
   * first time, we will trigger the inner aggregate function's accumulate() function.
   *
+  * If the MapView is backed by keyed state, the input is insert-only, there are no filters and
+  * the key is a single primitive field, the keys which are already in the MapView are also
+  * remembered in a primitive hash set, e.g. [[LongHashSet]], until the accumulators are set
+  * or reset. Repeated keys of the same accumulators, e.g. within a mini-batch bundle, then don't
+  * access the state at all, as accumulating them again wouldn't change anything.
+  *
   * @param ctx  the code gen context
   * @param distinctInfo the distinct information
   * @param distinctIndex  the index of this distinct in all distincts
@@ -92,8 +100,10 @@ class DistinctAggCodeGen(
 
   val isValueChangedTerm: String = s"is_distinct_value_changed_$distinctIndex"
   val isValueEmptyTerm: String = s"is_distinct_value_empty_$distinctIndex"
+  val seenKeysTerm: String = s"distinct_seen_keys_$distinctIndex"
   val valueGenerator: DistinctValueGenerator = createDistinctValueGenerator()
   private val rexNodeGen = new ExpressionConverter(relBuilder)
+  private val seenKeysSet: Option[(String, String)] = createSeenKeysSet()
 
   addReusableDistinctAccumulator()
 
@@ -124,6 +134,10 @@ class DistinctAggCodeGen(
       ctx.addReusableMember(s"private $MAP_VIEW $distinctBackupAccTerm;")
     }
 
+    seenKeysSet.foreach { case (setTypeTerm, _) =>
+      ctx.addReusableMember(s"private $setTypeTerm $seenKeysTerm;")
+    }
+
     // when dataview works on state, assign the stateDataView to accTerm in open method
     distinctInfo.dataViewSpec match {
       case Some(spec) =>
@@ -161,15 +175,19 @@ class DistinctAggCodeGen(
       aggBufferOffset,
       useStateDataView = true,
       useBackupDataView = false)
-    // return empty because the access code is set in ctx's ReusableInputUnboxingExprs
-    ""
+    // only the seen keys are reset because the access code is set in ctx's
+    // ReusableInputUnboxingExprs
+    resetSeenKeys()
   }
 
   override def resetAccumulator(generator: ExprCodeGenerator): String = {
     if (distinctInfo.excludeAcc) {
-      ""
+      resetSeenKeys()
     } else {
-      s"$distinctAccTerm.clear();"
+      s"""
+         |$distinctAccTerm.clear();
+         |${resetSeenKeys()}
+       """.stripMargin
     }
   }
 
@@ -205,14 +223,13 @@ class DistinctAggCodeGen(
 
     val head =
       s"""
-         |${keyExpr.code}
          |$valueTypeTerm $valueTerm = ($valueTypeTerm) $distinctAccTerm.get($key);
          |if ($valueTerm == null) {
          |  $valueTerm = ${valueGenerator.initialValue};
          |}
        """.stripMargin
 
-    val body = if (consumeRetraction) {
+    val updateCode = if (consumeRetraction) {
       // input contains retraction, due to local/global, the value might be empty, and need remove
       s"""
          |$head
@@ -236,6 +253,33 @@ class DistinctAggCodeGen(
        """.stripMargin
     }
 
+    val body = seenKeysSet match {
+      case Some((setTypeTerm, unboxMethod)) =>
+        // all inner aggregates have accumulated a seen key already, skip the state access
+        val isKeySeenTerm = newName("is_distinct_key_seen")
+        s"""
+           |${keyExpr.code}
+           |if ($seenKeysTerm == null) {
+           |  $seenKeysTerm = new $setTypeTerm();
+           |}
+           |boolean $isKeySeenTerm;
+           |if ($key == null) {
+           |  $isKeySeenTerm = $seenKeysTerm.containsNull();
+           |  $seenKeysTerm.addNull();
+           |} else {
+           |  $isKeySeenTerm = !$seenKeysTerm.add($key.$unboxMethod());
+           |}
+           |if (!$isKeySeenTerm) {
+           |  $updateCode
+           |}
+         """.stripMargin
+      case None =>
+        s"""
+           |${keyExpr.code}
+           |$updateCode
+         """.stripMargin
+    }
+
     if (filterResults.forall(_.isDefined)) {
       // using the `condition` below to filter data so as to reduce state cost
       // if all distinct aggregations on same column have filter.
@@ -328,6 +372,7 @@ class DistinctAggCodeGen(
     val otherValue = "otherValue"
 
     s"""
+       |${resetSeenKeys()}
        |$ITERABLE<$MAP_ENTRY> $otherEntries = ($ITERABLE<$MAP_ENTRY>) $otherAccTerm.entries();
        |if ($otherEntries != null) {
        |  for ($MAP_ENTRY entry: $otherEntries) {
@@ -372,6 +417,31 @@ class DistinctAggCodeGen(
     }
   }
 
+  /**
+    * Returns the primitive hash set class and the unboxing method of the distinct key if the
+    * seen keys can be cached, see the class comment.
+    */
+  private def createSeenKeysSet(): Option[(String, String)] = {
+    if (consumeRetraction || hasNamespace || distinctInfo.dataViewSpec.isEmpty ||
+        filterExpressions.exists(_.isDefined) || distinctInfo.argIndexes.length != 1) {
+      None
+    } else {
+      internalKeyType.getTypeRoot match {
+        case TINYINT => Some((className[ByteHashSet], "byteValue"))
+        case SMALLINT => Some((className[ShortHashSet], "shortValue"))
+        case INTEGER => Some((className[IntHashSet], "intValue"))
+        case BIGINT => Some((className[LongHashSet], "longValue"))
+        case FLOAT => Some((className[FloatHashSet], "floatValue"))
+        case DOUBLE => Some((className[DoubleHashSet], "doubleValue"))
+        case _ => None
+      }
+    }
+  }
+
+  private def resetSeenKeys(): String = {
+    if (seenKeysSet.isDefined) s"$seenKeysTerm = null;" else ""
+  }
+
   private def generateKeyExpression(
       ctx: CodeGeneratorContext,
       generator: ExprCodeGenerator): GeneratedExpression = {
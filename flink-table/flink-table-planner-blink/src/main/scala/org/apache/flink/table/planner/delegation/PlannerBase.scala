@@ -43,7 +43,7 @@ import org.apache.flink.table.planner.plan.reuse.SubplanReuser
 import org.apache.flink.table.planner.plan.utils.SameRelObjectShuttle
 import org.apache.flink.table.planner.sinks.TableSinkUtils.{inferSinkPhysicalSchema, validateLogicalPhysicalTypesCompatible, validateSchemaAndApplyImplicitCast, validateTableSink}
 import org.apache.flink.table.planner.sinks.{DataStreamTableSink, SelectTableSinkBase, SelectTableSinkSchemaConverter}
-import org.apache.flink.table.planner.utils.JavaScalaConversionUtil
+import org.apache.flink.table.planner.utils.{JavaScalaConversionUtil, PrecompileUtils}
 import org.apache.flink.table.sinks.TableSink
 import org.apache.flink.table.types.utils.LegacyTypeInfoDataTypeConverter
 import org.apache.flink.table.utils.TableSchemaUtils
@@ -163,7 +163,14 @@ abstract class PlannerBase(
     val relNodes = modifyOperations.map(translateToRel)
     val optimizedRelNodes = optimize(relNodes)
     val execNodes = translateToExecNodePlan(optimizedRelNodes)
-    translateToPlan(execNodes)
+    val transformations = translateToPlan(execNodes)
+    if (getTableConfig.getConfiguration.getBoolean(
+        ExecutionConfigOptions.TABLE_EXEC_CODEGEN_PRECOMPILE_ENABLED)) {
+      PrecompileUtils.precompileGeneratedOperators(
+        transformations,
+        Thread.currentThread().getContextClassLoader)
+    }
+    transformations
   }
 
   protected def overrideEnvParallelism(): Unit = {
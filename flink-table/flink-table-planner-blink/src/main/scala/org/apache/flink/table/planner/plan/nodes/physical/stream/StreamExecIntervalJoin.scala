@@ -25,6 +25,7 @@ import org.apache.flink.streaming.api.operators.co.KeyedCoProcessOperator
 import org.apache.flink.streaming.api.operators.{StreamFlatMap, StreamMap, TwoInputStreamOperator}
 import org.apache.flink.streaming.api.transformations.{OneInputTransformation, TwoInputTransformation, UnionTransformation}
 import org.apache.flink.table.api.TableException
+import org.apache.flink.table.api.config.ExecutionConfigOptions
 import org.apache.flink.table.data.RowData
 import org.apache.flink.table.planner.calcite.FlinkTypeFactory
 import org.apache.flink.table.planner.delegation.StreamPlanner
@@ -165,6 +166,10 @@ class StreamExecIntervalJoin(
             remainCondition,
             "IntervalJoinFunction")
 
+          val stateSliceSize = planner.getTableConfig.getConfiguration.getOptional(
+            ExecutionConfigOptions.TABLE_EXEC_INTERVAL_JOIN_STATE_SLICE_SIZE)
+          val stateSliceMillis = if (stateSliceSize.isPresent) stateSliceSize.get.toMillis else 0L
+
           if (isRowTime) {
             createRowTimeJoin(
               leftPlan,
@@ -172,7 +177,8 @@ class StreamExecIntervalJoin(
               returnType,
               joinFunction,
               leftKeys,
-              rightKeys)
+              rightKeys,
+              stateSliceMillis)
           } else {
             createProcTimeJoin(
               leftPlan,
@@ -180,7 +186,8 @@ class StreamExecIntervalJoin(
               returnType,
               joinFunction,
               leftKeys,
-              rightKeys)
+              rightKeys,
+              stateSliceMillis)
           }
         }
       case FlinkJoinType.ANTI =>
@@ -273,7 +280,8 @@ class StreamExecIntervalJoin(
       returnTypeInfo: RowDataTypeInfo,
       joinFunction: GeneratedFunction[FlatJoinFunction[RowData, RowData, RowData]],
       leftKeys: Array[Int],
-      rightKeys: Array[Int]): Transformation[RowData] = {
+      rightKeys: Array[Int],
+      stateSliceSize: Long): Transformation[RowData] = {
     val leftTypeInfo = leftPlan.getOutputType.asInstanceOf[RowDataTypeInfo]
     val rightTypeInfo = rightPlan.getOutputType.asInstanceOf[RowDataTypeInfo]
     val procJoinFunc = new ProcTimeIntervalJoin(
@@ -282,7 +290,8 @@ class StreamExecIntervalJoin(
       leftUpperBound,
       leftTypeInfo,
       rightTypeInfo,
-      joinFunction)
+      joinFunction,
+      stateSliceSize)
 
     val ret = new TwoInputTransformation[RowData, RowData, RowData](
       leftPlan,
@@ -313,7 +322,8 @@ class StreamExecIntervalJoin(
       returnTypeInfo: RowDataTypeInfo,
       joinFunction: GeneratedFunction[FlatJoinFunction[RowData, RowData, RowData]],
       leftKeys: Array[Int],
-      rightKeys: Array[Int]
+      rightKeys: Array[Int],
+      stateSliceSize: Long
   ): Transformation[RowData] = {
     val leftTypeInfo = leftPlan.getOutputType.asInstanceOf[RowDataTypeInfo]
     val rightTypeInfo = rightPlan.getOutputType.asInstanceOf[RowDataTypeInfo]
@@ -326,7 +336,8 @@ class StreamExecIntervalJoin(
       rightTypeInfo,
       joinFunction,
       leftTimeIndex,
-      rightTimeIndex)
+      rightTimeIndex,
+      stateSliceSize)
 
     val ret = new TwoInputTransformation[RowData, RowData, RowData](
       leftPlan,
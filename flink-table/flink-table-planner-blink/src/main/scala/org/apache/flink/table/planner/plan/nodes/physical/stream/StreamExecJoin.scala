@@ -20,6 +20,7 @@ package org.apache.flink.table.planner.plan.nodes.physical.stream
 
 import org.apache.flink.api.dag.Transformation
 import org.apache.flink.streaming.api.transformations.TwoInputTransformation
+import org.apache.flink.table.api.config.ExecutionConfigOptions
 import org.apache.flink.table.data.RowData
 import org.apache.flink.table.planner.calcite.FlinkTypeFactory
 import org.apache.flink.table.planner.delegation.StreamPlanner
@@ -166,7 +167,9 @@ class StreamExecJoin(
         leftIsOuter,
         rightIsOuter,
         filterNulls,
-        minRetentionTime)
+        minRetentionTime,
+        tableConfig.getConfiguration.getInteger(
+          ExecutionConfigOptions.TABLE_EXEC_JOIN_RECORDS_CACHE_SIZE))
     }
 
     val ret = new TwoInputTransformation[RowData, RowData, RowData](
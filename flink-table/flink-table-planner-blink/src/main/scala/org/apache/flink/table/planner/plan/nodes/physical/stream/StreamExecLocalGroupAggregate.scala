@@ -19,7 +19,10 @@ package org.apache.flink.table.planner.plan.nodes.physical.stream
 
 import org.apache.flink.api.dag.Transformation
 import org.apache.flink.api.java.functions.KeySelector
+import org.apache.flink.configuration.MemorySize
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator
 import org.apache.flink.streaming.api.transformations.OneInputTransformation
+import org.apache.flink.table.api.config.ExecutionConfigOptions
 import org.apache.flink.table.data.RowData
 import org.apache.flink.table.planner.calcite.FlinkTypeFactory
 import org.apache.flink.table.planner.codegen.CodeGeneratorContext
@@ -29,7 +32,8 @@ import org.apache.flink.table.planner.plan.PartialFinalType
 import org.apache.flink.table.planner.plan.nodes.exec.{ExecNode, StreamExecNode}
 import org.apache.flink.table.planner.plan.utils.{KeySelectorUtil, _}
 import org.apache.flink.table.runtime.operators.aggregate.MiniBatchLocalGroupAggFunction
-import org.apache.flink.table.runtime.operators.bundle.MapBundleOperator
+import org.apache.flink.table.runtime.operators.bundle.{BinaryMapBundleOperator, MapBundleOperator}
+import org.apache.flink.table.runtime.types.LogicalTypeDataTypeConverter.fromDataTypeToLogicalType
 import org.apache.flink.table.runtime.typeutils.RowDataTypeInfo
 
 import org.apache.calcite.plan.{RelOptCluster, RelTraitSet}
@@ -130,10 +134,26 @@ class StreamExecLocalGroupAggregate(
     val inputTypeInfo = inputTransformation.getOutputType.asInstanceOf[RowDataTypeInfo]
     val selector = KeySelectorUtil.getRowDataSelector(grouping, inputTypeInfo)
 
-    val operator = new MapBundleOperator(
-      aggFunction,
-      AggregateUtil.createMiniBatchTrigger(planner.getTableConfig),
-      selector.asInstanceOf[KeySelector[RowData, RowData]])
+    val keyTypes = grouping.map(inRowType.getTypeAt)
+    val accTypes = aggInfoList.getAccTypes.map(fromDataTypeToLogicalType)
+    val managedMemory = planner.getTableConfig.getConfiguration.getOptional(
+      ExecutionConfigOptions.TABLE_EXEC_MINIBATCH_LOCAL_AGG_MANAGED_MEMORY)
+    val useManagedMemory = managedMemory.isPresent && grouping.nonEmpty &&
+      BinaryMapBundleOperator.isFixedLength(accTypes)
+
+    val operator: OneInputStreamOperator[RowData, RowData] = if (useManagedMemory) {
+      new BinaryMapBundleOperator(
+        aggFunction,
+        AggregateUtil.createMiniBatchTrigger(planner.getTableConfig),
+        selector.asInstanceOf[KeySelector[RowData, RowData]],
+        keyTypes,
+        accTypes)
+    } else {
+      new MapBundleOperator(
+        aggFunction,
+        AggregateUtil.createMiniBatchTrigger(planner.getTableConfig),
+        selector.asInstanceOf[KeySelector[RowData, RowData]])
+    }
 
     val transformation = new OneInputTransformation(
       inputTransformation,
@@ -142,6 +162,16 @@ class StreamExecLocalGroupAggregate(
       RowDataTypeInfo.of(outRowType),
       inputTransformation.getParallelism)
 
+    if (useManagedMemory) {
+      val memoryBytes = managedMemory.get.getBytes
+      if (memoryBytes <= MemorySize.ofMebiBytes(1).getBytes) {
+        throw new IllegalArgumentException(
+          ExecutionConfigOptions.TABLE_EXEC_MINIBATCH_LOCAL_AGG_MANAGED_MEMORY.key() +
+            " must be larger than 1 mb.")
+      }
+      ExecNode.setManagedMemoryWeight(transformation, memoryBytes)
+    }
+
     if (inputsContainSingleton()) {
       transformation.setParallelism(1)
       transformation.setMaxParallelism(1)
@@ -23,7 +23,7 @@ import org.apache.flink.configuration.ConfigOption
 import org.apache.flink.configuration.ConfigOptions.key
 import org.apache.flink.streaming.api.operators.KeyedProcessOperator
 import org.apache.flink.streaming.api.transformations.OneInputTransformation
-import org.apache.flink.table.api.TableException
+import org.apache.flink.table.api.{TableConfig, TableException}
 import org.apache.flink.table.data.RowData
 import org.apache.flink.table.planner.calcite.FlinkTypeFactory
 import org.apache.flink.table.planner.codegen.EqualiserCodeGenerator
@@ -40,7 +40,7 @@ import org.apache.calcite.rel._
 import org.apache.calcite.rel.`type`.RelDataTypeField
 import org.apache.calcite.util.ImmutableBitSet
 
-import java.lang.{Long => JLong}
+import java.lang.{Boolean => JBoolean, Long => JLong}
 import java.util
 
 import scala.collection.JavaConversions._
@@ -196,7 +196,8 @@ class StreamExecRank(
           rankRange,
           generatedEqualiser,
           generateUpdateBefore,
-          outputRankNumber)
+          outputRankNumber,
+          StreamExecRank.getRetractableTopNCacheSize(tableConfig))
     }
     val operator = new KeyedProcessOperator(processFunction)
     processFunction.setKeyContext(operator)
@@ -232,4 +233,29 @@ object StreamExecRank {
       .defaultValue(JLong.valueOf(10000L))
       .withDescription("TopN operator has a cache which caches partial state contents to reduce" +
           " state access. Cache size is the number of records in each TopN task.")
+
+  // It is a experimental config, will may be removed later.
+  @Experimental
+  val TABLE_EXEC_TOPN_INCREMENTAL_STATE_ENABLED: ConfigOption[JBoolean] =
+  key("table.exec.topn.incremental-state.enabled")
+      .defaultValue(JBoolean.FALSE)
+      .withDescription("Whether the TopN operator on an updating input stores the count of every" +
+          " sort key as a separate state entry, so that a record only accesses the sort keys whose" +
+          " ranks change instead of reading and rewriting all sort keys of the partition. The sort" +
+          " keys of recently accessed partitions are cached on heap, bounded by" +
+          " 'table.exec.topn.cache-size'. Note that the state layout differs from the default one," +
+          " so the option can not be changed when restoring from a savepoint.")
+
+  /**
+    * Returns the cache size for [[RetractableTopNFunction]], which is 0 (i.e. the sort keys
+    * are kept in a single sorted map state) unless incremental state is enabled.
+    */
+  def getRetractableTopNCacheSize(tableConfig: TableConfig): Long = {
+    val conf = tableConfig.getConfiguration
+    if (conf.getBoolean(TABLE_EXEC_TOPN_INCREMENTAL_STATE_ENABLED)) {
+      conf.getLong(TABLE_EXEC_TOPN_CACHE_SIZE)
+    } else {
+      0L
+    }
+  }
 }
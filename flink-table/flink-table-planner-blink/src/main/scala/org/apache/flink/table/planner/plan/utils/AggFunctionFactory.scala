@@ -84,7 +84,10 @@ class AggFunctionFactory(
       case _: SqlCountAggFunction if call.getArgList.size() > 1 =>
         throw new TableException("We now only support the count of one field.")
 
-      // TODO supports ApproximateCountDistinctAggFunction and CountDistinctAggFunction
+      case _: SqlCountAggFunction if call.isApproximate && call.isDistinct =>
+        createApproxCountDistinctAggFunction(argTypes, index)
+
+      // TODO supports CountDistinctAggFunction
 
       case _: SqlCountAggFunction if call.getArgList.isEmpty => createCount1AggFunction(argTypes)
 
@@ -460,6 +463,16 @@ class AggFunctionFactory(
     new CountAggFunction
   }
 
+  private def createApproxCountDistinctAggFunction(
+      argTypes: Array[LogicalType],
+      index: Int): UserDefinedFunction = {
+    if (needRetraction(index)) {
+      throw new TableException("APPROX_COUNT_DISTINCT can not consume retraction messages, " +
+        "please use COUNT(DISTINCT) instead.")
+    }
+    new ApproxCountDistinctAggFunction
+  }
+
   private def createSingleValueAggFunction(argTypes: Array[LogicalType]): UserDefinedFunction = {
     argTypes(0).getTypeRoot match {
       case TINYINT =>
@@ -36,7 +36,8 @@ import org.apache.flink.table.planner.functions.sql.{FlinkSqlOperatorTable, SqlF
 import org.apache.flink.table.planner.functions.utils.AggSqlFunction
 import org.apache.flink.table.planner.functions.utils.UserDefinedFunctionUtils._
 import org.apache.flink.table.planner.plan.`trait`.{ModifyKindSetTraitDef, RelModifiedMonotonicity}
-import org.apache.flink.table.runtime.operators.bundle.trigger.CountBundleTrigger
+import org.apache.flink.table.planner.utils.TableConfigUtils.getMillisecondFromConfigDuration
+import org.apache.flink.table.runtime.operators.bundle.trigger.{AdaptiveBundleTrigger, BundleTrigger, CountBundleTrigger, RowDataSizeEstimator}
 import org.apache.flink.table.runtime.types.LogicalTypeDataTypeConverter.{fromDataTypeToLogicalType, fromLogicalTypeToDataType}
 import org.apache.flink.table.runtime.types.TypeInfoDataTypeConverter.fromDataTypeToTypeInfo
 import org.apache.flink.table.types.DataType
@@ -702,14 +703,27 @@ object AggregateUtil extends Enumeration {
   /**
     * Creates a MiniBatch trigger depends on the config.
     */
-  def createMiniBatchTrigger(tableConfig: TableConfig): CountBundleTrigger[RowData] = {
-    val size = tableConfig.getConfiguration.getLong(
-      ExecutionConfigOptions.TABLE_EXEC_MINIBATCH_SIZE)
+  def createMiniBatchTrigger(tableConfig: TableConfig): BundleTrigger[RowData] = {
+    val config = tableConfig.getConfiguration
+    val size = config.getLong(ExecutionConfigOptions.TABLE_EXEC_MINIBATCH_SIZE)
     if (size <= 0 ) {
       throw new IllegalArgumentException(
         ExecutionConfigOptions.TABLE_EXEC_MINIBATCH_SIZE + " must be > 0.")
     }
-    new CountBundleTrigger[RowData](size)
+    val memorySize = config.getOptional(ExecutionConfigOptions.TABLE_EXEC_MINIBATCH_MEMORY_SIZE)
+    val targetFinishTime = config.getOptional(
+      ExecutionConfigOptions.TABLE_EXEC_MINIBATCH_ADAPTIVE_TARGET_FINISH_TIME)
+    if (!memorySize.isPresent && !targetFinishTime.isPresent) {
+      new CountBundleTrigger[RowData](size)
+    } else {
+      val maxBytes = if (memorySize.isPresent) memorySize.get.getBytes else -1L
+      val targetFinishMillis =
+        if (targetFinishTime.isPresent) targetFinishTime.get.toMillis else -1L
+      val maxLatency: Long = getMillisecondFromConfigDuration(
+        tableConfig, ExecutionConfigOptions.TABLE_EXEC_MINIBATCH_ALLOW_LATENCY)
+      new AdaptiveBundleTrigger[RowData](
+        size, maxBytes, maxLatency, targetFinishMillis, new RowDataSizeEstimator)
+    }
   }
 
   /**
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.planner.functions.aggfunctions;
+
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.functions.AggregateFunction;
+import org.apache.flink.table.planner.functions.aggfunctions.ApproxCountDistinctAggFunction.ApproxCountDistinctAccumulator;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test case for built-in APPROX_COUNT_DISTINCT aggregate function.
+ */
+public final class ApproxCountDistinctAggFunctionTest
+	extends AggFunctionTestBase<Long, ApproxCountDistinctAccumulator> {
+
+	@Override
+	protected List<List<Long>> getInputValueSets() {
+		return Arrays.asList(
+				Arrays.asList(1L, 2L, 3L, 2L, 1L, 4L, 5L, null, 5L),
+				Arrays.asList(null, null, null),
+				Arrays.asList(7L, 7L, 7L, 7L),
+				Arrays.asList(-3L, -2L, -1L, 0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L)
+		);
+	}
+
+	@Override
+	protected List<Long> getExpectedResults() {
+		return Arrays.asList(5L, 0L, 1L, 11L);
+	}
+
+	@Override
+	protected AggregateFunction<Long, ApproxCountDistinctAccumulator> getAggregator() {
+		return new ApproxCountDistinctAggFunction();
+	}
+
+	@Override
+	protected Class<?> getAccClass() {
+		return ApproxCountDistinctAccumulator.class;
+	}
+
+	@Test
+	public void testEstimateOfManyDistinctValues() {
+		ApproxCountDistinctAggFunction aggregator = new ApproxCountDistinctAggFunction();
+		ApproxCountDistinctAccumulator acc = aggregator.createAccumulator();
+		int numValues = 100_000;
+		for (int i = 0; i < numValues; i++) {
+			// every value twice
+			aggregator.accumulate(acc, (long) i);
+			aggregator.accumulate(acc, (long) i);
+		}
+		long estimate = aggregator.getValue(acc);
+		// the sketch has a relative standard error of about 1.6%
+		assertEquals((double) numValues, (double) estimate, numValues * 0.05);
+		// the accumulator keeps its size
+		assertEquals(ApproxCountDistinctAggFunction.NUM_REGISTERS, acc.registers.length);
+	}
+
+	@Test
+	public void testEstimateOfManyDistinctStrings() {
+		ApproxCountDistinctAggFunction aggregator = new ApproxCountDistinctAggFunction();
+		ApproxCountDistinctAccumulator acc = aggregator.createAccumulator();
+		int numValues = 100_000;
+		for (int i = 0; i < numValues; i++) {
+			// the same value as a string and as string data
+			aggregator.accumulate(acc, "value-" + i);
+			aggregator.accumulate(acc, StringData.fromString("value-" + i));
+		}
+		long estimate = aggregator.getValue(acc);
+		assertEquals((double) numValues, (double) estimate, numValues * 0.05);
+	}
+
+	@Test
+	public void testStringsWithSameHashCodeAreDistinct() {
+		ApproxCountDistinctAggFunction aggregator = new ApproxCountDistinctAggFunction();
+		ApproxCountDistinctAccumulator acc = aggregator.createAccumulator();
+		// "Aa" and "BB" have the same String#hashCode
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+		aggregator.accumulate(acc, "Aa");
+		aggregator.accumulate(acc, "BB");
+		assertEquals(2L, (long) aggregator.getValue(acc));
+	}
+}
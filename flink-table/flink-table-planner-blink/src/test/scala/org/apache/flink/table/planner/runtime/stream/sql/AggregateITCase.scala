@@ -184,6 +184,36 @@ class AggregateITCase(
     assertEquals(expected.sorted, sink.getRetractResults.sorted)
   }
 
+  @Test
+  def testApproxCountDistinct(): Unit = {
+
+    val sqlQuery =
+      "SELECT b, " +
+        "  APPROX_COUNT_DISTINCT(a), " +
+        "  APPROX_COUNT_DISTINCT(c) " +
+        "FROM MyTable " +
+        "GROUP BY b"
+
+    val t = failingDataSource(TestData.tupleData3).toTable(tEnv, 'a, 'b, 'c)
+    tEnv.registerTable("MyTable", t)
+
+    val result = tEnv.sqlQuery(sqlQuery).toRetractStream[Row]
+    val sink = new TestingRetractSink
+    result.addSink(sink)
+    env.execute()
+
+    // the estimates are exact for such small numbers of distinct values
+    val expected = List(
+      "1,1,1",
+      "2,2,2",
+      "3,3,3",
+      "4,4,4",
+      "5,5,5",
+      "6,6,6")
+
+    assertEquals(expected.sorted, sink.getRetractResults.sorted)
+  }
+
   @Test
   def testCountDistinct(): Unit = {
     val ids = List(
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.data.vector.filter;
+
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link VectorizedPredicate} which accepts the rows accepted by all its children. Every child only
+ * evaluates the rows accepted by the previous children.
+ */
+public final class AndPredicate implements VectorizedPredicate {
+
+	private static final long serialVersionUID = 1L;
+
+	private final VectorizedPredicate[] children;
+
+	public AndPredicate(VectorizedPredicate... children) {
+		checkArgument(children.length > 0, "No predicates given.");
+		this.children = checkNotNull(children);
+	}
+
+	@Override
+	public int filter(VectorizedColumnBatch batch, int[] selection, int numSelected) {
+		for (VectorizedPredicate child : children) {
+			if (numSelected == 0) {
+				break;
+			}
+			numSelected = child.filter(batch, selection, numSelected);
+		}
+		return numSelected;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.stream(children).map(Object::toString).collect(Collectors.joining(" AND ", "(", ")"));
+	}
+}
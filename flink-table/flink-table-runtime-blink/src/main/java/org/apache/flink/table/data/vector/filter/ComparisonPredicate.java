@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.data.vector.filter;
+
+import org.apache.flink.table.data.vector.BooleanColumnVector;
+import org.apache.flink.table.data.vector.ByteColumnVector;
+import org.apache.flink.table.data.vector.BytesColumnVector;
+import org.apache.flink.table.data.vector.DoubleColumnVector;
+import org.apache.flink.table.data.vector.FloatColumnVector;
+import org.apache.flink.table.data.vector.IntColumnVector;
+import org.apache.flink.table.data.vector.LongColumnVector;
+import org.apache.flink.table.data.vector.ShortColumnVector;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link VectorizedPredicate} which compares a column with a literal. Null values never match.
+ *
+ * <p>Each supported column type is evaluated by its own loop over the selected rows, so the type of the
+ * column vector is resolved once per batch instead of once per row.
+ */
+public final class ComparisonPredicate implements VectorizedPredicate {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int column;
+
+	private final LogicalTypeRoot typeRoot;
+
+	private final Comparison comparison;
+
+	private final long longLiteral;
+
+	private final double doubleLiteral;
+
+	/** The literal rounded to float precision, only used for FLOAT columns. */
+	private final float floatLiteral;
+
+	private final byte[] bytesLiteral;
+
+	private ComparisonPredicate(
+			int column,
+			LogicalTypeRoot typeRoot,
+			Comparison comparison,
+			long longLiteral,
+			double doubleLiteral,
+			float floatLiteral,
+			byte[] bytesLiteral) {
+		checkArgument(column >= 0, "Illegal column index.");
+		this.column = column;
+		this.typeRoot = checkNotNull(typeRoot);
+		this.comparison = checkNotNull(comparison);
+		this.longLiteral = longLiteral;
+		this.doubleLiteral = doubleLiteral;
+		this.floatLiteral = floatLiteral;
+		this.bytesLiteral = bytesLiteral;
+	}
+
+	/**
+	 * Creates a comparison of a TINYINT, SMALLINT, INTEGER, BIGINT or DATE column with an integral literal.
+	 */
+	public static ComparisonPredicate ofIntegral(int column, LogicalTypeRoot typeRoot, Comparison comparison, long literal) {
+		checkArgument(typeRoot == LogicalTypeRoot.TINYINT || typeRoot == LogicalTypeRoot.SMALLINT ||
+			typeRoot == LogicalTypeRoot.INTEGER || typeRoot == LogicalTypeRoot.BIGINT ||
+			typeRoot == LogicalTypeRoot.DATE, "Not an integral type: %s", typeRoot);
+		return new ComparisonPredicate(column, typeRoot, comparison, literal, 0.0, 0.0f, null);
+	}
+
+	/**
+	 * Creates a comparison of a FLOAT or DOUBLE column with a floating point literal.
+	 */
+	public static ComparisonPredicate ofFloatingPoint(int column, LogicalTypeRoot typeRoot, Comparison comparison, double literal) {
+		checkArgument(typeRoot == LogicalTypeRoot.FLOAT || typeRoot == LogicalTypeRoot.DOUBLE,
+			"Not a floating point type: %s", typeRoot);
+		return new ComparisonPredicate(column, typeRoot, comparison, 0L, literal, (float) literal, null);
+	}
+
+	/**
+	 * Creates a comparison of a FLOAT or DOUBLE column with an exact numeric literal, which is rounded to
+	 * the precisions of the column separately.
+	 */
+	public static ComparisonPredicate ofFloatingPoint(int column, LogicalTypeRoot typeRoot, Comparison comparison, BigDecimal literal) {
+		checkArgument(typeRoot == LogicalTypeRoot.FLOAT || typeRoot == LogicalTypeRoot.DOUBLE,
+			"Not a floating point type: %s", typeRoot);
+		return new ComparisonPredicate(column, typeRoot, comparison, 0L, literal.doubleValue(), literal.floatValue(), null);
+	}
+
+	/**
+	 * Creates a comparison of a BOOLEAN column with a boolean literal, where false is less than true.
+	 */
+	public static ComparisonPredicate ofBoolean(int column, Comparison comparison, boolean literal) {
+		return new ComparisonPredicate(column, LogicalTypeRoot.BOOLEAN, comparison, literal ? 1L : 0L, 0.0, 0.0f, null);
+	}
+
+	/**
+	 * Creates a comparison of a VARCHAR column with a string literal. Strings are compared by their
+	 * UTF-8 bytes, like {@link org.apache.flink.table.data.binary.BinaryStringData}.
+	 */
+	public static ComparisonPredicate ofString(int column, Comparison comparison, String literal) {
+		return new ComparisonPredicate(
+			column, LogicalTypeRoot.VARCHAR, comparison, 0L, 0.0, 0.0f, literal.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public int filter(VectorizedColumnBatch batch, int[] selection, int numSelected) {
+		switch (typeRoot) {
+			case TINYINT:
+				return filterByte((ByteColumnVector) batch.columns[column], selection, numSelected);
+			case SMALLINT:
+				return filterShort((ShortColumnVector) batch.columns[column], selection, numSelected);
+			case INTEGER:
+			case DATE:
+				return filterInt((IntColumnVector) batch.columns[column], selection, numSelected);
+			case BIGINT:
+				return filterLong((LongColumnVector) batch.columns[column], selection, numSelected);
+			case FLOAT:
+				return filterFloat((FloatColumnVector) batch.columns[column], selection, numSelected);
+			case DOUBLE:
+				return filterDouble((DoubleColumnVector) batch.columns[column], selection, numSelected);
+			case BOOLEAN:
+				return filterBoolean((BooleanColumnVector) batch.columns[column], selection, numSelected);
+			case VARCHAR:
+				return filterBytes((BytesColumnVector) batch.columns[column], selection, numSelected);
+			default:
+				throw new IllegalStateException("Unsupported type " + typeRoot);
+		}
+	}
+
+	private int filterByte(ByteColumnVector vector, int[] selection, int numSelected) {
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (!vector.isNullAt(row) && comparison.matches(Long.compare(vector.getByte(row), longLiteral))) {
+				selection[numAccepted++] = row;
+			}
+		}
+		return numAccepted;
+	}
+
+	private int filterShort(ShortColumnVector vector, int[] selection, int numSelected) {
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (!vector.isNullAt(row) && comparison.matches(Long.compare(vector.getShort(row), longLiteral))) {
+				selection[numAccepted++] = row;
+			}
+		}
+		return numAccepted;
+	}
+
+	private int filterInt(IntColumnVector vector, int[] selection, int numSelected) {
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (!vector.isNullAt(row) && comparison.matches(Long.compare(vector.getInt(row), longLiteral))) {
+				selection[numAccepted++] = row;
+			}
+		}
+		return numAccepted;
+	}
+
+	private int filterLong(LongColumnVector vector, int[] selection, int numSelected) {
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (!vector.isNullAt(row) && comparison.matches(Long.compare(vector.getLong(row), longLiteral))) {
+				selection[numAccepted++] = row;
+			}
+		}
+		return numAccepted;
+	}
+
+	private int filterFloat(FloatColumnVector vector, int[] selection, int numSelected) {
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (!vector.isNullAt(row)) {
+				// depending on the type of the literal, the filter condition compares the column in float or
+				// in double precision, which differ for literals like 0.1, so keep the rows that match in either
+				float value = vector.getFloat(row);
+				if (matchesFloatingPoint(value) || matchesFloat(value)) {
+					selection[numAccepted++] = row;
+				}
+			}
+		}
+		return numAccepted;
+	}
+
+	private int filterDouble(DoubleColumnVector vector, int[] selection, int numSelected) {
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (!vector.isNullAt(row) && matchesFloatingPoint(vector.getDouble(row))) {
+				selection[numAccepted++] = row;
+			}
+		}
+		return numAccepted;
+	}
+
+	private int filterBoolean(BooleanColumnVector vector, int[] selection, int numSelected) {
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (!vector.isNullAt(row) && comparison.matches(Long.compare(vector.getBoolean(row) ? 1L : 0L, longLiteral))) {
+				selection[numAccepted++] = row;
+			}
+		}
+		return numAccepted;
+	}
+
+	private int filterBytes(BytesColumnVector vector, int[] selection, int numSelected) {
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (!vector.isNullAt(row)) {
+				BytesColumnVector.Bytes bytes = vector.getBytes(row);
+				if (comparison.matches(compareBytes(bytes.data, bytes.offset, bytes.len, bytesLiteral))) {
+					selection[numAccepted++] = row;
+				}
+			}
+		}
+		return numAccepted;
+	}
+
+	private boolean matchesFloatingPoint(double value) {
+		// NaN has no defined order, keep the row and leave the decision to the filter condition
+		return Double.isNaN(value) || Double.isNaN(doubleLiteral) ||
+			comparison.matches(value < doubleLiteral ? -1 : (value > doubleLiteral ? 1 : 0));
+	}
+
+	private boolean matchesFloat(float value) {
+		return comparison.matches(value < floatLiteral ? -1 : (value > floatLiteral ? 1 : 0));
+	}
+
+	private static int compareBytes(byte[] data, int offset, int len, byte[] literal) {
+		int len2 = literal.length;
+		int minLen = Math.min(len, len2);
+		for (int i = 0; i < minLen; i++) {
+			int res = (data[offset + i] & 0xFF) - (literal[i] & 0xFF);
+			if (res != 0) {
+				return res;
+			}
+		}
+		return len - len2;
+	}
+
+	@Override
+	public String toString() {
+		String literal = bytesLiteral != null ? "'" + new String(bytesLiteral, StandardCharsets.UTF_8) + "'" :
+			(typeRoot == LogicalTypeRoot.FLOAT || typeRoot == LogicalTypeRoot.DOUBLE) ?
+				String.valueOf(doubleLiteral) : String.valueOf(longLiteral);
+		return "$" + column + " " + comparison + " " + literal;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The comparison operators.
+	 */
+	public enum Comparison {
+		EQUALS("="),
+		NOT_EQUALS("<>"),
+		LESS_THAN("<"),
+		LESS_THAN_OR_EQUAL("<="),
+		GREATER_THAN(">"),
+		GREATER_THAN_OR_EQUAL(">=");
+
+		private final String symbol;
+
+		Comparison(String symbol) {
+			this.symbol = symbol;
+		}
+
+		/**
+		 * Returns whether the result of comparing the value with the literal matches this comparison.
+		 */
+		boolean matches(int compareResult) {
+			switch (this) {
+				case EQUALS:
+					return compareResult == 0;
+				case NOT_EQUALS:
+					return compareResult != 0;
+				case LESS_THAN:
+					return compareResult < 0;
+				case LESS_THAN_OR_EQUAL:
+					return compareResult <= 0;
+				case GREATER_THAN:
+					return compareResult > 0;
+				case GREATER_THAN_OR_EQUAL:
+					return compareResult >= 0;
+				default:
+					throw new IllegalStateException("Unknown comparison " + this);
+			}
+		}
+
+		/**
+		 * Returns the comparison with swapped operands, e.g. {@code >} for {@code <}.
+		 */
+		public Comparison reverse() {
+			switch (this) {
+				case LESS_THAN:
+					return GREATER_THAN;
+				case LESS_THAN_OR_EQUAL:
+					return GREATER_THAN_OR_EQUAL;
+				case GREATER_THAN:
+					return LESS_THAN;
+				case GREATER_THAN_OR_EQUAL:
+					return LESS_THAN_OR_EQUAL;
+				default:
+					return this;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return symbol;
+		}
+	}
+}
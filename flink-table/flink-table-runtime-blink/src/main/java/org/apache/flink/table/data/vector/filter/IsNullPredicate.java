@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.data.vector.filter;
+
+import org.apache.flink.table.data.vector.ColumnVector;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A {@link VectorizedPredicate} which accepts the rows where a column is null, or not null.
+ */
+public final class IsNullPredicate implements VectorizedPredicate {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int column;
+
+	private final boolean isNull;
+
+	public IsNullPredicate(int column, boolean isNull) {
+		checkArgument(column >= 0, "Illegal column index.");
+		this.column = column;
+		this.isNull = isNull;
+	}
+
+	@Override
+	public int filter(VectorizedColumnBatch batch, int[] selection, int numSelected) {
+		ColumnVector vector = batch.columns[column];
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (vector.isNullAt(row) == isNull) {
+				selection[numAccepted++] = row;
+			}
+		}
+		return numAccepted;
+	}
+
+	@Override
+	public String toString() {
+		return "$" + column + (isNull ? " IS NULL" : " IS NOT NULL");
+	}
+}
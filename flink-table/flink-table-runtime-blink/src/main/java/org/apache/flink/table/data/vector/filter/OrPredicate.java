@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.data.vector.filter;
+
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link VectorizedPredicate} which accepts the rows accepted by any of its children. Every child only
+ * evaluates the rows which have not been accepted by the previous children.
+ */
+public final class OrPredicate implements VectorizedPredicate {
+
+	private static final long serialVersionUID = 1L;
+
+	private final VectorizedPredicate[] children;
+
+	/** The rows not accepted yet. */
+	private transient int[] remaining;
+
+	/** The rows evaluated by the current child, overwritten with the rows it accepted. */
+	private transient int[] candidates;
+
+	/** Flags of the accepted rows, by row id. */
+	private transient boolean[] accepted;
+
+	public OrPredicate(VectorizedPredicate... children) {
+		checkArgument(children.length > 0, "No predicates given.");
+		this.children = checkNotNull(children);
+	}
+
+	@Override
+	public int filter(VectorizedColumnBatch batch, int[] selection, int numSelected) {
+		if (numSelected == 0) {
+			return 0;
+		}
+		ensureCapacity(numSelected, batch.getNumRows());
+
+		System.arraycopy(selection, 0, remaining, 0, numSelected);
+		int numRemaining = numSelected;
+		for (VectorizedPredicate child : children) {
+			System.arraycopy(remaining, 0, candidates, 0, numRemaining);
+			int numAccepted = child.filter(batch, candidates, numRemaining);
+			if (numAccepted == 0) {
+				continue;
+			}
+
+			for (int i = 0; i < numAccepted; i++) {
+				accepted[candidates[i]] = true;
+			}
+			int newNumRemaining = 0;
+			for (int i = 0; i < numRemaining; i++) {
+				if (!accepted[remaining[i]]) {
+					remaining[newNumRemaining++] = remaining[i];
+				}
+			}
+			numRemaining = newNumRemaining;
+			if (numRemaining == 0) {
+				break;
+			}
+		}
+
+		int numAccepted = 0;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selection[i];
+			if (accepted[row]) {
+				accepted[row] = false;
+				selection[numAccepted++] = row;
+			}
+		}
+		return numAccepted;
+	}
+
+	private void ensureCapacity(int numSelected, int numRows) {
+		if (remaining == null || remaining.length < numSelected) {
+			remaining = new int[numSelected];
+			candidates = new int[numSelected];
+		}
+		if (accepted == null || accepted.length < numRows) {
+			accepted = new boolean[numRows];
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.stream(children).map(Object::toString).collect(Collectors.joining(" OR ", "(", ")"));
+	}
+}
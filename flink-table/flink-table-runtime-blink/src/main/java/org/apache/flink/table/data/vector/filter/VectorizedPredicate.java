@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.data.vector.filter;
+
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+
+import java.io.Serializable;
+
+/**
+ * A predicate which is evaluated on a whole {@link VectorizedColumnBatch} at once, instead of row by row.
+ *
+ * <p>The rows to evaluate are given by a selection vector, which contains the ids of the selected rows in
+ * ascending order. The predicate keeps the ids of the rows it accepts at the beginning of the selection
+ * vector, in the same order, and returns their number.
+ *
+ * <p>A predicate may accept more rows than the filter condition it was derived from, e.g. when parts of the
+ * condition cannot be evaluated on column vectors. It must never reject a row for which the condition is
+ * true, so the condition still has to be evaluated on the accepted rows.
+ */
+public interface VectorizedPredicate extends Serializable {
+
+	/**
+	 * Filters the selected rows of the batch.
+	 *
+	 * @param batch The batch to filter.
+	 * @param selection The ids of the selected rows, overwritten with the ids of the accepted rows.
+	 * @param numSelected The number of selected rows.
+	 * @return The number of accepted rows.
+	 */
+	int filter(VectorizedColumnBatch batch, int[] selection, int numSelected);
+}
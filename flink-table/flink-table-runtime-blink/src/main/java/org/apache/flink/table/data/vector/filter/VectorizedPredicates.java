@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.data.vector.filter;
+
+import org.apache.flink.table.data.vector.filter.ComparisonPredicate.Comparison;
+import org.apache.flink.table.expressions.CallExpression;
+import org.apache.flink.table.expressions.Expression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.expressions.ValueLiteralExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.functions.FunctionDefinition;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeFamily;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.apache.flink.table.types.logical.utils.LogicalTypeChecks.hasFamily;
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Utilities to derive a {@link VectorizedPredicate} from filter expressions, e.g. the filters pushed down
+ * into a columnar format.
+ */
+public final class VectorizedPredicates {
+
+	/**
+	 * Derives a predicate from the conjunction of the given filters, which is evaluated on batches with the
+	 * given columns. Filters which cannot be evaluated on column vectors are ignored, so the returned
+	 * predicate may accept more rows than the filters.
+	 *
+	 * @param filters the filters, which are combined by AND
+	 * @param fieldNames the names of the columns of the batches
+	 * @param fieldTypes the types of the columns of the batches
+	 * @return the predicate, or empty if none of the filters can be evaluated on column vectors
+	 */
+	public static Optional<VectorizedPredicate> fromExpressions(
+			List<? extends Expression> filters,
+			String[] fieldNames,
+			LogicalType[] fieldTypes) {
+		checkArgument(fieldNames.length == fieldTypes.length, "Field names and types do not match.");
+		List<VectorizedPredicate> predicates = new ArrayList<>();
+		for (Expression filter : filters) {
+			convertConjunct(filter, fieldNames, fieldTypes).ifPresent(predicates::add);
+		}
+		return and(predicates);
+	}
+
+	/**
+	 * Converts an expression of which any unsupported part may be ignored, i.e. replaced by TRUE.
+	 */
+	private static Optional<VectorizedPredicate> convertConjunct(
+			Expression expression,
+			String[] fieldNames,
+			LogicalType[] fieldTypes) {
+		if (expression instanceof CallExpression &&
+				((CallExpression) expression).getFunctionDefinition() == BuiltInFunctionDefinitions.AND) {
+			List<VectorizedPredicate> predicates = new ArrayList<>();
+			for (Expression child : expression.getChildren()) {
+				convertConjunct(child, fieldNames, fieldTypes).ifPresent(predicates::add);
+			}
+			return and(predicates);
+		}
+		return convert(expression, fieldNames, fieldTypes);
+	}
+
+	/**
+	 * Converts an expression which has to be supported completely.
+	 */
+	private static Optional<VectorizedPredicate> convert(
+			Expression expression,
+			String[] fieldNames,
+			LogicalType[] fieldTypes) {
+		if (!(expression instanceof CallExpression)) {
+			return Optional.empty();
+		}
+		CallExpression call = (CallExpression) expression;
+		FunctionDefinition function = call.getFunctionDefinition();
+		List<Expression> children = call.getChildren();
+
+		if (function == BuiltInFunctionDefinitions.AND || function == BuiltInFunctionDefinitions.OR) {
+			List<VectorizedPredicate> predicates = new ArrayList<>();
+			for (Expression child : children) {
+				Optional<VectorizedPredicate> predicate = convert(child, fieldNames, fieldTypes);
+				if (!predicate.isPresent()) {
+					return Optional.empty();
+				}
+				predicates.add(predicate.get());
+			}
+			return function == BuiltInFunctionDefinitions.AND ? and(predicates) : or(predicates);
+		} else if (function == BuiltInFunctionDefinitions.IS_NULL ||
+				function == BuiltInFunctionDefinitions.IS_NOT_NULL) {
+			if (children.size() != 1 || !(children.get(0) instanceof FieldReferenceExpression)) {
+				return Optional.empty();
+			}
+			int column = indexOf(fieldNames, ((FieldReferenceExpression) children.get(0)).getName());
+			return column < 0 ? Optional.empty() :
+				Optional.of(new IsNullPredicate(column, function == BuiltInFunctionDefinitions.IS_NULL));
+		}
+
+		Comparison comparison = toComparison(function);
+		if (comparison == null || children.size() != 2) {
+			return Optional.empty();
+		}
+		if (children.get(0) instanceof FieldReferenceExpression &&
+				children.get(1) instanceof ValueLiteralExpression) {
+			return convertComparison(
+				(FieldReferenceExpression) children.get(0),
+				comparison,
+				(ValueLiteralExpression) children.get(1),
+				fieldNames,
+				fieldTypes);
+		} else if (children.get(0) instanceof ValueLiteralExpression &&
+				children.get(1) instanceof FieldReferenceExpression) {
+			return convertComparison(
+				(FieldReferenceExpression) children.get(1),
+				comparison.reverse(),
+				(ValueLiteralExpression) children.get(0),
+				fieldNames,
+				fieldTypes);
+		}
+		return Optional.empty();
+	}
+
+	private static Optional<VectorizedPredicate> convertComparison(
+			FieldReferenceExpression field,
+			Comparison comparison,
+			ValueLiteralExpression literal,
+			String[] fieldNames,
+			LogicalType[] fieldTypes) {
+		int column = indexOf(fieldNames, field.getName());
+		if (column < 0 || literal.isNull()) {
+			return Optional.empty();
+		}
+		LogicalType fieldType = fieldTypes[column];
+		LogicalType literalType = literal.getOutputDataType().getLogicalType();
+		LogicalTypeRoot typeRoot = fieldType.getTypeRoot();
+		switch (typeRoot) {
+			case TINYINT:
+			case SMALLINT:
+			case INTEGER:
+			case BIGINT:
+				if (!hasFamily(literalType, LogicalTypeFamily.INTEGER_NUMERIC)) {
+					return Optional.empty();
+				}
+				return literal.getValueAs(BigDecimal.class)
+					.map(value -> ComparisonPredicate.ofIntegral(column, typeRoot, comparison, value.longValueExact()));
+			case DATE:
+				if (literalType.getTypeRoot() != LogicalTypeRoot.DATE) {
+					return Optional.empty();
+				}
+				return literal.getValueAs(LocalDate.class)
+					.map(value -> ComparisonPredicate.ofIntegral(column, typeRoot, comparison, value.toEpochDay()));
+			case FLOAT:
+			case DOUBLE:
+				if (!hasFamily(literalType, LogicalTypeFamily.NUMERIC)) {
+					return Optional.empty();
+				}
+				return literal.getValueAs(BigDecimal.class)
+					.map(value -> ComparisonPredicate.ofFloatingPoint(column, typeRoot, comparison, value));
+			case BOOLEAN:
+				if (literalType.getTypeRoot() != LogicalTypeRoot.BOOLEAN) {
+					return Optional.empty();
+				}
+				return literal.getValueAs(Boolean.class)
+					.map(value -> ComparisonPredicate.ofBoolean(column, comparison, value));
+			case VARCHAR:
+				if (!hasFamily(literalType, LogicalTypeFamily.CHARACTER_STRING)) {
+					return Optional.empty();
+				}
+				return literal.getValueAs(String.class)
+					.map(value -> ComparisonPredicate.ofString(column, comparison, value));
+			default:
+				return Optional.empty();
+		}
+	}
+
+	private static Comparison toComparison(FunctionDefinition function) {
+		if (function == BuiltInFunctionDefinitions.EQUALS) {
+			return Comparison.EQUALS;
+		} else if (function == BuiltInFunctionDefinitions.NOT_EQUALS) {
+			return Comparison.NOT_EQUALS;
+		} else if (function == BuiltInFunctionDefinitions.LESS_THAN) {
+			return Comparison.LESS_THAN;
+		} else if (function == BuiltInFunctionDefinitions.LESS_THAN_OR_EQUAL) {
+			return Comparison.LESS_THAN_OR_EQUAL;
+		} else if (function == BuiltInFunctionDefinitions.GREATER_THAN) {
+			return Comparison.GREATER_THAN;
+		} else if (function == BuiltInFunctionDefinitions.GREATER_THAN_OR_EQUAL) {
+			return Comparison.GREATER_THAN_OR_EQUAL;
+		} else {
+			return null;
+		}
+	}
+
+	private static Optional<VectorizedPredicate> and(List<VectorizedPredicate> predicates) {
+		if (predicates.isEmpty()) {
+			return Optional.empty();
+		} else if (predicates.size() == 1) {
+			return Optional.of(predicates.get(0));
+		} else {
+			return Optional.of(new AndPredicate(predicates.toArray(new VectorizedPredicate[0])));
+		}
+	}
+
+	private static Optional<VectorizedPredicate> or(List<VectorizedPredicate> predicates) {
+		if (predicates.size() == 1) {
+			return Optional.of(predicates.get(0));
+		} else {
+			return Optional.of(new OrPredicate(predicates.toArray(new VectorizedPredicate[0])));
+		}
+	}
+
+	private static int indexOf(String[] fieldNames, String name) {
+		return Arrays.asList(fieldNames).indexOf(name);
+	}
+
+	private VectorizedPredicates() {
+	}
+}
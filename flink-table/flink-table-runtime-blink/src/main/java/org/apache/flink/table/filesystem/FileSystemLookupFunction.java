@@ -22,18 +22,19 @@ import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.io.InputFormat;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
-import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
-import org.apache.flink.table.data.util.DataFormatConverters;
-import org.apache.flink.table.data.util.DataFormatConverters.DataFormatConverter;
+import org.apache.flink.table.data.binary.BinaryRowData;
 import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.table.functions.TableFunction;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
 import org.apache.flink.table.runtime.typeutils.RowDataTypeInfo;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.LogicalType;
-import org.apache.flink.types.Row;
+import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.Preconditions;
 
@@ -47,11 +48,20 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
  * Lookup table function for filesystem connector tables.
+ *
+ * <p>The whole table is loaded into a cache, which is keyed by the lookup columns. Keys and rows are stored
+ * as {@link BinaryRowData}, which is much more compact than keeping the rows as objects. The first load
+ * happens synchronously. When the cache expires, the table is reloaded by a background thread while the
+ * old cache keeps serving lookups, and the new cache replaces the old one as soon as it is loaded.
  */
 public class FileSystemLookupFunction<T extends InputSplit> extends TableFunction<RowData> {
 
@@ -59,6 +69,10 @@ public class FileSystemLookupFunction<T extends InputSplit> extends TableFunctio
 
 	private static final Logger LOG = LoggerFactory.getLogger(FileSystemLookupFunction.class);
 
+	public static final String LOOKUP_CACHE_SIZE_METRIC_NAME = "lookupCacheSize";
+
+	public static final String LOOKUP_CACHE_LOAD_TIME_METRIC_NAME = "lookupCacheLoadTime";
+
 	// the max number of retries before throwing exception, in case of failure to load the table into cache
 	private static final int MAX_RETRIES = 3;
 	// interval between retries
@@ -72,14 +86,22 @@ public class FileSystemLookupFunction<T extends InputSplit> extends TableFunctio
 
 	// indices of lookup columns in the record returned by input format
 	private final int[] lookupCols;
-	// use Row as key for the cache
-	private transient Map<Row, List<RowData>> cache;
+	// types of the lookup columns
+	private final LogicalType[] lookupTypes;
+	// the cache, keyed by the binary form of the lookup columns, only accessed by the task thread
+	private transient Map<BinaryRowData, List<BinaryRowData>> cache;
 	// timestamp when cache expires
 	private transient long nextLoadTime;
-	// serializer to copy RowData
-	private transient TypeSerializer<RowData> serializer;
-	// converters to convert data from internal to external in order to generate keys for the cache
-	private final DataFormatConverter[] converters;
+	// the reload running in the background, null if there is none
+	private transient CompletableFuture<Map<BinaryRowData, List<BinaryRowData>>> pendingReload;
+	// executor of the background reloads
+	private transient ExecutorService reloadExecutor;
+	// serializer to convert the probe keys into binary rows, only used by the task thread
+	private transient RowDataSerializer probeKeySerializer;
+	// number of rows in the current cache, for metrics
+	private transient volatile long cacheSize;
+	// duration of the last load in milliseconds, for metrics
+	private transient volatile long lastLoadTime;
 
 	public FileSystemLookupFunction(
 			InputFormat<RowData, T> inputFormat,
@@ -88,13 +110,13 @@ public class FileSystemLookupFunction<T extends InputSplit> extends TableFunctio
 			DataType[] producedTypes,
 			Duration cacheTTL) {
 		lookupCols = new int[lookupKeys.length];
-		converters = new DataFormatConverter[lookupKeys.length];
+		lookupTypes = new LogicalType[lookupKeys.length];
 		Map<String, Integer> nameToIndex = IntStream.range(0, producedNames.length).boxed().collect(
 				Collectors.toMap(i -> producedNames[i], i -> i));
 		for (int i = 0; i < lookupKeys.length; i++) {
 			Integer index = nameToIndex.get(lookupKeys[i]);
 			Preconditions.checkArgument(index != null, "Lookup keys %s not selected", Arrays.toString(lookupKeys));
-			converters[i] = DataFormatConverters.getConverterForDataType(producedTypes[index]);
+			lookupTypes[i] = producedTypes[index].getLogicalType();
 			lookupCols[i] = index;
 		}
 		this.inputFormat = inputFormat;
@@ -113,20 +135,23 @@ public class FileSystemLookupFunction<T extends InputSplit> extends TableFunctio
 	@Override
 	public void open(FunctionContext context) throws Exception {
 		super.open(context);
-		cache = new HashMap<>();
+		cache = null;
 		nextLoadTime = -1;
+		pendingReload = null;
 		// TODO: get ExecutionConfig from context?
-		serializer = getResultType().createSerializer(new ExecutionConfig());
+		probeKeySerializer = new RowDataSerializer(new ExecutionConfig(), lookupTypes);
+		reloadExecutor = Executors.newSingleThreadExecutor(
+				new ExecutorThreadFactory("filesystem-lookup-cache-reloader"));
+
+		context.getMetricGroup().gauge(LOOKUP_CACHE_SIZE_METRIC_NAME, (Gauge<Long>) () -> cacheSize);
+		context.getMetricGroup().gauge(LOOKUP_CACHE_LOAD_TIME_METRIC_NAME, (Gauge<Long>) () -> lastLoadTime);
 	}
 
 	public void eval(Object... values) {
 		Preconditions.checkArgument(values.length == lookupCols.length, "Number of values and lookup keys mismatch");
 		checkCacheReload();
-		for (int i = 0; i < values.length; i++) {
-			values[i] = converters[i].toExternal(values[i]);
-		}
-		Row probeKey = Row.of(values);
-		List<RowData> matchedRows = cache.get(probeKey);
+		BinaryRowData probeKey = probeKeySerializer.toBinaryRow(GenericRowData.of(values));
+		List<BinaryRowData> matchedRows = cache.get(probeKey);
 		if (matchedRows != null) {
 			for (RowData matchedRow : matchedRows) {
 				collect(matchedRow);
@@ -134,41 +159,100 @@ public class FileSystemLookupFunction<T extends InputSplit> extends TableFunctio
 		}
 	}
 
+	@Override
+	public void close() throws Exception {
+		if (reloadExecutor != null) {
+			reloadExecutor.shutdownNow();
+		}
+		super.close();
+	}
+
 	@VisibleForTesting
 	public Duration getCacheTTL() {
 		return cacheTTL;
 	}
 
 	private void checkCacheReload() {
+		if (pendingReload != null && pendingReload.isDone()) {
+			completeReload();
+		}
 		if (nextLoadTime > System.currentTimeMillis()) {
 			return;
 		}
-		if (nextLoadTime > 0) {
-			LOG.info("Lookup join cache has expired after {} minute(s), reloading", getCacheTTL().toMinutes());
-		} else {
+		if (cache == null) {
 			LOG.info("Populating lookup join cache");
+			swapCache(loadTable());
+		} else if (pendingReload == null) {
+			LOG.info("Lookup join cache has expired after {} minute(s), reloading in background",
+					getCacheTTL().toMinutes());
+			pendingReload = CompletableFuture.supplyAsync(this::loadTable, reloadExecutor);
+		}
+	}
+
+	private void completeReload() {
+		try {
+			swapCache(pendingReload.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FlinkRuntimeException("Interrupted while waiting for the lookup join cache reload", e);
+		} catch (ExecutionException e) {
+			Throwable cause = ExceptionUtils.stripExecutionException(e);
+			ExceptionUtils.rethrowIfFatalError(cause);
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new FlinkRuntimeException("Failed to reload lookup join cache", cause);
+		} finally {
+			pendingReload = null;
 		}
+	}
+
+	private void swapCache(Map<BinaryRowData, List<BinaryRowData>> newCache) {
+		cache = newCache;
+		nextLoadTime = System.currentTimeMillis() + getCacheTTL().toMillis();
+	}
+
+	/**
+	 * Loads the whole table into a new cache, retrying on failures. This does not touch the current cache,
+	 * so it may run in the background while the task thread keeps using the current cache.
+	 */
+	private Map<BinaryRowData, List<BinaryRowData>> loadTable() {
+		// serializers are not thread safe, so every load uses its own instances
+		RowDataSerializer keySerializer = new RowDataSerializer(new ExecutionConfig(), lookupTypes);
+		RowDataSerializer rowSerializer = new RowDataSerializer(
+				new ExecutionConfig(),
+				Arrays.stream(producedTypes).map(DataType::getLogicalType).toArray(LogicalType[]::new));
+		RowData.FieldGetter[] keyGetters = IntStream.range(0, lookupCols.length)
+				.mapToObj(i -> RowData.createFieldGetter(lookupTypes[i], lookupCols[i]))
+				.toArray(RowData.FieldGetter[]::new);
+
 		int numRetry = 0;
 		while (true) {
-			cache.clear();
+			Map<BinaryRowData, List<BinaryRowData>> newCache = new HashMap<>();
 			try {
+				long startTime = System.currentTimeMillis();
 				T[] inputSplits = inputFormat.createInputSplits(1);
 				GenericRowData reuse = new GenericRowData(producedNames.length);
+				GenericRowData reuseKey = new GenericRowData(lookupCols.length);
 				long count = 0;
 				for (T split : inputSplits) {
 					inputFormat.open(split);
 					while (!inputFormat.reachedEnd()) {
 						RowData row = inputFormat.nextRecord(reuse);
 						count++;
-						Row key = extractKey(row);
-						List<RowData> rows = cache.computeIfAbsent(key, k -> new ArrayList<>());
-						rows.add(serializer.copy(row));
+						for (int i = 0; i < keyGetters.length; i++) {
+							reuseKey.setField(i, keyGetters[i].getFieldOrNull(row));
+						}
+						BinaryRowData key = keySerializer.toBinaryRow(reuseKey).copy();
+						List<BinaryRowData> rows = newCache.computeIfAbsent(key, k -> new ArrayList<>());
+						rows.add(rowSerializer.toBinaryRow(row).copy());
 					}
 					inputFormat.close();
 				}
-				nextLoadTime = System.currentTimeMillis() + getCacheTTL().toMillis();
-				LOG.info("Loaded {} row(s) into lookup join cache", count);
-				return;
+				lastLoadTime = System.currentTimeMillis() - startTime;
+				cacheSize = count;
+				LOG.info("Loaded {} row(s) into lookup join cache in {} ms", count, lastLoadTime);
+				return newCache;
 			} catch (IOException e) {
 				if (numRetry >= MAX_RETRIES) {
 					throw new FlinkRuntimeException(
@@ -186,12 +270,4 @@ public class FileSystemLookupFunction<T extends InputSplit> extends TableFunctio
 			}
 		}
 	}
-
-	private Row extractKey(RowData row) {
-		Row key = new Row(lookupCols.length);
-		for (int i = 0; i < lookupCols.length; i++) {
-			key.setField(i, converters[i].toExternal(row, lookupCols[i]));
-		}
-		return key;
-	}
 }
@@ -19,15 +19,28 @@
 package org.apache.flink.table.runtime.generated;
 
 import org.apache.flink.api.common.InvalidProgramException;
+import org.apache.flink.configuration.ClusterOptions;
+import org.apache.flink.configuration.GlobalConfiguration;
 import org.apache.flink.util.FlinkRuntimeException;
 
 import org.apache.flink.shaded.guava18.com.google.common.cache.Cache;
 import org.apache.flink.shaded.guava18.com.google.common.cache.CacheBuilder;
 
-import org.codehaus.janino.SimpleCompiler;
+import org.codehaus.janino.ClassLoaderIClassLoader;
+import org.codehaus.janino.Java;
+import org.codehaus.janino.Parser;
+import org.codehaus.janino.Scanner;
+import org.codehaus.janino.UnitCompiler;
+import org.codehaus.janino.util.ClassFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
@@ -43,7 +56,7 @@ public final class CompileUtils {
 	 * (guaranteeing that the class name will not be repeated). This leads to multiple tasks of
 	 * the same process that generate a large number of duplicate class, resulting in a large
 	 * number of Meta zone GC (class unloading), resulting in performance bottlenecks. So we add
-	 * a cache to avoid this problem.
+	 * a cache to avoid this problem. The cache is keyed by the hash of the class name and code.
 	 */
 	protected static final Cache<String, Cache<ClassLoader, Class>> COMPILED_CACHE = CacheBuilder
 		.newBuilder()
@@ -58,35 +71,92 @@ public final class CompileUtils {
 	 * @param <T>   the class type
 	 * @return  the compiled class
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T> Class<T> compile(ClassLoader cl, String name, String code) {
+		return compile(cl, name, code, null);
+	}
+
+	/**
+	 * Compiles a generated code to a Class, or loads the class from the given bytecode if the code has
+	 * been compiled before, see {@link #compileToBytecode(ClassLoader, String, String)}.
+	 * @param cl the ClassLoader used to load the class
+	 * @param name  the class name
+	 * @param code  the generated code
+	 * @param bytecode  the bytecode of the class and its inner classes by class name, or null
+	 * @param <T>   the class type
+	 * @return  the compiled class
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Class<T> compile(
+			ClassLoader cl,
+			String name,
+			String code,
+			@Nullable Map<String, byte[]> bytecode) {
 		try {
-			Cache<ClassLoader, Class> compiledClasses = COMPILED_CACHE.get(name,
+			Cache<ClassLoader, Class> compiledClasses = COMPILED_CACHE.get(
+					PersistentCodeCache.getKey(name, code),
 					() -> CacheBuilder.newBuilder().maximumSize(5).weakKeys().softValues().build());
-			return compiledClasses.get(cl, () -> doCompile(cl, name, code));
+			return compiledClasses.get(cl, () -> doCompile(cl, name, code, bytecode));
 		} catch (Exception e) {
 			throw new FlinkRuntimeException(e.getMessage(), e);
 		}
 	}
 
-	private static <T> Class<T> doCompile(ClassLoader cl, String name, String code) {
+	/**
+	 * Compiles a generated code to the bytecode of the class and its inner classes, by class name.
+	 * The bytecode is taken from the persistent cache if possible.
+	 */
+	public static Map<String, byte[]> compileToBytecode(ClassLoader cl, String name, String code) {
+		PersistentCodeCache persistentCache = PersistentCacheHolder.PERSISTENT_CACHE;
+		if (persistentCache == null) {
+			return doCompileToBytecode(cl, name, code);
+		}
+		String key = PersistentCodeCache.getKey(name, code, cl);
+		Map<String, byte[]> bytecode = persistentCache.get(key);
+		if (bytecode == null) {
+			bytecode = doCompileToBytecode(cl, name, code);
+			persistentCache.put(key, bytecode);
+		} else {
+			CODE_LOG.debug("Loaded the bytecode of {} from the code cache.", name);
+		}
+		return bytecode;
+	}
+
+	private static <T> Class<T> doCompile(
+			ClassLoader cl,
+			String name,
+			String code,
+			@Nullable Map<String, byte[]> bytecode) {
+		checkNotNull(cl, "Classloader must not be null.");
+		if (bytecode == null) {
+			bytecode = compileToBytecode(cl, name, code);
+		}
+		try {
+			//noinspection unchecked
+			return (Class<T>) new BytecodeClassLoader(bytecode, cl).loadClass(name);
+		} catch (ClassNotFoundException e) {
+			throw new RuntimeException("Can not load class " + name, e);
+		}
+	}
+
+	private static Map<String, byte[]> doCompileToBytecode(ClassLoader cl, String name, String code) {
 		checkNotNull(cl, "Classloader must not be null.");
 		CODE_LOG.debug("Compiling: {} \n\n Code:\n{}", name, code);
-		SimpleCompiler compiler = new SimpleCompiler();
-		compiler.setParentClassLoader(cl);
+		ClassFile[] classFiles;
 		try {
-			compiler.cook(code);
+			Java.CompilationUnit compilationUnit =
+				new Parser(new Scanner(null, new StringReader(code))).parseCompilationUnit();
+			classFiles = new UnitCompiler(compilationUnit, new ClassLoaderIClassLoader(cl))
+				.compileUnit(false, true, false);
 		} catch (Throwable t) {
 			System.out.println(addLineNumber(code));
 			throw new InvalidProgramException(
 				"Table program cannot be compiled. This is a bug. Please file an issue.", t);
 		}
-		try {
-			//noinspection unchecked
-			return (Class<T>) compiler.getClassLoader().loadClass(name);
-		} catch (ClassNotFoundException e) {
-			throw new RuntimeException("Can not load class " + name, e);
+		Map<String, byte[]> bytecode = new HashMap<>();
+		for (ClassFile classFile : classFiles) {
+			bytecode.put(classFile.getThisClassName(), classFile.toByteArray());
 		}
+		return bytecode;
 	}
 
 	/**
@@ -101,4 +171,39 @@ public final class CompileUtils {
 		}
 		return builder.toString();
 	}
+
+	/**
+	 * Holds the cache of the bytecode on local disk, which is shared by all jobs and survives restarts of
+	 * the process. The cache is a setting of the process, see {@link ClusterOptions#CODEGEN_CACHE_DIRECTORY},
+	 * and the compile path has no access to the configuration of the TaskManager, so it is created from the
+	 * process's Flink configuration when it is first used. It is null if no directory is configured.
+	 */
+	private static final class PersistentCacheHolder {
+
+		@Nullable
+		private static final PersistentCodeCache PERSISTENT_CACHE =
+			PersistentCodeCache.fromConfiguration(GlobalConfiguration.loadConfiguration());
+	}
+
+	/**
+	 * Defines the classes of a compiled generated code from their bytecode.
+	 */
+	private static final class BytecodeClassLoader extends ClassLoader {
+
+		private final Map<String, byte[]> bytecode;
+
+		BytecodeClassLoader(Map<String, byte[]> bytecode, ClassLoader parent) {
+			super(parent);
+			this.bytecode = bytecode;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			byte[] classBytes = bytecode.get(name);
+			if (classBytes == null) {
+				throw new ClassNotFoundException(name);
+			}
+			return defineClass(name, classBytes, 0, classBytes.length);
+		}
+	}
 }
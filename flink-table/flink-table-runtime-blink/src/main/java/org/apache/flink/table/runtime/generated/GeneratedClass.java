@@ -18,7 +18,10 @@
 
 package org.apache.flink.table.runtime.generated;
 
+import javax.annotation.Nullable;
+
 import java.io.Serializable;
+import java.util.Map;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -32,6 +35,13 @@ public abstract class GeneratedClass<T> implements Serializable {
 	private final String code;
 	private final Object[] references;
 
+	/**
+	 * The bytecode of the class and its inner classes by class name, if the code has been compiled
+	 * before the class was shipped, see {@link #precompile(ClassLoader)}.
+	 */
+	@Nullable
+	private Map<String, byte[]> bytecode;
+
 	private transient Class<T> compiledClass;
 
 	protected GeneratedClass(String className, String code, Object[] references) {
@@ -75,11 +85,25 @@ public abstract class GeneratedClass<T> implements Serializable {
 	public Class<T> compile(ClassLoader classLoader) {
 		if (compiledClass == null) {
 			// cache the compiled class
-			compiledClass = CompileUtils.compile(classLoader, className, code);
+			compiledClass = CompileUtils.compile(classLoader, className, code, bytecode);
 		}
 		return compiledClass;
 	}
 
+	/**
+	 * Compiles the generated code to bytecode which is serialized with this {@link GeneratedClass},
+	 * so the class can be loaded without compiling it again after it has been shipped.
+	 */
+	public void precompile(ClassLoader classLoader) {
+		if (bytecode == null) {
+			bytecode = CompileUtils.compileToBytecode(classLoader, className, code);
+		}
+	}
+
+	public boolean isPrecompiled() {
+		return bytecode != null;
+	}
+
 	public String getClassName() {
 		return className;
 	}
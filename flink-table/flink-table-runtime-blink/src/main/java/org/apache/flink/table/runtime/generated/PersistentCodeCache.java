@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.generated;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.configuration.ClusterOptions;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.runtime.util.EnvironmentInformation;
+import org.apache.flink.util.StringUtils;
+
+import org.codehaus.janino.UnitCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A cache of the bytecode of compiled generated classes in a local directory, see
+ * {@link ClusterOptions#CODEGEN_CACHE_DIRECTORY}.
+ *
+ * <p>Every entry is a file named by the hash of the class name, the generated code, the versions of
+ * Flink and Janino and a fingerprint of the jars of the class loader that the code is compiled against,
+ * which contains the bytecode of the class and its inner classes. The bytecode depends on the classes that
+ * the code refers to, so a job with other versions of its jars never loads the bytecode of another job. The entry repeats its
+ * key, so that renamed or misplaced files are never loaded. Entries are written to a temporary file first and then
+ * moved into place, so concurrent readers, also in other processes, never see incomplete entries.
+ * Unreadable entries are deleted and reported as missing.
+ *
+ * <p>The bytecode is loaded without further verification, so the directory must not be writable by anyone
+ * but the user that runs Flink. The directory is created with owner-only permissions, and the cache is
+ * not used if the directory is owned by another user, is writable by others, or if its file system does
+ * not support POSIX permissions.
+ */
+@Internal
+public final class PersistentCodeCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PersistentCodeCache.class);
+
+	/** Identifies the file format, must be changed whenever the format or the compiler changes. */
+	private static final int MAGIC_NUMBER = 0x4A43_0002;
+
+	/** Identifies the Flink build and the Janino version, part of every key. */
+	private static final String COMPILER_VERSION = getCompilerVersion();
+
+	private static final String FILE_SUFFIX = ".classes";
+
+	private static final Set<PosixFilePermission> OWNER_ONLY_PERMISSIONS =
+		PosixFilePermissions.fromString("rwx------");
+
+	/**
+	 * The fingerprints of the jars of class loaders, which are computed once per class loader. Weak keys, so
+	 * that the user class loaders of finished jobs can be unloaded.
+	 */
+	private static final Map<ClassLoader, String> CLASS_LOADER_FINGERPRINTS = new WeakHashMap<>();
+
+	private final Path directory;
+
+	public PersistentCodeCache(Path directory) {
+		this.directory = checkNotNull(directory);
+	}
+
+	/**
+	 * Creates the cache from the configured directory, or returns null if no directory is configured, the
+	 * directory cannot be created, or it is not private to the current user.
+	 */
+	@Nullable
+	public static PersistentCodeCache fromConfiguration(ReadableConfig config) {
+		String dir = config.get(ClusterOptions.CODEGEN_CACHE_DIRECTORY);
+		if (dir == null || dir.trim().isEmpty()) {
+			return null;
+		}
+		Path directory = Paths.get(dir.trim()).toAbsolutePath();
+		try {
+			if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+				LOG.warn("The file system of the code cache directory {} does not support POSIX permissions, " +
+					"the code cache is disabled.", directory);
+				return null;
+			}
+			Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY_PERMISSIONS));
+			checkPrivateDirectory(directory);
+		} catch (IOException e) {
+			LOG.warn("Could not use the code cache directory {}, the code cache is disabled.", directory, e);
+			return null;
+		}
+		LOG.info("Caching the bytecode of generated classes in {}.", directory);
+		return new PersistentCodeCache(directory);
+	}
+
+	/**
+	 * Returns the key of the given generated class, independent of the classes it is compiled against. The
+	 * key identifies the code in memory, where the compiled classes are kept per class loader, use
+	 * {@link #getKey(String, String, ClassLoader)} for the entries of this cache.
+	 */
+	public static String getKey(String className, String code) {
+		MessageDigest digest = newDigest();
+		digest.update(COMPILER_VERSION.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(className.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(code.getBytes(StandardCharsets.UTF_8));
+		return StringUtils.byteToHexString(digest.digest());
+	}
+
+	/**
+	 * Returns the key of the given generated class compiled against the given class loader. The key
+	 * contains a fingerprint of the contents of the jars of the class loader and its parents, so jobs share
+	 * entries only if they have the same jars, regardless of where the jars are stored.
+	 */
+	public static String getKey(String className, String code, ClassLoader classLoader) {
+		MessageDigest digest = newDigest();
+		digest.update(getKey(className, code).getBytes(StandardCharsets.UTF_8));
+		for (ClassLoader cl = classLoader; cl != null; cl = cl.getParent()) {
+			digest.update((byte) 0);
+			digest.update(getFingerprint(cl).getBytes(StandardCharsets.UTF_8));
+		}
+		return StringUtils.byteToHexString(digest.digest());
+	}
+
+	/**
+	 * Returns the bytecode cached under the key, by class name, or null if there is none.
+	 */
+	@Nullable
+	public Map<String, byte[]> get(String key) {
+		Path file = getFile(key);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC_NUMBER) {
+				throw new IOException("Unknown format.");
+			}
+			if (!key.equals(in.readUTF())) {
+				throw new IOException("The entry belongs to another key.");
+			}
+			int numClasses = in.readInt();
+			Map<String, byte[]> classes = new HashMap<>(numClasses);
+			for (int i = 0; i < numClasses; i++) {
+				String name = in.readUTF();
+				byte[] bytecode = new byte[in.readInt()];
+				in.readFully(bytecode);
+				classes.put(name, bytecode);
+			}
+			return classes;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			LOG.warn("Could not read the cached bytecode {}, deleting it.", file, e);
+			deleteQuietly(file);
+			return null;
+		}
+	}
+
+	/**
+	 * Caches the bytecode, by class name, under the key. Failures are logged and otherwise ignored.
+	 */
+	public void put(String key, Map<String, byte[]> classes) {
+		Path file = getFile(key);
+		Path tmpFile = null;
+		try {
+			tmpFile = Files.createTempFile(directory, key, ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+				out.writeInt(MAGIC_NUMBER);
+				out.writeUTF(key);
+				out.writeInt(classes.size());
+				for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeInt(entry.getValue().length);
+					out.write(entry.getValue());
+				}
+			}
+			Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			LOG.warn("Could not cache the bytecode in {}.", file, e);
+			if (tmpFile != null) {
+				deleteQuietly(tmpFile);
+			}
+		}
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	private Path getFile(String key) {
+		return directory.resolve(key + FILE_SUFFIX);
+	}
+
+	/**
+	 * Checks that the directory is owned by the current user and not writable by anyone else, because
+	 * classes are loaded from it.
+	 */
+	@VisibleForTesting
+	static void checkPrivateDirectory(Path directory) throws IOException {
+		PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class);
+		String user = System.getProperty("user.name");
+		if (!attributes.owner().getName().equals(user)) {
+			throw new IOException("The directory is owned by " + attributes.owner().getName() +
+				" instead of the current user " + user + '.');
+		}
+		Set<PosixFilePermission> permissions = attributes.permissions();
+		if (permissions.contains(PosixFilePermission.GROUP_WRITE) ||
+				permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+			throw new IOException("The directory is writable by other users, its permissions are " +
+				PosixFilePermissions.toString(permissions) + '.');
+		}
+	}
+
+	private static String getFingerprint(ClassLoader classLoader) {
+		synchronized (CLASS_LOADER_FINGERPRINTS) {
+			String fingerprint = CLASS_LOADER_FINGERPRINTS.get(classLoader);
+			if (fingerprint == null) {
+				fingerprint = computeFingerprint(classLoader);
+				CLASS_LOADER_FINGERPRINTS.put(classLoader, fingerprint);
+			}
+			return fingerprint;
+		}
+	}
+
+	/**
+	 * Hashes the contents of the jars of a {@link URLClassLoader} or of the class path of the system class
+	 * loader. Class loaders whose classes cannot be fingerprinted, such as directories or class loaders of
+	 * other types, get a random fingerprint, so their entries are not shared with other class loaders.
+	 */
+	private static String computeFingerprint(ClassLoader classLoader) {
+		ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+		if (classLoader == systemClassLoader.getParent()) {
+			// the platform classes are covered by the Flink version and the JVM that runs it
+			return "platform";
+		}
+		List<Path> files = new ArrayList<>();
+		try {
+			if (classLoader instanceof URLClassLoader) {
+				for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+					files.add(Paths.get(url.toURI()));
+				}
+			} else if (classLoader == systemClassLoader) {
+				for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+					files.add(Paths.get(entry));
+				}
+			} else {
+				return UUID.randomUUID().toString();
+			}
+
+			MessageDigest digest = newDigest();
+			byte[] buffer = new byte[64 * 1024];
+			for (Path file : files) {
+				if (!Files.isRegularFile(file)) {
+					LOG.debug("Could not fingerprint {}, its generated classes are not shared.", file);
+					return UUID.randomUUID().toString();
+				}
+				try (InputStream in = Files.newInputStream(file)) {
+					int read;
+					while ((read = in.read(buffer)) != -1) {
+						digest.update(buffer, 0, read);
+					}
+				}
+				digest.update((byte) 0);
+			}
+			return StringUtils.byteToHexString(digest.digest());
+		} catch (IOException | URISyntaxException | RuntimeException e) {
+			LOG.debug("Could not fingerprint the class loader {}, its generated classes are not shared.", classLoader, e);
+			return UUID.randomUUID().toString();
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported.", e);
+		}
+	}
+
+	private static String getCompilerVersion() {
+		EnvironmentInformation.RevisionInformation revision = EnvironmentInformation.getRevisionInformation();
+		return "flink-" + EnvironmentInformation.getVersion() + '-' + revision.commitId +
+			"/janino-" + getJaninoVersion();
+	}
+
+	private static String getJaninoVersion() {
+		Package janinoPackage = UnitCompiler.class.getPackage();
+		if (janinoPackage != null && janinoPackage.getImplementationVersion() != null) {
+			return janinoPackage.getImplementationVersion();
+		}
+		// the jar that Janino is loaded from, which usually contains the version in its name
+		CodeSource codeSource = UnitCompiler.class.getProtectionDomain().getCodeSource();
+		return codeSource != null && codeSource.getLocation() != null ?
+			codeSource.getLocation().toString() : "unknown";
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOG.debug("Could not delete {}.", file, e);
+		}
+	}
+}
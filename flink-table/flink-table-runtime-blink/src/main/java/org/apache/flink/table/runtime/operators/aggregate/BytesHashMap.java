@@ -499,7 +499,7 @@ public class BytesHashMap {
 		resetBucketSegments(bucketSegments);
 		numElements = 0;
 		destructiveIterator = null;
-		LOG.info(
+		LOG.debug(
 				"reset BytesHashMap with record memory segments {}, {} in bytes, init allocating {} for bucket area.",
 				memoryPool.freePages(),
 				memoryPool.freePages() * segmentSize,
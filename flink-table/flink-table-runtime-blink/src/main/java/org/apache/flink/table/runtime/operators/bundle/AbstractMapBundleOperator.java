@@ -26,6 +26,7 @@ import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.table.runtime.context.ExecutionContextImpl;
+import org.apache.flink.table.runtime.operators.bundle.trigger.AdaptiveBundleTrigger;
 import org.apache.flink.table.runtime.operators.bundle.trigger.BundleTrigger;
 import org.apache.flink.table.runtime.operators.bundle.trigger.BundleTriggerCallback;
 import org.apache.flink.table.runtime.util.StreamRecordCollector;
@@ -70,6 +71,9 @@ public abstract class AbstractMapBundleOperator<K, V, IN, OUT>
 
 	private transient int numOfElements = 0;
 
+	/** The time spent in evaluating the last bundle, in nanoseconds. */
+	private transient long lastBundleFinishNanos = 0;
+
 	AbstractMapBundleOperator(
 			MapBundleFunction<K, V, IN, OUT> function,
 			BundleTrigger<IN> bundleTrigger) {
@@ -102,6 +106,15 @@ public abstract class AbstractMapBundleOperator<K, V, IN, OUT>
 				return 1.0 * numOfElements / numOfKeys;
 			}
 		});
+		getRuntimeContext().getMetricGroup().gauge(
+			"bundleFinishTime", (Gauge<Long>) () -> lastBundleFinishNanos / 1_000_000L);
+		if (bundleTrigger instanceof AdaptiveBundleTrigger) {
+			AdaptiveBundleTrigger<IN> adaptiveTrigger = (AdaptiveBundleTrigger<IN>) bundleTrigger;
+			getRuntimeContext().getMetricGroup().gauge(
+				"bundleSizeLimit", (Gauge<Long>) adaptiveTrigger::getCurrentMaxCount);
+			getRuntimeContext().getMetricGroup().gauge(
+				"bundleBytes", (Gauge<Long>) adaptiveTrigger::getBundleBytes);
+		}
 	}
 
 	@Override
@@ -129,9 +142,13 @@ public abstract class AbstractMapBundleOperator<K, V, IN, OUT>
 	@Override
 	public void finishBundle() throws Exception {
 		if (!bundle.isEmpty()) {
+			final int bundleElements = numOfElements;
+			final long start = System.nanoTime();
 			numOfElements = 0;
 			function.finishBundle(bundle, collector);
 			bundle.clear();
+			lastBundleFinishNanos = System.nanoTime() - start;
+			bundleTrigger.onBundleFinished(bundleElements, lastBundleFinishNanos);
 		}
 		bundleTrigger.reset();
 	}
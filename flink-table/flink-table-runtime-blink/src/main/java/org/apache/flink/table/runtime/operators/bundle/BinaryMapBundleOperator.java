@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.bundle;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.util.FunctionUtils;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.data.binary.BinarySegmentUtils;
+import org.apache.flink.table.runtime.context.ExecutionContextImpl;
+import org.apache.flink.table.runtime.operators.TableStreamOperator;
+import org.apache.flink.table.runtime.operators.aggregate.BytesHashMap;
+import org.apache.flink.table.runtime.operators.bundle.trigger.BundleTrigger;
+import org.apache.flink.table.runtime.operators.bundle.trigger.BundleTriggerCallback;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.table.runtime.util.StreamRecordCollector;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.MutableObjectIterator;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A map bundle operator which stores the bundle in a {@link BytesHashMap} backed by managed
+ * memory instead of a heap {@link java.util.HashMap}, so that large bundles neither create
+ * per-entry objects nor promote them to the old generation.
+ *
+ * <p>Bundle keys are the binary rows returned by the key selector, bundle values are stored in
+ * binary form and updated in place. All value types must therefore be stored in the fixed-length
+ * part of a {@link BinaryRowData}. The values passed to {@link MapBundleFunction#addInput} and the
+ * entries of the map passed to {@link MapBundleFunction#finishBundle} point into the managed
+ * memory and are only valid until the next call. If the managed memory is exhausted, the current
+ * bundle is finished early.
+ *
+ * <p>This operator is not keyed: the bundle function must not access keyed state.
+ */
+public class BinaryMapBundleOperator
+		extends TableStreamOperator<RowData>
+		implements OneInputStreamOperator<RowData, RowData>, BundleTriggerCallback {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The function used to process when receiving element. */
+	private final MapBundleFunction<RowData, RowData, RowData, RowData> function;
+
+	/** The trigger that determines how many elements should be put into a bundle. */
+	private final BundleTrigger<RowData> bundleTrigger;
+
+	/** KeySelector is used to extract the binary key for the bundle map. */
+	private final KeySelector<RowData, RowData> keySelector;
+
+	private final LogicalType[] keyTypes;
+
+	private final LogicalType[] valueTypes;
+
+	/** The map in managed memory to store elements. */
+	private transient BytesHashMap bundle;
+
+	/** Converts the bundle values returned by the function to their binary form. */
+	private transient RowDataSerializer valueSerializer;
+
+	/** Reused buffer to overwrite bundle values in place. */
+	private transient byte[] valueBuffer;
+
+	/** Map view of the bundle which is handed to the function. */
+	private transient Map<RowData, RowData> bundleView;
+
+	/** Output for stream records. */
+	private transient Collector<RowData> collector;
+
+	private transient int numOfElements = 0;
+
+	/** The time spent in evaluating the last bundle, in nanoseconds. */
+	private transient long lastBundleFinishNanos = 0;
+
+	public BinaryMapBundleOperator(
+			MapBundleFunction<RowData, RowData, RowData, RowData> function,
+			BundleTrigger<RowData> bundleTrigger,
+			KeySelector<RowData, RowData> keySelector,
+			LogicalType[] keyTypes,
+			LogicalType[] valueTypes) {
+		this.function = checkNotNull(function, "function is null");
+		this.bundleTrigger = checkNotNull(bundleTrigger, "bundleTrigger is null");
+		this.keySelector = checkNotNull(keySelector, "keySelector is null");
+		this.keyTypes = checkNotNull(keyTypes);
+		this.valueTypes = checkNotNull(valueTypes);
+		checkArgument(keyTypes.length > 0, "The bundle key must not be empty.");
+		checkArgument(isFixedLength(valueTypes), "The bundle values must be of fixed length.");
+	}
+
+	/**
+	 * Returns whether values of the given types can be stored by this operator.
+	 */
+	public static boolean isFixedLength(LogicalType[] valueTypes) {
+		if (valueTypes.length == 0) {
+			return false;
+		}
+		for (LogicalType type : valueTypes) {
+			if (!BinaryRowData.isInFixedLengthPart(type)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void open() throws Exception {
+		super.open();
+		function.open(new ExecutionContextImpl(this, getRuntimeContext()));
+
+		this.numOfElements = 0;
+		this.collector = new StreamRecordCollector<>(output);
+		this.bundle = new BytesHashMap(
+			getContainingTask(),
+			getContainingTask().getEnvironment().getMemoryManager(),
+			computeMemorySize(),
+			keyTypes,
+			valueTypes);
+		this.valueSerializer = new RowDataSerializer(new ExecutionConfig(), valueTypes);
+		this.valueBuffer = new byte[BinaryRowData.calculateFixPartSizeInBytes(valueTypes.length)];
+		this.bundleView = new BundleView();
+
+		bundleTrigger.registerCallback(this);
+		// reset trigger
+		bundleTrigger.reset();
+		LOG.info("BundleOperator's trigger info: " + bundleTrigger.explain());
+
+		getRuntimeContext().getMetricGroup().gauge("bundleSize", (Gauge<Integer>) () -> numOfElements);
+		getRuntimeContext().getMetricGroup().gauge("bundleRatio", (Gauge<Double>) () -> {
+			long numOfKeys = bundle.getNumElements();
+			if (numOfKeys == 0) {
+				return 0.0;
+			} else {
+				return 1.0 * numOfElements / numOfKeys;
+			}
+		});
+		getRuntimeContext().getMetricGroup().gauge(
+			"bundleFinishTime", (Gauge<Long>) () -> lastBundleFinishNanos / 1_000_000L);
+		getRuntimeContext().getMetricGroup().gauge(
+			"bundleMemoryUsed", (Gauge<Long>) () -> bundle.getUsedMemoryInBytes());
+	}
+
+	@Override
+	public void processElement(StreamRecord<RowData> element) throws Exception {
+		final RowData input = element.getValue();
+		final BinaryRowData bundleKey = (BinaryRowData) keySelector.getKey(input);
+
+		BytesHashMap.LookupInfo lookupInfo = bundle.lookup(bundleKey);
+		if (lookupInfo.isFound()) {
+			BinaryRowData bundleValue = lookupInfo.getValue();
+			RowData newBundleValue = function.addInput(bundleValue, input);
+			overwrite(bundleValue, valueSerializer.toBinaryRow(newBundleValue));
+		} else {
+			BinaryRowData newBundleValue = valueSerializer.toBinaryRow(function.addInput(null, input));
+			try {
+				bundle.append(lookupInfo, newBundleValue);
+			} catch (EOFException e) {
+				// the managed memory is exhausted, finish the current bundle to free it
+				finishBundle();
+				bundle.append(bundle.lookup(bundleKey), newBundleValue);
+			}
+		}
+
+		numOfElements++;
+		bundleTrigger.onElement(input);
+	}
+
+	private void overwrite(BinaryRowData target, BinaryRowData value) {
+		int size = value.getSizeInBytes();
+		BinarySegmentUtils.copyToBytes(value.getSegments(), value.getOffset(), valueBuffer, 0, size);
+		BinarySegmentUtils.copyFromBytes(target.getSegments(), target.getOffset(), valueBuffer, 0, size);
+	}
+
+	@Override
+	public void finishBundle() throws Exception {
+		if (bundle.getNumElements() > 0) {
+			final int bundleElements = numOfElements;
+			final long start = System.nanoTime();
+			numOfElements = 0;
+			function.finishBundle(bundleView, collector);
+			if (bundle.getNumElements() > 0) {
+				// the function did not clear the bundle itself
+				bundle.reset();
+			}
+			lastBundleFinishNanos = System.nanoTime() - start;
+			bundleTrigger.onBundleFinished(bundleElements, lastBundleFinishNanos);
+		}
+		bundleTrigger.reset();
+	}
+
+	@Override
+	public void processWatermark(Watermark mark) throws Exception {
+		finishBundle();
+		super.processWatermark(mark);
+	}
+
+	@Override
+	public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+		finishBundle();
+	}
+
+	@Override
+	public void close() throws Exception {
+		try {
+			if (bundle != null) {
+				finishBundle();
+			}
+		} finally {
+			Exception exception = null;
+
+			try {
+				super.close();
+				if (function != null) {
+					FunctionUtils.closeFunction(function);
+				}
+			} catch (InterruptedException interrupted) {
+				exception = interrupted;
+
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				exception = e;
+			}
+
+			if (bundle != null) {
+				bundle.free();
+				bundle = null;
+			}
+
+			if (exception != null) {
+				LOG.warn("Errors occurred while closing the BundleOperator.", exception);
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Read-only {@link Map} view of the bundle. Iterating over it reuses the same entry, key and
+	 * value objects. Clearing it resets the bundle.
+	 */
+	private final class BundleView extends AbstractMap<RowData, RowData> {
+
+		private final Set<Map.Entry<RowData, RowData>> entrySet = new AbstractSet<Map.Entry<RowData, RowData>>() {
+
+			@Override
+			public Iterator<Map.Entry<RowData, RowData>> iterator() {
+				return new BundleIterator(bundle.getEntryIterator());
+			}
+
+			@Override
+			public int size() {
+				return BundleView.this.size();
+			}
+		};
+
+		@Override
+		public Set<Map.Entry<RowData, RowData>> entrySet() {
+			return entrySet;
+		}
+
+		@Override
+		public int size() {
+			return (int) bundle.getNumElements();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return bundle.getNumElements() == 0;
+		}
+
+		@Override
+		public void clear() {
+			bundle.reset();
+		}
+	}
+
+	private final class BundleIterator implements Iterator<Map.Entry<RowData, RowData>> {
+
+		private final MutableObjectIterator<BytesHashMap.Entry> entries;
+		private final BytesHashMap.Entry reuse = new BytesHashMap.Entry(
+			new BinaryRowData(keyTypes.length), new BinaryRowData(valueTypes.length));
+
+		private BytesHashMap.Entry next;
+		private boolean fetched;
+
+		private BundleIterator(MutableObjectIterator<BytesHashMap.Entry> entries) {
+			this.entries = entries;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!fetched) {
+				try {
+					next = entries.next(reuse);
+				} catch (IOException e) {
+					throw new RuntimeException("Failed to read the bundle.", e);
+				}
+				fetched = true;
+			}
+			return next != null;
+		}
+
+		@Override
+		public Map.Entry<RowData, RowData> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			fetched = false;
+			return new AbstractMap.SimpleImmutableEntry<>(next.getKey(), next.getValue());
+		}
+	}
+}
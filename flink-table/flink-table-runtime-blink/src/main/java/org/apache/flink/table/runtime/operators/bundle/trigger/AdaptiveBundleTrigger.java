@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.bundle.trigger;
+
+import org.apache.flink.util.Preconditions;
+
+import java.io.Serializable;
+
+/**
+ * A {@link BundleTrigger} that fires once a bundle exceeds any of a count, a byte size or a
+ * latency budget.
+ *
+ * <p>The byte size of a bundle is the sum of the sizes of its elements as reported by the given
+ * {@link SizeEstimator}. The latency of a bundle is the time elapsed since its first element
+ * arrived. As the trigger is only evaluated when an element arrives, idle inputs still rely on
+ * watermarks to flush the last bundle.
+ *
+ * <p>If a target finish time is given, the count budget is tuned from the observed evaluation
+ * cost of the previous bundles, which is dominated by state access: it is halved whenever a
+ * bundle took longer than the target to evaluate, and grown again by a quarter when a bundle
+ * filled up to the count budget and took less than half of the target. The count budget never
+ * exceeds the configured maximum count.
+ */
+public class AdaptiveBundleTrigger<T> implements BundleTrigger<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The count budget is never shrunk below this fraction of the maximum count. */
+	private static final long MIN_COUNT_FRACTION = 64;
+
+	private final long maxCount;
+	private final long maxBytes;
+	private final long maxLatencyNanos;
+	private final long targetFinishNanos;
+	private final SizeEstimator<T> sizeEstimator;
+
+	private transient BundleTriggerCallback callback;
+	private transient long count = 0;
+	// bytes and currentMaxCount are only written by the task thread, but read by the metric gauges
+	private transient volatile long bytes = 0;
+	private transient long bundleStartNanos = 0;
+	private transient volatile long currentMaxCount;
+
+	/**
+	 * Creates a new trigger.
+	 *
+	 * @param maxCount the maximum number of elements in a bundle
+	 * @param maxBytes the maximum estimated size of a bundle in bytes, disabled if not positive
+	 * @param maxLatencyMillis the maximum time a bundle may stay open, disabled if not positive
+	 * @param targetFinishMillis the time that evaluating a bundle should take, used to tune the
+	 *                           count budget; tuning is disabled if not positive
+	 * @param sizeEstimator estimates the size of elements, only used if maxBytes is positive
+	 */
+	public AdaptiveBundleTrigger(
+			long maxCount,
+			long maxBytes,
+			long maxLatencyMillis,
+			long targetFinishMillis,
+			SizeEstimator<T> sizeEstimator) {
+		Preconditions.checkArgument(maxCount > 0, "maxCount must be greater than 0");
+		this.maxCount = maxCount;
+		this.maxBytes = maxBytes;
+		this.maxLatencyNanos = maxLatencyMillis * 1_000_000L;
+		this.targetFinishNanos = targetFinishMillis * 1_000_000L;
+		this.sizeEstimator = Preconditions.checkNotNull(sizeEstimator, "sizeEstimator is null");
+		this.currentMaxCount = maxCount;
+	}
+
+	@Override
+	public void registerCallback(BundleTriggerCallback callback) {
+		this.callback = Preconditions.checkNotNull(callback, "callback is null");
+		this.currentMaxCount = maxCount;
+	}
+
+	@Override
+	public void onElement(T element) throws Exception {
+		count++;
+		if (maxBytes > 0) {
+			bytes += sizeEstimator.estimateSize(element);
+		}
+		if (maxLatencyNanos > 0 && count == 1) {
+			bundleStartNanos = System.nanoTime();
+		}
+
+		if (count >= currentMaxCount
+				|| (maxBytes > 0 && bytes >= maxBytes)
+				|| (maxLatencyNanos > 0 && System.nanoTime() - bundleStartNanos >= maxLatencyNanos)) {
+			callback.finishBundle();
+			reset();
+		}
+	}
+
+	@Override
+	public void reset() {
+		count = 0;
+		bytes = 0;
+	}
+
+	@Override
+	public void onBundleFinished(long numElements, long durationNanos) {
+		if (targetFinishNanos <= 0 || numElements == 0) {
+			return;
+		}
+		if (durationNanos > targetFinishNanos) {
+			long minCount = Math.max(1, maxCount / MIN_COUNT_FRACTION);
+			currentMaxCount = Math.max(minCount, currentMaxCount / 2);
+		} else if (durationNanos < targetFinishNanos / 2 && numElements >= currentMaxCount) {
+			currentMaxCount = Math.min(maxCount, currentMaxCount + Math.max(1, currentMaxCount / 4));
+		}
+	}
+
+	/**
+	 * Returns the current count budget, which is lower than the maximum count if the trigger
+	 * shrunk it because of expensive bundles.
+	 */
+	public long getCurrentMaxCount() {
+		return currentMaxCount;
+	}
+
+	/**
+	 * Returns the estimated size in bytes of the elements of the current bundle, or 0 if there
+	 * is no byte size budget.
+	 */
+	public long getBundleBytes() {
+		return bytes;
+	}
+
+	@Override
+	public String explain() {
+		return "AdaptiveBundleTrigger with size " + maxCount +
+			", bytes " + maxBytes +
+			", latency " + maxLatencyNanos / 1_000_000L + " ms" +
+			", target finish time " + targetFinishNanos / 1_000_000L + " ms";
+	}
+
+	/**
+	 * Estimates the size of the elements added to a bundle.
+	 *
+	 * @param <T> The input element type.
+	 */
+	@FunctionalInterface
+	public interface SizeEstimator<T> extends Serializable {
+
+		/**
+		 * Returns the estimated size of the given element in bytes.
+		 */
+		long estimateSize(T element);
+	}
+}
@@ -49,5 +49,15 @@ public interface BundleTrigger<T> extends Serializable {
 	 */
 	void reset();
 
+	/**
+	 * Called after a bundle has been evaluated. Triggers may use the observed evaluation cost to
+	 * adapt the size of the following bundles.
+	 *
+	 * @param numElements The number of elements in the evaluated bundle.
+	 * @param durationNanos The time spent in evaluating the bundle, in nanoseconds.
+	 */
+	default void onBundleFinished(long numElements, long durationNanos) {
+	}
+
 	String explain();
 }
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.bundle.trigger;
+
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+
+/**
+ * A {@link AdaptiveBundleTrigger.SizeEstimator} for {@link RowData}. Binary rows report their
+ * exact size, other rows are estimated by the fixed-length part of their binary representation.
+ */
+public class RowDataSizeEstimator implements AdaptiveBundleTrigger.SizeEstimator<RowData> {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public long estimateSize(RowData row) {
+		if (row instanceof BinaryRowData) {
+			return ((BinaryRowData) row).getSizeInBytes();
+		}
+		return BinaryRowData.calculateFixPartSizeInBytes(row.getArity());
+	}
+}
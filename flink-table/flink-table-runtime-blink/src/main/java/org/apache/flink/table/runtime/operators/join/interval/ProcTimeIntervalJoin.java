@@ -38,7 +38,18 @@ public final class ProcTimeIntervalJoin extends TimeIntervalJoin {
 			RowDataTypeInfo leftType,
 			RowDataTypeInfo rightType,
 			GeneratedFunction<FlatJoinFunction<RowData, RowData, RowData>> genJoinFunc) {
-		super(joinType, leftLowerBound, leftUpperBound, 0L, leftType, rightType, genJoinFunc);
+		this(joinType, leftLowerBound, leftUpperBound, leftType, rightType, genJoinFunc, 0L);
+	}
+
+	public ProcTimeIntervalJoin(
+			FlinkJoinType joinType,
+			long leftLowerBound,
+			long leftUpperBound,
+			RowDataTypeInfo leftType,
+			RowDataTypeInfo rightType,
+			GeneratedFunction<FlatJoinFunction<RowData, RowData, RowData>> genJoinFunc,
+			long stateSliceSize) {
+		super(joinType, leftLowerBound, leftUpperBound, 0L, leftType, rightType, genJoinFunc, stateSliceSize);
 	}
 
 	@Override
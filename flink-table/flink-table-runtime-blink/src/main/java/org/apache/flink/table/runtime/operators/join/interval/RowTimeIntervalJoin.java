@@ -44,7 +44,39 @@ public final class RowTimeIntervalJoin extends TimeIntervalJoin {
 			GeneratedFunction<FlatJoinFunction<RowData, RowData, RowData>> genJoinFunc,
 			int leftTimeIdx,
 			int rightTimeIdx) {
-		super(joinType, leftLowerBound, leftUpperBound, allowedLateness, leftType, rightType, genJoinFunc);
+		this(
+			joinType,
+			leftLowerBound,
+			leftUpperBound,
+			allowedLateness,
+			leftType,
+			rightType,
+			genJoinFunc,
+			leftTimeIdx,
+			rightTimeIdx,
+			0L);
+	}
+
+	public RowTimeIntervalJoin(
+			FlinkJoinType joinType,
+			long leftLowerBound,
+			long leftUpperBound,
+			long allowedLateness,
+			RowDataTypeInfo leftType,
+			RowDataTypeInfo rightType,
+			GeneratedFunction<FlatJoinFunction<RowData, RowData, RowData>> genJoinFunc,
+			int leftTimeIdx,
+			int rightTimeIdx,
+			long stateSliceSize) {
+		super(
+			joinType,
+			leftLowerBound,
+			leftUpperBound,
+			allowedLateness,
+			leftType,
+			rightType,
+			genJoinFunc,
+			stateSliceSize);
 		this.leftTimeIdx = leftTimeIdx;
 		this.rightTimeIdx = rightTimeIdx;
 	}
@@ -56,7 +88,8 @@ public final class RowTimeIntervalJoin extends TimeIntervalJoin {
 	 * @return the maximum delay for the outputs
 	 */
 	public long getMaxOutputDelay() {
-		return Math.max(leftRelativeSize, rightRelativeSize) + allowedLateness;
+		// rows of a slice are padded once the whole slice expired
+		return Math.max(leftRelativeSize, rightRelativeSize) + allowedLateness + stateSliceSize;
 	}
 
 	@Override
@@ -25,6 +25,7 @@ import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.tuple.Tuple3;
 import org.apache.flink.api.java.typeutils.ListTypeInfo;
 import org.apache.flink.api.java.typeutils.TupleTypeInfo;
 import org.apache.flink.configuration.Configuration;
@@ -60,6 +61,8 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 	// Minimum interval by which state is cleaned up
 	private final long minCleanUpInterval;
 	protected final long allowedLateness;
+	// Size of the time slices by which cached rows are grouped, 0 if rows are grouped by their exact time
+	protected final long stateSliceSize;
 	private final RowDataTypeInfo leftType;
 	private final RowDataTypeInfo rightType;
 	private GeneratedFunction<FlatJoinFunction<RowData, RowData, RowData>> genJoinFunc;
@@ -80,6 +83,10 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 	// state to record the timer on the right stream. 0 means no timer set
 	private transient ValueState<Long> rightTimerState;
 
+	// caches to store rows with their time, grouped by the start of their time slice
+	private transient MapState<Long, List<Tuple3<RowData, Boolean, Long>>> leftSliceCache;
+	private transient MapState<Long, List<Tuple3<RowData, Boolean, Long>>> rightSliceCache;
+
 	// Points in time until which the respective cache has been cleaned.
 	private long leftExpirationTime = 0L;
 	private long rightExpirationTime = 0L;
@@ -95,7 +102,8 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 			long allowedLateness,
 			RowDataTypeInfo leftType,
 			RowDataTypeInfo rightType,
-			GeneratedFunction<FlatJoinFunction<RowData, RowData, RowData>> genJoinFunc) {
+			GeneratedFunction<FlatJoinFunction<RowData, RowData, RowData>> genJoinFunc,
+			long stateSliceSize) {
 		this.joinType = joinType;
 		this.leftRelativeSize = -leftLowerBound;
 		this.rightRelativeSize = leftUpperBound;
@@ -104,6 +112,10 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 			throw new IllegalArgumentException("The allowed lateness must be non-negative.");
 		}
 		this.allowedLateness = allowedLateness;
+		if (stateSliceSize < 0) {
+			throw new IllegalArgumentException("The state slice size must be non-negative.");
+		}
+		this.stateSliceSize = stateSliceSize;
 		this.leftType = leftType;
 		this.rightType = rightType;
 		this.genJoinFunc = genJoinFunc;
@@ -117,6 +129,21 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 		genJoinFunc = null;
 
 		joinCollector = new EmitAwareCollector();
+		paddingUtil = new OuterJoinPaddingUtil(leftType.getArity(), rightType.getArity());
+
+		if (stateSliceSize > 0) {
+			leftSliceCache = getRuntimeContext().getMapState(new MapStateDescriptor<>(
+				"IntervalJoinLeftSliceCache",
+				BasicTypeInfo.LONG_TYPE_INFO,
+				new ListTypeInfo<>(new TupleTypeInfo<Tuple3<RowData, Boolean, Long>>(
+					leftType, BasicTypeInfo.BOOLEAN_TYPE_INFO, BasicTypeInfo.LONG_TYPE_INFO))));
+			rightSliceCache = getRuntimeContext().getMapState(new MapStateDescriptor<>(
+				"IntervalJoinRightSliceCache",
+				BasicTypeInfo.LONG_TYPE_INFO,
+				new ListTypeInfo<>(new TupleTypeInfo<Tuple3<RowData, Boolean, Long>>(
+					rightType, BasicTypeInfo.BOOLEAN_TYPE_INFO, BasicTypeInfo.LONG_TYPE_INFO))));
+			return;
+		}
 
 		// Initialize the data caches.
 		ListTypeInfo<Tuple2<RowData, Boolean>> leftRowListTypeInfo = new ListTypeInfo<>(
@@ -145,8 +172,6 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 				"IntervalJoinRightTimerState",
 				Long.class);
 		rightTimerState = getRuntimeContext().getState(rightValueStateDescriptor);
-
-		paddingUtil = new OuterJoinPaddingUtil(leftType.getArity(), rightType.getArity());
 	}
 
 	@Override
@@ -159,6 +184,19 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 		long rightQualifiedUpperBound = timeForLeftRow + leftRelativeSize;
 		boolean emitted = false;
 
+		if (stateSliceSize > 0) {
+			if (rightExpirationTime < rightQualifiedUpperBound) {
+				rightExpirationTime = calExpirationTime(leftOperatorTime, rightRelativeSize);
+				emitted = joinSlices(leftRow, true, rightQualifiedLowerBound, rightQualifiedUpperBound, rightSliceCache);
+			}
+			if (rightOperatorTime < rightQualifiedUpperBound) {
+				cacheRowInSlice(ctx, leftRow, timeForLeftRow, emitted, leftSliceCache, leftRelativeSize);
+			} else if (!emitted && joinType.isLeftOuter()) {
+				joinCollector.collect(paddingUtil.padLeft(leftRow));
+			}
+			return;
+		}
+
 		// Check if we need to join the current row against cached rows of the right input.
 		// The condition here should be rightMinimumTime < rightQualifiedUpperBound.
 		// We use rightExpirationTime as an approximation of the rightMinimumTime here,
@@ -238,6 +276,19 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 		long leftQualifiedUpperBound = timeForRightRow + rightRelativeSize;
 		boolean emitted = false;
 
+		if (stateSliceSize > 0) {
+			if (leftExpirationTime < leftQualifiedUpperBound) {
+				leftExpirationTime = calExpirationTime(rightOperatorTime, leftRelativeSize);
+				emitted = joinSlices(rightRow, false, leftQualifiedLowerBound, leftQualifiedUpperBound, leftSliceCache);
+			}
+			if (leftOperatorTime < leftQualifiedUpperBound) {
+				cacheRowInSlice(ctx, rightRow, timeForRightRow, emitted, rightSliceCache, rightRelativeSize);
+			} else if (!emitted && joinType.isRightOuter()) {
+				joinCollector.collect(paddingUtil.padRight(rightRow));
+			}
+			return;
+		}
+
 		// Check if we need to join the current row against cached rows of the left input.
 		// The condition here should be leftMinimumTime < leftQualifiedUpperBound.
 		// We use leftExpirationTime as an approximation of the leftMinimumTime here,
@@ -310,6 +361,12 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 	public void onTimer(long timestamp, OnTimerContext ctx, Collector<RowData> out) throws Exception {
 		joinCollector.setInnerCollector(out);
 		updateOperatorTime(ctx);
+		if (stateSliceSize > 0) {
+			// the timer may be the clean up timer of a slice of either input
+			removeExpiredSlice(timestamp - stateSliceSize - leftRelativeSize - allowedLateness, leftSliceCache, true);
+			removeExpiredSlice(timestamp - stateSliceSize - rightRelativeSize - allowedLateness, rightSliceCache, false);
+			return;
+		}
 		// In the future, we should separate the left and right watermarks. Otherwise, the
 		// registered timer of the faster stream will be delayed, even if the watermarks have
 		// already been emitted by the source.
@@ -440,6 +497,108 @@ abstract class TimeIntervalJoin extends KeyedCoProcessFunction<RowData, RowData,
 
 	}
 
+	/**
+	 * Joins the given row with the cached rows of the other input whose time is within the given
+	 * bounds. Only the slices overlapping the bounds are accessed.
+	 *
+	 * @return whether the row was joined successfully with any cached row
+	 */
+	private boolean joinSlices(
+			RowData row,
+			boolean rowIsLeft,
+			long lowerBound,
+			long upperBound,
+			MapState<Long, List<Tuple3<RowData, Boolean, Long>>> otherSliceCache) throws Exception {
+		boolean otherIsOuter = rowIsLeft ? joinType.isRightOuter() : joinType.isLeftOuter();
+		boolean emitted = false;
+		long lastSlice = getSliceStart(upperBound);
+		for (long slice = getSliceStart(lowerBound); slice <= lastSlice; slice += stateSliceSize) {
+			List<Tuple3<RowData, Boolean, Long>> otherRows = otherSliceCache.get(slice);
+			if (otherRows == null) {
+				continue;
+			}
+			boolean entryUpdated = false;
+			for (Tuple3<RowData, Boolean, Long> tuple : otherRows) {
+				if (tuple.f2 < lowerBound || tuple.f2 > upperBound) {
+					continue;
+				}
+				joinCollector.reset();
+				if (rowIsLeft) {
+					joinFunction.join(row, tuple.f0, joinCollector);
+				} else {
+					joinFunction.join(tuple.f0, row, joinCollector);
+				}
+				emitted = emitted || joinCollector.isEmitted();
+				if (otherIsOuter && !tuple.f1 && joinCollector.isEmitted()) {
+					// Mark the other row as being successfully joined and emitted.
+					tuple.f1 = true;
+					entryUpdated = true;
+				}
+			}
+			if (entryUpdated) {
+				otherSliceCache.put(slice, otherRows);
+			}
+			if (slice > Long.MAX_VALUE - stateSliceSize) {
+				break;
+			}
+		}
+		return emitted;
+	}
+
+	/**
+	 * Adds the row to the slice of its time. The first row of a slice registers the single timer
+	 * which removes the slice once all of its rows are expired.
+	 */
+	private void cacheRowInSlice(
+			Context ctx,
+			RowData row,
+			long rowTime,
+			boolean emitted,
+			MapState<Long, List<Tuple3<RowData, Boolean, Long>>> sliceCache,
+			long relativeSize) throws Exception {
+		long slice = getSliceStart(rowTime);
+		List<Tuple3<RowData, Boolean, Long>> rows = sliceCache.get(slice);
+		if (rows == null) {
+			rows = new ArrayList<>(1);
+			// the last time of the slice expires when the operator time of the other input passes
+			// slice + stateSliceSize - 1 + relativeSize + allowedLateness
+			registerTimer(ctx, slice + stateSliceSize + relativeSize + allowedLateness);
+		}
+		rows.add(Tuple3.of(row, emitted, rowTime));
+		sliceCache.put(slice, rows);
+	}
+
+	/**
+	 * Removes the given slice if it exists and emits the null padded results for its rows
+	 * which have never been joined successfully, in case of an outer join.
+	 */
+	private void removeExpiredSlice(
+			long slice,
+			MapState<Long, List<Tuple3<RowData, Boolean, Long>>> sliceCache,
+			boolean removeLeft) throws Exception {
+		if (getSliceStart(slice) != slice) {
+			// the timer does not belong to a slice of this input
+			return;
+		}
+		List<Tuple3<RowData, Boolean, Long>> rows = sliceCache.get(slice);
+		if (rows == null) {
+			return;
+		}
+		if (removeLeft ? joinType.isLeftOuter() : joinType.isRightOuter()) {
+			for (Tuple3<RowData, Boolean, Long> tuple : rows) {
+				if (!tuple.f1) {
+					// Emit a null padding result if the row has never been successfully joined.
+					joinCollector.collect(removeLeft ? paddingUtil.padLeft(tuple.f0) : paddingUtil.padRight(tuple.f0));
+				}
+			}
+		}
+		sliceCache.remove(slice);
+	}
+
+	private long getSliceStart(long time) {
+		return time - Math.floorMod(time, stateSliceSize);
+	}
+
 	/**
 	 * Update the operator time of the two streams.
 	 * Must be the first call in all processing methods (i.e., processElement(), onTimer()).
@@ -48,6 +48,9 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
 	private transient RowData leftNullRow;
 	private transient RowData rightNullRow;
 
+	// max number of records of a non-outer side cached on heap, 0 if caching is disabled
+	private final int recordsCacheSize;
+
 	// left join state
 	private transient JoinRecordStateView leftRecordStateView;
 	// right join state
@@ -63,9 +66,34 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
 			boolean rightIsOuter,
 			boolean[] filterNullKeys,
 			long minRetentionTime) {
+		this(
+			leftType,
+			rightType,
+			generatedJoinCondition,
+			leftInputSideSpec,
+			rightInputSideSpec,
+			leftIsOuter,
+			rightIsOuter,
+			filterNullKeys,
+			minRetentionTime,
+			0);
+	}
+
+	public StreamingJoinOperator(
+			RowDataTypeInfo leftType,
+			RowDataTypeInfo rightType,
+			GeneratedJoinCondition generatedJoinCondition,
+			JoinInputSideSpec leftInputSideSpec,
+			JoinInputSideSpec rightInputSideSpec,
+			boolean leftIsOuter,
+			boolean rightIsOuter,
+			boolean[] filterNullKeys,
+			long minRetentionTime,
+			int recordsCacheSize) {
 		super(leftType, rightType, generatedJoinCondition, leftInputSideSpec, rightInputSideSpec, filterNullKeys, minRetentionTime);
 		this.leftIsOuter = leftIsOuter;
 		this.rightIsOuter = rightIsOuter;
+		this.recordsCacheSize = recordsCacheSize;
 	}
 
 	@Override
@@ -87,10 +115,12 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
 		} else {
 			this.leftRecordStateView = JoinRecordStateViews.create(
 				getRuntimeContext(),
+				this,
 				"left-records",
 				leftInputSideSpec,
 				leftType,
-				minRetentionTime);
+				minRetentionTime,
+				recordsCacheSize);
 		}
 
 		if (rightIsOuter) {
@@ -103,10 +133,12 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
 		} else {
 			this.rightRecordStateView = JoinRecordStateViews.create(
 				getRuntimeContext(),
+				this,
 				"right-records",
 				rightInputSideSpec,
 				rightType,
-				minRetentionTime);
+				minRetentionTime,
+				recordsCacheSize);
 		}
 	}
 
@@ -26,12 +26,17 @@ import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeinfo.Types;
 import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.streaming.api.operators.KeyContext;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
 import org.apache.flink.table.runtime.typeutils.RowDataTypeInfo;
 import org.apache.flink.util.IterableIterator;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -70,6 +75,32 @@ public final class JoinRecordStateViews {
 		}
 	}
 
+	/**
+	 * Creates a {@link JoinRecordStateView} depends on {@link JoinInputSideSpec}, which additionally
+	 * caches the records of recently accessed join keys on the heap if {@code recordsCacheSize} is
+	 * positive. As the cache can not observe the expiration of state entries, it is only used if
+	 * state retention is disabled.
+	 */
+	public static JoinRecordStateView create(
+			RuntimeContext ctx,
+			KeyContext keyContext,
+			String stateName,
+			JoinInputSideSpec inputSideSpec,
+			RowDataTypeInfo recordType,
+			long retentionTime,
+			int recordsCacheSize) {
+		JoinRecordStateView stateView = create(ctx, stateName, inputSideSpec, recordType, retentionTime);
+		if (recordsCacheSize <= 0 || retentionTime > 0) {
+			return stateView;
+		}
+		return new CachedRecords(
+			stateView,
+			keyContext,
+			inputSideSpec,
+			recordType.createSerializer(ctx.getExecutionConfig()),
+			recordsCacheSize);
+	}
+
 	// ------------------------------------------------------------------------------------
 
 	private static final class JoinKeyContainsUniqueKey implements JoinRecordStateView {
@@ -235,4 +266,136 @@ public final class JoinRecordStateViews {
 			};
 		}
 	}
+
+	/**
+	 * Wraps a {@link JoinRecordStateView} and keeps the records of recently accessed join keys on the
+	 * heap, so that probing a join key again does not read and deserialize its records from the state.
+	 * Records are converted to {@link BinaryRowData} before they are stored, which keeps both the
+	 * cache and heap state compact and makes their serialization a plain copy of bytes.
+	 *
+	 * <p>The cache is kept consistent with the state by applying every modification to both of them,
+	 * according to how the backing view identifies records. It holds at most {@code maxRecords} records,
+	 * the least recently accessed join keys are evicted first.
+	 */
+	private static final class CachedRecords implements JoinRecordStateView {
+
+		private final JoinRecordStateView backingView;
+		private final KeyContext keyContext;
+		private final JoinInputSideSpec inputSideSpec;
+		private final RowDataSerializer serializer;
+		private final int maxRecords;
+
+		// join key -> records of the join key, in access order
+		private final LinkedHashMap<Object, List<BinaryRowData>> cache;
+		private int numCachedRecords;
+
+		private CachedRecords(
+				JoinRecordStateView backingView,
+				KeyContext keyContext,
+				JoinInputSideSpec inputSideSpec,
+				RowDataSerializer serializer,
+				int maxRecords) {
+			this.backingView = backingView;
+			this.keyContext = checkNotNull(keyContext);
+			this.inputSideSpec = inputSideSpec;
+			this.serializer = serializer;
+			this.maxRecords = maxRecords;
+			this.cache = new LinkedHashMap<>(16, 0.75f, true);
+		}
+
+		@Override
+		public void addRecord(RowData record) throws Exception {
+			BinaryRowData binaryRecord = serializer.toBinaryRow(record).copy();
+			backingView.addRecord(binaryRecord);
+
+			List<BinaryRowData> records = cache.get(keyContext.getCurrentKey());
+			if (records == null) {
+				return;
+			}
+			if (inputSideSpec.joinKeyContainsUniqueKey()) {
+				numCachedRecords -= records.size();
+				records.clear();
+			} else if (inputSideSpec.hasUniqueKey()) {
+				removeRecords(records, binaryRecord, true);
+			}
+			records.add(binaryRecord);
+			numCachedRecords++;
+			evict();
+		}
+
+		@Override
+		public void retractRecord(RowData record) throws Exception {
+			BinaryRowData binaryRecord = serializer.toBinaryRow(record);
+			backingView.retractRecord(binaryRecord);
+
+			List<BinaryRowData> records = cache.get(keyContext.getCurrentKey());
+			if (records == null) {
+				return;
+			}
+			if (inputSideSpec.joinKeyContainsUniqueKey()) {
+				numCachedRecords -= records.size();
+				records.clear();
+			} else {
+				removeRecords(records, binaryRecord, inputSideSpec.hasUniqueKey());
+			}
+		}
+
+		@Override
+		public Iterable<RowData> getRecords() throws Exception {
+			Object key = keyContext.getCurrentKey();
+			List<BinaryRowData> records = cache.get(key);
+			if (records == null) {
+				records = new ArrayList<>();
+				for (RowData record : backingView.getRecords()) {
+					// records read from the state are binary already
+					records.add(record instanceof BinaryRowData
+						? (BinaryRowData) record
+						: serializer.toBinaryRow(record).copy());
+				}
+				if (records.size() <= maxRecords) {
+					cache.put(key, records);
+					numCachedRecords += records.size();
+					evict();
+				}
+			}
+			return Collections.<RowData>unmodifiableList(records);
+		}
+
+		/**
+		 * Removes the records which are identified by the given one, i.e. all records with the same
+		 * unique key or a single equal record if the input side has no unique key.
+		 */
+		private void removeRecords(
+				List<BinaryRowData> records,
+				BinaryRowData record,
+				boolean byUniqueKey) throws Exception {
+			Iterator<BinaryRowData> iterator = records.iterator();
+			if (byUniqueKey) {
+				KeySelector<RowData, RowData> uniqueKeySelector = inputSideSpec.getUniqueKeySelector();
+				RowData uniqueKey = uniqueKeySelector.getKey(record);
+				while (iterator.hasNext()) {
+					if (uniqueKey.equals(uniqueKeySelector.getKey(iterator.next()))) {
+						iterator.remove();
+						numCachedRecords--;
+					}
+				}
+			} else {
+				while (iterator.hasNext()) {
+					if (record.equals(iterator.next())) {
+						iterator.remove();
+						numCachedRecords--;
+						return;
+					}
+				}
+			}
+		}
+
+		private void evict() {
+			Iterator<List<BinaryRowData>> iterator = cache.values().iterator();
+			while (numCachedRecords > maxRecords && iterator.hasNext()) {
+				numCachedRecords -= iterator.next().size();
+				iterator.remove();
+			}
+		}
+	}
 }
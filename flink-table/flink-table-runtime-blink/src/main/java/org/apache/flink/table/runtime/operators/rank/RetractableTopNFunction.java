@@ -33,6 +33,7 @@ import org.apache.flink.table.runtime.generated.RecordEqualiser;
 import org.apache.flink.table.runtime.keyselector.RowDataKeySelector;
 import org.apache.flink.table.runtime.typeutils.RowDataTypeInfo;
 import org.apache.flink.table.runtime.typeutils.SortedMapTypeInfo;
+import org.apache.flink.table.runtime.util.LRUMap;
 import org.apache.flink.types.RowKind;
 import org.apache.flink.util.Collector;
 
@@ -53,6 +54,12 @@ import java.util.TreeMap;
  * A TopN function could handle updating stream.
  *
  * <p>Input stream can contain any change kind: INSERT, DELETE, UPDATE_BEFORE and UPDATE_AFTER.
+ *
+ * <p>By default the sort keys of a partition are kept in a single {@link SortedMap} value state which is
+ * read and rewritten as a whole for every record. If a positive cache size is given, every sort key count
+ * is stored as its own entry of a {@link MapState} instead, and a heap mirror of the sorted keys is kept
+ * for recently accessed partitions. A record then only reads and writes the state entries of the sort keys
+ * whose ranks actually change, rather than the whole sorted map.
  */
 public class RetractableTopNFunction extends AbstractTopNFunction {
 
@@ -65,6 +72,7 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 			"This will result in incorrect result. You can increase the state ttl to avoid this.";
 
 	private final RowDataTypeInfo sortKeyType;
+	private final long cacheSize;
 
 	// flag to skip records with non-exist error instead to fail, true by default.
 	private final boolean lenient = true;
@@ -75,6 +83,12 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 	// a sorted map stores mapping from sort key to records count
 	private transient ValueState<SortedMap<RowData, Long>> treeMap;
 
+	// a map state stores mapping from sort key to records count, used instead of treeMap if cacheSize > 0
+	private transient MapState<RowData, Long> sortKeyCountState;
+
+	// the kvSortedMap stores mapping from partition key to its sorted keys, a heap mirror to sortKeyCountState
+	private transient Map<RowData, SortedMap<RowData, Long>> kvSortedMap;
+
 	// The util to compare two RowData equals to each other.
 	private GeneratedRecordEqualiser generatedEqualiser;
 	private RecordEqualiser equaliser;
@@ -92,11 +106,28 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 			GeneratedRecordEqualiser generatedEqualiser,
 			boolean generateUpdateBefore,
 			boolean outputRankNumber) {
+		this(minRetentionTime, maxRetentionTime, inputRowType, generatedRecordComparator, sortKeySelector, rankType,
+				rankRange, generatedEqualiser, generateUpdateBefore, outputRankNumber, 0L);
+	}
+
+	public RetractableTopNFunction(
+			long minRetentionTime,
+			long maxRetentionTime,
+			RowDataTypeInfo inputRowType,
+			GeneratedRecordComparator generatedRecordComparator,
+			RowDataKeySelector sortKeySelector,
+			RankType rankType,
+			RankRange rankRange,
+			GeneratedRecordEqualiser generatedEqualiser,
+			boolean generateUpdateBefore,
+			boolean outputRankNumber,
+			long cacheSize) {
 		super(minRetentionTime, maxRetentionTime, inputRowType, generatedRecordComparator, sortKeySelector, rankType,
 				rankRange, generateUpdateBefore, outputRankNumber);
 		this.sortKeyType = sortKeySelector.getProducedType();
 		this.serializableComparator = new ComparatorWrapper(generatedRecordComparator);
 		this.generatedEqualiser = generatedEqualiser;
+		this.cacheSize = cacheSize;
 	}
 
 	@Override
@@ -112,10 +143,23 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 				"data-state", sortKeyType, valueTypeInfo);
 		dataState = getRuntimeContext().getMapState(mapStateDescriptor);
 
-		ValueStateDescriptor<SortedMap<RowData, Long>> valueStateDescriptor = new ValueStateDescriptor<>(
-				"sorted-map",
-				new SortedMapTypeInfo<>(sortKeyType, BasicTypeInfo.LONG_TYPE_INFO, serializableComparator));
-		treeMap = getRuntimeContext().getState(valueStateDescriptor);
+		if (cacheSize > 0) {
+			int lruCacheSize = Math.max(1, (int) (cacheSize / getDefaultTopNSize()));
+			kvSortedMap = new LRUMap<>(lruCacheSize);
+			LOG.info("Top{} operator is using LRU caches key-size: {}", getDefaultTopNSize(), lruCacheSize);
+
+			MapStateDescriptor<RowData, Long> countStateDescriptor = new MapStateDescriptor<>(
+					"sorted-map-count", sortKeyType, BasicTypeInfo.LONG_TYPE_INFO);
+			sortKeyCountState = getRuntimeContext().getMapState(countStateDescriptor);
+
+			// metrics
+			registerMetric(kvSortedMap.size() * getDefaultTopNSize());
+		} else {
+			ValueStateDescriptor<SortedMap<RowData, Long>> valueStateDescriptor = new ValueStateDescriptor<>(
+					"sorted-map",
+					new SortedMapTypeInfo<>(sortKeyType, BasicTypeInfo.LONG_TYPE_INFO, serializableComparator));
+			treeMap = getRuntimeContext().getState(valueStateDescriptor);
+		}
 	}
 
 	@Override
@@ -124,10 +168,7 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 		// register state-cleanup timer
 		registerProcessingCleanupTimer(ctx, currentTime);
 		initRankEnd(input);
-		SortedMap<RowData, Long> sortedMap = treeMap.value();
-		if (sortedMap == null) {
-			sortedMap = new TreeMap<>(sortKeyComparator);
-		}
+		SortedMap<RowData, Long> sortedMap = getSortedMap();
 		RowData sortKey = sortKeySelector.getKey(input);
 		boolean isAccumulate = RowDataUtil.isAccumulateMsg(input);
 		input.setRowKind(RowKind.INSERT); // erase row kind for further state accessing
@@ -187,14 +228,55 @@ public class RetractableTopNFunction extends AbstractTopNFunction {
 			}
 
 		}
-		treeMap.update(sortedMap);
+		if (sortKeyCountState != null) {
+			// only the count of the current sort key has changed, the heap mirror is updated in place
+			Long count = sortedMap.get(sortKey);
+			if (count == null) {
+				sortKeyCountState.remove(sortKey);
+			} else {
+				sortKeyCountState.put(sortKey, count);
+			}
+		} else {
+			treeMap.update(sortedMap);
+		}
 	}
 
 	@Override
 	public void onTimer(long timestamp, OnTimerContext ctx, Collector<RowData> out) throws Exception {
 		if (stateCleaningEnabled) {
-			cleanupState(dataState, treeMap);
+			if (sortKeyCountState != null) {
+				// cleanup cache
+				kvSortedMap.remove(keyContext.getCurrentKey());
+				cleanupState(dataState, sortKeyCountState);
+			} else {
+				cleanupState(dataState, treeMap);
+			}
+		}
+	}
+
+	private SortedMap<RowData, Long> getSortedMap() throws Exception {
+		if (sortKeyCountState == null) {
+			SortedMap<RowData, Long> sortedMap = treeMap.value();
+			return sortedMap == null ? new TreeMap<>(sortKeyComparator) : sortedMap;
+		}
+		requestCount += 1;
+		RowData currentKey = (RowData) keyContext.getCurrentKey();
+		SortedMap<RowData, Long> sortedMap = kvSortedMap.get(currentKey);
+		if (sortedMap == null) {
+			sortedMap = new TreeMap<>(sortKeyComparator);
+			kvSortedMap.put(currentKey, sortedMap);
+			// restore heap mirror
+			Iterator<Map.Entry<RowData, Long>> iter = sortKeyCountState.iterator();
+			if (iter != null) {
+				while (iter.hasNext()) {
+					Map.Entry<RowData, Long> entry = iter.next();
+					sortedMap.put(entry.getKey(), entry.getValue());
+				}
+			}
+		} else {
+			hitCount += 1;
 		}
+		return sortedMap;
 	}
 
 	// ------------- ROW_NUMBER-------------------------------
@@ -75,6 +75,50 @@ public final class MurmurHashUtil {
 		return hashBytes(segment, offset, lengthInBytes, DEFAULT_SEED);
 	}
 
+	/**
+	 * Hash bytes to a 64 bit hash code with MurmurHash64A, for uses which need more than 32 bits of entropy.
+	 * @param bytes byte array
+	 * @param offset offset in the byte array
+	 * @param lengthInBytes length in bytes
+	 * @param seed seed of the hash
+	 * @return 64 bit hash code
+	 */
+	public static long hashBytes64(byte[] bytes, int offset, int lengthInBytes, long seed) {
+		final long m = 0xc6a4a7935bd1e995L;
+		final int r = 47;
+		long h = seed ^ (lengthInBytes * m);
+
+		int end = offset + (lengthInBytes & ~7);
+		for (int i = offset; i < end; i += 8) {
+			long k = (bytes[i] & 0xFFL)
+				| (bytes[i + 1] & 0xFFL) << 8
+				| (bytes[i + 2] & 0xFFL) << 16
+				| (bytes[i + 3] & 0xFFL) << 24
+				| (bytes[i + 4] & 0xFFL) << 32
+				| (bytes[i + 5] & 0xFFL) << 40
+				| (bytes[i + 6] & 0xFFL) << 48
+				| (bytes[i + 7] & 0xFFL) << 56;
+			k *= m;
+			k ^= k >>> r;
+			k *= m;
+			h ^= k;
+			h *= m;
+		}
+
+		int remaining = lengthInBytes & 7;
+		if (remaining > 0) {
+			for (int i = remaining - 1; i >= 0; i--) {
+				h ^= (bytes[end + i] & 0xFFL) << (8 * i);
+			}
+			h *= m;
+		}
+
+		h ^= h >>> r;
+		h *= m;
+		h ^= h >>> r;
+		return h;
+	}
+
 	private static int hashUnsafeBytesByWords(Object base, long offset, int lengthInBytes, int seed) {
 		int h1 = hashUnsafeBytesByInt(base, offset, lengthInBytes, seed);
 		return fmix(h1, lengthInBytes);
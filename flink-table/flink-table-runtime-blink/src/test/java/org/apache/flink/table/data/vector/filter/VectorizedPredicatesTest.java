@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.data.vector.filter;
+
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.vector.ColumnVector;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.data.vector.filter.ComparisonPredicate.Comparison;
+import org.apache.flink.table.data.vector.heap.HeapBytesVector;
+import org.apache.flink.table.data.vector.heap.HeapDoubleVector;
+import org.apache.flink.table.data.vector.heap.HeapFloatVector;
+import org.apache.flink.table.data.vector.heap.HeapIntVector;
+import org.apache.flink.table.expressions.CallExpression;
+import org.apache.flink.table.expressions.Expression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.expressions.ResolvedExpression;
+import org.apache.flink.table.expressions.ValueLiteralExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.functions.FunctionDefinition;
+import org.apache.flink.table.types.logical.DoubleType;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.flink.table.types.logical.TimestampType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.apache.flink.table.types.utils.TypeConversions.fromLogicalToDataType;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link VectorizedPredicate}s and {@link VectorizedPredicates}.
+ */
+public class VectorizedPredicatesTest {
+
+	private static final int SIZE = 10;
+
+	private static final String[] FIELD_NAMES = {"a", "b", "c", "d"};
+
+	private static final LogicalType[] FIELD_TYPES = {
+		new IntType(), new VarCharType(VarCharType.MAX_LENGTH), new DoubleType(), new TimestampType()};
+
+	/**
+	 * Creates a batch with the rows (i, "vi", i * 0.5, null), where a is null in row 3 and c is NaN in row 5.
+	 */
+	private static VectorizedColumnBatch createBatch() {
+		HeapIntVector a = new HeapIntVector(SIZE);
+		HeapBytesVector b = new HeapBytesVector(SIZE);
+		HeapDoubleVector c = new HeapDoubleVector(SIZE);
+		HeapIntVector d = new HeapIntVector(SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			a.setInt(i, i);
+			byte[] bytes = ("v" + i).getBytes(StandardCharsets.UTF_8);
+			b.appendBytes(i, bytes, 0, bytes.length);
+			c.setDouble(i, i == 5 ? Double.NaN : i * 0.5);
+		}
+		a.setNullAt(3);
+		d.fillWithNulls();
+		VectorizedColumnBatch batch = new VectorizedColumnBatch(new ColumnVector[] {a, b, c, d});
+		batch.setNumRows(SIZE);
+		return batch;
+	}
+
+	private static int[] filter(VectorizedPredicate predicate) {
+		return filter(createBatch(), predicate);
+	}
+
+	private static int[] filter(VectorizedColumnBatch batch, VectorizedPredicate predicate) {
+		int numRows = batch.getNumRows();
+		int[] selection = new int[numRows];
+		for (int i = 0; i < numRows; i++) {
+			selection[i] = i;
+		}
+		int numSelected = predicate.filter(batch, selection, numRows);
+		return Arrays.copyOf(selection, numSelected);
+	}
+
+	@Test
+	public void testComparison() {
+		assertArrayEquals(
+			new int[] {7, 8, 9},
+			filter(ComparisonPredicate.ofIntegral(0, LogicalTypeRoot.INTEGER, Comparison.GREATER_THAN, 6)));
+		assertArrayEquals(
+			new int[] {0, 1, 2, 4, 5, 6, 7, 8, 9},
+			filter(ComparisonPredicate.ofIntegral(0, LogicalTypeRoot.INTEGER, Comparison.NOT_EQUALS, 3)));
+		assertArrayEquals(
+			new int[] {0, 1},
+			filter(ComparisonPredicate.ofString(1, Comparison.LESS_THAN_OR_EQUAL, "v1")));
+		// NaN is never rejected
+		assertArrayEquals(
+			new int[] {5, 8, 9},
+			filter(ComparisonPredicate.ofFloatingPoint(2, LogicalTypeRoot.DOUBLE, Comparison.GREATER_THAN_OR_EQUAL, 4.0)));
+	}
+
+	@Test
+	public void testFloatComparison() {
+		// 0.1f widened to double is 0.10000000149..., so it only equals the literal 0.1 in float precision
+		HeapFloatVector vector = new HeapFloatVector(3);
+		for (int i = 0; i < 3; i++) {
+			vector.setFloat(i, (i + 1) * 0.1f);
+		}
+		VectorizedColumnBatch batch = new VectorizedColumnBatch(new ColumnVector[] {vector});
+		batch.setNumRows(3);
+
+		BigDecimal literal = new BigDecimal("0.1");
+		assertArrayEquals(
+			new int[] {0},
+			filter(batch, ComparisonPredicate.ofFloatingPoint(0, LogicalTypeRoot.FLOAT, Comparison.EQUALS, literal)));
+		assertArrayEquals(
+			new int[] {0},
+			filter(batch, ComparisonPredicate.ofFloatingPoint(0, LogicalTypeRoot.FLOAT, Comparison.LESS_THAN_OR_EQUAL, literal)));
+		assertArrayEquals(
+			new int[] {0, 1, 2},
+			filter(batch, ComparisonPredicate.ofFloatingPoint(0, LogicalTypeRoot.FLOAT, Comparison.GREATER_THAN_OR_EQUAL, literal)));
+		assertArrayEquals(
+			new int[] {0, 1, 2},
+			filter(batch, ComparisonPredicate.ofFloatingPoint(0, LogicalTypeRoot.FLOAT, Comparison.GREATER_THAN_OR_EQUAL, 0.1)));
+	}
+
+	@Test
+	public void testIsNull() {
+		assertArrayEquals(new int[] {3}, filter(new IsNullPredicate(0, true)));
+		assertArrayEquals(new int[] {0, 1, 2, 4, 5, 6, 7, 8, 9}, filter(new IsNullPredicate(0, false)));
+	}
+
+	@Test
+	public void testAndOr() {
+		VectorizedPredicate lessThan2 = ComparisonPredicate.ofIntegral(0, LogicalTypeRoot.INTEGER, Comparison.LESS_THAN, 2);
+		VectorizedPredicate greaterThan7 = ComparisonPredicate.ofIntegral(0, LogicalTypeRoot.INTEGER, Comparison.GREATER_THAN, 7);
+		VectorizedPredicate equalsV8 = ComparisonPredicate.ofString(1, Comparison.EQUALS, "v8");
+
+		assertArrayEquals(new int[] {0, 1, 8, 9}, filter(new OrPredicate(lessThan2, greaterThan7)));
+		assertArrayEquals(new int[] {8}, filter(new AndPredicate(greaterThan7, equalsV8)));
+		assertArrayEquals(
+			new int[] {0, 1, 3, 8},
+			filter(new OrPredicate(new AndPredicate(greaterThan7, equalsV8), lessThan2, new IsNullPredicate(0, true))));
+		assertArrayEquals(new int[0], filter(new AndPredicate(lessThan2, greaterThan7)));
+
+		// the scratch space of OR must not leak into the next batch
+		OrPredicate or = new OrPredicate(lessThan2, greaterThan7);
+		assertArrayEquals(new int[] {0, 1, 8, 9}, filter(or));
+		assertArrayEquals(new int[] {0, 1, 8, 9}, filter(or));
+	}
+
+	@Test
+	public void testFromExpressions() {
+		// a > 6 AND 'v9' > b
+		VectorizedPredicate predicate = convert(
+			call(BuiltInFunctionDefinitions.GREATER_THAN, field("a"), literal(6)),
+			call(BuiltInFunctionDefinitions.GREATER_THAN, literal("v9"), field("b"))).get();
+		assertArrayEquals(new int[] {7, 8}, filter(predicate));
+
+		// a <= 1 OR a IS NULL
+		predicate = convert(
+			call(
+				BuiltInFunctionDefinitions.OR,
+				call(BuiltInFunctionDefinitions.LESS_THAN_OR_EQUAL, field("a"), literal(1L)),
+				call(BuiltInFunctionDefinitions.IS_NULL, field("a")))).get();
+		assertArrayEquals(new int[] {0, 1, 3}, filter(predicate));
+	}
+
+	@Test
+	public void testFromExpressionsIgnoresUnsupportedConjuncts() {
+		// (a >= 8 AND d = TIMESTAMP) AND NOT(a = 9), only a >= 8 can be converted
+		VectorizedPredicate predicate = convert(
+			call(
+				BuiltInFunctionDefinitions.AND,
+				call(BuiltInFunctionDefinitions.GREATER_THAN_OR_EQUAL, field("a"), literal(8)),
+				call(BuiltInFunctionDefinitions.EQUALS, field("d"), literal(LocalDateTime.of(2020, 1, 1, 0, 0)))),
+			call(
+				BuiltInFunctionDefinitions.NOT,
+				call(BuiltInFunctionDefinitions.EQUALS, field("a"), literal(9)))).get();
+		assertArrayEquals(new int[] {8, 9}, filter(predicate));
+
+		// a disjunction can only be converted completely
+		assertFalse(convert(
+			call(
+				BuiltInFunctionDefinitions.OR,
+				call(BuiltInFunctionDefinitions.LESS_THAN, field("a"), literal(1)),
+				call(BuiltInFunctionDefinitions.IS_NULL, field("d")),
+				call(BuiltInFunctionDefinitions.EQUALS, field("d"), literal(LocalDateTime.of(2020, 1, 1, 0, 0)))))
+			.isPresent());
+
+		// comparisons between fields, unknown fields and null literals are not supported
+		assertFalse(convert(call(BuiltInFunctionDefinitions.EQUALS, field("a"), field("c"))).isPresent());
+		assertFalse(convert(call(BuiltInFunctionDefinitions.IS_NULL, field("x"))).isPresent());
+		assertFalse(convert(call(
+			BuiltInFunctionDefinitions.EQUALS,
+			field("a"),
+			new ValueLiteralExpression(null, DataTypes.INT()))).isPresent());
+		assertTrue(convert(call(BuiltInFunctionDefinitions.IS_NOT_NULL, field("c"))).isPresent());
+	}
+
+	private static Optional<VectorizedPredicate> convert(Expression... filters) {
+		return VectorizedPredicates.fromExpressions(Arrays.asList(filters), FIELD_NAMES, FIELD_TYPES);
+	}
+
+	private static CallExpression call(FunctionDefinition function, ResolvedExpression... args) {
+		return new CallExpression(function, Arrays.asList(args), DataTypes.BOOLEAN());
+	}
+
+	private static FieldReferenceExpression field(String name) {
+		int index = Arrays.asList(FIELD_NAMES).indexOf(name);
+		return new FieldReferenceExpression(
+			name,
+			index < 0 ? DataTypes.INT() : fromLogicalToDataType(FIELD_TYPES[index]),
+			0,
+			Math.max(index, 0));
+	}
+
+	private static ValueLiteralExpression literal(Object value) {
+		return new ValueLiteralExpression(value);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.filesystem;
+
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.api.common.io.GenericInputFormat;
+import org.apache.flink.core.io.GenericInputSplit;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.types.DataType;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for {@link FileSystemLookupFunction}.
+ */
+public class FileSystemLookupFunctionTest {
+
+	private static final String[] NAMES = new String[] {"id", "name"};
+
+	private static final DataType[] TYPES = new DataType[] {DataTypes.INT(), DataTypes.STRING()};
+
+	private final List<RowData> output = new ArrayList<>();
+
+	private FileSystemLookupFunction<GenericInputSplit> lookupFunction;
+
+	@After
+	public void after() throws Exception {
+		if (lookupFunction != null) {
+			lookupFunction.close();
+		}
+	}
+
+	@Test
+	public void testLookup() throws Exception {
+		TestingInputFormat inputFormat = new TestingInputFormat(row(1, "a"), row(2, "b"), row(1, "c"));
+		openLookupFunction(inputFormat, new String[] {"id"}, Duration.ofHours(1));
+
+		assertEquals(Arrays.asList(row(1, "a"), row(1, "c")), lookup(1));
+		assertEquals(Collections.singletonList(row(2, "b")), lookup(2));
+		assertEquals(Collections.emptyList(), lookup(3));
+		assertEquals(1, inputFormat.numLoads);
+	}
+
+	@Test
+	public void testLookupByStringKey() throws Exception {
+		TestingInputFormat inputFormat = new TestingInputFormat(row(1, "a"), row(2, "b"), row(3, null));
+		openLookupFunction(inputFormat, new String[] {"name"}, Duration.ofHours(1));
+
+		assertEquals(Collections.singletonList(row(2, "b")), lookup(StringData.fromString("b")));
+		assertEquals(Collections.emptyList(), lookup(StringData.fromString("c")));
+		assertEquals(Collections.singletonList(row(3, null)), lookup((Object) null));
+	}
+
+	@Test
+	public void testReloadInBackground() throws Exception {
+		TestingInputFormat inputFormat = new TestingInputFormat(row(1, "a"));
+		openLookupFunction(inputFormat, new String[] {"id"}, Duration.ofMillis(10));
+
+		assertEquals(Collections.singletonList(row(1, "a")), lookup(1));
+
+		inputFormat.rows = Collections.singletonList(row(1, "b"));
+		Thread.sleep(20);
+
+		// the expired cache keeps serving lookups while the table is reloaded
+		assertEquals(Collections.singletonList(row(1, "a")), lookup(1));
+
+		List<RowData> result = lookup(1);
+		while (!result.equals(Collections.singletonList(row(1, "b")))) {
+			assertEquals(Collections.singletonList(row(1, "a")), result);
+			Thread.sleep(10);
+			result = lookup(1);
+		}
+		assertTrue(inputFormat.numLoads >= 2);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private void openLookupFunction(
+			TestingInputFormat inputFormat,
+			String[] lookupKeys,
+			Duration cacheTTL) throws Exception {
+		lookupFunction = new FileSystemLookupFunction<>(inputFormat, lookupKeys, NAMES, TYPES, cacheTTL);
+		lookupFunction.setCollector(new ListCollector<>(output));
+		lookupFunction.open(new FunctionContext(null) {
+			@Override
+			public MetricGroup getMetricGroup() {
+				return new UnregisteredMetricsGroup();
+			}
+		});
+	}
+
+	private List<RowData> lookup(Object... keys) {
+		output.clear();
+		lookupFunction.eval(keys);
+		List<RowData> result = new ArrayList<>();
+		for (RowData row : output) {
+			result.add(row(row.getInt(0), row.isNullAt(1) ? null : row.getString(1).toString()));
+		}
+		return result;
+	}
+
+	private static GenericRowData row(int id, String name) {
+		return GenericRowData.of(id, name == null ? null : StringData.fromString(name));
+	}
+
+	/**
+	 * An {@link org.apache.flink.api.common.io.InputFormat} which returns the given rows.
+	 */
+	private static class TestingInputFormat extends GenericInputFormat<RowData> {
+
+		private static final long serialVersionUID = 1L;
+
+		private volatile List<RowData> rows;
+
+		private volatile int numLoads;
+
+		private transient int nextRow;
+
+		private TestingInputFormat(RowData... rows) {
+			this.rows = Arrays.asList(rows);
+		}
+
+		@Override
+		public GenericInputSplit[] createInputSplits(int numSplits) throws IOException {
+			numLoads++;
+			return super.createInputSplits(1);
+		}
+
+		@Override
+		public void open(GenericInputSplit split) throws IOException {
+			super.open(split);
+			nextRow = 0;
+		}
+
+		@Override
+		public boolean reachedEnd() {
+			return nextRow >= rows.size();
+		}
+
+		@Override
+		public RowData nextRecord(RowData reuse) {
+			return rows.get(nextRow++);
+		}
+	}
+}
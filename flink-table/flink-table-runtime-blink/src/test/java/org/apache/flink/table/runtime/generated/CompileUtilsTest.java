@@ -18,7 +18,9 @@
 
 package org.apache.flink.table.runtime.generated;
 
+import org.apache.flink.api.common.functions.MapFunction;
 import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.InstantiationUtil;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -27,9 +29,13 @@ import org.junit.rules.ExpectedException;
 
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for {@link CompileUtils}.
@@ -72,6 +78,63 @@ public class CompileUtilsTest {
 		CompileUtils.compile(this.getClass().getClassLoader(), "Main", code);
 	}
 
+	@Test
+	public void testCacheKeyedByCode() {
+		String code1 =
+			"public class Main {\n" +
+			"  int i;\n" +
+			"}";
+		String code2 =
+			"public class Main {\n" +
+			"  long i;\n" +
+			"}";
+
+		Class<?> class1 = CompileUtils.compile(this.getClass().getClassLoader(), "Main", code1);
+		Class<?> class2 = CompileUtils.compile(this.getClass().getClassLoader(), "Main", code2);
+		assertNotSame(class1, class2);
+	}
+
+	@Test
+	public void testCompileFromBytecode() throws Exception {
+		String code =
+			"public class Main {\n" +
+			"  public static class Inner {\n" +
+			"    public int get() { return 42; }\n" +
+			"  }\n" +
+			"  public int get() { return new Inner().get(); }\n" +
+			"}";
+
+		Map<String, byte[]> bytecode = CompileUtils.compileToBytecode(this.getClass().getClassLoader(), "Main", code);
+		assertEquals(2, bytecode.size());
+		assertTrue(bytecode.containsKey("Main"));
+		assertTrue(bytecode.containsKey("Main$Inner"));
+
+		// loads the class from the bytecode with another class loader
+		Class<?> clazz = CompileUtils.compile(new TestClassLoader(), "Main", code, bytecode);
+		assertEquals("Main", clazz.getName());
+		assertEquals(42, clazz.getMethod("get").invoke(clazz.newInstance()));
+	}
+
+	@Test
+	public void testPrecompiledGeneratedClass() throws Exception {
+		String code =
+			"public class Main implements " + MapFunction.class.getCanonicalName() + " {\n" +
+			"  public Main(Object[] references) {}\n" +
+			"  public Object map(Object value) { return value; }\n" +
+			"}";
+
+		GeneratedFunction<MapFunction<Object, Object>> generatedFunction =
+			new GeneratedFunction<>("Main", code, new Object[0]);
+		assertFalse(generatedFunction.isPrecompiled());
+		generatedFunction.precompile(this.getClass().getClassLoader());
+		assertTrue(generatedFunction.isPrecompiled());
+
+		GeneratedFunction<MapFunction<Object, Object>> shipped =
+			InstantiationUtil.clone(generatedFunction, this.getClass().getClassLoader());
+		assertTrue(shipped.isPrecompiled());
+		assertEquals("a", shipped.newInstance(new TestClassLoader()).map("a"));
+	}
+
 	private static class TestClassLoader extends URLClassLoader {
 
 		TestClassLoader() {
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.generated;
+
+import org.apache.flink.configuration.ClusterOptions;
+import org.apache.flink.configuration.Configuration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for {@link PersistentCodeCache}.
+ */
+public class PersistentCodeCacheTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testPutAndGet() throws Exception {
+		PersistentCodeCache cache = new PersistentCodeCache(temporaryFolder.newFolder().toPath());
+		String key = PersistentCodeCache.getKey("Main", "public class Main {}");
+		assertNull(cache.get(key));
+
+		Map<String, byte[]> classes = new HashMap<>();
+		classes.put("Main", new byte[] {1, 2, 3});
+		classes.put("Main$Inner", new byte[0]);
+		cache.put(key, classes);
+
+		// a new cache on the same directory, e.g. after a restart
+		Map<String, byte[]> cached = new PersistentCodeCache(cache.getDirectory()).get(key);
+		assertNotNull(cached);
+		assertEquals(classes.keySet(), cached.keySet());
+		assertArrayEquals(classes.get("Main"), cached.get("Main"));
+		assertArrayEquals(classes.get("Main$Inner"), cached.get("Main$Inner"));
+	}
+
+	@Test
+	public void testCorruptedEntryIsDeleted() throws Exception {
+		Path directory = temporaryFolder.newFolder().toPath();
+		PersistentCodeCache cache = new PersistentCodeCache(directory);
+		String key = PersistentCodeCache.getKey("Main", "public class Main {}");
+		Map<String, byte[]> classes = new HashMap<>();
+		classes.put("Main", new byte[] {1, 2, 3});
+		cache.put(key, classes);
+
+		File[] files = directory.toFile().listFiles();
+		assertNotNull(files);
+		assertEquals(1, files.length);
+		byte[] content = Files.readAllBytes(files[0].toPath());
+		Files.write(files[0].toPath(), new byte[] {content[0], content[1]});
+
+		assertNull(cache.get(key));
+		assertFalse(files[0].exists());
+	}
+
+	@Test
+	public void testKey() {
+		assertEquals(
+			PersistentCodeCache.getKey("Main", "public class Main {}"),
+			PersistentCodeCache.getKey("Main", "public class Main {}"));
+		assertNotEquals(
+			PersistentCodeCache.getKey("Main", "public class Main {}"),
+			PersistentCodeCache.getKey("Main", "public class Main { int i; }"));
+	}
+
+	@Test
+	public void testKeyDependsOnJarsOfClassLoader() throws Exception {
+		File jar = temporaryFolder.newFile("udf.jar");
+		File sameJar = temporaryFolder.newFile("udf-copy.jar");
+		File otherJar = temporaryFolder.newFile("udf-other.jar");
+		Files.write(jar.toPath(), new byte[] {1, 2, 3});
+		Files.write(sameJar.toPath(), new byte[] {1, 2, 3});
+		Files.write(otherJar.toPath(), new byte[] {1, 2, 4});
+
+		ClassLoader parent = getClass().getClassLoader();
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] {jar.toURI().toURL()}, parent);
+				URLClassLoader sameClassLoader = new URLClassLoader(new URL[] {sameJar.toURI().toURL()}, parent);
+				URLClassLoader otherClassLoader = new URLClassLoader(new URL[] {otherJar.toURI().toURL()}, parent)) {
+			String key = PersistentCodeCache.getKey("Main", "public class Main {}", classLoader);
+			assertEquals(key, PersistentCodeCache.getKey("Main", "public class Main {}", classLoader));
+			// the same jar stored elsewhere, e.g. by another job
+			assertEquals(key, PersistentCodeCache.getKey("Main", "public class Main {}", sameClassLoader));
+			assertNotEquals(key, PersistentCodeCache.getKey("Main", "public class Main {}", otherClassLoader));
+			assertNotEquals(key, PersistentCodeCache.getKey("Main", "public class Main {}"));
+		}
+	}
+
+	@Test
+	public void testFromConfiguration() throws Exception {
+		assertNull(PersistentCodeCache.fromConfiguration(new Configuration()));
+
+		Path directory = temporaryFolder.newFolder().toPath().resolve("cache");
+		Configuration config = new Configuration();
+		config.set(ClusterOptions.CODEGEN_CACHE_DIRECTORY, directory.toString());
+		PersistentCodeCache cache = PersistentCodeCache.fromConfiguration(config);
+		assertNotNull(cache);
+		assertEquals(directory, cache.getDirectory());
+		assertTrue(Files.isDirectory(directory));
+		if (isPosix(directory)) {
+			assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+		}
+	}
+
+	@Test
+	public void testDirectoryWritableByOthersIsRejected() throws Exception {
+		Path directory = temporaryFolder.newFolder().toPath();
+		assumeTrue(isPosix(directory));
+		Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+		try {
+			PersistentCodeCache.checkPrivateDirectory(directory);
+			fail("Expected an IOException.");
+		} catch (IOException expected) {
+			// expected
+		}
+
+		Configuration config = new Configuration();
+		config.set(ClusterOptions.CODEGEN_CACHE_DIRECTORY, directory.toString());
+		assertNull(PersistentCodeCache.fromConfiguration(config));
+	}
+
+	@Test
+	public void testEntryOfAnotherKeyIsNotLoaded() throws Exception {
+		Path directory = temporaryFolder.newFolder().toPath();
+		PersistentCodeCache cache = new PersistentCodeCache(directory);
+		String key = PersistentCodeCache.getKey("Main", "public class Main {}");
+		String otherKey = PersistentCodeCache.getKey("Other", "public class Other {}");
+		Map<String, byte[]> classes = new HashMap<>();
+		classes.put("Main", new byte[] {1, 2, 3});
+		cache.put(key, classes);
+
+		File[] files = directory.toFile().listFiles();
+		assertNotNull(files);
+		assertEquals(1, files.length);
+		Files.move(files[0].toPath(), directory.resolve(files[0].getName().replace(key, otherKey)));
+
+		assertNull(cache.get(otherKey));
+	}
+
+	private static boolean isPosix(Path path) {
+		return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.bundle;
+
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.operators.bundle.trigger.CountBundleTrigger;
+import org.apache.flink.table.runtime.util.BinaryRowDataKeySelector;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.VarCharType;
+import org.apache.flink.util.Collector;
+
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link BinaryMapBundleOperator}.
+ */
+public class BinaryMapBundleOperatorTest {
+
+	private static final LogicalType[] INPUT_TYPES = new LogicalType[] {new IntType(), new BigIntType()};
+	private static final LogicalType[] KEY_TYPES = new LogicalType[] {new IntType()};
+	private static final LogicalType[] VALUE_TYPES = new LogicalType[] {new BigIntType()};
+
+	@Test
+	public void testSimple() throws Exception {
+		SumBundleFunction func = new SumBundleFunction();
+		OneInputStreamOperatorTestHarness<RowData, RowData> op = createHarness(func, 3);
+		op.open();
+		synchronized (op.getCheckpointLock()) {
+			op.processElement(new StreamRecord<>(GenericRowData.of(1, 10L)));
+			op.processElement(new StreamRecord<>(GenericRowData.of(1, 20L)));
+			assertEquals(0, func.finishCount);
+
+			op.processElement(new StreamRecord<>(GenericRowData.of(2, 5L)));
+			assertEquals(1, func.finishCount);
+			assertThat(func.outputs, is(Arrays.asList("1=30", "2=5")));
+
+			op.processElement(new StreamRecord<>(GenericRowData.of(3, 1L)));
+			op.processElement(new StreamRecord<>(GenericRowData.of(3, 2L)));
+			assertEquals(1, func.finishCount);
+
+			op.close();
+			assertEquals(2, func.finishCount);
+			assertThat(func.outputs, is(Arrays.asList("3=3")));
+		}
+	}
+
+	@Test
+	public void testFinishBundleWhenMemoryIsExhausted() throws Exception {
+		SumBundleFunction func = new SumBundleFunction();
+		OneInputStreamOperatorTestHarness<RowData, RowData> op = createHarness(func, Long.MAX_VALUE);
+		op.open();
+		int numKeys = 200_000;
+		synchronized (op.getCheckpointLock()) {
+			for (int i = 0; i < numKeys; i++) {
+				op.processElement(new StreamRecord<>(GenericRowData.of(i, 1L)));
+			}
+			assertTrue(func.finishCount > 0);
+
+			op.close();
+			assertEquals(numKeys, func.numOutputs);
+		}
+	}
+
+	@Test
+	public void testFixedLengthValues() {
+		assertTrue(BinaryMapBundleOperator.isFixedLength(VALUE_TYPES));
+		assertFalse(BinaryMapBundleOperator.isFixedLength(new LogicalType[0]));
+		assertFalse(BinaryMapBundleOperator.isFixedLength(
+			new LogicalType[] {new BigIntType(), new VarCharType()}));
+	}
+
+	private static OneInputStreamOperatorTestHarness<RowData, RowData> createHarness(
+			SumBundleFunction func, long bundleSize) throws Exception {
+		BinaryMapBundleOperator operator = new BinaryMapBundleOperator(
+			func,
+			new CountBundleTrigger<>(bundleSize),
+			new BinaryRowDataKeySelector(new int[] {0}, INPUT_TYPES),
+			KEY_TYPES,
+			VALUE_TYPES);
+		OneInputStreamOperatorTestHarness<RowData, RowData> harness =
+			new OneInputStreamOperatorTestHarness<>(operator);
+		harness.getStreamConfig().setManagedMemoryFraction(1.0);
+		return harness;
+	}
+
+	/**
+	 * Sums up the second field of the input rows per key.
+	 */
+	private static class SumBundleFunction extends MapBundleFunction<RowData, RowData, RowData, RowData> {
+
+		private int finishCount = 0;
+		private long numOutputs = 0;
+		private final List<String> outputs = new ArrayList<>();
+
+		@Override
+		public RowData addInput(@Nullable RowData value, RowData input) {
+			long sum = value == null ? 0L : value.getLong(0);
+			return GenericRowData.of(sum + input.getLong(1));
+		}
+
+		@Override
+		public void finishBundle(Map<RowData, RowData> buffer, Collector<RowData> out) {
+			finishCount++;
+			outputs.clear();
+			for (Map.Entry<RowData, RowData> entry : buffer.entrySet()) {
+				outputs.add(entry.getKey().getInt(0) + "=" + entry.getValue().getLong(0));
+				numOutputs += entry.getValue().getLong(0);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.bundle.trigger;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Tests for {@link AdaptiveBundleTrigger}.
+ */
+public class AdaptiveBundleTriggerTest {
+
+	@Test
+	public void testCountTrigger() throws Exception {
+		AdaptiveBundleTrigger<Long> trigger = new AdaptiveBundleTrigger<>(2, -1, -1, -1, e -> e);
+		TestTriggerCallback callback = new TestTriggerCallback();
+		trigger.registerCallback(callback);
+
+		trigger.onElement(100L);
+		assertEquals(0, callback.getTriggerCount());
+
+		trigger.onElement(100L);
+		assertEquals(1, callback.getTriggerCount());
+
+		trigger.onElement(100L);
+		assertEquals(1, callback.getTriggerCount());
+	}
+
+	@Test
+	public void testBytesTrigger() throws Exception {
+		AdaptiveBundleTrigger<Long> trigger = new AdaptiveBundleTrigger<>(100, 50, -1, -1, e -> e);
+		TestTriggerCallback callback = new TestTriggerCallback();
+		trigger.registerCallback(callback);
+
+		trigger.onElement(20L);
+		trigger.onElement(20L);
+		assertEquals(40, trigger.getBundleBytes());
+		assertEquals(0, callback.getTriggerCount());
+
+		trigger.onElement(20L);
+		assertEquals(1, callback.getTriggerCount());
+		assertEquals(0, trigger.getBundleBytes());
+
+		// a single wide element fills a bundle on its own
+		trigger.onElement(60L);
+		assertEquals(2, callback.getTriggerCount());
+	}
+
+	@Test
+	public void testLatencyTrigger() throws Exception {
+		AdaptiveBundleTrigger<Long> trigger = new AdaptiveBundleTrigger<>(100, -1, 10, -1, e -> e);
+		TestTriggerCallback callback = new TestTriggerCallback();
+		trigger.registerCallback(callback);
+
+		trigger.onElement(1L);
+		assertEquals(0, callback.getTriggerCount());
+
+		Thread.sleep(20);
+		trigger.onElement(1L);
+		assertEquals(1, callback.getTriggerCount());
+	}
+
+	@Test
+	public void testAdaptCount() throws Exception {
+		AdaptiveBundleTrigger<Long> trigger = new AdaptiveBundleTrigger<>(128, -1, -1, 10, e -> e);
+		trigger.registerCallback(new TestTriggerCallback());
+		assertEquals(128, trigger.getCurrentMaxCount());
+
+		// expensive bundles shrink the count budget
+		trigger.onBundleFinished(128, 20_000_000L);
+		assertEquals(64, trigger.getCurrentMaxCount());
+		for (int i = 0; i < 10; i++) {
+			trigger.onBundleFinished(64, 20_000_000L);
+		}
+		assertEquals(2, trigger.getCurrentMaxCount());
+
+		// partially filled bundles do not grow the count budget
+		trigger.onBundleFinished(1, 1_000_000L);
+		assertEquals(2, trigger.getCurrentMaxCount());
+
+		// cheap and full bundles grow the count budget up to the maximum count
+		trigger.onBundleFinished(2, 1_000_000L);
+		assertEquals(3, trigger.getCurrentMaxCount());
+		for (int i = 0; i < 100; i++) {
+			trigger.onBundleFinished(trigger.getCurrentMaxCount(), 1_000_000L);
+		}
+		assertEquals(128, trigger.getCurrentMaxCount());
+	}
+}
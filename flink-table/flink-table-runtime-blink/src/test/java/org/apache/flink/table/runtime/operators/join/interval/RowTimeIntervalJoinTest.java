@@ -233,6 +233,72 @@ public class RowTimeIntervalJoinTest extends TimeIntervalStreamJoinTestBase {
 		testHarness.close();
 	}
 
+	@Test
+	public void testRowTimeLeftOuterJoinWithStateSlices() throws Exception {
+		RowTimeIntervalJoin joinProcessFunc = new RowTimeIntervalJoin(
+				FlinkJoinType.LEFT, -5, 9, 0, rowType, rowType, generatedFunction, 0, 0, 10);
+
+		KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData> testHarness = createTestHarness(
+				joinProcessFunc);
+
+		testHarness.open();
+
+		testHarness.processElement1(insertRecord(1L, "k1"));
+		testHarness.processElement1(insertRecord(3L, "k1"));
+		testHarness.processElement2(insertRecord(1L, "k2"));
+		// one timer and one state entry per slice
+		assertEquals(2, testHarness.numEventTimeTimers());
+		assertEquals(2, testHarness.numKeyedStateEntries());
+
+		// The left slice [0, 10) will be padded and removed (15=0+10+5).
+		testHarness.processWatermark1(new Watermark(15));
+		testHarness.processWatermark2(new Watermark(15));
+		assertEquals(1, testHarness.numEventTimeTimers());
+		assertEquals(1, testHarness.numKeyedStateEntries());
+
+		// The right slice [0, 10) will be removed (19=0+10+9).
+		testHarness.processWatermark1(new Watermark(19));
+		testHarness.processWatermark2(new Watermark(19));
+		assertEquals(0, testHarness.numEventTimeTimers());
+		assertEquals(0, testHarness.numKeyedStateEntries());
+
+		// Make sure the common (inner) join can be performed.
+		testHarness.processElement1(insertRecord(19L, "k1"));
+		testHarness.processElement1(insertRecord(20L, "k1"));
+		testHarness.processElement2(insertRecord(26L, "k1"));
+		testHarness.processElement2(insertRecord(25L, "k1"));
+		testHarness.processElement1(insertRecord(21L, "k1"));
+		testHarness.processElement2(insertRecord(39L, "k2"));
+		testHarness.processElement2(insertRecord(40L, "k2"));
+		testHarness.processElement1(insertRecord(50L, "k2"));
+		testHarness.processElement1(insertRecord(49L, "k2"));
+		testHarness.processElement2(insertRecord(41L, "k2"));
+		testHarness.processWatermark1(new Watermark(100));
+		testHarness.processWatermark2(new Watermark(100));
+		assertEquals(0, testHarness.numEventTimeTimers());
+		assertEquals(0, testHarness.numKeyedStateEntries());
+
+		List<Object> expectedOutput = new ArrayList<>();
+		expectedOutput.add(insertRecord(1L, "k1", null, null));
+		expectedOutput.add(insertRecord(3L, "k1", null, null));
+		expectedOutput.add(insertRecord(20L, "k1", 25L, "k1"));
+		expectedOutput.add(insertRecord(21L, "k1", 25L, "k1"));
+		expectedOutput.add(insertRecord(21L, "k1", 26L, "k1"));
+		expectedOutput.add(insertRecord(49L, "k2", 40L, "k2"));
+		expectedOutput.add(insertRecord(49L, "k2", 41L, "k2"));
+		expectedOutput.add(insertRecord(50L, "k2", 41L, "k2"));
+		expectedOutput.add(insertRecord(19L, "k1", null, null));
+
+		List<Object> output = new ArrayList<>();
+		for (Object record : testHarness.getOutput()) {
+			if (!(record instanceof Watermark)) {
+				output.add(record);
+			}
+		}
+		assertor.assertOutputEqualsSorted("output wrong.", expectedOutput, output);
+		testHarness.close();
+	}
+
 	@Test
 	public void testRowTimeRightOuterJoin() throws Exception {
 		RowTimeIntervalJoin joinProcessFunc = new RowTimeIntervalJoin(
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.table.runtime.operators.join.stream;
+
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedTwoInputStreamOperatorTestHarness;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.generated.GeneratedJoinCondition;
+import org.apache.flink.table.runtime.operators.join.stream.state.JoinInputSideSpec;
+import org.apache.flink.table.runtime.typeutils.RowDataTypeInfo;
+import org.apache.flink.table.runtime.util.BinaryRowDataKeySelector;
+import org.apache.flink.table.runtime.util.RowDataHarnessAssertor;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.deleteRecord;
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests for {@link StreamingJoinOperator} with cached join records.
+ */
+public class StreamingJoinOperatorTest {
+
+	private final RowDataTypeInfo rowType = new RowDataTypeInfo(
+		new BigIntType(), new VarCharType(VarCharType.MAX_LENGTH));
+
+	private final RowDataTypeInfo outputRowType = new RowDataTypeInfo(
+		new BigIntType(), new VarCharType(VarCharType.MAX_LENGTH),
+		new BigIntType(), new VarCharType(VarCharType.MAX_LENGTH));
+
+	private final RowDataHarnessAssertor assertor = new RowDataHarnessAssertor(outputRowType.getFieldTypes());
+
+	private final String conditionCode =
+		"public class TrueJoinCondition\n" +
+			"    extends org.apache.flink.api.common.functions.AbstractRichFunction\n" +
+			"    implements org.apache.flink.table.runtime.generated.JoinCondition {\n" +
+			"  public TrueJoinCondition(Object[] references) throws Exception {}\n" +
+			"  @Override\n" +
+			"  public boolean apply(org.apache.flink.table.data.RowData in1, org.apache.flink.table.data.RowData in2) {\n" +
+			"    return true;\n" +
+			"  }\n" +
+			"}\n";
+
+	@Test
+	public void testCachedRecordsProduceSameResults() throws Exception {
+		List<Object> expected = processInputs(0);
+		assertFalse(expected.isEmpty());
+
+		assertor.assertOutputEqualsSorted("output wrong.", expected, processInputs(100));
+		// a cache which holds less records than a join key has
+		assertor.assertOutputEqualsSorted("output wrong.", expected, processInputs(1));
+	}
+
+	private List<Object> processInputs(int recordsCacheSize) throws Exception {
+		StreamingJoinOperator operator = new StreamingJoinOperator(
+			rowType,
+			rowType,
+			new GeneratedJoinCondition("TrueJoinCondition", conditionCode, new Object[0]),
+			JoinInputSideSpec.withoutUniqueKey(),
+			JoinInputSideSpec.withoutUniqueKey(),
+			false,
+			false,
+			new boolean[] {true},
+			0,
+			recordsCacheSize);
+
+		BinaryRowDataKeySelector keySelector = new BinaryRowDataKeySelector(
+			new int[] {0}, new LogicalType[] {new BigIntType(), new VarCharType(VarCharType.MAX_LENGTH)});
+		KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData> testHarness =
+			new KeyedTwoInputStreamOperatorTestHarness<>(
+				operator, keySelector, keySelector, keySelector.getProducedType());
+
+		try {
+			testHarness.open();
+
+			testHarness.processElement1(insertRecord(1L, "a1"));
+			testHarness.processElement1(insertRecord(1L, "a1"));
+			testHarness.processElement2(insertRecord(1L, "b1"));
+			testHarness.processElement2(insertRecord(2L, "b2"));
+			testHarness.processElement1(insertRecord(2L, "a2"));
+			testHarness.processElement1(deleteRecord(1L, "a1"));
+			testHarness.processElement2(insertRecord(1L, "b3"));
+			testHarness.processElement2(deleteRecord(1L, "b1"));
+			testHarness.processElement1(insertRecord(1L, "a3"));
+			testHarness.processElement2(insertRecord(2L, "b4"));
+
+			List<Object> output = new ArrayList<>();
+			for (Object record : testHarness.getOutput()) {
+				output.add(record);
+			}
+			return output;
+		} finally {
+			testHarness.close();
+		}
+	}
+}